@@ -0,0 +1,31 @@
+@echo off
+setlocal
+echo ===============================================
+echo     BENCHMARKS HOSPITAL SANTA VIDA
+echo ===============================================
+
+REM Los benchmarks solo usan estructuras, modelos y servicios: no requieren JavaFX.
+REM -sourcepath compila unicamente las clases de src que usan los benchmarks
+if not exist "out-benchmarks" mkdir out-benchmarks
+
+echo Compilando benchmarks...
+javac -d out-benchmarks -cp "lib\mysql-connector-j-8.0.33.jar" -sourcepath src benchmarks\src\benchmarks\*.java
+if errorlevel 1 (
+    echo ------------------------------------------------
+    echo ERROR EN COMPILACION DE BENCHMARKS
+    echo ------------------------------------------------
+    pause
+    exit /b 1
+)
+
+REM Argumentos opcionales (ver EjecutorBenchmarks):
+REM   benchmark.bat -l                               lista los casos
+REM   benchmark.bat TriageQueue -p registros=1000    filtra por nombre y fija parametros
+REM   benchmark.bat -f 3 -i 10 -rff resultados.json  mas forks e iteraciones
+REM   benchmark.bat Validadores -p implementacion=actual,original
+REM Equivalencia de los validadores con las versiones originales (regex), tras compilar:
+REM   java -cp out-benchmarks benchmarks.EquivalenciaValidadores 1000000
+echo Ejecutando benchmarks...
+java -Xms2g -Xmx2g -cp "out-benchmarks;lib\mysql-connector-j-8.0.33.jar" benchmarks.EjecutorBenchmarks %*
+
+endlocal
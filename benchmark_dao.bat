@@ -0,0 +1,27 @@
+@echo off
+setlocal
+echo ===============================================
+echo     BENCHMARK DE DAO HOSPITAL SANTA VIDA
+echo ===============================================
+
+REM Requiere un servidor MySQL/MariaDB con la configuracion de database.properties.
+REM Se crea una base desechable con sufijo _bench; la base del hospital no se toca
+if not exist "out-benchmarks" mkdir out-benchmarks
+
+echo Compilando benchmarks...
+javac -d out-benchmarks -cp "lib\mysql-connector-j-8.0.33.jar" -sourcepath src benchmarks\src\benchmarks\*.java
+if errorlevel 1 (
+    echo ------------------------------------------------
+    echo ERROR EN COMPILACION DE BENCHMARKS
+    echo ------------------------------------------------
+    pause
+    exit /b 1
+)
+
+REM Argumentos opcionales (ver BenchmarkDAO):
+REM   benchmark_dao.bat --registros 100000 --duracion 30
+REM   benchmark_dao.bat --tasa 200 expediente salaEspera
+echo Ejecutando benchmark de DAO...
+java -cp "out-benchmarks;lib\mysql-connector-j-8.0.33.jar" benchmarks.BenchmarkDAO %*
+
+endlocal
@@ -0,0 +1,478 @@
+package benchmarks;
+
+import dao.AtencionMedicaDAO;
+import dao.CargaMasivaDAO;
+import dao.DatosSocialesDAO;
+import dao.PacienteDAO;
+import dao.RegistroTriageDAO;
+import models.EstadoPaciente;
+import models.RegistroTriage;
+import services.GeneradorCargaSintetica;
+import utils.DatabaseConnection;
+import utils.EjecutorScriptSQL;
+import utils.HistogramaLatencias;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark de latencia de extremo a extremo de los DAO contra una base de datos desechable
+ * Crea en el servidor MySQL/MariaDB configurado una base con sufijo _bench, carga el
+ * esquema del proyecto, la llena con el generador de carga sintética y mide las cargas de
+ * trabajo de las pantallas principales pasando por BaseDAO (ejecutarConsulta,
+ * mapearResultSet, ejecutarInsercionConClave) tal como lo hace la aplicación
+ * Cada carga se compone de pasos con su propio histograma de latencias y conteo de
+ * errores; los histogramas se guardan en formato .hgrm de HdrHistogram
+ *
+ * Las operaciones corren en un solo hilo porque los DAO comparten la única conexión de
+ * DatabaseConnection. Con --tasa la carga se emite a ritmo fijo y la latencia se mide
+ * desde el instante programado, de modo que las pausas del servidor no se ocultan
+ * (omisión coordinada)
+ *
+ * Uso: BenchmarkDAO [opciones] [carga...]
+ *   --registros N      registros de triage a generar, por defecto 10000
+ *   --dias N           días de historia hasta hoy, por defecto 30
+ *   --base NOMBRE      base desechable (debe terminar en _bench), por defecto [base configurada]_bench
+ *   --esquema RUTA     script del esquema, por defecto database/hospital_santa_vida.sql
+ *   --calentamiento S  segundos de calentamiento por carga, por defecto 3
+ *   --duracion S       segundos de medición por carga, por defecto 10
+ *   --tasa N           operaciones por segundo a ritmo fijo (0 = lazo cerrado), por defecto 0
+ *   --salida DIR       directorio de histogramas y resumen, por defecto resultados-dao
+ *   --reutilizar       no recarga la base si ya existe con datos
+ *   --conservar        no elimina la base al terminar
+ * Cargas: insertarTriage, salaEspera, pacientesRecientes, expediente, estadisticasDia (todas por defecto)
+ */
+public final class BenchmarkDAO {
+    
+    private static final String SUFIJO_BASE = "_bench";
+    private static final double NANOS_POR_MS = 1_000_000.0;
+    
+    /**
+     * Un paso de una carga de trabajo; recibe el número de operación para variar los datos
+     */
+    @FunctionalInterface
+    private interface Paso {
+        Object ejecutar(long operacion) throws Exception;
+    }
+    
+    /**
+     * Carga de trabajo: secuencia de pasos medidos por separado y en conjunto
+     */
+    private static final class Carga {
+        final String nombre;
+        final List<String> nombresPasos = new ArrayList<>();
+        final List<Paso> pasos = new ArrayList<>();
+        final HistogramaLatencias total = new HistogramaLatencias();
+        HistogramaLatencias[] porPaso;
+        long[] errores;
+        String[] primerError;
+        long operaciones;
+        long nanos;
+        
+        Carga(String nombre) {
+            this.nombre = nombre;
+        }
+        
+        Carga paso(String nombrePaso, Paso paso) {
+            nombresPasos.add(nombrePaso);
+            pasos.add(paso);
+            return this;
+        }
+        
+        void reiniciar() {
+            total.reiniciar();
+            porPaso = new HistogramaLatencias[pasos.size()];
+            for (int i = 0; i < porPaso.length; i++) {
+                porPaso[i] = new HistogramaLatencias();
+            }
+            errores = new long[pasos.size()];
+            primerError = new String[pasos.size()];
+            operaciones = 0;
+            nanos = 0;
+        }
+    }
+    
+    private int registros = 10_000;
+    private int dias = 30;
+    private String base;
+    private Path esquema = Paths.get("database", "hospital_santa_vida.sql");
+    private int segundosCalentamiento = 3;
+    private int segundosMedicion = 10;
+    private int tasa = 0;
+    private Path salida = Paths.get("resultados-dao");
+    private boolean reutilizar = false;
+    private boolean conservar = false;
+    private final List<String> seleccion = new ArrayList<>();
+    
+    public static void main(String[] args) {
+        BenchmarkDAO benchmark = new BenchmarkDAO();
+        try {
+            benchmark.leerArgumentos(args);
+            benchmark.ejecutar();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Error ejecutando benchmark de DAO: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    private void ejecutar() throws Exception {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        String baseOriginal = db.getBaseDatos();
+        if (base == null) {
+            base = baseOriginal + SUFIJO_BASE;
+        }
+        if (!base.matches("[A-Za-z0-9_]+") || !base.endsWith(SUFIJO_BASE)) {
+            throw new IllegalArgumentException("La base de benchmark debe ser un identificador terminado en " +
+                                               SUFIJO_BASE + ": " + base);
+        }
+        
+        LocalDateTime hasta = LocalDateTime.now();
+        GeneradorCargaSintetica generador = new GeneradorCargaSintetica(
+            GeneradorCargaSintetica.SEMILLA_DEFAULT, registros, GeneradorCargaSintetica.ID_INICIAL_DEFAULT,
+            hasta.minusDays(dias), hasta);
+        
+        try {
+            prepararBase(db, generador);
+            List<Carga> cargas = crearCargas(generador);
+            Files.createDirectories(salida);
+            
+            // Los DAO imprimen depuración en cada operación; se descarta mientras se mide
+            PrintStream consola = System.out;
+            for (Carga carga : cargas) {
+                consola.println("# Carga: " + carga.nombre + " (" + String.join(", ", carga.nombresPasos) + ")");
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                try {
+                    medir(carga, segundosCalentamiento);
+                    medir(carga, segundosMedicion);
+                } finally {
+                    System.setOut(consola);
+                }
+                imprimir(carga);
+                guardarHistogramas(carga);
+            }
+            guardarResumen(cargas);
+            System.out.println("Histogramas y resumen guardados en " + salida.toAbsolutePath());
+        } finally {
+            if (!conservar) {
+                eliminarBase(db);
+            }
+            db.cambiarBaseDatos(baseOriginal);
+        }
+    }
+    
+    /**
+     * Crea la base desechable, carga el esquema y la llena con datos sintéticos
+     */
+    private void prepararBase(DatabaseConnection db, GeneradorCargaSintetica generador) throws Exception {
+        db.cambiarBaseDatos("");
+        try (Connection conexion = db.abrirConexionDedicada(); Statement stmt = conexion.createStatement()) {
+            if (!reutilizar) {
+                stmt.executeUpdate("DROP DATABASE IF EXISTS `" + base + "`");
+            }
+            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS `" + base + "` " +
+                               "CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci");
+        }
+        db.cambiarBaseDatos(base);
+        
+        try (Connection conexion = db.abrirConexionDedicada()) {
+            if (reutilizar && tieneDatos(conexion)) {
+                System.out.println("Reutilizando base " + base);
+                return;
+            }
+            
+            long inicio = System.currentTimeMillis();
+            cargarEsquema(conexion);
+            System.out.println("Esquema cargado en " + base + " (" + (System.currentTimeMillis() - inicio) + " ms)");
+            
+            GeneradorCargaSintetica.ResultadoGeneracion resultado = generador.insertar(conexion, CargaMasivaDAO.TAMAÑO_LOTE);
+            System.out.println(resultado);
+        }
+    }
+    
+    /**
+     * Ejecuta el script del esquema sentencia por sentencia sobre la base desechable,
+     * omitiendo las que crean o seleccionan la base real y las consultas de verificación
+     */
+    private void cargarEsquema(Connection conexion) throws IOException, SQLException {
+        if (!Files.isRegularFile(esquema)) {
+            throw new IllegalArgumentException("No se encontró el esquema: " + esquema);
+        }
+        try (Reader lector = Files.newBufferedReader(esquema, StandardCharsets.UTF_8);
+             Statement stmt = conexion.createStatement()) {
+            EjecutorScriptSQL.analizar(lector, (sql, linea) -> {
+                String inicio = sql.stripLeading().toUpperCase(Locale.ROOT);
+                if (inicio.startsWith("CREATE DATABASE") || inicio.startsWith("USE ") ||
+                    inicio.startsWith("SELECT") || inicio.startsWith("COMMIT")) {
+                    return;
+                }
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException("Error en la línea " + linea + " del esquema: " + e.getMessage(), e);
+                }
+            });
+        }
+    }
+    
+    private static boolean tieneDatos(Connection conexion) {
+        try (Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM registros_triage")) {
+            return rs.next() && rs.getLong(1) > 0;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    private void eliminarBase(DatabaseConnection db) {
+        db.cambiarBaseDatos("");
+        try (Connection conexion = db.abrirConexionDedicada(); Statement stmt = conexion.createStatement()) {
+            stmt.executeUpdate("DROP DATABASE IF EXISTS `" + base + "`");
+        } catch (SQLException e) {
+            System.err.println("Error al eliminar la base de benchmark: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Cargas que reproducen las consultas de las pantallas: las mismas llamadas a DAO que
+     * hacen TriageService y PacienteService
+     */
+    private List<Carga> crearCargas(GeneradorCargaSintetica generador) {
+        RegistroTriageDAO triageDAO = new RegistroTriageDAO();
+        PacienteDAO pacienteDAO = new PacienteDAO();
+        DatosSocialesDAO datosSocialesDAO = new DatosSocialesDAO();
+        AtencionMedicaDAO atencionMedicaDAO = new AtencionMedicaDAO();
+        int idInicial = GeneradorCargaSintetica.ID_INICIAL_DEFAULT;
+        long pacientes = generador.getPacientes();
+        
+        List<Carga> cargas = new ArrayList<>();
+        
+        // Registro de un triage nuevo: mismos datos que la carga pero con folio de la aplicación
+        cargas.add(new Carga("insertarTriage").paso("insertar", operacion -> {
+            RegistroTriage registro = generador.generarRegistroTriage(operacion % generador.getRegistros());
+            registro.setId(0);
+            registro.setFolio(null);
+            registro.setFechaHoraLlegada(LocalDateTime.now());
+            registro.setFechaTriage(LocalDateTime.now());
+            registro.setEstado(EstadoPaciente.ESPERANDO_ASISTENTE);
+            return triageDAO.insertar(registro);
+        }));
+        
+        // Sala de espera: cola de médicos y lista de trabajo social (proyecciones de fila)
+        cargas.add(new Carga("salaEspera")
+            .paso("filasCola", operacion -> triageDAO.obtenerFilasCola())
+            .paso("filasTrabajoSocial", operacion -> triageDAO.obtenerFilasEsperandoTrabajoSocial()));
+        
+        // Lista de pacientes recientes al abrir la pantalla de registro (siembra de la ventana)
+        cargas.add(new Carga("pacientesRecientes")
+            .paso("filasRecientes", operacion -> pacienteDAO.obtenerFilasRecientes(100)));
+        
+        // Apertura del expediente completo (PacienteService.obtenerInformacionCompleta)
+        cargas.add(new Carga("expediente")
+            .paso("paciente", operacion -> pacienteDAO.buscarPorId(pacienteDe(operacion, idInicial, pacientes)))
+            .paso("historialTriage", operacion -> triageDAO.obtenerPorPaciente(pacienteDe(operacion, idInicial, pacientes)))
+            .paso("datosSociales", operacion -> datosSocialesDAO.obtenerPorPaciente(pacienteDe(operacion, idInicial, pacientes)))
+            .paso("atenciones", operacion -> atencionMedicaDAO.obtenerPorPaciente(pacienteDe(operacion, idInicial, pacientes))));
+        
+        // Tablero del día (TriageService.obtenerEstadisticas y obtenerEstadisticasPorFecha)
+        cargas.add(new Carga("estadisticasDia")
+            .paso("registrosHoy", operacion -> triageDAO.contarRegistrosHoy())
+            .paso("evaluadosHoy", operacion -> triageDAO.contarEvaluadosHoy())
+            .paso("conteoUrgencia", operacion -> triageDAO.contarPorUrgenciaEnFecha(LocalDate.now().atStartOfDay()))
+            .paso("tiempos", operacion -> triageDAO.obtenerEstadisticasTiempo()));
+        
+        if (seleccion.isEmpty()) {
+            return cargas;
+        }
+        List<Carga> seleccionadas = new ArrayList<>();
+        for (Carga carga : cargas) {
+            if (seleccion.contains(carga.nombre)) {
+                seleccionadas.add(carga);
+            }
+        }
+        if (seleccionadas.isEmpty()) {
+            throw new IllegalArgumentException("Ninguna carga coincide con " + seleccion);
+        }
+        return seleccionadas;
+    }
+    
+    /**
+     * Recorre los pacientes en un orden disperso para no leer siempre las mismas páginas
+     */
+    private static int pacienteDe(long operacion, int idInicial, long pacientes) {
+        return (int) (idInicial + Math.floorMod(operacion * 2_654_435_761L, pacientes));
+    }
+    
+    /**
+     * Ejecuta la carga durante el tiempo indicado, a ritmo fijo o en lazo cerrado
+     */
+    private void medir(Carga carga, int segundos) {
+        carga.reiniciar();
+        long intervalo = tasa > 0 ? 1_000_000_000L / tasa : 0;
+        long comienzo = System.nanoTime();
+        long limite = comienzo + segundos * 1_000_000_000L;
+        long programado = comienzo;
+        
+        while (System.nanoTime() < limite) {
+            long inicio;
+            if (intervalo > 0) {
+                long espera = programado - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                inicio = programado;
+                programado += intervalo;
+            } else {
+                inicio = System.nanoTime();
+            }
+            
+            for (int i = 0; i < carga.pasos.size(); i++) {
+                long inicioPaso = System.nanoTime();
+                try {
+                    carga.pasos.get(i).ejecutar(carga.operaciones);
+                    carga.porPaso[i].registrar(System.nanoTime() - inicioPaso);
+                } catch (Exception e) {
+                    if (carga.errores[i]++ == 0) {
+                        carga.primerError[i] = e.getClass().getSimpleName() + ": " + e.getMessage();
+                    }
+                }
+            }
+            carga.total.registrar(System.nanoTime() - inicio);
+            carga.operaciones++;
+        }
+        carga.nanos = System.nanoTime() - comienzo;
+    }
+    
+    private static void imprimir(Carga carga) {
+        String formato = "  %-24s %9s %10s %8s %9s %9s %9s %9s %9s%n";
+        System.out.printf(Locale.ROOT, formato, "Paso", "Ops", "Ops/s", "Errores", "p50 ms", "p90 ms", "p99 ms",
+                          "p99.9 ms", "Max ms");
+        double segundos = carga.nanos / 1e9;
+        for (int i = 0; i < carga.pasos.size(); i++) {
+            HistogramaLatencias h = carga.porPaso[i];
+            System.out.printf(Locale.ROOT, formato, carga.nombresPasos.get(i), h.getConteo(),
+                              String.format(Locale.ROOT, "%.1f", h.getConteo() / segundos), carga.errores[i],
+                              ms(h.percentil(50)), ms(h.percentil(90)), ms(h.percentil(99)),
+                              ms(h.percentil(99.9)), ms(h.getMaximo()));
+            if (carga.primerError[i] != null) {
+                System.out.println("    primer error: " + carga.primerError[i]);
+            }
+        }
+        HistogramaLatencias t = carga.total;
+        System.out.printf(Locale.ROOT, formato, "[total]", carga.operaciones,
+                          String.format(Locale.ROOT, "%.1f", carga.operaciones / segundos), "",
+                          ms(t.percentil(50)), ms(t.percentil(90)), ms(t.percentil(99)), ms(t.percentil(99.9)),
+                          ms(t.getMaximo()));
+        System.out.println();
+    }
+    
+    private static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_POR_MS);
+    }
+    
+    private void guardarHistogramas(Carga carga) throws IOException {
+        escribirHistograma(carga.total, salida.resolve(carga.nombre + ".hgrm"));
+        for (int i = 0; i < carga.pasos.size(); i++) {
+            escribirHistograma(carga.porPaso[i], salida.resolve(carga.nombre + "." + carga.nombresPasos.get(i) + ".hgrm"));
+        }
+    }
+    
+    private static void escribirHistograma(HistogramaLatencias histograma, Path archivo) throws IOException {
+        try (PrintWriter escritor = new PrintWriter(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8))) {
+            histograma.escribirDistribucion(escritor, NANOS_POR_MS);
+        }
+    }
+    
+    /**
+     * Una fila por carga y por paso, en milisegundos, para comparar corridas
+     */
+    private void guardarResumen(List<Carga> cargas) throws IOException {
+        try (PrintWriter escritor = new PrintWriter(Files.newBufferedWriter(salida.resolve("resumen.csv"),
+                                                                            StandardCharsets.UTF_8))) {
+            escritor.println("carga,paso,registros,tasa,operaciones,ops_por_segundo,errores,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            for (Carga carga : cargas) {
+                double segundos = carga.nanos / 1e9;
+                for (int i = 0; i < carga.pasos.size(); i++) {
+                    escribirFila(escritor, carga.nombre, carga.nombresPasos.get(i), carga.porPaso[i],
+                                 carga.porPaso[i].getConteo() / segundos, carga.errores[i]);
+                }
+                long errores = 0;
+                for (long e : carga.errores) {
+                    errores += e;
+                }
+                escribirFila(escritor, carga.nombre, "total", carga.total, carga.operaciones / segundos, errores);
+            }
+        }
+    }
+    
+    private void escribirFila(PrintWriter escritor, String carga, String paso, HistogramaLatencias h,
+                              double opsPorSegundo, long errores) {
+        escritor.println(String.join(",", carga, paso, String.valueOf(registros), String.valueOf(tasa),
+                                     String.valueOf(h.getConteo()), String.format(Locale.ROOT, "%.2f", opsPorSegundo),
+                                     String.valueOf(errores), ms(h.percentil(50)), ms(h.percentil(90)),
+                                     ms(h.percentil(99)), ms(h.percentil(99.9)), ms(h.getMaximo())));
+    }
+    
+    private void leerArgumentos(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--registros": registros = entero(args, ++i, arg, 1); break;
+                case "--dias": dias = entero(args, ++i, arg, 1); break;
+                case "--base": base = valor(args, ++i, arg); break;
+                case "--esquema": esquema = Paths.get(valor(args, ++i, arg)); break;
+                case "--calentamiento": segundosCalentamiento = entero(args, ++i, arg, 0); break;
+                case "--duracion": segundosMedicion = entero(args, ++i, arg, 1); break;
+                case "--tasa": tasa = entero(args, ++i, arg, 0); break;
+                case "--salida": salida = Paths.get(valor(args, ++i, arg)); break;
+                case "--reutilizar": reutilizar = true; break;
+                case "--conservar": conservar = true; break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Opción desconocida: " + arg);
+                    }
+                    seleccion.add(arg);
+            }
+        }
+    }
+    
+    private static String valor(String[] args, int indice, String opcion) {
+        if (indice >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + opcion);
+        }
+        return args[indice];
+    }
+    
+    private static int entero(String[] args, int indice, String opcion, int minimo) {
+        String texto = valor(args, indice, opcion);
+        try {
+            int numero = Integer.parseInt(texto);
+            if (numero < minimo) {
+                throw new IllegalArgumentException(opcion + " debe ser al menos " + minimo);
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido para " + opcion + ": " + texto);
+        }
+    }
+}
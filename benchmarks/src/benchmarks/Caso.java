@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.Collections;
+import java.util.TreeMap;
+import java.util.Map;
+
+/**
+ * Un benchmark concreto: suite, operación, valores de parámetros y número de hilos
+ */
+public final class Caso {
+    
+    /**
+     * Prepara el estado del benchmark (fuera de la medición) y devuelve la operación a medir
+     */
+    @FunctionalInterface
+    public interface Preparacion {
+        Operacion preparar() throws Exception;
+    }
+    
+    /**
+     * Operación medida; se invoca en ciclo desde cada hilo hasta que termina la iteración
+     */
+    @FunctionalInterface
+    public interface Operacion {
+        void ejecutar(Sumidero sumidero, int hilo) throws Exception;
+    }
+    
+    private final String suite;
+    private final String nombre;
+    private final Map<String, String> parametros;
+    private final int hilos;
+    private final Preparacion preparacion;
+    
+    Caso(String suite, String nombre, Map<String, String> parametros, int hilos, Preparacion preparacion) {
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo");
+        }
+        this.suite = suite;
+        this.nombre = nombre;
+        this.parametros = Collections.unmodifiableMap(new TreeMap<>(parametros));
+        this.hilos = hilos;
+        this.preparacion = preparacion;
+    }
+    
+    public String getSuite() { return suite; }
+    public String getNombre() { return nombre; }
+    public Map<String, String> getParametros() { return parametros; }
+    public int getHilos() { return hilos; }
+    public Preparacion getPreparacion() { return preparacion; }
+    
+    /**
+     * @return Nombre completo (paquete.Suite.operacion), igual que en los reportes de JMH
+     */
+    public String getNombreCompleto() {
+        return "benchmarks." + suite + "." + nombre;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getNombreCompleto());
+        if (!parametros.isEmpty()) {
+            sb.append(' ').append(parametros);
+        }
+        if (hilos > 1) {
+            sb.append(" hilos=").append(hilos);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,487 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Ejecutor de microbenchmarks de las estructuras de datos del hospital
+ * Sigue el modelo de JMH: cada caso corre en una JVM hija nueva (fork) con iteraciones
+ * de calentamiento y de medición por tiempo; el puntaje es el rendimiento en ops/s con
+ * intervalo de confianza al 99.9% y los resultados se guardan en el formato JSON de JMH
+ * para compararlos entre versiones con las mismas herramientas
+ *
+ * Uso: EjecutorBenchmarks [opciones] [filtro regex...]
+ *   -f N         forks por caso (0 = en la misma JVM), por defecto 1
+ *   -wi N        iteraciones de calentamiento, por defecto 3
+ *   -i N         iteraciones de medición, por defecto 5
+ *   -w MS        duración de cada iteración de calentamiento en ms, por defecto 1000
+ *   -r MS        duración de cada iteración de medición en ms, por defecto 1000
+ *   -p nom=a,b   valores de un parámetro (reemplaza los de la suite)
+ *   -rff ARCHIVO archivo JSON de resultados, por defecto benchmarks-resultados.json
+ *   -l           solo listar los casos
+ */
+public final class EjecutorBenchmarks {
+    
+    private static final String MARCA_RESULTADO = "#RESULTADO ";
+    private static final String ARCHIVO_DEFAULT = "benchmarks-resultados.json";
+    
+    /**
+     * Valores críticos de la t de Student (dos colas, 99.9%) para 1..30 grados de libertad
+     */
+    private static final double[] T_999 = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+    
+    private int forks = 1;
+    private int iteracionesCalentamiento = 3;
+    private int iteraciones = 5;
+    private long milisCalentamiento = 1000;
+    private long milisMedicion = 1000;
+    private String archivoResultados = ARCHIVO_DEFAULT;
+    private boolean soloListar = false;
+    private int indiceHijo = -1;
+    private final Map<String, List<String>> parametros = new LinkedHashMap<>();
+    private final List<Pattern> filtros = new ArrayList<>();
+    
+    /**
+     * Resultado de un caso: los puntajes de cada iteración medida agrupados por fork
+     */
+    public static class ResultadoCaso {
+        private final Caso caso;
+        private final List<double[]> puntajesPorFork;
+        
+        public ResultadoCaso(Caso caso, List<double[]> puntajesPorFork) {
+            this.caso = caso;
+            this.puntajesPorFork = puntajesPorFork;
+        }
+        
+        public Caso getCaso() { return caso; }
+        public List<double[]> getPuntajesPorFork() { return puntajesPorFork; }
+        
+        public double[] getTodos() {
+            return puntajesPorFork.stream().flatMapToDouble(Arrays::stream).toArray();
+        }
+        
+        public double getPuntaje() {
+            return Arrays.stream(getTodos()).average().orElse(Double.NaN);
+        }
+        
+        /**
+         * @return Semiamplitud del intervalo de confianza al 99.9% (NaN con una sola muestra)
+         */
+        public double getError() {
+            double[] todos = getTodos();
+            int n = todos.length;
+            if (n < 2) {
+                return Double.NaN;
+            }
+            double media = getPuntaje();
+            double suma = 0;
+            for (double valor : todos) {
+                suma += (valor - media) * (valor - media);
+            }
+            double desviacion = Math.sqrt(suma / (n - 1));
+            return valorCritico(n - 1) * desviacion / Math.sqrt(n);
+        }
+    }
+    
+    public static void main(String[] args) {
+        EjecutorBenchmarks ejecutor = new EjecutorBenchmarks();
+        try {
+            ejecutor.leerArgumentos(args);
+            System.exit(ejecutor.ejecutar(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Error ejecutando benchmarks: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Construye el catálogo completo de casos con los parámetros de la línea de comandos
+     */
+    static List<Caso> catalogo(Map<String, List<String>> parametros) {
+        Registro registro = new Registro(parametros);
+        TriageQueueBenchmark.registrar(registro);
+        PacienteBSTBenchmark.registrar(registro);
+        HospitalGraphBenchmark.registrar(registro);
+        EspecialidadHashMapBenchmark.registrar(registro);
+        ValidadoresBenchmark.registrar(registro);
+        return registro.getCasos();
+    }
+    
+    private int ejecutar(String[] args) throws Exception {
+        List<Caso> todos = catalogo(parametros);
+        
+        if (indiceHijo >= 0) {
+            double[] puntajes = medir(todos.get(indiceHijo));
+            StringBuilder linea = new StringBuilder(MARCA_RESULTADO);
+            for (double puntaje : puntajes) {
+                linea.append(puntaje).append(' ');
+            }
+            System.out.println(linea.toString().trim());
+            return 0;
+        }
+        
+        List<Integer> seleccionados = new ArrayList<>();
+        for (int i = 0; i < todos.size(); i++) {
+            if (seleccionado(todos.get(i))) {
+                seleccionados.add(i);
+            }
+        }
+        
+        if (soloListar) {
+            for (int indice : seleccionados) {
+                System.out.println(todos.get(indice));
+            }
+            return 0;
+        }
+        if (seleccionados.isEmpty()) {
+            System.err.println("Ningún caso coincide con los filtros");
+            return 1;
+        }
+        
+        List<ResultadoCaso> resultados = new ArrayList<>();
+        for (int indice : seleccionados) {
+            Caso caso = todos.get(indice);
+            System.out.println("# Caso: " + caso);
+            List<double[]> puntajes = new ArrayList<>();
+            if (forks == 0) {
+                puntajes.add(medir(caso));
+            } else {
+                for (int f = 1; f <= forks; f++) {
+                    System.out.println("# Fork " + f + " de " + forks);
+                    puntajes.add(ejecutarFork(indice, args));
+                }
+            }
+            ResultadoCaso resultado = new ResultadoCaso(caso, puntajes);
+            resultados.add(resultado);
+            System.out.printf(Locale.ROOT, "%s  %.3f ± %.3f ops/s%n%n", caso, resultado.getPuntaje(),
+                              resultado.getError());
+        }
+        
+        imprimirResumen(resultados);
+        escribirJSON(resultados, Paths.get(archivoResultados));
+        System.out.println("Resultados guardados en " + archivoResultados);
+        return 0;
+    }
+    
+    private boolean seleccionado(Caso caso) {
+        if (filtros.isEmpty()) {
+            return true;
+        }
+        for (Pattern filtro : filtros) {
+            if (filtro.matcher(caso.getNombreCompleto()).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Corre un caso en una JVM nueva con el mismo classpath y opciones de la JVM actual
+     */
+    private double[] ejecutarFork(int indice, String[] args) throws IOException, InterruptedException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.add(EjecutorBenchmarks.class.getName());
+        comando.addAll(Arrays.asList(args));
+        comando.add("--hijo");
+        comando.add(String.valueOf(indice));
+        
+        Process proceso = new ProcessBuilder(comando)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        
+        double[] puntajes = null;
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.startsWith(MARCA_RESULTADO)) {
+                    puntajes = Arrays.stream(linea.substring(MARCA_RESULTADO.length()).trim().split(" "))
+                        .mapToDouble(Double::parseDouble).toArray();
+                } else {
+                    System.out.println(linea);
+                }
+            }
+        }
+        
+        int codigo = proceso.waitFor();
+        if (codigo != 0 || puntajes == null) {
+            throw new IOException("El fork terminó con código " + codigo + " sin reportar resultados");
+        }
+        return puntajes;
+    }
+    
+    /**
+     * Prepara el caso y ejecuta las iteraciones de calentamiento y de medición
+     * @return Puntaje (ops/s) de cada iteración medida
+     */
+    private double[] medir(Caso caso) throws Exception {
+        Caso.Operacion operacion = caso.getPreparacion().preparar();
+        Sumidero[] sumideros = new Sumidero[caso.getHilos()];
+        for (int i = 0; i < sumideros.length; i++) {
+            sumideros[i] = new Sumidero();
+        }
+        
+        for (int i = 1; i <= iteracionesCalentamiento; i++) {
+            double puntaje = iteracion(operacion, sumideros, milisCalentamiento);
+            System.out.printf(Locale.ROOT, "# Calentamiento %d: %.3f ops/s%n", i, puntaje);
+        }
+        
+        double[] puntajes = new double[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            puntajes[i] = iteracion(operacion, sumideros, milisMedicion);
+            System.out.printf(Locale.ROOT, "Iteración %d: %.3f ops/s%n", i + 1, puntajes[i]);
+        }
+        return puntajes;
+    }
+    
+    /**
+     * Ejecuta la operación desde todos los hilos durante el tiempo indicado
+     * @return Operaciones completadas por segundo, sumando todos los hilos
+     */
+    private static double iteracion(Caso.Operacion operacion, Sumidero[] sumideros, long milis) throws Exception {
+        int hilos = sumideros.length;
+        CountDownLatch listos = new CountDownLatch(hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        Ejecucion ejecucion = new Ejecucion();
+        long[] operaciones = new long[hilos];
+        AtomicReference<Exception> falla = new AtomicReference<>();
+        Thread[] trabajadores = new Thread[hilos];
+        
+        for (int h = 0; h < hilos; h++) {
+            final int hilo = h;
+            trabajadores[h] = new Thread(() -> {
+                listos.countDown();
+                long cuenta = 0;
+                try {
+                    inicio.await();
+                    while (!ejecucion.detener) {
+                        operacion.ejecutar(sumideros[hilo], hilo);
+                        cuenta++;
+                    }
+                } catch (Exception e) {
+                    falla.compareAndSet(null, e);
+                    ejecucion.detener = true;
+                }
+                operaciones[hilo] = cuenta;
+            }, "benchmark-" + h);
+            trabajadores[h].start();
+        }
+        
+        listos.await();
+        long comienzo = System.nanoTime();
+        inicio.countDown();
+        Thread.sleep(milis);
+        ejecucion.detener = true;
+        long fin = System.nanoTime();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        
+        if (falla.get() != null) {
+            throw falla.get();
+        }
+        long total = 0;
+        for (long cuenta : operaciones) {
+            total += cuenta;
+        }
+        return total / ((fin - comienzo) / 1e9);
+    }
+    
+    /**
+     * Bandera de parada compartida por los hilos de una iteración
+     */
+    private static final class Ejecucion {
+        volatile boolean detener;
+    }
+    
+    static double valorCritico(int gradosLibertad) {
+        if (gradosLibertad <= T_999.length) {
+            return T_999[gradosLibertad - 1];
+        }
+        // Aproximación hacia el valor normal (3.291) para muestras grandes
+        return 3.291 + (T_999[T_999.length - 1] - 3.291) * T_999.length / gradosLibertad;
+    }
+    
+    private static void imprimirResumen(List<ResultadoCaso> resultados) {
+        int ancho = "Benchmark".length();
+        for (ResultadoCaso resultado : resultados) {
+            ancho = Math.max(ancho, etiqueta(resultado.getCaso()).length());
+        }
+        String formato = "%-" + ancho + "s  %6s  %3s  %16s  %14s  %5s%n";
+        System.out.printf(Locale.ROOT, formato, "Benchmark", "Mode", "Cnt", "Score", "Error", "Units");
+        for (ResultadoCaso resultado : resultados) {
+            System.out.printf(Locale.ROOT, formato, etiqueta(resultado.getCaso()), "thrpt",
+                              resultado.getTodos().length, String.format(Locale.ROOT, "%.3f", resultado.getPuntaje()),
+                              String.format(Locale.ROOT, "± %.3f", resultado.getError()), "ops/s");
+        }
+    }
+    
+    private static String etiqueta(Caso caso) {
+        StringBuilder sb = new StringBuilder(caso.getSuite()).append('.').append(caso.getNombre());
+        for (Map.Entry<String, String> parametro : caso.getParametros().entrySet()) {
+            sb.append(' ').append(parametro.getKey()).append('=').append(parametro.getValue());
+        }
+        if (caso.getHilos() > 1) {
+            sb.append(" hilos=").append(caso.getHilos());
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Escribe los resultados con el esquema de JMH (-rf json) para reutilizar sus visores
+     */
+    static void escribirJSON(List<ResultadoCaso> resultados, Path archivo) throws IOException {
+        try (Writer salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            salida.write("[\n");
+            for (int r = 0; r < resultados.size(); r++) {
+                ResultadoCaso resultado = resultados.get(r);
+                Caso caso = resultado.getCaso();
+                double puntaje = resultado.getPuntaje();
+                double error = resultado.getError();
+                
+                salida.write("    {\n");
+                salida.write("        \"benchmark\" : " + cadena(caso.getNombreCompleto()) + ",\n");
+                salida.write("        \"mode\" : \"thrpt\",\n");
+                salida.write("        \"threads\" : " + caso.getHilos() + ",\n");
+                salida.write("        \"forks\" : " + resultado.getPuntajesPorFork().size() + ",\n");
+                salida.write("        \"jvm\" : " + cadena(System.getProperty("java.home")) + ",\n");
+                salida.write("        \"jdkVersion\" : " + cadena(System.getProperty("java.version")) + ",\n");
+                if (!caso.getParametros().isEmpty()) {
+                    salida.write("        \"params\" : {\n");
+                    int p = 0;
+                    for (Map.Entry<String, String> parametro : caso.getParametros().entrySet()) {
+                        salida.write("            " + cadena(parametro.getKey()) + " : " +
+                                     cadena(parametro.getValue()) +
+                                     (++p < caso.getParametros().size() ? ",\n" : "\n"));
+                    }
+                    salida.write("        },\n");
+                }
+                salida.write("        \"primaryMetric\" : {\n");
+                salida.write("            \"score\" : " + numero(puntaje) + ",\n");
+                salida.write("            \"scoreError\" : " + numero(error) + ",\n");
+                salida.write("            \"scoreConfidence\" : [ " + numero(puntaje - error) + ", " +
+                             numero(puntaje + error) + " ],\n");
+                salida.write("            \"scoreUnit\" : \"ops/s\",\n");
+                salida.write("            \"rawData\" : [\n");
+                List<double[]> porFork = resultado.getPuntajesPorFork();
+                for (int f = 0; f < porFork.size(); f++) {
+                    StringBuilder fila = new StringBuilder("                [ ");
+                    double[] puntajes = porFork.get(f);
+                    for (int i = 0; i < puntajes.length; i++) {
+                        fila.append(i == 0 ? "" : ", ").append(numero(puntajes[i]));
+                    }
+                    fila.append(f + 1 < porFork.size() ? " ],\n" : " ]\n");
+                    salida.write(fila.toString());
+                }
+                salida.write("            ]\n");
+                salida.write("        },\n");
+                salida.write("        \"secondaryMetrics\" : {\n        }\n");
+                salida.write(r + 1 < resultados.size() ? "    },\n" : "    }\n");
+            }
+            salida.write("]\n");
+        }
+    }
+    
+    private static String numero(double valor) {
+        return Double.isFinite(valor) ? String.format(Locale.ROOT, "%.6f", valor) : "\"NaN\"";
+    }
+    
+    private static String cadena(String valor) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : valor.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+    
+    private void leerArgumentos(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-f": forks = entero(args, ++i, arg, 0); break;
+                case "-wi": iteracionesCalentamiento = entero(args, ++i, arg, 0); break;
+                case "-i": iteraciones = entero(args, ++i, arg, 1); break;
+                case "-w": milisCalentamiento = entero(args, ++i, arg, 1); break;
+                case "-r": milisMedicion = entero(args, ++i, arg, 1); break;
+                case "-rff": archivoResultados = valor(args, ++i, arg); break;
+                case "-l": soloListar = true; break;
+                case "--hijo": indiceHijo = entero(args, ++i, arg, 0); break;
+                case "-p": {
+                    String definicion = valor(args, ++i, arg);
+                    int igual = definicion.indexOf('=');
+                    if (igual <= 0 || igual == definicion.length() - 1) {
+                        throw new IllegalArgumentException("Parámetro inválido, se espera nombre=v1,v2: " + definicion);
+                    }
+                    parametros.put(definicion.substring(0, igual),
+                                   Arrays.asList(definicion.substring(igual + 1).split(",")));
+                    break;
+                }
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Opción desconocida: " + arg);
+                    }
+                    filtros.add(Pattern.compile(arg));
+            }
+        }
+    }
+    
+    private static String valor(String[] args, int indice, String opcion) {
+        if (indice >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + opcion);
+        }
+        return args[indice];
+    }
+    
+    private static int entero(String[] args, int indice, String opcion, int minimo) {
+        String texto = valor(args, indice, opcion);
+        try {
+            int numero = Integer.parseInt(texto);
+            if (numero < minimo) {
+                throw new IllegalArgumentException(opcion + " debe ser al menos " + minimo);
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido para " + opcion + ": " + texto);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package benchmarks;
+
+import models.Paciente;
+import services.GeneradorCargaSintetica;
+import utils.PasswordUtils;
+import utils.ValidationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Comprueba que los validadores actuales de CURP, teléfono y contraseña dan exactamente
+ * los mismos resultados que las versiones originales con expresiones regulares
+ * (ValidadoresOriginales): validez, mensajes de error, valor normalizado y puntuación
+ * Las entradas salen de CURP válidas del generador de carga sintética con mutaciones
+ * (un carácter cambiado, minúsculas, espacios, caracteres no ASCII) y de cadenas aleatorias
+ * sobre alfabetos elegidos para caer en los casos límite de cada validador
+ *
+ * Uso: EquivalenciaValidadores [casos por validador] [semilla]
+ * Termina con código 1 y muestra las primeras diferencias si alguna entrada no coincide
+ */
+public final class EquivalenciaValidadores {
+    
+    private static final int CASOS_DEFAULT = 1_000_000;
+    private static final int MAX_DIFERENCIAS = 20;
+    
+    // Letras, dígitos, separadores, acentos, ß (se expande al pasar a mayúsculas) y terminadores de línea
+    private static final String ALFABETO_CURP = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcxyz0123456789 \tÑñéßı-";
+    private static final String ALFABETO_TELEFONO = "0123456789+52 -()\t\nax.";
+    private static final String ALFABETO_PASSWORD =
+        "aZ9!@#$%^&*()_+-=[]{};':\"\\|,.<>/?~` \t\n\r\u0085\u2028ÑñéÁ1a2b3cQWERTYadmin";
+    
+    private final SplittableRandom random;
+    private final List<String> diferencias = new ArrayList<>();
+    private long comparados;
+    
+    private EquivalenciaValidadores(long semilla) {
+        this.random = new SplittableRandom(semilla);
+    }
+    
+    public static void main(String[] args) {
+        int casos = args.length > 0 ? Integer.parseInt(args[0]) : CASOS_DEFAULT;
+        long semilla = args.length > 1 ? Long.parseLong(args[1]) : GeneradorCargaSintetica.SEMILLA_DEFAULT;
+        
+        EquivalenciaValidadores prueba = new EquivalenciaValidadores(semilla);
+        long inicio = System.nanoTime();
+        prueba.compararCurp(casos);
+        prueba.compararTelefono(casos);
+        prueba.compararPassword(casos);
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        
+        if (prueba.diferencias.isEmpty()) {
+            System.out.printf("Validadores equivalentes: %,d entradas comparadas en %,d ms (semilla %d)%n",
+                prueba.comparados, ms, semilla);
+            System.exit(0);
+        }
+        System.out.printf("Se encontraron diferencias (se muestran hasta %d):%n", MAX_DIFERENCIAS);
+        prueba.diferencias.forEach(System.out::println);
+        System.exit(1);
+    }
+    
+    private void compararCurp(int casos) {
+        GeneradorCargaSintetica generador = new GeneradorCargaSintetica(
+            // El generador crea 0.65 pacientes por registro de triage
+            random.nextLong(), (long) Math.ceil(casos / 0.65) + 1, GeneradorCargaSintetica.ID_INICIAL_DEFAULT,
+            GeneradorCargaSintetica.DESDE_DEFAULT, GeneradorCargaSintetica.HASTA_DEFAULT);
+        comparar("CURP", null);
+        comparar("CURP", "");
+        comparar("CURP", "   ");
+        for (int i = 0; i < casos; i++) {
+            Paciente paciente = generador.generarPaciente(i);
+            String curp = paciente.getCurp();
+            String entrada = switch (i % 6) {
+                case 0 -> curp;
+                case 1 -> mutar(curp, ALFABETO_CURP);
+                case 2 -> curp.toLowerCase();
+                case 3 -> "  " + curp + " ";
+                case 4 -> conDigitoVerificador(curp, random.nextInt(10));
+                default -> aleatoria(ALFABETO_CURP, 16 + random.nextInt(4));
+            };
+            comparar("CURP", entrada);
+        }
+    }
+    
+    private void compararTelefono(int casos) {
+        comparar("teléfono", null);
+        comparar("teléfono", "");
+        for (int i = 0; i < casos; i++) {
+            String entrada = switch (i % 4) {
+                case 0 -> String.format("%010d", random.nextLong(10_000_000_000L));
+                case 1 -> "+52 (" + random.nextInt(100, 1000) + ") " + random.nextInt(100, 1000) + "-"
+                    + random.nextInt(1000, 10000);
+                case 2 -> "52" + String.format("%010d", random.nextLong(10_000_000_000L));
+                default -> aleatoria(ALFABETO_TELEFONO, random.nextInt(18));
+            };
+            comparar("teléfono", entrada);
+        }
+    }
+    
+    private void compararPassword(int casos) {
+        comparar("contraseña", null);
+        comparar("contraseña", "");
+        for (int i = 0; i < casos; i++) {
+            String entrada = i % 50 == 0
+                ? aleatoria(ALFABETO_PASSWORD, 120 + random.nextInt(20))
+                : aleatoria(ALFABETO_PASSWORD, random.nextInt(20));
+            comparar("contraseña", entrada);
+        }
+    }
+    
+    private void comparar(String validador, String entrada) {
+        comparados++;
+        String esperado;
+        String obtenido;
+        switch (validador) {
+            case "CURP" -> {
+                ValidadoresOriginales.Resultado original = ValidadoresOriginales.validarCURP(entrada);
+                // Las versiones booleanas deben coincidir con la validez del resultado completo
+                esperado = describir(original) + " bool=" + original.valido + "/" + original.valido;
+                obtenido = describir(ValidationUtils.validarCURP(entrada));
+                obtenido += " bool=" + ValidationUtils.validarCURPBoolean(entrada) + "/"
+                    + ValidationUtils.isValidCURP(entrada);
+            }
+            case "teléfono" -> {
+                esperado = describir(ValidadoresOriginales.validarTelefono(entrada));
+                obtenido = describir(ValidationUtils.validarTelefono(entrada));
+            }
+            default -> {
+                ValidadoresOriginales.Resultado original = ValidadoresOriginales.validarFortaleza(entrada);
+                PasswordUtils.ValidationResult actual = PasswordUtils.validarFortaleza(entrada);
+                esperado = original.valido + " " + original.errores + " " + original.puntuacion + " "
+                    + original.nivel + " dao=" + ValidadoresOriginales.validarPassword(entrada);
+                obtenido = actual.isValida() + " " + actual.getErrores() + " " + actual.getPuntuacion() + " "
+                    + actual.getNivel() + " dao=" + ValidationUtils.validarPassword(entrada);
+            }
+        }
+        if (!esperado.equals(obtenido) && diferencias.size() < MAX_DIFERENCIAS) {
+            diferencias.add(validador + " " + visible(entrada) + "\n  original: " + esperado
+                + "\n  actual:   " + obtenido);
+        }
+    }
+    
+    private static String describir(ValidadoresOriginales.Resultado resultado) {
+        return resultado.valido + " " + resultado.errores + " " + resultado.valorNormalizado;
+    }
+    
+    private static String describir(ValidationUtils.ValidationResult resultado) {
+        return resultado.isValido() + " " + resultado.getErrores() + " " + resultado.getValorNormalizado();
+    }
+    
+    // Cambia un carácter al azar de la cadena
+    private String mutar(String texto, String alfabeto) {
+        char[] chars = texto.toCharArray();
+        chars[random.nextInt(chars.length)] = alfabeto.charAt(random.nextInt(alfabeto.length()));
+        return new String(chars);
+    }
+    
+    private static String conDigitoVerificador(String curp, int digito) {
+        return curp.substring(0, 17) + digito;
+    }
+    
+    private String aleatoria(String alfabeto, int longitud) {
+        StringBuilder sb = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            sb.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+    
+    private static String visible(String texto) {
+        if (texto == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import models.Especialidad;
+import models.TipoUsuario;
+import models.Usuario;
+import structures.EspecialidadHashMap;
+
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * Microbenchmark de la asignación automática de médicos con varios hilos compitiendo
+ * Cada hilo asigna un médico de una especialidad y libera al paciente enseguida, de modo
+ * que la carga de los montículos se mantiene estable durante toda la medición
+ * Las especialidades se reparten entre hilos en rotación para medir tanto la contención
+ * sobre una misma especialidad como el paralelismo entre especialidades distintas
+ */
+public final class EspecialidadHashMapBenchmark {
+    
+    private static final String SUITE = "EspecialidadHashMapBenchmark";
+    
+    private EspecialidadHashMapBenchmark() {
+    }
+    
+    static void registrar(Registro registro) {
+        for (String medicos : registro.valores("medicosPorEspecialidad", "20")) {
+            for (String especialidades : registro.valores("especialidades", "1", "4")) {
+                for (String hilos : registro.valores("hilos", "1", "4", "8")) {
+                    int porEspecialidad = Integer.parseInt(medicos);
+                    int cuantas = Math.min(Integer.parseInt(especialidades), Especialidad.values().length);
+                    Map<String, String> parametros = Map.of(
+                        "medicosPorEspecialidad", medicos, "especialidades", especialidades);
+                    
+                    registro.agregar(SUITE, "asignarLiberar", parametros, Integer.parseInt(hilos), () -> {
+                        EspecialidadHashMap mapa = crearMapa(porEspecialidad);
+                        Especialidad[] objetivo = new Especialidad[cuantas];
+                        System.arraycopy(Especialidad.values(), 0, objetivo, 0, cuantas);
+                        return (sumidero, hilo) -> {
+                            Especialidad especialidad = objetivo[hilo % cuantas];
+                            EspecialidadHashMap.MedicoEspecialista asignado = mapa.asignarMedicoAutomatico(especialidad);
+                            if (asignado == null) {
+                                throw new IllegalStateException("Sin médicos disponibles en " + especialidad);
+                            }
+                            mapa.liberarPacienteDeMedico(especialidad, asignado.getMedico().getId());
+                            sumidero.consumir(asignado);
+                        };
+                    });
+                }
+            }
+        }
+    }
+    
+    /**
+     * Mapa con médicos en turno todo el día en cada especialidad
+     */
+    private static EspecialidadHashMap crearMapa(int porEspecialidad) {
+        EspecialidadHashMap mapa = new EspecialidadHashMap();
+        int id = 1;
+        for (Especialidad especialidad : Especialidad.values()) {
+            for (int i = 0; i < porEspecialidad; i++, id++) {
+                Usuario medico = new Usuario("medico" + id, "medico" + id + "@benchmark.local", "!",
+                                             TipoUsuario.MEDICO_URGENCIAS, "Médico " + id, "BENCH" + id,
+                                             especialidad.getNombre(), null);
+                medico.setId(id);
+                mapa.agregarMedico(especialidad, medico);
+                EspecialidadHashMap.MedicoEspecialista especialista = mapa.buscarMedico(especialidad, id);
+                especialista.setHoraInicioTurno(LocalTime.MIN);
+                especialista.setHoraFinTurno(LocalTime.MAX);
+            }
+        }
+        return mapa;
+    }
+}
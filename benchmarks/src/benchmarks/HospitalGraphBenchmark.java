@@ -0,0 +1,43 @@
+package benchmarks;
+
+import models.EstadoPaciente;
+import structures.HospitalGraph;
+
+import java.util.Map;
+
+/**
+ * Microbenchmarks de las consultas de rutas sobre el grafo de flujo de pacientes
+ */
+public final class HospitalGraphBenchmark {
+    
+    private static final String SUITE = "HospitalGraphBenchmark";
+    
+    private HospitalGraphBenchmark() {
+    }
+    
+    static void registrar(Registro registro) {
+        for (String ruta : registro.valores("ruta", "ESPERANDO_ASISTENTE:COMPLETADO",
+                                            "ESPERANDO_TRABAJO_SOCIAL:COMPLETADO", "ESPERANDO_MEDICO:EN_ATENCION")) {
+            String[] extremos = ruta.split(":");
+            if (extremos.length != 2) {
+                throw new IllegalArgumentException("Ruta inválida, se espera ORIGEN:DESTINO: " + ruta);
+            }
+            EstadoPaciente origen = EstadoPaciente.valueOf(extremos[0]);
+            EstadoPaciente destino = EstadoPaciente.valueOf(extremos[1]);
+            
+            // Dijkstra completo por consulta, como lo invoca la vista de seguimiento
+            registro.agregar(SUITE, "rutaMasRapida", Map.of("ruta", ruta), 1, () -> {
+                HospitalGraph grafo = new HospitalGraph();
+                return (sumidero, hilo) -> sumidero.consumir(grafo.calcularRutaMasRapida(origen, destino));
+            });
+        }
+        
+        for (String estado : registro.valores("estado", "ESPERANDO_ASISTENTE", "ESPERANDO_MEDICO")) {
+            EstadoPaciente actual = EstadoPaciente.valueOf(estado);
+            registro.agregar(SUITE, "tiempoTotalEstimado", Map.of("estado", estado), 1, () -> {
+                HospitalGraph grafo = new HospitalGraph();
+                return (sumidero, hilo) -> sumidero.consumir(grafo.calcularTiempoTotalEstimado(actual));
+            });
+        }
+    }
+}
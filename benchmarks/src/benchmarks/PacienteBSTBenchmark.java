@@ -0,0 +1,88 @@
+package benchmarks;
+
+import models.Paciente;
+import services.GeneradorCargaSintetica;
+import structures.PacienteBST;
+
+import java.util.Map;
+
+/**
+ * Microbenchmarks del árbol AVL de pacientes indexado por CURP
+ * El árbol se llena con pacientes sintéticos (CURP válidas y únicas) y se reserva un
+ * bloque adicional de pacientes que no está en el árbol para inserciones y búsquedas fallidas
+ */
+public final class PacienteBSTBenchmark {
+    
+    private static final String SUITE = "PacienteBSTBenchmark";
+    private static final int EXTRA = 4096;
+    
+    private PacienteBSTBenchmark() {
+    }
+    
+    /**
+     * Árbol lleno más los pacientes de reserva
+     */
+    private static final class Estado {
+        final PacienteBST arbol = new PacienteBST();
+        final Paciente[] enArbol;
+        final Paciente[] fuera = new Paciente[EXTRA];
+        
+        Estado(int n) {
+            // El generador crea 0.65 pacientes por registro de triage
+            GeneradorCargaSintetica generador = new GeneradorCargaSintetica(
+                GeneradorCargaSintetica.SEMILLA_DEFAULT, (long) Math.ceil((n + EXTRA) / 0.65) + 1,
+                GeneradorCargaSintetica.ID_INICIAL_DEFAULT, GeneradorCargaSintetica.DESDE_DEFAULT,
+                GeneradorCargaSintetica.HASTA_DEFAULT);
+            enArbol = new Paciente[n];
+            for (int i = 0; i < n; i++) {
+                enArbol[i] = generador.generarPaciente(i);
+                arbol.insertar(enArbol[i]);
+            }
+            for (int i = 0; i < EXTRA; i++) {
+                fuera[i] = generador.generarPaciente(n + i);
+            }
+        }
+    }
+    
+    static void registrar(Registro registro) {
+        for (String pacientes : registro.valores("pacientes", "1000000")) {
+            int n = Integer.parseInt(pacientes);
+            Map<String, String> parametros = Map.of("pacientes", pacientes);
+            
+            // Inserta un paciente de reserva y lo elimina: el árbol conserva su tamaño y
+            // cada operación paga dos descensos con rebalanceo
+            registro.agregar(SUITE, "insertarEliminar", parametros, 1, () -> {
+                Estado estado = new Estado(n);
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    Paciente paciente = estado.fuera[turno[0]++ & (EXTRA - 1)];
+                    sumidero.consumir(estado.arbol.insertar(paciente));
+                    sumidero.consumir(estado.arbol.eliminar(paciente.getCurp()));
+                };
+            });
+            
+            // Una de cada diez búsquedas es por una CURP que no está registrada
+            registro.agregar(SUITE, "buscarCurp", parametros, 1, () -> {
+                Estado estado = new Estado(n);
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    int i = turno[0]++;
+                    String curp = i % 10 == 9
+                        ? estado.fuera[i & (EXTRA - 1)].getCurp()
+                        : estado.enArbol[Math.floorMod(i * 7919, n)].getCurp();
+                    sumidero.consumir(estado.arbol.buscar(curp));
+                };
+            });
+            
+            // Búsqueda por fragmento de nombre (apellido paterno), la que usa la pantalla de registro
+            registro.agregar(SUITE, "buscarPorNombre", parametros, 1, () -> {
+                Estado estado = new Estado(n);
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    Paciente muestra = estado.enArbol[Math.floorMod(turno[0]++ * 7919, n)];
+                    sumidero.consumir(estado.arbol.buscarPorNombre(muestra.getApellidoPaterno()));
+                };
+            });
+        }
+    }
+}
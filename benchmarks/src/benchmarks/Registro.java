@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo de casos que las suites llenan al registrarse
+ * Resuelve los valores de cada parámetro: los de la línea de comandos (-p nombre=a,b)
+ * reemplazan a los valores por defecto de la suite
+ */
+public final class Registro {
+    
+    private final Map<String, List<String>> sobrescritos;
+    private final List<Caso> casos = new ArrayList<>();
+    
+    Registro(Map<String, List<String>> sobrescritos) {
+        this.sobrescritos = sobrescritos;
+    }
+    
+    /**
+     * @param nombre Nombre del parámetro
+     * @param porDefecto Valores a usar si no se indicó el parámetro
+     * @return Valores a recorrer para el parámetro
+     */
+    public List<String> valores(String nombre, String... porDefecto) {
+        List<String> valores = sobrescritos.get(nombre);
+        return valores != null ? valores : Arrays.asList(porDefecto);
+    }
+    
+    /**
+     * Agrega un caso al catálogo
+     * @param suite Nombre de la clase de la suite
+     * @param nombre Nombre de la operación medida
+     * @param parametros Valores de los parámetros del caso
+     * @param hilos Hilos que ejecutan la operación simultáneamente
+     * @param preparacion Construcción del estado y de la operación
+     */
+    public void agregar(String suite, String nombre, Map<String, String> parametros, int hilos,
+                        Caso.Preparacion preparacion) {
+        casos.add(new Caso(suite, nombre, parametros, hilos, preparacion));
+    }
+    
+    List<Caso> getCasos() {
+        return Collections.unmodifiableList(casos);
+    }
+}
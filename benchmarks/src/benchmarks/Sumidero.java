@@ -0,0 +1,32 @@
+package benchmarks;
+
+/**
+ * Consume los resultados de las operaciones medidas para que el compilador JIT
+ * no las elimine como código muerto
+ * Compara cada valor contra campos volátiles que nunca coinciden: la comparación
+ * obliga a calcular el valor y cuesta apenas una lectura de memoria
+ */
+public final class Sumidero {
+    
+    private volatile Object trampaObjeto = new Object();
+    private volatile long trampaEntero = System.nanoTime() | 1L << 62;
+    private volatile boolean trampaLogico = false;
+    
+    public void consumir(Object valor) {
+        if (valor == trampaObjeto) {
+            throw new IllegalStateException("El sumidero nunca debe coincidir");
+        }
+    }
+    
+    public void consumir(long valor) {
+        if (valor == trampaEntero) {
+            throw new IllegalStateException("El sumidero nunca debe coincidir");
+        }
+    }
+    
+    public void consumir(boolean valor) {
+        if (valor && trampaLogico) {
+            throw new IllegalStateException("El sumidero nunca debe coincidir");
+        }
+    }
+}
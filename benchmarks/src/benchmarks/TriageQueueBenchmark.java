@@ -0,0 +1,83 @@
+package benchmarks;
+
+import models.NivelUrgencia;
+import models.RegistroTriage;
+import services.GeneradorCargaSintetica;
+import structures.TriageQueue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Microbenchmarks de la cola de prioridad de triage con colas de distintos tamaños
+ * Los registros salen del generador de carga sintética (mismos folios, niveles y llegadas
+ * que la carga de referencia), así que la distribución de urgencias es realista
+ * Llenar la cola cuesta O(n²) porque encolar reordena las listas por nivel; con 100,000
+ * registros la preparación tarda minutos, pero ocurre una vez por fork y fuera de la medición
+ */
+public final class TriageQueueBenchmark {
+    
+    private static final String SUITE = "TriageQueueBenchmark";
+    private static final NivelUrgencia[] NIVELES = {
+        NivelUrgencia.ROJO, NivelUrgencia.NARANJA, NivelUrgencia.AMARILLO, NivelUrgencia.VERDE, NivelUrgencia.AZUL
+    };
+    
+    private TriageQueueBenchmark() {
+    }
+    
+    static void registrar(Registro registro) {
+        for (String registros : registro.valores("registros", "100", "1000", "10000", "100000")) {
+            int n = Integer.parseInt(registros);
+            Map<String, String> parametros = Map.of("registros", registros);
+            
+            // Atiende al siguiente paciente y vuelve a formarlo como recién llegado:
+            // la cola mantiene su tamaño y cada ciclo mide una salida y una entrada
+            registro.agregar(SUITE, "encolarDesencolar", parametros, 1, () -> {
+                TriageQueue cola = llenar(n, new String[n]);
+                LocalDateTime[] reloj = { GeneradorCargaSintetica.HASTA_DEFAULT };
+                return (sumidero, hilo) -> {
+                    RegistroTriage siguiente = cola.desencolar();
+                    reloj[0] = reloj[0].plusSeconds(1);
+                    siguiente.setFechaHoraLlegada(reloj[0]);
+                    cola.encolar(siguiente);
+                    sumidero.consumir(siguiente);
+                };
+            });
+            
+            // Reclasifica pacientes en espera recorriendo folios y niveles
+            registro.agregar(SUITE, "reprioritizar", parametros, 1, () -> {
+                String[] folios = new String[n];
+                TriageQueue cola = llenar(n, folios);
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    int i = turno[0]++;
+                    sumidero.consumir(cola.actualizarNivelUrgencia(folios[Math.floorMod(i, n)],
+                                                                    NIVELES[Math.floorMod(i, NIVELES.length)]));
+                };
+            });
+            
+            registro.agregar(SUITE, "buscarPorFolio", parametros, 1, () -> {
+                String[] folios = new String[n];
+                TriageQueue cola = llenar(n, folios);
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> sumidero.consumir(cola.buscarPorFolio(folios[Math.floorMod(turno[0]++, n)]));
+            });
+        }
+    }
+    
+    /**
+     * Llena una cola con n registros sintéticos y guarda sus folios en orden de generación
+     */
+    private static TriageQueue llenar(int n, String[] folios) {
+        GeneradorCargaSintetica generador = new GeneradorCargaSintetica(
+            GeneradorCargaSintetica.SEMILLA_DEFAULT, n, GeneradorCargaSintetica.ID_INICIAL_DEFAULT,
+            GeneradorCargaSintetica.DESDE_DEFAULT, GeneradorCargaSintetica.HASTA_DEFAULT);
+        TriageQueue cola = new TriageQueue();
+        for (int i = 0; i < n; i++) {
+            RegistroTriage registro = generador.generarRegistroTriage(i);
+            folios[i] = registro.getFolio();
+            cola.encolar(registro);
+        }
+        return cola;
+    }
+}
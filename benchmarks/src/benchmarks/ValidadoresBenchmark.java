@@ -0,0 +1,104 @@
+package benchmarks;
+
+import services.GeneradorCargaSintetica;
+import utils.PasswordUtils;
+import utils.ValidationUtils;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Microbenchmarks de los validadores de CURP, teléfono y contraseña
+ * El parámetro "implementacion" compara la versión actual de una sola pasada con la
+ * original basada en expresiones regulares (ValidadoresOriginales); ambas reciben las mismas
+ * entradas, una de cada cuatro inválida, como llegan de los formularios y de la importación
+ * La equivalencia de resultados se comprueba aparte con EquivalenciaValidadores
+ */
+public final class ValidadoresBenchmark {
+    
+    private static final String SUITE = "ValidadoresBenchmark";
+    private static final int ENTRADAS = 4096;
+    
+    private ValidadoresBenchmark() {
+    }
+    
+    /**
+     * Entradas pregeneradas, las mismas para las dos implementaciones
+     */
+    private static final class Entradas {
+        final String[] curps = new String[ENTRADAS];
+        final String[] telefonos = new String[ENTRADAS];
+        final String[] passwords = new String[ENTRADAS];
+        
+        Entradas() {
+            SplittableRandom random = new SplittableRandom(GeneradorCargaSintetica.SEMILLA_DEFAULT);
+            // El generador crea 0.65 pacientes por registro de triage
+            GeneradorCargaSintetica generador = new GeneradorCargaSintetica(
+                GeneradorCargaSintetica.SEMILLA_DEFAULT, (long) Math.ceil(ENTRADAS / 0.65) + 1,
+                GeneradorCargaSintetica.ID_INICIAL_DEFAULT, GeneradorCargaSintetica.DESDE_DEFAULT,
+                GeneradorCargaSintetica.HASTA_DEFAULT);
+            for (int i = 0; i < ENTRADAS; i++) {
+                String curp = generador.generarPaciente(i).getCurp();
+                boolean invalida = i % 4 == 3;
+                curps[i] = invalida ? curp.substring(0, 17) + "X" : (i % 2 == 0 ? curp : " " + curp.toLowerCase());
+                String telefono = String.format("%010d", random.nextLong(1_000_000_000L, 10_000_000_000L));
+                telefonos[i] = invalida ? telefono.substring(1)
+                    : (i % 2 == 0 ? telefono : "+52 (" + telefono.substring(0, 3) + ") "
+                        + telefono.substring(3, 6) + "-" + telefono.substring(6));
+                passwords[i] = invalida ? "sinmayusculas" + i : "Clave#" + i + "Segura";
+            }
+        }
+    }
+    
+    static void registrar(Registro registro) {
+        for (String implementacion : registro.valores("implementacion", "actual", "original")) {
+            boolean original = "original".equals(implementacion);
+            Map<String, String> parametros = Map.of("implementacion", implementacion);
+            
+            registro.agregar(SUITE, "validarCURP", parametros, 1, () -> {
+                Entradas entradas = new Entradas();
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    String curp = entradas.curps[turno[0]++ & (ENTRADAS - 1)];
+                    sumidero.consumir(original
+                        ? ValidadoresOriginales.validarCURP(curp).valido
+                        : ValidationUtils.validarCURP(curp).isValido());
+                };
+            });
+            
+            // Versión booleana que usan los controladores en cada tecla
+            registro.agregar(SUITE, "isValidCURP", parametros, 1, () -> {
+                Entradas entradas = new Entradas();
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    String curp = entradas.curps[turno[0]++ & (ENTRADAS - 1)];
+                    sumidero.consumir(original
+                        ? ValidadoresOriginales.validarCURP(curp).valido
+                        : ValidationUtils.isValidCURP(curp));
+                };
+            });
+            
+            registro.agregar(SUITE, "validarTelefono", parametros, 1, () -> {
+                Entradas entradas = new Entradas();
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    String telefono = entradas.telefonos[turno[0]++ & (ENTRADAS - 1)];
+                    sumidero.consumir(original
+                        ? ValidadoresOriginales.validarTelefono(telefono).valorNormalizado
+                        : ValidationUtils.validarTelefono(telefono).getValorNormalizado());
+                };
+            });
+            
+            registro.agregar(SUITE, "validarFortaleza", parametros, 1, () -> {
+                Entradas entradas = new Entradas();
+                int[] turno = { 0 };
+                return (sumidero, hilo) -> {
+                    String password = entradas.passwords[turno[0]++ & (ENTRADAS - 1)];
+                    sumidero.consumir(original
+                        ? ValidadoresOriginales.validarFortaleza(password).puntuacion
+                        : PasswordUtils.validarFortaleza(password).getPuntuacion());
+                };
+            });
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Copia de referencia de los validadores de CURP, teléfono y contraseña basados en
+ * expresiones regulares, tal como estaban en ValidationUtils y PasswordUtils antes de
+ * reescribirlos con recorridos de una sola pasada
+ * No se usa en la aplicación: sirve para comprobar que la versión actual da los mismos
+ * resultados (EquivalenciaValidadores) y para compararlas en ValidadoresBenchmark
+ */
+public final class ValidadoresOriginales {
+    
+    private static final Pattern TELEFONO_PATTERN = Pattern.compile("^[0-9]{10}$");
+    private static final Pattern CURP_PATTERN = Pattern.compile("^[A-Z]{1}[AEIOUX]{1}[A-Z]{2}[0-9]{2}(0[1-9]|1[0-2])(0[1-9]|[12][0-9]|3[01])[HM]{1}(AS|BC|BS|CC|CH|CL|CM|CS|DF|DG|GR|GT|HG|JC|MC|MN|MS|NT|NL|OC|PL|QT|QR|SP|SL|SR|TC|TL|TS|VZ|YN|ZS|NE)[B-DF-HJ-NP-TV-Z]{3}[0-9A-Z]{1}[0-9]{1}$");
+    
+    private static final Pattern UPPERCASE_PATTERN = Pattern.compile(".*[A-Z].*");
+    private static final Pattern LOWERCASE_PATTERN = Pattern.compile(".*[a-z].*");
+    private static final Pattern DIGIT_PATTERN = Pattern.compile(".*[0-9].*");
+    private static final Pattern SPECIAL_CHAR_PATTERN = Pattern.compile(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*");
+    
+    private ValidadoresOriginales() {
+    }
+    
+    /**
+     * Resultado con los mismos datos que ValidationUtils.ValidationResult
+     * y PasswordUtils.ValidationResult
+     */
+    public static final class Resultado {
+        public boolean valido = true;
+        public final List<String> errores = new ArrayList<>();
+        public String valorNormalizado;
+        public int puntuacion;
+        public String nivel;
+        
+        void addError(String error) {
+            errores.add(error);
+            valido = false;
+        }
+    }
+    
+    public static Resultado validarTelefono(String telefono) {
+        Resultado result = new Resultado();
+        
+        if (esVacioONulo(telefono)) {
+            result.addError("El teléfono es requerido");
+            return result;
+        }
+        
+        String telefonoLimpio = telefono.replaceAll("[\\s\\-\\(\\)]", "");
+        
+        if (telefonoLimpio.startsWith("+52")) {
+            telefonoLimpio = telefonoLimpio.substring(3);
+        } else if (telefonoLimpio.startsWith("52") && telefonoLimpio.length() == 12) {
+            telefonoLimpio = telefonoLimpio.substring(2);
+        }
+        
+        if (!TELEFONO_PATTERN.matcher(telefonoLimpio).matches()) {
+            result.addError("El teléfono debe tener 10 dígitos");
+        }
+        
+        result.valorNormalizado = telefonoLimpio;
+        return result;
+    }
+    
+    public static Resultado validarCURP(String curp) {
+        Resultado result = new Resultado();
+        
+        if (esVacioONulo(curp)) {
+            result.addError("La CURP es requerida");
+            return result;
+        }
+        
+        String curpLimpia = curp.trim().toUpperCase();
+        
+        if (curpLimpia.length() != 18) {
+            result.addError("La CURP debe tener exactamente 18 caracteres");
+            return result;
+        }
+        
+        if (!CURP_PATTERN.matcher(curpLimpia).matches()) {
+            result.addError("Formato de CURP inválido");
+            return result;
+        }
+        
+        if (!validarDigitoVerificadorCURP(curpLimpia)) {
+            result.addError("Dígito verificador de CURP inválido");
+        }
+        
+        result.valorNormalizado = curpLimpia;
+        return result;
+    }
+    
+    public static boolean validarPassword(String password) {
+        if (password == null || password.trim().isEmpty()) {
+            return false;
+        }
+        
+        String pass = password.trim();
+        
+        if (pass.length() < 8) {
+            return false;
+        }
+        
+        if (!pass.matches(".*[A-Z].*")) {
+            return false;
+        }
+        
+        if (!pass.matches(".*[a-z].*")) {
+            return false;
+        }
+        
+        if (!pass.matches(".*[0-9].*")) {
+            return false;
+        }
+        
+        return pass.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*");
+    }
+    
+    public static Resultado validarFortaleza(String password) {
+        Resultado result = new Resultado();
+        
+        if (password == null) {
+            result.addError("La contraseña no puede ser nula");
+            result.nivel = "DEBIL";
+            return result;
+        }
+        
+        if (password.length() < 8) {
+            result.addError("La contraseña debe tener al menos 8 caracteres");
+        }
+        if (password.length() > 128) {
+            result.addError("La contraseña no puede exceder 128 caracteres");
+        }
+        if (!UPPERCASE_PATTERN.matcher(password).matches()) {
+            result.addError("Debe contener al menos una letra mayúscula");
+        }
+        if (!LOWERCASE_PATTERN.matcher(password).matches()) {
+            result.addError("Debe contener al menos una letra minúscula");
+        }
+        if (!DIGIT_PATTERN.matcher(password).matches()) {
+            result.addError("Debe contener al menos un dígito");
+        }
+        if (!SPECIAL_CHAR_PATTERN.matcher(password).matches()) {
+            result.addError("Debe contener al menos un carácter especial");
+        }
+        if (contienePatronesDebiles(password)) {
+            result.addError("La contraseña contiene patrones comunes débiles");
+        }
+        
+        int puntuacion = calcularPuntuacionFortaleza(password);
+        result.puntuacion = puntuacion;
+        result.nivel = puntuacion < 60 ? "DEBIL" : puntuacion < 80 ? "MEDIA" : "FUERTE";
+        result.valido = result.errores.isEmpty();
+        return result;
+    }
+    
+    private static boolean esVacioONulo(String valor) {
+        return valor == null || valor.trim().isEmpty();
+    }
+    
+    private static boolean validarDigitoVerificadorCURP(String curp) {
+        String alfabeto = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        int suma = 0;
+        
+        for (int i = 0; i < 17; i++) {
+            char c = curp.charAt(i);
+            int valor = alfabeto.indexOf(c);
+            suma += valor * (18 - i);
+        }
+        
+        int residuo = suma % 10;
+        int digitoEsperado = (10 - residuo) % 10;
+        
+        char ultimoCaracter = curp.charAt(17);
+        int digitoReal = Character.isDigit(ultimoCaracter) ?
+                        Character.getNumericValue(ultimoCaracter) : 0;
+        
+        return digitoReal == digitoEsperado;
+    }
+    
+    private static boolean contienePatronesDebiles(String password) {
+        String lower = password.toLowerCase();
+        
+        String[] patronesDebiles = {
+            "123456", "password", "admin", "qwerty", "abc123",
+            "111111", "123123", "password123", "admin123",
+            "hospital", "medico", "doctor", "enfermera"
+        };
+        
+        for (String patron : patronesDebiles) {
+            if (lower.contains(patron)) {
+                return true;
+            }
+        }
+        
+        int repeticiones = 1;
+        for (int i = 1; i < password.length(); i++) {
+            if (password.charAt(i) == password.charAt(i - 1)) {
+                repeticiones++;
+                if (repeticiones >= 3) {
+                    return true;
+                }
+            } else {
+                repeticiones = 1;
+            }
+        }
+        return false;
+    }
+    
+    private static int calcularPuntuacionFortaleza(String password) {
+        int puntuacion = 0;
+        
+        puntuacion += Math.min(password.length() * 2, 20);
+        
+        if (UPPERCASE_PATTERN.matcher(password).matches()) puntuacion += 15;
+        if (LOWERCASE_PATTERN.matcher(password).matches()) puntuacion += 15;
+        if (DIGIT_PATTERN.matcher(password).matches()) puntuacion += 15;
+        if (SPECIAL_CHAR_PATTERN.matcher(password).matches()) puntuacion += 20;
+        
+        if (password.length() >= 12) puntuacion += 10;
+        if (!contienePatronesDebiles(password)) puntuacion += 15;
+        
+        return Math.min(puntuacion, 100);
+    }
+}
@@ -48,6 +48,11 @@ if not exist "out\assets" mkdir out\assets
 if not exist "out\assets\img" mkdir out\assets\img
 copy /y "assets\img\*" "out\assets\img\" >nul
 
+REM Copiar datos (términos de síntomas por especialidad)
+echo Copiando datos...
+if not exist "out\data" mkdir out\data
+copy /y "src\data\*" "out\data\" >nul
+
 echo.
 echo ===============================================
 echo     COMPILACION EXITOSA
@@ -181,8 +181,44 @@ CREATE TABLE atencion_medica (
     FOREIGN KEY (medico_urgencias_id) REFERENCES usuarios(id) ON DELETE RESTRICT
 );
 
+-- =====================================================
+-- TABLA SECUENCIAS_ANUALES
+-- Contador por año para folios de triage
+-- La aplicación reserva bloques de números avanzando "siguiente"
+-- =====================================================
+CREATE TABLE secuencias_anuales (
+    nombre VARCHAR(30) NOT NULL,
+    anio SMALLINT NOT NULL,
+    siguiente BIGINT NOT NULL DEFAULT 1,
+    PRIMARY KEY (nombre, anio)
+);
+
+-- =====================================================
+-- TABLA TRANSICIONES_PACIENTE
+-- Bitácora de solo anexado de los cambios de estado del flujo
+-- Cada estación numera sus eventos (nodo, secuencia); el reenvío
+-- de un lote ya escrito se ignora por la llave única
+-- Sin llaves foráneas: la bitácora se reproduce aunque el
+-- paciente o el registro ya no existan
+-- =====================================================
+CREATE TABLE transiciones_paciente (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    nodo VARCHAR(36) NOT NULL,
+    secuencia BIGINT NOT NULL,
+    paciente_id INT NOT NULL,
+    registro_triage_id INT NULL,
+    estado_origen VARCHAR(30) NULL,
+    estado_destino VARCHAR(30) NOT NULL,
+    fecha_hora TIMESTAMP(3) NOT NULL,
+    usuario_id INT NULL,
+    UNIQUE KEY uk_nodo_secuencia (nodo, secuencia),
+    INDEX idx_transiciones_paciente (paciente_id, fecha_hora)
+);
+
 -- =====================================================
 -- TRIGGERS PARA GENERACIÓN AUTOMÁTICA DE FOLIOS
+-- Solo asigna folio cuando el INSERT no lo trae (la aplicación
+-- ya lo asigna); usa el contador anual en lugar de MAX(folio)
 -- =====================================================
 DELIMITER //
 
@@ -190,17 +226,31 @@ CREATE TRIGGER generate_folio_triage
     BEFORE INSERT ON registros_triage
     FOR EACH ROW
 BEGIN
-    DECLARE next_number INT;
-    DECLARE folio_year VARCHAR(4);
-    
-    SET folio_year = YEAR(NOW());
-    
-    SELECT COALESCE(MAX(CAST(SUBSTRING(folio, 10) AS UNSIGNED)), 0) + 1 
-    INTO next_number
-    FROM registros_triage 
-    WHERE folio LIKE CONCAT('TRG-', folio_year, '-%');
+    DECLARE next_number BIGINT;
+    DECLARE folio_year SMALLINT;
     
-    SET NEW.folio = CONCAT('TRG-', folio_year, '-', LPAD(next_number, 4, '0'));
+    IF NEW.folio IS NULL OR NEW.folio = '' THEN
+        SET folio_year = YEAR(NOW());
+        
+        -- Primer folio del año: continuar después del último existente (una sola vez)
+        IF NOT EXISTS (SELECT 1 FROM secuencias_anuales
+                       WHERE nombre = 'FOLIO_TRIAGE' AND anio = folio_year) THEN
+            INSERT IGNORE INTO secuencias_anuales (nombre, anio, siguiente)
+            SELECT 'FOLIO_TRIAGE', folio_year, COALESCE(MAX(CAST(SUBSTRING(folio, 10) AS UNSIGNED)), 0) + 1
+            FROM registros_triage
+            WHERE folio LIKE CONCAT('TRG-', folio_year, '-%');
+        END IF;
+        
+        SELECT siguiente INTO next_number
+        FROM secuencias_anuales
+        WHERE nombre = 'FOLIO_TRIAGE' AND anio = folio_year
+        FOR UPDATE;
+        
+        UPDATE secuencias_anuales SET siguiente = siguiente + 1
+        WHERE nombre = 'FOLIO_TRIAGE' AND anio = folio_year;
+        
+        SET NEW.folio = CONCAT('TRG-', folio_year, '-', LPAD(next_number, GREATEST(4, LENGTH(next_number)), '0'));
+    END IF;
 END//
 
 DELIMITER ;
@@ -297,6 +347,7 @@ INSERT INTO usuarios (
 -- =====================================================
 CREATE INDEX idx_registros_activos ON registros_triage(estado, nivel_urgencia, fecha_hora_llegada);
 CREATE INDEX idx_pacientes_nombre ON pacientes(nombre, apellido_paterno);
+CREATE INDEX idx_pacientes_fecha_registro ON pacientes(fecha_registro);
 CREATE INDEX idx_usuarios_activos ON usuarios(activo, tipo_usuario);
 
 -- =====================================================
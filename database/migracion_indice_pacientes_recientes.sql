@@ -0,0 +1,25 @@
+-- =====================================================
+-- Migración: índice de pacientes por fecha de registro
+-- Para bases de datos creadas con una versión anterior de
+-- hospital_santa_vida.sql (las nuevas ya lo incluyen)
+-- Lo usa la consulta de pacientes recientes (ORDER BY fecha_registro DESC)
+-- Se puede ejecutar más de una vez
+-- =====================================================
+
+USE hospital_santa_vida;
+
+-- MySQL no admite CREATE INDEX IF NOT EXISTS: se crea solo si falta
+SET @existe_indice = (
+    SELECT COUNT(*) FROM information_schema.statistics
+    WHERE table_schema = DATABASE()
+      AND table_name = 'pacientes'
+      AND index_name = 'idx_pacientes_fecha_registro'
+);
+
+SET @sentencia = IF(@existe_indice = 0,
+    'CREATE INDEX idx_pacientes_fecha_registro ON pacientes(fecha_registro)',
+    'SELECT ''idx_pacientes_fecha_registro ya existe''');
+
+PREPARE crear_indice FROM @sentencia;
+EXECUTE crear_indice;
+DEALLOCATE PREPARE crear_indice;
@@ -0,0 +1,61 @@
+-- =====================================================
+-- Migración: contador anual de folios de triage
+-- Para bases de datos creadas con una versión anterior de
+-- hospital_santa_vida.sql (las nuevas ya lo incluyen)
+-- Se puede ejecutar más de una vez
+-- =====================================================
+
+USE hospital_santa_vida;
+
+-- =====================================================
+-- TABLA SECUENCIAS_ANUALES
+-- Contador por año para folios de triage
+-- La aplicación reserva bloques de números avanzando "siguiente"
+-- =====================================================
+CREATE TABLE IF NOT EXISTS secuencias_anuales (
+    nombre VARCHAR(30) NOT NULL,
+    anio SMALLINT NOT NULL,
+    siguiente BIGINT NOT NULL DEFAULT 1,
+    PRIMARY KEY (nombre, anio)
+);
+
+-- =====================================================
+-- Reemplazo del trigger de folios: solo asigna folio cuando
+-- el INSERT no lo trae y usa el contador anual
+-- =====================================================
+DROP TRIGGER IF EXISTS generate_folio_triage;
+
+DELIMITER //
+
+CREATE TRIGGER generate_folio_triage
+    BEFORE INSERT ON registros_triage
+    FOR EACH ROW
+BEGIN
+    DECLARE next_number BIGINT;
+    DECLARE folio_year SMALLINT;
+    
+    IF NEW.folio IS NULL OR NEW.folio = '' THEN
+        SET folio_year = YEAR(NOW());
+        
+        -- Primer folio del año: continuar después del último existente (una sola vez)
+        IF NOT EXISTS (SELECT 1 FROM secuencias_anuales
+                       WHERE nombre = 'FOLIO_TRIAGE' AND anio = folio_year) THEN
+            INSERT IGNORE INTO secuencias_anuales (nombre, anio, siguiente)
+            SELECT 'FOLIO_TRIAGE', folio_year, COALESCE(MAX(CAST(SUBSTRING(folio, 10) AS UNSIGNED)), 0) + 1
+            FROM registros_triage
+            WHERE folio LIKE CONCAT('TRG-', folio_year, '-%');
+        END IF;
+        
+        SELECT siguiente INTO next_number
+        FROM secuencias_anuales
+        WHERE nombre = 'FOLIO_TRIAGE' AND anio = folio_year
+        FOR UPDATE;
+        
+        UPDATE secuencias_anuales SET siguiente = siguiente + 1
+        WHERE nombre = 'FOLIO_TRIAGE' AND anio = folio_year;
+        
+        SET NEW.folio = CONCAT('TRG-', folio_year, '-', LPAD(next_number, GREATEST(4, LENGTH(next_number)), '0'));
+    END IF;
+END//
+
+DELIMITER ;
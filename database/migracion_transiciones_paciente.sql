@@ -0,0 +1,30 @@
+-- =====================================================
+-- Migración: bitácora de flujo de pacientes
+-- Para bases de datos creadas con una versión anterior de
+-- hospital_santa_vida.sql (las nuevas ya la incluyen)
+-- Se puede ejecutar más de una vez
+-- =====================================================
+
+USE hospital_santa_vida;
+
+-- =====================================================
+-- TABLA TRANSICIONES_PACIENTE
+-- Bitácora de solo anexado de los cambios de estado del flujo
+-- Cada estación numera sus eventos (nodo, secuencia); el reenvío
+-- de un lote ya escrito se ignora por la llave única
+-- Sin llaves foráneas: la bitácora se reproduce aunque el
+-- paciente o el registro ya no existan
+-- =====================================================
+CREATE TABLE IF NOT EXISTS transiciones_paciente (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    nodo VARCHAR(36) NOT NULL,
+    secuencia BIGINT NOT NULL,
+    paciente_id INT NOT NULL,
+    registro_triage_id INT NULL,
+    estado_origen VARCHAR(30) NULL,
+    estado_destino VARCHAR(30) NOT NULL,
+    fecha_hora TIMESTAMP(3) NOT NULL,
+    usuario_id INT NULL,
+    UNIQUE KEY uk_nodo_secuencia (nodo, secuencia),
+    INDEX idx_transiciones_paciente (paciente_id, fecha_hora)
+);
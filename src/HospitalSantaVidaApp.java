@@ -6,6 +6,13 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
+import dao.AlmacenLocal;
+import dao.DiarioEscriturasTriage;
+import dao.PacienteDAO;
+import dao.RegistroAccesosDiferido;
+import services.AlmacenAnalitico;
+import services.DiarioFlujoPacientes;
+import utils.Bitacora;
 import utils.DatabaseConnection;
 
 /**
@@ -26,6 +33,8 @@ import utils.DatabaseConnection;
  */
 public class HospitalSantaVidaApp extends Application {
     
+    private static final Bitacora BITACORA = Bitacora.de(HospitalSantaVidaApp.class);
+    
     private static final String APP_TITLE = "Hospital Santa Vida - Sistema de Triage";
     private static final String APP_VERSION = "1.1.3";
     private static final double MIN_WIDTH = 1200;
@@ -37,9 +46,17 @@ public class HospitalSantaVidaApp extends Application {
             // Verificar conexión a la base de datos (modo tolerante)
             boolean conexionOk = verificarConexionBaseDatos();
             if (!conexionOk) {
-                System.err.println("[APP] Continuando en modo limitado (sin BD) solo para pruebas de UI.");
+                // Se trabaja con los datos locales de la estación hasta que vuelva la conexión
+                AlmacenLocal.getInstance().marcarSinConexion();
+                BITACORA.aviso("[APP] Continuando sin conexión con los datos locales de la estación.");
+            } else {
+                // Los filtros de CURP/RFC/expediente quedan listos antes del primer registro
+                PacienteDAO.cargarFiltrosEnSegundoPlano();
             }
             
+            // Carga en segundo plano la copia columnar de los reportes y programa su exportación nocturna
+            AlmacenAnalitico.getInstance();
+            
             // Cargar la ventana de login
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ui/login.fxml"));
             Parent root = loader.load();
@@ -60,7 +77,7 @@ public class HospitalSantaVidaApp extends Application {
                 Image icon = new Image(getClass().getResourceAsStream("/assets/img/Hospital_santa_vida.png"));
                 primaryStage.getIcons().add(icon);
             } catch (Exception e) {
-                System.err.println("No se pudo cargar el icono de la aplicación: " + e.getMessage());
+                BITACORA.aviso("No se pudo cargar el icono de la aplicación: " + e.getMessage());
             }
             
             // Centrar en pantalla
@@ -69,7 +86,12 @@ public class HospitalSantaVidaApp extends Application {
             // Configurar el evento de cierre de aplicación
             primaryStage.setOnCloseRequest(event -> {
                 try {
-                    // Cerrar conexiones de base de datos
+                    // Escribir accesos, triages y transiciones pendientes y cerrar conexiones de base de datos
+                    RegistroAccesosDiferido.detenerSiActivo();
+                    AlmacenLocal.detenerSiActivo();
+                    DiarioEscriturasTriage.detenerSiActivo();
+                    DiarioFlujoPacientes.detenerSiActivo();
+                    AlmacenAnalitico.detenerSiActivo();
                     DatabaseConnection.closeAllConnections();
                     
                     // Salir de la aplicación
@@ -77,7 +99,8 @@ public class HospitalSantaVidaApp extends Application {
                     System.exit(0);
                     
                 } catch (Exception e) {
-                    System.err.println("Error al cerrar la aplicación: " + e.getMessage());
+                    BITACORA.error("Error al cerrar la aplicación", e);
+                    Bitacora.vaciar();
                     System.exit(1);
                 }
             });
@@ -88,17 +111,12 @@ public class HospitalSantaVidaApp extends Application {
                 mostrarErrorConexion();
             }
             
-            // Mensaje de inicio en consola
-            System.out.println("=================================================");
-            System.out.println("  HOSPITAL SANTA VIDA - SISTEMA DE TRIAGE");
-            System.out.println("  Versión: " + APP_VERSION);
-            System.out.println("  Sistema iniciado correctamente");
-            System.out.println("  Fecha: " + java.time.LocalDateTime.now());
-            System.out.println("=================================================");
+            // Mensaje de inicio en la bitácora
+            BITACORA.info("HOSPITAL SANTA VIDA - SISTEMA DE TRIAGE iniciado correctamente",
+                          "version", APP_VERSION, "bitacora", Bitacora.getArchivo().toAbsolutePath());
             
         } catch (Exception e) {
-            System.err.println("Error crítico al iniciar la aplicación: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error crítico al iniciar la aplicación", e);
             
             // Mostrar error al usuario
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -119,11 +137,11 @@ public class HospitalSantaVidaApp extends Application {
         try {
             // Intenta establecer una conexión
             DatabaseConnection.obtenerConexion().close();
-            System.out.println("✓ Conexión a la base de datos establecida correctamente");
+            BITACORA.info("✓ Conexión a la base de datos establecida correctamente");
             return true;
             
         } catch (Exception e) {
-            System.err.println("✗ Error de conexión a la base de datos: " + e.getMessage());
+            BITACORA.error("✗ Error de conexión a la base de datos: " + e.getMessage());
             return false;
         }
     }
@@ -159,15 +177,15 @@ public class HospitalSantaVidaApp extends Application {
         
         // Verificar Java version
         String javaVersion = System.getProperty("java.version");
-        System.out.println("Ejecutándose en Java: " + javaVersion);
+        BITACORA.info("Ejecutándose en Java: " + javaVersion);
         
         // Verificar JavaFX
         try {
             Class.forName("javafx.application.Application");
-            System.out.println("✓ JavaFX disponible");
+            BITACORA.info("✓ JavaFX disponible");
         } catch (ClassNotFoundException e) {
-            System.err.println("✗ JavaFX no está disponible");
-            System.err.println("Asegúrese de tener JavaFX en el classpath");
+            BITACORA.error("✗ JavaFX no está disponible. Asegúrese de tener JavaFX en el classpath");
+            Bitacora.vaciar();
             return;
         }
         
@@ -176,8 +194,8 @@ public class HospitalSantaVidaApp extends Application {
             launch(args);
             
         } catch (Exception e) {
-            System.err.println("Error fatal al ejecutar la aplicación: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error fatal al ejecutar la aplicación", e);
+            Bitacora.vaciar();
             System.exit(1);
         }
     }
@@ -190,7 +208,7 @@ public class HospitalSantaVidaApp extends Application {
         super.init();
         
         // Inicializaciones previas al inicio de la UI
-        System.out.println("Inicializando Hospital Santa Vida...");
+        BITACORA.info("Inicializando Hospital Santa Vida...");
         
         // Cargar configuraciones del sistema
         cargarConfiguraciones();
@@ -198,7 +216,7 @@ public class HospitalSantaVidaApp extends Application {
         // Verificar recursos necesarios
         verificarRecursos();
         
-        System.out.println("Inicialización completada.");
+        BITACORA.info("Inicialización completada.");
     }
     
     /**
@@ -206,13 +224,19 @@ public class HospitalSantaVidaApp extends Application {
      */
     @Override
     public void stop() throws Exception {
-        System.out.println("Cerrando Hospital Santa Vida...");
+        BITACORA.info("Cerrando Hospital Santa Vida...");
         
-        // Limpiar recursos
+        // Limpiar recursos (los accesos, triages y transiciones pendientes se escriben antes de cerrar la conexión)
+        RegistroAccesosDiferido.detenerSiActivo();
+        AlmacenLocal.detenerSiActivo();
+        DiarioEscriturasTriage.detenerSiActivo();
+        DiarioFlujoPacientes.detenerSiActivo();
+        AlmacenAnalitico.detenerSiActivo();
         DatabaseConnection.closeAllConnections();
         
         super.stop();
-        System.out.println("Aplicación cerrada correctamente.");
+        BITACORA.info("Aplicación cerrada correctamente.");
+        Bitacora.vaciar();
     }
     
     /**
@@ -221,9 +245,9 @@ public class HospitalSantaVidaApp extends Application {
     private void cargarConfiguraciones() {
         try {
             // Cargar configuraciones desde archivo o base de datos
-            System.out.println("✓ Configuraciones del sistema cargadas");
+            BITACORA.info("✓ Configuraciones del sistema cargadas");
         } catch (Exception e) {
-            System.err.println("⚠ Advertencia: No se pudieron cargar todas las configuraciones");
+            BITACORA.aviso("⚠ Advertencia: No se pudieron cargar todas las configuraciones");
         }
     }
     
@@ -244,16 +268,16 @@ public class HospitalSantaVidaApp extends Application {
             for (String archivo : archivosRequeridos) {
                 var url = getClass().getResource(archivo);
                 if (url == null) {
-                    System.err.println("[RECURSOS] FXML NO ENCONTRADO: " + archivo + " (revisa classpath o copia a out/ui)");
+                    BITACORA.error("[RECURSOS] FXML NO ENCONTRADO: " + archivo + " (revisa classpath o copia a out/ui)");
                 } else {
-                    System.out.println("[RECURSOS] OK " + archivo + " -> " + url);
+                    BITACORA.debug("[RECURSOS] OK " + archivo + " -> " + url);
                 }
             }
             
-            System.out.println("✓ Verificación de recursos completada");
+            BITACORA.info("✓ Verificación de recursos completada");
             
         } catch (Exception e) {
-            System.err.println("✗ Error verificando recursos: " + e.getMessage());
+            BITACORA.error("✗ Error verificando recursos: " + e.getMessage());
             // throw new RuntimeException("Recursos faltantes", e);
         }
     }
@@ -15,6 +15,7 @@ import javafx.stage.Stage;
 import javafx.stage.Window;
 import models.*;
 import services.*;
+import utils.Bitacora;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDateTime;
@@ -30,6 +31,8 @@ import java.util.TimerTask;
  */
 public class AdminSalaEsperaController extends BaseController implements Initializable {
     
+    private static final Bitacora BITACORA = Bitacora.de(AdminSalaEsperaController.class);
+    
     // Elementos de estadísticas
     @FXML private Label lblTotalPacientes;
     @FXML private Label lblPacientesTriageHoy;
@@ -58,6 +61,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
     @FXML private MenuItem menuConsultaMedica;
     @FXML private MenuItem menuReportes;
     @FXML private MenuItem menuConfiguracion;
+    @FXML private MenuItem menuMetricas;
     
     // Botones
     @FXML private Button btnCerrarSesion;
@@ -186,7 +190,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
         try {
             String token = getTokenSesion();
             if (token == null) {
-                System.err.println("Token de sesión no disponible");
+                BITACORA.aviso("Token de sesión no disponible");
                 return;
             }
             
@@ -211,8 +215,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
             lblConsultasHoy.setText("0"); // Se puede conectar más tarde
             
         } catch (Exception e) {
-            System.err.println("Error al cargar estadísticas: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al cargar estadísticas", e);
             // Mostrar valores por defecto en caso de error
             lblTotalPacientes.setText("0");
             lblPacientesTriageHoy.setText("0");
@@ -228,32 +231,32 @@ public class AdminSalaEsperaController extends BaseController implements Initial
         try {
             String token = getTokenSesion();
             if (token == null) {
-                System.err.println("Token de sesión no disponible");
+                BITACORA.aviso("Token de sesión no disponible");
                 return;
             }
             
             // Verificar que la tabla y la lista estén inicializadas
             if (tblPacientesTriage == null) {
-                System.err.println("Tabla de pacientes triage no inicializada");
+                BITACORA.aviso("Tabla de pacientes triage no inicializada");
                 return;
             }
             
             if (pacientesTriage == null) {
-                System.err.println("Inicializando lista de pacientes triage...");
+                BITACORA.aviso("Inicializando lista de pacientes triage...");
                 pacientesTriage = FXCollections.observableArrayList();
                 tblPacientesTriage.setItems(pacientesTriage);
             }
             
-            List<TriageService.PacienteEnEspera> pacientesEnEspera = triageService.obtenerPacientesEnEspera(token);
+            List<FilaTriage> filasEnEspera = triageService.obtenerFilasEnEspera(token);
             
             pacientesTriage.clear();
             
-            if (pacientesEnEspera != null) {
-                for (TriageService.PacienteEnEspera paciente : pacientesEnEspera) {
+            if (filasEnEspera != null) {
+                for (FilaTriage fila : filasEnEspera) {
                     PacienteTriageInfo info = new PacienteTriageInfo(
-                        paciente.getNombreCompleto(),
-                        paciente.getNivelUrgencia().toString(),
-                        calcularTiempoEspera(paciente.getFechaRegistro()),
+                        fila.pacienteNombre(),
+                        fila.nivelUrgencia().toString(),
+                        calcularTiempoEspera(fila.fechaLlegada()),
                         "EN ESPERA"
                     );
                     pacientesTriage.add(info);
@@ -261,8 +264,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
             }
             
         } catch (Exception e) {
-            System.err.println("Error al cargar pacientes de triage: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al cargar pacientes de triage", e);
         }
     }
     
@@ -275,7 +277,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
         try {
             String token = getTokenSesion();
             if (token == null) {
-                System.err.println("Token de sesión no disponible");
+                BITACORA.aviso("Token de sesión no disponible");
                 return;
             }
             
@@ -300,8 +302,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
             }
             
         } catch (Exception e) {
-            System.err.println("Error al cargar citas de hoy: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al cargar citas de hoy", e);
         }
     }
     */
@@ -389,6 +390,11 @@ public class AdminSalaEsperaController extends BaseController implements Initial
         showAlert("En desarrollo", "Funcionalidad de configuración en desarrollo");
     }
     
+    @FXML
+    private void abrirMetricas() {
+        navigateToInterface("/ui/metricas.fxml", "Hospital Santa Vida - Métricas del Sistema");
+    }
+    
     @FXML
     private void handleActualizar() {
         cargarDatos();
@@ -424,7 +430,7 @@ public class AdminSalaEsperaController extends BaseController implements Initial
             }
             
         } catch (IOException e) {
-            System.err.println("Error al cargar ventana de login: " + e.getMessage());
+            BITACORA.error("Error al cargar ventana de login: " + e.getMessage());
         }
     }
     
@@ -15,6 +15,7 @@ import javafx.stage.Window;
 import models.*;
 import services.*;
 import services.PacienteServiceResults.*;
+import utils.Bitacora;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
@@ -29,6 +30,8 @@ import java.util.ResourceBundle;
  */
 public class ConsultaMedicaController extends BaseController implements Initializable {
     
+    private static final Bitacora BITACORA = Bitacora.de(ConsultaMedicaController.class);
+    
     // Información del médico
     @FXML private Label lblNombreMedico;
     @FXML private Label lblEspecialidad;
@@ -544,7 +547,7 @@ public class ConsultaMedicaController extends BaseController implements Initiali
             }
             
         } catch (IOException e) {
-            System.err.println("Error al cargar ventana de login: " + e.getMessage());
+            BITACORA.error("Error al cargar ventana de login: " + e.getMessage());
         }
     }
     
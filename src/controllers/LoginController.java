@@ -13,6 +13,7 @@ import javafx.stage.Stage;
 import services.AuthenticationService;
 import models.Usuario;
 import models.TipoUsuario;
+import utils.Bitacora;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
@@ -23,6 +24,8 @@ import java.util.ResourceBundle;
  */
 public class LoginController implements Initializable {
     
+    private static final Bitacora BITACORA = Bitacora.de(LoginController.class);
+    
     @FXML private ImageView imgLogo;
     @FXML private TextField txtUsername;
     @FXML private PasswordField txtPassword;
@@ -215,8 +218,7 @@ public class LoginController implements Initializable {
         } catch (IOException e) {
             showError("Error al cargar la interfaz principal");
             setUIEnabled(true);
-            System.err.println("Error al cargar FXML: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al cargar FXML", e);
         }
     }
     
@@ -0,0 +1,277 @@
+package controllers;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.fxml.Initializable;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import dao.RegistroConsultasLentas;
+import services.AuthenticationService;
+import utils.Bitacora;
+import utils.RegistroMetricas;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ResourceBundle;
+
+/**
+ * Controlador de la pantalla de métricas del sistema (panel administrativo)
+ * Muestra las series de RegistroMetricas: latencia de consultas de los DAOs, latencia de
+ * los servicios y profundidad de la cola de triage; permite volcarlas en formato Prometheus
+ * También muestra las sentencias más lentas de RegistroConsultasLentas y su plan de ejecución
+ */
+public class MetricasController extends BaseController implements Initializable {
+    
+    private static final Bitacora BITACORA = Bitacora.de(MetricasController.class);
+    
+    // Tabla de métricas
+    @FXML private TableView<RegistroMetricas.Muestra> tblMetricas;
+    @FXML private TableColumn<RegistroMetricas.Muestra, String> colNombre;
+    @FXML private TableColumn<RegistroMetricas.Muestra, String> colEtiquetas;
+    @FXML private TableColumn<RegistroMetricas.Muestra, String> colTipo;
+    @FXML private TableColumn<RegistroMetricas.Muestra, Long> colValor;
+    @FXML private TableColumn<RegistroMetricas.Muestra, Long> colErrores;
+    @FXML private TableColumn<RegistroMetricas.Muestra, Double> colPromedio;
+    @FXML private TableColumn<RegistroMetricas.Muestra, Double> colP50;
+    @FXML private TableColumn<RegistroMetricas.Muestra, Double> colP99;
+    @FXML private TableColumn<RegistroMetricas.Muestra, Double> colMaximo;
+    
+    @FXML private TextField txtFiltro;
+    @FXML private Label lblUltimaActualizacion;
+    
+    // Tabla de consultas lentas
+    @FXML private TableView<RegistroConsultasLentas.ConsultaLenta> tblConsultasLentas;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, String> colSqlId;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, Long> colEjecucionesLentas;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, Double> colMaximoLenta;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, Double> colUltimoLenta;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, Long> colFilasLenta;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, String> colParametrosLenta;
+    @FXML private TableColumn<RegistroConsultasLentas.ConsultaLenta, String> colUltimaVezLenta;
+    @FXML private TextArea txtDetalleConsulta;
+    @FXML private TextField txtUmbral;
+    @FXML private CheckBox chkCapturarPlanes;
+    @FXML private Label lblArchivoConsultasLentas;
+    
+    // Botones
+    @FXML private Button btnActualizar;
+    @FXML private Button btnExportar;
+    @FXML private Button btnVolver;
+    @FXML private Button btnAplicarUmbral;
+    
+    // Sentencias mostradas en la tabla de consultas lentas
+    private static final int TOP_CONSULTAS_LENTAS = 50;
+    
+    private ObservableList<RegistroMetricas.Muestra> muestras;
+    private ObservableList<RegistroConsultasLentas.ConsultaLenta> consultasLentas;
+    
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        colNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
+        colEtiquetas.setCellValueFactory(new PropertyValueFactory<>("etiquetas"));
+        colTipo.setCellValueFactory(new PropertyValueFactory<>("tipo"));
+        colValor.setCellValueFactory(new PropertyValueFactory<>("valor"));
+        colErrores.setCellValueFactory(new PropertyValueFactory<>("errores"));
+        colPromedio.setCellValueFactory(new PropertyValueFactory<>("promedioMs"));
+        colP50.setCellValueFactory(new PropertyValueFactory<>("p50Ms"));
+        colP99.setCellValueFactory(new PropertyValueFactory<>("p99Ms"));
+        colMaximo.setCellValueFactory(new PropertyValueFactory<>("maximoMs"));
+        
+        // Mostrar tiempos con tres decimales
+        colPromedio.setCellFactory(column -> new CeldaMilisegundos());
+        colP50.setCellFactory(column -> new CeldaMilisegundos());
+        colP99.setCellFactory(column -> new CeldaMilisegundos());
+        colMaximo.setCellFactory(column -> new CeldaMilisegundos());
+        
+        muestras = FXCollections.observableArrayList();
+        tblMetricas.setItems(muestras);
+        
+        txtFiltro.textProperty().addListener((obs, anterior, nuevo) -> cargarMetricas());
+        
+        // Tabla de consultas lentas
+        colSqlId.setCellValueFactory(new PropertyValueFactory<>("sqlId"));
+        colEjecucionesLentas.setCellValueFactory(new PropertyValueFactory<>("ejecuciones"));
+        colMaximoLenta.setCellValueFactory(new PropertyValueFactory<>("maximoMs"));
+        colUltimoLenta.setCellValueFactory(new PropertyValueFactory<>("ultimoMs"));
+        colFilasLenta.setCellValueFactory(new PropertyValueFactory<>("ultimasFilas"));
+        colMaximoLenta.setCellFactory(column -> new CeldaDecimal<>());
+        colUltimoLenta.setCellFactory(column -> new CeldaDecimal<>());
+        colParametrosLenta.setCellValueFactory(new PropertyValueFactory<>("ultimosParametros"));
+        colUltimaVezLenta.setCellValueFactory(cellData -> new SimpleStringProperty(
+            cellData.getValue().getUltimaVez() != null
+                ? cellData.getValue().getUltimaVez().format(DateTimeFormatter.ofPattern("dd/MM HH:mm:ss")) : ""));
+        
+        consultasLentas = FXCollections.observableArrayList();
+        tblConsultasLentas.setItems(consultasLentas);
+        tblConsultasLentas.getSelectionModel().selectedItemProperty()
+            .addListener((obs, anterior, nueva) -> mostrarDetalleConsulta(nueva));
+        
+        RegistroConsultasLentas registro = RegistroConsultasLentas.getInstance();
+        txtUmbral.setText(String.valueOf(registro.getUmbralMs()));
+        chkCapturarPlanes.setSelected(registro.isCapturarPlanes());
+        lblArchivoConsultasLentas.setText("Log: " + registro.getArchivo().toAbsolutePath());
+    }
+    
+    @Override
+    protected void onSesionInicializada() {
+        if (!tienePermiso(AuthenticationService.Permiso.VER_DASHBOARD_ADMIN)) {
+            showAlert("Sin permisos", "No tiene permisos para consultar las métricas del sistema");
+            Platform.runLater(() -> handleVolver());
+            return;
+        }
+        
+        cargarMetricas();
+    }
+    
+    /**
+     * Carga las métricas aplicando el filtro por nombre o etiquetas
+     */
+    private void cargarMetricas() {
+        String filtro = txtFiltro.getText() == null ? "" : txtFiltro.getText().trim().toLowerCase();
+        
+        muestras.clear();
+        for (RegistroMetricas.Muestra muestra : RegistroMetricas.getInstance().obtenerMuestras()) {
+            if (filtro.isEmpty() || muestra.getNombre().toLowerCase().contains(filtro)
+                    || muestra.getEtiquetas().toLowerCase().contains(filtro)) {
+                muestras.add(muestra);
+            }
+        }
+        
+        consultasLentas.setAll(RegistroConsultasLentas.getInstance().obtenerTop(TOP_CONSULTAS_LENTAS));
+        
+        lblUltimaActualizacion.setText("Actualizado: " +
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+    }
+    
+    /**
+     * Muestra el texto y el plan capturado de la sentencia seleccionada
+     */
+    private void mostrarDetalleConsulta(RegistroConsultasLentas.ConsultaLenta consulta) {
+        if (consulta == null) {
+            txtDetalleConsulta.clear();
+            return;
+        }
+        
+        StringBuilder detalle = new StringBuilder(consulta.getSql());
+        if (consulta.getPlan() != null) {
+            detalle.append("\n\nEXPLAIN:\n").append(consulta.getPlan());
+        } else if (!RegistroConsultasLentas.getInstance().isCapturarPlanes()) {
+            detalle.append("\n\n(Active \"Capturar EXPLAIN\" para registrar el plan la próxima vez que sea lenta)");
+        }
+        txtDetalleConsulta.setText(detalle.toString());
+    }
+    
+    @FXML
+    private void handleActualizar() {
+        cargarMetricas();
+    }
+    
+    @FXML
+    private void handleAplicarUmbral() {
+        try {
+            long umbral = Long.parseLong(txtUmbral.getText().trim());
+            if (umbral < 0) {
+                showAlert("Dato inválido", "El umbral debe ser mayor o igual a cero");
+                return;
+            }
+            RegistroConsultasLentas registro = RegistroConsultasLentas.getInstance();
+            registro.setUmbralMs(umbral);
+            registro.setCapturarPlanes(chkCapturarPlanes.isSelected());
+            showAlert("Configuración aplicada", "Se registrarán las sentencias que tarden " + umbral + " ms o más");
+        } catch (NumberFormatException e) {
+            showAlert("Dato inválido", "El umbral debe ser un número entero de milisegundos");
+        }
+    }
+    
+    @FXML
+    private void handleExportar() {
+        FileChooser selector = new FileChooser();
+        selector.setTitle("Exportar métricas (formato Prometheus)");
+        selector.setInitialFileName("hospital_santa_vida.prom");
+        selector.getExtensionFilters().add(new FileChooser.ExtensionFilter("Métricas Prometheus", "*.prom", "*.txt"));
+        
+        File archivo = selector.showSaveDialog(btnExportar.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+        
+        try {
+            RegistroMetricas.getInstance().volcarArchivo(archivo.toPath());
+            showAlert("Exportación completa", "Métricas guardadas en " + archivo.getAbsolutePath());
+        } catch (IOException e) {
+            BITACORA.error("Error al exportar métricas: " + e.getMessage());
+            showAlert("Error", "No se pudieron exportar las métricas: " + e.getMessage());
+        }
+    }
+    
+    @FXML
+    private void handleVolver() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/ui/admin-sala-espera.fxml"));
+            Parent root = loader.load();
+            
+            Object controller = loader.getController();
+            if (controller instanceof BaseController) {
+                ((BaseController) controller).inicializarSesion(usuarioActual, tokenSesion);
+            }
+            
+            Stage stage = (Stage) btnVolver.getScene().getWindow();
+            stage.setTitle("Hospital Santa Vida - Panel Administrativo");
+            stage.setScene(new Scene(root));
+            stage.centerOnScreen();
+        
+        } catch (IOException e) {
+            showAlert("Error", "Error al cargar la interfaz: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Muestra un alert
+     */
+    private void showAlert(String title, String message) {
+        Platform.runLater(() -> {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(title);
+            alert.setHeaderText(null);
+            alert.setContentText(message);
+            alert.showAndWait();
+        });
+    }
+    
+    /**
+     * Celda para tiempos en milisegundos (vacía si la serie no es un temporizador)
+     */
+    private static class CeldaMilisegundos extends TableCell<RegistroMetricas.Muestra, Double> {
+        @Override
+        protected void updateItem(Double item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null || getTableRow() == null || getTableRow().getItem() == null
+                    || !"temporizador".equals(getTableRow().getItem().getTipo())) {
+                setText(null);
+            } else {
+                setText(String.format("%.3f", item));
+            }
+        }
+    }
+    
+    /**
+     * Celda para tiempos de las consultas lentas (un decimal)
+     */
+    private static class CeldaDecimal<S> extends TableCell<S, Double> {
+        @Override
+        protected void updateItem(Double item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(empty || item == null ? null : String.format("%.1f", item));
+        }
+    }
+}
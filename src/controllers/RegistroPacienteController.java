@@ -15,6 +15,7 @@ import javafx.stage.Window;
 import models.*;
 import services.*;
 import services.PacienteServiceResults.*;
+import utils.Bitacora;
 import utils.ValidationUtils;
 import java.io.IOException;
 import java.net.URL;
@@ -28,6 +29,8 @@ import java.util.ResourceBundle;
  */
 public class RegistroPacienteController extends BaseController implements Initializable {
     
+    private static final Bitacora BITACORA = Bitacora.de(RegistroPacienteController.class);
+    
     // Información del usuario
     @FXML private Label lblUsuarioActual;
     @FXML private Label lblFechaHora;
@@ -121,7 +124,8 @@ public class RegistroPacienteController extends BaseController implements Initia
         // Configurar información del usuario
         lblUsuarioActual.setText(usuarioActual.getNombreCompleto());
         
-        // Cargar lista de pacientes recientes
+        // Cargar lista de pacientes recientes (consultando la base, con los de otras estaciones)
+        pacienteService.refrescarFilasRecientes();
         cargarPacientesRecientes();
     }
     
@@ -199,18 +203,18 @@ public class RegistroPacienteController extends BaseController implements Initia
      */
     private void cargarPacientesRecientes() {
         try {
-            ResultadoBusqueda resultado = pacienteService.obtenerPacientesRecientes(tokenSesion, 50);
+            List<FilaPaciente> filas = pacienteService.obtenerFilasRecientes(tokenSesion, 50);
             
             listaPacientes.clear();
             
-            for (Paciente paciente : resultado.getPacientes()) {
+            for (FilaPaciente fila : filas) {
                 PacienteInfo info = new PacienteInfo(
-                    paciente.getId(),
-                    paciente.getNumeroExpediente(),
-                    paciente.getNombreCompleto(),
-                    paciente.getFechaNacimiento().toString(),
-                    paciente.getTelefono(),
-                    paciente.isActivo() ? "ACTIVO" : "INACTIVO"
+                    fila.id(),
+                    fila.expediente(),
+                    fila.nombreCompleto(),
+                    fila.fechaNacimiento() != null ? fila.fechaNacimiento().toString() : "",
+                    fila.telefono(),
+                    fila.activo() ? "ACTIVO" : "INACTIVO"
                 );
                 listaPacientes.add(info);
             }
@@ -573,7 +577,7 @@ public class RegistroPacienteController extends BaseController implements Initia
             }
             
         } catch (IOException e) {
-            System.err.println("Error al cargar ventana de login: " + e.getMessage());
+            BITACORA.error("Error al cargar ventana de login: " + e.getMessage());
         }
     }
     
@@ -8,9 +8,11 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import models.DatosSociales;
+import models.FilaTriage;
 import models.Paciente;
 import models.RegistroTriage;
 import dao.DatosSocialesDAO;
+import utils.Bitacora;
 
 import java.io.IOException;
 import java.net.URL;
@@ -22,6 +24,8 @@ import java.util.ResourceBundle;
  */
 public class TrabajoSocialController extends BaseController implements Initializable {
     
+    private static final Bitacora BITACORA = Bitacora.de(TrabajoSocialController.class);
+    
     // Información del usuario
     @FXML private Label lblUsuarioNombre;
     
@@ -67,8 +71,7 @@ public class TrabajoSocialController extends BaseController implements Initializ
         try {
             datosSocialesDAO = new DatosSocialesDAO();
         } catch (Exception e) {
-            System.err.println("Error al inicializar servicios: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al inicializar servicios", e);
         }
     }
     
@@ -93,15 +96,17 @@ public class TrabajoSocialController extends BaseController implements Initializ
     private void cargarPacientePendiente() {
         try {
             // Obtener pacientes esperando trabajo social desde la base de datos
+            // La lista se lee como filas compactas; solo el primero se carga completo
             dao.RegistroTriageDAO triageDAO = new dao.RegistroTriageDAO();
-            java.util.List<RegistroTriage> pacientesEspera = triageDAO.obtenerEsperandoTrabajoSocial();
+            java.util.List<FilaTriage> pacientesEspera = triageDAO.obtenerFilasEsperandoTrabajoSocial();
             
-            System.out.println("DEBUG: Pacientes encontrados esperando trabajo social: " + pacientesEspera.size());
+            BITACORA.debug("Pacientes encontrados esperando trabajo social: " + pacientesEspera.size());
             
-            if (!pacientesEspera.isEmpty()) {
-                // Tomar el primer paciente de la lista (ordenado por prioridad)
-                registroTriageActual = pacientesEspera.get(0);
-                
+            // Tomar el primer paciente de la lista (ordenado por prioridad)
+            registroTriageActual = pacientesEspera.isEmpty() ? null
+                : triageDAO.buscarPorId(pacientesEspera.get(0).registroId());
+            
+            if (registroTriageActual != null) {
                 // Mostrar información básica
                 lblNombrePaciente.setText(registroTriageActual.getPacienteNombre() != null ? 
                     registroTriageActual.getPacienteNombre() : "Paciente sin nombre");
@@ -112,19 +117,18 @@ public class TrabajoSocialController extends BaseController implements Initializ
                 lblMotivo.setText("Motivo: " + (registroTriageActual.getMotivoConsulta() != null ? 
                     registroTriageActual.getMotivoConsulta() : "Sin motivo"));
                     
-                System.out.println("Paciente cargado para trabajo social: " + registroTriageActual.getPacienteNombre());
+                BITACORA.info("Paciente cargado para trabajo social: " + registroTriageActual.getPacienteNombre());
             } else {
                 // No hay pacientes esperando trabajo social
                 registroTriageActual = null;
                 lblNombrePaciente.setText("No hay pacientes esperando evaluación social");
                 lblClasificacion.setText("-");
                 lblMotivo.setText("-");
-                System.out.println("No hay pacientes esperando evaluación de trabajo social");
+                BITACORA.info("No hay pacientes esperando evaluación de trabajo social");
             }
             
         } catch (Exception e) {
-            System.err.println("Error al cargar paciente pendiente: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al cargar paciente pendiente", e);
             registroTriageActual = null;
             lblNombrePaciente.setText("Error al cargar pacientes");
             lblClasificacion.setText("-");
@@ -194,7 +198,7 @@ public class TrabajoSocialController extends BaseController implements Initializ
             }
             
         } catch (Exception e) {
-            System.out.println("No se encontraron datos sociales previos para este paciente");
+            BITACORA.info("No se encontraron datos sociales previos para este paciente");
         }
     }
     
@@ -299,13 +303,13 @@ public class TrabajoSocialController extends BaseController implements Initializ
             if (resultado) {
                 // TODO: Actualizar el estado del registro de triage - implementar método en TriageService
                 // triageService.marcarEvaluacionSocialCompleta(registroTriageActual.getId());
-                System.out.println("Datos sociales guardados exitosamente para registro: " + registroTriageActual.getId());
+                BITACORA.info("Datos sociales guardados exitosamente para registro: " + registroTriageActual.getId());
             }
             
             return resultado;
             
         } catch (Exception e) {
-            e.printStackTrace();
+            BITACORA.error("Error al guardar datos sociales", e);
             return false;
         }
     }
@@ -393,8 +397,7 @@ public class TrabajoSocialController extends BaseController implements Initializ
             currentStage.centerOnScreen();
             
         } catch (IOException e) {
-            System.err.println("Error al cerrar sesión: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al cerrar sesión", e);
         }
     }
     
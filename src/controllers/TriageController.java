@@ -11,6 +11,8 @@ import models.*;
 import services.*;
 import services.PacienteServiceResults.*;
 import services.TriageServiceResults.*;
+import structures.RecomendadorEspecialidades;
+import utils.Bitacora;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -23,6 +25,8 @@ import java.util.ResourceBundle;
  */
 public class TriageController extends BaseController implements Initializable {
     
+    private static final Bitacora BITACORA = Bitacora.de(TriageController.class);
+    
     // Información del doctor
     @FXML private Label lblDoctorName;
     @FXML private Label lblDateTime;
@@ -226,17 +230,17 @@ public class TriageController extends BaseController implements Initializable {
                 colaPacientes = FXCollections.observableArrayList();
             }
             
-            List<TriageService.PacienteEnEspera> pacientesEnEspera = triageService.obtenerPacientesEnEspera(tokenSesion);
+            List<FilaTriage> filasEnEspera = triageService.obtenerFilasEnEspera(tokenSesion);
             
             colaPacientes.clear();
             
-            for (TriageService.PacienteEnEspera paciente : pacientesEnEspera) {
+            for (FilaTriage fila : filasEnEspera) {
                 PacienteColaInfo info = new PacienteColaInfo(
-                    paciente.getNombreCompleto(),
-                    paciente.getNumeroExpediente(),
-                    paciente.getNivelUrgencia() != null ? paciente.getNivelUrgencia().toString() : "PENDIENTE",
-                    calcularTiempoEspera(paciente.getFechaRegistro()),
-                    paciente.getId()
+                    fila.pacienteNombre(),
+                    fila.expediente(),
+                    fila.nivelUrgencia() != null ? fila.nivelUrgencia().toString() : "PENDIENTE",
+                    calcularTiempoEspera(fila.fechaLlegada()),
+                    fila.pacienteId()
                 );
                 colaPacientes.add(info);
             }
@@ -588,8 +592,8 @@ public class TriageController extends BaseController implements Initializable {
             showAlert("Nivel seleccionado", "Nivel de triage seleccionado. Ahora seleccione la especialidad médica.");
             
         } catch (Exception e) {
+            BITACORA.error("Error al seleccionar nivel de triage", e);
             showAlert("Error", "Error al seleccionar nivel de triage: " + e.getMessage());
-            e.printStackTrace();
         }
     }
     
@@ -623,8 +627,8 @@ public class TriageController extends BaseController implements Initializable {
             }
             
         } catch (Exception e) {
+            BITACORA.error("Error al guardar evaluación", e);
             showAlert("Error", "Error al guardar evaluación: " + e.getMessage());
-            e.printStackTrace();
         }
     }
     
@@ -688,13 +692,23 @@ public class TriageController extends BaseController implements Initializable {
         // Marcar especialidad seleccionada
         especialidadSeleccionada = especialidad;
         
+        // Sugerir especialidad según síntomas y motivo de consulta si difiere de la elegida
+        String sugerencia = "";
+        Especialidad sugerida = RecomendadorEspecialidades.getPredeterminado()
+            .sugerir(txtSintomas.getText() + "\n" + txtMotivoConsulta.getText());
+        if (sugerida != null && !RecomendadorEspecialidades.plegar(sugerida.getNombre())
+                .equals(RecomendadorEspecialidades.plegar(especialidad))) {
+            sugerencia = "Sugerencia por síntomas: " + sugerida.getNombre() + "\n";
+        }
+        
         // Mostrar confirmación para guardar
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("Confirmar Evaluación de Triage");
         confirmAlert.setHeaderText("Resumen de Clasificación");
         confirmAlert.setContentText("Paciente: " + pacienteActual.getNombreCompleto() + "\n" +
                                   "Nivel de Urgencia: " + nivelSeleccionado.name() + "\n" +
-                                  "Especialidad: " + especialidad + "\n\n" +
+                                  "Especialidad: " + especialidad + "\n" +
+                                  sugerencia + "\n" +
                                   "¿Confirma la evaluación de triage?");
         
         confirmAlert.showAndWait().ifPresent(response -> {
@@ -724,11 +738,11 @@ public class TriageController extends BaseController implements Initializable {
                 } else {
                     // Si no hay usuario actual válido, usar un ID por defecto
                     usuarioId = 1; // ID por defecto
-                    System.err.println("Usando ID de usuario por defecto para triage");
+                    BITACORA.aviso("Usando ID de usuario por defecto para triage");
                 }
             } catch (Exception e) {
                 usuarioId = 1; // ID por defecto en caso de error
-                System.err.println("Error al obtener usuario actual, usando ID por defecto: " + e.getMessage());
+                BITACORA.aviso("Error al obtener usuario actual, usando ID por defecto: " + e.getMessage());
             }
             evaluacionActual.setUsuarioTriageId(usuarioId);
             
@@ -800,23 +814,24 @@ public class TriageController extends BaseController implements Initializable {
             evaluacionActual.setEstado(EstadoPaciente.ESPERANDO_TRABAJO_SOCIAL);
             
             // Debug: mostrar valores antes de guardar
-            System.out.println("=== DEBUG TRIAGE ===");
-            System.out.println("Paciente ID: " + evaluacionActual.getPacienteId());
-            System.out.println("Usuario Triage ID: " + evaluacionActual.getUsuarioTriageId());
-            System.out.println("Motivo consulta: '" + evaluacionActual.getMotivoConsulta() + "' (length: " + evaluacionActual.getMotivoConsulta().length() + ")");
-            System.out.println("Síntomas principales: '" + evaluacionActual.getSintomasPrincipales() + "' (length: " + evaluacionActual.getSintomasPrincipales().length() + ")");
-            System.out.println("Tiempo estimado: " + evaluacionActual.getTiempoEstimadoAtencion());
-            System.out.println("Prioridad numérica: " + evaluacionActual.getPrioridadNumerica());
-            System.out.println("Nivel urgencia: " + evaluacionActual.getNivelUrgencia());
-            System.out.println("Especialidad: " + evaluacionActual.getEspecialidadAsignada());
-            System.out.println("==================");
+            if (BITACORA.debugHabilitado()) {
+                BITACORA.debug("Completando evaluación de triage",
+                    "pacienteId", evaluacionActual.getPacienteId(),
+                    "usuarioTriageId", evaluacionActual.getUsuarioTriageId(),
+                    "motivo", evaluacionActual.getMotivoConsulta(),
+                    "sintomas", evaluacionActual.getSintomasPrincipales(),
+                    "tiempoEstimado", evaluacionActual.getTiempoEstimadoAtencion(),
+                    "prioridad", evaluacionActual.getPrioridadNumerica(),
+                    "nivel", evaluacionActual.getNivelUrgencia(),
+                    "especialidad", evaluacionActual.getEspecialidadAsignada());
+            }
             
             // Guardar en la base de datos
             guardarEvaluacionTriage();
             
         } catch (Exception e) {
+            BITACORA.error("Error al completar evaluación de triage", e);
             showAlert("Error", "Error al completar evaluación de triage: " + e.getMessage());
-            e.printStackTrace();
         }
     }
     
@@ -0,0 +1,828 @@
+package dao;
+
+import models.Paciente;
+import models.RegistroTriage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import utils.Bitacora;
+import utils.DatabaseConnection;
+
+/**
+ * Almacén local de la estación para trabajar sin conexión a MySQL
+ * Guarda en archivos bajo datos/local los pacientes usados recientemente, la última
+ * cola de triage y los registros de pacientes hechos sin conexión.
+ *
+ * Lecturas: los pacientes se sirven desde la copia local mientras sea reciente
+ * ({@value #VIGENCIA_EN_LINEA_MS} ms); sin conexión se sirve cualquier copia.
+ * Escrituras: sin conexión, un paciente nuevo recibe un ID local negativo y un expediente
+ * provisional; el hilo de sincronización lo inserta al volver la conexión. Si mientras tanto
+ * otra estación registró el mismo CURP, se enlaza con el paciente existente y se anota un
+ * conflicto. Los triages sin conexión los guarda DiarioEscriturasTriage, que espera a que el
+ * ID local del paciente se resuelva antes de replicarlos.
+ */
+public class AlmacenLocal {
+    
+    private static final Bitacora BITACORA = Bitacora.de(AlmacenLocal.class);
+    
+    public static final Path DIRECTORIO_PREDETERMINADO = Paths.get("datos", "local");
+    public static final int CAPACIDAD_PACIENTES = 5000;
+    public static final long VIGENCIA_EN_LINEA_MS = 2 * 60 * 1000;
+    public static final int INTERVALO_SINCRONIZACION_SEGUNDOS = 5;
+    public static final int MAX_CONFLICTOS = 200;
+    
+    private static final int VERSION_FORMATO = 1;
+    private static final String ARCHIVO_PACIENTES = "pacientes.dat";
+    private static final String ARCHIVO_COLA = "cola.dat";
+    private static final String ARCHIVO_PENDIENTES = "pendientes.dat";
+    private static final String ARCHIVO_ESTACION = "estacion.id";
+    
+    // Diarios que pueden guardar IDs locales de paciente (ver registrarReferenciasIdsLocales)
+    public static final String DIARIO_TRIAGE = "triage";
+    public static final String DIARIO_FLUJO = "flujo";
+    private static final Set<String> DIARIOS_IDS_LOCALES = Set.of(DIARIO_TRIAGE, DIARIO_FLUJO);
+    
+    // IDs locales ya resueltos: se guardan con los pendientes y sólo se depuran, al pasar de este
+    // número, los que ningún diario puede volver a enviar
+    private static final int MAX_IDS_RESUELTOS = 1000;
+    
+    private static volatile AlmacenLocal instance;
+    
+    private final PacienteDAO pacienteDAO;
+    private final Path directorio;
+    private final String estacion;
+    private final ScheduledExecutorService sincronizador;
+    
+    // Caché de pacientes en orden de acceso (LRU); protegida por this
+    private final LinkedHashMap<Integer, EntradaPaciente> pacientes;
+    private boolean pacientesModificados = false;
+    
+    // Escrituras pendientes y su estado persistente; protegidos por this
+    private final List<Paciente> pacientesPendientes = new ArrayList<>();
+    private final LinkedHashMap<Integer, Integer> idsResueltos = new LinkedHashMap<>();
+    private int siguienteIdLocal = -1;
+    private int siguienteFolioLocal = 1;
+    
+    private List<RegistroTriage> colaTriage = new ArrayList<>();
+    private int huellaCola;
+    private volatile Supplier<List<RegistroTriage>> fuenteCola;
+    private final List<Consumer<Paciente>> oyentesSincronizacion = new CopyOnWriteArrayList<>();
+    private final Map<String, Supplier<Set<Integer>>> referenciasIdsLocales = new ConcurrentHashMap<>();
+    
+    private final List<ConflictoSincronizacion> conflictos = new ArrayList<>();
+    private volatile boolean enLinea = true;
+    
+    // Métricas
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong lecturasSinConexion = new AtomicLong();
+    private final AtomicLong pacientesSincronizados = new AtomicLong();
+    private final AtomicLong totalConflictos = new AtomicLong();
+    
+    private AlmacenLocal() {
+        this(new PacienteDAO(), DIRECTORIO_PREDETERMINADO, INTERVALO_SINCRONIZACION_SEGUNDOS);
+    }
+    
+    /**
+     * Constructor con directorio e intervalo configurables
+     * Carga los archivos existentes; si alguno está dañado se ignora y se reconstruye
+     * @param pacienteDAO DAO usado para leer y sincronizar pacientes
+     * @param directorio Directorio de los archivos locales
+     * @param intervaloSegundos Segundos entre rondas de sincronización
+     */
+    AlmacenLocal(PacienteDAO pacienteDAO, Path directorio, int intervaloSegundos) {
+        this.pacienteDAO = pacienteDAO;
+        this.directorio = directorio;
+        this.pacientes = new LinkedHashMap<>(256, 0.75f, true);
+        this.estacion = cargarEstacion();
+        cargar();
+        
+        this.sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "almacen-local");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.sincronizador.scheduleWithFixedDelay(this::sincronizar,
+            intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Obtiene la instancia única del almacén local
+     * @return Instancia de AlmacenLocal
+     */
+    public static AlmacenLocal getInstance() {
+        if (instance == null) {
+            synchronized (AlmacenLocal.class) {
+                if (instance == null) {
+                    instance = new AlmacenLocal();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Indica si un error de base de datos se debe a que no hay conexión
+     * (estado SQL 08xxx o excepciones de conexión del driver)
+     * @param e Excepción a revisar
+     * @return true si es un error de conexión
+     */
+    public static boolean esErrorDeConexion(SQLException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLTransientConnectionException
+                    || causa instanceof SQLNonTransientConnectionException
+                    || causa instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (causa instanceof SQLException sql && sql.getSQLState() != null
+                    && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @return true si la última operación con MySQL tuvo éxito (o aún no se sabe)
+     */
+    public boolean enLinea() {
+        return enLinea;
+    }
+    
+    /**
+     * Revisa un error de base de datos y, si es de conexión, pasa a trabajar sin conexión
+     * @param e Excepción recibida del DAO
+     * @return true si el error es de conexión y el llamador debe usar los datos locales
+     */
+    public boolean reportarError(SQLException e) {
+        if (!esErrorDeConexion(e)) {
+            return false;
+        }
+        marcarSinConexion();
+        return true;
+    }
+    
+    /**
+     * Marca la estación como sin conexión; el hilo de sincronización la vuelve a probar
+     */
+    public void marcarSinConexion() {
+        if (enLinea) {
+            enLinea = false;
+            BITACORA.aviso("Sin conexión a la base de datos: se usan los datos locales de la estación");
+        }
+    }
+    
+    /**
+     * Obtiene un paciente, primero de la copia local y luego de MySQL
+     * Con conexión, la copia local sólo se usa si es reciente; sin conexión se usa cualquier copia
+     * @param pacienteId ID del paciente (negativo si se registró sin conexión)
+     * @return El paciente, o null si no existe o no está en la copia local sin conexión
+     * @throws SQLException si hay un error de base de datos que no es de conexión
+     */
+    public Paciente obtenerPaciente(int pacienteId) throws SQLException {
+        pacienteId = resolverPacienteId(pacienteId);
+        long ahora = System.currentTimeMillis();
+        synchronized (this) {
+            EntradaPaciente entrada = pacientes.get(pacienteId);
+            if (entrada != null && (!enLinea || pacienteId < 0 || ahora - entrada.guardado <= VIGENCIA_EN_LINEA_MS)) {
+                aciertos.incrementAndGet();
+                if (!enLinea) {
+                    lecturasSinConexion.incrementAndGet();
+                }
+                return entrada.paciente;
+            }
+            if (!enLinea || pacienteId < 0) {
+                fallos.incrementAndGet();
+                return entrada != null ? entrada.paciente : null;
+            }
+        }
+        
+        fallos.incrementAndGet();
+        try {
+            Paciente paciente = pacienteDAO.buscarPorId(pacienteId);
+            if (paciente != null) {
+                guardarPaciente(paciente);
+            }
+            return paciente;
+        } catch (SQLException e) {
+            if (!reportarError(e)) {
+                throw e;
+            }
+            synchronized (this) {
+                EntradaPaciente entrada = pacientes.get(pacienteId);
+                lecturasSinConexion.incrementAndGet();
+                return entrada != null ? entrada.paciente : null;
+            }
+        }
+    }
+    
+    /**
+     * Guarda o refresca la copia local de un paciente (por ejemplo, tras actualizarlo)
+     * @param paciente Paciente leído o escrito en MySQL
+     */
+    public synchronized void guardarPaciente(Paciente paciente) {
+        if (paciente == null || paciente.getId() == 0) {
+            return;
+        }
+        pacientes.put(paciente.getId(), new EntradaPaciente(paciente, System.currentTimeMillis()));
+        recortarPacientes();
+        pacientesModificados = true;
+    }
+    
+    /**
+     * Obtiene todas las copias locales de pacientes (para reconstruir índices sin conexión)
+     * @return Pacientes guardados, del usado hace más tiempo al más reciente
+     */
+    public synchronized List<Paciente> obtenerPacientesGuardados() {
+        List<Paciente> guardados = new ArrayList<>(pacientes.size());
+        for (EntradaPaciente entrada : pacientes.values()) {
+            guardados.add(entrada.paciente);
+        }
+        return guardados;
+    }
+    
+    /**
+     * Registra un paciente nuevo sin conexión
+     * Recibe un ID local negativo y un expediente provisional; se inserta en MySQL al reconectar
+     * @param paciente Paciente validado por el servicio
+     * @return true si se guardó; false si ya hay un registro pendiente con el mismo CURP
+     */
+    public synchronized boolean registrarPacientePendiente(Paciente paciente) {
+        String curp = paciente.getCurp();
+        if (curp != null && !curp.isEmpty()) {
+            for (Paciente pendiente : pacientesPendientes) {
+                if (curp.equalsIgnoreCase(pendiente.getCurp())) {
+                    return false;
+                }
+            }
+        }
+        
+        int idLocal = siguienteIdLocal--;
+        paciente.setId(idLocal);
+        paciente.setNumeroExpediente("PROV-" + estacion + "-" + (-idLocal));
+        if (paciente.getFechaRegistro() == null) {
+            paciente.setFechaRegistro(LocalDateTime.now());
+        }
+        pacientesPendientes.add(paciente);
+        pacientes.put(idLocal, new EntradaPaciente(paciente, System.currentTimeMillis()));
+        recortarPacientes();
+        pacientesModificados = true;
+        
+        // Las escrituras pendientes se guardan de inmediato
+        guardarPendientes();
+        return true;
+    }
+    
+    /**
+     * Traduce un ID local de paciente al ID asignado por MySQL, si ya se sincronizó
+     * @param pacienteId ID de paciente (los IDs positivos se devuelven sin cambios)
+     * @return ID en MySQL, o el mismo ID local si aún no se sincroniza
+     */
+    public synchronized int resolverPacienteId(int pacienteId) {
+        if (pacienteId >= 0) {
+            return pacienteId;
+        }
+        return idsResueltos.getOrDefault(pacienteId, pacienteId);
+    }
+    
+    /**
+     * Indica si un ID local corresponde a un paciente que aún espera sincronizarse
+     * Un ID local que no está pendiente ni resuelto es de un paciente que MySQL rechazó
+     * (ver obtenerConflictos) y nunca tendrá ID en el servidor
+     * @param pacienteId ID local de paciente
+     * @return true si el paciente sigue en la lista de pendientes
+     */
+    public synchronized boolean esPacientePendiente(int pacienteId) {
+        for (Paciente pendiente : pacientesPendientes) {
+            if (pendiente.getId() == pacienteId) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Genera un folio de triage sin consultar el contador de MySQL
+     * Incluye el código de la estación para no chocar con los folios de otras estaciones
+     * @return Folio con formato TRG-YYYY-ESTACION-NNNN
+     */
+    public synchronized String siguienteFolioLocal() {
+        String folio = String.format("TRG-%d-%s%04d", Year.now().getValue(), estacion, siguienteFolioLocal++);
+        guardarPendientes();
+        return folio;
+    }
+    
+    /**
+     * Indica de dónde obtener la cola de triage actual para guardar su copia local
+     * @param fuente Proveedor de la cola (normalmente TriageQueue.obtenerTodos)
+     */
+    public void registrarFuenteCola(Supplier<List<RegistroTriage>> fuente) {
+        this.fuenteCola = fuente;
+    }
+    
+    /**
+     * Agrega a quién avisar cuando un paciente registrado sin conexión ya tiene su ID real
+     * @param oyente Recibe el paciente ya sincronizado (se llama desde el hilo de sincronización)
+     */
+    public void agregarOyenteSincronizacion(Consumer<Paciente> oyente) {
+        oyentesSincronizacion.add(oyente);
+    }
+    
+    /**
+     * Registra un diario que guarda eventos con IDs locales de paciente
+     * Los IDs resueltos sólo se depuran cuando todos los diarios están registrados y ninguno
+     * los sigue usando
+     * @param diario DIARIO_TRIAGE o DIARIO_FLUJO
+     * @param referencias Devuelve los IDs locales que el diario aún puede enviar a MySQL,
+     *                    o null si no lo sabe (por ejemplo, antes de leer su avance en MySQL)
+     */
+    public void registrarReferenciasIdsLocales(String diario, Supplier<Set<Integer>> referencias) {
+        referenciasIdsLocales.put(diario, referencias);
+    }
+    
+    /**
+     * Obtiene la última cola de triage guardada localmente
+     * @return Copia de la cola, en el orden en que se guardó
+     */
+    public synchronized List<RegistroTriage> obtenerColaTriage() {
+        return new ArrayList<>(colaTriage);
+    }
+    
+    /**
+     * Anota un conflicto encontrado al sincronizar
+     * @param tipo Tipo de conflicto (por ejemplo CURP_DUPLICADO)
+     * @param idLocal ID local o folio afectado
+     * @param idServidor ID del registro existente en MySQL, o 0
+     * @param detalle Descripción para el administrador
+     */
+    public void registrarConflicto(String tipo, int idLocal, int idServidor, String detalle) {
+        totalConflictos.incrementAndGet();
+        BITACORA.aviso("Conflicto al sincronizar datos locales", "tipo", tipo,
+                       "local", idLocal, "servidor", idServidor, "detalle", detalle);
+        synchronized (conflictos) {
+            if (conflictos.size() == MAX_CONFLICTOS) {
+                conflictos.remove(0);
+            }
+            conflictos.add(new ConflictoSincronizacion(tipo, idLocal, idServidor, detalle, LocalDateTime.now()));
+        }
+    }
+    
+    /**
+     * @return Conflictos recientes, del más antiguo al más nuevo
+     */
+    public List<ConflictoSincronizacion> obtenerConflictos() {
+        synchronized (conflictos) {
+            return Collections.unmodifiableList(new ArrayList<>(conflictos));
+        }
+    }
+    
+    /**
+     * Ronda de sincronización: prueba la conexión si se perdió, sube los pacientes
+     * pendientes y guarda las copias locales que cambiaron
+     */
+    public void sincronizar() {
+        try {
+            if (!enLinea && probarConexion()) {
+                enLinea = true;
+                BITACORA.info("Conexión a la base de datos recuperada");
+            }
+            if (enLinea) {
+                sincronizarPacientes();
+            }
+            guardarCopias();
+        } catch (RuntimeException e) {
+            // Un error no debe cancelar las rondas siguientes del planificador
+            BITACORA.error("Error en la sincronización local", e);
+        }
+    }
+    
+    // Prueba la conexión con una consulta mínima
+    boolean probarConexion() {
+        return DatabaseConnection.getInstance().probarConexion();
+    }
+    
+    private void sincronizarPacientes() {
+        while (true) {
+            Paciente pendiente;
+            synchronized (this) {
+                pendiente = pacientesPendientes.isEmpty() ? null : pacientesPendientes.get(0);
+            }
+            if (pendiente == null) {
+                depurarIdsResueltos();
+                return;
+            }
+            
+            // Se sube una copia: el pendiente también está en la caché y en las pantallas,
+            // que lo siguen usando con su ID local (resolverPacienteId lo traduce)
+            Paciente paciente = CodificacionLocal.copiarPaciente(pendiente);
+            int idLocal = pendiente.getId();
+            int idServidor;
+            try {
+                idServidor = subirPaciente(paciente);
+            } catch (SQLException e) {
+                if (reportarError(e)) {
+                    return;
+                }
+                // MySQL rechaza este paciente: se aparta como conflicto para no detener a los demás
+                synchronized (this) {
+                    pacientesPendientes.remove(pendiente);
+                    guardarPendientes();
+                }
+                registrarConflicto("PACIENTE_RECHAZADO", idLocal, 0, "No se pudo sincronizar a " +
+                    paciente.getNombreCompleto() + " (CURP " + paciente.getCurp() + "): " + e.getMessage());
+                continue;
+            }
+            
+            synchronized (this) {
+                pacientesPendientes.remove(pendiente);
+                idsResueltos.put(idLocal, idServidor);
+                pacientes.remove(idLocal);
+                pacientes.put(idServidor, new EntradaPaciente(paciente, System.currentTimeMillis()));
+                pacientesModificados = true;
+                guardarPendientes();
+            }
+            pacientesSincronizados.incrementAndGet();
+            for (Consumer<Paciente> oyente : oyentesSincronizacion) {
+                oyente.accept(paciente);
+            }
+        }
+    }
+    
+    /**
+     * Descarta los IDs resueltos más antiguos que ya ningún diario usa, hasta dejar la mitad
+     * del límite; los diarios se consultan sin tener tomado this (toman sus propios candados
+     * y después llaman a resolverPacienteId)
+     */
+    private void depurarIdsResueltos() {
+        synchronized (this) {
+            if (idsResueltos.size() <= MAX_IDS_RESUELTOS) {
+                return;
+            }
+        }
+        if (!referenciasIdsLocales.keySet().containsAll(DIARIOS_IDS_LOCALES)) {
+            return;
+        }
+        Set<Integer> referenciados = new HashSet<>();
+        for (Supplier<Set<Integer>> referencias : referenciasIdsLocales.values()) {
+            Set<Integer> ids = referencias.get();
+            if (ids == null) {
+                return;
+            }
+            referenciados.addAll(ids);
+        }
+        synchronized (this) {
+            int antes = idsResueltos.size();
+            Iterator<Integer> ids = idsResueltos.keySet().iterator();
+            while (idsResueltos.size() > MAX_IDS_RESUELTOS / 2 && ids.hasNext()) {
+                if (!referenciados.contains(ids.next())) {
+                    ids.remove();
+                }
+            }
+            if (idsResueltos.size() != antes) {
+                guardarPendientes();
+                BITACORA.debug("IDs locales resueltos depurados: " + (antes - idsResueltos.size()));
+            }
+        }
+    }
+    
+    // Inserta el paciente o lo enlaza con el existente; al terminar el objeto tiene su ID real
+    private int subirPaciente(Paciente paciente) throws SQLException {
+        int idLocal = paciente.getId();
+        String curp = paciente.getCurp();
+        if (curp != null && !curp.isEmpty()) {
+            Paciente existente = pacienteDAO.buscarPorCurp(curp);
+            if (existente != null) {
+                registrarConflicto("CURP_DUPLICADO", idLocal, existente.getId(),
+                    "El CURP " + curp + " se registró en otra estación; se usa el expediente existente");
+                paciente.setId(existente.getId());
+                paciente.setNumeroExpediente(existente.getNumeroExpediente());
+                return existente.getId();
+            }
+        }
+        
+        paciente.setId(0);
+        paciente.setNumeroExpediente(null);
+        try {
+            insertar(paciente);
+        } catch (SQLException e) {
+            String rfc = paciente.getRfc();
+            if (esErrorDeConexion(e) || rfc == null || rfc.isEmpty() || !pacienteDAO.existeRfc(rfc)) {
+                throw e;
+            }
+            // El RFC lo tiene otro paciente: se registra sin RFC para no bloquear sus triages
+            registrarConflicto("RFC_DUPLICADO", idLocal, 0,
+                "El RFC " + rfc + " ya estaba registrado; el paciente se sincronizó sin RFC");
+            paciente.setRfc(null);
+            paciente.setNumeroExpediente(null);
+            insertar(paciente);
+        }
+        return paciente.getId();
+    }
+    
+    private void insertar(Paciente paciente) throws SQLException {
+        if (!pacienteDAO.insertar(paciente)) {
+            throw new SQLException("No se pudo insertar el paciente registrado sin conexión");
+        }
+    }
+    
+    /**
+     * Sincroniza y guarda las copias locales, y detiene el hilo de sincronización
+     */
+    public void detener() {
+        sincronizador.shutdown();
+        try {
+            sincronizador.awaitTermination(INTERVALO_SINCRONIZACION_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sincronizar();
+    }
+    
+    /**
+     * Detiene la instancia única solo si fue creada
+     */
+    public static void detenerSiActivo() {
+        AlmacenLocal actual = instance;
+        if (actual != null) {
+            actual.detener();
+        }
+    }
+    
+    public String getEstacion() {
+        return estacion;
+    }
+    
+    private void recortarPacientes() {
+        Iterator<Integer> ids = pacientes.keySet().iterator();
+        while (pacientes.size() > CAPACIDAD_PACIENTES && ids.hasNext()) {
+            // Los pacientes sin sincronizar no se descartan
+            if (ids.next() >= 0) {
+                ids.remove();
+            }
+        }
+    }
+    
+    // --- Persistencia ---
+    
+    private void guardarCopias() {
+        Supplier<List<RegistroTriage>> fuente = fuenteCola;
+        if (fuente != null) {
+            List<RegistroTriage> actual = fuente.get();
+            int huella = calcularHuella(actual);
+            synchronized (this) {
+                if (huella != huellaCola || actual.size() != colaTriage.size()) {
+                    colaTriage = new ArrayList<>(actual);
+                    huellaCola = huella;
+                    escribirArchivo(ARCHIVO_COLA, salida -> {
+                        salida.writeInt(colaTriage.size());
+                        for (RegistroTriage registro : colaTriage) {
+                            CodificacionLocal.escribirRegistro(salida, registro);
+                        }
+                    });
+                }
+            }
+        }
+        
+        synchronized (this) {
+            if (pacientesModificados) {
+                pacientesModificados = false;
+                escribirArchivo(ARCHIVO_PACIENTES, salida -> {
+                    salida.writeInt(pacientes.size());
+                    for (Map.Entry<Integer, EntradaPaciente> entrada : pacientes.entrySet()) {
+                        salida.writeLong(entrada.getValue().guardado);
+                        CodificacionLocal.escribirPaciente(salida, entrada.getValue().paciente);
+                    }
+                });
+            }
+        }
+    }
+    
+    private static int calcularHuella(List<RegistroTriage> cola) {
+        int huella = 1;
+        for (RegistroTriage registro : cola) {
+            huella = 31 * huella + (registro.getFolio() != null ? registro.getFolio().hashCode() : 0);
+            huella = 31 * huella + registro.getId();
+            huella = 31 * huella + registro.getPacienteId();
+            huella = 31 * huella + (registro.getEstado() != null ? registro.getEstado().ordinal() : -1);
+            huella = 31 * huella + (registro.getNivelUrgencia() != null ? registro.getNivelUrgencia().ordinal() : -1);
+        }
+        return huella;
+    }
+    
+    // Debe llamarse con this tomado
+    private void guardarPendientes() {
+        escribirArchivo(ARCHIVO_PENDIENTES, salida -> {
+            salida.writeInt(siguienteIdLocal);
+            salida.writeInt(siguienteFolioLocal);
+            salida.writeInt(pacientesPendientes.size());
+            for (Paciente paciente : pacientesPendientes) {
+                CodificacionLocal.escribirPaciente(salida, paciente);
+            }
+            salida.writeInt(idsResueltos.size());
+            for (Map.Entry<Integer, Integer> resuelto : idsResueltos.entrySet()) {
+                salida.writeInt(resuelto.getKey());
+                salida.writeInt(resuelto.getValue());
+            }
+        });
+    }
+    
+    private synchronized void cargar() {
+        leerArchivo(ARCHIVO_PENDIENTES, entrada -> {
+            siguienteIdLocal = entrada.readInt();
+            siguienteFolioLocal = entrada.readInt();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                pacientesPendientes.add(CodificacionLocal.leerPaciente(entrada));
+            }
+            for (int i = entrada.readInt(); i > 0; i--) {
+                idsResueltos.put(entrada.readInt(), entrada.readInt());
+            }
+        });
+        leerArchivo(ARCHIVO_PACIENTES, entrada -> {
+            for (int i = entrada.readInt(); i > 0; i--) {
+                long guardado = entrada.readLong();
+                Paciente paciente = CodificacionLocal.leerPaciente(entrada);
+                pacientes.put(paciente.getId(), new EntradaPaciente(paciente, guardado));
+            }
+        });
+        leerArchivo(ARCHIVO_COLA, entrada -> {
+            List<RegistroTriage> cola = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                cola.add(CodificacionLocal.leerRegistro(entrada));
+            }
+            colaTriage = cola;
+            huellaCola = calcularHuella(cola);
+        });
+        
+        // Los pendientes son la versión más reciente de los pacientes sin sincronizar
+        for (Paciente paciente : pacientesPendientes) {
+            pacientes.put(paciente.getId(), new EntradaPaciente(paciente, System.currentTimeMillis()));
+        }
+        if (!pacientesPendientes.isEmpty()) {
+            BITACORA.info("Pacientes registrados sin conexión pendientes de sincronizar",
+                "pacientes", pacientesPendientes.size());
+        }
+    }
+    
+    // Escritura atómica: archivo temporal y renombrado, para no dejar un archivo a medias
+    private void escribirArchivo(String nombre, Escritura escritura) {
+        Path destino = directorio.resolve(nombre);
+        Path temporal = directorio.resolve(nombre + ".tmp");
+        try {
+            Files.createDirectories(directorio);
+            try (DataOutputStream salida = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                salida.writeInt(VERSION_FORMATO);
+                escritura.escribir(salida);
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            BITACORA.error("Error al guardar " + destino + ": " + e.getMessage());
+        }
+    }
+    
+    private void leerArchivo(String nombre, Lectura lectura) {
+        Path origen = directorio.resolve(nombre);
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(origen)))) {
+            if (entrada.readInt() != VERSION_FORMATO) {
+                BITACORA.aviso("Archivo local con otro formato, se ignora", "archivo", origen);
+                return;
+            }
+            lectura.leer(entrada);
+        } catch (NoSuchFileException e) {
+            // Primera ejecución en esta estación
+        } catch (IOException | RuntimeException e) {
+            BITACORA.error("Archivo local dañado, se ignora " + origen + ": " + e.getMessage());
+        }
+    }
+    
+    private String cargarEstacion() {
+        Path archivo = directorio.resolve(ARCHIVO_ESTACION);
+        try {
+            if (Files.exists(archivo)) {
+                String codigo = Files.readString(archivo).trim();
+                if (!codigo.isEmpty()) {
+                    return codigo;
+                }
+            }
+            // Cinco caracteres en base 36: caben en el folio y distinguen a las estaciones
+            String alfabeto = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+            SecureRandom aleatorio = new SecureRandom();
+            StringBuilder codigo = new StringBuilder(5);
+            for (int i = 0; i < 5; i++) {
+                codigo.append(alfabeto.charAt(aleatorio.nextInt(alfabeto.length())));
+            }
+            Files.createDirectories(directorio);
+            Files.writeString(archivo, codigo);
+            return codigo.toString();
+        } catch (IOException e) {
+            BITACORA.error("Error al leer el código de la estación: " + e.getMessage());
+            return "LOCAL";
+        }
+    }
+    
+    /**
+     * Obtiene las métricas del almacén local
+     * @return Estadísticas de la caché y de la sincronización
+     */
+    public EstadisticasAlmacen obtenerEstadisticas() {
+        EstadisticasAlmacen stats = new EstadisticasAlmacen();
+        synchronized (this) {
+            stats.pacientesEnCache = pacientes.size();
+            stats.pacientesPendientes = pacientesPendientes.size();
+            stats.colaGuardada = colaTriage.size();
+        }
+        stats.enLinea = enLinea;
+        stats.aciertos = aciertos.get();
+        stats.fallos = fallos.get();
+        stats.lecturasSinConexion = lecturasSinConexion.get();
+        stats.pacientesSincronizados = pacientesSincronizados.get();
+        stats.conflictos = totalConflictos.get();
+        return stats;
+    }
+    
+    @FunctionalInterface
+    private interface Escritura {
+        void escribir(DataOutputStream salida) throws IOException;
+    }
+    
+    @FunctionalInterface
+    private interface Lectura {
+        void leer(DataInputStream entrada) throws IOException;
+    }
+    
+    private static final class EntradaPaciente {
+        private final Paciente paciente;
+        private final long guardado;
+        
+        private EntradaPaciente(Paciente paciente, long guardado) {
+            this.paciente = paciente;
+            this.guardado = guardado;
+        }
+    }
+    
+    /**
+     * Conflicto detectado al subir datos registrados sin conexión
+     * @param tipo Tipo de conflicto
+     * @param idLocal ID local afectado
+     * @param idServidor ID del registro existente en MySQL, o 0
+     * @param detalle Descripción del conflicto y de cómo se resolvió
+     * @param momento Fecha y hora en que se detectó
+     */
+    public record ConflictoSincronizacion(String tipo, int idLocal, int idServidor,
+                                          String detalle, LocalDateTime momento) {
+    }
+    
+    /**
+     * Clase para métricas del almacén local
+     */
+    public static class EstadisticasAlmacen {
+        public boolean enLinea;
+        public int pacientesEnCache;
+        public int pacientesPendientes;
+        public int colaGuardada;
+        public long aciertos;
+        public long fallos;
+        public long lecturasSinConexion;
+        public long pacientesSincronizados;
+        public long conflictos;
+        
+        @Override
+        public String toString() {
+            return String.format("%s, Caché: %d pacientes (aciertos %d, fallos %d, sin conexión %d), " +
+                "Pendientes: %d, Sincronizados: %d, Cola guardada: %d, Conflictos: %d",
+                enLinea ? "En línea" : "Sin conexión", pacientesEnCache, aciertos, fallos,
+                lecturasSinConexion, pacientesPendientes, pacientesSincronizados, colaGuardada, conflictos);
+        }
+    }
+}
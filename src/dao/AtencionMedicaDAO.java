@@ -2,6 +2,7 @@ package dao;
 
 import models.AtencionMedica;
 import models.Especialidad;
+import utils.RutaConsulta;
 import utils.ValidationUtils;
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -369,15 +370,8 @@ public class AtencionMedicaDAO extends BaseDAO<AtencionMedica> {
                     "COUNT(*) as total_atenciones " +
                     "FROM " + TABLA;
         
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-        
-        try {
-            conn = getConnection();
-            stmt = conn.prepareStatement(sql);
-            rs = stmt.executeQuery();
-            
+        // Recorre toda la tabla: se envía a una réplica para no competir con las altas
+        return ejecutarLectura(RutaConsulta.REPLICA, rs -> {
             if (rs.next()) {
                 EstadisticasRequerimientos stats = new EstadisticasRequerimientos();
                 stats.hospitalizaciones = rs.getInt("hospitalizaciones");
@@ -388,10 +382,7 @@ public class AtencionMedicaDAO extends BaseDAO<AtencionMedica> {
             }
             
             return null;
-            
-        } finally {
-            cerrarRecursos(rs, stmt, conn);
-        }
+        }, sql);
     }
     
     /**
@@ -604,24 +595,18 @@ public class AtencionMedicaDAO extends BaseDAO<AtencionMedica> {
     public List<EstadisticasMedico> obtenerEstadisticasPorMedico(java.time.LocalDate fechaInicio, java.time.LocalDate fechaFin) {
         String sql = "SELECT medico_id, COUNT(*) as total_consultas " +
                     "FROM " + TABLA + " WHERE DATE(fecha_consulta) BETWEEN ? AND ? GROUP BY medico_id";
-        List<EstadisticasMedico> estadisticas = new ArrayList<>();
         
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDate(1, java.sql.Date.valueOf(fechaInicio));
-            stmt.setDate(2, java.sql.Date.valueOf(fechaFin));
-            
-            try (ResultSet rs = stmt.executeQuery()) {
+        try {
+            return ejecutarLectura(RutaConsulta.REPLICA, rs -> {
+                List<EstadisticasMedico> estadisticas = new ArrayList<>();
                 while (rs.next()) {
                     EstadisticasMedico est = new EstadisticasMedico();
                     est.medicoId = rs.getInt("medico_id");
                     est.totalConsultas = rs.getInt("total_consultas");
                     estadisticas.add(est);
                 }
-            }
-            
-            return estadisticas;
+                return estadisticas;
+            }, sql, java.sql.Date.valueOf(fechaInicio), java.sql.Date.valueOf(fechaFin));
         } catch (SQLException e) {
             throw new RuntimeException("Error al obtener estadísticas por médico", e);
         }
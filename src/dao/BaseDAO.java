@@ -1,6 +1,8 @@
 package dao;
 
+import utils.Bitacora;
 import utils.DatabaseConnection;
+import utils.RutaConsulta;
 import java.sql.*;
 import java.util.List;
 import java.util.ArrayList;
@@ -13,6 +15,8 @@ import java.util.ArrayList;
  */
 public abstract class BaseDAO<T> {
     
+    private static final Bitacora BITACORA = Bitacora.de(BaseDAO.class);
+    
     protected DatabaseConnection dbConnection;
     
     /**
@@ -24,17 +28,43 @@ public abstract class BaseDAO<T> {
     
     /**
      * Obtiene una conexión a la base de datos
+     * Las sentencias que se preparen directamente con ella no se miden; los métodos utilitarios
+     * de esta clase registran su latencia en RegistroMetricas (ver SentenciasMedidas)
      * @return Connection activa
      * @throws SQLException si hay error en la conexión
      */
     protected Connection getConnection() throws SQLException {
         Connection conn = dbConnection.getConnection();
         if (conn == null) {
-            throw new SQLException("No se pudo obtener conexión a la base de datos");
+            throw sinConexion();
         }
         return conn;
     }
     
+    /**
+     * Obtiene una conexión para una lectura según su ruta (réplica o principal)
+     * Quien la use directamente no tiene reintento en el principal si la réplica falla
+     * a mitad de la consulta; para eso están ejecutarLectura y ejecutarConsulta con ruta
+     * Al terminar debe devolverse con dbConnection.liberarConexionLectura
+     * @param ruta Ruta de la lectura
+     * @return Connection de una réplica o del principal
+     * @throws SQLException si no hay conexión
+     */
+    protected Connection getConnection(RutaConsulta ruta) throws SQLException {
+        Connection conn = dbConnection.getConnection(ruta);
+        if (conn == null) {
+            throw sinConexion();
+        }
+        return conn;
+    }
+    
+    /**
+     * Estado 08001: el llamador lo reconoce como falta de conexión (ver AlmacenLocal)
+     */
+    private static SQLException sinConexion() {
+        return new SQLNonTransientConnectionException("No se pudo obtener conexión a la base de datos", "08001");
+    }
+    
     // Métodos abstractos que deben implementar las clases hijas
     
     /**
@@ -97,7 +127,7 @@ public abstract class BaseDAO<T> {
             try {
                 rs.close();
             } catch (SQLException e) {
-                System.err.println("Error cerrando ResultSet: " + e.getMessage());
+                BITACORA.error("Error cerrando ResultSet: " + e.getMessage());
             }
         }
         
@@ -105,7 +135,7 @@ public abstract class BaseDAO<T> {
             try {
                 stmt.close();
             } catch (SQLException e) {
-                System.err.println("Error cerrando Statement: " + e.getMessage());
+                BITACORA.error("Error cerrando Statement: " + e.getMessage());
             }
         }
         
@@ -134,32 +164,91 @@ public abstract class BaseDAO<T> {
      * @throws SQLException si hay error
      */
     protected List<T> ejecutarConsulta(String sql, Object... parametros) throws SQLException {
-        List<T> resultados = new ArrayList<>();
-        Connection conn = null;
+        return ejecutarConsulta(RutaConsulta.PRINCIPAL, sql, parametros);
+    }
+    
+    /**
+     * Ejecuta una consulta en el origen de datos indicado por la ruta
+     * @param ruta PRINCIPAL, o REPLICA para lecturas que toleran el retraso de replicación
+     * @param sql La consulta SQL
+     * @param parametros Los parámetros de la consulta
+     * @return Lista de entidades
+     * @throws SQLException si hay error
+     */
+    protected List<T> ejecutarConsulta(RutaConsulta ruta, String sql, Object... parametros) throws SQLException {
+        return ejecutarLectura(ruta, rs -> {
+            List<T> resultados = new ArrayList<>();
+            while (rs.next()) {
+                T entity = mapearResultSet(rs);
+                resultados.add(entity);
+            }
+            return resultados;
+        }, sql, parametros);
+    }
+    
+    /**
+     * Lee el resultado completo de una consulta
+     * @param <R> Tipo del resultado
+     */
+    @FunctionalInterface
+    protected interface LectorResultados<R> {
+        R leer(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Ejecuta una consulta en el origen de datos indicado por la ruta y entrega su ResultSet al lector
+     * Si la consulta se envió a una réplica y la conexión falla a mitad de ella, la réplica
+     * se descarta y la consulta se repite en el principal
+     * @param ruta Ruta de la lectura
+     * @param lector Lector del ResultSet (no debe cerrarlo)
+     * @param sql La consulta SQL
+     * @param parametros Los parámetros de la consulta
+     * @return Lo que devuelva el lector
+     * @throws SQLException si hay error
+     */
+    protected <R> R ejecutarLectura(RutaConsulta ruta, LectorResultados<R> lector, String sql,
+                                    Object... parametros) throws SQLException {
+        Connection conexionReal = dbConnection.getConnection(ruta);
+        if (conexionReal == null) {
+            throw sinConexion();
+        }
+        
         PreparedStatement stmt = null;
         ResultSet rs = null;
         
         try {
-            conn = getConnection();
-            stmt = conn.prepareStatement(sql);
+            stmt = conexionReal.prepareStatement(sql);
             
             // Establecer parámetros
             for (int i = 0; i < parametros.length; i++) {
                 stmt.setObject(i + 1, parametros[i]);
             }
             
-            rs = stmt.executeQuery();
+            long inicio = System.nanoTime();
+            try {
+                rs = stmt.executeQuery();
+            } catch (SQLException e) {
+                SentenciasMedidas.registrarError(sql, inicio);
+                throw e;
+            }
+            long duracion = System.nanoTime() - inicio;
+            R resultado = lector.leer(rs);
+            SentenciasMedidas.registrar(sql, duracion,
+                resultado instanceof List<?> lista ? lista.size() : -1, parametros);
+            return resultado;
             
-            while (rs.next()) {
-                T entity = mapearResultSet(rs);
-                resultados.add(entity);
+        } catch (SQLException e) {
+            if (ruta != RutaConsulta.REPLICA || !AlmacenLocal.esErrorDeConexion(e)
+                    || !dbConnection.descartarConexionLectura(conexionReal)) {
+                throw e;
             }
+            BITACORA.aviso("Consulta repetida en el principal tras fallar en la réplica", "error", e.getMessage());
+            return ejecutarLectura(RutaConsulta.PRINCIPAL, lector, sql, parametros);
             
         } finally {
-            cerrarRecursos(rs, stmt, conn);
+            cerrarRecursos(rs, stmt);
+            dbConnection.liberarConexionLectura(conexionReal);
         }
-        
-        return resultados;
     }
     
     /**
@@ -174,6 +263,46 @@ public abstract class BaseDAO<T> {
         return resultados.isEmpty() ? null : resultados.get(0);
     }
     
+    /**
+     * Ejecuta una consulta y mapea sus filas con un mapeador de proyección
+     * Los índices de las columnas se resuelven una vez por ResultSet y cada fila se lee por posición
+     * @param mapeador Mapeador de la proyección usada en la consulta
+     * @param sql La consulta SQL
+     * @param parametros Los parámetros de la consulta
+     * @return Lista de objetos mapeados
+     * @throws SQLException si hay error
+     */
+    protected <R> List<R> ejecutarConsulta(MapeadorFilas<R> mapeador, String sql, Object... parametros) throws SQLException {
+        return ejecutarConsulta(RutaConsulta.PRINCIPAL, mapeador, sql, parametros);
+    }
+    
+    /**
+     * Ejecuta una consulta con un mapeador de proyección en el origen de datos indicado por la ruta
+     * @param ruta Ruta de la lectura
+     * @param mapeador Mapeador de la proyección usada en la consulta
+     * @param sql La consulta SQL
+     * @param parametros Los parámetros de la consulta
+     * @return Lista de objetos mapeados
+     * @throws SQLException si hay error
+     */
+    protected <R> List<R> ejecutarConsulta(RutaConsulta ruta, MapeadorFilas<R> mapeador, String sql,
+                                           Object... parametros) throws SQLException {
+        return ejecutarLectura(ruta, mapeador::mapearTodas, sql, parametros);
+    }
+    
+    /**
+     * Ejecuta una consulta de un solo resultado con un mapeador de proyección
+     * @param mapeador Mapeador de la proyección usada en la consulta
+     * @param sql La consulta SQL
+     * @param parametros Los parámetros de la consulta
+     * @return El objeto encontrado o null
+     * @throws SQLException si hay error
+     */
+    protected <R> R ejecutarConsultaUnica(MapeadorFilas<R> mapeador, String sql, Object... parametros) throws SQLException {
+        List<R> resultados = ejecutarConsulta(mapeador, sql, parametros);
+        return resultados.isEmpty() ? null : resultados.get(0);
+    }
+    
     /**
      * Ejecuta una operación de actualización (INSERT, UPDATE, DELETE)
      * @param sql La consulta SQL
@@ -194,7 +323,7 @@ public abstract class BaseDAO<T> {
                 stmt.setObject(i + 1, parametros[i]);
             }
             
-            return stmt.executeUpdate();
+            return ejecutarMedida(stmt, sql, parametros);
             
         } finally {
             cerrarRecursos(stmt);
@@ -222,7 +351,7 @@ public abstract class BaseDAO<T> {
                 stmt.setObject(i + 1, parametros[i]);
             }
             
-            int filasAfectadas = stmt.executeUpdate();
+            int filasAfectadas = ejecutarMedida(stmt, sql, parametros);
             
             if (filasAfectadas > 0) {
                 rs = stmt.getGeneratedKeys();
@@ -238,6 +367,22 @@ public abstract class BaseDAO<T> {
         }
     }
     
+    /**
+     * Ejecuta un INSERT/UPDATE/DELETE ya preparado y registra su latencia
+     */
+    private static int ejecutarMedida(PreparedStatement stmt, String sql, Object[] parametros) throws SQLException {
+        long inicio = System.nanoTime();
+        int filas;
+        try {
+            filas = stmt.executeUpdate();
+        } catch (SQLException e) {
+            SentenciasMedidas.registrarError(sql, inicio);
+            throw e;
+        }
+        SentenciasMedidas.registrar(sql, System.nanoTime() - inicio, filas, parametros);
+        return filas;
+    }
+    
     /**
      * Verifica si existe una entidad con el ID especificado
      * @param id ID a verificar
@@ -279,7 +424,14 @@ public abstract class BaseDAO<T> {
                 stmt.setObject(i + 1, parametros[i]);
             }
             
-            rs = stmt.executeQuery();
+            long inicio = System.nanoTime();
+            try {
+                rs = stmt.executeQuery();
+            } catch (SQLException e) {
+                SentenciasMedidas.registrarError(sql.toString(), inicio);
+                throw e;
+            }
+            SentenciasMedidas.registrar(sql.toString(), System.nanoTime() - inicio, 1, parametros);
             
             if (rs.next()) {
                 return rs.getInt(1);
@@ -317,9 +469,9 @@ public abstract class BaseDAO<T> {
                     conn.rollback();
                 }
             } catch (SQLException rollbackEx) {
-                System.err.println("Error en rollback: " + rollbackEx.getMessage());
+                BITACORA.error("Error en rollback: " + rollbackEx.getMessage());
             }
-            System.err.println("Error en transacción: " + e.getMessage());
+            BITACORA.error("Error en transacción: " + e.getMessage());
             return false;
             
         } finally {
@@ -328,7 +480,7 @@ public abstract class BaseDAO<T> {
                     conn.setAutoCommit(true);
                 }
             } catch (SQLException e) {
-                System.err.println("Error restaurando autocommit: " + e.getMessage());
+                BITACORA.error("Error restaurando autocommit: " + e.getMessage());
             }
         }
     }
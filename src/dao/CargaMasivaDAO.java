@@ -0,0 +1,232 @@
+package dao;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import utils.Bitacora;
+
+/**
+ * Inserción masiva de filas con IDs explícitos (datos sintéticos, migraciones)
+ * Cada tabla tiene su propio PreparedStatement por lotes; cuando cualquier tabla llena
+ * su lote se vacían todas en el orden del enum (padres antes que hijos) y se confirma,
+ * de modo que las llaves foráneas siempre apuntan a filas ya insertadas
+ * Usa la conexión recibida (idealmente dedicada y con rewriteBatchedStatements) y no la cierra
+ */
+public class CargaMasivaDAO implements AutoCloseable {
+    
+    private static final Bitacora BITACORA = Bitacora.de(CargaMasivaDAO.class);
+    
+    public static final int TAMAÑO_LOTE = 1000;
+    
+    /**
+     * Tablas admitidas, en orden de dependencia, con las columnas que se cargan
+     */
+    public enum Tabla {
+        USUARIOS("usuarios", "id", "username", "email", "password_hash", "tipo_usuario",
+                 "nombre_completo", "cedula_profesional", "especialidad", "telefono", "activo"),
+        PACIENTES("pacientes", "id", "nombre", "apellido_paterno", "apellido_materno", "fecha_nacimiento",
+                  "sexo", "curp", "rfc", "telefono_principal", "email", "direccion_calle", "direccion_numero",
+                  "direccion_colonia", "direccion_ciudad", "direccion_estado", "direccion_cp", "seguro_medico",
+                  "numero_poliza", "contacto_emergencia_nombre", "contacto_emergencia_telefono",
+                  "contacto_emergencia_relacion", "fecha_registro"),
+        REGISTROS_TRIAGE("registros_triage", "id", "folio", "paciente_id", "medico_triage_id",
+                         "fecha_hora_llegada", "fecha_hora_triage", "motivo_consulta", "sintomas_principales",
+                         "presion_sistolica", "presion_diastolica", "frecuencia_cardiaca",
+                         "frecuencia_respiratoria", "temperatura", "saturacion_oxigeno", "glasgow",
+                         "nivel_urgencia", "especialidad_asignada", "observaciones_triage", "estado",
+                         "prioridad_orden"),
+        DATOS_SOCIALES("datos_sociales", "id", "registro_triage_id", "trabajador_social_id",
+                       "fecha_hora_entrevista", "antecedentes_familiares", "enfermedades_cronicas",
+                       "medicamentos_actuales", "alergias_conocidas", "cirugias_previas",
+                       "hospitalizaciones_previas", "vacunas_recientes", "habitos_toxicos",
+                       "situacion_socioeconomica", "observaciones_adicionales"),
+        ATENCION_MEDICA("atencion_medica", "id", "registro_triage_id", "medico_urgencias_id",
+                        "fecha_hora_inicio", "fecha_hora_fin", "diagnostico_principal",
+                        "diagnosticos_secundarios", "tratamiento_aplicado", "medicamentos_prescritos",
+                        "instrucciones_alta", "tipo_alta", "hospital_referencia", "tiempo_total_atencion",
+                        "seguimiento_requerido", "fecha_seguimiento", "observaciones_medicas");
+        
+        private final String nombre;
+        private final String[] columnas;
+        
+        Tabla(String nombre, String... columnas) {
+            this.nombre = nombre;
+            this.columnas = columnas;
+        }
+        
+        public String getNombre() { return nombre; }
+        public int getNumeroColumnas() { return columnas.length; }
+        
+        /**
+         * @return Columnas separadas por coma, en el orden en que se entregan los valores
+         */
+        public String getListaColumnas() {
+            return String.join(", ", columnas);
+        }
+        
+        String sqlInsertar() {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(nombre).append(" (")
+                .append(getListaColumnas()).append(") VALUES (");
+            for (int i = 0; i < columnas.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            return sql.append(')').toString();
+        }
+    }
+    
+    // Consultas SQL predefinidas
+    private static final String SQL_AJUSTAR_SECUENCIA =
+        "INSERT INTO secuencias_anuales (nombre, anio, siguiente) VALUES (?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE siguiente = GREATEST(siguiente, VALUES(siguiente))";
+    
+    private final Connection conexion;
+    private final int tamañoLote;
+    private final boolean autoCommitOriginal;
+    private final Map<Tabla, PreparedStatement> sentencias = new EnumMap<>(Tabla.class);
+    private final int[] pendientes = new int[Tabla.values().length];
+    private final long[] insertadas = new long[Tabla.values().length];
+    
+    /**
+     * Prepara la carga sobre una conexión
+     * @param conexion Conexión a utilizar (no se cierra al terminar)
+     * @param tamañoLote Filas por lote antes de vaciar y confirmar
+     * @throws SQLException si no se pudo desactivar el autocommit
+     */
+    public CargaMasivaDAO(Connection conexion, int tamañoLote) throws SQLException {
+        if (tamañoLote <= 0) {
+            throw new IllegalArgumentException("Tamaño de lote inválido");
+        }
+        this.conexion = conexion;
+        this.tamañoLote = tamañoLote;
+        this.autoCommitOriginal = conexion.getAutoCommit();
+        conexion.setAutoCommit(false);
+    }
+    
+    /**
+     * Agrega una fila al lote de su tabla
+     * @param tabla Tabla destino
+     * @param valores Valores en el orden de las columnas de la tabla (LocalDate y
+     *                LocalDateTime se convierten a tipos SQL; null se inserta como NULL)
+     * @throws SQLException si falla el vaciado del lote
+     */
+    public void agregar(Tabla tabla, Object[] valores) throws SQLException {
+        if (valores.length != tabla.columnas.length) {
+            throw new IllegalArgumentException("La tabla " + tabla.nombre + " espera " +
+                                               tabla.columnas.length + " valores");
+        }
+        
+        PreparedStatement stmt = sentencias.get(tabla);
+        if (stmt == null) {
+            stmt = conexion.prepareStatement(tabla.sqlInsertar());
+            sentencias.put(tabla, stmt);
+        }
+        
+        for (int i = 0; i < valores.length; i++) {
+            Object valor = valores[i];
+            if (valor instanceof LocalDateTime) {
+                stmt.setTimestamp(i + 1, Timestamp.valueOf((LocalDateTime) valor));
+            } else if (valor instanceof LocalDate) {
+                stmt.setDate(i + 1, Date.valueOf((LocalDate) valor));
+            } else {
+                stmt.setObject(i + 1, valor);
+            }
+        }
+        stmt.addBatch();
+        
+        if (++pendientes[tabla.ordinal()] >= tamañoLote) {
+            vaciar();
+        }
+    }
+    
+    /**
+     * Ejecuta los lotes pendientes de todas las tablas, padres primero, y confirma
+     * @throws SQLException si falla algún lote (se revierte el lote en curso)
+     */
+    public void vaciar() throws SQLException {
+        try {
+            for (Map.Entry<Tabla, PreparedStatement> entrada : sentencias.entrySet()) {
+                int indice = entrada.getKey().ordinal();
+                if (pendientes[indice] > 0) {
+                    entrada.getValue().executeBatch();
+                    insertadas[indice] += pendientes[indice];
+                    pendientes[indice] = 0;
+                }
+            }
+            conexion.commit();
+        } catch (SQLException e) {
+            try {
+                conexion.rollback();
+            } catch (SQLException rollbackEx) {
+                BITACORA.error("Error en rollback: " + rollbackEx.getMessage());
+            }
+            throw new SQLException("Error en carga masiva tras " + getTotalInsertadas() + " filas: " +
+                                   e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Avanza el contador anual de una secuencia para que los números generados por la
+     * aplicación no choquen con los ya cargados (nunca lo retrocede)
+     * @param secuencia Secuencia a ajustar
+     * @param anio Año del contador
+     * @param siguiente Primer valor libre
+     * @throws SQLException si hay error en la operación
+     */
+    public void ajustarSecuencia(GeneradorSecuencias.Secuencia secuencia, int anio, long siguiente) throws SQLException {
+        vaciar();
+        try (PreparedStatement stmt = conexion.prepareStatement(SQL_AJUSTAR_SECUENCIA)) {
+            stmt.setString(1, secuencia.name());
+            stmt.setInt(2, anio);
+            stmt.setLong(3, siguiente);
+            stmt.executeUpdate();
+        }
+        conexion.commit();
+    }
+    
+    public long getInsertadas(Tabla tabla) {
+        return insertadas[tabla.ordinal()];
+    }
+    
+    public long getTotalInsertadas() {
+        long total = 0;
+        for (long filas : insertadas) {
+            total += filas;
+        }
+        return total;
+    }
+    
+    /**
+     * Vacía lo pendiente, cierra las sentencias y restaura el autocommit
+     * @throws SQLException si falla el último lote
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            vaciar();
+        } finally {
+            for (PreparedStatement stmt : sentencias.values()) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    BITACORA.error("Error al cerrar sentencia: " + e.getMessage());
+                }
+            }
+            sentencias.clear();
+            try {
+                conexion.setAutoCommit(autoCommitOriginal);
+            } catch (SQLException e) {
+                BITACORA.error("Error restaurando autocommit: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Sentencia equivalente a ajustarSecuencia con valores literales, para scripts de carga
+     */
+    public static String sqlAjustarSecuencia(GeneradorSecuencias.Secuencia secuencia, int anio, long siguiente) {
+        return "INSERT INTO secuencias_anuales (nombre, anio, siguiente) VALUES ('" + secuencia.name() + "', " +
+               anio + ", " + siguiente + ") ON DUPLICATE KEY UPDATE siguiente = GREATEST(siguiente, VALUES(siguiente))";
+    }
+}
@@ -0,0 +1,234 @@
+package dao;
+
+import models.EstadoPaciente;
+import models.NivelUrgencia;
+import models.Paciente;
+import models.RegistroTriage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Formato binario de los registros guardados en archivos locales
+ * (diario de escrituras de triage y almacén local de la estación)
+ * Cada campo opcional lleva una bandera de presencia; los textos van en UTF modificado
+ */
+final class CodificacionLocal {
+    
+    private CodificacionLocal() {
+    }
+    
+    /**
+     * Codifica un registro de triage con los campos que se insertan y los que muestra la cola
+     * @param registro Registro a codificar
+     * @return Bytes del registro
+     */
+    static byte[] codificar(RegistroTriage registro) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            escribirRegistro(salida, registro);
+        } catch (IOException e) {
+            // ByteArrayOutputStream no lanza IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Decodifica un registro de triage escrito con codificar
+     * @param datos Bytes del registro
+     * @return Registro de triage (sin ID si no se había replicado)
+     * @throws IOException si los datos están incompletos
+     */
+    static RegistroTriage decodificarRegistro(byte[] datos) throws IOException {
+        return leerRegistro(new DataInputStream(new ByteArrayInputStream(datos)));
+    }
+    
+    static void escribirRegistro(DataOutputStream salida, RegistroTriage registro) throws IOException {
+        salida.writeInt(registro.getId());
+        escribirTexto(salida, registro.getFolio());
+        salida.writeInt(registro.getPacienteId());
+        salida.writeInt(registro.getMedicoTriageId());
+        escribirFechaHora(salida, registro.getFechaTriage());
+        escribirFechaHora(salida, registro.getFechaHoraLlegada());
+        escribirTexto(salida, registro.getMotivoConsulta());
+        escribirTexto(salida, registro.getSintomasPrincipales());
+        escribirEntero(salida, registro.getPresionSistolica());
+        escribirEntero(salida, registro.getPresionDiastolica());
+        escribirEntero(salida, registro.getFrecuenciaCardiaca());
+        escribirEntero(salida, registro.getFrecuenciaRespiratoria());
+        salida.writeBoolean(registro.getTemperatura() != null);
+        if (registro.getTemperatura() != null) {
+            salida.writeDouble(registro.getTemperatura());
+        }
+        escribirEntero(salida, registro.getSaturacionOxigeno());
+        escribirEntero(salida, registro.getGlasgow());
+        escribirEntero(salida, registro.getNivelDolor());
+        escribirTexto(salida, registro.getObservacionesTriage());
+        escribirTexto(salida, registro.getNivelUrgencia() != null ? registro.getNivelUrgencia().name() : null);
+        escribirTexto(salida, registro.getEspecialidadAsignada());
+        escribirTexto(salida, registro.getEstado() != null ? registro.getEstado().name() : null);
+        escribirEntero(salida, registro.getPrioridadOrden());
+        escribirEntero(salida, registro.getTiempoEstimadoAtencion());
+        escribirTexto(salida, registro.getPacienteNombre());
+        escribirTexto(salida, registro.getNumeroExpediente());
+    }
+    
+    static RegistroTriage leerRegistro(DataInputStream entrada) throws IOException {
+        RegistroTriage registro = new RegistroTriage();
+        registro.setId(entrada.readInt());
+        registro.setFolio(leerTexto(entrada));
+        registro.setPacienteId(entrada.readInt());
+        registro.setMedicoTriageId(entrada.readInt());
+        registro.setFechaHoraTriage(leerFechaHora(entrada));
+        registro.setFechaHoraLlegada(leerFechaHora(entrada));
+        registro.setMotivoConsulta(leerTexto(entrada));
+        registro.setSintomasPrincipales(leerTexto(entrada));
+        registro.setPresionSistolica(leerEntero(entrada));
+        registro.setPresionDiastolica(leerEntero(entrada));
+        registro.setFrecuenciaCardiaca(leerEntero(entrada));
+        registro.setFrecuenciaRespiratoria(leerEntero(entrada));
+        registro.setTemperatura(entrada.readBoolean() ? entrada.readDouble() : null);
+        registro.setSaturacionOxigeno(leerEntero(entrada));
+        registro.setGlasgow(leerEntero(entrada));
+        Integer nivelDolor = leerEntero(entrada);
+        if (nivelDolor != null) {
+            registro.setNivelDolor(nivelDolor);
+        }
+        registro.setObservacionesTriage(leerTexto(entrada));
+        String nivel = leerTexto(entrada);
+        registro.setNivelUrgencia(nivel != null ? NivelUrgencia.valueOf(nivel) : null);
+        registro.setEspecialidadAsignada(leerTexto(entrada));
+        String estado = leerTexto(entrada);
+        registro.setEstado(estado != null ? EstadoPaciente.valueOf(estado) : null);
+        registro.setPrioridadOrden(leerEntero(entrada));
+        Integer tiempoEstimado = leerEntero(entrada);
+        if (tiempoEstimado != null) {
+            registro.setTiempoEstimadoAtencion(tiempoEstimado);
+        }
+        registro.setPacienteNombre(leerTexto(entrada));
+        registro.setNumeroExpediente(leerTexto(entrada));
+        return registro;
+    }
+    
+    /**
+     * Copia un paciente con los campos que se guardan localmente
+     * @param paciente Paciente a copiar
+     * @return Copia independiente del original
+     */
+    static Paciente copiarPaciente(Paciente paciente) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            escribirPaciente(salida, paciente);
+            return leerPaciente(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        } catch (IOException e) {
+            // Los flujos en memoria no lanzan IOException
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    static void escribirPaciente(DataOutputStream salida, Paciente paciente) throws IOException {
+        salida.writeInt(paciente.getId());
+        escribirTexto(salida, paciente.getNumeroExpediente());
+        escribirTexto(salida, paciente.getNombre());
+        escribirTexto(salida, paciente.getApellidoPaterno());
+        escribirTexto(salida, paciente.getApellidoMaterno());
+        escribirTexto(salida, paciente.getFechaNacimiento() != null ? paciente.getFechaNacimiento().toString() : null);
+        escribirTexto(salida, paciente.getSexo());
+        escribirTexto(salida, paciente.getCurp());
+        escribirTexto(salida, paciente.getRfc());
+        escribirTexto(salida, paciente.getTelefonoPrincipal());
+        escribirTexto(salida, paciente.getTelefonoSecundario());
+        escribirTexto(salida, paciente.getEmail());
+        escribirTexto(salida, paciente.getDireccionCalle());
+        escribirTexto(salida, paciente.getDireccionNumero());
+        escribirTexto(salida, paciente.getDireccionColonia());
+        escribirTexto(salida, paciente.getDireccionCiudad());
+        escribirTexto(salida, paciente.getDireccionEstado());
+        escribirTexto(salida, paciente.getDireccionCp());
+        escribirTexto(salida, paciente.getSeguroMedico());
+        escribirTexto(salida, paciente.getNumeroPoliza());
+        escribirTexto(salida, paciente.getContactoEmergenciaNombre());
+        escribirTexto(salida, paciente.getContactoEmergenciaTelefono());
+        escribirTexto(salida, paciente.getContactoEmergenciaRelacion());
+        escribirFechaHora(salida, paciente.getFechaRegistro());
+        escribirTexto(salida, paciente.getTipoSangre());
+        escribirTexto(salida, paciente.getAlergias());
+        escribirTexto(salida, paciente.getEnfermedadesCronicas());
+        escribirTexto(salida, paciente.getMedicamentosActuales());
+        escribirTexto(salida, paciente.getObservacionesMedicas());
+        escribirTexto(salida, paciente.getEstadoActual() != null ? paciente.getEstadoActual().name() : null);
+    }
+    
+    static Paciente leerPaciente(DataInputStream entrada) throws IOException {
+        Paciente paciente = new Paciente();
+        paciente.setId(entrada.readInt());
+        paciente.setNumeroExpediente(leerTexto(entrada));
+        paciente.setNombre(leerTexto(entrada));
+        paciente.setApellidoPaterno(leerTexto(entrada));
+        paciente.setApellidoMaterno(leerTexto(entrada));
+        String fechaNacimiento = leerTexto(entrada);
+        paciente.setFechaNacimiento(fechaNacimiento != null ? LocalDate.parse(fechaNacimiento) : null);
+        paciente.setSexo(leerTexto(entrada));
+        paciente.setCurp(leerTexto(entrada));
+        paciente.setRfc(leerTexto(entrada));
+        paciente.setTelefonoPrincipal(leerTexto(entrada));
+        paciente.setTelefonoSecundario(leerTexto(entrada));
+        paciente.setEmail(leerTexto(entrada));
+        paciente.setDireccionCalle(leerTexto(entrada));
+        paciente.setDireccionNumero(leerTexto(entrada));
+        paciente.setDireccionColonia(leerTexto(entrada));
+        paciente.setDireccionCiudad(leerTexto(entrada));
+        paciente.setDireccionEstado(leerTexto(entrada));
+        paciente.setDireccionCp(leerTexto(entrada));
+        paciente.setSeguroMedico(leerTexto(entrada));
+        paciente.setNumeroPoliza(leerTexto(entrada));
+        paciente.setContactoEmergenciaNombre(leerTexto(entrada));
+        paciente.setContactoEmergenciaTelefono(leerTexto(entrada));
+        paciente.setContactoEmergenciaRelacion(leerTexto(entrada));
+        paciente.setFechaRegistro(leerFechaHora(entrada));
+        paciente.setTipoSangre(leerTexto(entrada));
+        paciente.setAlergias(leerTexto(entrada));
+        paciente.setEnfermedadesCronicas(leerTexto(entrada));
+        paciente.setMedicamentosActuales(leerTexto(entrada));
+        paciente.setObservacionesMedicas(leerTexto(entrada));
+        String estado = leerTexto(entrada);
+        paciente.setEstadoActual(estado != null ? EstadoPaciente.valueOf(estado) : null);
+        return paciente;
+    }
+    
+    static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        salida.writeBoolean(texto != null);
+        if (texto != null) {
+            salida.writeUTF(texto);
+        }
+    }
+    
+    static String leerTexto(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+    
+    private static void escribirEntero(DataOutputStream salida, Integer valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeInt(valor);
+        }
+    }
+    
+    private static Integer leerEntero(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readInt() : null;
+    }
+    
+    private static void escribirFechaHora(DataOutputStream salida, LocalDateTime fecha) throws IOException {
+        escribirTexto(salida, fecha != null ? fecha.toString() : null);
+    }
+    
+    private static LocalDateTime leerFechaHora(DataInputStream entrada) throws IOException {
+        String fecha = leerTexto(entrada);
+        return fecha != null ? LocalDateTime.parse(fecha) : null;
+    }
+}
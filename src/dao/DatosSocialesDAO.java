@@ -1,6 +1,7 @@
 package dao;
 
 import models.DatosSociales;
+import utils.Bitacora;
 import utils.DatabaseConnection;
 import java.sql.*;
 import java.time.LocalDate;
@@ -13,6 +14,8 @@ import java.util.List;
  */
 public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
     
+    private static final Bitacora BITACORA = Bitacora.de(DatosSocialesDAO.class);
+    
     private final DatabaseConnection dbConnection;
     
     public DatosSocialesDAO() {
@@ -34,7 +37,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
             ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
         
-        return dbConnection.executeUpdate(sql,
+        return ejecutarActualizacion(sql,
             datos.getRegistroTriageId(),
             datos.getTrabajadorSocialId(),
             datos.getFechaHoraEntrevista(),
@@ -66,7 +69,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
             WHERE id = ?
             """;
         
-        return dbConnection.executeUpdate(sql,
+        return ejecutarActualizacion(sql,
             datos.getAntecedentesFamiliares(),
             datos.getEnfermedadesCronicas(),
             datos.getMedicamentosActuales(),
@@ -87,7 +90,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
     @Override
     public boolean eliminar(int id) throws SQLException {
         String sql = "DELETE FROM datos_sociales WHERE id = ?";
-        return dbConnection.executeUpdate(sql, id) > 0;
+        return ejecutarActualizacion(sql, id) > 0;
     }
     
     /**
@@ -104,7 +107,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
             WHERE ds.id = ?
             """;
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
@@ -135,7 +138,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
         
         List<DatosSociales> lista = new ArrayList<>();
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
@@ -160,7 +163,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
             WHERE ds.registro_triage_id = ?
             """;
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, registroTriageId);
@@ -191,7 +194,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
         
         List<DatosSociales> lista = new ArrayList<>();
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, pacienteId);
@@ -222,7 +225,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
         
         List<DatosSociales> lista = new ArrayList<>();
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, trabajadorSocialId);
@@ -243,7 +246,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
     public boolean existenDatos(int registroTriageId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM datos_sociales WHERE registro_triage_id = ?";
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, registroTriageId);
@@ -268,7 +271,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
             WHERE DATE(fecha_hora_entrevista) BETWEEN ? AND ?
             """;
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setDate(1, Date.valueOf(fechaInicio));
@@ -333,7 +336,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
             LIMIT 1
             """;
         
-        try (PreparedStatement pstmt = dbConnection.getConnection().prepareStatement(sql)) {
+        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
             pstmt.setInt(1, pacienteId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -342,7 +345,7 @@ public class DatosSocialesDAO extends BaseDAO<DatosSociales> {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error al obtener último dato social del paciente: " + e.getMessage());
+            BITACORA.error("Error al obtener último dato social del paciente: " + e.getMessage());
         }
         
         return null;
@@ -0,0 +1,742 @@
+package dao;
+
+import models.RegistroTriage;
+import structures.TriageQueue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import utils.Bitacora;
+
+/**
+ * Diario de escritura anticipada (write-ahead) de los registros de triage
+ * Un triage se confirma en cuanto queda escrito en un archivo local mapeado en memoria;
+ * un hilo de fondo lo replica después a MySQL en lotes. Así la atención no se detiene
+ * cuando la base de datos está lenta o no responde por unos momentos.
+ *
+ * Confirmación en grupo: los hilos que registran sólo copian su registro al archivo
+ * mapeado y esperan; un único hilo fuerza al disco todo lo escrito hasta ese momento y
+ * despierta a todos los que quedaron cubiertos, de modo que una ráfaga de triages
+ * comparte una sola escritura física.
+ *
+ * Formato del archivo: cabecera de {@value #TAMAÑO_CABECERA} bytes (firma, generación y
+ * posición hasta la que ya se replicó) seguida de registros [longitud, generación, CRC32, datos].
+ * Cuando todo está replicado el archivo se reutiliza desde el principio con una generación
+ * nueva; la lectura se detiene en el primer registro de otra generación o con CRC inválido.
+ * Un registro que no se alcanzó a confirmar a tiempo se anula con el bit {@code ANULADO} en su
+ * generación: el llamador lo inserta directamente y el registro no se reenvía tras una caída.
+ * El folio se asigna antes de escribir el registro, por lo que reenviarlo tras una caída
+ * no duplica filas (ver RegistroTriageDAO.insertarLote).
+ *
+ * Los registros que MySQL rechaza (por ejemplo un paciente que ya no existe) no se reintentan:
+ * se apartan en un archivo junto al diario ({@value #SUFIJO_APARTADOS}) y se anotan como conflicto.
+ */
+public class DiarioEscriturasTriage {
+    
+    private static final Bitacora BITACORA = Bitacora.de(DiarioEscriturasTriage.class);
+    
+    public static final Path ARCHIVO_PREDETERMINADO = Paths.get("datos", "triage", "triage.wal");
+    public static final int CAPACIDAD_BYTES = 16 * 1024 * 1024;
+    public static final int INTERVALO_REPLICACION_MS = 250;
+    public static final int TAMAÑO_LOTE = 200;
+    public static final String SUFIJO_APARTADOS = ".apartados";
+    
+    // Tiempo máximo que un triage espera a quedar en disco antes de usar la inserción directa
+    public static final long ESPERA_MAXIMA_MS = 2000;
+    
+    static final int TAMAÑO_CABECERA = 32;
+    private static final int FIRMA = 0x48535654; // "HSVT"
+    private static final int POSICION_GENERACION = 4;
+    private static final int POSICION_REPLICADO = 8;
+    private static final int ENCABEZADO_REGISTRO = 12;
+    private static final int ANULADO = 0x80000000;
+    
+    private static volatile DiarioEscriturasTriage instance;
+    
+    private final RegistroTriageDAO registroTriageDAO;
+    private final Path archivo;
+    private final Path archivoApartados;
+    private final FileChannel canal;
+    private final MappedByteBuffer mapa;
+    private final ScheduledExecutorService replicador;
+    private final Thread hiloConfirmacion;
+    
+    // Estado protegido por cerrojo
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Condition hayEscrituras = cerrojo.newCondition();
+    private final Condition hayConfirmacion = cerrojo.newCondition();
+    private final Deque<Pendiente> pendientes = new ArrayDeque<>();
+    // Colas de triage que muestran los registros pendientes (referencias débiles: cada pantalla crea la suya)
+    private final Set<TriageQueue> colas = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private int generacion;
+    private int escrito;
+    private int confirmado;
+    private int replicado;
+    private boolean fallido = false;
+    private volatile boolean detenido = false;
+    
+    // Métricas
+    private final AtomicLong totalRegistrados = new AtomicLong();
+    private final AtomicLong totalForzados = new AtomicLong();
+    private final AtomicLong totalRechazados = new AtomicLong();
+    private final AtomicLong totalLotes = new AtomicLong();
+    private final AtomicLong totalFilasReplicadas = new AtomicLong();
+    private final AtomicLong totalErroresReplicacion = new AtomicLong();
+    private final AtomicLong totalApartados = new AtomicLong();
+    private final AtomicLong sumaEsperaNanos = new AtomicLong();
+    private final AtomicLong maximaEsperaNanos = new AtomicLong();
+    private volatile int recuperados;
+    private long erroresAlUltimoExito;
+    
+    private DiarioEscriturasTriage() throws IOException {
+        this(new RegistroTriageDAO(), ARCHIVO_PREDETERMINADO, CAPACIDAD_BYTES, INTERVALO_REPLICACION_MS);
+    }
+    
+    /**
+     * Constructor con archivo y parámetros configurables
+     * Abre (o crea) el archivo y recupera los registros que no se alcanzaron a replicar
+     * @param registroTriageDAO DAO usado para replicar los lotes
+     * @param archivo Ruta del archivo del diario
+     * @param capacidad Tamaño en bytes del archivo mapeado
+     * @param intervaloMs Milisegundos entre rondas de replicación
+     * @throws IOException si no se puede abrir o mapear el archivo
+     */
+    DiarioEscriturasTriage(RegistroTriageDAO registroTriageDAO, Path archivo, int capacidad,
+                           int intervaloMs) throws IOException {
+        this.registroTriageDAO = registroTriageDAO;
+        this.archivo = archivo;
+        this.archivoApartados = archivo.resolveSibling(archivo.getFileName() + SUFIJO_APARTADOS);
+        
+        Path directorio = archivo.toAbsolutePath().getParent();
+        if (directorio != null) {
+            Files.createDirectories(directorio);
+        }
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacidad, (int) canal.size()));
+        recuperar();
+        AlmacenLocal.getInstance().registrarReferenciasIdsLocales(AlmacenLocal.DIARIO_TRIAGE,
+            this::idsLocalesPendientes);
+        
+        this.hiloConfirmacion = new Thread(this::confirmarEnGrupo, "triage-wal");
+        this.hiloConfirmacion.setDaemon(true);
+        this.hiloConfirmacion.start();
+        
+        this.replicador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "triage-replicador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.replicador.scheduleWithFixedDelay(this::replicar, 0, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Obtiene la instancia única del diario
+     * @return Instancia del diario, o null si no se pudo abrir el archivo
+     */
+    public static DiarioEscriturasTriage getInstance() {
+        if (instance == null) {
+            synchronized (DiarioEscriturasTriage.class) {
+                if (instance == null) {
+                    try {
+                        instance = new DiarioEscriturasTriage();
+                    } catch (IOException e) {
+                        // Sin diario el triage sigue funcionando con la inserción directa
+                        BITACORA.error("Error al abrir el diario de triage: " + e.getMessage());
+                        return null;
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Registra un triage de forma durable en el diario local
+     * El registro se valida y recibe su folio; el ID se asigna cuando se replica a MySQL
+     * @param registro Registro de triage a guardar
+     * @return true si el registro quedó en disco; false si el diario está lleno, detenido
+     *         o no pudo forzar la escritura (en ese caso el registro no se replicará)
+     * @throws SQLException si no se pudo reservar el folio
+     */
+    public boolean registrar(RegistroTriage registro) throws SQLException {
+        registroTriageDAO.prepararInsercion(registro);
+        byte[] datos = CodificacionLocal.codificar(registro);
+        long inicio = System.nanoTime();
+        
+        Pendiente pendiente;
+        int anulado = -1;
+        cerrojo.lock();
+        try {
+            if (detenido || fallido || escrito + ENCABEZADO_REGISTRO + datos.length > mapa.capacity()) {
+                totalRechazados.incrementAndGet();
+                return false;
+            }
+            pendiente = new Pendiente(registro, escribirRegistro(datos), datos.length);
+            pendientes.addLast(pendiente);
+            hayEscrituras.signal();
+            
+            // Esperar a que el hilo de confirmación fuerce al disco este registro (y los vecinos)
+            long restante = TimeUnit.MILLISECONDS.toNanos(ESPERA_MAXIMA_MS);
+            try {
+                while (confirmado < pendiente.fin && !fallido && restante > 0) {
+                    restante = hayConfirmacion.awaitNanos(restante);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (confirmado < pendiente.fin) {
+                // No hay garantía de que esté en disco: el llamador lo escribirá directamente,
+                // así que el registro se anula para que no se reenvíe tras una caída
+                anulado = anular(pendiente);
+                totalRechazados.incrementAndGet();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        if (anulado >= 0) {
+            forzarAnulacion(anulado);
+            return false;
+        }
+        
+        long espera = System.nanoTime() - inicio;
+        sumaEsperaNanos.addAndGet(espera);
+        maximaEsperaNanos.accumulateAndGet(espera, Math::max);
+        totalRegistrados.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Registra una cola de triage para avisarle cuando un registro pendiente recibe folio nuevo
+     * La cola se guarda con referencia débil; no hace falta quitarla al cerrar la pantalla
+     * @param cola Cola que muestra los registros pendientes del diario
+     */
+    public void registrarCola(TriageQueue cola) {
+        colas.add(cola);
+    }
+    
+    /**
+     * Obtiene los registros confirmados que aún no están en MySQL
+     * Al iniciar incluye los recuperados del archivo, que se deben volver a encolar
+     * @return Copia de la lista de registros pendientes, en orden de llegada
+     */
+    public List<RegistroTriage> obtenerPendientes() {
+        cerrojo.lock();
+        try {
+            List<RegistroTriage> registros = new ArrayList<>(pendientes.size());
+            for (Pendiente pendiente : pendientes) {
+                registros.add(pendiente.registro);
+            }
+            return registros;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    /**
+     * Replica a MySQL un lote de registros pendientes
+     * Si falla por conexión, el lote se reintenta completo en la siguiente ronda (el reenvío es
+     * idempotente); los registros que MySQL rechaza se apartan y no se reintentan
+     * @return Número de registros replicados
+     */
+    public synchronized int replicar() {
+        // Sin conexión no se intenta: el almacén local avisa cuando vuelve
+        AlmacenLocal almacen = AlmacenLocal.getInstance();
+        if (!almacen.enLinea()) {
+            return 0;
+        }
+        
+        int total = 0;
+        while (true) {
+            List<Pendiente> lote = new ArrayList<>(TAMAÑO_LOTE);
+            List<RegistroTriage> registros = new ArrayList<>(TAMAÑO_LOTE);
+            List<RegistroTriage> sinPaciente = new ArrayList<>();
+            cerrojo.lock();
+            try {
+                for (Pendiente pendiente : pendientes) {
+                    if (lote.size() == TAMAÑO_LOTE || pendiente.fin > confirmado) {
+                        break;
+                    }
+                    // Un paciente registrado sin conexión debe sincronizarse antes que su triage;
+                    // si MySQL lo rechazó, su triage nunca podrá replicarse y se aparta
+                    int pacienteId = almacen.resolverPacienteId(pendiente.registro.getPacienteId());
+                    if (pacienteId < 0 && almacen.esPacientePendiente(pacienteId)) {
+                        break;
+                    }
+                    if (pacienteId < 0) {
+                        sinPaciente.add(pendiente.registro);
+                    } else {
+                        pendiente.registro.setPacienteId(pacienteId);
+                        registros.add(pendiente.registro);
+                    }
+                    lote.add(pendiente);
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+            
+            if (lote.isEmpty()) {
+                reiniciarSiVacio();
+                return total;
+            }
+            
+            RegistroTriageDAO.ResultadoLote resultado;
+            try {
+                resultado = registroTriageDAO.insertarLote(registros);
+                totalFilasReplicadas.addAndGet(resultado.filasInsertadas);
+                totalLotes.incrementAndGet();
+            } catch (Exception e) {
+                if (e instanceof SQLException sql) {
+                    almacen.reportarError(sql);
+                }
+                // Sólo se avisa el primer error de una racha para no llenar la bitácora mientras MySQL no responde
+                if (totalErroresReplicacion.getAndIncrement() == erroresAlUltimoExito) {
+                    BITACORA.aviso("Error al replicar lote de triage, se reintentará: " + e.getMessage(),
+                        "registros", lote.size());
+                }
+                return total;
+            }
+            if (totalErroresReplicacion.get() != erroresAlUltimoExito) {
+                erroresAlUltimoExito = totalErroresReplicacion.get();
+                BITACORA.info("Replicación de triage reanudada");
+            }
+            
+            // Deben quedar en disco antes de avanzar la marca de replicado; si no, se reintenta el lote
+            for (RegistroTriage registro : sinPaciente) {
+                almacen.registrarConflicto("TRIAGE_SIN_PACIENTE", registro.getPacienteId(), 0,
+                    "El paciente del triage " + registro.getFolio() + " no se pudo sincronizar");
+            }
+            resultado.rechazados.addAll(sinPaciente);
+            if (!resultado.rechazados.isEmpty()) {
+                try {
+                    apartar(resultado.rechazados);
+                } catch (IOException e) {
+                    BITACORA.error("Error al apartar triages rechazados, se reintentará: " + e.getMessage());
+                    return total;
+                }
+            }
+            
+            // Folios locales que chocaron con el de otro paciente: se reescriben al final con folio nuevo
+            // El folio se cambia en una copia; el registro original está en las colas indexado por su folio
+            List<RegistroTriage> copias = new ArrayList<>();
+            List<byte[]> reasignados = new ArrayList<>();
+            try {
+                for (RegistroTriage registro : resultado.foliosOcupados) {
+                    RegistroTriage copia = CodificacionLocal.decodificarRegistro(CodificacionLocal.codificar(registro));
+                    copia.setFolio(null);
+                    registroTriageDAO.prepararInsercion(copia);
+                    copias.add(copia);
+                    reasignados.add(CodificacionLocal.codificar(copia));
+                }
+            } catch (SQLException | IOException e) {
+                BITACORA.error("Error al asignar folio nuevo a un triage: " + e.getMessage());
+                return total;
+            }
+            
+            List<Integer> escritos = new ArrayList<>();
+            List<Integer> anulados = new ArrayList<>();
+            cerrojo.lock();
+            try {
+                List<RegistroTriage> sinEspacio = new ArrayList<>();
+                List<Pendiente> nuevos = new ArrayList<>();
+                for (int i = 0; i < reasignados.size(); i++) {
+                    byte[] datos = reasignados.get(i);
+                    if (escrito + ENCABEZADO_REGISTRO + datos.length > mapa.capacity()) {
+                        sinEspacio.add(copias.get(i));
+                        continue;
+                    }
+                    Pendiente nuevo = new Pendiente(copias.get(i), escribirRegistro(datos), datos.length);
+                    pendientes.addLast(nuevo);
+                    nuevos.add(nuevo);
+                    escritos.add(i);
+                }
+                // Deben quedar en disco antes de avanzar la marca de replicado; si no, se anulan
+                // y el lote original se vuelve a intentar en la siguiente ronda
+                if (!nuevos.isEmpty() && !esperarConfirmacion(nuevos.get(nuevos.size() - 1).fin)) {
+                    for (Pendiente nuevo : nuevos) {
+                        anulados.add(anular(nuevo));
+                    }
+                } else if (!sinEspacio.isEmpty()) {
+                    try {
+                        apartar(sinEspacio);
+                    } catch (IOException e) {
+                        for (RegistroTriage registro : sinEspacio) {
+                            BITACORA.error("Diario de triage lleno: no se pudo reescribir el folio " +
+                                registro.getFolio() + ": " + e.getMessage());
+                        }
+                    }
+                }
+                if (anulados.isEmpty()) {
+                    for (Pendiente pendiente : lote) {
+                        pendientes.remove(pendiente);
+                    }
+                    replicado = Math.max(replicado, lote.get(lote.size() - 1).fin);
+                    mapa.putInt(POSICION_REPLICADO, replicado);
+                    mapa.force(0, TAMAÑO_CABECERA);
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+            if (!anulados.isEmpty()) {
+                anulados.forEach(this::forzarAnulacion);
+                BITACORA.error("No se pudieron forzar a disco los triages con folio nuevo, se reintentará");
+                return total;
+            }
+            for (int i : escritos) {
+                reemplazarEnColas(resultado.foliosOcupados.get(i).getFolio(), copias.get(i));
+            }
+            total += lote.size();
+        }
+    }
+    
+    /**
+     * Replica lo pendiente y detiene los hilos del diario
+     * Lo que no se pueda replicar queda en el archivo y se reenvía en el siguiente inicio
+     */
+    public void detener() {
+        cerrojo.lock();
+        try {
+            detenido = true;
+            hayEscrituras.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+        replicador.shutdown();
+        try {
+            replicador.awaitTermination(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+            hiloConfirmacion.join(ESPERA_MAXIMA_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        replicar();
+        try {
+            canal.close();
+        } catch (IOException e) {
+            BITACORA.error("Error al cerrar el diario de triage: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Replica y detiene la instancia única solo si fue creada
+     */
+    public static void detenerSiActivo() {
+        DiarioEscriturasTriage actual = instance;
+        if (actual != null) {
+            actual.detener();
+        }
+    }
+    
+    public Path getArchivo() {
+        return archivo;
+    }
+    
+    // Hilo de confirmación en grupo: fuerza al disco todo lo escrito y despierta a los que esperan
+    private void confirmarEnGrupo() {
+        while (true) {
+            int desde;
+            int hasta;
+            cerrojo.lock();
+            try {
+                while (escrito == confirmado && !detenido) {
+                    hayEscrituras.awaitUninterruptibly();
+                }
+                if (escrito == confirmado) {
+                    return;
+                }
+                desde = confirmado;
+                hasta = escrito;
+            } finally {
+                cerrojo.unlock();
+            }
+            
+            // Fuera del cerrojo: mientras se fuerza este tramo otros hilos siguen escribiendo
+            boolean forzado = true;
+            try {
+                mapa.force(desde, hasta - desde);
+                totalForzados.incrementAndGet();
+            } catch (RuntimeException e) {
+                forzado = false;
+                BITACORA.error("Error al forzar el diario de triage a disco", e);
+            }
+            
+            cerrojo.lock();
+            try {
+                if (forzado) {
+                    confirmado = hasta;
+                } else {
+                    fallido = true;
+                }
+                hayConfirmacion.signalAll();
+            } finally {
+                cerrojo.unlock();
+            }
+            if (!forzado) {
+                return;
+            }
+        }
+    }
+    
+    // IDs locales de paciente de los registros que aún no se replican (ver AlmacenLocal)
+    private Set<Integer> idsLocalesPendientes() {
+        cerrojo.lock();
+        try {
+            Set<Integer> ids = new HashSet<>();
+            for (Pendiente pendiente : pendientes) {
+                if (pendiente.registro.getPacienteId() < 0) {
+                    ids.add(pendiente.registro.getPacienteId());
+                }
+            }
+            return ids;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    // Debe llamarse con el cerrojo tomado; espera a que el hilo de confirmación fuerce hasta fin
+    private boolean esperarConfirmacion(int fin) {
+        hayEscrituras.signal();
+        try {
+            while (confirmado < fin && !fallido) {
+                if (!hiloConfirmacion.isAlive()) {
+                    // Durante detener() el hilo ya terminó: se fuerza aquí
+                    mapa.force(confirmado, escrito - confirmado);
+                    confirmado = escrito;
+                    break;
+                }
+                hayConfirmacion.await(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            BITACORA.error("Error al forzar el diario de triage a disco", e);
+        }
+        return confirmado >= fin;
+    }
+    
+    // Debe llamarse con el cerrojo tomado; marca el registro como anulado y devuelve dónde empieza
+    private int anular(Pendiente pendiente) {
+        pendientes.remove(pendiente);
+        int inicio = pendiente.fin - ENCABEZADO_REGISTRO - pendiente.longitud;
+        mapa.putInt(inicio + 4, generacion | ANULADO);
+        return inicio;
+    }
+    
+    // Fuerza la marca de anulado fuera del cerrojo: el tramo pudo haberse forzado antes de marcarlo
+    private void forzarAnulacion(int inicio) {
+        try {
+            mapa.force(inicio, ENCABEZADO_REGISTRO);
+        } catch (RuntimeException e) {
+            BITACORA.error("Error al forzar la anulación de un triage en el diario", e);
+        }
+    }
+    
+    // Cambia en las colas registradas el registro de folio anterior por su copia con folio nuevo
+    private void reemplazarEnColas(String folioAnterior, RegistroTriage copia) {
+        List<TriageQueue> actuales;
+        synchronized (colas) {
+            actuales = new ArrayList<>(colas);
+        }
+        for (TriageQueue cola : actuales) {
+            if (cola.remover(folioAnterior)) {
+                cola.agregar(copia);
+            }
+        }
+        BITACORA.info("Triage con folio nuevo por choque de folios", "anterior", folioAnterior,
+            "nuevo", copia.getFolio());
+    }
+    
+    // Agrega los registros al archivo de apartados (longitud y datos codificados) y lo fuerza a disco
+    private void apartar(List<RegistroTriage> registros) throws IOException {
+        try (FileChannel salida = FileChannel.open(archivoApartados, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (RegistroTriage registro : registros) {
+                byte[] datos = CodificacionLocal.codificar(registro);
+                ByteBuffer buffer = ByteBuffer.allocate(4 + datos.length);
+                buffer.putInt(datos.length).put(datos).flip();
+                while (buffer.hasRemaining()) {
+                    salida.write(buffer);
+                }
+            }
+            salida.force(false);
+        }
+        totalApartados.addAndGet(registros.size());
+        for (RegistroTriage registro : registros) {
+            BITACORA.error("Triage apartado sin replicar", "folio", registro.getFolio(),
+                "paciente", registro.getPacienteId(), "archivo", archivoApartados);
+        }
+    }
+    
+    // Reutiliza el archivo desde el principio cuando ya no queda nada por replicar
+    private void reiniciarSiVacio() {
+        cerrojo.lock();
+        try {
+            if (!pendientes.isEmpty() || escrito != confirmado || escrito == TAMAÑO_CABECERA) {
+                return;
+            }
+            generacion++;
+            escrito = TAMAÑO_CABECERA;
+            confirmado = TAMAÑO_CABECERA;
+            replicado = TAMAÑO_CABECERA;
+            mapa.putInt(POSICION_GENERACION, generacion);
+            mapa.putInt(POSICION_REPLICADO, replicado);
+            mapa.force(0, TAMAÑO_CABECERA);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+    
+    // Debe llamarse con el cerrojo tomado; devuelve la posición final del registro
+    private int escribirRegistro(byte[] datos) {
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        mapa.putInt(escrito, datos.length);
+        mapa.putInt(escrito + 4, generacion);
+        mapa.putInt(escrito + 8, (int) crc.getValue());
+        mapa.put(escrito + ENCABEZADO_REGISTRO, datos);
+        escrito += ENCABEZADO_REGISTRO + datos.length;
+        return escrito;
+    }
+    
+    private void recuperar() {
+        if (mapa.getInt(0) != FIRMA) {
+            generacion = 1;
+            mapa.putInt(0, FIRMA);
+            mapa.putInt(POSICION_GENERACION, generacion);
+            mapa.putInt(POSICION_REPLICADO, TAMAÑO_CABECERA);
+            mapa.putInt(TAMAÑO_CABECERA, 0);
+            mapa.force(0, TAMAÑO_CABECERA + 4);
+        }
+        generacion = mapa.getInt(POSICION_GENERACION);
+        replicado = mapa.getInt(POSICION_REPLICADO);
+        
+        int posicion = TAMAÑO_CABECERA;
+        while (posicion + ENCABEZADO_REGISTRO <= mapa.capacity()) {
+            int longitud = mapa.getInt(posicion);
+            int generacionRegistro = mapa.getInt(posicion + 4);
+            if (longitud <= 0 || posicion + ENCABEZADO_REGISTRO + longitud > mapa.capacity()
+                    || (generacionRegistro & ~ANULADO) != generacion) {
+                break;
+            }
+            byte[] datos = new byte[longitud];
+            mapa.get(posicion + ENCABEZADO_REGISTRO, datos);
+            CRC32 crc = new CRC32();
+            crc.update(datos);
+            if ((int) crc.getValue() != mapa.getInt(posicion + 8)) {
+                break;
+            }
+            int fin = posicion + ENCABEZADO_REGISTRO + longitud;
+            if (fin > replicado && (generacionRegistro & ANULADO) == 0) {
+                try {
+                    pendientes.addLast(new Pendiente(CodificacionLocal.decodificarRegistro(datos), fin, longitud));
+                } catch (IOException | RuntimeException e) {
+                    BITACORA.error("Registro ilegible en el diario de triage: " + e.getMessage());
+                    break;
+                }
+            }
+            posicion = fin;
+        }
+        
+        // Lo que sigue al último registro válido (una escritura a medias) se descarta
+        escrito = posicion;
+        confirmado = posicion;
+        replicado = Math.min(Math.max(replicado, TAMAÑO_CABECERA), posicion);
+        if (posicion + 4 <= mapa.capacity()) {
+            mapa.putInt(posicion, 0);
+        }
+        recuperados = pendientes.size();
+        if (recuperados > 0) {
+            BITACORA.info("Triages recuperados del diario local pendientes de replicar",
+                "registros", recuperados);
+        }
+    }
+    
+    /**
+     * Obtiene las métricas del diario
+     * @return Estadísticas de escritura, confirmación en grupo y replicación
+     */
+    public EstadisticasDiario obtenerEstadisticas() {
+        EstadisticasDiario stats = new EstadisticasDiario();
+        cerrojo.lock();
+        try {
+            stats.pendientes = pendientes.size();
+            stats.bytesUsados = escrito - TAMAÑO_CABECERA;
+        } finally {
+            cerrojo.unlock();
+        }
+        stats.capacidadBytes = mapa.capacity() - TAMAÑO_CABECERA;
+        stats.registrados = totalRegistrados.get();
+        stats.recuperados = recuperados;
+        stats.rechazados = totalRechazados.get();
+        stats.escriturasForzadas = totalForzados.get();
+        stats.lotesReplicados = totalLotes.get();
+        stats.filasReplicadas = totalFilasReplicadas.get();
+        stats.erroresReplicacion = totalErroresReplicacion.get();
+        stats.apartados = totalApartados.get();
+        stats.promedioEsperaMs = stats.registrados > 0
+            ? sumaEsperaNanos.get() / 1_000_000.0 / stats.registrados : 0.0;
+        stats.maximaEsperaMs = maximaEsperaNanos.get() / 1_000_000.0;
+        return stats;
+    }
+    
+    // Registro confirmado o por confirmar, con la posición donde termina en el archivo y su longitud
+    private static final class Pendiente {
+        private final RegistroTriage registro;
+        private final int fin;
+        private final int longitud;
+        
+        private Pendiente(RegistroTriage registro, int fin, int longitud) {
+            this.registro = registro;
+            this.fin = fin;
+            this.longitud = longitud;
+        }
+    }
+    
+    /**
+     * Clase para métricas del diario de triage
+     */
+    public static class EstadisticasDiario {
+        public int pendientes;
+        public long bytesUsados;
+        public long capacidadBytes;
+        public long registrados;
+        public long recuperados;
+        public long rechazados;
+        public long escriturasForzadas;
+        public long lotesReplicados;
+        public long filasReplicadas;
+        public long erroresReplicacion;
+        public long apartados;
+        public double promedioEsperaMs;
+        public double maximaEsperaMs;
+        
+        @Override
+        public String toString() {
+            return String.format("Pendientes: %d, Uso: %d/%d bytes, Registrados: %d, Recuperados: %d, " +
+                "Rechazados: %d, Forzados: %d, Lotes: %d, Filas: %d, Errores: %d, Apartados: %d, " +
+                "Espera prom/máx: %.2f/%.2f ms",
+                pendientes, bytesUsados, capacidadBytes, registrados, recuperados, rechazados,
+                escriturasForzadas, lotesReplicados, filasReplicadas, erroresReplicacion, apartados,
+                promedioEsperaMs, maximaEsperaMs);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dao;
+
+import java.io.IOException;
+import java.sql.*;
+
+/**
+ * Lectura por rangos de ID de las tablas clínicas para exportaciones de auditoría
+ * (ver services.ExportacionService)
+ * Cada rango se lee con un cursor del servidor: la conexión debe abrirse con
+ * DatabaseConnection.abrirConexionDedicada(RutaConsulta), que habilita useCursorFetch, y las filas
+ * llegan en bloques de FILAS_POR_BLOQUE sin cargar el rango completo en memoria
+ * Usa la conexión recibida y no la cierra
+ */
+public class ExportacionClinicaDAO {
+    
+    public static final int FILAS_POR_BLOQUE = 1000;
+    
+    /**
+     * Tablas exportables
+     */
+    public enum Tabla {
+        PACIENTES("pacientes"),
+        REGISTROS_TRIAGE("registros_triage"),
+        ATENCION_MEDICA("atencion_medica"),
+        DATOS_SOCIALES("datos_sociales");
+        
+        private final String nombre;
+        
+        Tabla(String nombre) {
+            this.nombre = nombre;
+        }
+        
+        public String getNombre() { return nombre; }
+    }
+    
+    /**
+     * Recibe cada fila leída; el arreglo se reutiliza entre filas
+     */
+    @FunctionalInterface
+    public interface DestinoFilas {
+        void fila(String[] valores) throws IOException;
+    }
+    
+    private final Connection conexion;
+    
+    /**
+     * @param conexion Conexión dedicada de lectura (no se cierra al terminar)
+     */
+    public ExportacionClinicaDAO(Connection conexion) {
+        this.conexion = conexion;
+    }
+    
+    /**
+     * Obtiene los nombres de columna de una tabla, en el orden en que leerRango entrega los valores
+     * @param tabla Tabla a consultar
+     * @return Nombres de columna
+     * @throws SQLException si hay error en la consulta
+     */
+    public String[] obtenerColumnas(Tabla tabla) throws SQLException {
+        try (Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + tabla.nombre + " WHERE 1 = 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            String[] columnas = new String[meta.getColumnCount()];
+            for (int i = 0; i < columnas.length; i++) {
+                columnas[i] = meta.getColumnLabel(i + 1);
+            }
+            return columnas;
+        }
+    }
+    
+    /**
+     * Obtiene el menor y el mayor ID de una tabla
+     * @param tabla Tabla a consultar
+     * @return {mínimo, máximo}, o null si la tabla está vacía
+     * @throws SQLException si hay error en la consulta
+     */
+    public long[] obtenerRangoIds(Tabla tabla) throws SQLException {
+        try (Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM " + tabla.nombre)) {
+            rs.next();
+            long minimo = rs.getLong(1);
+            if (rs.wasNull()) {
+                return null;
+            }
+            return new long[] {minimo, rs.getLong(2)};
+        }
+    }
+    
+    /**
+     * Lee en orden de ID las filas con desdeId &lt;= id &lt;= hastaId
+     * Los valores se entregan como texto (getString); NULL se entrega como null
+     * @param tabla Tabla a leer
+     * @param desdeId Primer ID del rango
+     * @param hastaId Último ID del rango
+     * @param destino Recibe cada fila
+     * @return Filas leídas
+     * @throws SQLException si hay error en la lectura
+     * @throws IOException si el destino falla al escribir
+     */
+    public long leerRango(Tabla tabla, long desdeId, long hastaId, DestinoFilas destino)
+            throws SQLException, IOException {
+        String sql = "SELECT * FROM " + tabla.nombre + " WHERE id BETWEEN ? AND ? ORDER BY id";
+        long filas = 0;
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(FILAS_POR_BLOQUE);
+            stmt.setLong(1, desdeId);
+            stmt.setLong(2, hastaId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                String[] valores = new String[rs.getMetaData().getColumnCount()];
+                while (rs.next()) {
+                    for (int i = 0; i < valores.length; i++) {
+                        valores[i] = rs.getString(i + 1);
+                    }
+                    destino.fila(valores);
+                    filas++;
+                }
+            }
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,173 @@
+package dao;
+
+import structures.SegmentoColumnar;
+import structures.SegmentoColumnar.TipoColumna;
+import utils.Bitacora;
+import utils.DatabaseConnection;
+import utils.RutaConsulta;
+import java.sql.*;
+import java.util.function.Consumer;
+
+/**
+ * Extracción de las tablas de urgencias hacia segmentos columnares (ver services.AlmacenAnalitico)
+ * Lee en orden de ID las filas posteriores a un ID dado, con una conexión dedicada (de una
+ * réplica si hay) y el resultado en streaming, para no cargar la tabla completa en memoria
+ * ni ocupar la conexión compartida de la aplicación
+ * Solo se extraen las columnas que usan los reportes; la primera siempre es el ID
+ */
+public class ExtraccionHistoricaDAO {
+    
+    private static final Bitacora BITACORA = Bitacora.de(ExtraccionHistoricaDAO.class);
+    
+    // Los constructores crecen al doble si el segmento tiene más filas
+    private static final int CAPACIDAD_INICIAL = 8192;
+    
+    /**
+     * Tablas extraídas y sus columnas, con los nombres que usan los DAOs en sus reportes
+     */
+    public enum Tabla {
+        ATENCION_MEDICA("atencion_medica", "fecha_consulta",
+            "id", TipoColumna.ENTERO,
+            "fecha_consulta", TipoColumna.FECHA_HORA,
+            "especialidad_medica", TipoColumna.DICCIONARIO,
+            "medico_id", TipoColumna.ENTERO,
+            "requiere_hospitalizacion", TipoColumna.ENTERO,
+            "requiere_cirugia", TipoColumna.ENTERO,
+            "requiere_interconsulta", TipoColumna.ENTERO),
+        REGISTROS_TRIAGE("registros_triage", "fecha_hora_triage",
+            "id", TipoColumna.ENTERO,
+            "fecha_hora_triage", TipoColumna.FECHA_HORA,
+            "nivel_urgencia", TipoColumna.DICCIONARIO,
+            "especialidad_asignada", TipoColumna.DICCIONARIO,
+            "estado", TipoColumna.DICCIONARIO,
+            "tiempo_estimado_atencion", TipoColumna.ENTERO),
+        // Sin columna de fecha de evento: los datos de un paciente se corrigen en cualquier momento
+        PACIENTES("pacientes", null,
+            "id", TipoColumna.ENTERO,
+            "fecha_nacimiento", TipoColumna.FECHA,
+            "sexo", TipoColumna.DICCIONARIO,
+            "fecha_registro", TipoColumna.FECHA_HORA);
+        
+        private final String nombre;
+        private final String columnaFecha;
+        private final String[] columnas;
+        private final TipoColumna[] tipos;
+        
+        Tabla(String nombre, String columnaFecha, Object... definicion) {
+            this.nombre = nombre;
+            this.columnaFecha = columnaFecha;
+            this.columnas = new String[definicion.length / 2];
+            this.tipos = new TipoColumna[definicion.length / 2];
+            for (int i = 0; i < columnas.length; i++) {
+                columnas[i] = (String) definicion[2 * i];
+                tipos[i] = (TipoColumna) definicion[2 * i + 1];
+            }
+        }
+        
+        public String getNombre() { return nombre; }
+        
+        /**
+         * Columna FECHA_HORA del evento que registra la fila, o null si la tabla no tiene una
+         * Las filas cuyo evento es reciente todavía pueden cambiar
+         */
+        public String getColumnaFecha() { return columnaFecha; }
+        
+        /**
+         * @return Columnas separadas por coma, en el orden de los segmentos
+         */
+        public String getListaColumnas() {
+            return String.join(", ", columnas);
+        }
+        
+        /**
+         * Crea un constructor de segmentos con las columnas de la tabla
+         * @param capacidad Filas esperadas
+         */
+        public SegmentoColumnar.Constructor nuevoConstructor(int capacidad) {
+            return new SegmentoColumnar.Constructor(columnas, tipos, capacidad);
+        }
+        
+        String sqlExtraer() {
+            return "SELECT " + getListaColumnas() + " FROM " + nombre + " WHERE id > ? ORDER BY id";
+        }
+    }
+    
+    /**
+     * Extrae las filas con ID mayor a desdeId y las entrega en segmentos de hasta filasPorSegmento filas
+     * @param tabla Tabla a extraer
+     * @param desdeId ID a partir del cual extraer (exclusivo)
+     * @param filasPorSegmento Filas por segmento
+     * @param destino Recibe cada segmento completo, en orden de ID; el último puede ir incompleto
+     * @return Filas extraídas
+     * @throws SQLException si hay error en la lectura
+     */
+    public long extraer(Tabla tabla, int desdeId, int filasPorSegmento, Consumer<SegmentoColumnar> destino)
+            throws SQLException {
+        long inicio = System.nanoTime();
+        long filas = 0;
+        
+        try (Connection conn = DatabaseConnection.getInstance().abrirConexionDedicada(RutaConsulta.REPLICA);
+             PreparedStatement stmt = conn.prepareStatement(tabla.sqlExtraer(),
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // Integer.MIN_VALUE: el driver de MySQL entrega las filas en streaming en lugar de cargarlas todas
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setInt(1, desdeId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                SegmentoColumnar.Constructor constructor = tabla.nuevoConstructor(Math.min(filasPorSegmento, CAPACIDAD_INICIAL));
+                while (rs.next()) {
+                    leerFila(tabla, rs, constructor);
+                    filas++;
+                    if (constructor.getFilas() == filasPorSegmento) {
+                        destino.accept(constructor.construir());
+                        constructor = tabla.nuevoConstructor(Math.min(filasPorSegmento, CAPACIDAD_INICIAL));
+                    }
+                }
+                if (constructor.getFilas() > 0) {
+                    destino.accept(constructor.construir());
+                }
+            }
+        }
+        
+        BITACORA.debug("Extracción histórica", "tabla", tabla.nombre, "desde_id", desdeId, "filas", filas,
+            "ms", (System.nanoTime() - inicio) / 1_000_000);
+        return filas;
+    }
+    
+    /**
+     * Extrae en un solo segmento las filas con ID mayor a desdeId
+     * Se usa para las filas nuevas desde la última exportación, que son pocas
+     * @param tabla Tabla a extraer
+     * @param desdeId ID a partir del cual extraer (exclusivo)
+     * @return Segmento con las filas (puede estar vacío)
+     * @throws SQLException si hay error en la lectura
+     */
+    public SegmentoColumnar extraerRecientes(Tabla tabla, int desdeId) throws SQLException {
+        SegmentoColumnar[] resultado = new SegmentoColumnar[1];
+        extraer(tabla, desdeId, Integer.MAX_VALUE, segmento -> resultado[0] = segmento);
+        return resultado[0] != null ? resultado[0] : tabla.nuevoConstructor(0).construir();
+    }
+    
+    private static void leerFila(Tabla tabla, ResultSet rs, SegmentoColumnar.Constructor constructor) throws SQLException {
+        for (int i = 0; i < tabla.columnas.length; i++) {
+            int indice = i + 1;
+            switch (tabla.tipos[i]) {
+                case ENTERO -> {
+                    int valor = rs.getInt(indice);
+                    constructor.entero(i, rs.wasNull() ? null : valor);
+                }
+                case FECHA -> {
+                    Date valor = rs.getDate(indice);
+                    constructor.fecha(i, valor != null ? valor.toLocalDate() : null);
+                }
+                case FECHA_HORA -> {
+                    Timestamp valor = rs.getTimestamp(indice);
+                    constructor.fechaHora(i, valor != null ? valor.toLocalDateTime() : null);
+                }
+                case DICCIONARIO -> constructor.texto(i, rs.getString(indice));
+            }
+        }
+        constructor.terminarFila();
+    }
+}
@@ -0,0 +1,261 @@
+package dao;
+
+import utils.Bitacora;
+import utils.DatabaseConnection;
+import java.sql.*;
+import java.time.Year;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de folios de triage
+ * Cada secuencia tiene un contador por año en la tabla secuencias_anuales; la aplicación
+ * reserva bloques de números (hi/lo) con una transacción corta en una conexión dedicada y
+ * los reparte en memoria sin bloqueos mediante un AtomicLong. Varias instancias de la
+ * aplicación reservan bloques distintos, por lo que los números nunca se repiten
+ * Los números reservados y no usados al cerrar la aplicación se pierden (quedan huecos)
+ */
+public class GeneradorSecuencias {
+    
+    private static final Bitacora BITACORA = Bitacora.de(GeneradorSecuencias.class);
+    
+    // Números que se reservan en cada viaje a la base de datos
+    public static final int TAMAÑO_BLOQUE = 100;
+    
+    private static final String TABLA = "secuencias_anuales";
+    
+    // Consultas SQL predefinidas
+    private static final String SQL_BLOQUEAR_CONTADOR =
+        "SELECT siguiente FROM " + TABLA + " WHERE nombre = ? AND anio = ? FOR UPDATE";
+    
+    private static final String SQL_CREAR_CONTADOR =
+        "INSERT IGNORE INTO " + TABLA + " (nombre, anio, siguiente) VALUES (?, ?, ?)";
+    
+    private static final String SQL_AVANZAR_CONTADOR =
+        "UPDATE " + TABLA + " SET siguiente = siguiente + ? WHERE nombre = ? AND anio = ?";
+    
+    // Solo se usa una vez por año para continuar la numeración de folios generados por el trigger anterior
+    private static final String SQL_MAXIMO_FOLIO =
+        "SELECT COALESCE(MAX(CAST(SUBSTRING(folio, 10) AS UNSIGNED)), 0) + 1 " +
+        "FROM registros_triage WHERE folio LIKE CONCAT('TRG-', ?, '-%')";
+    
+    /**
+     * Secuencias administradas por el generador
+     */
+    public enum Secuencia {
+        FOLIO_TRIAGE("TRG", 4);
+        
+        private final String prefijo;
+        private final int digitos;
+        
+        Secuencia(String prefijo, int digitos) {
+            this.prefijo = prefijo;
+            this.digitos = digitos;
+        }
+        
+        public String getPrefijo() { return prefijo; }
+        public int getDigitos() { return digitos; }
+    }
+    
+    /**
+     * Rango [siguiente, limite) reservado en la base de datos para una secuencia y año
+     */
+    private static class Bloque {
+        final AtomicLong siguiente;
+        final long limite;
+        
+        Bloque(long inicio, long limite) {
+            this.siguiente = new AtomicLong(inicio);
+            this.limite = limite;
+        }
+    }
+    
+    private static volatile GeneradorSecuencias instance;
+    
+    private final DatabaseConnection dbConnection;
+    private final int tamañoBloque;
+    private final ConcurrentHashMap<String, Bloque> bloques;
+    
+    // Métricas
+    private final AtomicLong numerosEntregados = new AtomicLong();
+    private final AtomicLong bloquesReservados = new AtomicLong();
+    
+    private GeneradorSecuencias() {
+        this(DatabaseConnection.getInstance(), TAMAÑO_BLOQUE);
+    }
+    
+    /**
+     * Constructor con tamaño de bloque configurable
+     * @param dbConnection Origen de las conexiones dedicadas con que se reservan bloques
+     * @param tamañoBloque Números reservados por cada viaje a la base de datos
+     */
+    GeneradorSecuencias(DatabaseConnection dbConnection, int tamañoBloque) {
+        if (tamañoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+        }
+        this.dbConnection = dbConnection;
+        this.tamañoBloque = tamañoBloque;
+        this.bloques = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Obtiene la instancia única del generador
+     * @return Instancia de GeneradorSecuencias
+     */
+    public static GeneradorSecuencias getInstance() {
+        if (instance == null) {
+            synchronized (GeneradorSecuencias.class) {
+                if (instance == null) {
+                    instance = new GeneradorSecuencias();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Genera el siguiente folio de triage del año en curso (TRG-YYYY-NNNN)
+     * @return Folio único
+     * @throws SQLException si no se pudo reservar un nuevo bloque
+     */
+    public String siguienteFolioTriage() throws SQLException {
+        return siguienteCodigo(Secuencia.FOLIO_TRIAGE);
+    }
+    
+    /**
+     * Genera el siguiente código con formato PREFIJO-YYYY-NNNN para una secuencia
+     * Si el número supera los dígitos del formato, el código crece en lugar de truncarse
+     * @param secuencia Secuencia a utilizar
+     * @return Código único
+     * @throws SQLException si no se pudo reservar un nuevo bloque
+     */
+    public String siguienteCodigo(Secuencia secuencia) throws SQLException {
+        int anio = Year.now().getValue();
+        long numero = siguienteValor(secuencia, anio);
+        
+        StringBuilder codigo = new StringBuilder(secuencia.prefijo.length() + 6 + secuencia.digitos);
+        codigo.append(secuencia.prefijo).append('-').append(anio).append('-');
+        String digitos = Long.toString(numero);
+        for (int i = digitos.length(); i < secuencia.digitos; i++) {
+            codigo.append('0');
+        }
+        return codigo.append(digitos).toString();
+    }
+    
+    /**
+     * Obtiene el siguiente valor numérico de una secuencia
+     * El camino común es un getAndIncrement; solo al agotar el bloque se consulta la base de datos
+     * @param secuencia Secuencia a utilizar
+     * @param anio Año del contador
+     * @return Valor único dentro de la secuencia y año
+     * @throws SQLException si no se pudo reservar un nuevo bloque
+     */
+    public long siguienteValor(Secuencia secuencia, int anio) throws SQLException {
+        String clave = secuencia.name() + ":" + anio;
+        
+        while (true) {
+            Bloque bloque = bloques.get(clave);
+            if (bloque != null) {
+                long valor = bloque.siguiente.getAndIncrement();
+                if (valor < bloque.limite) {
+                    numerosEntregados.incrementAndGet();
+                    return valor;
+                }
+            }
+            
+            // Bloque agotado o inexistente: solo un hilo reserva, los demás reintentan con el nuevo
+            synchronized (this) {
+                if (bloques.get(clave) == bloque) {
+                    bloques.put(clave, reservarBloque(secuencia, anio));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reserva un bloque de números avanzando el contador del año en una transacción
+     * Usa una conexión dedicada: en la compartida, las sentencias de otros hilos quedarían
+     * dentro de la transacción y el candado FOR UPDATE se retendría mientras corren
+     */
+    private Bloque reservarBloque(Secuencia secuencia, int anio) throws SQLException {
+        try (Connection conn = dbConnection.abrirConexionDedicada()) {
+            return reservarBloque(conn, secuencia, anio);
+        }
+    }
+    
+    private Bloque reservarBloque(Connection conn, Secuencia secuencia, int anio) throws SQLException {
+        try {
+            conn.setAutoCommit(false);
+            
+            Long inicio = leerContador(conn, secuencia, anio);
+            if (inicio == null) {
+                // Primer número del año: crear el contador (INSERT IGNORE tolera a otra instancia)
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_CREAR_CONTADOR)) {
+                    stmt.setString(1, secuencia.name());
+                    stmt.setInt(2, anio);
+                    stmt.setLong(3, valorInicial(conn, secuencia, anio));
+                    stmt.executeUpdate();
+                }
+                inicio = leerContador(conn, secuencia, anio);
+                if (inicio == null) {
+                    throw new SQLException("No se pudo crear el contador de " + secuencia.name());
+                }
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_AVANZAR_CONTADOR)) {
+                stmt.setInt(1, tamañoBloque);
+                stmt.setString(2, secuencia.name());
+                stmt.setInt(3, anio);
+                stmt.executeUpdate();
+            }
+            
+            conn.commit();
+            bloquesReservados.incrementAndGet();
+            return new Bloque(inicio, inicio + tamañoBloque);
+        
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                BITACORA.error("Error en rollback: " + rollbackEx.getMessage());
+            }
+            throw e;
+        }
+    }
+    
+    private Long leerContador(Connection conn, Secuencia secuencia, int anio) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_BLOQUEAR_CONTADOR)) {
+            stmt.setString(1, secuencia.name());
+            stmt.setInt(2, anio);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+    
+    /**
+     * Valor con el que arranca el contador de un año nuevo
+     * Los folios continúan después del último generado por el trigger anterior
+     */
+    private long valorInicial(Connection conn, Secuencia secuencia, int anio) throws SQLException {
+        if (secuencia != Secuencia.FOLIO_TRIAGE) {
+            return 1;
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_MAXIMO_FOLIO)) {
+            stmt.setString(1, String.valueOf(anio));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? Math.max(1, rs.getLong(1)) : 1;
+            }
+        }
+    }
+    
+    /**
+     * Obtiene estadísticas del generador
+     * @return Resumen de números entregados y bloques reservados
+     */
+    public String obtenerEstadisticas() {
+        return String.format("GeneradorSecuencias - Entregados: %d, Bloques reservados: %d, Tamaño de bloque: %d",
+                             numerosEntregados.get(), bloquesReservados.get(), tamañoBloque);
+    }
+}
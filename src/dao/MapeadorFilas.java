@@ -0,0 +1,170 @@
+package dao;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapeador de filas para una proyección concreta de columnas
+ * Cada subclase declara sus columnas con columna(...), que devuelve la posición lógica de la
+ * columna; con esas declaraciones se genera la lista del SELECT de la proyección
+ * Al recibir un ResultSet se resuelve una sola vez la posición real de cada columna a partir
+ * de los metadatos; después cada fila se lee por índice, sin búsquedas por nombre y sin
+ * excepciones cuando una columna opcional no forma parte de la consulta
+ * @param <R> Tipo que produce cada fila
+ */
+public abstract class MapeadorFilas<R> {
+    
+    private final List<String> expresiones = new ArrayList<>();
+    private final List<String> etiquetas = new ArrayList<>();
+    private String listaSelect;
+    
+    /**
+     * Declara una columna de la tabla; la etiqueta es el nombre sin el alias de tabla
+     * @param expresion Columna calificada, por ejemplo "rt.folio"
+     * @return Posición lógica de la columna dentro de la proyección
+     */
+    protected final int columna(String expresion) {
+        return columna(expresion, expresion.substring(expresion.lastIndexOf('.') + 1));
+    }
+    
+    /**
+     * Declara una columna calculada o de otra tabla con su etiqueta
+     * @param expresion Expresión SQL
+     * @param etiqueta Nombre con el que aparece en el ResultSet
+     * @return Posición lógica de la columna dentro de la proyección
+     */
+    protected final int columna(String expresion, String etiqueta) {
+        String etiquetaNormalizada = etiqueta.toLowerCase();
+        expresiones.add(expresion.endsWith("." + etiquetaNormalizada) || expresion.equals(etiquetaNormalizada)
+            ? expresion : expresion + " AS " + etiquetaNormalizada);
+        etiquetas.add(etiquetaNormalizada);
+        listaSelect = null;
+        return etiquetas.size() - 1;
+    }
+    
+    /**
+     * Lista de columnas para el SELECT, en el orden en que fueron declaradas
+     * @return Expresiones separadas por coma
+     */
+    public String getListaSelect() {
+        if (listaSelect == null) {
+            listaSelect = String.join(", ", expresiones);
+        }
+        return listaSelect;
+    }
+    
+    /**
+     * Construye el objeto de una fila
+     * @param fila Lector posicionado en la fila actual
+     * @return Objeto mapeado
+     * @throws SQLException si el driver falla al leer un valor
+     */
+    protected abstract R mapear(Fila fila) throws SQLException;
+    
+    /**
+     * Resuelve las posiciones de la proyección en un ResultSet
+     * Las columnas declaradas que no vienen en la consulta quedan con índice 0
+     * @param rs ResultSet de la consulta
+     * @return Lector reutilizable para todas las filas de ese ResultSet
+     * @throws SQLException si no se pueden leer los metadatos
+     */
+    public Fila resolver(ResultSet rs) throws SQLException {
+        ResultSetMetaData metadatos = rs.getMetaData();
+        int totalColumnas = metadatos.getColumnCount();
+        Map<String, Integer> porEtiqueta = new HashMap<>(totalColumnas * 2);
+        for (int i = 1; i <= totalColumnas; i++) {
+            porEtiqueta.putIfAbsent(metadatos.getColumnLabel(i).toLowerCase(), i);
+        }
+        
+        int[] indices = new int[etiquetas.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = porEtiqueta.getOrDefault(etiquetas.get(i), 0);
+        }
+        return new Fila(rs, indices);
+    }
+    
+    /**
+     * Mapea todas las filas restantes del ResultSet
+     * @param rs ResultSet recién ejecutado
+     * @return Lista de objetos en el orden de la consulta
+     * @throws SQLException si hay error al leer
+     */
+    public List<R> mapearTodas(ResultSet rs) throws SQLException {
+        List<R> resultados = new ArrayList<>();
+        Fila fila = resolver(rs);
+        while (rs.next()) {
+            resultados.add(mapear(fila));
+        }
+        return resultados;
+    }
+    
+    /**
+     * Mapea la fila actual de un ResultSet del que no se conoce la proyección
+     * Resuelve los índices en cada llamada; para listas conviene mapearTodas
+     * @param rs ResultSet posicionado en una fila
+     * @return Objeto mapeado
+     * @throws SQLException si hay error al leer
+     */
+    public R mapearFila(ResultSet rs) throws SQLException {
+        return mapear(resolver(rs));
+    }
+    
+    /**
+     * Acceso por índice a la fila actual; las columnas ausentes devuelven el valor por defecto
+     */
+    public static final class Fila {
+        private final ResultSet rs;
+        private final int[] indices;
+        
+        private Fila(ResultSet rs, int[] indices) {
+            this.rs = rs;
+            this.indices = indices;
+        }
+        
+        public boolean tiene(int columna) {
+            return indices[columna] > 0;
+        }
+        
+        public int entero(int columna) throws SQLException {
+            int indice = indices[columna];
+            return indice > 0 ? rs.getInt(indice) : 0;
+        }
+        
+        public double decimal(int columna) throws SQLException {
+            int indice = indices[columna];
+            return indice > 0 ? rs.getDouble(indice) : 0.0;
+        }
+        
+        public String texto(int columna) throws SQLException {
+            int indice = indices[columna];
+            return indice > 0 ? rs.getString(indice) : null;
+        }
+        
+        public LocalDate fecha(int columna) throws SQLException {
+            int indice = indices[columna];
+            if (indice == 0) {
+                return null;
+            }
+            Date valor = rs.getDate(indice);
+            return valor != null ? valor.toLocalDate() : null;
+        }
+        
+        public LocalDateTime fechaHora(int columna) throws SQLException {
+            int indice = indices[columna];
+            if (indice == 0) {
+                return null;
+            }
+            Timestamp valor = rs.getTimestamp(indice);
+            return valor != null ? valor.toLocalDateTime() : null;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package dao;
 
 import models.Paciente;
+import models.FilaPaciente;
 import models.EstadoPaciente;
 import models.TipoAlta;
+import structures.FiltroBloom;
+import utils.Bitacora;
+import utils.DatabaseConnection;
+import utils.RutaConsulta;
 import utils.ValidationUtils;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * DAO para la gestión de pacientes en el sistema hospitalario
@@ -17,6 +27,8 @@ import java.util.ArrayList;
  */
 public class PacienteDAO extends BaseDAO<Paciente> {
     
+    private static final Bitacora BITACORA = Bitacora.de(PacienteDAO.class);
+    
     private static final String TABLA = "pacientes";
     
     // Consultas SQL predefinidas
@@ -45,6 +57,16 @@ public class PacienteDAO extends BaseDAO<Paciente> {
     private static final String SQL_OBTENER_TODOS = 
         "SELECT * FROM " + TABLA + " ORDER BY nombre, apellido_paterno, apellido_materno";
     
+    // Usa idx_pacientes_fecha_registro (el índice incluye el id, que desempata)
+    private static final String SQL_OBTENER_RECIENTES = 
+        "SELECT * FROM " + TABLA + " ORDER BY fecha_registro DESC, id DESC LIMIT ?";
+    
+    // Proyección de fila compacta para las listas de pacientes
+    private static final MapeadorFilaPaciente FILA_PACIENTE = new MapeadorFilaPaciente();
+    
+    private static final String SQL_OBTENER_FILAS_RECIENTES = 
+        "SELECT " + FILA_PACIENTE.getListaSelect() + " FROM " + TABLA + " ORDER BY fecha_registro DESC, id DESC LIMIT ?";
+    
     private static final String SQL_BUSCAR_POR_CURP = 
         "SELECT * FROM " + TABLA + " WHERE curp = ?";
     
@@ -79,9 +101,32 @@ public class PacienteDAO extends BaseDAO<Paciente> {
         "SELECT * FROM " + TABLA + " WHERE DATE(fecha_registro) BETWEEN ? AND ? " +
         "ORDER BY fecha_registro DESC";
     
-    // Temporalmente desactivado - numero_expediente no existe en la tabla actual
-    private static final String SQL_GENERAR_NUMERO_EXPEDIENTE = 
-        "SELECT CONCAT('EXP-', YEAR(CURDATE()), '-', LPAD(1, 6, '0')) as numero_expediente";
+    private static final String SQL_EXISTE_CURP = 
+        "SELECT 1 FROM " + TABLA + " WHERE curp = ? LIMIT 1";
+    
+    private static final String SQL_EXISTE_RFC = 
+        "SELECT 1 FROM " + TABLA + " WHERE rfc = ? LIMIT 1";
+    
+    private static final String SQL_EXISTE_ID = 
+        "SELECT 1 FROM " + TABLA + " WHERE id = ? LIMIT 1";
+    
+    private static final String SQL_CARGAR_CLAVES = 
+        "SELECT id, curp, rfc FROM " + TABLA + " WHERE id > ?";
+    
+    // Filtros de Bloom compartidos por todas las instancias: permiten responder "no existe"
+    // sin consultar la base de datos; solo los posibles positivos llegan a MySQL
+    private static final double TASA_FALSOS_POSITIVOS = 0.01;
+    private static final int CAPACIDAD_MINIMA_FILTROS = 10000;
+    private static volatile FiltroBloom filtroCurp;
+    private static volatile FiltroBloom filtroRfc;
+    private static volatile FiltroBloom filtroExpediente;
+    // Los pacientes que registran otras estaciones se agregan leyendo id > ultimoIdFiltros;
+    // la recarga completa periódica recoge los CURP y RFC modificados con UPDATE
+    private static final long INTERVALO_REFRESCO_FILTROS_MS = 2000;
+    private static final long RECARGA_COMPLETA_FILTROS_MS = 10 * 60 * 1000;
+    private static int ultimoIdFiltros;
+    private static volatile long ultimoRefrescoFiltros;
+    private static volatile long ultimaCargaFiltros;
     
     /**
      * Inserta un nuevo paciente en la base de datos
@@ -93,12 +138,11 @@ public class PacienteDAO extends BaseDAO<Paciente> {
     public boolean insertar(Paciente paciente) throws SQLException {
         validarPaciente(paciente);
         
-        // Generar número de expediente si no se proporciona
-        if (paciente.getNumeroExpediente() == null || paciente.getNumeroExpediente().isEmpty()) {
-            String numeroExpediente = generarNumeroExpediente();
-            paciente.setNumeroExpediente(numeroExpediente);
-        } else {
-            // Verificar que el número de expediente no exista
+        // Los filtros deben incluir las altas de otras estaciones antes de descartar duplicados
+        refrescarFiltrosExistencia();
+        
+        // Verificar que el número de expediente no exista (si no se proporciona se asigna al insertar)
+        if (paciente.getNumeroExpediente() != null && !paciente.getNumeroExpediente().isEmpty()) {
             if (existeNumeroExpediente(paciente.getNumeroExpediente())) {
                 throw new SQLException("El número de expediente '" + 
                                      paciente.getNumeroExpediente() + "' ya existe");
@@ -142,12 +186,186 @@ public class PacienteDAO extends BaseDAO<Paciente> {
         
         if (idGenerado > 0) {
             paciente.setId(idGenerado);
+            // Mientras la tabla no tenga columna numero_expediente, el expediente es el ID,
+            // igual que lo devuelve mapearResultSet al leer el paciente
+            paciente.setNumeroExpediente("EXP-" + idGenerado);
+            registrarEnFiltros(paciente);
             return true;
         }
         
         return false;
     }
     
+    /**
+     * Inserta varios pacientes ya validados usando lotes JDBC
+     * Cada lote se confirma en su propia transacción; no consulta duplicados fila por fila,
+     * por lo que el llamador debe filtrar antes los CURP existentes (ver obtenerCurpsExistentes)
+     * A cada paciente insertado se le asignan su ID generado y su número de expediente
+     * @param pacientes Pacientes a insertar
+     * @param tamañoLote Número de filas por lote y por transacción
+     * @return Número de pacientes insertados
+     * @throws SQLException si falla un lote (los lotes anteriores quedan confirmados)
+     */
+    public int insertarEnLote(List<Paciente> pacientes, int tamañoLote) throws SQLException {
+        if (pacientes == null || pacientes.isEmpty()) {
+            return 0;
+        }
+        
+        try (Connection conn = DatabaseConnection.getInstance().abrirConexionDedicada()) {
+            return insertarEnLote(conn, pacientes, tamañoLote);
+        }
+    }
+    
+    /**
+     * Inserta varios pacientes en lotes sobre una conexión dedicada (ver insertarEnLote(List, int))
+     * Las transacciones por lote no deben correr en la conexión compartida: un rollback desharía
+     * también las escrituras que otros hilos hicieran en ella entre tanto
+     * @param conn Conexión dedicada, de DatabaseConnection.abrirConexionDedicada() (no se cierra)
+     * @param pacientes Pacientes a insertar
+     * @param tamañoLote Número de filas por lote y por transacción
+     * @return Número de pacientes insertados
+     * @throws SQLException si falla un lote (los lotes anteriores quedan confirmados)
+     */
+    public int insertarEnLote(Connection conn, List<Paciente> pacientes, int tamañoLote) throws SQLException {
+        if (pacientes == null || pacientes.isEmpty()) {
+            return 0;
+        }
+        
+        if (tamañoLote <= 0) {
+            throw new IllegalArgumentException("Tamaño de lote inválido");
+        }
+        
+        PreparedStatement stmt = null;
+        int insertados = 0;
+        
+        try {
+            conn.setAutoCommit(false);
+            stmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS);
+            int enLote = 0;
+            
+            for (Paciente paciente : pacientes) {
+                stmt.setString(1, paciente.getNombre());
+                stmt.setString(2, paciente.getApellidoPaterno());
+                stmt.setString(3, paciente.getApellidoMaterno());
+                stmt.setDate(4, Date.valueOf(paciente.getFechaNacimiento()));
+                stmt.setString(5, paciente.getSexo());
+                stmt.setString(6, paciente.getCurp());
+                stmt.setString(7, paciente.getRfc());
+                stmt.setString(8, paciente.getTelefonoPrincipal());
+                stmt.setString(9, paciente.getEmail());
+                stmt.setString(10, paciente.getDireccionCalle());
+                stmt.setString(11, paciente.getDireccionNumero());
+                stmt.setString(12, paciente.getDireccionColonia());
+                stmt.setString(13, paciente.getDireccionCiudad());
+                stmt.setString(14, paciente.getDireccionEstado());
+                stmt.setString(15, paciente.getDireccionCp());
+                stmt.setString(16, paciente.getContactoEmergenciaNombre());
+                stmt.setString(17, paciente.getContactoEmergenciaTelefono());
+                stmt.setString(18, paciente.getContactoEmergenciaRelacion());
+                stmt.setString(19, paciente.getSeguroMedico());
+                stmt.setString(20, paciente.getNumeroPoliza());
+                stmt.addBatch();
+                
+                if (++enLote == tamañoLote) {
+                    stmt.executeBatch();
+                    asignarClavesGeneradas(stmt, pacientes.subList(insertados, insertados + enLote));
+                    conn.commit();
+                    registrarEnFiltros(pacientes.subList(insertados, insertados + enLote));
+                    insertados += enLote;
+                    enLote = 0;
+                }
+            }
+            
+            if (enLote > 0) {
+                stmt.executeBatch();
+                asignarClavesGeneradas(stmt, pacientes.subList(insertados, insertados + enLote));
+                conn.commit();
+                registrarEnFiltros(pacientes.subList(insertados, insertados + enLote));
+                insertados += enLote;
+            }
+            
+            return insertados;
+        
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                BITACORA.error("Error en rollback: " + rollbackEx.getMessage());
+            }
+            throw new SQLException("Error en lote de pacientes tras " + insertados + " insertados: " +
+                                   e.getMessage(), e);
+        } finally {
+            cerrarRecursos(stmt);
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                BITACORA.error("Error restaurando autocommit: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Asigna a los pacientes de un lote confirmado los IDs generados, en el orden del lote
+     * (con rewriteBatchedStatements el INSERT de varias filas devuelve una clave por fila)
+     */
+    private static void asignarClavesGeneradas(PreparedStatement stmt, List<Paciente> lote) throws SQLException {
+        try (ResultSet claves = stmt.getGeneratedKeys()) {
+            for (Paciente paciente : lote) {
+                if (!claves.next()) {
+                    break;
+                }
+                int id = claves.getInt(1);
+                paciente.setId(id);
+                paciente.setNumeroExpediente("EXP-" + id);
+            }
+        }
+    }
+    
+    /**
+     * Obtiene cuáles de los CURP dados ya están registrados, con una consulta IN por bloque
+     * @param curps CURP a verificar
+     * @return Conjunto con los CURP que ya existen en la base de datos
+     * @throws SQLException si hay error en la operación
+     */
+    public Set<String> obtenerCurpsExistentes(Collection<String> curps) throws SQLException {
+        Set<String> existentes = new HashSet<>();
+        if (curps == null || curps.isEmpty()) {
+            return existentes;
+        }
+        
+        final int bloque = 500;
+        
+        // Solo se consultan los CURP que el filtro no descarta; antes se agregan las altas de otras estaciones
+        refrescarFiltrosExistencia();
+        FiltroBloom filtro = obtenerFiltroCurp();
+        List<String> pendientes = new ArrayList<>(curps.size());
+        for (String curp : curps) {
+            if (filtro == null || filtro.podriaContener(claveFiltro(curp))) {
+                pendientes.add(curp);
+            }
+        }
+        Connection conn = getConnection();
+        
+        for (int inicio = 0; inicio < pendientes.size(); inicio += bloque) {
+            List<String> parte = pendientes.subList(inicio, Math.min(inicio + bloque, pendientes.size()));
+            String marcadores = String.join(", ", Collections.nCopies(parte.size(), "?"));
+            String sql = "SELECT curp FROM " + TABLA + " WHERE curp IN (" + marcadores + ")";
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < parte.size(); i++) {
+                    stmt.setString(i + 1, parte.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existentes.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        
+        return existentes;
+    }
+    
     /**
      * Actualiza un paciente existente
      * @param paciente Paciente a actualizar
@@ -169,14 +387,19 @@ public class PacienteDAO extends BaseDAO<Paciente> {
                                  paciente.getNumeroExpediente() + "' ya existe");
         }
         
-        // Verificar que el CURP no esté en uso por otro paciente
-        existente = buscarPorCurp(paciente.getCurp());
+        // Verificar que el CURP no esté en uso por otro paciente (el filtro descarta los CURP nuevos)
+        refrescarFiltrosExistencia();
+        FiltroBloom filtro = obtenerFiltroCurp();
+        existente = filtro == null || filtro.podriaContener(claveFiltro(paciente.getCurp()))
+            ? buscarPorCurp(paciente.getCurp()) : null;
         if (existente != null && existente.getId() != paciente.getId()) {
             throw new SQLException("El CURP '" + paciente.getCurp() + "' ya está registrado");
         }
         
         // Verificar RFC si se proporciona
-        if (paciente.getRfc() != null && !paciente.getRfc().isEmpty()) {
+        filtro = obtenerFiltroRfc();
+        if (paciente.getRfc() != null && !paciente.getRfc().isEmpty()
+                && (filtro == null || filtro.podriaContener(claveFiltro(paciente.getRfc())))) {
             existente = buscarPorRfc(paciente.getRfc());
             if (existente != null && existente.getId() != paciente.getId()) {
                 throw new SQLException("El RFC '" + paciente.getRfc() + "' ya está registrado");
@@ -206,6 +429,10 @@ public class PacienteDAO extends BaseDAO<Paciente> {
             paciente.getId()
         );
         
+        if (filasActualizadas > 0) {
+            registrarEnFiltros(paciente);
+        }
+        
         return filasActualizadas > 0;
     }
     
@@ -250,6 +477,33 @@ public class PacienteDAO extends BaseDAO<Paciente> {
         return ejecutarConsulta(SQL_OBTENER_TODOS);
     }
     
+    /**
+     * Obtiene los pacientes registrados más recientemente
+     * @param limite Número máximo de pacientes
+     * @return Lista del más reciente al más antiguo
+     * @throws SQLException si hay error en la operación
+     */
+    public List<Paciente> obtenerRecientes(int limite) throws SQLException {
+        if (limite <= 0) {
+            return new ArrayList<>();
+        }
+        return ejecutarConsulta(SQL_OBTENER_RECIENTES, limite);
+    }
+    
+    /**
+     * Obtiene los pacientes más recientes como filas compactas para listas
+     * Solo selecciona las columnas que muestran las tablas de pacientes
+     * @param limite Número máximo de filas
+     * @return Lista del más reciente al más antiguo
+     * @throws SQLException si hay error en la operación
+     */
+    public List<FilaPaciente> obtenerFilasRecientes(int limite) throws SQLException {
+        if (limite <= 0) {
+            return new ArrayList<>();
+        }
+        return ejecutarConsulta(FILA_PACIENTE, SQL_OBTENER_FILAS_RECIENTES, limite);
+    }
+    
     /**
      * Busca un paciente por número de expediente
      * @param numeroExpediente Número de expediente a buscar
@@ -426,33 +680,6 @@ public class PacienteDAO extends BaseDAO<Paciente> {
             convertirADate(fechaInicio), convertirADate(fechaFin));
     }
     
-    /**
-     * Genera un nuevo número de expediente único
-     * @return Número de expediente generado
-     * @throws SQLException si hay error en la operación
-     */
-    public String generarNumeroExpediente() throws SQLException {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-        
-        try {
-            conn = getConnection();
-            stmt = conn.prepareStatement(SQL_GENERAR_NUMERO_EXPEDIENTE);
-            rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getString(1);
-            } else {
-                // Fallback si no hay registros previos
-                return "EXP-" + java.time.Year.now().getValue() + "-000001";
-            }
-            
-        } finally {
-            cerrarRecursos(rs, stmt, conn);
-        }
-    }
-    
     /**
      * Verifica si existe un número de expediente
      * @param numeroExpediente Número de expediente a verificar
@@ -464,8 +691,22 @@ public class PacienteDAO extends BaseDAO<Paciente> {
             return false;
         }
         
-        Paciente paciente = buscarPorNumeroExpediente(numeroExpediente.trim());
-        return paciente != null;
+        String valor = numeroExpediente.trim();
+        FiltroBloom filtro = obtenerFiltroExpediente();
+        if (filtro != null && !filtro.podriaContener(claveFiltro(valor))) {
+            return false;
+        }
+        
+        // Los expedientes se derivan del ID ("EXP-" + id); se verifica sin materializar el paciente
+        if (valor.startsWith("EXP-") && valor.length() > 4 && valor.substring(4).chars().allMatch(Character::isDigit)) {
+            try {
+                return existeValor(SQL_EXISTE_ID, Integer.parseInt(valor.substring(4)));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        
+        return buscarPorNumeroExpediente(valor) != null;
     }
     
     /**
@@ -479,8 +720,12 @@ public class PacienteDAO extends BaseDAO<Paciente> {
             return false;
         }
         
-        Paciente paciente = buscarPorCurp(curp.trim());
-        return paciente != null;
+        FiltroBloom filtro = obtenerFiltroCurp();
+        if (filtro != null && !filtro.podriaContener(claveFiltro(curp))) {
+            return false;
+        }
+        
+        return existeValor(SQL_EXISTE_CURP, curp.trim());
     }
     
     /**
@@ -494,8 +739,209 @@ public class PacienteDAO extends BaseDAO<Paciente> {
             return false;
         }
         
-        Paciente paciente = buscarPorRfc(rfc.trim());
-        return paciente != null;
+        FiltroBloom filtro = obtenerFiltroRfc();
+        if (filtro != null && !filtro.podriaContener(claveFiltro(rfc))) {
+            return false;
+        }
+        
+        return existeValor(SQL_EXISTE_RFC, rfc.trim());
+    }
+    
+    /**
+     * Carga los filtros de Bloom de CURP, RFC y número de expediente con los pacientes existentes
+     * Se llama al iniciar la aplicación; si falla, las verificaciones consultan directamente la base de datos
+     * @return true si los filtros quedaron cargados
+     */
+    public boolean cargarFiltrosExistencia() {
+        synchronized (PacienteDAO.class) {
+            List<Object[]> claves = new ArrayList<>();
+            try {
+                leerClaves(0, claves);
+            } catch (SQLException e) {
+                BITACORA.error("Error al cargar filtros de existencia: " + e.getMessage());
+                return false;
+            }
+            
+            // Dimensionar con margen para las inserciones futuras
+            long capacidad = Math.max(CAPACIDAD_MINIMA_FILTROS, claves.size() * 2L);
+            FiltroBloom curps = new FiltroBloom(capacidad, TASA_FALSOS_POSITIVOS);
+            FiltroBloom rfcs = new FiltroBloom(capacidad, TASA_FALSOS_POSITIVOS);
+            FiltroBloom expedientes = new FiltroBloom(capacidad, TASA_FALSOS_POSITIVOS);
+            int ultimoId = agregarClaves(claves, curps, rfcs, expedientes);
+            
+            long ahora = System.currentTimeMillis();
+            ultimoIdFiltros = ultimoId;
+            ultimaCargaFiltros = ahora;
+            ultimoRefrescoFiltros = ahora;
+            filtroCurp = curps;
+            filtroRfc = rfcs;
+            filtroExpediente = expedientes;
+            BITACORA.info("Filtros de existencia cargados", "pacientes", claves.size());
+            return true;
+        }
+    }
+    
+    /**
+     * Carga los filtros de existencia en un hilo aparte para que la primera búsqueda no espere
+     * Se llama al iniciar la aplicación cuando hay conexión con la base de datos
+     */
+    public static void cargarFiltrosEnSegundoPlano() {
+        Thread hilo = new Thread(() -> new PacienteDAO().cargarFiltrosExistencia(), "carga-filtros-pacientes");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    /**
+     * Agrega a los filtros los pacientes insertados desde la última carga, incluidos los
+     * de otras estaciones (id mayor al último cargado)
+     * Debe llamarse antes de descartar un valor por el filtro cuando el resultado decide una escritura
+     * @return true si los filtros están al día; false si no hay filtros o falló la consulta
+     */
+    public boolean refrescarFiltrosExistencia() {
+        synchronized (PacienteDAO.class) {
+            if (filtroCurp == null || filtroRfc == null || filtroExpediente == null) {
+                return false;
+            }
+            
+            List<Object[]> claves = new ArrayList<>();
+            try {
+                leerClaves(ultimoIdFiltros, claves);
+            } catch (SQLException e) {
+                BITACORA.aviso("No se pudieron refrescar los filtros de existencia: " + e.getMessage());
+                return false;
+            }
+            
+            int ultimoId = agregarClaves(claves, filtroCurp, filtroRfc, filtroExpediente);
+            ultimoIdFiltros = Math.max(ultimoIdFiltros, ultimoId);
+            ultimoRefrescoFiltros = System.currentTimeMillis();
+            if (filtroCurp.estaSaturado() || filtroRfc.estaSaturado() || filtroExpediente.estaSaturado()) {
+                filtroCurp = null;
+            }
+            return filtroCurp != null;
+        }
+    }
+    
+    private void leerClaves(int desdeId, List<Object[]> claves) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(SQL_CARGAR_CLAVES);
+            stmt.setInt(1, desdeId);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                claves.add(new Object[] { rs.getInt(1), rs.getString(2), rs.getString(3) });
+            }
+        } finally {
+            cerrarRecursos(rs, stmt, conn);
+        }
+    }
+    
+    private static int agregarClaves(List<Object[]> claves, FiltroBloom curps, FiltroBloom rfcs,
+                                     FiltroBloom expedientes) {
+        int ultimoId = 0;
+        for (Object[] fila : claves) {
+            int id = (Integer) fila[0];
+            ultimoId = Math.max(ultimoId, id);
+            expedientes.agregar(claveFiltro("EXP-" + id));
+            if (fila[1] != null) {
+                curps.agregar(claveFiltro((String) fila[1]));
+            }
+            if (fila[2] != null) {
+                rfcs.agregar(claveFiltro((String) fila[2]));
+            }
+        }
+        return ultimoId;
+    }
+    
+    /**
+     * Forma con la que se guardan y se buscan las claves en los filtros; MySQL compara CURP y RFC
+     * sin distinguir mayúsculas, así que "abc" y "ABC " deben caer en los mismos bits
+     */
+    private static String claveFiltro(String valor) {
+        return valor.trim().toUpperCase(Locale.ROOT);
+    }
+    
+    /**
+     * Agrega las claves de un paciente recién guardado a los filtros
+     */
+    private void registrarEnFiltros(Paciente paciente) {
+        FiltroBloom curps = filtroCurp;
+        FiltroBloom rfcs = filtroRfc;
+        FiltroBloom expedientes = filtroExpediente;
+        if (curps == null || rfcs == null || expedientes == null) {
+            return;
+        }
+        
+        if (paciente.getCurp() != null) {
+            curps.agregar(claveFiltro(paciente.getCurp()));
+        }
+        if (paciente.getRfc() != null) {
+            rfcs.agregar(claveFiltro(paciente.getRfc()));
+        }
+        if (paciente.getId() > 0) {
+            expedientes.agregar(claveFiltro("EXP-" + paciente.getId()));
+        }
+        
+        // Al superar la capacidad la tasa de falsos positivos crece: reconstruir en la siguiente consulta
+        if (curps.estaSaturado() || rfcs.estaSaturado() || expedientes.estaSaturado()) {
+            filtroCurp = null;
+        }
+    }
+    
+    private void registrarEnFiltros(List<Paciente> pacientes) {
+        for (Paciente paciente : pacientes) {
+            registrarEnFiltros(paciente);
+        }
+    }
+    
+    /**
+     * Indica si los filtros pueden usarse para descartar valores: los carga si faltan, los
+     * reconstruye cada RECARGA_COMPLETA_FILTROS_MS (CURP o RFC modificados en otras estaciones)
+     * y agrega las altas nuevas cada INTERVALO_REFRESCO_FILTROS_MS
+     */
+    private boolean filtrosVigentes() {
+        long ahora = System.currentTimeMillis();
+        if (filtroCurp == null || ahora - ultimaCargaFiltros > RECARGA_COMPLETA_FILTROS_MS) {
+            return cargarFiltrosExistencia();
+        }
+        if (ahora - ultimoRefrescoFiltros > INTERVALO_REFRESCO_FILTROS_MS) {
+            return refrescarFiltrosExistencia();
+        }
+        return true;
+    }
+    
+    private FiltroBloom obtenerFiltroCurp() {
+        return filtrosVigentes() ? filtroCurp : null;
+    }
+    
+    private FiltroBloom obtenerFiltroRfc() {
+        return filtrosVigentes() ? filtroRfc : null;
+    }
+    
+    private FiltroBloom obtenerFiltroExpediente() {
+        return filtrosVigentes() ? filtroExpediente : null;
+    }
+    
+    /**
+     * Ejecuta una consulta SELECT 1 ... LIMIT 1 sin mapear entidades
+     */
+    private boolean existeValor(String sql, Object valor) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setObject(1, valor);
+            rs = stmt.executeQuery();
+            return rs.next();
+        } finally {
+            cerrarRecursos(rs, stmt, conn);
+        }
     }
     
     /**
@@ -699,8 +1145,8 @@ public class PacienteDAO extends BaseDAO<Paciente> {
     }
     
     public List<ConteoGenero> contarPorGenero() throws SQLException {
-        String sql = "SELECT genero, COUNT(*) as conteo FROM " + TABLA + 
-                    " GROUP BY genero";
+        String sql = "SELECT sexo AS genero, COUNT(*) as conteo FROM " + TABLA + 
+                    " GROUP BY sexo";
         List<ConteoGenero> conteos = new ArrayList<>();
         
         try (Connection conn = getConnection();
@@ -729,19 +1175,15 @@ public class PacienteDAO extends BaseDAO<Paciente> {
                     "FROM " + TABLA + " " +
                     "GROUP BY rango_edad";
         
-        List<ConteoEdad> conteos = new ArrayList<>();
-        
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            
+        return ejecutarLectura(RutaConsulta.REPLICA, rs -> {
+            List<ConteoEdad> conteos = new ArrayList<>();
             while (rs.next()) {
                 String rangoEdad = rs.getString("rango_edad");
                 int conteo = rs.getInt("conteo");
                 conteos.add(new ConteoEdad(rangoEdad, conteo));
             }
-        }
-        return conteos;
+            return conteos;
+        }, sql);
     }
     
     public List<Paciente> buscarPorFechaNacimiento(LocalDate fechaNacimiento) throws SQLException {
@@ -937,7 +1379,7 @@ public class PacienteDAO extends BaseDAO<Paciente> {
         try {
             return buscarPorId(id);
         } catch (SQLException e) {
-            System.err.println("Error al obtener paciente por ID: " + e.getMessage());
+            BITACORA.error("Error al obtener paciente por ID: " + e.getMessage());
             return null;
         }
     }
@@ -957,9 +1399,34 @@ public class PacienteDAO extends BaseDAO<Paciente> {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error al obtener paciente por CURP: " + e.getMessage());
+            BITACORA.error("Error al obtener paciente por CURP: " + e.getMessage());
         }
         
         return null;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Proyección de fila de paciente: ID, nombre, fecha de nacimiento y teléfono
+     * El expediente y el estado siguen las mismas reglas que mapearResultSet
+     */
+    private static final class MapeadorFilaPaciente extends MapeadorFilas<FilaPaciente> {
+        private final int id = columna("id");
+        private final int nombreCompleto = columna(
+            "CONCAT_WS(' ', nombre, apellido_paterno, NULLIF(TRIM(apellido_materno), ''))", "nombre_completo");
+        private final int fechaNacimiento = columna("fecha_nacimiento");
+        private final int telefono = columna("telefono_principal");
+        
+        @Override
+        protected FilaPaciente mapear(Fila fila) throws SQLException {
+            int idPaciente = fila.entero(id);
+            return new FilaPaciente(
+                idPaciente,
+                "EXP-" + idPaciente, // Igual que mapearResultSet: el ID funciona como expediente temporal
+                fila.texto(nombreCompleto),
+                FilaPaciente.diaEpoch(fila.fecha(fechaNacimiento)),
+                fila.texto(telefono),
+                true // estado_actual no existe en el esquema actual; mapearResultSet usa REGISTRADO
+            );
+        }
+    }
+}
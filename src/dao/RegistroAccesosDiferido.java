@@ -0,0 +1,274 @@
+package dao;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import utils.Bitacora;
+
+/**
+ * Escritura diferida (write-behind) del último acceso de los usuarios
+ * Los inicios de sesión sólo registran el acceso en memoria; los accesos del mismo
+ * usuario se combinan y se escriben en lote cada cierto tiempo o al acumular
+ * suficientes entradas, evitando un UPDATE síncrono por cada login
+ */
+public class RegistroAccesosDiferido {
+    
+    private static final Bitacora BITACORA = Bitacora.de(RegistroAccesosDiferido.class);
+    
+    // Intervalo de vaciado periódico y número de entradas que fuerza un vaciado
+    public static final int INTERVALO_VACIADO_SEGUNDOS = 5;
+    public static final int MAX_ENTRADAS_PENDIENTES = 50;
+    
+    private static volatile RegistroAccesosDiferido instance;
+    
+    private final UsuarioDAO usuarioDAO;
+    private final ConcurrentHashMap<Integer, LocalDateTime> pendientes;
+    private final ScheduledExecutorService planificador;
+    private final AtomicBoolean vaciadoSolicitado;
+    private final int maxEntradas;
+    
+    // Métricas
+    private final AtomicLong totalRegistrados = new AtomicLong();
+    private final AtomicLong totalCombinados = new AtomicLong();
+    private final AtomicLong totalVaciados = new AtomicLong();
+    private final AtomicLong totalFilasEscritas = new AtomicLong();
+    private final AtomicLong totalErrores = new AtomicLong();
+    private final AtomicLong ultimaLatenciaNanos = new AtomicLong();
+    private final AtomicLong maximaLatenciaNanos = new AtomicLong();
+    private final AtomicLong sumaLatenciaNanos = new AtomicLong();
+    private volatile boolean detenido = false;
+    
+    // Los registros toman la lectura (no se bloquean entre sí); detener() toma la escritura para
+    // que ningún acceso quede en la cola después del último vaciado
+    private final ReadWriteLock cierre = new ReentrantReadWriteLock();
+    
+    private RegistroAccesosDiferido() {
+        this(new UsuarioDAO(), INTERVALO_VACIADO_SEGUNDOS, MAX_ENTRADAS_PENDIENTES);
+    }
+    
+    /**
+     * Constructor con parámetros de vaciado configurables
+     * @param usuarioDAO DAO usado para escribir los lotes
+     * @param intervaloSegundos Segundos entre vaciados periódicos
+     * @param maxEntradas Entradas pendientes que disparan un vaciado inmediato
+     */
+    RegistroAccesosDiferido(UsuarioDAO usuarioDAO, int intervaloSegundos, int maxEntradas) {
+        this.usuarioDAO = usuarioDAO;
+        this.pendientes = new ConcurrentHashMap<>();
+        this.vaciadoSolicitado = new AtomicBoolean(false);
+        this.maxEntradas = maxEntradas;
+        this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "accesos-write-behind");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.planificador.scheduleWithFixedDelay(this::vaciar,
+            intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Obtiene la instancia única del registro diferido
+     * @return Instancia de RegistroAccesosDiferido
+     */
+    public static RegistroAccesosDiferido getInstance() {
+        if (instance == null) {
+            synchronized (RegistroAccesosDiferido.class) {
+                if (instance == null) {
+                    instance = new RegistroAccesosDiferido();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Registra un acceso pendiente de escritura
+     * Si el usuario ya tenía un acceso pendiente se conserva el más reciente
+     * @param usuarioId ID del usuario
+     * @param fechaAcceso Fecha y hora del acceso
+     */
+    public void registrarAcceso(int usuarioId, LocalDateTime fechaAcceso) {
+        if (usuarioId <= 0) {
+            throw new IllegalArgumentException("ID de usuario inválido");
+        }
+        
+        if (fechaAcceso == null) {
+            fechaAcceso = LocalDateTime.now();
+        }
+        
+        cierre.readLock().lock();
+        try {
+            if (!detenido) {
+                encolar(usuarioId, fechaAcceso);
+                return;
+            }
+        } finally {
+            cierre.readLock().unlock();
+        }
+        
+        // Ya no hay hilo de vaciado: escribir directamente
+        try {
+            usuarioDAO.actualizarUltimoAcceso(usuarioId, fechaAcceso);
+        } catch (Exception e) {
+            BITACORA.error("Error al actualizar último acceso: " + e.getMessage());
+        }
+    }
+    
+    private void encolar(int usuarioId, LocalDateTime fechaAcceso) {
+        totalRegistrados.incrementAndGet();
+        LocalDateTime anterior = pendientes.put(usuarioId, fechaAcceso);
+        if (anterior != null) {
+            totalCombinados.incrementAndGet();
+            if (anterior.isAfter(fechaAcceso)) {
+                pendientes.merge(usuarioId, anterior, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        
+        if (pendientes.size() >= maxEntradas && vaciadoSolicitado.compareAndSet(false, true)) {
+            try {
+                planificador.execute(this::vaciar);
+            } catch (RejectedExecutionException e) {
+                // Planificador detenido: el acceso ya está en la cola y lo escribe el vaciado final de detener()
+                vaciadoSolicitado.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Escribe en un solo lote todos los accesos pendientes
+     * Si la escritura falla, los accesos se devuelven a la cola sin sobrescribir otros más recientes
+     * @return Número de filas actualizadas
+     */
+    public synchronized int vaciar() {
+        vaciadoSolicitado.set(false);
+        
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        
+        // Tomar las entradas actuales; las que lleguen después quedan para el siguiente lote
+        Map<Integer, LocalDateTime> lote = new HashMap<>();
+        for (Integer usuarioId : pendientes.keySet()) {
+            LocalDateTime fecha = pendientes.remove(usuarioId);
+            if (fecha != null) {
+                lote.put(usuarioId, fecha);
+            }
+        }
+        
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        
+        long inicio = System.nanoTime();
+        try {
+            int filas = usuarioDAO.actualizarUltimoAccesoEnLote(lote);
+            registrarLatencia(System.nanoTime() - inicio);
+            totalVaciados.incrementAndGet();
+            totalFilasEscritas.addAndGet(filas);
+            return filas;
+        } catch (Exception e) {
+            totalErrores.incrementAndGet();
+            BITACORA.error("Error al escribir lote de últimos accesos: " + e.getMessage());
+            for (Map.Entry<Integer, LocalDateTime> acceso : lote.entrySet()) {
+                pendientes.merge(acceso.getKey(), acceso.getValue(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+            return 0;
+        }
+    }
+    
+    /**
+     * Vacía los accesos pendientes y detiene el hilo de escritura
+     * Debe llamarse al cerrar la aplicación, antes de cerrar la conexión a la base de datos
+     */
+    public void detener() {
+        // Esperar a los registros en curso: los que lleguen después escriben directamente
+        cierre.writeLock().lock();
+        try {
+            detenido = true;
+        } finally {
+            cierre.writeLock().unlock();
+        }
+        planificador.shutdown();
+        try {
+            planificador.awaitTermination(INTERVALO_VACIADO_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        vaciar();
+    }
+    
+    /**
+     * Vacía y detiene la instancia única solo si fue creada
+     */
+    public static void detenerSiActivo() {
+        RegistroAccesosDiferido actual = instance;
+        if (actual != null) {
+            actual.detener();
+        }
+    }
+    
+    private void registrarLatencia(long nanos) {
+        ultimaLatenciaNanos.set(nanos);
+        sumaLatenciaNanos.addAndGet(nanos);
+        maximaLatenciaNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    /**
+     * Obtiene la profundidad actual de la cola de accesos pendientes
+     * @return Número de usuarios con acceso pendiente de escribir
+     */
+    public int getProfundidadCola() {
+        return pendientes.size();
+    }
+    
+    /**
+     * Obtiene las métricas del registro diferido
+     * @return Estadísticas de cola y latencia de vaciado
+     */
+    public EstadisticasEscritura obtenerEstadisticas() {
+        EstadisticasEscritura stats = new EstadisticasEscritura();
+        stats.profundidadCola = pendientes.size();
+        stats.accesosRegistrados = totalRegistrados.get();
+        stats.accesosCombinados = totalCombinados.get();
+        stats.lotesEscritos = totalVaciados.get();
+        stats.filasEscritas = totalFilasEscritas.get();
+        stats.errores = totalErrores.get();
+        stats.ultimaLatenciaMs = ultimaLatenciaNanos.get() / 1_000_000.0;
+        stats.maximaLatenciaMs = maximaLatenciaNanos.get() / 1_000_000.0;
+        stats.promedioLatenciaMs = stats.lotesEscritos > 0
+            ? sumaLatenciaNanos.get() / 1_000_000.0 / stats.lotesEscritos : 0.0;
+        return stats;
+    }
+    
+    /**
+     * Clase para métricas de la escritura diferida
+     */
+    public static class EstadisticasEscritura {
+        public int profundidadCola;
+        public long accesosRegistrados;
+        public long accesosCombinados;
+        public long lotesEscritos;
+        public long filasEscritas;
+        public long errores;
+        public double ultimaLatenciaMs;
+        public double promedioLatenciaMs;
+        public double maximaLatenciaMs;
+        
+        @Override
+        public String toString() {
+            return String.format("Cola: %d, Registrados: %d, Combinados: %d, Lotes: %d, Filas: %d, " +
+                "Errores: %d, Latencia última/prom/máx: %.2f/%.2f/%.2f ms",
+                profundidadCola, accesosRegistrados, accesosCombinados, lotesEscritos, filasEscritas,
+                errores, ultimaLatenciaMs, promedioLatenciaMs, maximaLatenciaMs);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package dao;
+
+import utils.ArchivoRotativo;
+import utils.Bitacora;
+import utils.DatabaseConnection;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro de consultas lentas de los DAOs
+ * SentenciasMedidas avisa cuando una sentencia supera el umbral configurado
+ * (db.consultas_lentas.umbral_ms); el aviso se encola y un hilo de fondo escribe la línea
+ * en un log local con rotación y, si está habilitado (db.consultas_lentas.explain), captura
+ * el EXPLAIN de la sentencia la primera vez que resulta lenta (una sola vez por sentencia),
+ * usando una conexión dedicada
+ * Los valores de los parámetros nunca se escriben: sólo su forma (tipo y longitud)
+ * Además conserva en memoria un resumen por sentencia para el panel administrativo
+ */
+public class RegistroConsultasLentas {
+    
+    private static final Bitacora BITACORA = Bitacora.de(RegistroConsultasLentas.class);
+    
+    public static final Path ARCHIVO_LOG = Paths.get("logs", "consultas-lentas.log");
+    
+    // Rotación: consultas-lentas.log, .1, .2, ... hasta ARCHIVOS_ROTADOS
+    private static final long TAMANO_MAXIMO_LOG = 5L * 1024 * 1024;
+    private static final int ARCHIVOS_ROTADOS = 5;
+    private static final int MAX_PENDIENTES = 1000;
+    private static final int MAX_LONGITUD_SQL = 2000;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    
+    private static volatile RegistroConsultasLentas instance;
+    
+    private final ConcurrentHashMap<String, ConsultaLenta> porSentencia = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor escritor;
+    private final ArchivoRotativo archivo;
+    private final AtomicLong descartadas = new AtomicLong();
+    private volatile long umbralNanos;
+    private volatile boolean capturarPlanes;
+    
+    private RegistroConsultasLentas() {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        this.archivo = new ArchivoRotativo(ARCHIVO_LOG, TAMANO_MAXIMO_LOG, ARCHIVOS_ROTADOS);
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(db.getUmbralConsultaLentaMs());
+        this.capturarPlanes = db.isCapturarPlanes();
+        // Un solo hilo y cola acotada: si el disco no alcanza a escribir, se descartan avisos
+        // en lugar de frenar a los DAOs
+        this.escritor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDIENTES), r -> {
+                Thread hilo = new Thread(r, "consultas-lentas");
+                hilo.setDaemon(true);
+                return hilo;
+            }, (tarea, ejecutor) -> descartadas.incrementAndGet());
+    }
+    
+    /**
+     * Obtiene la instancia única del registro
+     * @return Registro de consultas lentas
+     */
+    public static RegistroConsultasLentas getInstance() {
+        if (instance == null) {
+            synchronized (RegistroConsultasLentas.class) {
+                if (instance == null) {
+                    instance = new RegistroConsultasLentas();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Indica si una duración supera el umbral (lectura de un campo volátil, sin costo apreciable)
+     * @param duracionNanos Duración de la sentencia
+     * @return true si se debe registrar
+     */
+    boolean esLenta(long duracionNanos) {
+        return duracionNanos >= umbralNanos;
+    }
+    
+    /**
+     * Registra una sentencia lenta
+     * @param sql Texto de la sentencia
+     * @param duracionNanos Tiempo de ejecución
+     * @param filas Filas leídas o afectadas (-1 si no se conocen)
+     * @param parametros Copia de los parámetros enlazados (sólo se usan para el EXPLAIN)
+     */
+    void registrar(String sql, long duracionNanos, long filas, Object[] parametros) {
+        escritor.execute(() -> procesar(sql, duracionNanos, filas, parametros, LocalDateTime.now()));
+    }
+    
+    private void procesar(String sql, long duracionNanos, long filas, Object[] parametros, LocalDateTime momento) {
+        String id = SentenciasMedidas.identificar(sql);
+        String forma = describirParametros(parametros);
+        double duracionMs = duracionNanos / 1_000_000.0;
+        
+        ConsultaLenta consulta = porSentencia.computeIfAbsent(id, _ -> new ConsultaLenta(id, normalizar(sql)));
+        consulta.acumular(duracionMs, filas, forma, momento);
+        
+        StringBuilder linea = new StringBuilder();
+        linea.append(momento.format(FORMATO_FECHA))
+             .append(String.format(Locale.ROOT, " | %.1f ms | ", duracionMs))
+             .append(id)
+             .append(" | filas=").append(filas >= 0 ? String.valueOf(filas) : "?")
+             .append(" | parametros=").append(forma)
+             .append(" | ").append(consulta.getSql())
+             .append(System.lineSeparator());
+        
+        if (capturarPlanes && consulta.getPlan() == null) {
+            String plan = capturarPlan(sql, parametros);
+            consulta.setPlan(plan);
+            for (String renglon : plan.split("\n")) {
+                linea.append("    plan: ").append(renglon).append(System.lineSeparator());
+            }
+        }
+        
+        escribir(linea.toString());
+    }
+    
+    /**
+     * Ejecuta EXPLAIN de la sentencia con los mismos parámetros en una conexión dedicada
+     * (la compartida puede estar en medio de una transacción de la interfaz)
+     */
+    private String capturarPlan(String sql, Object[] parametros) {
+        String operacion = sql.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        if (!operacion.equals("SELECT") && !operacion.equals("UPDATE") && !operacion.equals("DELETE")
+                && !operacion.equals("INSERT") && !operacion.equals("REPLACE") && !operacion.equals("WITH")) {
+            return "(EXPLAIN no aplica a " + operacion + ")";
+        }
+        
+        try (Connection conn = DatabaseConnection.getInstance().abrirConexionDedicada();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                stmt.setObject(i + 1, parametros[i]);
+            }
+            
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columnas = meta.getColumnCount();
+                for (int c = 1; c <= columnas; c++) {
+                    plan.append(c > 1 ? " | " : "").append(meta.getColumnLabel(c));
+                }
+                while (rs.next()) {
+                    plan.append('\n');
+                    for (int c = 1; c <= columnas; c++) {
+                        plan.append(c > 1 ? " | " : "").append(rs.getString(c));
+                    }
+                }
+            }
+            return plan.toString();
+        
+        } catch (SQLException e) {
+            BITACORA.error("Error al capturar plan de consulta: " + e.getMessage());
+            return "(EXPLAIN falló: " + e.getMessage() + ")";
+        }
+    }
+    
+    private void escribir(String texto) {
+        try {
+            archivo.escribir(texto);
+            archivo.vaciar();
+        } catch (IOException e) {
+            BITACORA.error("Error al escribir log de consultas lentas: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Describe los parámetros sin exponer sus valores: tipo y longitud de los textos
+     */
+    private static String describirParametros(Object[] parametros) {
+        StringBuilder forma = new StringBuilder("[");
+        for (int i = 0; i < parametros.length; i++) {
+            if (i > 0) {
+                forma.append(", ");
+            }
+            Object valor = parametros[i];
+            if (valor == null) {
+                forma.append("null");
+            } else if (valor instanceof CharSequence) {
+                forma.append("String(").append(((CharSequence) valor).length()).append(')');
+            } else {
+                forma.append(valor.getClass().getSimpleName());
+            }
+        }
+        return forma.append(']').toString();
+    }
+    
+    private static String normalizar(String sql) {
+        String compacto = sql.trim().replaceAll("\\s+", " ");
+        return compacto.length() > MAX_LONGITUD_SQL ? compacto.substring(0, MAX_LONGITUD_SQL) + "..." : compacto;
+    }
+    
+    /**
+     * Obtiene las sentencias lentas con mayor tiempo máximo
+     * @param limite Número máximo de sentencias
+     * @return Resumen ordenado de mayor a menor tiempo máximo
+     */
+    public List<ConsultaLenta> obtenerTop(int limite) {
+        List<ConsultaLenta> consultas = new ArrayList<>(porSentencia.values());
+        consultas.sort(Comparator.comparingDouble(ConsultaLenta::getMaximoMs).reversed());
+        return consultas.size() > limite ? new ArrayList<>(consultas.subList(0, limite)) : consultas;
+    }
+    
+    /**
+     * Cambia el umbral en tiempo de ejecución
+     * @param umbralMs Umbral en milisegundos
+     */
+    public void setUmbralMs(long umbralMs) {
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, umbralMs));
+    }
+    
+    public long getUmbralMs() {
+        return TimeUnit.NANOSECONDS.toMillis(umbralNanos);
+    }
+    
+    public void setCapturarPlanes(boolean capturarPlanes) {
+        this.capturarPlanes = capturarPlanes;
+    }
+    
+    public boolean isCapturarPlanes() {
+        return capturarPlanes;
+    }
+    
+    public Path getArchivo() {
+        return archivo.getArchivo();
+    }
+    
+    /**
+     * @return Avisos descartados porque la cola de escritura estaba llena
+     */
+    public long getDescartadas() {
+        return descartadas.get();
+    }
+    
+    /**
+     * Descarta el resumen en memoria (el log en disco se conserva)
+     */
+    public void limpiar() {
+        porSentencia.clear();
+    }
+    
+    /**
+     * Resumen de una sentencia que ha superado el umbral
+     */
+    public static class ConsultaLenta {
+        private final String sqlId;
+        private final String sql;
+        private long ejecuciones;
+        private double maximoMs;
+        private double ultimoMs;
+        private long ultimasFilas;
+        private String ultimosParametros;
+        private LocalDateTime ultimaVez;
+        private volatile String plan;
+        
+        ConsultaLenta(String sqlId, String sql) {
+            this.sqlId = sqlId;
+            this.sql = sql;
+        }
+        
+        synchronized void acumular(double duracionMs, long filas, String parametros, LocalDateTime momento) {
+            ejecuciones++;
+            maximoMs = Math.max(maximoMs, duracionMs);
+            ultimoMs = duracionMs;
+            ultimasFilas = filas;
+            ultimosParametros = parametros;
+            ultimaVez = momento;
+        }
+        
+        void setPlan(String plan) {
+            this.plan = plan;
+        }
+        
+        public String getSqlId() { return sqlId; }
+        public String getSql() { return sql; }
+        public synchronized long getEjecuciones() { return ejecuciones; }
+        public synchronized double getMaximoMs() { return maximoMs; }
+        public synchronized double getUltimoMs() { return ultimoMs; }
+        public synchronized long getUltimasFilas() { return ultimasFilas; }
+        public synchronized String getUltimosParametros() { return ultimosParametros; }
+        public synchronized LocalDateTime getUltimaVez() { return ultimaVez; }
+        public String getPlan() { return plan; }
+    }
+}
@@ -1,13 +1,18 @@
 package dao;
 
 import models.RegistroTriage;
+import models.FilaTriage;
 import models.NivelUrgencia;
 import models.EstadoPaciente;
+import utils.Bitacora;
+import utils.RutaConsulta;
 import utils.ValidationUtils;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * DAO para la gestión de registros de triage en el sistema hospitalario
@@ -16,16 +21,29 @@ import java.util.ArrayList;
  */
 public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
     
+    private static final Bitacora BITACORA = Bitacora.de(RegistroTriageDAO.class);
+    
     private static final String TABLA = "registros_triage";
     
     // Consultas SQL predefinidas
-    private static final String SQL_INSERTAR = 
-        "INSERT INTO " + TABLA + " (paciente_id, medico_triage_id, fecha_hora_triage, " +
+    private static final String COLUMNAS_INSERCION = 
+        TABLA + " (folio, paciente_id, medico_triage_id, fecha_hora_triage, " +
         "motivo_consulta, sintomas_principales, presion_sistolica, presion_diastolica, " +
         "frecuencia_cardiaca, temperatura, frecuencia_respiratoria, " +
         "saturacion_oxigeno, glasgow, observaciones_triage, " +
         "nivel_urgencia, especialidad_asignada, prioridad_orden, estado) " +
-        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String SQL_INSERTAR = 
+        "INSERT INTO " + COLUMNAS_INSERCION;
+    
+    // El folio es único: reenviar un registro ya escrito no crea otra fila
+    // (no se usa INSERT IGNORE: convertiría en avisos los errores de llave foránea o NOT NULL)
+    private static final String SQL_INSERTAR_SIN_DUPLICAR = 
+        "INSERT INTO " + COLUMNAS_INSERCION + " ON DUPLICATE KEY UPDATE id = id";
+    
+    private static final String SQL_IDS_POR_FOLIO = 
+        "SELECT id, folio, paciente_id FROM " + TABLA + " WHERE folio IN ";
     
     private static final String SQL_ACTUALIZAR = 
         "UPDATE " + TABLA + " SET paciente_id = ?, medico_triage_id = ?, fecha_hora_triage = ?, " +
@@ -38,91 +56,75 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
     private static final String SQL_ELIMINAR = 
         "DELETE FROM " + TABLA + " WHERE id = ?";
     
-    private static final String SQL_BUSCAR_POR_ID = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
+    private static final String EXPRESION_NOMBRE_PACIENTE = 
+        "CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, ''))";
+    
+    // Mismo expediente temporal que PacienteDAO.mapearResultSet
+    private static final String EXPRESION_EXPEDIENTE = "CONCAT('EXP-', p.id)";
+    
+    // Proyecciones: cada consulta selecciona solo las columnas que su mapeador lee
+    private static final MapeadorRegistroCompleto REGISTRO_COMPLETO = new MapeadorRegistroCompleto();
+    private static final MapeadorFilaCola FILA_COLA = new MapeadorFilaCola();
+    private static final MapeadorFilaTriage FILA_TRIAGE = new MapeadorFilaTriage();
+    
+    private static final String DESDE_CON_PACIENTE_Y_USUARIO = 
+        " FROM " + TABLA + " rt " +
         "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE rt.id = ?";
+        "JOIN usuarios u ON rt.medico_triage_id = u.id ";
+    
+    private static final String SQL_SELECT_COMPLETO = 
+        "SELECT " + REGISTRO_COMPLETO.getListaSelect() + DESDE_CON_PACIENTE_Y_USUARIO;
+    
+    private static final String SQL_BUSCAR_POR_ID = 
+        SQL_SELECT_COMPLETO + "WHERE rt.id = ?";
     
     private static final String SQL_OBTENER_TODOS = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "ORDER BY rt.fecha_hora_triage DESC";
+        SQL_SELECT_COMPLETO + "ORDER BY rt.fecha_hora_triage DESC";
     
     private static final String SQL_BUSCAR_POR_PACIENTE = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE rt.paciente_id = ? ORDER BY rt.fecha_hora_triage DESC";
+        SQL_SELECT_COMPLETO + "WHERE rt.paciente_id = ? ORDER BY rt.fecha_hora_triage DESC";
     
     private static final String SQL_BUSCAR_POR_USUARIO = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE rt.medico_triage_id = ? ORDER BY rt.fecha_hora_triage DESC";
+        SQL_SELECT_COMPLETO + "WHERE rt.medico_triage_id = ? ORDER BY rt.fecha_hora_triage DESC";
     
     private static final String SQL_BUSCAR_POR_NIVEL_URGENCIA = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE rt.nivel_urgencia = ? ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
+        SQL_SELECT_COMPLETO + "WHERE rt.nivel_urgencia = ? ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
     
     private static final String SQL_BUSCAR_POR_FECHA = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE DATE(rt.fecha_hora_triage) = ? ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
+        SQL_SELECT_COMPLETO + "WHERE DATE(rt.fecha_hora_triage) = ? ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
     
     private static final String SQL_BUSCAR_POR_RANGO_FECHAS = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE rt.fecha_hora_triage BETWEEN ? AND ? " +
+        SQL_SELECT_COMPLETO + "WHERE rt.fecha_hora_triage BETWEEN ? AND ? " +
         "ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
     
-    private static final String SQL_OBTENER_PENDIENTES = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
+    private static final String CONDICION_PENDIENTES = 
         "WHERE rt.estado IN ('ESPERANDO_MEDICO', 'EN_ATENCION') " +
         "ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
     
+    private static final String SQL_OBTENER_PENDIENTES = 
+        SQL_SELECT_COMPLETO + CONDICION_PENDIENTES;
+    
+    // La fila de cola no necesita al usuario de triage: solo se une con pacientes
+    private static final String SQL_OBTENER_FILAS_COLA = 
+        "SELECT " + FILA_COLA.getListaSelect() + " FROM " + TABLA + " rt " +
+        "JOIN pacientes p ON rt.paciente_id = p.id " + CONDICION_PENDIENTES;
+    
     private static final String SQL_OBTENER_URGENTES = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
-        "WHERE rt.nivel_urgencia IN ('EMERGENCIA', 'URGENTE') " +
+        SQL_SELECT_COMPLETO + "WHERE rt.nivel_urgencia IN ('EMERGENCIA', 'URGENTE') " +
         "AND rt.estado IN ('ESPERANDO_MEDICO', 'EN_ATENCION') " +
         "ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
     
-    private static final String SQL_OBTENER_ESPERANDO_TRABAJO_SOCIAL = 
-        "SELECT rt.*, CONCAT(p.nombre, ' ', p.apellido_paterno, ' ', IFNULL(p.apellido_materno, '')) as paciente_nombre, p.id as numero_expediente, " +
-        "u.nombre_completo as usuario_nombre " +
-        "FROM " + TABLA + " rt " +
-        "JOIN pacientes p ON rt.paciente_id = p.id " +
-        "JOIN usuarios u ON rt.medico_triage_id = u.id " +
+    private static final String CONDICION_TRABAJO_SOCIAL = 
         "WHERE rt.estado = 'ESPERANDO_TRABAJO_SOCIAL' " +
         "ORDER BY rt.prioridad_orden, rt.fecha_hora_triage";
     
+    private static final String SQL_OBTENER_ESPERANDO_TRABAJO_SOCIAL = 
+        SQL_SELECT_COMPLETO + CONDICION_TRABAJO_SOCIAL;
+    
+    private static final String SQL_OBTENER_FILAS_TRABAJO_SOCIAL = 
+        "SELECT " + FILA_TRIAGE.getListaSelect() + " FROM " + TABLA + " rt " +
+        "JOIN pacientes p ON rt.paciente_id = p.id " + CONDICION_TRABAJO_SOCIAL;
+    
     /**
      * Inserta un nuevo registro de triage en la base de datos
      * @param registro Registro de triage a insertar
@@ -134,30 +136,15 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
         validarRegistro(registro);
         
         // Debug: mostrar estado antes del insert
-        System.out.println("=== DEBUG DAO INSERT ===");
-        System.out.println("Estado que se va a insertar: " + (registro.getEstado() != null ? registro.getEstado().name() : "NULL"));
-        System.out.println("Paciente ID: " + registro.getPacienteId());
-        System.out.println("========================");
+        if (BITACORA.debugHabilitado()) {
+            BITACORA.debug("Insertando registro de triage",
+                "pacienteId", registro.getPacienteId(),
+                "estado", registro.getEstado() != null ? registro.getEstado().name() : "NULL");
+        }
         
-        int idGenerado = ejecutarInsercionConClave(SQL_INSERTAR,
-            registro.getPacienteId(),
-            registro.getUsuarioTriageId(),
-            convertirATimestamp(registro.getFechaTriage()),
-            registro.getMotivoConsulta(),
-            registro.getSintomasPrincipales(),
-            extraerPresionSistolica(registro.getSignosVitalesPresion()), // presion_sistolica
-            extraerPresionDiastolica(registro.getSignosVitalesPresion()), // presion_diastolica  
-            registro.getSignosVitalesPulso(), // frecuencia_cardiaca
-            registro.getSignosVitalesTemperatura(), // temperatura
-            registro.getSignosVitalesRespiracion(), // frecuencia_respiratoria
-            registro.getSignosVitalesSaturacion(), // saturacion_oxigeno
-            registro.getEscalaGlasgow(), // glasgow
-            registro.getObservacionesTriage(),
-            registro.getNivelUrgencia().name(),
-            registro.getEspecialidadAsignada(), // especialidad_asignada
-            registro.getPrioridadNumerica(), // prioridad_orden
-            registro.getEstado() != null ? registro.getEstado().name() : "ESPERANDO_ASISTENTE" // estado
-        );
+        asignarFolio(registro);
+        
+        int idGenerado = ejecutarInsercionConClave(SQL_INSERTAR, parametrosInsercion(registro));
         
         if (idGenerado > 0) {
             registro.setId(idGenerado);
@@ -167,6 +154,146 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
         return false;
     }
     
+    /**
+     * Valida un registro y le asigna folio sin escribirlo todavía
+     * Lo usa el diario de escrituras de triage antes de guardar el registro localmente
+     * @param registro Registro de triage a preparar
+     * @throws SQLException si no se pudo reservar el folio
+     */
+    void prepararInsercion(RegistroTriage registro) throws SQLException {
+        validarRegistro(registro);
+        
+        // Sin conexión el folio sale del contador local de la estación
+        AlmacenLocal almacen = AlmacenLocal.getInstance();
+        if (!almacen.enLinea() && (registro.getFolio() == null || registro.getFolio().trim().isEmpty())) {
+            registro.setFolio(almacen.siguienteFolioLocal());
+            return;
+        }
+        try {
+            asignarFolio(registro);
+        } catch (SQLException e) {
+            if (!almacen.reportarError(e)) {
+                throw e;
+            }
+            registro.setFolio(almacen.siguienteFolioLocal());
+        }
+    }
+    
+    /**
+     * Inserta en una sola ida y vuelta un lote de registros que ya tienen folio
+     * Los folios que ya existen no se vuelven a insertar, así que reenviar un lote es seguro;
+     * al terminar, cada registro escrito queda con el ID de su fila
+     * Si el lote falla por un error que no es de conexión se reintenta registro por registro,
+     * y los que MySQL rechaza (llave foránea, NOT NULL, valor inválido) se devuelven aparte
+     * @param registros Registros a insertar
+     * @return Filas nuevas, registros cuyo folio ya pertenece a otro paciente y registros rechazados
+     * @throws SQLException si hay error de conexión
+     */
+    public ResultadoLote insertarLote(List<RegistroTriage> registros) throws SQLException {
+        ResultadoLote resultado = new ResultadoLote();
+        if (registros == null || registros.isEmpty()) {
+            return resultado;
+        }
+        
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(SQL_INSERTAR_SIN_DUPLICAR);
+            
+            List<RegistroTriage> escritos = new ArrayList<>(registros.size());
+            try {
+                for (RegistroTriage registro : registros) {
+                    asignarParametros(stmt, registro);
+                    stmt.addBatch();
+                }
+                for (int filas : stmt.executeBatch()) {
+                    // SUCCESS_NO_INFO (-2) cuenta como fila insertada; 0 es un folio que ya existía
+                    resultado.filasInsertadas += filas == Statement.SUCCESS_NO_INFO ? 1 : Math.max(filas, 0);
+                }
+                escritos.addAll(registros);
+            } catch (SQLException e) {
+                if (AlmacenLocal.esErrorDeConexion(e)) {
+                    throw e;
+                }
+                // Un registro inválido hace fallar el lote completo: se aísla insertando uno por uno
+                stmt.clearBatch();
+                for (RegistroTriage registro : registros) {
+                    try {
+                        asignarParametros(stmt, registro);
+                        if (stmt.executeUpdate() == 1) {
+                            resultado.filasInsertadas++;
+                        }
+                        escritos.add(registro);
+                    } catch (SQLException errorRegistro) {
+                        if (AlmacenLocal.esErrorDeConexion(errorRegistro)) {
+                            throw errorRegistro;
+                        }
+                        registro.setId(0);
+                        resultado.rechazados.add(registro);
+                        AlmacenLocal.getInstance().registrarConflicto("TRIAGE_RECHAZADO", registro.getPacienteId(), 0,
+                            "MySQL rechazó el triage " + registro.getFolio() + ": " + errorRegistro.getMessage());
+                    }
+                }
+            }
+            cerrarRecursos(stmt);
+            stmt = null;
+            if (escritos.isEmpty()) {
+                return resultado;
+            }
+            
+            // Los IDs se leen por folio: incluye los registros que ya estaban de un envío anterior
+            Map<String, int[]> filasPorFolio = new HashMap<>();
+            for (RegistroTriage registro : escritos) {
+                filasPorFolio.put(registro.getFolio(), null);
+            }
+            StringBuilder sql = new StringBuilder(SQL_IDS_POR_FOLIO).append('(');
+            for (int i = 0; i < filasPorFolio.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            stmt = conn.prepareStatement(sql.append(')').toString());
+            int indice = 1;
+            for (String folio : filasPorFolio.keySet()) {
+                stmt.setString(indice++, folio);
+            }
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                filasPorFolio.put(rs.getString(2), new int[] {rs.getInt(1), rs.getInt(3)});
+            }
+            
+            for (RegistroTriage registro : escritos) {
+                int[] fila = filasPorFolio.get(registro.getFolio());
+                if (fila == null) {
+                    // No debería ocurrir sin INSERT IGNORE; se aparta en lugar de reintentarlo
+                    registro.setId(0);
+                    resultado.rechazados.add(registro);
+                    AlmacenLocal.getInstance().registrarConflicto("TRIAGE_RECHAZADO", registro.getPacienteId(), 0,
+                        "El triage " + registro.getFolio() + " no quedó escrito en MySQL");
+                } else if (fila[1] == registro.getPacienteId()) {
+                    registro.setId(fila[0]);
+                } else {
+                    registro.setId(0);
+                    resultado.foliosOcupados.add(registro);
+                    AlmacenLocal.getInstance().registrarConflicto("FOLIO_DUPLICADO", registro.getPacienteId(),
+                        fila[1], "El folio " + registro.getFolio() + " ya pertenece a otro paciente");
+                }
+            }
+            return resultado;
+        
+        } finally {
+            cerrarRecursos(rs, stmt);
+        }
+    }
+    
+    private void asignarParametros(PreparedStatement stmt, RegistroTriage registro) throws SQLException {
+        Object[] parametros = parametrosInsercion(registro);
+        for (int i = 0; i < parametros.length; i++) {
+            stmt.setObject(i + 1, parametros[i]);
+        }
+    }
+    
     /**
      * Actualiza un registro de triage existente
      * @param registro Registro de triage a actualizar
@@ -232,7 +359,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
             throw new IllegalArgumentException("ID de registro inválido");
         }
         
-        return ejecutarConsultaUnica(SQL_BUSCAR_POR_ID, id);
+        return ejecutarConsultaUnica(REGISTRO_COMPLETO, SQL_BUSCAR_POR_ID, id);
     }
     
     /**
@@ -242,7 +369,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
      */
     @Override
     public List<RegistroTriage> obtenerTodos() throws SQLException {
-        return ejecutarConsulta(SQL_OBTENER_TODOS);
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_OBTENER_TODOS);
     }
     
     /**
@@ -256,7 +383,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
             throw new IllegalArgumentException("ID de paciente inválido");
         }
         
-        return ejecutarConsulta(SQL_BUSCAR_POR_PACIENTE, pacienteId);
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_BUSCAR_POR_PACIENTE, pacienteId);
     }
     
     /**
@@ -270,7 +397,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
             throw new IllegalArgumentException("ID de usuario inválido");
         }
         
-        return ejecutarConsulta(SQL_BUSCAR_POR_USUARIO, usuarioId);
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_BUSCAR_POR_USUARIO, usuarioId);
     }
     
     /**
@@ -284,7 +411,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
             throw new IllegalArgumentException("Nivel de urgencia no puede ser nulo");
         }
         
-        return ejecutarConsulta(SQL_BUSCAR_POR_NIVEL_URGENCIA, nivelUrgencia.name());
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_BUSCAR_POR_NIVEL_URGENCIA, nivelUrgencia.name());
     }
     
     /**
@@ -293,21 +420,30 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
      * @throws SQLException si hay error en la operación
      */
     public List<RegistroTriage> obtenerEsperandoTrabajoSocial() throws SQLException {
-        System.out.println("=== DEBUG CONSULTA TRABAJO SOCIAL ===");
-        System.out.println("SQL: " + SQL_OBTENER_ESPERANDO_TRABAJO_SOCIAL);
-        System.out.println("=====================================");
-        
-        List<RegistroTriage> resultado = ejecutarConsulta(SQL_OBTENER_ESPERANDO_TRABAJO_SOCIAL);
+        List<RegistroTriage> resultado = ejecutarConsulta(REGISTRO_COMPLETO, SQL_OBTENER_ESPERANDO_TRABAJO_SOCIAL);
         
-        System.out.println("Registros encontrados: " + resultado.size());
-        for (RegistroTriage reg : resultado) {
-            System.out.println("- Paciente: " + reg.getPacienteNombre() + ", Estado: " + 
-                (reg.getEstado() != null ? reg.getEstado().name() : "NULL"));
+        if (BITACORA.debugHabilitado()) {
+            BITACORA.debug("Consulta de trabajo social", "sql", SQL_OBTENER_ESPERANDO_TRABAJO_SOCIAL,
+                           "registros", resultado.size());
+            for (RegistroTriage reg : resultado) {
+                BITACORA.debug("Esperando trabajo social", "paciente", reg.getPacienteNombre(),
+                               "estado", reg.getEstado() != null ? reg.getEstado().name() : "NULL");
+            }
         }
         
         return resultado;
     }
     
+    /**
+     * Obtiene como filas compactas los pacientes que esperan evaluación de trabajo social
+     * Para la lista de pendientes; el registro completo se carga con buscarPorId al atender uno
+     * @return Filas en estado ESPERANDO_TRABAJO_SOCIAL ordenadas por prioridad
+     * @throws SQLException si hay error en la operación
+     */
+    public List<FilaTriage> obtenerFilasEsperandoTrabajoSocial() throws SQLException {
+        return ejecutarConsulta(FILA_TRIAGE, SQL_OBTENER_FILAS_TRABAJO_SOCIAL);
+    }
+    
     /**
      * Obtiene registros de una fecha específica
      * @param fecha Fecha a buscar
@@ -319,7 +455,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
             throw new IllegalArgumentException("Fecha no puede ser nula");
         }
         
-        return ejecutarConsulta(SQL_BUSCAR_POR_FECHA, convertirADate(fecha.toLocalDate()));
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_BUSCAR_POR_FECHA, convertirADate(fecha.toLocalDate()));
     }
     
     /**
@@ -339,7 +475,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
             throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
         }
         
-        return ejecutarConsulta(SQL_BUSCAR_POR_RANGO_FECHAS,
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_BUSCAR_POR_RANGO_FECHAS,
             convertirATimestamp(fechaInicio), convertirATimestamp(fechaFin));
     }
     
@@ -349,7 +485,18 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
      * @throws SQLException si hay error en la operación
      */
     public List<RegistroTriage> obtenerPendientes() throws SQLException {
-        return ejecutarConsulta(SQL_OBTENER_PENDIENTES);
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_OBTENER_PENDIENTES);
+    }
+    
+    /**
+     * Obtiene los registros pendientes con la proyección de fila de cola
+     * Solo trae los campos que usan la cola de triage y la lista de sala de espera
+     * (identificación, nivel, estado, prioridad, horas y nombre del paciente)
+     * @return Lista de registros pendientes ordenados por prioridad
+     * @throws SQLException si hay error en la operación
+     */
+    public List<RegistroTriage> obtenerFilasCola() throws SQLException {
+        return ejecutarConsulta(FILA_COLA, SQL_OBTENER_FILAS_COLA);
     }
     
     /**
@@ -358,7 +505,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
      * @throws SQLException si hay error en la operación
      */
     public List<RegistroTriage> obtenerUrgentes() throws SQLException {
-        return ejecutarConsulta(SQL_OBTENER_URGENTES);
+        return ejecutarConsulta(REGISTRO_COMPLETO, SQL_OBTENER_URGENTES);
     }
     
     /**
@@ -373,7 +520,7 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
         }
         
         String sql = SQL_BUSCAR_POR_PACIENTE + " LIMIT 1";
-        return ejecutarConsultaUnica(sql, pacienteId);
+        return ejecutarConsultaUnica(REGISTRO_COMPLETO, sql, pacienteId);
     }
     
     /**
@@ -431,16 +578,8 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
                     "FROM " + TABLA + " " +
                     "GROUP BY nivel_urgencia";
         
-        List<EstadisticaTiempo> estadisticas = new ArrayList<>();
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-        
-        try {
-            conn = getConnection();
-            stmt = conn.prepareStatement(sql);
-            rs = stmt.executeQuery();
-            
+        return ejecutarLectura(RutaConsulta.REPLICA, rs -> {
+            List<EstadisticaTiempo> estadisticas = new ArrayList<>();
             while (rs.next()) {
                 EstadisticaTiempo estadistica = new EstadisticaTiempo();
                 estadistica.nivel = NivelUrgencia.valueOf(rs.getString("nivel_urgencia"));
@@ -450,76 +589,21 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
                 estadistica.totalCasos = rs.getInt("total_casos");
                 estadisticas.add(estadistica);
             }
-            
-        } finally {
-            cerrarRecursos(rs, stmt, conn);
-        }
-        
-        return estadisticas;
+            return estadisticas;
+        }, sql);
     }
     
     /**
      * Mapea un ResultSet a un objeto RegistroTriage
+     * Las consultas de este DAO usan directamente los mapeadores de proyección; este método
+     * queda para ResultSets arbitrarios y lee solo las columnas presentes, sin excepciones
      * @param rs ResultSet con los datos del registro
      * @return RegistroTriage mapeado
      * @throws SQLException si hay error en el mapeo
      */
     @Override
     protected RegistroTriage mapearResultSet(ResultSet rs) throws SQLException {
-        RegistroTriage registro = new RegistroTriage();
-        
-        registro.setId(rs.getInt("id"));
-        registro.setPacienteId(rs.getInt("paciente_id"));
-        registro.setUsuarioTriageId(rs.getInt("medico_triage_id"));
-        
-        // Conversión de fecha
-        Timestamp fechaTriage = rs.getTimestamp("fecha_hora_triage");
-        if (fechaTriage != null) {
-            registro.setFechaTriage(fechaTriage.toLocalDateTime());
-        }
-        
-        registro.setMotivoConsulta(rs.getString("motivo_consulta"));
-        registro.setSintomasPrincipales(rs.getString("sintomas_principales"));
-        
-        // Mapear signos vitales con nombres correctos de columnas
-        // Construir presión arterial desde sistólica y diastólica
-        Integer sistolica = rs.getInt("presion_sistolica");
-        Integer diastolica = rs.getInt("presion_diastolica");
-        if (sistolica > 0 && diastolica > 0) {
-            registro.setSignosVitalesPresion(sistolica + "/" + diastolica);
-        }
-        
-        registro.setSignosVitalesPulso(rs.getInt("frecuencia_cardiaca"));
-        registro.setSignosVitalesTemperatura(rs.getDouble("temperatura"));
-        registro.setSignosVitalesRespiracion(rs.getInt("frecuencia_respiratoria"));
-        registro.setSignosVitalesSaturacion(rs.getInt("saturacion_oxigeno"));
-        registro.setEscalaGlasgow(rs.getInt("glasgow"));
-        registro.setObservacionesTriage(rs.getString("observaciones_triage"));
-        
-        String nivelUrgencia = rs.getString("nivel_urgencia");
-        if (nivelUrgencia != null) {
-            registro.setNivelUrgencia(NivelUrgencia.valueOf(nivelUrgencia));
-        }
-        
-        registro.setEspecialidadAsignada(rs.getString("especialidad_asignada"));
-        registro.setPrioridadNumerica(rs.getInt("prioridad_orden"));
-        
-        // Mapear estado del registro
-        String estado = rs.getString("estado");
-        if (estado != null) {
-            registro.setEstado(EstadoPaciente.valueOf(estado));
-        }
-        
-        // Campos adicionales de los JOINs (si están disponibles)
-        try {
-            registro.setPacienteNombre(rs.getString("paciente_nombre"));
-            registro.setNumeroExpediente(rs.getString("numero_expediente"));
-            registro.setUsuarioNombre(rs.getString("usuario_nombre"));
-        } catch (SQLException e) {
-            // Los campos no están disponibles en esta consulta
-        }
-        
-        return registro;
+        return REGISTRO_COMPLETO.mapearFila(rs);
     }
     
     /**
@@ -527,12 +611,43 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
      * @param registro Registro a validar
      * @throws IllegalArgumentException si los datos no son válidos
      */
+    // El folio se asigna en la aplicación para no recorrer los registros del año en cada inserción
+    private void asignarFolio(RegistroTriage registro) throws SQLException {
+        if (registro.getFolio() == null || registro.getFolio().trim().isEmpty()) {
+            registro.setFolio(GeneradorSecuencias.getInstance().siguienteFolioTriage());
+        }
+    }
+    
+    private Object[] parametrosInsercion(RegistroTriage registro) {
+        return new Object[] {
+            registro.getFolio(),
+            registro.getPacienteId(),
+            registro.getUsuarioTriageId(),
+            convertirATimestamp(registro.getFechaTriage()),
+            registro.getMotivoConsulta(),
+            registro.getSintomasPrincipales(),
+            extraerPresionSistolica(registro.getSignosVitalesPresion()), // presion_sistolica
+            extraerPresionDiastolica(registro.getSignosVitalesPresion()), // presion_diastolica
+            registro.getSignosVitalesPulso(), // frecuencia_cardiaca
+            registro.getSignosVitalesTemperatura(), // temperatura
+            registro.getSignosVitalesRespiracion(), // frecuencia_respiratoria
+            registro.getSignosVitalesSaturacion(), // saturacion_oxigeno
+            registro.getEscalaGlasgow(), // glasgow
+            registro.getObservacionesTriage(),
+            registro.getNivelUrgencia().name(),
+            registro.getEspecialidadAsignada(), // especialidad_asignada
+            registro.getPrioridadNumerica(), // prioridad_orden
+            registro.getEstado() != null ? registro.getEstado().name() : "ESPERANDO_ASISTENTE" // estado
+        };
+    }
+    
     private void validarRegistro(RegistroTriage registro) {
         if (registro == null) {
             throw new IllegalArgumentException("Registro no puede ser nulo");
         }
         
-        if (registro.getPacienteId() <= 0) {
+        // Los IDs negativos son pacientes registrados sin conexión (ver AlmacenLocal)
+        if (registro.getPacienteId() == 0) {
             throw new IllegalArgumentException("ID de paciente es obligatorio");
         }
         
@@ -609,6 +724,22 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
         }
     }
     
+    /**
+     * Resultado de insertarLote
+     * Los registros de foliosOcupados deben recibir folio nuevo; los rechazados no deben reintentarse
+     */
+    public static class ResultadoLote {
+        public int filasInsertadas;
+        public final List<RegistroTriage> foliosOcupados = new ArrayList<>();
+        public final List<RegistroTriage> rechazados = new ArrayList<>();
+        
+        @Override
+        public String toString() {
+            return String.format("Insertadas: %d, Folios ocupados: %d, Rechazados: %d",
+                filasInsertadas, foliosOcupados.size(), rechazados.size());
+        }
+    }
+    
     /**
      * Cuenta los registros de triage de hoy
      */
@@ -867,4 +998,165 @@ public class RegistroTriageDAO extends BaseDAO<RegistroTriage> {
                                nivel, tiempoPromedio, tiempoMinimo, tiempoMaximo, totalCasos);
         }
     }
+    
+    /**
+     * Proyección completa: todas las columnas del registro más los nombres de los JOINs
+     */
+    private static final class MapeadorRegistroCompleto extends MapeadorFilas<RegistroTriage> {
+        private final int id = columna("rt.id");
+        private final int folio = columna("rt.folio");
+        private final int pacienteId = columna("rt.paciente_id");
+        private final int medicoTriageId = columna("rt.medico_triage_id");
+        private final int fechaHoraLlegada = columna("rt.fecha_hora_llegada");
+        private final int fechaHoraTriage = columna("rt.fecha_hora_triage");
+        private final int motivoConsulta = columna("rt.motivo_consulta");
+        private final int sintomasPrincipales = columna("rt.sintomas_principales");
+        private final int presionSistolica = columna("rt.presion_sistolica");
+        private final int presionDiastolica = columna("rt.presion_diastolica");
+        private final int frecuenciaCardiaca = columna("rt.frecuencia_cardiaca");
+        private final int temperatura = columna("rt.temperatura");
+        private final int frecuenciaRespiratoria = columna("rt.frecuencia_respiratoria");
+        private final int saturacionOxigeno = columna("rt.saturacion_oxigeno");
+        private final int glasgow = columna("rt.glasgow");
+        private final int observacionesTriage = columna("rt.observaciones_triage");
+        private final int nivelUrgencia = columna("rt.nivel_urgencia");
+        private final int especialidadAsignada = columna("rt.especialidad_asignada");
+        private final int prioridadOrden = columna("rt.prioridad_orden");
+        private final int estado = columna("rt.estado");
+        private final int fechaUltimaActualizacion = columna("rt.fecha_ultima_actualizacion");
+        private final int pacienteNombre = columna(EXPRESION_NOMBRE_PACIENTE, "paciente_nombre");
+        private final int numeroExpediente = columna("p.id", "numero_expediente");
+        private final int usuarioNombre = columna("u.nombre_completo", "usuario_nombre");
+        
+        @Override
+        protected RegistroTriage mapear(Fila fila) throws SQLException {
+            RegistroTriage registro = new RegistroTriage();
+            
+            registro.setId(fila.entero(id));
+            registro.setFolio(fila.texto(folio));
+            registro.setPacienteId(fila.entero(pacienteId));
+            registro.setUsuarioTriageId(fila.entero(medicoTriageId));
+            
+            LocalDateTime llegada = fila.fechaHora(fechaHoraLlegada);
+            if (llegada != null) {
+                registro.setFechaHoraLlegada(llegada);
+            }
+            registro.setFechaTriage(fila.fechaHora(fechaHoraTriage));
+            
+            registro.setMotivoConsulta(fila.texto(motivoConsulta));
+            registro.setSintomasPrincipales(fila.texto(sintomasPrincipales));
+            
+            // Construir presión arterial desde sistólica y diastólica
+            int sistolica = fila.entero(presionSistolica);
+            int diastolica = fila.entero(presionDiastolica);
+            if (sistolica > 0 && diastolica > 0) {
+                registro.setSignosVitalesPresion(sistolica + "/" + diastolica);
+            }
+            
+            registro.setSignosVitalesPulso(fila.entero(frecuenciaCardiaca));
+            registro.setSignosVitalesTemperatura(fila.decimal(temperatura));
+            registro.setSignosVitalesRespiracion(fila.entero(frecuenciaRespiratoria));
+            registro.setSignosVitalesSaturacion(fila.entero(saturacionOxigeno));
+            registro.setEscalaGlasgow(fila.entero(glasgow));
+            registro.setObservacionesTriage(fila.texto(observacionesTriage));
+            
+            String nivel = fila.texto(nivelUrgencia);
+            if (nivel != null) {
+                registro.setNivelUrgencia(NivelUrgencia.valueOf(nivel));
+            }
+            
+            registro.setEspecialidadAsignada(fila.texto(especialidadAsignada));
+            registro.setPrioridadNumerica(fila.entero(prioridadOrden));
+            
+            String valorEstado = fila.texto(estado);
+            if (valorEstado != null) {
+                registro.setEstado(EstadoPaciente.valueOf(valorEstado));
+            }
+            registro.setFechaUltimaActualizacion(fila.fechaHora(fechaUltimaActualizacion));
+            
+            // Campos de los JOINs: quedan en null si la consulta no los trae
+            registro.setPacienteNombre(fila.texto(pacienteNombre));
+            registro.setNumeroExpediente(fila.texto(numeroExpediente));
+            registro.setUsuarioNombre(fila.texto(usuarioNombre));
+            
+            return registro;
+        }
+    }
+    
+    /**
+     * Proyección de fila de cola: lo que necesitan TriageQueue y la lista de sala de espera
+     */
+    private static final class MapeadorFilaCola extends MapeadorFilas<RegistroTriage> {
+        private final int id = columna("rt.id");
+        private final int folio = columna("rt.folio");
+        private final int pacienteId = columna("rt.paciente_id");
+        private final int fechaHoraLlegada = columna("rt.fecha_hora_llegada");
+        private final int fechaHoraTriage = columna("rt.fecha_hora_triage");
+        private final int nivelUrgencia = columna("rt.nivel_urgencia");
+        private final int prioridadOrden = columna("rt.prioridad_orden");
+        private final int estado = columna("rt.estado");
+        private final int pacienteNombre = columna(EXPRESION_NOMBRE_PACIENTE, "paciente_nombre");
+        private final int numeroExpediente = columna(EXPRESION_EXPEDIENTE, "numero_expediente");
+        
+        @Override
+        protected RegistroTriage mapear(Fila fila) throws SQLException {
+            RegistroTriage registro = new RegistroTriage();
+            
+            registro.setId(fila.entero(id));
+            registro.setFolio(fila.texto(folio));
+            registro.setPacienteId(fila.entero(pacienteId));
+            
+            LocalDateTime llegada = fila.fechaHora(fechaHoraLlegada);
+            if (llegada != null) {
+                registro.setFechaHoraLlegada(llegada);
+            }
+            registro.setFechaTriage(fila.fechaHora(fechaHoraTriage));
+            
+            String nivel = fila.texto(nivelUrgencia);
+            if (nivel != null) {
+                registro.setNivelUrgencia(NivelUrgencia.valueOf(nivel));
+            }
+            registro.setPrioridadNumerica(fila.entero(prioridadOrden));
+            
+            String valorEstado = fila.texto(estado);
+            if (valorEstado != null) {
+                registro.setEstado(EstadoPaciente.valueOf(valorEstado));
+            }
+            
+            registro.setPacienteNombre(fila.texto(pacienteNombre));
+            registro.setNumeroExpediente(fila.texto(numeroExpediente));
+            
+            return registro;
+        }
+    }
+    
+    /**
+     * Proyección de fila compacta: se lee directamente a FilaTriage, sin crear RegistroTriage
+     */
+    private static final class MapeadorFilaTriage extends MapeadorFilas<FilaTriage> {
+        private final int id = columna("rt.id");
+        private final int pacienteId = columna("rt.paciente_id");
+        private final int pacienteNombre = columna(EXPRESION_NOMBRE_PACIENTE, "paciente_nombre");
+        private final int numeroExpediente = columna(EXPRESION_EXPEDIENTE, "numero_expediente");
+        private final int nivelUrgencia = columna("rt.nivel_urgencia");
+        private final int estado = columna("rt.estado");
+        private final int fechaHoraLlegada = columna("rt.fecha_hora_llegada");
+        private final int especialidadAsignada = columna("rt.especialidad_asignada");
+        
+        @Override
+        protected FilaTriage mapear(Fila fila) throws SQLException {
+            String nivel = fila.texto(nivelUrgencia);
+            String valorEstado = fila.texto(estado);
+            return FilaTriage.crear(
+                fila.entero(id),
+                fila.entero(pacienteId),
+                fila.texto(pacienteNombre),
+                fila.texto(numeroExpediente),
+                nivel != null ? NivelUrgencia.valueOf(nivel) : null,
+                valorEstado != null ? EstadoPaciente.valueOf(valorEstado) : null,
+                fila.fechaHora(fechaHoraLlegada),
+                fila.texto(especialidadAsignada)
+            );
+        }
+    }
 }
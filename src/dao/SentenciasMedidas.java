@@ -0,0 +1,91 @@
+package dao;
+
+import utils.RegistroMetricas;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Medición de las sentencias SQL que ejecutan los métodos utilitarios de BaseDAO
+ * (ejecutarLectura y las consultas que pasan por él, ejecutarActualizacion,
+ * ejecutarInsercionConClave y contar): cada uno toma el tiempo de su execute* con
+ * System.nanoTime y lo registra en un temporizador identificado por la sentencia
+ * (operación, tabla principal y un hash corto del texto), por ejemplo select_pacientes_3fa2c1
+ * Las que superan el umbral de RegistroConsultasLentas se reportan con la forma de sus
+ * parámetros y las filas leídas o afectadas
+ */
+final class SentenciasMedidas {
+    
+    static final String METRICA = "hsv_dao_consulta_segundos";
+    
+    // Límite de sentencias distintas con serie propia (SQL armado con literales no debe crecer sin fin)
+    private static final int MAX_SENTENCIAS = 512;
+    
+    private static final RegistroMetricas.GrupoTemporizadores CONSULTAS = RegistroMetricas.getInstance()
+        .grupo(METRICA, "Latencia de las sentencias SQL ejecutadas por los DAOs", "sql");
+    private static final ConcurrentHashMap<String, RegistroMetricas.Temporizador> POR_SQL = new ConcurrentHashMap<>();
+    private static final RegistroConsultasLentas LENTAS = RegistroConsultasLentas.getInstance();
+    
+    private SentenciasMedidas() {
+    }
+    
+    /**
+     * Registra una ejecución terminada y la reporta si resultó lenta
+     * @param sql Texto de la sentencia
+     * @param duracion Nanosegundos que tardó el execute*
+     * @param filas Filas leídas o afectadas (-1 si no se conocen)
+     * @param parametros Parámetros enlazados
+     */
+    static void registrar(String sql, long duracion, long filas, Object[] parametros) {
+        temporizador(sql).registrarDuracion(duracion);
+        if (LENTAS.esLenta(duracion)) {
+            LENTAS.registrar(sql, duracion, filas, parametros.clone());
+        }
+    }
+    
+    /**
+     * Registra una ejecución que terminó en error
+     * @param sql Texto de la sentencia
+     * @param inicioNanos Valor de System.nanoTime() antes del execute*
+     */
+    static void registrarError(String sql, long inicioNanos) {
+        temporizador(sql).registrarError(inicioNanos);
+    }
+    
+    /**
+     * Obtiene el temporizador de una sentencia
+     * @param sql Texto de la sentencia
+     * @return Temporizador asociado a su identificador
+     */
+    static RegistroMetricas.Temporizador temporizador(String sql) {
+        RegistroMetricas.Temporizador temporizador = POR_SQL.get(sql);
+        if (temporizador == null) {
+            if (POR_SQL.size() >= MAX_SENTENCIAS) {
+                return CONSULTAS.de("otras");
+            }
+            temporizador = POR_SQL.computeIfAbsent(sql, s -> CONSULTAS.de(identificar(s)));
+        }
+        return temporizador;
+    }
+    
+    /**
+     * Construye el identificador corto de una sentencia
+     * @param sql Texto de la sentencia
+     * @return Identificador operación_tabla_hash
+     */
+    static String identificar(String sql) {
+        String[] palabras = sql.trim().split("[\\s(),;]+");
+        String operacion = palabras.length > 0 && !palabras[0].isEmpty()
+            ? palabras[0].toLowerCase(Locale.ROOT) : "sql";
+        String tabla = "";
+        for (int i = 0; i < palabras.length - 1 && tabla.isEmpty(); i++) {
+            String palabra = palabras[i].toUpperCase(Locale.ROOT);
+            if (palabra.equals("FROM") || palabra.equals("INTO") || palabra.equals("UPDATE")) {
+                tabla = palabras[i + 1].replace("`", "").toLowerCase(Locale.ROOT);
+            }
+        }
+        // Hash sobre el texto normalizado para que los cambios de sangría no generen otra serie
+        String normalizado = String.join(" ", palabras).toLowerCase(Locale.ROOT);
+        String hash = String.format("%06x", normalizado.hashCode() & 0xFFFFFF);
+        return tabla.isEmpty() ? operacion + "_" + hash : operacion + "_" + tabla + "_" + hash;
+    }
+}
@@ -0,0 +1,191 @@
+package dao;
+
+import models.EstadoPaciente;
+import models.TransicionPaciente;
+import utils.DatabaseConnection;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO de la tabla transiciones_paciente (bitácora de flujo de pacientes)
+ * La tabla es de solo anexado: los eventos se insertan en lote y nunca se actualizan ni borran
+ * Cada evento se identifica por (nodo, secuencia), de modo que reenviar un lote ya escrito
+ * (por ejemplo tras un error de red a mitad del lote) no duplica filas
+ * No extiende BaseDAO: la tabla no admite insertar, actualizar ni eliminar eventos sueltos,
+ * así que solo expone la inserción en lote y las consultas
+ */
+public class TransicionPacienteDAO {
+    
+    private static final String TABLA = "transiciones_paciente";
+    
+    // Consultas SQL predefinidas
+    private static final String SQL_INSERTAR =
+        "INSERT IGNORE INTO " + TABLA + " (nodo, secuencia, paciente_id, registro_triage_id, " +
+        "estado_origen, estado_destino, fecha_hora, usuario_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String SQL_SELECT =
+        "SELECT secuencia, paciente_id, registro_triage_id, estado_origen, estado_destino, " +
+        "fecha_hora, usuario_id FROM " + TABLA;
+    
+    private static final String SQL_BUSCAR_POR_ID = SQL_SELECT + " WHERE id = ?";
+    
+    private static final String SQL_OBTENER_TODOS = SQL_SELECT + " ORDER BY fecha_hora, id";
+    
+    private static final String SQL_OBTENER_POR_PACIENTE =
+        SQL_SELECT + " WHERE paciente_id = ? ORDER BY fecha_hora, id";
+    
+    private static final String SQL_ULTIMA_SECUENCIA =
+        "SELECT COALESCE(MAX(secuencia), 0) FROM " + TABLA + " WHERE nodo = ?";
+    
+    private final DatabaseConnection dbConnection;
+    
+    public TransicionPacienteDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+    
+    /**
+     * Inserta un lote de eventos de una estación en una sola ida y vuelta
+     * Los eventos ya existentes (misma estación y secuencia) se ignoran
+     * @param nodo Identificador de la estación que generó los eventos
+     * @param transiciones Eventos en orden de secuencia
+     * @return Número de filas nuevas
+     * @throws SQLException si hay error en la operación
+     */
+    public int insertarLote(String nodo, List<TransicionPaciente> transiciones) throws SQLException {
+        if (transiciones == null || transiciones.isEmpty()) {
+            return 0;
+        }
+        
+        try (PreparedStatement stmt = getConnection().prepareStatement(SQL_INSERTAR)) {
+            
+            for (TransicionPaciente transicion : transiciones) {
+                stmt.setString(1, nodo);
+                stmt.setLong(2, transicion.secuencia());
+                stmt.setInt(3, transicion.pacienteId());
+                if (transicion.registroTriageId() > 0) {
+                    stmt.setInt(4, transicion.registroTriageId());
+                } else {
+                    stmt.setNull(4, Types.INTEGER);
+                }
+                stmt.setString(5, transicion.origen() != null ? transicion.origen().name() : null);
+                stmt.setString(6, transicion.destino().name());
+                stmt.setTimestamp(7, transicion.momento() != null ? Timestamp.valueOf(transicion.momento()) : null);
+                if (transicion.usuarioId() > 0) {
+                    stmt.setInt(8, transicion.usuarioId());
+                } else {
+                    stmt.setNull(8, Types.INTEGER);
+                }
+                stmt.addBatch();
+            }
+            
+            long inicio = System.nanoTime();
+            int[] resultados;
+            try {
+                resultados = stmt.executeBatch();
+            } catch (SQLException e) {
+                SentenciasMedidas.registrarError(SQL_INSERTAR, inicio);
+                throw e;
+            }
+            
+            int filasInsertadas = 0;
+            for (int resultado : resultados) {
+                // SUCCESS_NO_INFO (-2) cuenta como fila insertada
+                filasInsertadas += resultado == Statement.SUCCESS_NO_INFO ? 1 : Math.max(resultado, 0);
+            }
+            SentenciasMedidas.registrar(SQL_INSERTAR, System.nanoTime() - inicio, filasInsertadas, new Object[0]);
+            return filasInsertadas;
+        }
+    }
+    
+    /**
+     * Obtiene la última secuencia de una estación que ya está en la base de datos
+     * @param nodo Identificador de la estación
+     * @return Secuencia más alta escrita, o 0 si no hay eventos
+     * @throws SQLException si hay error en la operación
+     */
+    public long obtenerUltimaSecuencia(String nodo) throws SQLException {
+        try (PreparedStatement stmt = getConnection().prepareStatement(SQL_ULTIMA_SECUENCIA)) {
+            stmt.setString(1, nodo);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Obtiene el historial de estados de un paciente en orden cronológico
+     * @param pacienteId ID del paciente
+     * @return Eventos del paciente
+     * @throws SQLException si hay error en la operación
+     */
+    public List<TransicionPaciente> obtenerPorPaciente(int pacienteId) throws SQLException {
+        return consultar(SQL_OBTENER_POR_PACIENTE, pacienteId);
+    }
+    
+    /**
+     * Busca un evento por el ID de su fila
+     * @param id ID de la fila
+     * @return Evento encontrado o null
+     * @throws SQLException si hay error en la operación
+     */
+    public TransicionPaciente buscarPorId(int id) throws SQLException {
+        List<TransicionPaciente> resultado = consultar(SQL_BUSCAR_POR_ID, id);
+        return resultado.isEmpty() ? null : resultado.get(0);
+    }
+    
+    /**
+     * Obtiene todos los eventos en orden cronológico
+     * @return Eventos de todas las estaciones
+     * @throws SQLException si hay error en la operación
+     */
+    public List<TransicionPaciente> obtenerTodos() throws SQLException {
+        return consultar(SQL_OBTENER_TODOS);
+    }
+    
+    /**
+     * Estado 08001 sin conexión: el llamador lo reconoce como falta de conexión (ver AlmacenLocal)
+     */
+    private Connection getConnection() throws SQLException {
+        Connection conn = dbConnection.getConnection();
+        if (conn == null) {
+            throw new SQLNonTransientConnectionException("No se pudo obtener conexión a la base de datos", "08001");
+        }
+        return conn;
+    }
+    
+    private List<TransicionPaciente> consultar(String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement stmt = getConnection().prepareStatement(sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                stmt.setObject(i + 1, parametros[i]);
+            }
+            
+            long inicio = System.nanoTime();
+            List<TransicionPaciente> resultados = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    resultados.add(mapear(rs));
+                }
+            } catch (SQLException e) {
+                SentenciasMedidas.registrarError(sql, inicio);
+                throw e;
+            }
+            SentenciasMedidas.registrar(sql, System.nanoTime() - inicio, resultados.size(), parametros);
+            return resultados;
+        }
+    }
+    
+    private static TransicionPaciente mapear(ResultSet rs) throws SQLException {
+        String origen = rs.getString("estado_origen");
+        Timestamp fechaHora = rs.getTimestamp("fecha_hora");
+        return new TransicionPaciente(
+            rs.getLong("secuencia"),
+            rs.getInt("paciente_id"),
+            rs.getInt("registro_triage_id"),
+            origen != null ? EstadoPaciente.valueOf(origen) : null,
+            EstadoPaciente.valueOf(rs.getString("estado_destino")),
+            fechaHora != null ? fechaHora.toLocalDateTime() : null,
+            rs.getInt("usuario_id")
+        );
+    }
+}
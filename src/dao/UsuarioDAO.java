@@ -8,6 +8,7 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * DAO para la gestión de usuarios en el sistema hospitalario
@@ -260,6 +261,43 @@ public class UsuarioDAO extends BaseDAO<Usuario> {
         return filasActualizadas > 0;
     }
     
+    /**
+     * Actualiza el último acceso de varios usuarios en un solo lote JDBC
+     * Usado por RegistroAccesosDiferido para vaciar los accesos acumulados
+     * @param accesos Mapa de ID de usuario a fecha de último acceso
+     * @return Número de filas actualizadas
+     * @throws SQLException si hay error en la operación
+     */
+    public int actualizarUltimoAccesoEnLote(Map<Integer, LocalDateTime> accesos) throws SQLException {
+        if (accesos == null || accesos.isEmpty()) {
+            return 0;
+        }
+        
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(SQL_ACTUALIZAR_ULTIMO_ACCESO);
+            
+            for (Map.Entry<Integer, LocalDateTime> acceso : accesos.entrySet()) {
+                stmt.setTimestamp(1, convertirATimestamp(acceso.getValue()));
+                stmt.setInt(2, acceso.getKey());
+                stmt.addBatch();
+            }
+            
+            int filasActualizadas = 0;
+            for (int resultado : stmt.executeBatch()) {
+                // SUCCESS_NO_INFO (-2) cuenta como fila actualizada
+                filasActualizadas += resultado == Statement.SUCCESS_NO_INFO ? 1 : Math.max(resultado, 0);
+            }
+            return filasActualizadas;
+        
+        } finally {
+            cerrarRecursos(stmt);
+        }
+    }
+    
     /**
      * Cambia la contraseña de un usuario
      * @param usuarioId ID del usuario
@@ -326,8 +364,8 @@ public class UsuarioDAO extends BaseDAO<Usuario> {
         
         // Verificar contraseña
         if (PasswordUtils.verifyPassword(password, usuario.getPasswordHash())) {
-            // Actualizar último acceso
-            actualizarUltimoAcceso(usuario.getId(), LocalDateTime.now());
+            // Registrar último acceso de forma diferida (se escribe en lote)
+            RegistroAccesosDiferido.getInstance().registrarAcceso(usuario.getId(), LocalDateTime.now());
             return usuario;
         }
         
@@ -0,0 +1,54 @@
+package models;
+
+import java.time.LocalDate;
+
+/**
+ * Fila compacta e inmutable de paciente para vistas de lista
+ * Guarda solo lo que muestran las tablas de pacientes: el ID como primitivo, la fecha de
+ * nacimiento como día epoch y el estado como booleano. El expediente completo se carga por ID
+ * cuando el usuario selecciona la fila
+ * @param id ID del paciente
+ * @param expediente Número de expediente
+ * @param nombreCompleto Nombre para mostrar
+ * @param fechaNacimientoDia Días desde 1970-01-01, o SIN_FECHA
+ * @param telefono Teléfono principal
+ * @param activo false cuando el paciente fue dado de alta
+ */
+public record FilaPaciente(int id, String expediente, String nombreCompleto,
+                           int fechaNacimientoDia, String telefono, boolean activo) {
+    
+    /** Valor de fechaNacimientoDia cuando no se conoce la fecha */
+    public static final int SIN_FECHA = Integer.MIN_VALUE;
+    
+    /**
+     * Crea la fila a partir de un paciente ya cargado (altas y actualizaciones en memoria)
+     * @param paciente Paciente completo
+     * @return Fila equivalente
+     */
+    public static FilaPaciente de(Paciente paciente) {
+        return new FilaPaciente(
+            paciente.getId(),
+            paciente.getNumeroExpediente(),
+            paciente.getNombreCompleto(),
+            diaEpoch(paciente.getFechaNacimiento()),
+            paciente.getTelefono(),
+            paciente.isActivo()
+        );
+    }
+    
+    /**
+     * Convierte una fecha a día epoch
+     * @param fecha Fecha o null
+     * @return Días desde 1970-01-01, o SIN_FECHA si la fecha es null
+     */
+    public static int diaEpoch(LocalDate fecha) {
+        return fecha != null ? (int) fecha.toEpochDay() : SIN_FECHA;
+    }
+    
+    /**
+     * @return Fecha de nacimiento, o null si no se conoce
+     */
+    public LocalDate fechaNacimiento() {
+        return fechaNacimientoDia != SIN_FECHA ? LocalDate.ofEpochDay(fechaNacimientoDia) : null;
+    }
+}
@@ -0,0 +1,95 @@
+package models;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fila compacta e inmutable de registro de triage para vistas de lista
+ * (cola de triage, sala de espera, pendientes de trabajo social)
+ * Los enums se guardan por ordinal, la hora de llegada como minuto epoch (hora local) y la
+ * especialidad, que se repite entre muchas filas, como cadena internada. El registro completo
+ * se carga por ID solo para la fila seleccionada
+ * @param registroId ID del registro de triage
+ * @param pacienteId ID del paciente
+ * @param pacienteNombre Nombre del paciente para mostrar
+ * @param expediente Número de expediente
+ * @param nivel Ordinal de NivelUrgencia, o SIN_VALOR
+ * @param estado Ordinal de EstadoPaciente, o SIN_VALOR
+ * @param llegadaMinuto Minutos desde 1970-01-01T00:00 en hora local, o SIN_FECHA
+ * @param especialidad Especialidad asignada (internada), o null
+ */
+public record FilaTriage(int registroId, int pacienteId, String pacienteNombre, String expediente,
+                         byte nivel, byte estado, int llegadaMinuto, String especialidad) {
+    
+    /** Ordinal usado cuando el enum no tiene valor */
+    public static final byte SIN_VALOR = -1;
+    
+    /** Valor de llegadaMinuto cuando no se conoce la hora */
+    public static final int SIN_FECHA = Integer.MIN_VALUE;
+    
+    // values() crea un arreglo nuevo en cada llamada
+    private static final NivelUrgencia[] NIVELES = NivelUrgencia.values();
+    private static final EstadoPaciente[] ESTADOS = EstadoPaciente.values();
+    
+    /**
+     * Crea la fila codificando enums, fecha y especialidad
+     * @return Fila compacta
+     */
+    public static FilaTriage crear(int registroId, int pacienteId, String pacienteNombre, String expediente,
+                                   NivelUrgencia nivel, EstadoPaciente estado, LocalDateTime llegada,
+                                   String especialidad) {
+        return new FilaTriage(
+            registroId,
+            pacienteId,
+            pacienteNombre,
+            expediente,
+            nivel != null ? (byte) nivel.ordinal() : SIN_VALOR,
+            estado != null ? (byte) estado.ordinal() : SIN_VALOR,
+            llegada != null ? (int) (llegada.toEpochSecond(ZoneOffset.UTC) / 60) : SIN_FECHA,
+            especialidad != null ? especialidad.intern() : null
+        );
+    }
+    
+    /**
+     * Crea la fila a partir de un registro ya cargado en memoria
+     * @param registro Registro de triage (por ejemplo, de la cola)
+     * @param pacienteNombre Nombre a mostrar
+     * @param expediente Número de expediente
+     * @return Fila compacta
+     */
+    public static FilaTriage de(RegistroTriage registro, String pacienteNombre, String expediente) {
+        return crear(registro.getId(), registro.getPacienteId(), pacienteNombre, expediente,
+                     registro.getNivelUrgencia(), registro.getEstado(), registro.getFechaHoraLlegada(),
+                     registro.getEspecialidadAsignada());
+    }
+    
+    /**
+     * @return Nivel de urgencia, o null si no tiene
+     */
+    public NivelUrgencia nivelUrgencia() {
+        return nivel != SIN_VALOR ? NIVELES[nivel] : null;
+    }
+    
+    /**
+     * @return Estado del paciente, o null si no tiene
+     */
+    public EstadoPaciente estadoPaciente() {
+        return estado != SIN_VALOR ? ESTADOS[estado] : null;
+    }
+    
+    /**
+     * @return Hora de llegada (precisión de minutos), o null si no se conoce
+     */
+    public LocalDateTime fechaLlegada() {
+        return llegadaMinuto != SIN_FECHA ? LocalDateTime.ofEpochSecond(llegadaMinuto * 60L, 0, ZoneOffset.UTC) : null;
+    }
+    
+    /**
+     * @return Minutos transcurridos desde la llegada hasta ahora
+     */
+    public long minutosEspera() {
+        LocalDateTime llegada = fechaLlegada();
+        return llegada != null ? Duration.between(llegada, LocalDateTime.now()).toMinutes() : 0;
+    }
+}
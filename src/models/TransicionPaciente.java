@@ -0,0 +1,26 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento inmutable de la bitácora de flujo de pacientes: un cambio de estado
+ * Los eventos sólo se agregan; el estado actual de cada paciente se obtiene reproduciéndolos
+ * @param secuencia Número consecutivo del evento en la estación que lo generó
+ * @param pacienteId ID del paciente
+ * @param registroTriageId ID del registro de triage (visita), o 0 si no aplica
+ * @param origen Estado anterior, o null si es la llegada de una visita nueva
+ * @param destino Estado nuevo
+ * @param momento Fecha y hora del cambio
+ * @param usuarioId Usuario que hizo el cambio, o 0 si no se conoce
+ */
+public record TransicionPaciente(long secuencia, int pacienteId, int registroTriageId,
+                                 EstadoPaciente origen, EstadoPaciente destino,
+                                 LocalDateTime momento, int usuarioId) {
+    
+    /**
+     * @return true si el evento abre una visita (no tiene estado anterior)
+     */
+    public boolean esLlegada() {
+        return origen == null;
+    }
+}
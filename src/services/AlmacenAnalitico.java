@@ -0,0 +1,600 @@
+package services;
+
+import dao.AlmacenLocal;
+import dao.AtencionMedicaDAO;
+import dao.ExtraccionHistoricaDAO;
+import dao.ExtraccionHistoricaDAO.Tabla;
+import dao.PacienteDAO;
+import dao.RegistroTriageDAO;
+import models.Especialidad;
+import models.NivelUrgencia;
+import structures.MotorAnalitico;
+import structures.MotorAnalitico.RangoFechas;
+import structures.SegmentoColumnar;
+import utils.Bitacora;
+import utils.RegistroMetricas;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copia columnar local de las tablas de urgencias para los reportes históricos
+ * Cada noche (a las {@link #HORA_EXPORTACION}) se exportan atencion_medica, registros_triage y
+ * pacientes a segmentos comprimidos en datos/analitica/&lt;tabla&gt;/, y los reportes de conteos,
+ * promedios y distribuciones se calculan con MotorAnalitico sobre esos segmentos en vez de
+ * ejecutar GROUP BY sobre las tablas en uso.
+ *
+ * La exportación es incremental: se conservan los segmentos llenos cuyas filas tienen más de
+ * {@value #DIAS_REEXPORTACION} días (ya no cambian) y se vuelven a extraer las demás filas en
+ * orden de ID. Pacientes no tiene fecha de evento y se reconstruye completa. Cada exportación
+ * escribe segmentos con un número de generación nuevo y al final reemplaza el manifiesto,
+ * de modo que una exportación interrumpida no deja la copia a medias.
+ *
+ * Los reportes suman a los segmentos las filas con ID posterior a la última exportación
+ * (se leen de la base de datos y se conservan {@value #VIGENCIA_RECIENTES_MS} ms). Sin conexión
+ * se responde solo con la copia local; si aún no hay copia se consulta el DAO como antes.
+ * Los cambios a filas ya exportadas y anteriores a la ventana de reexportación no se reflejan
+ */
+public class AlmacenAnalitico {
+    
+    private static final Bitacora BITACORA = Bitacora.de(AlmacenAnalitico.class);
+    
+    private static final RegistroMetricas.GrupoTemporizadores METRICAS = RegistroMetricas.getInstance()
+        .grupo("hsv_servicio_segundos", "Latencia de los métodos públicos de los servicios", "metodo",
+               "servicio", "AlmacenAnalitico");
+    
+    public static final Path DIRECTORIO_PREDETERMINADO = Paths.get("datos", "analitica");
+    public static final int FILAS_POR_SEGMENTO = 65_536;
+    public static final int DIAS_REEXPORTACION = 7;
+    public static final LocalTime HORA_EXPORTACION = LocalTime.of(2, 30);
+    public static final long VIGENCIA_RECIENTES_MS = 60_000;
+    
+    private static final String MANIFIESTO = "manifiesto.properties";
+    private static final String[] RANGOS_EDAD = {"Menor de 18", "18-30", "31-50", "51-70", "Mayor de 70"};
+    
+    private static volatile AlmacenAnalitico instance;
+    
+    private final ExtraccionHistoricaDAO extraccion;
+    private final AtencionMedicaDAO atencionDAO;
+    private final RegistroTriageDAO registroTriageDAO;
+    private final PacienteDAO pacienteDAO;
+    private final Path directorio;
+    
+    // Un solo hilo carga y exporta: las exportaciones nunca se enciman
+    private final ScheduledExecutorService programador;
+    
+    private final Map<Tabla, Instantanea> instantaneas = new ConcurrentHashMap<>();
+    private final Map<Tabla, Recientes> recientes = new ConcurrentHashMap<>();
+    
+    // Métricas
+    private final AtomicLong consultasMotor = new AtomicLong();
+    private final AtomicLong consultasRespaldo = new AtomicLong();
+    private final AtomicLong exportaciones = new AtomicLong();
+    private final AtomicLong erroresExportacion = new AtomicLong();
+    private volatile long duracionUltimaExportacionMs;
+    
+    /**
+     * Segmentos vigentes de una tabla (inmutable; se reemplaza completa en cada exportación)
+     */
+    private record Instantanea(List<SegmentoColumnar> segmentos, List<String> archivos, int ultimoId,
+                               int generacion, LocalDateTime exportada) {
+        long filas() {
+            long total = 0;
+            for (SegmentoColumnar segmento : segmentos) {
+                total += segmento.getFilas();
+            }
+            return total;
+        }
+    }
+    
+    /**
+     * Filas posteriores a la exportación, leídas de la base de datos
+     * El segmento es null si la última lectura falló
+     */
+    private record Recientes(int desdeId, SegmentoColumnar segmento, long leidoNanos) {
+    }
+    
+    private AlmacenAnalitico() {
+        this(new ExtraccionHistoricaDAO(), DIRECTORIO_PREDETERMINADO, true);
+    }
+    
+    /**
+     * Constructor con directorio configurable
+     * Los segmentos existentes se cargan en segundo plano; mientras tanto los reportes usan los DAOs
+     * @param extraccion DAO de extracción
+     * @param directorio Directorio de la copia columnar
+     * @param programarExportacion true para exportar cada noche a la HORA_EXPORTACION
+     */
+    AlmacenAnalitico(ExtraccionHistoricaDAO extraccion, Path directorio, boolean programarExportacion) {
+        this.extraccion = extraccion;
+        this.atencionDAO = new AtencionMedicaDAO();
+        this.registroTriageDAO = new RegistroTriageDAO();
+        this.pacienteDAO = new PacienteDAO();
+        this.directorio = directorio;
+        
+        this.programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "almacen-analitico");
+            hilo.setDaemon(true);
+            hilo.setPriority(Thread.MIN_PRIORITY);
+            return hilo;
+        });
+        this.programador.execute(this::cargar);
+        if (programarExportacion) {
+            long retraso = Duration.between(LocalDateTime.now(), siguienteExportacion()).toMillis();
+            this.programador.scheduleAtFixedRate(this::exportar, retraso, TimeUnit.DAYS.toMillis(1),
+                TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Obtiene la instancia única del almacén analítico
+     * @return Instancia de AlmacenAnalitico
+     */
+    public static AlmacenAnalitico getInstance() {
+        if (instance == null) {
+            synchronized (AlmacenAnalitico.class) {
+                if (instance == null) {
+                    instance = new AlmacenAnalitico();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    // --- Reportes ---
+    
+    /**
+     * Cuenta atenciones por especialidad (equivale a AtencionMedicaDAO.contarPorEspecialidad)
+     * @return Lista de conteos por especialidad
+     * @throws SQLException si no hay copia local y falla la consulta al DAO
+     */
+    public List<AtencionMedicaDAO.ConteoEspecialidad> contarPorEspecialidad() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            List<SegmentoColumnar> segmentos = segmentosParaConsulta(Tabla.ATENCION_MEDICA);
+            if (segmentos == null) {
+                return atencionDAO.contarPorEspecialidad();
+            }
+            
+            Map<String, Long> conteo = MotorAnalitico.contarPor(segmentos, "especialidad_medica", null);
+            List<AtencionMedicaDAO.ConteoEspecialidad> conteos = new ArrayList<>();
+            for (Especialidad especialidad : Especialidad.values()) {
+                Long cantidad = conteo.get(especialidad.name());
+                if (cantidad != null) {
+                    AtencionMedicaDAO.ConteoEspecialidad fila = new AtencionMedicaDAO.ConteoEspecialidad();
+                    fila.especialidad = especialidad;
+                    fila.cantidad = (int) (long) cantidad;
+                    conteos.add(fila);
+                }
+            }
+            return conteos;
+        } finally {
+            METRICAS.registrar("contarPorEspecialidad", inicio);
+        }
+    }
+    
+    /**
+     * Cuenta pacientes por sexo (equivale a PacienteDAO.contarPorGenero)
+     * @return Lista de conteos por género
+     * @throws SQLException si no hay copia local y falla la consulta al DAO
+     */
+    public List<PacienteDAO.ConteoGenero> contarPorGenero() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            List<SegmentoColumnar> segmentos = segmentosParaConsulta(Tabla.PACIENTES);
+            if (segmentos == null) {
+                return pacienteDAO.contarPorGenero();
+            }
+            
+            List<PacienteDAO.ConteoGenero> conteos = new ArrayList<>();
+            MotorAnalitico.contarPor(segmentos, "sexo", null)
+                .forEach((sexo, conteo) -> conteos.add(new PacienteDAO.ConteoGenero(sexo, (int) (long) conteo)));
+            return conteos;
+        } finally {
+            METRICAS.registrar("contarPorGenero", inicio);
+        }
+    }
+    
+    /**
+     * Cuenta pacientes por rango de edad a la fecha actual (equivale a PacienteDAO.contarPorRangoEdad)
+     * @return Lista de conteos por rango, solo los rangos con pacientes
+     * @throws SQLException si no hay copia local y falla la consulta al DAO
+     */
+    public List<PacienteDAO.ConteoEdad> contarPorRangoEdad() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            List<SegmentoColumnar> segmentos = segmentosParaConsulta(Tabla.PACIENTES);
+            if (segmentos == null) {
+                return pacienteDAO.contarPorRangoEdad();
+            }
+            
+            // Quien nació después de hoy - 18 años tiene menos de 18 (TIMESTAMPDIFF en años completos)
+            LocalDate hoy = LocalDate.now();
+            long[] conteo = MotorAnalitico.contarPorCortes(segmentos, "fecha_nacimiento",
+                hoy.minusYears(18), hoy.minusYears(31), hoy.minusYears(51), hoy.minusYears(71));
+            List<PacienteDAO.ConteoEdad> conteos = new ArrayList<>();
+            for (int i = 0; i < conteo.length; i++) {
+                if (conteo[i] > 0) {
+                    conteos.add(new PacienteDAO.ConteoEdad(RANGOS_EDAD[i], (int) conteo[i]));
+                }
+            }
+            return conteos;
+        } finally {
+            METRICAS.registrar("contarPorRangoEdad", inicio);
+        }
+    }
+    
+    /**
+     * Tiempo estimado de atención promedio por nivel de urgencia en un periodo
+     * (equivale a RegistroTriageDAO.calcularTiempoPromedioPorUrgencia)
+     * @param fechaInicio Primer día del periodo
+     * @param fechaFin Último día del periodo (incluido)
+     * @return Promedio por nivel
+     */
+    public Map<NivelUrgencia, Double> calcularTiempoPromedioPorUrgencia(LocalDate fechaInicio, LocalDate fechaFin) {
+        long inicio = System.nanoTime();
+        try {
+            List<SegmentoColumnar> segmentos = segmentosParaConsulta(Tabla.REGISTROS_TRIAGE);
+            if (segmentos == null) {
+                return registroTriageDAO.calcularTiempoPromedioPorUrgencia(fechaInicio, fechaFin);
+            }
+            
+            Map<NivelUrgencia, Double> resultado = new EnumMap<>(NivelUrgencia.class);
+            MotorAnalitico.agregarPor(segmentos, "nivel_urgencia", "tiempo_estimado_atencion",
+                    RangoFechas.dias("fecha_hora_triage", fechaInicio, fechaFin))
+                .forEach((nivel, agregado) -> {
+                    if (nivel != null) {
+                        // AVG nulo se leía como 0 con getDouble
+                        Double promedio = agregado.promedio();
+                        resultado.put(NivelUrgencia.valueOf(nivel), promedio != null ? promedio : 0.0);
+                    }
+                });
+            return resultado;
+        } finally {
+            METRICAS.registrar("calcularTiempoPromedioPorUrgencia", inicio);
+        }
+    }
+    
+    /**
+     * Triages por día en un periodo (equivale a RegistroTriageDAO.obtenerDistribucionPorDia)
+     * @param fechaInicio Primer día del periodo
+     * @param fechaFin Último día del periodo (incluido)
+     * @return Conteo por día (yyyy-MM-dd) en orden cronológico
+     */
+    public Map<String, Integer> obtenerDistribucionPorDia(LocalDate fechaInicio, LocalDate fechaFin) {
+        long inicio = System.nanoTime();
+        try {
+            List<SegmentoColumnar> segmentos = segmentosParaConsulta(Tabla.REGISTROS_TRIAGE);
+            if (segmentos == null) {
+                return registroTriageDAO.obtenerDistribucionPorDia(fechaInicio, fechaFin);
+            }
+            
+            Map<String, Integer> resultado = new LinkedHashMap<>();
+            MotorAnalitico.contarPorDia(segmentos, RangoFechas.dias("fecha_hora_triage", fechaInicio, fechaFin))
+                .forEach((dia, conteo) -> resultado.put(dia.toString(), (int) (long) conteo));
+            return resultado;
+        } finally {
+            METRICAS.registrar("obtenerDistribucionPorDia", inicio);
+        }
+    }
+    
+    /**
+     * Segmentos de una tabla más las filas posteriores a la exportación
+     * @return Segmentos a consultar, o null si la tabla aún no tiene copia local
+     */
+    private List<SegmentoColumnar> segmentosParaConsulta(Tabla tabla) {
+        Instantanea instantanea = instantaneas.get(tabla);
+        if (instantanea == null) {
+            consultasRespaldo.incrementAndGet();
+            return null;
+        }
+        consultasMotor.incrementAndGet();
+        
+        Recientes actuales = recientes.get(tabla);
+        long ahora = System.nanoTime();
+        boolean vigentes = actuales != null && actuales.desdeId() == instantanea.ultimoId()
+            && ahora - actuales.leidoNanos() < VIGENCIA_RECIENTES_MS * 1_000_000L;
+        if (!vigentes && AlmacenLocal.getInstance().enLinea()) {
+            try {
+                actuales = new Recientes(instantanea.ultimoId(),
+                    extraccion.extraerRecientes(tabla, instantanea.ultimoId()), ahora);
+            } catch (SQLException e) {
+                BITACORA.aviso("No se pudieron leer las filas posteriores a la exportación; el reporte las omite",
+                    "tabla", tabla.getNombre(), "error", e.getMessage());
+                // Se conserva la lectura anterior (si corresponde a la misma exportación) y no se reintenta hasta que venza
+                SegmentoColumnar anterior = actuales != null && actuales.desdeId() == instantanea.ultimoId()
+                    ? actuales.segmento() : null;
+                actuales = new Recientes(instantanea.ultimoId(), anterior, ahora);
+            }
+            recientes.put(tabla, actuales);
+        }
+        
+        if (actuales == null || actuales.desdeId() != instantanea.ultimoId()
+                || actuales.segmento() == null || actuales.segmento().getFilas() == 0) {
+            return instantanea.segmentos();
+        }
+        List<SegmentoColumnar> segmentos = new ArrayList<>(instantanea.segmentos().size() + 1);
+        segmentos.addAll(instantanea.segmentos());
+        segmentos.add(actuales.segmento());
+        return segmentos;
+    }
+    
+    // --- Exportación ---
+    
+    /**
+     * Programa una exportación inmediata (en el hilo del almacén, después de cualquier otra en curso)
+     * @return Future que termina cuando concluye la exportación
+     */
+    public Future<?> exportarAhora() {
+        return programador.submit(this::exportar);
+    }
+    
+    /**
+     * Exporta todas las tablas; un error en una tabla no impide exportar las demás
+     */
+    private void exportar() {
+        long inicio = System.nanoTime();
+        for (Tabla tabla : Tabla.values()) {
+            try {
+                exportarTabla(tabla);
+            } catch (SQLException | IOException | RuntimeException e) {
+                erroresExportacion.incrementAndGet();
+                BITACORA.error("Error al exportar la copia analítica", "tabla", tabla.getNombre(), "error", e.getMessage());
+            }
+        }
+        exportaciones.incrementAndGet();
+        duracionUltimaExportacionMs = (System.nanoTime() - inicio) / 1_000_000;
+        BITACORA.info("Copia analítica exportada", "ms", duracionUltimaExportacionMs, "filas", totalFilas());
+    }
+    
+    private void exportarTabla(Tabla tabla) throws SQLException, IOException {
+        Instantanea actual = instantaneas.get(tabla);
+        int conservar = segmentosConservables(tabla, actual);
+        int generacion = actual != null ? actual.generacion() + 1 : 1;
+        
+        List<SegmentoColumnar> segmentos = new ArrayList<>();
+        List<String> archivos = new ArrayList<>();
+        if (conservar > 0) {
+            segmentos.addAll(actual.segmentos().subList(0, conservar));
+            archivos.addAll(actual.archivos().subList(0, conservar));
+        }
+        int desdeId = conservar > 0 ? (int) segmentos.get(conservar - 1).columna("id").getMaximo() : 0;
+        
+        Path carpeta = directorio.resolve(tabla.getNombre());
+        Files.createDirectories(carpeta);
+        try {
+            extraccion.extraer(tabla, desdeId, FILAS_POR_SEGMENTO, segmento -> {
+                String archivo = String.format("g%d-%05d%s", generacion, segmentos.size(), SegmentoColumnar.EXTENSION);
+                try {
+                    segmento.escribir(carpeta.resolve(archivo));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                segmentos.add(segmento);
+                archivos.add(archivo);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        int ultimoId = segmentos.isEmpty() ? 0 : (int) segmentos.get(segmentos.size() - 1).columna("id").getMaximo();
+        Instantanea nueva = new Instantanea(List.copyOf(segmentos), List.copyOf(archivos), ultimoId, generacion,
+            LocalDateTime.now());
+        escribirManifiesto(tabla, carpeta, nueva);
+        instantaneas.put(tabla, nueva);
+        recientes.remove(tabla);
+        borrarNoListados(carpeta, archivos);
+        
+        BITACORA.debug("Tabla exportada", "tabla", tabla.getNombre(), "segmentos_conservados", conservar,
+            "segmentos", segmentos.size(), "ultimo_id", ultimoId);
+    }
+    
+    /**
+     * Número de segmentos iniciales que no es necesario volver a extraer:
+     * los llenos cuyo evento más reciente es anterior a la ventana de reexportación
+     */
+    private static int segmentosConservables(Tabla tabla, Instantanea actual) {
+        if (actual == null || tabla.getColumnaFecha() == null) {
+            return 0;
+        }
+        long limite = SegmentoColumnar.aSegundos(LocalDate.now().minusDays(DIAS_REEXPORTACION).atStartOfDay());
+        int conservar = 0;
+        for (SegmentoColumnar segmento : actual.segmentos()) {
+            if (segmento.getFilas() < FILAS_POR_SEGMENTO
+                    || segmento.columna(tabla.getColumnaFecha()).getMaximo() >= limite) {
+                break;
+            }
+            conservar++;
+        }
+        return conservar;
+    }
+    
+    private static LocalDateTime siguienteExportacion() {
+        LocalDateTime hoy = LocalDate.now().atTime(HORA_EXPORTACION);
+        return hoy.isAfter(LocalDateTime.now()) ? hoy : hoy.plusDays(1);
+    }
+    
+    // --- Persistencia ---
+    
+    /**
+     * Carga los segmentos listados en el manifiesto de cada tabla
+     * Si falta un segmento, alguno está dañado o cambiaron las columnas, la tabla se descarta
+     * y la siguiente exportación la reconstruye completa
+     */
+    private void cargar() {
+        for (Tabla tabla : Tabla.values()) {
+            Path carpeta = directorio.resolve(tabla.getNombre());
+            Properties manifiesto = new Properties();
+            try (InputStream entrada = Files.newInputStream(carpeta.resolve(MANIFIESTO))) {
+                manifiesto.load(entrada);
+            } catch (NoSuchFileException e) {
+                continue;
+            } catch (IOException e) {
+                BITACORA.aviso("No se pudo leer el manifiesto analítico", "tabla", tabla.getNombre(), "error", e.getMessage());
+                continue;
+            }
+            
+            try {
+                if (!tabla.getListaColumnas().equals(manifiesto.getProperty("columnas"))) {
+                    BITACORA.info("Cambiaron las columnas de la copia analítica; se reconstruirá", "tabla", tabla.getNombre());
+                    continue;
+                }
+                String lista = manifiesto.getProperty("segmentos", "");
+                List<String> archivos = lista.isEmpty() ? List.of() : Arrays.asList(lista.split(","));
+                List<SegmentoColumnar> segmentos = new ArrayList<>(archivos.size());
+                for (String archivo : archivos) {
+                    segmentos.add(SegmentoColumnar.leer(carpeta.resolve(archivo)));
+                }
+                Instantanea instantanea = new Instantanea(List.copyOf(segmentos), List.copyOf(archivos),
+                    Integer.parseInt(manifiesto.getProperty("ultimo_id")),
+                    Integer.parseInt(manifiesto.getProperty("generacion")),
+                    LocalDateTime.parse(manifiesto.getProperty("exportada")));
+                instantaneas.putIfAbsent(tabla, instantanea);
+                BITACORA.info("Copia analítica cargada", "tabla", tabla.getNombre(), "segmentos", segmentos.size(),
+                    "filas", instantanea.filas(), "exportada", instantanea.exportada());
+            } catch (IOException | RuntimeException e) {
+                BITACORA.aviso("Copia analítica descartada; se reconstruirá en la siguiente exportación",
+                    "tabla", tabla.getNombre(), "error", e.getMessage());
+            }
+        }
+    }
+    
+    private static void escribirManifiesto(Tabla tabla, Path carpeta, Instantanea instantanea) throws IOException {
+        Properties manifiesto = new Properties();
+        manifiesto.setProperty("columnas", tabla.getListaColumnas());
+        manifiesto.setProperty("generacion", String.valueOf(instantanea.generacion()));
+        manifiesto.setProperty("ultimo_id", String.valueOf(instantanea.ultimoId()));
+        manifiesto.setProperty("exportada", instantanea.exportada().toString());
+        manifiesto.setProperty("segmentos", String.join(",", instantanea.archivos()));
+        
+        Path temporal = carpeta.resolve(MANIFIESTO + ".tmp");
+        try (OutputStream salida = Files.newOutputStream(temporal)) {
+            manifiesto.store(salida, "Copia analítica de " + tabla.getNombre());
+        }
+        Files.move(temporal, carpeta.resolve(MANIFIESTO), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Borra los segmentos de generaciones anteriores y los de exportaciones interrumpidas
+     */
+    private static void borrarNoListados(Path carpeta, List<String> archivos) {
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(carpeta, "*" + SegmentoColumnar.EXTENSION + "*")) {
+            for (Path archivo : contenido) {
+                if (!archivos.contains(archivo.getFileName().toString())) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+        } catch (IOException e) {
+            BITACORA.aviso("No se pudieron borrar segmentos anteriores", "carpeta", carpeta, "error", e.getMessage());
+        }
+    }
+    
+    // --- Estado ---
+    
+    private long totalFilas() {
+        long total = 0;
+        for (Instantanea instantanea : instantaneas.values()) {
+            total += instantanea.filas();
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene estadísticas del almacén analítico
+     * @return Estadísticas actuales
+     */
+    public EstadisticasAnalitica obtenerEstadisticas() {
+        EstadisticasAnalitica estadisticas = new EstadisticasAnalitica();
+        LocalDateTime masAntigua = null;
+        for (Instantanea instantanea : instantaneas.values()) {
+            estadisticas.tablas++;
+            estadisticas.segmentos += instantanea.segmentos().size();
+            estadisticas.filas += instantanea.filas();
+            for (SegmentoColumnar segmento : instantanea.segmentos()) {
+                estadisticas.bytesEnMemoria += segmento.bytesEnMemoria();
+            }
+            if (masAntigua == null || instantanea.exportada().isBefore(masAntigua)) {
+                masAntigua = instantanea.exportada();
+            }
+        }
+        estadisticas.exportada = masAntigua;
+        estadisticas.consultasMotor = consultasMotor.get();
+        estadisticas.consultasRespaldo = consultasRespaldo.get();
+        estadisticas.exportaciones = exportaciones.get();
+        estadisticas.erroresExportacion = erroresExportacion.get();
+        estadisticas.duracionUltimaExportacionMs = duracionUltimaExportacionMs;
+        return estadisticas;
+    }
+    
+    /**
+     * Detiene el hilo de exportación; una exportación en curso se interrumpe y se reintenta la noche siguiente
+     */
+    public void detener() {
+        programador.shutdownNow();
+        try {
+            programador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Detiene la instancia única solo si fue creada
+     */
+    public static void detenerSiActivo() {
+        AlmacenAnalitico actual = instance;
+        if (actual != null) {
+            actual.detener();
+        }
+    }
+    
+    /**
+     * Estadísticas del almacén analítico
+     */
+    public static class EstadisticasAnalitica {
+        public int tablas;
+        public int segmentos;
+        public long filas;
+        public long bytesEnMemoria;
+        public LocalDateTime exportada;
+        public long consultasMotor;
+        public long consultasRespaldo;
+        public long exportaciones;
+        public long erroresExportacion;
+        public long duracionUltimaExportacionMs;
+        
+        @Override
+        public String toString() {
+            return String.format("Tablas: %d, Segmentos: %d, Filas: %d (%.1f MB en memoria), Exportada: %s, " +
+                "Consultas: %d con la copia, %d con la BD, Exportaciones: %d (errores %d, última %d ms)",
+                tablas, segmentos, filas, bytesEnMemoria / (1024.0 * 1024.0), exportada != null ? exportada : "nunca",
+                consultasMotor, consultasRespaldo, exportaciones, erroresExportacion, duracionUltimaExportacionMs);
+        }
+    }
+}
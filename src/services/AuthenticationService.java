@@ -3,8 +3,10 @@ package services;
 import dao.UsuarioDAO;
 import models.Usuario;
 import models.TipoUsuario;
+import utils.Bitacora;
 import utils.PasswordUtils;
 import utils.ValidationUtils;
+import utils.RegistroMetricas;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,6 +21,13 @@ import java.util.UUID;
  */
 public class AuthenticationService {
     
+    private static final Bitacora BITACORA = Bitacora.de(AuthenticationService.class);
+    
+    // Latencia de los métodos públicos, por método (ver RegistroMetricas)
+    private static final RegistroMetricas.GrupoTemporizadores METRICAS = RegistroMetricas.getInstance()
+        .grupo("hsv_servicio_segundos", "Latencia de los métodos públicos de los servicios", "metodo",
+               "servicio", "AuthenticationService");
+    
     private final UsuarioDAO usuarioDAO;
     private final Map<String, SesionUsuario> sesionesActivas;
     private static final long DURACION_SESION_MINUTOS = 480; // 8 horas
@@ -41,6 +50,7 @@ public class AuthenticationService {
      * @return ResultadoLogin con el resultado de la autenticación
      */
     public ResultadoLogin login(String nombreUsuario, String password) {
+        long inicio = System.nanoTime();
         try {
             // Validar parámetros de entrada
             if (nombreUsuario == null || nombreUsuario.trim().isEmpty()) {
@@ -85,9 +95,11 @@ public class AuthenticationService {
                 "Login exitoso", usuario, tokenSesion);
             
         } catch (SQLException e) {
-            System.err.println("Error en autenticación: " + e.getMessage());
+            BITACORA.error("Error en autenticación: " + e.getMessage());
             return new ResultadoLogin(false, 
                 "Error del sistema. Intente más tarde.", null, null);
+        } finally {
+            METRICAS.registrar("login", inicio);
         }
     }
     
@@ -98,7 +110,12 @@ public class AuthenticationService {
      * @return ResultadoLogin con el resultado de la autenticación
      */
     public ResultadoLogin iniciarSesion(String nombreUsuario, String password) {
-        return login(nombreUsuario, password);
+        long inicio = System.nanoTime();
+        try {
+            return login(nombreUsuario, password);
+        } finally {
+            METRICAS.registrar("iniciarSesion", inicio);
+        }
     }
     
     /**
@@ -107,12 +124,17 @@ public class AuthenticationService {
      * @return true si se cerró correctamente
      */
     public boolean logout(String tokenSesion) {
-        if (tokenSesion == null || tokenSesion.trim().isEmpty()) {
-            return false;
+        long inicio = System.nanoTime();
+        try {
+            if (tokenSesion == null || tokenSesion.trim().isEmpty()) {
+                return false;
+            }
+            
+            SesionUsuario sesion = sesionesActivas.remove(tokenSesion.trim());
+            return sesion != null;
+        } finally {
+            METRICAS.registrar("logout", inicio);
         }
-        
-        SesionUsuario sesion = sesionesActivas.remove(tokenSesion.trim());
-        return sesion != null;
     }
     
     /**
@@ -121,7 +143,12 @@ public class AuthenticationService {
      * @return true si se cerró correctamente
      */
     public boolean cerrarSesion(String tokenSesion) {
-        return logout(tokenSesion);
+        long inicio = System.nanoTime();
+        try {
+            return logout(tokenSesion);
+        } finally {
+            METRICAS.registrar("cerrarSesion", inicio);
+        }
     }
     
     /**
@@ -130,25 +157,30 @@ public class AuthenticationService {
      * @return true si la sesión es válida
      */
     public boolean validarSesion(String tokenSesion) {
-        if (tokenSesion == null || tokenSesion.trim().isEmpty()) {
-            return false;
-        }
-        
-        SesionUsuario sesion = sesionesActivas.get(tokenSesion.trim());
-        
-        if (sesion == null) {
-            return false;
-        }
-        
-        // Verificar si la sesión ha expirado
-        if (sesion.haExpirado()) {
-            sesionesActivas.remove(tokenSesion.trim());
-            return false;
+        long inicio = System.nanoTime();
+        try {
+            if (tokenSesion == null || tokenSesion.trim().isEmpty()) {
+                return false;
+            }
+            
+            SesionUsuario sesion = sesionesActivas.get(tokenSesion.trim());
+            
+            if (sesion == null) {
+                return false;
+            }
+            
+            // Verificar si la sesión ha expirado
+            if (sesion.haExpirado()) {
+                sesionesActivas.remove(tokenSesion.trim());
+                return false;
+            }
+            
+            // Actualizar último acceso
+            sesion.actualizarAcceso();
+            return true;
+        } finally {
+            METRICAS.registrar("validarSesion", inicio);
         }
-        
-        // Actualizar último acceso
-        sesion.actualizarAcceso();
-        return true;
     }
     
     /**
@@ -157,12 +189,17 @@ public class AuthenticationService {
      * @return Usuario asociado o null si no es válido
      */
     public Usuario obtenerUsuarioPorToken(String tokenSesion) {
-        if (!validarSesion(tokenSesion)) {
-            return null;
+        long inicio = System.nanoTime();
+        try {
+            if (!validarSesion(tokenSesion)) {
+                return null;
+            }
+            
+            SesionUsuario sesion = sesionesActivas.get(tokenSesion.trim());
+            return sesion != null ? sesion.getUsuario() : null;
+        } finally {
+            METRICAS.registrar("obtenerUsuarioPorToken", inicio);
         }
-        
-        SesionUsuario sesion = sesionesActivas.get(tokenSesion.trim());
-        return sesion != null ? sesion.getUsuario() : null;
     }
     
     /**
@@ -172,12 +209,17 @@ public class AuthenticationService {
      * @return true si tiene el permiso
      */
     public boolean tienePermiso(String tokenSesion, Permiso permiso) {
-        Usuario usuario = obtenerUsuarioPorToken(tokenSesion);
-        if (usuario == null) {
-            return false;
+        long inicio = System.nanoTime();
+        try {
+            Usuario usuario = obtenerUsuarioPorToken(tokenSesion);
+            if (usuario == null) {
+                return false;
+            }
+            
+            return tienePermiso(usuario.getTipoUsuario(), permiso);
+        } finally {
+            METRICAS.registrar("tienePermiso", inicio);
         }
-        
-        return tienePermiso(usuario.getTipoUsuario(), permiso);
     }
     
     /**
@@ -187,57 +229,62 @@ public class AuthenticationService {
      * @return true si tiene el permiso
      */
     public boolean tienePermiso(TipoUsuario tipoUsuario, Permiso permiso) {
-        if (tipoUsuario == null || permiso == null) {
-            return false;
-        }
-        
-        switch (tipoUsuario) {
-            case ADMINISTRADOR:
-                return true; // El admin tiene todos los permisos
-                
-            case MEDICO:
-            case MEDICO_URGENCIAS:
-                return permiso == Permiso.VER_PACIENTES ||
-                       permiso == Permiso.CREAR_ATENCION_MEDICA ||
-                       permiso == Permiso.VER_ATENCION_MEDICA ||
-                       permiso == Permiso.ACTUALIZAR_ATENCION_MEDICA ||
-                       permiso == Permiso.CREAR_CITAS ||
-                       permiso == Permiso.VER_CITAS ||
-                       permiso == Permiso.ACTUALIZAR_CITAS ||
-                       permiso == Permiso.VER_REPORTES_MEDICOS ||
-                       permiso == Permiso.REALIZAR_CONSULTAS;
-                       
-            case MEDICO_TRIAGE:
-            case ENFERMERO_TRIAGE:
-                return permiso == Permiso.VER_PACIENTES ||
-                       permiso == Permiso.CREAR_PACIENTES ||
-                       permiso == Permiso.ACTUALIZAR_PACIENTES ||
-                       permiso == Permiso.CREAR_TRIAGE ||
-                       permiso == Permiso.VER_TRIAGE ||
-                       permiso == Permiso.ACTUALIZAR_TRIAGE ||
-                       permiso == Permiso.VER_COLA_TRIAGE ||
-                       permiso == Permiso.REALIZAR_TRIAGE;
-                       
-            case ASISTENTE_MEDICA:
-            case RECEPCIONISTA:
-                return permiso == Permiso.VER_PACIENTES ||
-                       permiso == Permiso.CREAR_PACIENTES ||
-                       permiso == Permiso.ACTUALIZAR_PACIENTES ||
-                       permiso == Permiso.REGISTRAR_PACIENTES ||
-                       permiso == Permiso.CREAR_CITAS ||
-                       permiso == Permiso.VER_CITAS ||
-                       permiso == Permiso.ACTUALIZAR_CITAS;
-                       
-            case TRABAJADOR_SOCIAL:
-                return permiso == Permiso.VER_PACIENTES ||
-                       permiso == Permiso.CREAR_DATOS_SOCIALES ||
-                       permiso == Permiso.VER_DATOS_SOCIALES ||
-                       permiso == Permiso.ACTUALIZAR_DATOS_SOCIALES ||
-                       permiso == Permiso.VER_REPORTES_SOCIALES ||
-                       permiso == Permiso.REALIZAR_EVALUACION_SOCIAL;
-                       
-            default:
+        long inicio = System.nanoTime();
+        try {
+            if (tipoUsuario == null || permiso == null) {
                 return false;
+            }
+            
+            switch (tipoUsuario) {
+                case ADMINISTRADOR:
+                    return true; // El admin tiene todos los permisos
+                    
+                case MEDICO:
+                case MEDICO_URGENCIAS:
+                    return permiso == Permiso.VER_PACIENTES ||
+                           permiso == Permiso.CREAR_ATENCION_MEDICA ||
+                           permiso == Permiso.VER_ATENCION_MEDICA ||
+                           permiso == Permiso.ACTUALIZAR_ATENCION_MEDICA ||
+                           permiso == Permiso.CREAR_CITAS ||
+                           permiso == Permiso.VER_CITAS ||
+                           permiso == Permiso.ACTUALIZAR_CITAS ||
+                           permiso == Permiso.VER_REPORTES_MEDICOS ||
+                           permiso == Permiso.REALIZAR_CONSULTAS;
+                           
+                case MEDICO_TRIAGE:
+                case ENFERMERO_TRIAGE:
+                    return permiso == Permiso.VER_PACIENTES ||
+                           permiso == Permiso.CREAR_PACIENTES ||
+                           permiso == Permiso.ACTUALIZAR_PACIENTES ||
+                           permiso == Permiso.CREAR_TRIAGE ||
+                           permiso == Permiso.VER_TRIAGE ||
+                           permiso == Permiso.ACTUALIZAR_TRIAGE ||
+                           permiso == Permiso.VER_COLA_TRIAGE ||
+                           permiso == Permiso.REALIZAR_TRIAGE;
+                           
+                case ASISTENTE_MEDICA:
+                case RECEPCIONISTA:
+                    return permiso == Permiso.VER_PACIENTES ||
+                           permiso == Permiso.CREAR_PACIENTES ||
+                           permiso == Permiso.ACTUALIZAR_PACIENTES ||
+                           permiso == Permiso.REGISTRAR_PACIENTES ||
+                           permiso == Permiso.CREAR_CITAS ||
+                           permiso == Permiso.VER_CITAS ||
+                           permiso == Permiso.ACTUALIZAR_CITAS;
+                           
+                case TRABAJADOR_SOCIAL:
+                    return permiso == Permiso.VER_PACIENTES ||
+                           permiso == Permiso.CREAR_DATOS_SOCIALES ||
+                           permiso == Permiso.VER_DATOS_SOCIALES ||
+                           permiso == Permiso.ACTUALIZAR_DATOS_SOCIALES ||
+                           permiso == Permiso.VER_REPORTES_SOCIALES ||
+                           permiso == Permiso.REALIZAR_EVALUACION_SOCIAL;
+                           
+                default:
+                    return false;
+            }
+        } finally {
+            METRICAS.registrar("tienePermiso", inicio);
         }
     }
     
@@ -250,6 +297,7 @@ public class AuthenticationService {
      */
     public ResultadoCambioPassword cambiarPassword(String tokenSesion, 
             String passwordActual, String nuevaPassword) {
+        long inicio = System.nanoTime();
         try {
             Usuario usuario = obtenerUsuarioPorToken(tokenSesion);
             if (usuario == null) {
@@ -277,8 +325,10 @@ public class AuthenticationService {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error al cambiar contraseña: " + e.getMessage());
+            BITACORA.error("Error al cambiar contraseña: " + e.getMessage());
             return new ResultadoCambioPassword(false, "Error del sistema");
+        } finally {
+            METRICAS.registrar("cambiarPassword", inicio);
         }
     }
     
@@ -289,15 +339,20 @@ public class AuthenticationService {
      * @return Lista de usuarios o null si no tiene permisos
      */
     public List<Usuario> obtenerUsuariosPorTipo(String tokenSesion, TipoUsuario tipoUsuario) {
-        if (!tienePermiso(tokenSesion, Permiso.VER_USUARIOS)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            return usuarioDAO.obtenerPorTipo(tipoUsuario);
-        } catch (SQLException e) {
-            System.err.println("Error al obtener usuarios por tipo: " + e.getMessage());
-            return null;
+            if (!tienePermiso(tokenSesion, Permiso.VER_USUARIOS)) {
+                return null;
+            }
+            
+            try {
+                return usuarioDAO.obtenerPorTipo(tipoUsuario);
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener usuarios por tipo: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("obtenerUsuariosPorTipo", inicio);
         }
     }
     
@@ -307,15 +362,20 @@ public class AuthenticationService {
      * @return Estadísticas o null si no tiene permisos
      */
     public List<UsuarioDAO.EstadisticaUsuario> obtenerEstadisticasUsuarios(String tokenSesion) {
-        if (!tienePermiso(tokenSesion, Permiso.VER_ESTADISTICAS_SISTEMA)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            return usuarioDAO.obtenerEstadisticasPorTipo();
-        } catch (SQLException e) {
-            System.err.println("Error al obtener estadísticas de usuarios: " + e.getMessage());
-            return null;
+            if (!tienePermiso(tokenSesion, Permiso.VER_ESTADISTICAS_SISTEMA)) {
+                return null;
+            }
+            
+            try {
+                return usuarioDAO.obtenerEstadisticasPorTipo();
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener estadísticas de usuarios: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("obtenerEstadisticasUsuarios", inicio);
         }
     }
     
@@ -323,7 +383,12 @@ public class AuthenticationService {
      * Limpia sesiones expiradas del sistema
      */
     public void limpiarSesionesExpiradas() {
-        sesionesActivas.entrySet().removeIf(entry -> entry.getValue().haExpirado());
+        long inicio = System.nanoTime();
+        try {
+            sesionesActivas.entrySet().removeIf(entry -> entry.getValue().haExpirado());
+        } finally {
+            METRICAS.registrar("limpiarSesionesExpiradas", inicio);
+        }
     }
     
     /**
@@ -331,8 +396,13 @@ public class AuthenticationService {
      * @return Número de sesiones activas
      */
     public int contarSesionesActivas() {
-        limpiarSesionesExpiradas();
-        return sesionesActivas.size();
+        long inicio = System.nanoTime();
+        try {
+            limpiarSesionesExpiradas();
+            return sesionesActivas.size();
+        } finally {
+            METRICAS.registrar("contarSesionesActivas", inicio);
+        }
     }
     
     // Métodos privados auxiliares
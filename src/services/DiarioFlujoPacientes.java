@@ -0,0 +1,939 @@
+package services;
+
+import dao.AlmacenLocal;
+import dao.TransicionPacienteDAO;
+import models.EstadoPaciente;
+import models.TransicionPaciente;
+import structures.HospitalGraph;
+import utils.Bitacora;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora de solo anexado del flujo de pacientes (event sourcing)
+ * Cada cambio de estado se valida contra las transiciones de HospitalGraph y se guarda como
+ * un evento (paciente, estado anterior, estado nuevo, momento, usuario); el estado actual de
+ * cada paciente y las estadísticas de transiciones del grafo se derivan de los eventos
+ * Los eventos se acumulan en memoria y un hilo de fondo los escribe en lote, primero en un
+ * segmento local (datos/flujo/flujo-<secuencia>.seg, con fsync) y después en la tabla
+ * transiciones_paciente. Al iniciar se reproducen los segmentos locales para reconstruir el
+ * estado tras una caída, y los eventos que no alcanzaron a llegar a MySQL se reenvían
+ * Cada EVENTOS_POR_PUNTO_CONTROL eventos se guarda un punto de control con el estado derivado
+ * y se borran los segmentos ya cubiertos por él y confirmados en MySQL, para que ni el
+ * arranque ni la resincronización relean la historia completa. Los pacientes que llegan a un
+ * estado final (alta, cita programada) salen del estado en memoria
+ */
+public class DiarioFlujoPacientes {
+    
+    private static final Bitacora BITACORA = Bitacora.de(DiarioFlujoPacientes.class);
+    
+    public static final Path DIRECTORIO = Paths.get("datos", "flujo");
+    public static final int INTERVALO_VACIADO_MS = 200;
+    
+    // Un segmento nuevo al superar este tamaño; lote máximo por INSERT en MySQL
+    private static final long TAMANO_SEGMENTO = 8L * 1024 * 1024;
+    private static final int TAMANO_LOTE_BD = 500;
+    // Si MySQL no responde, a partir de aquí se liberan los eventos de memoria y al reconectar
+    // se vuelven a leer de los segmentos
+    private static final int MAX_PENDIENTES_BD = 50_000;
+    private static final String PREFIJO_SEGMENTO = "flujo-";
+    private static final String EXTENSION_SEGMENTO = ".seg";
+    private static final String ARCHIVO_NODO = "nodo.id";
+    private static final String ARCHIVO_PUNTO_CONTROL = "estado.chk";
+    private static final int EVENTOS_POR_PUNTO_CONTROL = 10_000;
+    // Estados que cierran la visita: no tienen transiciones de salida en HospitalGraph
+    private static final Set<EstadoPaciente> ESTADOS_FINALES =
+        EnumSet.of(EstadoPaciente.COMPLETADO, EstadoPaciente.CITA_PROGRAMADA, EstadoPaciente.DADO_DE_ALTA);
+    private static final char SEPARADOR = ';';
+    
+    private static volatile DiarioFlujoPacientes instance;
+    
+    private final Path directorio;
+    private final TransicionPacienteDAO transicionDAO;
+    private final ScheduledExecutorService planificador;
+    private final Object escritura = new Object();
+    private String nodo;
+    
+    // Estado derivado de los eventos (protegido por this)
+    private final HospitalGraph grafo = new HospitalGraph();
+    private final Map<Integer, EstadoFlujo> estados = new HashMap<>();
+    private List<TransicionPaciente> pendientesArchivo = new ArrayList<>();
+    private long siguienteSecuencia = 1;
+    private long eventosDesdePuntoControl;
+    
+    // Estado del escritor (protegido por escritura)
+    private final ArrayDeque<TransicionPaciente> pendientesBD = new ArrayDeque<>();
+    private long confirmadaBD = -1;
+    private FileChannel segmento;
+    private long tamañoSegmento;
+    private long ultimaEscrita;
+    private long puntoControl; // Secuencia hasta la que llega el punto de control guardado
+    private long compactadaHasta; // Límite usado en el último borrado de segmentos
+    
+    // Métricas
+    private long eventosRegistrados;
+    private long transicionesRechazadas;
+    private long eventosEscritosBD;
+    private long eventosDescartadosBD;
+    private long erroresEscritura;
+    private int eventosReproducidos;
+    private long duracionReproduccionMs;
+    private long segmentosBorrados;
+    private volatile boolean detenido = false;
+    
+    private DiarioFlujoPacientes() {
+        this(DIRECTORIO, new TransicionPacienteDAO(), INTERVALO_VACIADO_MS);
+    }
+    
+    /**
+     * Constructor con directorio y DAO configurables
+     * @param directorio Carpeta de los segmentos locales
+     * @param transicionDAO DAO de la tabla transiciones_paciente
+     * @param intervaloMs Milisegundos entre vaciados
+     */
+    DiarioFlujoPacientes(Path directorio, TransicionPacienteDAO transicionDAO, int intervaloMs) {
+        this.directorio = directorio;
+        this.transicionDAO = transicionDAO;
+        try {
+            Files.createDirectories(directorio);
+            this.nodo = leerNodo();
+            reproducir();
+        } catch (IOException e) {
+            BITACORA.error("Error al abrir la bitácora de flujo en " + directorio + ": " + e.getMessage());
+            if (nodo == null) {
+                nodo = UUID.randomUUID().toString();
+            }
+        }
+        AlmacenLocal.getInstance().registrarReferenciasIdsLocales(AlmacenLocal.DIARIO_FLUJO,
+            this::idsLocalesPendientes);
+        this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "flujo-pacientes");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.planificador.scheduleWithFixedDelay(this::vaciar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Obtiene la instancia única de la bitácora
+     * @return Instancia de DiarioFlujoPacientes
+     */
+    public static DiarioFlujoPacientes getInstance() {
+        if (instance == null) {
+            synchronized (DiarioFlujoPacientes.class) {
+                if (instance == null) {
+                    instance = new DiarioFlujoPacientes();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    // Registro de eventos
+    
+    /**
+     * Registra la llegada de una visita nueva (evento sin estado anterior)
+     * @param pacienteId ID del paciente
+     * @param registroTriageId ID del registro de triage de la visita
+     * @param estado Estado inicial
+     * @param usuarioId Usuario que registra, o 0
+     */
+    public void registrarLlegada(int pacienteId, int registroTriageId, EstadoPaciente estado, int usuarioId) {
+        if (estado == null) {
+            throw new IllegalArgumentException("Estado inicial no puede ser nulo");
+        }
+        synchronized (this) {
+            agregar(pacienteId, registroTriageId, null, estado, usuarioId);
+        }
+        vaciarSiDetenido();
+    }
+    
+    /**
+     * Registra un cambio de estado si HospitalGraph lo permite
+     * El estado anterior es el último registrado para la misma visita, salvo que estadoConocido
+     * (por ejemplo, el leído de la base de datos) sea más reciente: otra estación pudo cambiarlo
+     * Si la bitácora no conoce la visita se usa estadoConocido
+     * @param pacienteId ID del paciente
+     * @param registroTriageId ID del registro de triage, o 0 para la visita más reciente
+     * @param estadoConocido Estado anterior según el llamador, o null si no se conoce
+     * @param momentoConocido Momento del último cambio de estadoConocido, o null si no se conoce
+     * @param destino Estado nuevo
+     * @param usuarioId Usuario que hace el cambio, o 0
+     * @return true si se registró (o el paciente ya estaba en ese estado), false si la transición no es válida
+     */
+    public boolean registrarTransicion(int pacienteId, int registroTriageId, EstadoPaciente estadoConocido,
+                                       LocalDateTime momentoConocido, EstadoPaciente destino, int usuarioId) {
+        if (destino == null) {
+            throw new IllegalArgumentException("Estado destino no puede ser nulo");
+        }
+        boolean registrada;
+        synchronized (this) {
+            registrada = validarYAgregar(pacienteId, registroTriageId, estadoConocido, momentoConocido,
+                                         destino, usuarioId);
+        }
+        vaciarSiDetenido();
+        return registrada;
+    }
+    
+    private boolean validarYAgregar(int pacienteId, int registroTriageId, EstadoPaciente estadoConocido,
+                                    LocalDateTime momentoConocido, EstadoPaciente destino, int usuarioId) {
+        EstadoFlujo actual = estados.get(pacienteId);
+        // Una llegada sin ID (triage aún no replicado a MySQL) se considera la misma visita
+        boolean mismaVisita = actual != null
+            && (registroTriageId <= 0 || actual.registroTriageId <= 0
+                || actual.registroTriageId == registroTriageId);
+        // El estado del llamador gana si cambió después del último evento local de la visita
+        boolean conocidoMasReciente = mismaVisita && estadoConocido != null && momentoConocido != null
+            && (actual.momento == null || momentoConocido.isAfter(actual.momento));
+        EstadoPaciente origen = mismaVisita && !conocidoMasReciente ? actual.estado : estadoConocido;
+        if (mismaVisita && registroTriageId <= 0) {
+            registroTriageId = actual.registroTriageId;
+        }
+        
+        if (origen == destino) {
+            return true;
+        }
+        if (origen != null && !grafo.esTransicionValida(origen, destino)) {
+            transicionesRechazadas++;
+            BITACORA.aviso("Transición de paciente no válida", "paciente", pacienteId,
+                           "registro", registroTriageId, "origen", origen.name(), "destino", destino.name());
+            return false;
+        }
+        
+        agregar(pacienteId, registroTriageId, origen, destino, usuarioId);
+        return true;
+    }
+    
+    private void agregar(int pacienteId, int registroTriageId, EstadoPaciente origen, EstadoPaciente destino, int usuarioId) {
+        TransicionPaciente transicion = new TransicionPaciente(siguienteSecuencia++, pacienteId,
+            Math.max(registroTriageId, 0), origen, destino, LocalDateTime.now(), Math.max(usuarioId, 0));
+        aplicar(transicion);
+        pendientesArchivo.add(transicion);
+        eventosRegistrados++;
+        eventosDesdePuntoControl++;
+    }
+    
+    private void vaciarSiDetenido() {
+        if (detenido) {
+            // Ya no hay hilo de vaciado: escribir directamente (fuera del candado de this,
+            // porque vaciar() toma primero el de escritura)
+            vaciar();
+        }
+    }
+    
+    /**
+     * Aplica un evento al estado derivado: estado actual del paciente y estadísticas del grafo
+     */
+    private void aplicar(TransicionPaciente transicion) {
+        EstadoFlujo anterior = estados.get(transicion.pacienteId());
+        if (!transicion.esLlegada() && anterior != null && anterior.estado == transicion.origen()
+                && anterior.momento != null && transicion.momento() != null) {
+            int minutos = (int) Duration.between(anterior.momento, transicion.momento()).toMinutes();
+            grafo.registrarTransicion(transicion.origen(), transicion.destino(), Math.max(minutos, 0));
+        }
+        if (ESTADOS_FINALES.contains(transicion.destino())) {
+            // La visita terminó: el estado en memoria no debe crecer con cada paciente atendido
+            estados.remove(transicion.pacienteId());
+        } else {
+            estados.put(transicion.pacienteId(),
+                new EstadoFlujo(transicion.registroTriageId(), transicion.destino(), transicion.momento()));
+        }
+    }
+    
+    // Escritura en segundo plano
+    
+    /**
+     * Escribe los eventos pendientes en el segmento local y reenvía a MySQL los que falten
+     * Si MySQL no está disponible los eventos se conservan y se reintenta en el siguiente ciclo;
+     * la llave única (nodo, secuencia) hace que un reintento no duplique filas
+     */
+    public void vaciar() {
+        synchronized (escritura) {
+            List<TransicionPaciente> lote;
+            PuntoControl corte = null;
+            long eventosCorte = 0;
+            synchronized (this) {
+                lote = pendientesArchivo;
+                if (eventosDesdePuntoControl >= EVENTOS_POR_PUNTO_CONTROL
+                        || (detenido && eventosDesdePuntoControl > 0)) {
+                    // El corte cubre justo los eventos de este lote y los ya escritos
+                    corte = tomarPuntoControl();
+                    eventosCorte = eventosDesdePuntoControl;
+                    eventosDesdePuntoControl = 0;
+                } else if (lote.isEmpty() && pendientesBD.isEmpty() && confirmadaBD >= 0) {
+                    return;
+                }
+                pendientesArchivo = new ArrayList<>();
+            }
+            
+            if (!lote.isEmpty()) {
+                try {
+                    escribirSegmento(lote);
+                } catch (IOException e) {
+                    erroresEscritura++;
+                    BITACORA.error("Error al escribir segmento de flujo de pacientes: " + e.getMessage());
+                    synchronized (this) {
+                        lote.addAll(pendientesArchivo);
+                        pendientesArchivo = lote;
+                        eventosDesdePuntoControl += eventosCorte;
+                    }
+                    return;
+                }
+            }
+            
+            if (confirmadaBD < 0) {
+                // Primera conexión (o tras perder la cola): lo que falta se toma de los segmentos
+                if (sincronizarConBD()) {
+                    replicar();
+                }
+            } else {
+                pendientesBD.addAll(lote);
+                replicar();
+            }
+            
+            if (corte != null) {
+                guardarPuntoControl(corte);
+            }
+            compactar();
+        }
+    }
+    
+    private boolean sincronizarConBD() {
+        try {
+            long confirmada = transicionDAO.obtenerUltimaSecuencia(nodo);
+            pendientesBD.clear();
+            leerSegmentos(false, confirmada, pendientesBD::add);
+            confirmadaBD = confirmada;
+            if (!pendientesBD.isEmpty()) {
+                BITACORA.info("Reenviando eventos de flujo a la base de datos", "eventos", pendientesBD.size());
+            }
+            return true;
+        } catch (Exception e) {
+            pendientesBD.clear();
+            BITACORA.debug("Base de datos no disponible para la bitácora de flujo: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Envía a MySQL los eventos pendientes en orden de secuencia
+     * Los pacientes registrados sin conexión tienen ID local negativo: sus eventos se envían con
+     * el ID de MySQL una vez que AlmacenLocal los sincroniza, y mientras tanto detienen el envío
+     * (la secuencia confirmada no puede saltarlos). Los de un paciente que MySQL rechazó no se
+     * envían nunca; quedan sólo en los segmentos locales
+     */
+    private void replicar() {
+        AlmacenLocal almacen = AlmacenLocal.getInstance();
+        List<TransicionPaciente> lote = new ArrayList<>(TAMANO_LOTE_BD);
+        while (!pendientesBD.isEmpty()) {
+            lote.clear();
+            int tomados = 0;
+            long ultimaSecuencia = confirmadaBD;
+            for (TransicionPaciente transicion : pendientesBD) {
+                if (lote.size() == TAMANO_LOTE_BD) {
+                    break;
+                }
+                int pacienteId = almacen.resolverPacienteId(transicion.pacienteId());
+                if (pacienteId < 0 && almacen.esPacientePendiente(pacienteId)) {
+                    break;
+                }
+                tomados++;
+                ultimaSecuencia = transicion.secuencia();
+                if (pacienteId < 0) {
+                    eventosDescartadosBD++;
+                    BITACORA.aviso("Evento de flujo sin enviar: su paciente no se pudo sincronizar",
+                                   "paciente", pacienteId, "secuencia", transicion.secuencia());
+                    continue;
+                }
+                lote.add(pacienteId == transicion.pacienteId() ? transicion
+                    : new TransicionPaciente(transicion.secuencia(), pacienteId, transicion.registroTriageId(),
+                        transicion.origen(), transicion.destino(), transicion.momento(), transicion.usuarioId()));
+            }
+            if (tomados == 0) {
+                // El primer evento espera a que se sincronice su paciente
+                return;
+            }
+            try {
+                if (!lote.isEmpty()) {
+                    transicionDAO.insertarLote(nodo, lote);
+                }
+            } catch (Exception e) {
+                erroresEscritura++;
+                BITACORA.error("Error al escribir lote de transiciones de pacientes: " + e.getMessage());
+                if (pendientesBD.size() > MAX_PENDIENTES_BD) {
+                    pendientesBD.clear();
+                    confirmadaBD = -1;
+                }
+                return;
+            }
+            for (int i = 0; i < tomados; i++) {
+                pendientesBD.poll();
+            }
+            confirmadaBD = ultimaSecuencia;
+            eventosEscritosBD += lote.size();
+        }
+    }
+    
+    /**
+     * IDs locales de paciente de los eventos que aún no llegan a MySQL (ver AlmacenLocal)
+     * @return IDs negativos, o null si no se conoce el avance en MySQL (los segmentos se releerán)
+     */
+    private Set<Integer> idsLocalesPendientes() {
+        synchronized (escritura) {
+            if (confirmadaBD < 0) {
+                return null;
+            }
+            Set<Integer> ids = new HashSet<>();
+            for (TransicionPaciente transicion : pendientesBD) {
+                if (transicion.pacienteId() < 0) {
+                    ids.add(transicion.pacienteId());
+                }
+            }
+            synchronized (this) {
+                for (TransicionPaciente transicion : pendientesArchivo) {
+                    if (transicion.pacienteId() < 0) {
+                        ids.add(transicion.pacienteId());
+                    }
+                }
+            }
+            return ids;
+        }
+    }
+    
+    private void escribirSegmento(List<TransicionPaciente> lote) throws IOException {
+        StringBuilder texto = new StringBuilder(lote.size() * 96);
+        for (TransicionPaciente transicion : lote) {
+            formatear(transicion, texto);
+        }
+        ByteBuffer datos = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.UTF_8));
+        
+        if (segmento == null || tamañoSegmento + datos.remaining() > TAMANO_SEGMENTO) {
+            if (segmento != null) {
+                segmento.close();
+            }
+            Files.createDirectories(directorio);
+            Path archivo = directorio.resolve(String.format("%s%020d%s",
+                PREFIJO_SEGMENTO, lote.get(0).secuencia(), EXTENSION_SEGMENTO));
+            segmento = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.APPEND);
+            tamañoSegmento = segmento.size();
+        }
+        
+        while (datos.hasRemaining()) {
+            tamañoSegmento += segmento.write(datos);
+        }
+        // Un solo fsync por lote
+        segmento.force(false);
+        ultimaEscrita = lote.get(lote.size() - 1).secuencia();
+    }
+    
+    // Punto de control y compactación
+    
+    /**
+     * Copia el estado derivado hasta el último evento registrado (con el candado de this)
+     */
+    private PuntoControl tomarPuntoControl() {
+        Map<String, List<Integer>> tiempos = new HashMap<>();
+        for (EstadoPaciente origen : EstadoPaciente.values()) {
+            for (EstadoPaciente destino : EstadoPaciente.values()) {
+                List<Integer> registrados = grafo.obtenerTiemposTransicion(origen, destino);
+                if (!registrados.isEmpty()) {
+                    tiempos.put(origen.name() + SEPARADOR + destino.name(), registrados);
+                }
+            }
+        }
+        return new PuntoControl(siguienteSecuencia - 1, new HashMap<>(estados), tiempos);
+    }
+    
+    /**
+     * Guarda el punto de control en un archivo temporal con fsync y lo sustituye de forma atómica
+     * Formato, un renglón por dato con su CRC como en los segmentos:
+     * P;hasta / E;paciente;registro;estado;momento / T;origen;destino;minutos,... / F;renglones
+     */
+    private void guardarPuntoControl(PuntoControl corte) {
+        StringBuilder texto = new StringBuilder(64 + corte.estados().size() * 48);
+        agregarRenglon(texto, "P" + SEPARADOR + corte.hasta());
+        for (Map.Entry<Integer, EstadoFlujo> entrada : corte.estados().entrySet()) {
+            EstadoFlujo estado = entrada.getValue();
+            agregarRenglon(texto, "E" + SEPARADOR + entrada.getKey() + SEPARADOR + estado.registroTriageId
+                + SEPARADOR + estado.estado.name() + SEPARADOR + (estado.momento != null ? estado.momento : "-"));
+        }
+        for (Map.Entry<String, List<Integer>> entrada : corte.tiempos().entrySet()) {
+            StringBuilder minutos = new StringBuilder();
+            for (Integer tiempo : entrada.getValue()) {
+                if (minutos.length() > 0) {
+                    minutos.append(',');
+                }
+                minutos.append(tiempo);
+            }
+            agregarRenglon(texto, "T" + SEPARADOR + entrada.getKey() + SEPARADOR + minutos);
+        }
+        agregarRenglon(texto, "F" + SEPARADOR + (corte.estados().size() + corte.tiempos().size()));
+        
+        Path archivo = directorio.resolve(ARCHIVO_PUNTO_CONTROL);
+        Path temporal = directorio.resolve(ARCHIVO_PUNTO_CONTROL + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer datos = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.UTF_8));
+                while (datos.hasRemaining()) {
+                    canal.write(datos);
+                }
+                canal.force(true);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            erroresEscritura++;
+            BITACORA.error("Error al guardar punto de control de flujo de pacientes: " + e.getMessage());
+            return;
+        }
+        puntoControl = corte.hasta();
+        BITACORA.debug("Punto de control de flujo guardado hasta la secuencia " + corte.hasta());
+        if (segmento != null) {
+            // Los eventos siguientes van a un segmento nuevo para que éste se pueda borrar completo
+            try {
+                segmento.close();
+            } catch (IOException e) {
+                BITACORA.error("Error al cerrar segmento de flujo de pacientes: " + e.getMessage());
+            }
+            segmento = null;
+        }
+    }
+    
+    private static void agregarRenglon(StringBuilder texto, String renglon) {
+        int inicio = texto.length();
+        texto.append(renglon).append(SEPARADOR);
+        texto.append(Long.toHexString(crc(texto, inicio, texto.length()))).append('\n');
+    }
+    
+    /**
+     * Carga el punto de control en el estado derivado
+     * @return Secuencia hasta la que llega, o 0 si no hay punto de control válido
+     */
+    private long cargarPuntoControl() throws IOException {
+        Path archivo = directorio.resolve(ARCHIVO_PUNTO_CONTROL);
+        if (!Files.exists(archivo)) {
+            return 0;
+        }
+        long hasta = -1;
+        int renglones = 0;
+        boolean completo = false;
+        Map<Integer, EstadoFlujo> leidos = new HashMap<>();
+        List<String[]> tiempos = new ArrayList<>();
+        try {
+            for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+                int ultimoSeparador = linea.lastIndexOf(SEPARADOR);
+                if (completo || ultimoSeparador < 0
+                        || crc(linea, 0, ultimoSeparador + 1) != Long.parseLong(linea.substring(ultimoSeparador + 1), 16)) {
+                    hasta = -1;
+                    break;
+                }
+                String[] campos = linea.substring(0, ultimoSeparador).split(String.valueOf(SEPARADOR), -1);
+                switch (campos[0]) {
+                    case "P" -> hasta = Long.parseLong(campos[1]);
+                    case "E" -> {
+                        leidos.put(Integer.parseInt(campos[1]), new EstadoFlujo(Integer.parseInt(campos[2]),
+                            EstadoPaciente.valueOf(campos[3]),
+                            campos[4].equals("-") ? null : LocalDateTime.parse(campos[4])));
+                        renglones++;
+                    }
+                    case "T" -> {
+                        tiempos.add(campos);
+                        renglones++;
+                    }
+                    case "F" -> completo = Integer.parseInt(campos[1]) == renglones;
+                    default -> hasta = -1;
+                }
+            }
+        } catch (RuntimeException e) {
+            hasta = -1;
+        }
+        if (hasta < 0 || !completo) {
+            BITACORA.aviso("Punto de control de flujo inválido, se reproducen sólo los segmentos",
+                           "archivo", archivo);
+            return 0;
+        }
+        
+        estados.putAll(leidos);
+        for (String[] campos : tiempos) {
+            EstadoPaciente origen = EstadoPaciente.valueOf(campos[1]);
+            EstadoPaciente destino = EstadoPaciente.valueOf(campos[2]);
+            for (String minutos : campos[3].split(",")) {
+                grafo.registrarTransicion(origen, destino, Integer.parseInt(minutos));
+            }
+        }
+        return hasta;
+    }
+    
+    /**
+     * Borra los segmentos cuyos eventos están en el punto de control y confirmados en MySQL
+     * El nombre de cada segmento es su primera secuencia, así que un segmento termina donde
+     * empieza el siguiente; el último, abierto o no, sólo se borra si ya se cerró
+     */
+    private void compactar() {
+        long limite = Math.min(puntoControl, confirmadaBD);
+        if (limite <= compactadaHasta) {
+            return;
+        }
+        try {
+            List<Path> segmentos = listarSegmentos();
+            for (int i = 0; i < segmentos.size(); i++) {
+                long fin = i + 1 < segmentos.size() ? primeraSecuencia(segmentos.get(i + 1)) - 1
+                    : (segmento == null ? ultimaEscrita : Long.MAX_VALUE);
+                if (fin > limite) {
+                    break;
+                }
+                Files.deleteIfExists(segmentos.get(i));
+                segmentosBorrados++;
+            }
+            compactadaHasta = limite;
+        } catch (IOException | NumberFormatException e) {
+            BITACORA.error("Error al borrar segmentos de flujo de pacientes: " + e.getMessage());
+        }
+    }
+    
+    private static long primeraSecuencia(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO_SEGMENTO.length(), nombre.length() - EXTENSION_SEGMENTO.length()));
+    }
+    
+    // Reproducción
+    
+    /**
+     * Reconstruye el estado de los pacientes y las estadísticas del grafo a partir del punto de
+     * control y de los eventos de los segmentos posteriores a él
+     */
+    private void reproducir() throws IOException {
+        long inicio = System.nanoTime();
+        int[] total = new int[1];
+        long[] ultima = new long[1];
+        synchronized (this) {
+            long desde = cargarPuntoControl();
+            leerSegmentos(true, desde, transicion -> {
+                aplicar(transicion);
+                ultima[0] = Math.max(ultima[0], transicion.secuencia());
+                total[0]++;
+            });
+            siguienteSecuencia = Math.max(desde, ultima[0]) + 1;
+            eventosDesdePuntoControl = total[0];
+            eventosReproducidos = total[0];
+            // Aún no arranca el hilo de escritura
+            puntoControl = desde;
+            compactadaHasta = 0;
+            ultimaEscrita = siguienteSecuencia - 1;
+            duracionReproduccionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            if (total[0] > 0) {
+                BITACORA.info("Bitácora de flujo reproducida", "eventos", total[0],
+                              "pacientes", estados.size(), "ms", duracionReproduccionMs);
+            }
+        }
+    }
+    
+    /**
+     * Lee los segmentos en orden; un renglón incompleto o con CRC inválido (escritura
+     * interrumpida) marca el final del segmento
+     * @param truncar true para recortar del disco lo que sigue al último renglón válido (al iniciar)
+     * @param desde Sólo se entregan los eventos con secuencia mayor; los segmentos que terminan
+     *              antes ni siquiera se leen
+     */
+    private void leerSegmentos(boolean truncar, long desde, Consumer<TransicionPaciente> consumidor)
+            throws IOException {
+        List<Path> segmentos = listarSegmentos();
+        for (int s = 0; s < segmentos.size(); s++) {
+            Path archivo = segmentos.get(s);
+            if (s + 1 < segmentos.size() && primeraSecuencia(segmentos.get(s + 1)) - 1 <= desde) {
+                continue;
+            }
+            byte[] contenido = Files.readAllBytes(archivo);
+            int inicioLinea = 0;
+            int valido = 0;
+            for (int i = 0; i < contenido.length; i++) {
+                if (contenido[i] != '\n') {
+                    continue;
+                }
+                TransicionPaciente transicion = interpretar(new String(contenido, inicioLinea, i - inicioLinea,
+                                                                       StandardCharsets.UTF_8));
+                if (transicion == null) {
+                    break;
+                }
+                if (transicion.secuencia() > desde) {
+                    consumidor.accept(transicion);
+                }
+                inicioLinea = i + 1;
+                valido = inicioLinea;
+            }
+            
+            if (truncar && valido < contenido.length) {
+                BITACORA.aviso("Segmento de flujo truncado tras escritura incompleta", "archivo", archivo,
+                               "bytes", contenido.length - valido);
+                try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                    canal.truncate(valido);
+                }
+            }
+        }
+    }
+    
+    private List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                .filter(p -> p.getFileName().toString().startsWith(PREFIJO_SEGMENTO)
+                          && p.getFileName().toString().endsWith(EXTENSION_SEGMENTO))
+                .sorted()
+                .toList();
+        }
+    }
+    
+    /**
+     * Formato: secuencia;paciente;registro;origen;destino;momento;usuario;crc32
+     * (origen "-" para las llegadas; el CRC cubre el resto del renglón)
+     */
+    private static void formatear(TransicionPaciente transicion, StringBuilder texto) {
+        int inicio = texto.length();
+        texto.append(transicion.secuencia()).append(SEPARADOR)
+             .append(transicion.pacienteId()).append(SEPARADOR)
+             .append(transicion.registroTriageId()).append(SEPARADOR)
+             .append(transicion.origen() != null ? transicion.origen().name() : "-").append(SEPARADOR)
+             .append(transicion.destino().name()).append(SEPARADOR)
+             .append(transicion.momento()).append(SEPARADOR)
+             .append(transicion.usuarioId()).append(SEPARADOR);
+        texto.append(Long.toHexString(crc(texto, inicio, texto.length()))).append('\n');
+    }
+    
+    private static TransicionPaciente interpretar(String linea) {
+        int ultimoSeparador = linea.lastIndexOf(SEPARADOR);
+        if (ultimoSeparador < 0) {
+            return null;
+        }
+        try {
+            long crcEsperado = Long.parseLong(linea.substring(ultimoSeparador + 1), 16);
+            if (crc(linea, 0, ultimoSeparador + 1) != crcEsperado) {
+                return null;
+            }
+            String[] campos = linea.substring(0, ultimoSeparador).split(String.valueOf(SEPARADOR));
+            if (campos.length != 7) {
+                return null;
+            }
+            return new TransicionPaciente(
+                Long.parseLong(campos[0]),
+                Integer.parseInt(campos[1]),
+                Integer.parseInt(campos[2]),
+                campos[3].equals("-") ? null : EstadoPaciente.valueOf(campos[3]),
+                EstadoPaciente.valueOf(campos[4]),
+                LocalDateTime.parse(campos[5]),
+                Integer.parseInt(campos[6])
+            );
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static long crc(CharSequence texto, int inicio, int fin) {
+        CRC32 crc = new CRC32();
+        crc.update(texto.subSequence(inicio, fin).toString().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+    
+    private String leerNodo() throws IOException {
+        Path archivo = directorio.resolve(ARCHIVO_NODO);
+        if (Files.exists(archivo)) {
+            String guardado = Files.readString(archivo, StandardCharsets.UTF_8).trim();
+            if (!guardado.isEmpty()) {
+                return guardado;
+            }
+        }
+        String nuevo = UUID.randomUUID().toString();
+        Files.writeString(archivo, nuevo, StandardCharsets.UTF_8);
+        return nuevo;
+    }
+    
+    // Consultas sobre el estado derivado
+    
+    /**
+     * @param pacienteId ID del paciente
+     * @return Último estado registrado del paciente, o null si la bitácora no lo conoce
+     */
+    public synchronized EstadoPaciente obtenerEstado(int pacienteId) {
+        EstadoFlujo actual = estados.get(pacienteId);
+        return actual != null ? actual.estado : null;
+    }
+    
+    /**
+     * @return Número de pacientes en cada estado
+     */
+    public synchronized Map<EstadoPaciente, Integer> contarPorEstado() {
+        Map<EstadoPaciente, Integer> conteo = new EnumMap<>(EstadoPaciente.class);
+        for (EstadoFlujo estado : estados.values()) {
+            conteo.merge(estado.estado, 1, Integer::sum);
+        }
+        return conteo;
+    }
+    
+    /**
+     * @param estado Estado a buscar
+     * @return IDs de los pacientes cuyo último estado es el indicado
+     */
+    public synchronized List<Integer> obtenerPacientesEnEstado(EstadoPaciente estado) {
+        List<Integer> pacientes = new ArrayList<>();
+        for (Map.Entry<Integer, EstadoFlujo> entrada : estados.entrySet()) {
+            if (entrada.getValue().estado == estado) {
+                pacientes.add(entrada.getKey());
+            }
+        }
+        return pacientes;
+    }
+    
+    /**
+     * Tiempo estimado hasta el alta según la ruta más rápida del grafo y los tiempos observados
+     * @param pacienteId ID del paciente
+     * @return Minutos estimados, o -1 si no se conoce el estado o no hay ruta
+     */
+    public synchronized int calcularTiempoRestanteEstimado(int pacienteId) {
+        EstadoFlujo actual = estados.get(pacienteId);
+        return actual != null ? grafo.calcularTiempoTotalEstimado(actual.estado) : -1;
+    }
+    
+    /**
+     * @return Estadísticas de transiciones de HospitalGraph calculadas con los eventos
+     */
+    public synchronized Map<String, Object> obtenerEstadisticasTransiciones() {
+        return grafo.obtenerEstadisticas();
+    }
+    
+    /**
+     * Obtiene las métricas de la bitácora
+     * @return Estadísticas de escritura y reproducción
+     */
+    public EstadisticasDiario obtenerEstadisticas() {
+        EstadisticasDiario stats = new EstadisticasDiario();
+        synchronized (this) {
+            stats.nodo = nodo;
+            stats.pacientes = estados.size();
+            stats.eventosRegistrados = eventosRegistrados;
+            stats.transicionesRechazadas = transicionesRechazadas;
+            stats.pendientesArchivo = pendientesArchivo.size();
+            stats.eventosReproducidos = eventosReproducidos;
+            stats.duracionReproduccionMs = duracionReproduccionMs;
+        }
+        synchronized (escritura) {
+            stats.pendientesBD = pendientesBD.size();
+            stats.puntoControl = puntoControl;
+            stats.segmentosBorrados = segmentosBorrados;
+            stats.eventosEscritosBD = eventosEscritosBD;
+            stats.eventosDescartadosBD = eventosDescartadosBD;
+            stats.erroresEscritura = erroresEscritura;
+        }
+        return stats;
+    }
+    
+    // Cierre
+    
+    /**
+     * Escribe los eventos pendientes y detiene el hilo de escritura
+     * Debe llamarse al cerrar la aplicación, antes de cerrar la conexión a la base de datos
+     */
+    public void detener() {
+        detenido = true;
+        planificador.shutdown();
+        try {
+            planificador.awaitTermination(INTERVALO_VACIADO_MS * 10L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        vaciar();
+        synchronized (escritura) {
+            if (segmento != null) {
+                try {
+                    segmento.close();
+                } catch (IOException e) {
+                    BITACORA.error("Error al cerrar segmento de flujo de pacientes: " + e.getMessage());
+                }
+                segmento = null;
+            }
+        }
+    }
+    
+    /**
+     * Vacía y detiene la instancia única solo si fue creada
+     */
+    public static void detenerSiActivo() {
+        DiarioFlujoPacientes actual = instance;
+        if (actual != null) {
+            actual.detener();
+        }
+    }
+    
+    /**
+     * Último estado conocido de un paciente
+     */
+    private static final class EstadoFlujo {
+        private final int registroTriageId;
+        private final EstadoPaciente estado;
+        private final LocalDateTime momento;
+        
+        private EstadoFlujo(int registroTriageId, EstadoPaciente estado, LocalDateTime momento) {
+            this.registroTriageId = registroTriageId;
+            this.estado = estado;
+            this.momento = momento;
+        }
+    }
+    
+    /**
+     * Estado derivado copiado para el punto de control
+     */
+    private record PuntoControl(long hasta, Map<Integer, EstadoFlujo> estados, Map<String, List<Integer>> tiempos) {
+    }
+    
+    /**
+     * Clase para métricas de la bitácora de flujo
+     */
+    public static class EstadisticasDiario {
+        public String nodo;
+        public int pacientes;
+        public long eventosRegistrados;
+        public long transicionesRechazadas;
+        public int pendientesArchivo;
+        public int pendientesBD;
+        public long eventosEscritosBD;
+        public long eventosDescartadosBD;
+        public long erroresEscritura;
+        public int eventosReproducidos;
+        public long duracionReproduccionMs;
+        public long puntoControl;
+        public long segmentosBorrados;
+        
+        @Override
+        public String toString() {
+            return String.format("Nodo: %s, Pacientes: %d, Eventos: %d, Rechazadas: %d, Pendientes archivo/BD: %d/%d, " +
+                "Escritos/descartados BD: %d/%d, Errores: %d, Reproducidos: %d en %d ms, " +
+                "Punto de control: %d, Segmentos borrados: %d",
+                nodo, pacientes, eventosRegistrados, transicionesRechazadas, pendientesArchivo, pendientesBD,
+                eventosEscritosBD, eventosDescartadosBD, erroresEscritura, eventosReproducidos, duracionReproduccionMs,
+                puntoControl, segmentosBorrados);
+        }
+    }
+}
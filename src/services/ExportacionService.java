@@ -0,0 +1,659 @@
+package services;
+
+import dao.ExportacionClinicaDAO;
+import dao.ExportacionClinicaDAO.Tabla;
+import utils.Bitacora;
+import utils.DatabaseConnection;
+import utils.LimitadorTasa;
+import utils.RutaConsulta;
+import utils.SalidaGzipCanal;
+import controllers.BaseController;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+/**
+ * Servicio de exportación de datos clínicos para auditoría
+ * Exporta pacientes, registros_triage, atencion_medica y datos_sociales a CSV comprimido con gzip
+ * sin cargar las tablas en memoria: cada tabla se divide en rangos de {@value #TAMAÑO_RANGO} IDs
+ * que varios hilos leen en paralelo con cursores del servidor (de una réplica si hay) y escriben
+ * cada uno en su propia parte (&lt;tabla&gt;/parte-NNNNN.csv.gz, con encabezado) mediante FileChannel
+ *
+ * Para no afectar la latencia del triage, los hilos corren con prioridad mínima y comparten un
+ * limitador de bytes leídos: de {@link #INICIO_DIURNO} a {@link #FIN_DIURNO} se aplica la tasa diurna
+ * y fuera de ese horario la nocturna (sin límite por omisión). La tasa se revisa en cada rango
+ *
+ * Se exportan las filas existentes al planear la exportación. Cada rango es una lectura
+ * consistente por sí misma, pero la exportación completa no es una sola instantánea
+ * El manifiesto.properties se escribe al final y solo si todas las partes terminaron;
+ * las partes se escriben como .tmp y se renombran al completarse
+ */
+public class ExportacionService {
+    
+    private static final Bitacora BITACORA = Bitacora.de(ExportacionService.class);
+    
+    public static final int TAMAÑO_RANGO = 20_000;
+    public static final int PARALELISMO_PREDETERMINADO =
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    public static final long TASA_DIURNA_PREDETERMINADA = 2L * 1024 * 1024;
+    public static final long TASA_NOCTURNA_PREDETERMINADA = 0;
+    public static final LocalTime INICIO_DIURNO = LocalTime.of(7, 0);
+    public static final LocalTime FIN_DIURNO = LocalTime.of(22, 0);
+    
+    private static final String MANIFIESTO = "manifiesto.properties";
+    private static final int TAMAÑO_BLOQUE_TEXTO = 64 * 1024;
+    private static final DateTimeFormatter FORMATO_CARPETA = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private final int paralelismo;
+    private final long tasaDiurna;
+    private final long tasaNocturna;
+    
+    // Compartido por las exportaciones de este servicio: dos exportaciones simultáneas se reparten la tasa
+    private final LimitadorTasa limitador;
+    
+    /**
+     * Constructor del servicio de exportación con la configuración predeterminada
+     */
+    public ExportacionService() {
+        this(PARALELISMO_PREDETERMINADO, TASA_DIURNA_PREDETERMINADA, TASA_NOCTURNA_PREDETERMINADA);
+    }
+    
+    /**
+     * Constructor con configuración explícita
+     * @param paralelismo Hilos de lectura (y conexiones dedicadas) por exportación
+     * @param tasaDiurna Bytes de CSV por segundo en horario diurno (0 sin límite)
+     * @param tasaNocturna Bytes de CSV por segundo fuera del horario diurno (0 sin límite)
+     */
+    ExportacionService(int paralelismo, long tasaDiurna, long tasaNocturna) {
+        if (paralelismo <= 0) {
+            throw new IllegalArgumentException("Paralelismo inválido");
+        }
+        this.paralelismo = paralelismo;
+        this.tasaDiurna = tasaDiurna;
+        this.tasaNocturna = tasaNocturna;
+        this.limitador = new LimitadorTasa(tasaActual());
+    }
+    
+    /**
+     * Inicia una exportación en segundo plano
+     * @param tokenSesion Token de sesión del usuario
+     * @param destino Carpeta donde se crea la carpeta exportacion-yyyyMMdd-HHmmss
+     * @param tablas Tablas a exportar (vacío para todas)
+     * @param oyente Recibe el progreso al terminar cada rango, desde los hilos de exportación
+     *               (puede ser null; en JavaFX usar Platform.runLater para actualizar la vista)
+     * @return Exportación en curso, o null si el usuario no tiene permiso para exportar
+     */
+    public Exportacion iniciarExportacion(String tokenSesion, Path destino, Set<Tabla> tablas,
+                                          Consumer<Progreso> oyente) {
+        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.EXPORTAR_REPORTES)) {
+            return null;
+        }
+        
+        return iniciar(destino, tablas, oyente);
+    }
+    
+    private Exportacion iniciar(Path destino, Set<Tabla> tablas, Consumer<Progreso> oyente) {
+        Set<Tabla> seleccion = tablas == null || tablas.isEmpty() ? EnumSet.allOf(Tabla.class) : EnumSet.copyOf(tablas);
+        Path directorio = destino.resolve("exportacion-" + LocalDateTime.now().format(FORMATO_CARPETA));
+        Exportacion exportacion = new Exportacion(directorio, seleccion, oyente);
+        
+        Thread coordinador = new Thread(exportacion::ejecutar, "exportacion");
+        coordinador.setDaemon(true);
+        coordinador.setPriority(Thread.MIN_PRIORITY);
+        coordinador.start();
+        
+        BITACORA.info("Exportación iniciada", "directorio", directorio, "tablas", seleccion, "paralelismo", paralelismo);
+        return exportacion;
+    }
+    
+    private long tasaActual() {
+        LocalTime ahora = LocalTime.now();
+        boolean diurno = !ahora.isBefore(INICIO_DIURNO) && ahora.isBefore(FIN_DIURNO);
+        return diurno ? tasaDiurna : tasaNocturna;
+    }
+    
+    /**
+     * Rango de IDs de una tabla que se escribe en una parte
+     */
+    private record Rango(Tabla tabla, int parte, long desdeId, long hastaId) {
+    }
+    
+    /**
+     * Columnas y partes escritas de una tabla
+     */
+    private record TablaPlaneada(String[] columnas, AtomicLong filas, Set<String> partes) {
+    }
+    
+    /**
+     * Exportación en curso
+     */
+    public final class Exportacion {
+        
+        private final Path directorio;
+        private final Set<Tabla> tablas;
+        private final Consumer<Progreso> oyente;
+        private final long inicioNanos = System.nanoTime();
+        
+        private final Map<Tabla, TablaPlaneada> planes = new EnumMap<>(Tabla.class);
+        private final ConcurrentLinkedQueue<Rango> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger rangosTerminados = new AtomicInteger();
+        private final AtomicLong filas = new AtomicLong();
+        private final AtomicLong bytesLeidos = new AtomicLong();
+        private final AtomicLong bytesEscritos = new AtomicLong();
+        private final CompletableFuture<ResultadoExportacion> resultado = new CompletableFuture<>();
+        
+        private volatile int rangosTotales;
+        private volatile boolean cancelada;
+        private volatile String error;
+        private volatile List<Future<?>> tareas = List.of();
+        
+        private Exportacion(Path directorio, Set<Tabla> tablas, Consumer<Progreso> oyente) {
+            this.directorio = directorio;
+            this.tablas = tablas;
+            this.oyente = oyente;
+        }
+        
+        public Path getDirectorio() { return directorio; }
+        
+        /**
+         * Solicita detener la exportación; los rangos en curso se abandonan y no se escribe el manifiesto
+         */
+        public void cancelar() {
+            cancelada = true;
+            for (Future<?> tarea : tareas) {
+                tarea.cancel(true);
+            }
+        }
+        
+        public boolean isTerminada() {
+            return resultado.isDone();
+        }
+        
+        /**
+         * Espera a que la exportación termine
+         * @return Resultado de la exportación
+         * @throws InterruptedException si el hilo se interrumpe durante la espera
+         */
+        public ResultadoExportacion esperar() throws InterruptedException {
+            try {
+                return resultado.get();
+            } catch (ExecutionException e) {
+                // ejecutar() siempre completa con un resultado
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        
+        /**
+         * @return Resultado cuando termine, para encadenar acciones sin bloquear
+         */
+        public CompletableFuture<ResultadoExportacion> alTerminar() {
+            return resultado;
+        }
+        
+        /**
+         * @return Progreso actual
+         */
+        public Progreso getProgreso() {
+            Progreso progreso = new Progreso();
+            progreso.rangosTotales = rangosTotales;
+            progreso.rangosTerminados = rangosTerminados.get();
+            progreso.filas = filas.get();
+            progreso.bytesLeidos = bytesLeidos.get();
+            progreso.bytesEscritos = bytesEscritos.get();
+            progreso.transcurridoMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+            progreso.tasaLimite = limitador.getTasa();
+            progreso.terminada = resultado.isDone();
+            return progreso;
+        }
+        
+        private boolean detenida() {
+            return cancelada || error != null;
+        }
+        
+        private void ejecutar() {
+            ExecutorService trabajadores = Executors.newFixedThreadPool(paralelismo, new FabricaHilos());
+            try {
+                planear();
+                notificar();
+                
+                List<Future<?>> enviadas = new ArrayList<>();
+                for (int i = 0; i < paralelismo && !cancelada; i++) {
+                    enviadas.add(trabajadores.submit(this::trabajar));
+                }
+                tareas = enviadas;
+                if (cancelada) {
+                    cancelar();
+                }
+                for (Future<?> tarea : enviadas) {
+                    try {
+                        tarea.get();
+                    } catch (ExecutionException e) {
+                        registrarError(e.getCause());
+                    } catch (CancellationException e) {
+                        // Cancelada con cancelar(); el hilo termina su escritura en curso
+                    }
+                }
+                
+                // Las tareas canceladas pueden seguir en su último bloque
+                trabajadores.shutdown();
+                trabajadores.awaitTermination(1, TimeUnit.MINUTES);
+                
+                if (!detenida()) {
+                    escribirManifiesto();
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                registrarError(e);
+            } catch (InterruptedException e) {
+                cancelada = true;
+                Thread.currentThread().interrupt();
+            } finally {
+                trabajadores.shutdownNow();
+                terminar();
+            }
+        }
+        
+        /**
+         * Obtiene columnas y rangos de IDs de cada tabla y arma la cola de rangos
+         */
+        private void planear() throws SQLException, IOException {
+            try (Connection conn = DatabaseConnection.getInstance().abrirConexionDedicada(RutaConsulta.REPLICA)) {
+                ExportacionClinicaDAO dao = new ExportacionClinicaDAO(conn);
+                int total = 0;
+                for (Tabla tabla : tablas) {
+                    planes.put(tabla, new TablaPlaneada(dao.obtenerColumnas(tabla), new AtomicLong(),
+                        new ConcurrentSkipListSet<>()));
+                    Files.createDirectories(directorio.resolve(tabla.getNombre()));
+                    
+                    long[] rango = dao.obtenerRangoIds(tabla);
+                    if (rango == null) {
+                        continue;
+                    }
+                    int parte = 0;
+                    for (long desde = rango[0]; desde <= rango[1]; desde += TAMAÑO_RANGO) {
+                        pendientes.add(new Rango(tabla, parte++, desde, Math.min(desde + TAMAÑO_RANGO - 1, rango[1])));
+                        total++;
+                    }
+                }
+                rangosTotales = total;
+            }
+        }
+        
+        /**
+         * Cuerpo de cada hilo: toma rangos de la cola con su propia conexión hasta vaciarla
+         */
+        private void trabajar() {
+            try (Connection conn = DatabaseConnection.getInstance().abrirConexionDedicada(RutaConsulta.REPLICA)) {
+                ExportacionClinicaDAO dao = new ExportacionClinicaDAO(conn);
+                Rango rango;
+                while (!detenida() && (rango = pendientes.poll()) != null) {
+                    exportarRango(dao, rango);
+                    rangosTerminados.incrementAndGet();
+                    notificar();
+                }
+            } catch (SQLException | IOException e) {
+                // Al cancelar, la interrupción llega como InterruptedIOException o ClosedByInterruptException
+                if (!cancelada) {
+                    registrarError(e);
+                }
+            }
+        }
+        
+        private void exportarRango(ExportacionClinicaDAO dao, Rango rango) throws SQLException, IOException {
+            limitador.setTasa(tasaActual());
+            
+            TablaPlaneada plan = planes.get(rango.tabla());
+            String nombre = String.format("parte-%05d.csv.gz", rango.parte());
+            Path carpeta = directorio.resolve(rango.tabla().getNombre());
+            Path temporal = carpeta.resolve(nombre + ".tmp");
+            
+            long leidas;
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING);
+                 SalidaGzipCanal gzip = new SalidaGzipCanal(canal, Deflater.DEFAULT_COMPRESSION)) {
+                EscritorCSV csv = new EscritorCSV(gzip);
+                csv.fila(plan.columnas());
+                leidas = dao.leerRango(rango.tabla(), rango.desdeId(), rango.hastaId(), csv);
+                csv.vaciar();
+                gzip.terminar();
+                bytesEscritos.addAndGet(gzip.getBytesSalida());
+            }
+            
+            // Un rango sin filas (IDs borrados) no deja parte
+            if (leidas == 0) {
+                Files.delete(temporal);
+                return;
+            }
+            Files.move(temporal, carpeta.resolve(nombre), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            plan.filas().addAndGet(leidas);
+            plan.partes().add(nombre);
+            filas.addAndGet(leidas);
+        }
+        
+        private void registrarError(Throwable e) {
+            if (error == null) {
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+            BITACORA.error("Error en la exportación", "directorio", directorio, "error", e.getMessage());
+        }
+        
+        private void notificar() {
+            if (oyente == null) {
+                return;
+            }
+            try {
+                oyente.accept(getProgreso());
+            } catch (RuntimeException e) {
+                BITACORA.aviso("El oyente de progreso de la exportación falló", "error", e.getMessage());
+            }
+        }
+        
+        private void escribirManifiesto() throws IOException {
+            Properties manifiesto = new Properties();
+            manifiesto.setProperty("exportada", LocalDateTime.now().toString());
+            manifiesto.setProperty("tablas", String.join(",", tablas.stream().map(Tabla::getNombre).toList()));
+            planes.forEach((tabla, plan) -> {
+                manifiesto.setProperty(tabla.getNombre() + ".columnas", String.join(",", plan.columnas()));
+                manifiesto.setProperty(tabla.getNombre() + ".filas", String.valueOf(plan.filas().get()));
+                manifiesto.setProperty(tabla.getNombre() + ".partes", String.join(",", plan.partes()));
+            });
+            
+            Path temporal = directorio.resolve(MANIFIESTO + ".tmp");
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                manifiesto.store(salida, "Exportación de datos clínicos");
+            }
+            Files.move(temporal, directorio.resolve(MANIFIESTO), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        private void terminar() {
+            long duracionMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+            int archivos = 0;
+            for (TablaPlaneada plan : planes.values()) {
+                archivos += plan.partes().size();
+            }
+            
+            ResultadoExportacion resultadoFinal;
+            if (!detenida()) {
+                resultadoFinal = new ResultadoExportacion(true, "Exportación completa", directorio, filas.get(),
+                    bytesEscritos.get(), archivos, duracionMs);
+                BITACORA.info("Exportación terminada", "directorio", directorio, "filas", filas.get(),
+                    "partes", archivos, "bytes", bytesEscritos.get(), "ms", duracionMs);
+            } else {
+                borrarTemporales();
+                String mensaje = error != null ? "Exportación incompleta: " + error : "Exportación cancelada";
+                resultadoFinal = new ResultadoExportacion(false, mensaje, directorio, filas.get(), bytesEscritos.get(),
+                    archivos, duracionMs);
+                BITACORA.aviso("Exportación detenida; las partes escritas quedan sin manifiesto",
+                    "directorio", directorio, "motivo", mensaje);
+            }
+            resultado.complete(resultadoFinal);
+            notificar();
+        }
+        
+        private void borrarTemporales() {
+            for (Tabla tabla : planes.keySet()) {
+                try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio.resolve(tabla.getNombre()), "*.tmp")) {
+                    for (Path archivo : contenido) {
+                        Files.deleteIfExists(archivo);
+                    }
+                } catch (IOException e) {
+                    BITACORA.aviso("No se pudieron borrar partes incompletas", "tabla", tabla.getNombre(),
+                        "error", e.getMessage());
+                }
+            }
+        }
+        
+        /**
+         * Convierte filas a CSV (RFC 4180, NULL como campo vacío) y las escribe comprimidas por bloques,
+         * pasando cada bloque por el limitador antes de escribirlo
+         */
+        private final class EscritorCSV implements ExportacionClinicaDAO.DestinoFilas {
+            
+            private final SalidaGzipCanal salida;
+            private final StringBuilder texto = new StringBuilder(TAMAÑO_BLOQUE_TEXTO + 1024);
+            
+            EscritorCSV(SalidaGzipCanal salida) {
+                this.salida = salida;
+            }
+            
+            @Override
+            public void fila(String[] valores) throws IOException {
+                for (int i = 0; i < valores.length; i++) {
+                    if (i > 0) {
+                        texto.append(',');
+                    }
+                    agregarCampo(valores[i]);
+                }
+                texto.append('\n');
+                if (texto.length() >= TAMAÑO_BLOQUE_TEXTO) {
+                    vaciar();
+                }
+            }
+            
+            void vaciar() throws IOException {
+                if (texto.length() == 0) {
+                    return;
+                }
+                if (cancelada) {
+                    throw new InterruptedIOException("Exportación cancelada");
+                }
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(texto));
+                int cantidad = bytes.remaining();
+                try {
+                    limitador.adquirir(cantidad);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Exportación interrumpida");
+                }
+                salida.escribir(bytes);
+                bytesLeidos.addAndGet(cantidad);
+                texto.setLength(0);
+            }
+            
+            private void agregarCampo(String valor) {
+                if (valor == null) {
+                    return;
+                }
+                boolean comillas = false;
+                for (int i = 0; i < valor.length() && !comillas; i++) {
+                    char c = valor.charAt(i);
+                    comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+                }
+                if (!comillas) {
+                    texto.append(valor);
+                    return;
+                }
+                texto.append('"');
+                for (int i = 0; i < valor.length(); i++) {
+                    char c = valor.charAt(i);
+                    if (c == '"') {
+                        texto.append('"');
+                    }
+                    texto.append(c);
+                }
+                texto.append('"');
+            }
+        }
+    }
+    
+    /**
+     * Hilos de lectura de una exportación: daemon y con prioridad mínima
+     */
+    private static final class FabricaHilos implements ThreadFactory {
+        private final AtomicInteger contador = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread hilo = new Thread(r, "exportacion-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            hilo.setPriority(Thread.MIN_PRIORITY);
+            return hilo;
+        }
+    }
+    
+    /**
+     * Progreso de una exportación
+     */
+    public static class Progreso {
+        public int rangosTotales;
+        public int rangosTerminados;
+        public long filas;
+        public long bytesLeidos;
+        public long bytesEscritos;
+        public long transcurridoMs;
+        public long tasaLimite;
+        public boolean terminada;
+        
+        /**
+         * @return Porcentaje de rangos terminados (0 a 100)
+         */
+        public double porcentaje() {
+            if (rangosTotales == 0) {
+                return terminada ? 100.0 : 0.0;
+            }
+            return rangosTerminados * 100.0 / rangosTotales;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%.1f%% (%d/%d rangos), Filas: %d, Leído: %.1f MB, Escrito: %.1f MB, " +
+                "Límite: %s, Tiempo: %d ms", porcentaje(), rangosTerminados, rangosTotales, filas,
+                bytesLeidos / (1024.0 * 1024.0), bytesEscritos / (1024.0 * 1024.0),
+                tasaLimite > 0 ? String.format("%.1f MB/s", tasaLimite / (1024.0 * 1024.0)) : "sin límite",
+                transcurridoMs);
+        }
+    }
+    
+    /**
+     * Resultado de una exportación
+     */
+    public static class ResultadoExportacion {
+        private final boolean exitoso;
+        private final String mensaje;
+        private final Path directorio;
+        private final long filas;
+        private final long bytesEscritos;
+        private final int archivos;
+        private final long duracionMs;
+        
+        public ResultadoExportacion(boolean exitoso, String mensaje, Path directorio, long filas,
+                                    long bytesEscritos, int archivos, long duracionMs) {
+            this.exitoso = exitoso;
+            this.mensaje = mensaje;
+            this.directorio = directorio;
+            this.filas = filas;
+            this.bytesEscritos = bytesEscritos;
+            this.archivos = archivos;
+            this.duracionMs = duracionMs;
+        }
+        
+        public boolean isExitoso() { return exitoso; }
+        public String getMensaje() { return mensaje; }
+        public Path getDirectorio() { return directorio; }
+        public long getFilas() { return filas; }
+        public long getBytesEscritos() { return bytesEscritos; }
+        public int getArchivos() { return archivos; }
+        public long getDuracionMs() { return duracionMs; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s - %s: %d filas, %d partes, %.1f MB en %d ms", mensaje, directorio, filas,
+                archivos, bytesEscritos / (1024.0 * 1024.0), duracionMs);
+        }
+    }
+    
+    /**
+     * Uso: ExportacionService <destino> [tabla,tabla...] [--sin-limite]
+     * Tablas: pacientes, registros_triage, atencion_medica, datos_sociales (por defecto todas)
+     * Exporta con la configuración de database.properties, sin sesión de usuario, y muestra el
+     * progreso al terminar cada rango; con --sin-limite no se aplica la tasa diurna
+     * Ctrl+C cancela la exportación y borra las partes incompletas
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Uso: ExportacionService <destino> [tabla,tabla...] [--sin-limite]");
+            return;
+        }
+        
+        boolean sinLimite = false;
+        Set<Tabla> tablas = EnumSet.noneOf(Tabla.class);
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--sin-limite")) {
+                sinLimite = true;
+                continue;
+            }
+            for (String nombre : args[i].split(",")) {
+                Tabla tabla = null;
+                for (Tabla candidata : Tabla.values()) {
+                    if (candidata.getNombre().equalsIgnoreCase(nombre.trim())) {
+                        tabla = candidata;
+                    }
+                }
+                if (tabla == null) {
+                    System.err.println("Tabla desconocida: " + nombre);
+                    System.exit(2);
+                }
+                tablas.add(tabla);
+            }
+        }
+        
+        ExportacionService servicio = sinLimite
+            ? new ExportacionService(PARALELISMO_PREDETERMINADO, 0, 0) : new ExportacionService();
+        Exportacion exportacion = servicio.iniciar(Paths.get(args[0]), tablas, System.out::println);
+        
+        Thread cancelacion = new Thread(() -> {
+            if (!exportacion.isTerminada()) {
+                exportacion.cancelar();
+                try {
+                    System.out.println(exportacion.esperar().getMensaje());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "exportacion-cancelar");
+        Runtime.getRuntime().addShutdownHook(cancelacion);
+        
+        ResultadoExportacion resultado = exportacion.esperar();
+        System.out.println(resultado);
+        if (!resultado.isExitoso()) {
+            System.exit(1);
+        }
+    }
+}
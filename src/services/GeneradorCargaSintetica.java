@@ -0,0 +1,1239 @@
+package services;
+
+import dao.CargaMasivaDAO;
+import dao.CargaMasivaDAO.Tabla;
+import dao.GeneradorSecuencias;
+import models.Especialidad;
+import models.EstadoPaciente;
+import models.NivelUrgencia;
+import models.Paciente;
+import models.RegistroTriage;
+import models.TipoAlta;
+import utils.DatabaseConnection;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generador determinista de datos sintéticos de urgencias para pruebas de carga
+ * Produce usuarios de personal, pacientes (CURP y RFC válidos según ValidationUtils),
+ * registros de triage de los cinco niveles con signos vitales acordes al nivel,
+ * datos sociales y atenciones médicas, con IDs explícitos a partir de idInicial
+ *
+ * Cada fila se genera a partir de (semilla, tabla, índice) y no del estado de las filas
+ * anteriores, por lo que la misma semilla produce siempre los mismos datos, sin
+ * importar el destino: archivos CSV con script LOAD DATA, o inserción por lotes
+ *
+ * Los primeros registros son la primera visita de cada paciente; el resto son visitas
+ * repetidas, sesgadas hacia un grupo de pacientes frecuentes y siempre posteriores a la primera
+ * No es seguro entre hilos: cada hilo debe usar su propia instancia
+ */
+public class GeneradorCargaSintetica {
+    
+    public static final long SEMILLA_DEFAULT = 20240101L;
+    public static final int ID_INICIAL_DEFAULT = 1_000_000;
+    
+    // Combinaciones de entidad (33), consonantes internas (21^3) y homoclave (36) de la CURP:
+    // hasta este número de pacientes las CURP son únicas por construcción
+    public static final long MAXIMO_PACIENTES = 33L * 21 * 21 * 21 * 36;
+    
+    // Periodo por defecto de las llegadas (fijo para que la generación sea reproducible)
+    public static final LocalDateTime DESDE_DEFAULT = LocalDateTime.of(2024, 1, 1, 0, 0);
+    public static final LocalDateTime HASTA_DEFAULT = LocalDateTime.of(2026, 1, 1, 0, 0);
+    
+    /**
+     * Tamaños de referencia, en número de registros de triage
+     */
+    public enum Escala {
+        CHICA("10k", 10_000),
+        MEDIANA("1m", 1_000_000),
+        GRANDE("10m", 10_000_000);
+        
+        private final String etiqueta;
+        private final long registros;
+        
+        Escala(String etiqueta, long registros) {
+            this.etiqueta = etiqueta;
+            this.registros = registros;
+        }
+        
+        public String getEtiqueta() { return etiqueta; }
+        public long getRegistros() { return registros; }
+        
+        /**
+         * Obtiene la escala por nombre o etiqueta (p. ej. "MEDIANA" o "1m")
+         */
+        public static Escala desdeTexto(String texto) {
+            for (Escala escala : values()) {
+                if (escala.name().equalsIgnoreCase(texto) || escala.etiqueta.equalsIgnoreCase(texto)) {
+                    return escala;
+                }
+            }
+            throw new IllegalArgumentException("Escala desconocida: " + texto);
+        }
+    }
+    
+    // Fracción de los registros que corresponde a la primera visita de un paciente
+    private static final double PROPORCION_PACIENTES = 0.65;
+    
+    // Personal sintético (IDs consecutivos a partir de idInicial)
+    private static final int MEDICOS_TRIAGE = 12;
+    private static final int TRABAJADORES_SOCIALES = 8;
+    private static final int MEDICOS_URGENCIAS = 30;
+    
+    // Flujos independientes de números aleatorios
+    private static final int FLUJO_PACIENTE = 1;
+    private static final int FLUJO_LLEGADA = 2;
+    private static final int FLUJO_VISITA = 3;
+    private static final int FLUJO_REGISTRO = 4;
+    private static final int FLUJO_USUARIO = 5;
+    
+    // Niveles canónicos (sin alias) con su peso relativo en la afluencia
+    private static final NivelUrgencia[] NIVELES = {
+        NivelUrgencia.ROJO, NivelUrgencia.NARANJA, NivelUrgencia.AMARILLO, NivelUrgencia.VERDE, NivelUrgencia.AZUL
+    };
+    private static final int[] PESO_NIVEL = { 2, 10, 33, 40, 15 };
+    
+    // Signos vitales por nivel: media y desviación de sistólica, FC, FR, temperatura, saturación y Glasgow
+    private static final double[][] SIGNOS_POR_NIVEL = {
+        { 95, 40, 128, 22, 28, 6, 37.6, 1.4, 85, 6, 10, 3 },
+        { 150, 28, 112, 14, 24, 4, 38.1, 0.9, 91, 3, 14, 1 },
+        { 134, 16, 96, 11, 20, 3, 37.7, 0.7, 95, 2, 15, 0.4 },
+        { 122, 11, 83, 9, 17, 2, 36.9, 0.5, 97, 1.5, 15, 0 },
+        { 118, 9, 76, 8, 16, 2, 36.6, 0.3, 98, 1, 15, 0 }
+    };
+    
+    // Minutos entre etapas por nivel: espera de triage, espera de médico y duración de la atención (mín, máx)
+    private static final int[][] MINUTOS_POR_NIVEL = {
+        { 0, 3, 0, 10, 60, 480 },
+        { 2, 15, 5, 30, 45, 300 },
+        { 5, 40, 20, 120, 30, 180 },
+        { 10, 60, 60, 240, 15, 90 },
+        { 10, 90, 0, 0, 0, 0 }
+    };
+    
+    // Tipo de alta por nivel: pesos de DOMICILIO, HOSPITALIZACION, REFERENCIA, DEFUNCION
+    private static final int[][] PESO_ALTA_POR_NIVEL = {
+        { 17, 60, 15, 8 },
+        { 59, 30, 10, 1 },
+        { 85, 8, 7, 0 },
+        { 97, 0, 3, 0 },
+        { 100, 0, 0, 0 }
+    };
+    private static final TipoAlta[] ALTAS = {
+        TipoAlta.DOMICILIO, TipoAlta.HOSPITALIZACION, TipoAlta.REFERENCIA, TipoAlta.DEFUNCION
+    };
+    
+    private static final Especialidad[][] ESPECIALIDADES_POR_NIVEL = {
+        { Especialidad.CUIDADOS_INTENSIVOS, Especialidad.CARDIOLOGIA, Especialidad.NEUROLOGIA,
+          Especialidad.CIRUGIA_GENERAL, Especialidad.NEUMOLOGIA },
+        { Especialidad.CARDIOLOGIA, Especialidad.NEUROLOGIA, Especialidad.CIRUGIA_GENERAL, Especialidad.NEUMOLOGIA,
+          Especialidad.ORTOPEDIA, Especialidad.MEDICINA_INTERNA, Especialidad.GINECOLOGIA,
+          Especialidad.INFECTOLOGIA, Especialidad.NEFROLOGIA },
+        { Especialidad.MEDICINA_INTERNA, Especialidad.ORTOPEDIA, Especialidad.CIRUGIA_GENERAL,
+          Especialidad.INFECTOLOGIA, Especialidad.UROLOGIA, Especialidad.GINECOLOGIA, Especialidad.NEUMOLOGIA,
+          Especialidad.NEFROLOGIA, Especialidad.ONCOLOGIA },
+        { Especialidad.MEDICINA_INTERNA, Especialidad.ORTOPEDIA, Especialidad.INFECTOLOGIA,
+          Especialidad.OFTALMOLOGIA, Especialidad.UROLOGIA, Especialidad.GINECOLOGIA },
+        { Especialidad.MEDICINA_INTERNA, Especialidad.OFTALMOLOGIA, Especialidad.ONCOLOGIA,
+          Especialidad.UROLOGIA, Especialidad.ORTOPEDIA, Especialidad.NEFROLOGIA }
+    };
+    
+    // Llegadas relativas por hora del día (madrugada baja, picos a mediodía y noche)
+    private static final int[] PESO_HORA = { 3, 2, 2, 1, 1, 2, 3, 5, 7, 8, 9, 9, 9, 8, 8, 8, 8, 9, 9, 9, 8, 7, 5, 4 };
+    
+    /**
+     * Textos clínicos de una especialidad
+     */
+    private static final class Perfil {
+        final String[] motivos;
+        final String[] sintomas;
+        final String[] diagnosticos;
+        final String[] tratamientos;
+        final String[] medicamentos;
+        
+        Perfil(String[] motivos, String[] sintomas, String[] diagnosticos, String[] tratamientos, String[] medicamentos) {
+            this.motivos = motivos;
+            this.sintomas = sintomas;
+            this.diagnosticos = diagnosticos;
+            this.tratamientos = tratamientos;
+            this.medicamentos = medicamentos;
+        }
+    }
+    
+    private static final Map<Especialidad, Perfil> PERFILES = new EnumMap<>(Especialidad.class);
+    
+    static {
+        perfil(Especialidad.MEDICINA_INTERNA,
+            new String[] { "Fiebre y malestar general", "Descontrol de glucosa", "Dolor abdominal difuso" },
+            new String[] { "Fiebre, cefalea y mialgias", "Poliuria, polidipsia y mareo", "Náusea, vómito y dolor abdominal" },
+            new String[] { "Síndrome febril en estudio", "Diabetes mellitus tipo 2 descompensada", "Gastroenteritis aguda" },
+            new String[] { "Hidratación intravenosa y antipirético", "Ajuste de insulina y monitoreo de glucosa", "Dieta blanda e hidratación oral" },
+            new String[] { "Paracetamol 500 mg cada 8 horas", "Insulina NPH 10 UI cada 12 horas", "Butilhioscina 10 mg cada 8 horas" });
+        perfil(Especialidad.CARDIOLOGIA,
+            new String[] { "Dolor torácico", "Palpitaciones", "Crisis hipertensiva" },
+            new String[] { "Dolor opresivo irradiado a brazo izquierdo", "Palpitaciones y disnea", "Cefalea intensa y visión borrosa" },
+            new String[] { "Síndrome coronario agudo", "Fibrilación auricular", "Urgencia hipertensiva" },
+            new String[] { "Antiagregación, oxígeno y monitoreo continuo", "Control de frecuencia y anticoagulación", "Antihipertensivo oral y vigilancia" },
+            new String[] { "Ácido acetilsalicílico 100 mg al día", "Metoprolol 50 mg cada 12 horas", "Captopril 25 mg dosis única" });
+        perfil(Especialidad.NEUROLOGIA,
+            new String[] { "Pérdida de fuerza en un lado del cuerpo", "Convulsiones", "Cefalea súbita" },
+            new String[] { "Hemiparesia y dificultad para hablar", "Crisis convulsiva tónico-clónica", "Cefalea intensa con rigidez de nuca" },
+            new String[] { "Evento vascular cerebral isquémico", "Crisis convulsiva", "Migraña con aura" },
+            new String[] { "Tomografía urgente y protocolo de trombólisis", "Anticonvulsivante y vigilancia neurológica", "Analgesia y reposo en ambiente oscuro" },
+            new String[] { "Clopidogrel 75 mg al día", "Levetiracetam 500 mg cada 12 horas", "Sumatriptán 50 mg dosis única" });
+        perfil(Especialidad.ORTOPEDIA,
+            new String[] { "Caída con dolor en muñeca", "Torcedura de tobillo", "Dolor lumbar" },
+            new String[] { "Dolor, deformidad y edema de muñeca", "Edema y dolor al apoyar", "Dolor lumbar que irradia a pierna" },
+            new String[] { "Fractura de radio distal", "Esguince de tobillo grado II", "Lumbalgia mecánica" },
+            new String[] { "Reducción cerrada e inmovilización", "Vendaje, hielo y elevación", "Analgesia y reposo relativo" },
+            new String[] { "Ketorolaco 10 mg cada 8 horas", "Naproxeno 250 mg cada 12 horas", "Diclofenaco 100 mg al día" });
+        perfil(Especialidad.PEDIATRIA,
+            new String[] { "Fiebre en menor", "Diarrea en menor", "Dificultad para respirar en menor" },
+            new String[] { "Fiebre de 39 grados e irritabilidad", "Evacuaciones líquidas y vómito", "Tos, sibilancias y tiraje" },
+            new String[] { "Faringoamigdalitis aguda", "Gastroenteritis con deshidratación leve", "Bronquiolitis" },
+            new String[] { "Antipirético y medios físicos", "Vida suero oral y vigilancia", "Nebulizaciones y oxígeno suplementario" },
+            new String[] { "Paracetamol 15 mg/kg cada 6 horas", "Suero oral a libre demanda", "Salbutamol en nebulización cada 4 horas" });
+        perfil(Especialidad.GINECOLOGIA,
+            new String[] { "Sangrado transvaginal", "Dolor pélvico", "Embarazo con contracciones" },
+            new String[] { "Sangrado abundante con coágulos", "Dolor pélvico y fiebre", "Contracciones regulares cada 5 minutos" },
+            new String[] { "Amenaza de aborto", "Enfermedad pélvica inflamatoria", "Trabajo de parto activo" },
+            new String[] { "Reposo y ultrasonido obstétrico", "Antibiótico y analgesia", "Ingreso a tococirugía" },
+            new String[] { "Progesterona 200 mg al día", "Ceftriaxona 1 g intramuscular", "Oxitocina según protocolo" });
+        perfil(Especialidad.CIRUGIA_GENERAL,
+            new String[] { "Dolor en fosa iliaca derecha", "Herida por objeto punzocortante", "Dolor en hipocondrio derecho" },
+            new String[] { "Dolor abdominal migratorio y fiebre", "Herida sangrante en abdomen", "Dolor cólico tras comida grasosa" },
+            new String[] { "Apendicitis aguda", "Herida penetrante de abdomen", "Colecistitis aguda" },
+            new String[] { "Apendicectomía", "Laparotomía exploradora", "Ayuno, antibiótico y colecistectomía programada" },
+            new String[] { "Metronidazol 500 mg cada 8 horas", "Cefalotina 1 g cada 6 horas", "Ceftriaxona 1 g cada 12 horas" });
+        perfil(Especialidad.UROLOGIA,
+            new String[] { "Dolor en flanco", "Retención urinaria", "Ardor al orinar" },
+            new String[] { "Dolor cólico en flanco irradiado a ingle", "Imposibilidad para orinar", "Disuria y polaquiuria" },
+            new String[] { "Litiasis renal", "Retención aguda de orina", "Infección de vías urinarias" },
+            new String[] { "Analgesia e hidratación", "Colocación de sonda Foley", "Antibiótico oral" },
+            new String[] { "Tamsulosina 0.4 mg al día", "Ketorolaco 30 mg intravenoso", "Nitrofurantoína 100 mg cada 12 horas" });
+        perfil(Especialidad.ONCOLOGIA,
+            new String[] { "Fiebre en paciente con quimioterapia", "Dolor oncológico", "Pérdida de peso" },
+            new String[] { "Fiebre y escalofríos", "Dolor óseo persistente", "Pérdida de peso y astenia" },
+            new String[] { "Neutropenia febril", "Dolor oncológico no controlado", "Síndrome consuntivo en estudio" },
+            new String[] { "Antibiótico de amplio espectro y aislamiento", "Ajuste de analgesia", "Estudios de extensión" },
+            new String[] { "Cefepime 2 g cada 8 horas", "Tramadol 50 mg cada 8 horas", "Suplemento nutricional" });
+        perfil(Especialidad.NEFROLOGIA,
+            new String[] { "Edema generalizado", "Disminución de orina", "Paciente en diálisis con malestar" },
+            new String[] { "Edema de piernas y disnea", "Oliguria y náusea", "Debilidad y calambres" },
+            new String[] { "Síndrome nefrótico", "Lesión renal aguda", "Hiperpotasemia" },
+            new String[] { "Diurético y restricción de sodio", "Hidratación y ajuste de fármacos", "Gluconato de calcio y sesión de hemodiálisis" },
+            new String[] { "Furosemida 40 mg al día", "Bicarbonato de sodio 1 g cada 8 horas", "Resina de intercambio iónico" });
+        perfil(Especialidad.OFTALMOLOGIA,
+            new String[] { "Ojo rojo", "Cuerpo extraño en ojo", "Disminución de la visión" },
+            new String[] { "Ojo rojo con secreción", "Sensación de cuerpo extraño y lagrimeo", "Visión borrosa súbita" },
+            new String[] { "Conjuntivitis bacteriana", "Abrasión corneal", "Desprendimiento de vítreo" },
+            new String[] { "Antibiótico tópico", "Retiro de cuerpo extraño y oclusión", "Valoración por retina" },
+            new String[] { "Tobramicina gotas cada 6 horas", "Lubricante ocular cada 4 horas", "Sin medicamento" });
+        perfil(Especialidad.NEUMOLOGIA,
+            new String[] { "Dificultad para respirar", "Tos con flema", "Crisis asmática" },
+            new String[] { "Disnea de medianos esfuerzos", "Tos productiva y fiebre", "Sibilancias y opresión torácica" },
+            new String[] { "EPOC exacerbado", "Neumonía adquirida en la comunidad", "Crisis asmática moderada" },
+            new String[] { "Broncodilatadores y oxígeno", "Antibiótico y oxígeno suplementario", "Nebulización y esteroide" },
+            new String[] { "Salbutamol 2 disparos cada 6 horas", "Levofloxacino 750 mg al día", "Prednisona 50 mg al día" });
+        perfil(Especialidad.INFECTOLOGIA,
+            new String[] { "Fiebre persistente", "Lesión en piel con pus", "Diarrea con fiebre" },
+            new String[] { "Fiebre de varios días y escalofríos", "Área enrojecida, caliente y dolorosa", "Evacuaciones con moco y fiebre" },
+            new String[] { "Dengue sin datos de alarma", "Celulitis", "Gastroenteritis infecciosa" },
+            new String[] { "Hidratación y vigilancia de plaquetas", "Antibiótico y elevación del miembro", "Antibiótico e hidratación" },
+            new String[] { "Paracetamol 500 mg cada 6 horas", "Dicloxacilina 500 mg cada 6 horas", "Ciprofloxacino 500 mg cada 12 horas" });
+        perfil(Especialidad.CUIDADOS_INTENSIVOS,
+            new String[] { "Paciente inconsciente", "Politraumatismo", "Choque" },
+            new String[] { "Sin respuesta a estímulos", "Múltiples lesiones por accidente vial", "Hipotensión y piel fría" },
+            new String[] { "Estado de coma en estudio", "Politraumatismo grave", "Choque séptico" },
+            new String[] { "Manejo avanzado de vía aérea", "Protocolo ATLS y estabilización", "Reanimación con líquidos y vasopresor" },
+            new String[] { "Midazolam en infusión", "Fentanilo en infusión", "Norepinefrina en infusión" });
+    }
+    
+    // Catálogos de datos personales
+    private static final String[] NOMBRES_HOMBRE = {
+        "José", "Juan", "Luis", "Carlos", "Jorge", "Miguel", "Pedro", "Francisco", "Alejandro", "Ricardo",
+        "Fernando", "Eduardo", "Roberto", "Daniel", "Sergio", "Arturo", "Javier", "Raúl", "Manuel", "Diego",
+        "Santiago", "Mateo", "Emiliano", "Héctor", "Óscar"
+    };
+    private static final String[] NOMBRES_MUJER = {
+        "María", "Guadalupe", "Juana", "Margarita", "Verónica", "Patricia", "Leticia", "Rosa", "Elena", "Laura",
+        "Gabriela", "Alejandra", "Adriana", "Claudia", "Mónica", "Sofía", "Valentina", "Regina", "Camila", "Ximena",
+        "Andrea", "Fernanda", "Isabel", "Ana", "Lucía"
+    };
+    private static final String[] APELLIDOS = {
+        "Hernández", "García", "Martínez", "López", "González", "Pérez", "Rodríguez", "Sánchez", "Ramírez", "Cruz",
+        "Flores", "Gómez", "Morales", "Vázquez", "Reyes", "Jiménez", "Torres", "Díaz", "Gutiérrez", "Ruiz",
+        "Mendoza", "Aguilar", "Ortiz", "Moreno", "Castillo", "Romero", "Álvarez", "Méndez", "Chávez", "Rivera",
+        "Juárez", "Ramos", "Domínguez", "Herrera", "Medina", "Castro", "Vargas", "Guzmán", "Velázquez", "Muñoz"
+    };
+    private static final String[] CALLES = {
+        "Av. Insurgentes", "Calle Hidalgo", "Av. Juárez", "Calle Morelos", "Av. Reforma", "Calle Zaragoza",
+        "Calle Allende", "Av. Universidad", "Calle Guerrero", "Calle Aldama", "Av. Revolución", "Calle 5 de Mayo"
+    };
+    private static final String[] COLONIAS = {
+        "Centro", "Del Valle", "Roma Norte", "Narvarte", "Las Américas", "San Miguel", "Jardines", "Lomas",
+        "Santa Fe", "Industrial", "Obrera", "Country Club"
+    };
+    private static final String[][] CIUDADES = {
+        { "Ciudad de México", "Ciudad de México" }, { "Guadalajara", "Jalisco" }, { "Monterrey", "Nuevo León" },
+        { "Puebla", "Puebla" }, { "Querétaro", "Querétaro" }, { "Toluca", "Estado de México" },
+        { "León", "Guanajuato" }, { "Mérida", "Yucatán" }, { "Tijuana", "Baja California" },
+        { "San Luis Potosí", "San Luis Potosí" }
+    };
+    private static final String[] RELACIONES = { "Madre", "Padre", "Esposo(a)", "Hijo(a)", "Hermano(a)", "Amigo(a)" };
+    private static final String[] SEGUROS_PUBLICOS = { "IMSS", "ISSSTE", "IMSS-Bienestar" };
+    private static final String[] SEGUROS_PRIVADOS = { "GNP Seguros", "AXA Seguros", "MetLife", "Seguros Monterrey" };
+    private static final String[] DOMINIOS = { "gmail.com", "hotmail.com", "outlook.com", "yahoo.com.mx" };
+    private static final String[] ENTIDADES_CURP = {
+        "AS", "BC", "BS", "CC", "CH", "CL", "CM", "CS", "DF", "DG", "GR", "GT", "HG", "JC", "MC", "MN", "MS",
+        "NT", "NL", "OC", "PL", "QT", "QR", "SP", "SL", "SR", "TC", "TL", "TS", "VZ", "YN", "ZS", "NE"
+    };
+    private static final String CONSONANTES = "BCDFGHJKLMNPQRSTVWXYZ";
+    private static final String ALFANUMERICOS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    
+    // Catálogos de datos sociales y de atención
+    private static final String[] ANTECEDENTES = {
+        "Niega", "Diabetes en madre", "Hipertensión en padre", "Cardiopatía en abuelos", "Cáncer de mama en madre"
+    };
+    private static final String[] CRONICAS = {
+        "Niega", "Niega", "Diabetes mellitus tipo 2", "Hipertensión arterial", "Asma", "Enfermedad renal crónica"
+    };
+    private static final String[] MEDICAMENTOS_ACTUALES = {
+        "Ninguno", "Ninguno", "Metformina 850 mg", "Losartán 50 mg", "Salbutamol inhalado", "Levotiroxina 50 mcg"
+    };
+    private static final String[] ALERGIAS = { "Negadas", "Negadas", "Negadas", "Penicilina", "Sulfas", "AINEs" };
+    private static final String[] CIRUGIAS = { "Ninguna", "Ninguna", "Apendicectomía", "Cesárea", "Colecistectomía" };
+    private static final String[] HOSPITALIZACIONES = { "Ninguna", "Ninguna", "Neumonía hace 2 años", "Parto" };
+    private static final String[] VACUNAS = { "Esquema completo", "Influenza estacional", "COVID-19 refuerzo", "Desconoce" };
+    private static final String[] HABITOS = { "Niega", "Niega", "Tabaquismo ocasional", "Alcoholismo social", "Tabaquismo intenso" };
+    private static final String[] SOCIOECONOMICA = {
+        "Empleo formal, vivienda propia", "Empleo informal, vive con familia", "Desempleado, apoyo familiar",
+        "Jubilado con pensión", "Estudiante, dependiente económico"
+    };
+    private static final String[] OBSERVACIONES_TRIAGE = {
+        "Acude acompañado de familiar", "Refiere inicio hace 24 horas", "Traído por ambulancia",
+        "Automedicado sin mejoría", "Segunda visita por el mismo motivo"
+    };
+    private static final String[] HOSPITALES_REFERENCIA = {
+        "Hospital General de Zona", "Instituto Nacional de Cardiología", "Instituto Nacional de Neurología",
+        "Hospital de Especialidades"
+    };
+    
+    private static final Map<String, String> PLANOS = new HashMap<>();
+    
+    static {
+        for (String[] catalogo : new String[][] { NOMBRES_HOMBRE, NOMBRES_MUJER, APELLIDOS }) {
+            for (String texto : catalogo) {
+                String plano = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toUpperCase();
+                PLANOS.put(texto, plano.replace('Ñ', 'X'));
+            }
+        }
+    }
+    
+    private final long semilla;
+    private final long registros;
+    private final long pacientes;
+    private final int idInicial;
+    private final LocalDateTime desde;
+    private final LocalDateTime hasta;
+    private final long segundoDesde;
+    private final long segundoHasta;
+    
+    // Generadores reutilizables (uno por flujo que se consulta anidado)
+    private final Aleatorio azar = new Aleatorio();
+    private final Aleatorio azarLlegada = new Aleatorio();
+    private final Aleatorio azarPaciente = new Aleatorio();
+    
+    /**
+     * Crea un generador para una escala de referencia con el periodo y la semilla por defecto
+     * @param escala Tamaño a generar
+     */
+    public GeneradorCargaSintetica(Escala escala) {
+        this(SEMILLA_DEFAULT, escala.registros, ID_INICIAL_DEFAULT, DESDE_DEFAULT, HASTA_DEFAULT);
+    }
+    
+    /**
+     * Crea un generador
+     * @param semilla Semilla; la misma semilla y parámetros producen los mismos datos
+     * @param registros Número de registros de triage
+     * @param idInicial Primer ID de cada tabla (por encima de los datos reales)
+     * @param desde Inicio del periodo de llegadas
+     * @param hasta Fin del periodo de llegadas; los registros cercanos siguen en proceso
+     */
+    public GeneradorCargaSintetica(long semilla, long registros, int idInicial, LocalDateTime desde, LocalDateTime hasta) {
+        if (registros <= 0) {
+            throw new IllegalArgumentException("El número de registros debe ser positivo");
+        }
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("El periodo de llegadas es inválido");
+        }
+        
+        this.semilla = semilla;
+        this.registros = registros;
+        this.pacientes = Math.max(1, (long) Math.ceil(registros * PROPORCION_PACIENTES));
+        this.idInicial = idInicial;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.segundoDesde = desde.toEpochSecond(ZoneOffset.UTC);
+        this.segundoHasta = hasta.toEpochSecond(ZoneOffset.UTC);
+        
+        if (pacientes > MAXIMO_PACIENTES) {
+            throw new IllegalArgumentException("No se pueden generar más de " + MAXIMO_PACIENTES + " pacientes con CURP única");
+        }
+        if ((long) idInicial + registros > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Los IDs generados exceden el rango de INT");
+        }
+    }
+    
+    /**
+     * Destino de las filas generadas
+     */
+    private interface Destino {
+        void fila(Tabla tabla, Object[] valores) throws IOException, SQLException;
+    }
+    
+    /**
+     * Escribe los datos como archivos CSV (uno por tabla) y un script carga.sql con
+     * LOAD DATA LOCAL INFILE, la desactivación temporal de llaves y el ajuste de folios
+     * @param directorio Directorio de salida (se crea si no existe)
+     * @return Resumen de la generación
+     * @throws IOException si hay error de escritura
+     */
+    public ResultadoGeneracion escribirCSV(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        long inicio = System.currentTimeMillis();
+        
+        Map<Tabla, Writer> escritores = new EnumMap<>(Tabla.class);
+        ResultadoGeneracion resultado;
+        try {
+            for (Tabla tabla : Tabla.values()) {
+                Writer escritor = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(archivoCSV(directorio, tabla)), StandardCharsets.UTF_8), 1 << 16);
+                escritor.write(tabla.getListaColumnas().replace(", ", ","));
+                escritor.write('\n');
+                escritores.put(tabla, escritor);
+            }
+            
+            StringBuilder linea = new StringBuilder(512);
+            resultado = generar((tabla, valores) -> {
+                linea.setLength(0);
+                for (int i = 0; i < valores.length; i++) {
+                    if (i > 0) {
+                        linea.append(',');
+                    }
+                    anexarCampoCSV(linea, valores[i]);
+                }
+                linea.append('\n');
+                escritores.get(tabla).append(linea);
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException(e); // El destino CSV no usa la base de datos
+        } finally {
+            for (Writer escritor : escritores.values()) {
+                escritor.close();
+            }
+        }
+        
+        escribirScriptCarga(directorio);
+        return resultado.conDuracion("CSV " + directorio.toAbsolutePath(), System.currentTimeMillis() - inicio);
+    }
+    
+    /**
+     * Inserta los datos por lotes en una conexión dedicada de DatabaseConnection
+     * @return Resumen de la generación
+     * @throws SQLException si falla algún lote (los anteriores quedan confirmados)
+     */
+    public ResultadoGeneracion insertarEnBaseDatos() throws SQLException {
+        try (Connection conexion = DatabaseConnection.getInstance().abrirConexionDedicada()) {
+            return insertar(conexion, CargaMasivaDAO.TAMAÑO_LOTE);
+        }
+    }
+    
+    /**
+     * Inserta los datos por lotes en la conexión indicada y ajusta el contador de folios
+     * @param conexion Conexión destino (no se cierra)
+     * @param tamañoLote Filas por lote y por transacción
+     * @return Resumen de la generación
+     * @throws SQLException si falla algún lote (los anteriores quedan confirmados)
+     */
+    public ResultadoGeneracion insertar(Connection conexion, int tamañoLote) throws SQLException {
+        long inicio = System.currentTimeMillis();
+        ResultadoGeneracion resultado;
+        
+        try (CargaMasivaDAO carga = new CargaMasivaDAO(conexion, tamañoLote)) {
+            resultado = generar(carga::agregar);
+            for (int anio = desde.getYear(); anio <= hasta.getYear(); anio++) {
+                carga.ajustarSecuencia(GeneradorSecuencias.Secuencia.FOLIO_TRIAGE, anio, idInicial + registros);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // El destino JDBC no escribe archivos
+        }
+        
+        return resultado.conDuracion("Base de datos", System.currentTimeMillis() - inicio);
+    }
+    
+    /**
+     * Genera un paciente como objeto del modelo (para estructuras en memoria y benchmarks)
+     * Produce exactamente los mismos datos que la fila correspondiente de la carga
+     * @param indice Índice del paciente, de 0 a getPacientes() - 1
+     * @return Paciente con ID idInicial + indice
+     */
+    public Paciente generarPaciente(long indice) {
+        if (indice < 0 || indice >= pacientes) {
+            throw new IndexOutOfBoundsException("Índice de paciente fuera de rango: " + indice);
+        }
+        
+        Object[] fila = new Object[Tabla.PACIENTES.getNumeroColumnas()];
+        llenarPaciente(indice, fila);
+        
+        Paciente paciente = new Paciente();
+        paciente.setId((Integer) fila[0]);
+        paciente.setNombre((String) fila[1]);
+        paciente.setApellidoPaterno((String) fila[2]);
+        paciente.setApellidoMaterno((String) fila[3]);
+        paciente.setFechaNacimiento((LocalDate) fila[4]);
+        paciente.setSexo((String) fila[5]);
+        paciente.setCurp((String) fila[6]);
+        paciente.setRfc((String) fila[7]);
+        paciente.setTelefonoPrincipal((String) fila[8]);
+        paciente.setEmail((String) fila[9]);
+        paciente.setDireccionCalle((String) fila[10]);
+        paciente.setDireccionNumero((String) fila[11]);
+        paciente.setDireccionColonia((String) fila[12]);
+        paciente.setDireccionCiudad((String) fila[13]);
+        paciente.setDireccionEstado((String) fila[14]);
+        paciente.setDireccionCp((String) fila[15]);
+        paciente.setSeguroMedico((String) fila[16]);
+        paciente.setNumeroPoliza((String) fila[17]);
+        paciente.setContactoEmergenciaNombre((String) fila[18]);
+        paciente.setContactoEmergenciaTelefono((String) fila[19]);
+        paciente.setContactoEmergenciaRelacion((String) fila[20]);
+        paciente.setFechaRegistro((LocalDateTime) fila[21]);
+        return paciente;
+    }
+    
+    /**
+     * Genera un registro de triage como objeto del modelo (sin datos sociales ni atención)
+     * @param indice Índice del registro, de 0 a getRegistros() - 1
+     * @return Registro con ID idInicial + indice
+     */
+    public RegistroTriage generarRegistroTriage(long indice) {
+        if (indice < 0 || indice >= registros) {
+            throw new IndexOutOfBoundsException("Índice de registro fuera de rango: " + indice);
+        }
+        
+        Object[] fila = new Object[Tabla.REGISTROS_TRIAGE.getNumeroColumnas()];
+        llenarRegistro(indice, fila, new Object[Tabla.DATOS_SOCIALES.getNumeroColumnas()],
+                       new Object[Tabla.ATENCION_MEDICA.getNumeroColumnas()]);
+        
+        RegistroTriage registro = new RegistroTriage();
+        registro.setId((Integer) fila[0]);
+        registro.setFolio((String) fila[1]);
+        registro.setPacienteId((Integer) fila[2]);
+        registro.setMedicoTriageId((Integer) fila[3]);
+        registro.setFechaHoraLlegada((LocalDateTime) fila[4]);
+        registro.setFechaHoraTriage((LocalDateTime) fila[5]);
+        registro.setMotivoConsulta((String) fila[6]);
+        registro.setSintomasPrincipales((String) fila[7]);
+        registro.setPresionSistolica((Integer) fila[8]);
+        registro.setPresionDiastolica((Integer) fila[9]);
+        registro.setFrecuenciaCardiaca((Integer) fila[10]);
+        registro.setFrecuenciaRespiratoria((Integer) fila[11]);
+        registro.setTemperatura((Double) fila[12]);
+        registro.setSaturacionOxigeno((Integer) fila[13]);
+        registro.setGlasgow((Integer) fila[14]);
+        registro.setNivelUrgencia(NivelUrgencia.valueOf((String) fila[15]));
+        registro.setEspecialidadAsignada((String) fila[16]);
+        registro.setObservacionesTriage((String) fila[17]);
+        registro.setEstado(EstadoPaciente.valueOf((String) fila[18]));
+        registro.setPrioridadOrden((Integer) fila[19]);
+        return registro;
+    }
+    
+    public long getPacientes() { return pacientes; }
+    public long getRegistros() { return registros; }
+    
+    /**
+     * Genera todas las filas en orden de dependencia: personal, y por cada registro de triage
+     * su paciente (si es primera visita), el registro, los datos sociales y la atención médica
+     */
+    private ResultadoGeneracion generar(Destino destino) throws IOException, SQLException {
+        ResultadoGeneracion resultado = new ResultadoGeneracion();
+        
+        Object[] usuario = new Object[Tabla.USUARIOS.getNumeroColumnas()];
+        int totalPersonal = MEDICOS_TRIAGE + TRABAJADORES_SOCIALES + MEDICOS_URGENCIAS;
+        for (int i = 0; i < totalPersonal; i++) {
+            llenarUsuario(i, usuario);
+            destino.fila(Tabla.USUARIOS, usuario);
+            resultado.contar(Tabla.USUARIOS);
+        }
+        
+        Object[] paciente = new Object[Tabla.PACIENTES.getNumeroColumnas()];
+        Object[] registro = new Object[Tabla.REGISTROS_TRIAGE.getNumeroColumnas()];
+        Object[] social = new Object[Tabla.DATOS_SOCIALES.getNumeroColumnas()];
+        Object[] atencion = new Object[Tabla.ATENCION_MEDICA.getNumeroColumnas()];
+        
+        for (long j = 0; j < registros; j++) {
+            if (j < pacientes) {
+                llenarPaciente(j, paciente);
+                destino.fila(Tabla.PACIENTES, paciente);
+                resultado.contar(Tabla.PACIENTES);
+            }
+            
+            llenarRegistro(j, registro, social, atencion);
+            destino.fila(Tabla.REGISTROS_TRIAGE, registro);
+            resultado.contar(Tabla.REGISTROS_TRIAGE);
+            resultado.porNivel[indiceNivel((String) registro[15])]++;
+            
+            if (social[0] != null) {
+                destino.fila(Tabla.DATOS_SOCIALES, social);
+                resultado.contar(Tabla.DATOS_SOCIALES);
+            }
+            if (atencion[0] != null) {
+                destino.fila(Tabla.ATENCION_MEDICA, atencion);
+                resultado.contar(Tabla.ATENCION_MEDICA);
+            }
+        }
+        
+        return resultado;
+    }
+    
+    // Generación de filas
+    
+    private void llenarUsuario(int i, Object[] fila) {
+        Aleatorio r = azar.reiniciar(semilla, FLUJO_USUARIO, i);
+        String tipo;
+        String rol;
+        String especialidad;
+        int numero;
+        if (i < MEDICOS_TRIAGE) {
+            tipo = "MEDICO_TRIAGE";
+            rol = "triage";
+            especialidad = "Medicina de Urgencias";
+            numero = i + 1;
+        } else if (i < MEDICOS_TRIAGE + TRABAJADORES_SOCIALES) {
+            tipo = "TRABAJADOR_SOCIAL";
+            rol = "social";
+            especialidad = "Trabajo Social";
+            numero = i - MEDICOS_TRIAGE + 1;
+        } else {
+            tipo = "MEDICO_URGENCIAS";
+            rol = "urgencias";
+            especialidad = r.elegir(Especialidad.values()).getNombre();
+            numero = i - MEDICOS_TRIAGE - TRABAJADORES_SOCIALES + 1;
+        }
+        
+        boolean mujer = r.probabilidad(0.5);
+        String nombre = (mujer ? r.elegir(NOMBRES_MUJER) : r.elegir(NOMBRES_HOMBRE)) + " " +
+                        r.elegir(APELLIDOS) + " " + r.elegir(APELLIDOS);
+        String username = String.format("sint.%s.%02d", rol, numero);
+        boolean medico = !tipo.equals("TRABAJADOR_SOCIAL");
+        
+        fila[0] = idInicial + i;
+        fila[1] = username;
+        fila[2] = username + "@sintetico.hospitalsantavida.com";
+        fila[3] = "!"; // Hash inválido: el personal sintético no puede iniciar sesión
+        fila[4] = tipo;
+        fila[5] = (medico ? (mujer ? "Dra. " : "Dr. ") : "") + nombre;
+        fila[6] = medico ? digitos(r, 8) : null;
+        fila[7] = especialidad;
+        fila[8] = telefono(r);
+        fila[9] = Boolean.FALSE;
+    }
+    
+    private void llenarPaciente(long p, Object[] fila) {
+        Aleatorio r = azarPaciente.reiniciar(semilla, FLUJO_PACIENTE, p);
+        // Sexo y edad van primero: llenarRegistro los vuelve a leer del mismo flujo
+        int sexo = sexo(r);
+        int edadDias = edadDias(r);
+        
+        LocalDateTime registro = primeraLlegada(p);
+        LocalDate nacimiento = registro.toLocalDate().minusDays(edadDias);
+        boolean mujer = sexo == 1 || (sexo == 2 && r.probabilidad(0.5));
+        
+        String nombre = mujer ? r.elegir(NOMBRES_MUJER) : r.elegir(NOMBRES_HOMBRE);
+        String apellidoPaterno = r.elegir(APELLIDOS);
+        String apellidoMaterno = r.probabilidad(0.95) ? r.elegir(APELLIDOS) : null;
+        String curp = construirCURP(p, nombre, apellidoPaterno, apellidoMaterno, nacimiento, mujer);
+        String rfc = edadDias >= 18 * 365 && r.probabilidad(0.7) ? construirRFC(curp, r) : null;
+        String[] ciudad = r.elegir(CIUDADES);
+        
+        String seguro = null;
+        String poliza = null;
+        double tipoSeguro = r.decimal();
+        if (tipoSeguro < 0.55) {
+            seguro = r.elegir(SEGUROS_PUBLICOS);
+        } else if (tipoSeguro < 0.70) {
+            seguro = r.elegir(SEGUROS_PRIVADOS);
+            poliza = "POL-" + digitos(r, 9);
+        }
+        
+        String email = null;
+        if (r.probabilidad(0.6)) {
+            email = (PLANOS.get(nombre) + "." + PLANOS.get(apellidoPaterno)).toLowerCase() +
+                    (p % 10_000) + "@" + r.elegir(DOMINIOS);
+        }
+        
+        fila[0] = (int) (idInicial + p);
+        fila[1] = nombre;
+        fila[2] = apellidoPaterno;
+        fila[3] = apellidoMaterno;
+        fila[4] = nacimiento;
+        fila[5] = sexo == 0 ? "MASCULINO" : sexo == 1 ? "FEMENINO" : "OTRO";
+        fila[6] = curp;
+        fila[7] = rfc;
+        fila[8] = telefono(r);
+        fila[9] = email;
+        fila[10] = r.elegir(CALLES);
+        fila[11] = String.valueOf(1 + r.entero(2500));
+        fila[12] = r.elegir(COLONIAS);
+        fila[13] = ciudad[0];
+        fila[14] = ciudad[1];
+        fila[15] = rellenar(1000 + r.entero(98_000), 5);
+        fila[16] = seguro;
+        fila[17] = poliza;
+        fila[18] = (r.probabilidad(0.5) ? r.elegir(NOMBRES_MUJER) : r.elegir(NOMBRES_HOMBRE)) + " " +
+                   (r.probabilidad(0.6) ? apellidoPaterno : r.elegir(APELLIDOS));
+        fila[19] = telefono(r);
+        fila[20] = r.elegir(RELACIONES);
+        fila[21] = registro;
+    }
+    
+    /**
+     * Llena el registro de triage j y, si ya ocurrieron al final del periodo, sus datos
+     * sociales y su atención (la primera posición queda en null cuando no aplican)
+     */
+    private void llenarRegistro(long j, Object[] fila, Object[] social, Object[] atencion) {
+        long p = pacienteDeRegistro(j);
+        LocalDateTime llegada = j < pacientes ? primeraLlegada(p) : visitaRepetida(j, p);
+        
+        // Sexo y edad del paciente (mismas primeras lecturas que llenarPaciente)
+        Aleatorio datosPaciente = azarPaciente.reiniciar(semilla, FLUJO_PACIENTE, p);
+        int sexo = sexo(datosPaciente);
+        long edadAnios = (edadDias(datosPaciente) + Duration.between(primeraLlegada(p), llegada).toDays()) / 365;
+        
+        Aleatorio r = azar.reiniciar(semilla, FLUJO_REGISTRO, j);
+        int nivel = r.ponderado(PESO_NIVEL);
+        Especialidad especialidad = r.elegir(ESPECIALIDADES_POR_NIVEL[nivel]);
+        if (edadAnios < 15 && nivel > 0 && r.probabilidad(0.7)) {
+            especialidad = Especialidad.PEDIATRIA;
+        } else if (especialidad == Especialidad.GINECOLOGIA && sexo == 0) {
+            especialidad = Especialidad.MEDICINA_INTERNA;
+        }
+        Perfil perfil = PERFILES.get(especialidad);
+        int caso = r.entero(perfil.motivos.length);
+        
+        // Signos vitales
+        double[] s = SIGNOS_POR_NIVEL[nivel];
+        int sistolica = (int) acotar(r.normal(s[0], s[1]), 60, 250);
+        int diastolica = (int) Math.min(sistolica - 15, acotar(sistolica * 0.63 + r.normal(0, 6), 35, 140));
+        int ajusteInfantil = edadAnios < 12 ? 25 : 0;
+        int cardiaca = (int) acotar(r.normal(s[2], s[3]) + ajusteInfantil, 30, 220);
+        int respiratoria = (int) acotar(r.normal(s[4], s[5]) + ajusteInfantil / 3, 8, 50);
+        double temperatura = Math.round(acotar(r.normal(s[6], s[7]), 34.0, 42.0) * 10) / 10.0;
+        int saturacion = (int) acotar(r.normal(s[8], s[9]), 60, 100);
+        int glasgow = (int) acotar(Math.round(r.normal(s[10], s[11])), 3, 15);
+        
+        // Tiempos de cada etapa
+        int[] minutos = MINUTOS_POR_NIVEL[nivel];
+        LocalDateTime triage = llegada.plusSeconds(r.entre(minutos[0] * 60, minutos[1] * 60 + 59));
+        LocalDateTime registroAsistente = triage.plusMinutes(r.entre(5, 20));
+        LocalDateTime entrevista = registroAsistente.plusMinutes(r.entre(10, 60));
+        LocalDateTime inicioAtencion = entrevista.plusMinutes(15 + r.entre(minutos[2], minutos[3]));
+        LocalDateTime finAtencion = inicioAtencion.plusMinutes(r.entre(minutos[4], Math.max(minutos[4], minutos[5])));
+        
+        EstadoPaciente estado;
+        int etapas;
+        if (NIVELES[nivel] == NivelUrgencia.AZUL) {
+            etapas = registroAsistente.isAfter(hasta) ? 0 : 4;
+            estado = etapas == 0 ? EstadoPaciente.ESPERANDO_ASISTENTE : EstadoPaciente.CITA_PROGRAMADA;
+        } else {
+            LocalDateTime[] hitos = { registroAsistente, entrevista.plusMinutes(15), inicioAtencion, finAtencion };
+            etapas = 0;
+            while (etapas < hitos.length && !hitos[etapas].isAfter(hasta)) {
+                etapas++;
+            }
+            estado = etapas == 0 ? EstadoPaciente.ESPERANDO_ASISTENTE
+                   : etapas == 1 ? EstadoPaciente.ESPERANDO_TRABAJO_SOCIAL
+                   : etapas == 2 ? EstadoPaciente.ESPERANDO_MEDICO
+                   : etapas == 3 ? EstadoPaciente.EN_ATENCION
+                   : EstadoPaciente.COMPLETADO;
+        }
+        
+        long id = idInicial + j;
+        fila[0] = (int) id;
+        fila[1] = "TRG-" + llegada.getYear() + "-" + rellenar(id, 4);
+        fila[2] = (int) (idInicial + p);
+        fila[3] = idInicial + r.entero(MEDICOS_TRIAGE);
+        fila[4] = llegada;
+        fila[5] = triage;
+        fila[6] = perfil.motivos[caso];
+        fila[7] = perfil.sintomas[caso];
+        fila[8] = sistolica;
+        fila[9] = diastolica;
+        fila[10] = cardiaca;
+        fila[11] = respiratoria;
+        fila[12] = temperatura;
+        fila[13] = saturacion;
+        fila[14] = glasgow;
+        fila[15] = NIVELES[nivel].name();
+        fila[16] = especialidad.getNombre();
+        fila[17] = r.probabilidad(0.4) ? r.elegir(OBSERVACIONES_TRIAGE) : null;
+        fila[18] = estado.name();
+        fila[19] = NIVELES[nivel].getPrioridad();
+        
+        // Datos sociales: existen desde que terminó la entrevista (excepto nivel AZUL)
+        social[0] = null;
+        if (NIVELES[nivel] != NivelUrgencia.AZUL && etapas >= 2) {
+            social[0] = (int) id;
+            social[1] = (int) id;
+            social[2] = idInicial + MEDICOS_TRIAGE + r.entero(TRABAJADORES_SOCIALES);
+            social[3] = entrevista;
+            social[4] = r.elegir(ANTECEDENTES);
+            social[5] = edadAnios >= 40 && r.probabilidad(0.5) ? r.elegir(CRONICAS) : "Niega";
+            social[6] = r.elegir(MEDICAMENTOS_ACTUALES);
+            social[7] = r.elegir(ALERGIAS);
+            social[8] = r.elegir(CIRUGIAS);
+            social[9] = r.elegir(HOSPITALIZACIONES);
+            social[10] = r.elegir(VACUNAS);
+            social[11] = edadAnios >= 15 ? r.elegir(HABITOS) : "No aplica";
+            social[12] = r.elegir(SOCIOECONOMICA);
+            social[13] = r.probabilidad(0.2) ? "Requiere seguimiento por trabajo social" : null;
+        }
+        
+        // Atención médica: solo para registros completados (excepto nivel AZUL)
+        atencion[0] = null;
+        if (NIVELES[nivel] != NivelUrgencia.AZUL && etapas == 4) {
+            TipoAlta alta = ALTAS[r.ponderado(PESO_ALTA_POR_NIVEL[nivel])];
+            boolean seguimiento = alta == TipoAlta.DOMICILIO && r.probabilidad(0.35);
+            Perfil secundario = PERFILES.get(r.elegir(ESPECIALIDADES_POR_NIVEL[nivel]));
+            
+            atencion[0] = (int) id;
+            atencion[1] = (int) id;
+            atencion[2] = idInicial + MEDICOS_TRIAGE + TRABAJADORES_SOCIALES + r.entero(MEDICOS_URGENCIAS);
+            atencion[3] = inicioAtencion;
+            atencion[4] = finAtencion;
+            atencion[5] = perfil.diagnosticos[caso];
+            atencion[6] = r.probabilidad(0.3) ? r.elegir(secundario.diagnosticos) : null;
+            atencion[7] = perfil.tratamientos[caso];
+            atencion[8] = perfil.medicamentos[caso];
+            atencion[9] = instruccionesAlta(alta);
+            atencion[10] = alta.name();
+            atencion[11] = alta == TipoAlta.REFERENCIA ? r.elegir(HOSPITALES_REFERENCIA) : null;
+            atencion[12] = (int) Duration.between(llegada, finAtencion).toMinutes();
+            atencion[13] = seguimiento;
+            atencion[14] = seguimiento ? finAtencion.toLocalDate().plusDays(r.entre(7, 30)) : null;
+            atencion[15] = r.probabilidad(0.25) ? "Paciente estable al egreso" : null;
+        }
+    }
+    
+    // Llegadas y visitas
+    
+    /**
+     * Paciente al que pertenece el registro j: los primeros registros son la primera visita
+     * de cada paciente; las visitas repetidas favorecen a los pacientes de índice bajo
+     */
+    private long pacienteDeRegistro(long j) {
+        if (j < pacientes) {
+            return j;
+        }
+        double u = azarLlegada.reiniciar(semilla, FLUJO_VISITA, j).decimal();
+        return Math.min(pacientes - 1, (long) (pacientes * u * u));
+    }
+    
+    /**
+     * Fecha de la primera visita del paciente p (también su fecha de registro)
+     * Día uniforme en el periodo y hora según la afluencia típica de urgencias
+     */
+    private LocalDateTime primeraLlegada(long p) {
+        Aleatorio r = azarLlegada.reiniciar(semilla, FLUJO_LLEGADA, p);
+        long dias = Math.max(1, (segundoHasta - segundoDesde) / 86_400);
+        long segundo = segundoDesde + r.enteroLargo(dias) * 86_400 + r.ponderado(PESO_HORA) * 3600L + r.entero(3600);
+        return LocalDateTime.ofEpochSecond(Math.min(segundo, segundoHasta - 1), 0, ZoneOffset.UTC);
+    }
+    
+    /**
+     * Fecha de una visita repetida: posterior a la primera visita del paciente
+     */
+    private LocalDateTime visitaRepetida(long j, long p) {
+        long primera = primeraLlegada(p).toEpochSecond(ZoneOffset.UTC);
+        Aleatorio r = azarLlegada.reiniciar(semilla, FLUJO_VISITA, j);
+        r.decimal(); // Primera lectura usada por pacienteDeRegistro
+        long segundo = primera + 3600 + (long) (r.decimal() * Math.max(0, segundoHasta - primera - 3600));
+        return LocalDateTime.ofEpochSecond(Math.min(segundo, segundoHasta - 1), 0, ZoneOffset.UTC);
+    }
+    
+    // Datos personales
+    
+    /** 0 = masculino, 1 = femenino, 2 = otro */
+    private static int sexo(Aleatorio r) {
+        double u = r.decimal();
+        return u < 0.49 ? 0 : u < 0.99 ? 1 : 2;
+    }
+    
+    /** Edad en días a la primera visita: 18% menores de 15, 60% de 15 a 64, 22% de 65 a 95 */
+    private static int edadDias(Aleatorio r) {
+        double u = r.decimal();
+        int anios = u < 0.18 ? r.entero(15) : u < 0.78 ? 15 + r.entero(50) : 65 + r.entero(31);
+        return anios * 365 + r.entero(365);
+    }
+    
+    /**
+     * Construye una CURP con el formato y el dígito verificador que acepta ValidationUtils
+     * Las letras y la fecha salen de los datos del paciente; entidad, consonantes internas y
+     * homoclave codifican una permutación del índice, lo que garantiza que sean únicas
+     */
+    private String construirCURP(long p, String nombre, String apellidoPaterno, String apellidoMaterno,
+                                 LocalDate nacimiento, boolean mujer) {
+        String paterno = PLANOS.get(apellidoPaterno);
+        char vocal = 'X';
+        for (int i = 1; i < paterno.length(); i++) {
+            if ("AEIOU".indexOf(paterno.charAt(i)) >= 0) {
+                vocal = paterno.charAt(i);
+                break;
+            }
+        }
+        
+        StringBuilder curp = new StringBuilder(18);
+        curp.append(paterno.charAt(0)).append(vocal)
+            .append(apellidoMaterno != null ? PLANOS.get(apellidoMaterno).charAt(0) : 'X')
+            .append(PLANOS.get(nombre).charAt(0));
+        anexarFechaCorta(curp, nacimiento);
+        curp.append(mujer ? 'M' : 'H');
+        
+        // Permutación del índice (1_000_003 es primo y no divide a MAXIMO_PACIENTES)
+        long codigo = Math.floorMod(p * 1_000_003L + semilla, MAXIMO_PACIENTES);
+        int homoclave = (int) (codigo % 36);
+        codigo /= 36;
+        int consonante3 = (int) (codigo % 21);
+        codigo /= 21;
+        int consonante2 = (int) (codigo % 21);
+        codigo /= 21;
+        int consonante1 = (int) (codigo % 21);
+        codigo /= 21;
+        
+        curp.append(ENTIDADES_CURP[(int) codigo])
+            .append(CONSONANTES.charAt(consonante1))
+            .append(CONSONANTES.charAt(consonante2))
+            .append(CONSONANTES.charAt(consonante3))
+            .append(ALFANUMERICOS.charAt(homoclave));
+        
+        // Mismo algoritmo de dígito verificador que ValidationUtils
+        int suma = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = curp.charAt(i);
+            suma += (c <= '9' ? c - '0' : c - 'A' + 10) * (18 - i);
+        }
+        return curp.append((char) ('0' + (10 - suma % 10) % 10)).toString();
+    }
+    
+    /**
+     * RFC de persona física: las mismas cuatro letras y fecha de la CURP más homoclave
+     */
+    private static String construirRFC(String curp, Aleatorio r) {
+        return curp.substring(0, 10) + ALFANUMERICOS.charAt(r.entero(36)) + ALFANUMERICOS.charAt(r.entero(36)) +
+               (r.probabilidad(0.1) ? 'A' : (char) ('0' + r.entero(10)));
+    }
+    
+    private static String telefono(Aleatorio r) {
+        return (char) ('1' + r.entero(9)) + digitos(r, 9);
+    }
+    
+    private static String digitos(Aleatorio r, int cantidad) {
+        char[] resultado = new char[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            resultado[i] = (char) ('0' + r.entero(10));
+        }
+        return new String(resultado);
+    }
+    
+    private static String rellenar(long valor, int ancho) {
+        String texto = Long.toString(valor);
+        return texto.length() >= ancho ? texto : "0".repeat(ancho - texto.length()) + texto;
+    }
+    
+    private static String instruccionesAlta(TipoAlta alta) {
+        switch (alta) {
+            case HOSPITALIZACION: return "Ingreso a piso para manejo intrahospitalario";
+            case REFERENCIA: return "Traslado con hoja de referencia y resumen clínico";
+            case DEFUNCION: return "Se entrega certificado de defunción a familiares";
+            default: return "Tomar medicamentos indicados y regresar si presenta datos de alarma";
+        }
+    }
+    
+    private static double acotar(double valor, double minimo, double maximo) {
+        return Math.max(minimo, Math.min(maximo, valor));
+    }
+    
+    private static int indiceNivel(String nivel) {
+        for (int i = 0; i < NIVELES.length; i++) {
+            if (NIVELES[i].name().equals(nivel)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Nivel no generado: " + nivel);
+    }
+    
+    private static void perfil(Especialidad especialidad, String[] motivos, String[] sintomas, String[] diagnosticos,
+                               String[] tratamientos, String[] medicamentos) {
+        PERFILES.put(especialidad, new Perfil(motivos, sintomas, diagnosticos, tratamientos, medicamentos));
+    }
+    
+    // Formato de archivos de carga
+    
+    private static Path archivoCSV(Path directorio, Tabla tabla) {
+        return directorio.resolve(tabla.getNombre() + ".csv");
+    }
+    
+    /**
+     * Anexa un valor con las convenciones de LOAD DATA: \N para NULL, fechas ISO,
+     * booleanos como 1/0 y texto entre comillas con barra invertida como escape
+     */
+    private static void anexarCampoCSV(StringBuilder linea, Object valor) {
+        if (valor == null) {
+            linea.append("\\N");
+        } else if (valor instanceof String) {
+            String texto = (String) valor;
+            linea.append('"');
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                switch (c) {
+                    case '"': linea.append("\\\""); break;
+                    case '\\': linea.append("\\\\"); break;
+                    case '\n': linea.append("\\n"); break;
+                    case '\r': linea.append("\\r"); break;
+                    default: linea.append(c);
+                }
+            }
+            linea.append('"');
+        } else if (valor instanceof Boolean) {
+            linea.append((Boolean) valor ? '1' : '0');
+        } else if (valor instanceof LocalDateTime) {
+            LocalDateTime fecha = (LocalDateTime) valor;
+            anexarFecha(linea, fecha.toLocalDate());
+            linea.append(' ');
+            anexarDosDigitos(linea, fecha.getHour());
+            linea.append(':');
+            anexarDosDigitos(linea, fecha.getMinute());
+            linea.append(':');
+            anexarDosDigitos(linea, fecha.getSecond());
+        } else if (valor instanceof LocalDate) {
+            anexarFecha(linea, (LocalDate) valor);
+        } else {
+            linea.append(valor);
+        }
+    }
+    
+    private static void anexarFecha(StringBuilder destino, LocalDate fecha) {
+        destino.append(fecha.getYear()).append('-');
+        anexarDosDigitos(destino, fecha.getMonthValue());
+        destino.append('-');
+        anexarDosDigitos(destino, fecha.getDayOfMonth());
+    }
+    
+    /** Fecha AAMMDD de la CURP */
+    private static void anexarFechaCorta(StringBuilder destino, LocalDate fecha) {
+        anexarDosDigitos(destino, fecha.getYear() % 100);
+        anexarDosDigitos(destino, fecha.getMonthValue());
+        anexarDosDigitos(destino, fecha.getDayOfMonth());
+    }
+    
+    private static void anexarDosDigitos(StringBuilder destino, int valor) {
+        destino.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+    
+    /**
+     * Escribe carga.sql: LOAD DATA por tabla en orden de dependencia con llaves desactivadas
+     * (el cliente debe permitir LOCAL INFILE) y ajuste del contador de folios de cada año
+     */
+    private void escribirScriptCarga(Path directorio) throws IOException {
+        StringBuilder script = new StringBuilder();
+        script.append("-- Carga de datos sintéticos (semilla ").append(semilla).append(", ")
+              .append(registros).append(" registros de triage)\n");
+        script.append("SET foreign_key_checks = 0;\n");
+        script.append("SET unique_checks = 0;\n\n");
+        
+        for (Tabla tabla : Tabla.values()) {
+            String ruta = archivoCSV(directorio, tabla).toAbsolutePath().toString().replace('\\', '/');
+            script.append("LOAD DATA LOCAL INFILE '").append(ruta.replace("'", "''")).append("'\n")
+                  .append("    INTO TABLE ").append(tabla.getNombre()).append(" CHARACTER SET utf8mb4\n")
+                  .append("    FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\'\n")
+                  .append("    LINES TERMINATED BY '\\n' IGNORE 1 LINES\n")
+                  .append("    (").append(tabla.getListaColumnas()).append(");\n\n");
+        }
+        
+        for (int anio = desde.getYear(); anio <= hasta.getYear(); anio++) {
+            script.append(CargaMasivaDAO.sqlAjustarSecuencia(GeneradorSecuencias.Secuencia.FOLIO_TRIAGE, anio,
+                                                             idInicial + registros)).append(";\n");
+        }
+        script.append("\nSET unique_checks = 1;\n");
+        script.append("SET foreign_key_checks = 1;\n");
+        
+        Files.write(directorio.resolve("carga.sql"), script.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Generador splitmix64 que se reinicia por (semilla, flujo, índice)
+     * Reiniciarlo no crea objetos, por lo que se reutiliza para cada fila
+     */
+    private static final class Aleatorio {
+        private long estado;
+        
+        Aleatorio reiniciar(long semilla, int flujo, long indice) {
+            estado = mezclar(semilla ^ mezclar(((long) flujo << 56) ^ indice));
+            return this;
+        }
+        
+        long siguiente() {
+            estado += 0x9E3779B97F4A7C15L;
+            return mezclar(estado);
+        }
+        
+        /** Entero uniforme en [0, limite) */
+        int entero(int limite) {
+            return (int) (((siguiente() >>> 33) * limite) >>> 31);
+        }
+        
+        long enteroLargo(long limite) {
+            return Math.floorMod(siguiente(), limite);
+        }
+        
+        /** Entero uniforme en [minimo, maximo] */
+        int entre(int minimo, int maximo) {
+            return minimo + entero(maximo - minimo + 1);
+        }
+        
+        double decimal() {
+            return (siguiente() >>> 11) * 0x1.0p-53;
+        }
+        
+        boolean probabilidad(double p) {
+            return decimal() < p;
+        }
+        
+        /** Normal por Box-Muller */
+        double normal(double media, double desviacion) {
+            double u1 = 1.0 - decimal();
+            double u2 = decimal();
+            return media + desviacion * Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        }
+        
+        <T> T elegir(T[] opciones) {
+            return opciones[entero(opciones.length)];
+        }
+        
+        /** Índice elegido con probabilidad proporcional a su peso */
+        int ponderado(int[] pesos) {
+            int total = 0;
+            for (int peso : pesos) {
+                total += peso;
+            }
+            int objetivo = entero(total);
+            for (int i = 0; i < pesos.length; i++) {
+                objetivo -= pesos[i];
+                if (objetivo < 0) {
+                    return i;
+                }
+            }
+            return pesos.length - 1;
+        }
+        
+        private static long mezclar(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+    
+    /**
+     * Resumen de una generación
+     */
+    public static class ResultadoGeneracion {
+        private final long[] porTabla = new long[Tabla.values().length];
+        private final long[] porNivel = new long[NIVELES.length];
+        private String destino;
+        private long duracionMs;
+        
+        void contar(Tabla tabla) {
+            porTabla[tabla.ordinal()]++;
+        }
+        
+        ResultadoGeneracion conDuracion(String destino, long duracionMs) {
+            this.destino = destino;
+            this.duracionMs = duracionMs;
+            return this;
+        }
+        
+        public long getFilas(Tabla tabla) { return porTabla[tabla.ordinal()]; }
+        public String getDestino() { return destino; }
+        public long getDuracionMs() { return duracionMs; }
+        
+        public long getRegistros(NivelUrgencia nivel) {
+            for (int i = 0; i < NIVELES.length; i++) {
+                if (NIVELES[i] == nivel) {
+                    return porNivel[i];
+                }
+            }
+            return 0;
+        }
+        
+        public long getTotalFilas() {
+            long total = 0;
+            for (long filas : porTabla) {
+                total += filas;
+            }
+            return total;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Carga sintética - %s: %d filas en %d ms", destino, getTotalFilas(), duracionMs));
+            for (Tabla tabla : Tabla.values()) {
+                sb.append(String.format("%n  %-18s %,d", tabla.getNombre(), porTabla[tabla.ordinal()]));
+            }
+            for (int i = 0; i < NIVELES.length; i++) {
+                sb.append(String.format("%n  %-18s %,d", NIVELES[i].name(), porNivel[i]));
+            }
+            return sb.toString();
+        }
+    }
+    
+    /**
+     * Uso: GeneradorCargaSintetica csv <directorio> [escala] [semilla]
+     *      GeneradorCargaSintetica bd [escala] [semilla]
+     * Escalas: 10k, 1m, 10m (por defecto 10k)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || (args[0].equals("csv") && args.length < 2)) {
+            System.err.println("Uso: GeneradorCargaSintetica csv <directorio> [escala] [semilla] | bd [escala] [semilla]");
+            return;
+        }
+        
+        boolean csv = args[0].equals("csv");
+        int base = csv ? 2 : 1;
+        Escala escala = args.length > base ? Escala.desdeTexto(args[base]) : Escala.CHICA;
+        long semilla = args.length > base + 1 ? Long.parseLong(args[base + 1]) : SEMILLA_DEFAULT;
+        
+        GeneradorCargaSintetica generador = new GeneradorCargaSintetica(
+            semilla, escala.registros, ID_INICIAL_DEFAULT, DESDE_DEFAULT, HASTA_DEFAULT);
+        ResultadoGeneracion resultado = csv ? generador.escribirCSV(Paths.get(args[1])) : generador.insertarEnBaseDatos();
+        System.out.println(resultado);
+    }
+}
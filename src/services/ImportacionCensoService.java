@@ -0,0 +1,662 @@
+package services;
+
+import dao.PacienteDAO;
+import models.Paciente;
+import utils.Bitacora;
+import utils.DatabaseConnection;
+import utils.LectorCSVMapeado;
+import utils.ValidationUtils;
+import controllers.BaseController;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Servicio de importación masiva de pacientes desde archivos CSV de censo
+ * Lee el archivo con memoria mapeada, valida las filas en paralelo por segmentos
+ * (fork/join), acumula los errores en un reporte columnar y entrega las filas
+ * válidas a PacienteDAO en lotes: cada segmento se inserta en cuanto termina su
+ * validación (en orden de archivo) mientras los siguientes se siguen validando
+ * Los pacientes insertados entran a los filtros de existencia de PacienteDAO y al
+ * índice compartido de duplicados de PacienteService
+ *
+ * Los encabezados del CSV usan los nombres de columna de la tabla pacientes
+ */
+public class ImportacionCensoService {
+    
+    private static final Bitacora BITACORA = Bitacora.de(ImportacionCensoService.class);
+    
+    public static final int TAMAÑO_LOTE = 1000;
+    
+    // Columnas reconocidas en el encabezado del CSV
+    private static final String[] COLUMNAS = {
+        "nombre", "apellido_paterno", "apellido_materno", "fecha_nacimiento", "sexo", "curp", "rfc",
+        "telefono_principal", "email", "direccion_calle", "direccion_numero", "direccion_colonia",
+        "direccion_ciudad", "direccion_estado", "direccion_cp", "contacto_emergencia_nombre",
+        "contacto_emergencia_telefono", "contacto_emergencia_relacion", "seguro_medico", "numero_poliza"
+    };
+    
+    // Índices dentro de COLUMNAS
+    private static final int NOMBRE = 0, APELLIDO_PATERNO = 1, APELLIDO_MATERNO = 2, FECHA_NACIMIENTO = 3,
+        SEXO = 4, CURP = 5, RFC = 6, TELEFONO = 7, EMAIL = 8, CALLE = 9, NUMERO = 10, COLONIA = 11,
+        CIUDAD = 12, ESTADO = 13, CP = 14, CONTACTO_NOMBRE = 15, CONTACTO_TELEFONO = 16,
+        CONTACTO_RELACION = 17, SEGURO = 18, POLIZA = 19;
+    
+    private static final int[] REQUERIDAS = {
+        NOMBRE, APELLIDO_PATERNO, FECHA_NACIMIENTO, SEXO, CURP, TELEFONO, CALLE, NUMERO, COLONIA,
+        CIUDAD, ESTADO, CP, CONTACTO_NOMBRE, CONTACTO_TELEFONO, CONTACTO_RELACION
+    };
+    
+    private final PacienteDAO pacienteDAO;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Constructor del servicio de importación
+     */
+    public ImportacionCensoService() {
+        this.pacienteDAO = new PacienteDAO();
+        this.pool = ForkJoinPool.commonPool();
+    }
+    
+    /**
+     * Importa un archivo CSV de censo: valida todas las filas e inserta las válidas
+     * @param tokenSesion Token de sesión del usuario
+     * @param archivo Ruta del archivo CSV
+     * @return Resultado de la importación con el reporte de errores
+     */
+    public ResultadoImportacion importarCSV(String tokenSesion, Path archivo) {
+        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.CREAR_PACIENTES)) {
+            return new ResultadoImportacion(false, "Sin permisos para registrar pacientes", 0, 0, 0, null, 0);
+        }
+        
+        return procesar(archivo, true);
+    }
+    
+    /**
+     * Valida un archivo CSV de censo sin insertar nada en la base de datos
+     * @param archivo Ruta del archivo CSV
+     * @return Resultado de la validación con el reporte de errores
+     */
+    public ResultadoImportacion validarCSV(Path archivo) {
+        return procesar(archivo, false);
+    }
+    
+    private ResultadoImportacion procesar(Path archivo, boolean insertar) {
+        long inicio = System.currentTimeMillis();
+        
+        try (LectorCSVMapeado lector = new LectorCSVMapeado(archivo)) {
+            // Ubicar columnas por nombre
+            int[] posiciones = new int[COLUMNAS.length];
+            for (int i = 0; i < COLUMNAS.length; i++) {
+                posiciones[i] = lector.indiceColumna(COLUMNAS[i]);
+            }
+            for (int requerida : REQUERIDAS) {
+                if (posiciones[requerida] < 0) {
+                    return new ResultadoImportacion(false, "Falta la columna requerida '" + COLUMNAS[requerida] + "'",
+                                                    0, 0, 0, null, System.currentTimeMillis() - inicio);
+                }
+            }
+            
+            // Validación en paralelo por segmentos; cada hoja avisa al terminar el suyo
+            List<LectorCSVMapeado.Segmento> segmentos =
+                lector.dividirEnSegmentos(pool.getParallelism() * 4);
+            List<CompletableFuture<ResultadoSegmento>> listos = new ArrayList<>(segmentos.size());
+            for (int i = 0; i < segmentos.size(); i++) {
+                listos.add(new CompletableFuture<>());
+            }
+            ForkJoinTask<Void> validacion = pool.submit(new TareaValidacion(
+                lector, segmentos, posiciones, lector.getEncabezados().length, listos, 0, segmentos.size()));
+            
+            Connection conexion = insertar ? abrirConexionImportacion() : null;
+            try {
+                // Combinar en orden de archivo, convirtiendo líneas locales en números de línea
+                ReporteErrores reporte = new ReporteErrores(COLUMNAS);
+                Set<String> curpsArchivo = new HashSet<>();
+                int lineaBase = 2; // La línea 1 son los encabezados
+                int filasLeidas = 0;
+                int filasValidas = 0;
+                int insertados = 0;
+                
+                for (CompletableFuture<ResultadoSegmento> listo : listos) {
+                    ResultadoSegmento resultado = esperar(listo);
+                    reporte.agregarTodos(resultado.errores, lineaBase);
+                    filasLeidas += resultado.filas;
+                    
+                    List<Paciente> validos = new ArrayList<>(resultado.validos.size());
+                    List<Integer> lineasValidas = new ArrayList<>(resultado.validos.size());
+                    for (int i = 0; i < resultado.validos.size(); i++) {
+                        Paciente paciente = resultado.validos.get(i);
+                        int linea = lineaBase + resultado.lineasValidas[i];
+                        if (curpsArchivo.add(paciente.getCurp())) {
+                            validos.add(paciente);
+                            lineasValidas.add(linea);
+                        } else {
+                            reporte.agregar(linea, CURP, ReporteErrores.DUPLICADO_ARCHIVO);
+                        }
+                    }
+                    filasValidas += validos.size();
+                    
+                    if (insertar && !validos.isEmpty()) {
+                        insertados += insertarEnLotes(conexion, validos, lineasValidas, reporte);
+                    }
+                    lineaBase += resultado.lineas;
+                }
+                
+                String mensaje = String.format("%d filas leídas, %d válidas, %d errores",
+                                               filasLeidas, filasValidas, reporte.getTotal());
+                return new ResultadoImportacion(true, mensaje, filasLeidas, filasValidas, insertados,
+                                                reporte, System.currentTimeMillis() - inicio);
+            } finally {
+                // Las hojas pendientes terminan antes de cerrar el archivo mapeado
+                validacion.quietlyJoin();
+                if (conexion != null) {
+                    try {
+                        conexion.close();
+                    } catch (SQLException e) {
+                        BITACORA.debug("Error al cerrar conexión de importación", "error", e.getMessage());
+                    }
+                }
+            }
+        
+        } catch (IOException | UncheckedIOException e) {
+            BITACORA.error("Error al leer archivo de censo: " + e.getMessage());
+            return new ResultadoImportacion(false, "Error al leer el archivo: " + e.getMessage(),
+                                            0, 0, 0, null, System.currentTimeMillis() - inicio);
+        }
+    }
+    
+    /**
+     * Espera el resultado de un segmento y relanza el error de su hoja sin envolver
+     */
+    private static ResultadoSegmento esperar(CompletableFuture<ResultadoSegmento> listo) {
+        try {
+            return listo.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Abre la conexión dedicada de toda la importación: las transacciones por lote no se
+     * mezclan con las escrituras de otros hilos en la conexión compartida
+     * @return Conexión o null si no se pudo abrir (las filas válidas se reportan sin insertar)
+     */
+    private static Connection abrirConexionImportacion() {
+        try {
+            return DatabaseConnection.getInstance().abrirConexionDedicada();
+        } catch (SQLException e) {
+            BITACORA.error("No se pudo abrir conexión para la importación de censo: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Inserta los pacientes válidos de un segmento por lotes, descartando primero los CURP ya registrados
+     */
+    private int insertarEnLotes(Connection conexion, List<Paciente> validos, List<Integer> lineas,
+                                ReporteErrores reporte) {
+        if (conexion == null) {
+            for (Integer linea : lineas) {
+                reporte.agregar(linea, -1, ReporteErrores.ERROR_INSERCION);
+            }
+            return 0;
+        }
+        
+        int insertados = 0;
+        
+        for (int inicio = 0; inicio < validos.size(); inicio += TAMAÑO_LOTE) {
+            int fin = Math.min(inicio + TAMAÑO_LOTE, validos.size());
+            List<Paciente> lote = new ArrayList<>(fin - inicio);
+            
+            try {
+                List<String> curps = new ArrayList<>(fin - inicio);
+                for (int i = inicio; i < fin; i++) {
+                    curps.add(validos.get(i).getCurp());
+                }
+                Set<String> existentes = pacienteDAO.obtenerCurpsExistentes(curps);
+                
+                for (int i = inicio; i < fin; i++) {
+                    if (existentes.contains(validos.get(i).getCurp())) {
+                        reporte.agregar(lineas.get(i), CURP, ReporteErrores.DUPLICADO_BD);
+                    } else {
+                        lote.add(validos.get(i));
+                    }
+                }
+                
+                insertados += pacienteDAO.insertarEnLote(conexion, lote, TAMAÑO_LOTE);
+                PacienteService.registrarPacientesImportados(lote);
+            
+            } catch (SQLException e) {
+                BITACORA.error("Error al insertar lote de censo: " + e.getMessage());
+                for (int i = inicio; i < fin; i++) {
+                    reporte.agregar(lineas.get(i), -1, ReporteErrores.ERROR_INSERCION);
+                }
+            }
+        }
+        
+        return insertados;
+    }
+    
+    /**
+     * Valida una fila y construye el paciente si es válida
+     * Solo registra códigos en el reporte; no crea ValidationResult por campo
+     * @return Paciente construido o null si la fila tiene errores
+     */
+    private static Paciente validarFila(String[] campos, int numeroCampos, int[] posiciones, int columnasEncabezado,
+                                        int linea, ReporteErrores errores) {
+        if (numeroCampos != columnasEncabezado) {
+            errores.agregar(linea, -1, ReporteErrores.NUMERO_COLUMNAS);
+            return null;
+        }
+        
+        int erroresPrevios = errores.getTotal();
+        String[] valores = new String[COLUMNAS.length];
+        for (int i = 0; i < COLUMNAS.length; i++) {
+            if (posiciones[i] >= 0) {
+                String valor = campos[posiciones[i]].trim();
+                valores[i] = valor.isEmpty() ? null : valor;
+            }
+        }
+        
+        for (int requerida : REQUERIDAS) {
+            if (valores[requerida] == null) {
+                errores.agregar(linea, requerida, ReporteErrores.REQUERIDO);
+            }
+        }
+        
+        if (valores[CURP] != null) {
+            valores[CURP] = valores[CURP].toUpperCase();
+            if (!ValidationUtils.validarCURPBoolean(valores[CURP])) {
+                errores.agregar(linea, CURP, ReporteErrores.FORMATO);
+            }
+        }
+        if (valores[RFC] != null) {
+            valores[RFC] = valores[RFC].toUpperCase();
+            if (!ValidationUtils.validarRFCBoolean(valores[RFC])) {
+                errores.agregar(linea, RFC, ReporteErrores.FORMATO);
+            }
+        }
+        // Se valida una vez y se conserva el número normalizado para construir el paciente
+        valores[TELEFONO] = normalizarTelefono(valores[TELEFONO], linea, TELEFONO, errores);
+        valores[CONTACTO_TELEFONO] = normalizarTelefono(valores[CONTACTO_TELEFONO], linea, CONTACTO_TELEFONO, errores);
+        if (valores[EMAIL] != null && !ValidationUtils.validarEmailBoolean(valores[EMAIL])) {
+            errores.agregar(linea, EMAIL, ReporteErrores.FORMATO);
+        }
+        if (valores[CP] != null && !ValidationUtils.isValidCodigoPostal(valores[CP])) {
+            errores.agregar(linea, CP, ReporteErrores.FORMATO);
+        }
+        
+        String sexo = valores[SEXO] != null ? valores[SEXO].toUpperCase() : null;
+        if (sexo != null && !sexo.equals("MASCULINO") && !sexo.equals("FEMENINO") && !sexo.equals("OTRO")) {
+            errores.agregar(linea, SEXO, ReporteErrores.FORMATO);
+        }
+        
+        LocalDate fechaNacimiento = null;
+        if (valores[FECHA_NACIMIENTO] != null) {
+            fechaNacimiento = parsearFecha(valores[FECHA_NACIMIENTO]);
+            LocalDate hoy = LocalDate.now();
+            if (fechaNacimiento == null || fechaNacimiento.isAfter(hoy)
+                    || hoy.getYear() - fechaNacimiento.getYear() > 150) {
+                errores.agregar(linea, FECHA_NACIMIENTO, ReporteErrores.FORMATO);
+            }
+        }
+        
+        if (errores.getTotal() != erroresPrevios) {
+            return null;
+        }
+        
+        Paciente paciente = new Paciente();
+        paciente.setNombre(valores[NOMBRE]);
+        paciente.setApellidoPaterno(valores[APELLIDO_PATERNO]);
+        paciente.setApellidoMaterno(valores[APELLIDO_MATERNO]);
+        paciente.setFechaNacimiento(fechaNacimiento);
+        paciente.setSexo(sexo);
+        paciente.setCurp(valores[CURP]);
+        paciente.setRfc(valores[RFC]);
+        paciente.setTelefonoPrincipal(valores[TELEFONO]);
+        paciente.setEmail(valores[EMAIL] != null ? valores[EMAIL].toLowerCase() : null);
+        paciente.setDireccionCalle(valores[CALLE]);
+        paciente.setDireccionNumero(valores[NUMERO]);
+        paciente.setDireccionColonia(valores[COLONIA]);
+        paciente.setDireccionCiudad(valores[CIUDAD]);
+        paciente.setDireccionEstado(valores[ESTADO]);
+        paciente.setDireccionCp(valores[CP]);
+        paciente.setContactoEmergenciaNombre(valores[CONTACTO_NOMBRE]);
+        paciente.setContactoEmergenciaTelefono(valores[CONTACTO_TELEFONO]);
+        paciente.setContactoEmergenciaRelacion(valores[CONTACTO_RELACION]);
+        paciente.setSeguroMedico(valores[SEGURO]);
+        paciente.setNumeroPoliza(valores[POLIZA]);
+        return paciente;
+    }
+    
+    /**
+     * Valida un teléfono y devuelve su forma normalizada (10 dígitos)
+     * @return Teléfono normalizado, o el valor original si falta o no es válido
+     */
+    private static String normalizarTelefono(String telefono, int linea, int columna, ReporteErrores errores) {
+        if (telefono == null) {
+            return null;
+        }
+        ValidationUtils.ValidationResult resultado = ValidationUtils.validarTelefono(telefono);
+        if (!resultado.isValido()) {
+            errores.agregar(linea, columna, ReporteErrores.FORMATO);
+            return telefono;
+        }
+        return resultado.getValorNormalizado();
+    }
+    
+    /**
+     * Convierte una fecha YYYY-MM-DD sin lanzar excepción por formato
+     * @return Fecha o null si no es válida
+     */
+    private static LocalDate parsearFecha(String texto) {
+        if (texto.length() != 10 || texto.charAt(4) != '-' || texto.charAt(7) != '-') {
+            return null;
+        }
+        
+        int anio = 0, mes = 0, dia = 0;
+        for (int i = 0; i < 10; i++) {
+            if (i == 4 || i == 7) {
+                continue;
+            }
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            if (i < 4) {
+                anio = anio * 10 + (c - '0');
+            } else if (i < 7) {
+                mes = mes * 10 + (c - '0');
+            } else {
+                dia = dia * 10 + (c - '0');
+            }
+        }
+        
+        try {
+            return LocalDate.of(anio, mes, dia);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Resultado parcial de un segmento del archivo
+     */
+    private static class ResultadoSegmento {
+        final ReporteErrores errores = new ReporteErrores(COLUMNAS);
+        final List<Paciente> validos = new ArrayList<>();
+        int[] lineasValidas = new int[64];
+        int lineas;
+        int filas;
+        
+        void agregarValido(Paciente paciente, int linea) {
+            if (validos.size() == lineasValidas.length) {
+                lineasValidas = Arrays.copyOf(lineasValidas, lineasValidas.length * 2);
+            }
+            lineasValidas[validos.size()] = linea;
+            validos.add(paciente);
+        }
+    }
+    
+    /**
+     * Tarea fork/join que divide la lista de segmentos hasta procesar uno por hoja
+     * Cada hoja completa el aviso de su segmento, también con el error si falla, para que
+     * quien combina los resultados no espere un segmento que ya no llegará
+     */
+    private static class TareaValidacion extends RecursiveAction {
+        // ForkJoinTask es Serializable, pero estas tareas nunca se serializan
+        private static final long serialVersionUID = 1L;
+        
+        private final transient LectorCSVMapeado lector;
+        private final transient List<LectorCSVMapeado.Segmento> segmentos;
+        private final int[] posiciones;
+        private final int columnasEncabezado;
+        private final transient List<CompletableFuture<ResultadoSegmento>> listos;
+        private final int desde;
+        private final int hasta;
+        
+        TareaValidacion(LectorCSVMapeado lector, List<LectorCSVMapeado.Segmento> segmentos, int[] posiciones,
+                        int columnasEncabezado, List<CompletableFuture<ResultadoSegmento>> listos,
+                        int desde, int hasta) {
+            this.lector = lector;
+            this.segmentos = segmentos;
+            this.posiciones = posiciones;
+            this.columnasEncabezado = columnasEncabezado;
+            this.listos = listos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+        
+        @Override
+        protected void compute() {
+            if (hasta - desde <= 1) {
+                if (hasta > desde) {
+                    procesarSegmento(segmentos.get(desde));
+                }
+                return;
+            }
+            
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaValidacion(lector, segmentos, posiciones, columnasEncabezado, listos, desde, medio),
+                      new TareaValidacion(lector, segmentos, posiciones, columnasEncabezado, listos, medio, hasta));
+        }
+        
+        private void procesarSegmento(LectorCSVMapeado.Segmento segmento) {
+            ResultadoSegmento resultado = new ResultadoSegmento();
+            CompletableFuture<ResultadoSegmento> listo = listos.get(segmento.indice);
+            try {
+                resultado.lineas = lector.procesarSegmento(segmento, (linea, campos, numeroCampos) -> {
+                    resultado.filas++;
+                    Paciente paciente = validarFila(campos, numeroCampos, posiciones, columnasEncabezado,
+                                                    linea, resultado.errores);
+                    if (paciente != null) {
+                        resultado.agregarValido(paciente, linea);
+                    }
+                });
+                listo.complete(resultado);
+            } catch (IOException e) {
+                listo.completeExceptionally(new UncheckedIOException(e));
+            } catch (RuntimeException | Error e) {
+                // Sin relanzar: invokeAll cancelaría las hojas hermanas y sus avisos no se completarían
+                listo.completeExceptionally(e);
+            }
+        }
+    }
+    
+    /**
+     * Reporte de errores en formato columnar
+     * Guarda línea, columna y código de cada error en arreglos paralelos de primitivos
+     * en lugar de un objeto por error
+     */
+    public static class ReporteErrores {
+        public static final byte REQUERIDO = 0;
+        public static final byte FORMATO = 1;
+        public static final byte NUMERO_COLUMNAS = 2;
+        public static final byte DUPLICADO_ARCHIVO = 3;
+        public static final byte DUPLICADO_BD = 4;
+        public static final byte ERROR_INSERCION = 5;
+        
+        private static final String[] DESCRIPCIONES = {
+            "Campo requerido", "Formato inválido", "Número de columnas incorrecto",
+            "CURP duplicado en el archivo", "CURP ya registrado", "Error al insertar en la base de datos"
+        };
+        
+        private final String[] columnas;
+        private int[] lineas = new int[16];
+        private byte[] columnasError = new byte[16];
+        private byte[] codigos = new byte[16];
+        private int total;
+        
+        ReporteErrores(String[] columnas) {
+            this.columnas = columnas;
+        }
+        
+        void agregar(int linea, int columna, byte codigo) {
+            if (total == lineas.length) {
+                int nuevaCapacidad = total * 2;
+                lineas = Arrays.copyOf(lineas, nuevaCapacidad);
+                columnasError = Arrays.copyOf(columnasError, nuevaCapacidad);
+                codigos = Arrays.copyOf(codigos, nuevaCapacidad);
+            }
+            lineas[total] = linea;
+            columnasError[total] = (byte) columna;
+            codigos[total] = codigo;
+            total++;
+        }
+        
+        void agregarTodos(ReporteErrores otro, int desplazamientoLinea) {
+            for (int i = 0; i < otro.total; i++) {
+                agregar(otro.lineas[i] + desplazamientoLinea, otro.columnasError[i], otro.codigos[i]);
+            }
+        }
+        
+        public int getTotal() { return total; }
+        public int getLinea(int indice) { return lineas[indice]; }
+        public byte getCodigo(int indice) { return codigos[indice]; }
+        
+        public String getColumna(int indice) {
+            return columnasError[indice] >= 0 ? columnas[columnasError[indice]] : "";
+        }
+        
+        public String getDescripcion(int indice) {
+            return DESCRIPCIONES[codigos[indice]];
+        }
+        
+        /**
+         * Cuenta los errores por código
+         * @return Arreglo indexado por código de error
+         */
+        public int[] contarPorCodigo() {
+            int[] conteos = new int[DESCRIPCIONES.length];
+            for (int i = 0; i < total; i++) {
+                conteos[codigos[i]]++;
+            }
+            return conteos;
+        }
+        
+        /**
+         * Cuenta los errores por columna (los errores de fila completa no se cuentan)
+         * @return Arreglo indexado en el mismo orden que las columnas del censo
+         */
+        public int[] contarPorColumna() {
+            int[] conteos = new int[columnas.length];
+            for (int i = 0; i < total; i++) {
+                if (columnasError[i] >= 0) {
+                    conteos[columnasError[i]]++;
+                }
+            }
+            return conteos;
+        }
+        
+        /**
+         * Escribe el reporte como CSV (linea,columna,error)
+         * @param destino Archivo de salida
+         * @throws IOException si hay error de escritura
+         */
+        public void escribirCSV(Path destino) throws IOException {
+            try (BufferedWriter writer = Files.newBufferedWriter(destino, StandardCharsets.UTF_8)) {
+                writer.write("linea,columna,error");
+                writer.newLine();
+                for (int i = 0; i < total; i++) {
+                    writer.write(lineas[i] + "," + getColumna(i) + "," + getDescripcion(i));
+                    writer.newLine();
+                }
+            }
+        }
+        
+        @Override
+        public String toString() {
+            int[] porCodigo = contarPorCodigo();
+            StringBuilder sb = new StringBuilder("ReporteErrores - Total: ").append(total);
+            for (int i = 0; i < porCodigo.length; i++) {
+                if (porCodigo[i] > 0) {
+                    sb.append(", ").append(DESCRIPCIONES[i]).append(": ").append(porCodigo[i]);
+                }
+            }
+            return sb.toString();
+        }
+    }
+    
+    /**
+     * Resultado de una importación o validación de censo
+     */
+    public static class ResultadoImportacion {
+        private final boolean exitoso;
+        private final String mensaje;
+        private final int filasLeidas;
+        private final int filasValidas;
+        private final int filasInsertadas;
+        private final ReporteErrores reporteErrores;
+        private final long duracionMs;
+        
+        public ResultadoImportacion(boolean exitoso, String mensaje, int filasLeidas, int filasValidas,
+                                    int filasInsertadas, ReporteErrores reporteErrores, long duracionMs) {
+            this.exitoso = exitoso;
+            this.mensaje = mensaje;
+            this.filasLeidas = filasLeidas;
+            this.filasValidas = filasValidas;
+            this.filasInsertadas = filasInsertadas;
+            this.reporteErrores = reporteErrores;
+            this.duracionMs = duracionMs;
+        }
+        
+        public boolean isExitoso() { return exitoso; }
+        public String getMensaje() { return mensaje; }
+        public int getFilasLeidas() { return filasLeidas; }
+        public int getFilasValidas() { return filasValidas; }
+        public int getFilasInsertadas() { return filasInsertadas; }
+        public ReporteErrores getReporteErrores() { return reporteErrores; }
+        public long getDuracionMs() { return duracionMs; }
+        
+        @Override
+        public String toString() {
+            String texto = String.format("Importación de censo - %s: %d insertadas en %d ms",
+                                         mensaje, filasInsertadas, duracionMs);
+            return reporteErrores != null ? texto + "\n  " + reporteErrores : texto;
+        }
+    }
+    
+    /**
+     * Uso: ImportacionCensoService validar <archivo.csv> [reporte.csv]
+     *      ImportacionCensoService importar <archivo.csv> [reporte.csv]
+     * Importar inserta directamente con la configuración de database.properties,
+     * sin sesión de usuario; el reporte de errores se escribe si se indica su ruta
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !(args[0].equals("validar") || args[0].equals("importar"))) {
+            System.err.println("Uso: ImportacionCensoService validar|importar <archivo.csv> [reporte.csv]");
+            return;
+        }
+        
+        ImportacionCensoService servicio = new ImportacionCensoService();
+        ResultadoImportacion resultado = servicio.procesar(Paths.get(args[1]), args[0].equals("importar"));
+        System.out.println(resultado);
+        if (args.length > 2 && resultado.getReporteErrores() != null) {
+            resultado.getReporteErrores().escribirCSV(Paths.get(args[2]));
+        }
+        if (!resultado.isExitoso()) {
+            System.exit(1);
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package services;
 
+import dao.AlmacenLocal;
 import dao.PacienteDAO;
 import dao.RegistroTriageDAO;
 import dao.DatosSocialesDAO;
 import dao.AtencionMedicaDAO;
 import models.Paciente;
+import models.FilaPaciente;
 import models.EstadoPaciente;
 import models.RegistroTriage;
 import models.DatosSociales;
 import models.AtencionMedica;
 import structures.PacienteBST;
+import structures.VentanaPacientesRecientes;
+import structures.IndiceDuplicadosPacientes;
+import structures.IndiceDuplicadosPacientes.CandidatoDuplicado;
+import structures.IndiceDuplicadosPacientes.ParDuplicado;
+import utils.Bitacora;
 import utils.ValidationUtils;
+import utils.RegistroMetricas;
 import services.PacienteServiceResults.*;
 import controllers.BaseController;
 import java.sql.SQLException;
@@ -27,11 +35,36 @@ import java.math.BigDecimal;
  */
 public class PacienteService {
     
+    private static final Bitacora BITACORA = Bitacora.de(PacienteService.class);
+    
+    // Latencia de los métodos públicos, por método (ver RegistroMetricas)
+    private static final RegistroMetricas.GrupoTemporizadores METRICAS = RegistroMetricas.getInstance()
+        .grupo("hsv_servicio_segundos", "Latencia de los métodos públicos de los servicios", "metodo",
+               "servicio", "PacienteService");
+    
+    // Pacientes con actividad reciente (altas y actualizaciones), compartidos por todas las
+    // instancias del servicio: la pantalla de registro los obtiene sin consultar la base de datos
+    // La ventana se vuelve a sembrar al vencer su vigencia o al abrir la pantalla, para incluir
+    // los pacientes que registran otras estaciones
+    private static final int CAPACIDAD_RECIENTES = 100;
+    private static final long VIGENCIA_RECIENTES_MS = 30_000;
+    private static final VentanaPacientesRecientes RECIENTES =
+        new VentanaPacientesRecientes(CAPACIDAD_RECIENTES, VIGENCIA_RECIENTES_MS);
+    
+    // Índice de posibles duplicados, también compartido: se carga una vez y lo mantienen al día
+    // las altas y actualizaciones de cualquier instancia y las sincronizaciones del almacén local
+    private static final IndiceDuplicadosPacientes DUPLICADOS = new IndiceDuplicadosPacientes();
+    private static volatile boolean duplicadosCargados = false;
+    private static boolean oyenteRegistrado = false; // Protegido por PacienteService.class
+    
     private final PacienteDAO pacienteDAO;
     private final RegistroTriageDAO triageDAO;
     private final DatosSocialesDAO datosSocialesDAO;
     private final AtencionMedicaDAO atencionMedicaDAO;
     private final PacienteBST indicePacientes;
+    private final IndiceDuplicadosPacientes indiceDuplicados;
+    private final DiarioFlujoPacientes flujoPacientes;
+    private final AlmacenLocal almacen;
     
     /**
      * Constructor del servicio de pacientes
@@ -42,6 +75,20 @@ public class PacienteService {
         this.datosSocialesDAO = new DatosSocialesDAO();
         this.atencionMedicaDAO = new AtencionMedicaDAO();
         this.indicePacientes = new PacienteBST();
+        this.indiceDuplicados = DUPLICADOS;
+        this.flujoPacientes = DiarioFlujoPacientes.getInstance();
+        this.almacen = AlmacenLocal.getInstance();
+        
+        // Los pacientes registrados sin conexión entran a los índices compartidos al sincronizarse
+        synchronized (PacienteService.class) {
+            if (!oyenteRegistrado) {
+                almacen.agregarOyenteSincronizacion(paciente -> {
+                    DUPLICADOS.agregar(paciente);
+                    RECIENTES.registrar(FilaPaciente.de(paciente));
+                });
+                oyenteRegistrado = true;
+            }
+        }
         
         // Cargar índice de pacientes
         cargarIndicePacientes();
@@ -55,6 +102,7 @@ public class PacienteService {
      */
     public ResultadoRegistroPaciente registrarPaciente(String tokenSesion, 
                                                       DatosRegistroPaciente datosRegistro) {
+        long inicio = System.nanoTime();
         try {
             // Verificar permisos
             if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.CREAR_PACIENTES)) {
@@ -67,14 +115,6 @@ public class PacienteService {
                 return new ResultadoRegistroPaciente(false, validacion, null);
             }
             
-            // Verificar duplicados por CURP
-            if (datosRegistro.getCurp() != null && !datosRegistro.getCurp().isEmpty()) {
-                if (pacienteDAO.existeCurp(datosRegistro.getCurp())) {
-                    return new ResultadoRegistroPaciente(false, 
-                        "Ya existe un paciente registrado con ese CURP", null);
-                }
-            }
-            
             // Crear paciente
             Paciente paciente = new Paciente();
             paciente.setNombreCompleto(datosRegistro.getNombreCompleto());
@@ -96,24 +136,64 @@ public class PacienteService {
             paciente.setEstadoActual(EstadoPaciente.REGISTRADO);
             paciente.setFechaRegistro(LocalDateTime.now());
             
-            // Guardar en base de datos
-            if (pacienteDAO.insertar(paciente)) {
-                // Agregar al índice BST
-                indicePacientes.insertar(paciente);
+            try {
+                // Sin conexión no se espera a MySQL
+                if (!almacen.enLinea()) {
+                    return registrarSinConexion(paciente);
+                }
                 
-                return new ResultadoRegistroPaciente(true, 
-                    "Paciente registrado exitosamente. Expediente: " + paciente.getNumeroExpediente(), 
-                    paciente);
-            } else {
-                return new ResultadoRegistroPaciente(false, "Error al registrar paciente", null);
+                // Verificar duplicados por CURP
+                if (datosRegistro.getCurp() != null && !datosRegistro.getCurp().isEmpty()) {
+                    if (pacienteDAO.existeCurp(datosRegistro.getCurp())) {
+                        return new ResultadoRegistroPaciente(false, 
+                            "Ya existe un paciente registrado con ese CURP", null);
+                    }
+                }
+                
+                // Guardar en base de datos
+                if (pacienteDAO.insertar(paciente)) {
+                    // Agregar al índice BST, al índice de duplicados, a la ventana de recientes y a la copia local
+                    indicePacientes.insertar(paciente);
+                    indiceDuplicados.agregar(paciente);
+                    RECIENTES.registrar(FilaPaciente.de(paciente));
+                    almacen.guardarPaciente(paciente);
+                    
+                    return new ResultadoRegistroPaciente(true, 
+                        "Paciente registrado exitosamente. Expediente: " + paciente.getNumeroExpediente(), 
+                        paciente);
+                } else {
+                    return new ResultadoRegistroPaciente(false, "Error al registrar paciente", null);
+                }
+                
+            } catch (SQLException e) {
+                if (almacen.reportarError(e)) {
+                    return registrarSinConexion(paciente);
+                }
+                BITACORA.error("Error al registrar paciente: " + e.getMessage());
+                return new ResultadoRegistroPaciente(false, "Error del sistema", null);
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error al registrar paciente: " + e.getMessage());
-            return new ResultadoRegistroPaciente(false, "Error del sistema", null);
+        } finally {
+            METRICAS.registrar("registrarPaciente", inicio);
         }
     }
     
+    /**
+     * Registra un paciente en el almacén local mientras no hay conexión con MySQL
+     * Se sincroniza en segundo plano al volver la conexión (ver AlmacenLocal)
+     * @param paciente Paciente ya validado
+     * @return Resultado con el expediente provisional
+     */
+    private ResultadoRegistroPaciente registrarSinConexion(Paciente paciente) {
+        if (!almacen.registrarPacientePendiente(paciente)) {
+            return new ResultadoRegistroPaciente(false, 
+                "Ya existe un paciente registrado sin conexión con ese CURP", null);
+        }
+        indicePacientes.insertar(paciente);
+        return new ResultadoRegistroPaciente(true, 
+            "Paciente registrado sin conexión. Expediente provisional: " + paciente.getNumeroExpediente(), 
+            paciente);
+    }
+    
     /**
      * Busca pacientes por múltiples criterios
      * @param tokenSesion Token de sesión
@@ -121,51 +201,56 @@ public class PacienteService {
      * @return Lista de pacientes encontrados
      */
     public List<Paciente> buscarPacientes(String tokenSesion, CriteriosBusquedaPaciente criterios) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
-            return new ArrayList<>();
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            // Búsqueda por número de expediente (más eficiente)
-            if (criterios.getNumeroExpediente() != null && !criterios.getNumeroExpediente().isEmpty()) {
-                Paciente paciente = pacienteDAO.buscarPorNumeroExpediente(criterios.getNumeroExpediente());
-                List<Paciente> resultado = new ArrayList<>();
-                if (paciente != null) {
-                    resultado.add(paciente);
-                }
-                return resultado;
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
+                return new ArrayList<>();
             }
             
-            // Búsqueda por CURP
-            if (criterios.getCurp() != null && !criterios.getCurp().isEmpty()) {
-                Paciente paciente = pacienteDAO.buscarPorCurp(criterios.getCurp());
-                List<Paciente> resultado = new ArrayList<>();
-                if (paciente != null) {
-                    resultado.add(paciente);
+            try {
+                // Búsqueda por número de expediente (más eficiente)
+                if (criterios.getNumeroExpediente() != null && !criterios.getNumeroExpediente().isEmpty()) {
+                    Paciente paciente = pacienteDAO.buscarPorNumeroExpediente(criterios.getNumeroExpediente());
+                    List<Paciente> resultado = new ArrayList<>();
+                    if (paciente != null) {
+                        resultado.add(paciente);
+                    }
+                    return resultado;
                 }
-                return resultado;
-            }
-            
-            // Búsqueda por nombre (usar BST)
-            if (criterios.getNombre() != null && !criterios.getNombre().isEmpty()) {
-                return indicePacientes.buscarPorNombre(criterios.getNombre());
-            }
-            
-            // Búsquedas más complejas en base de datos
-            if (criterios.getFechaNacimiento() != null) {
-                return pacienteDAO.buscarPorFechaNacimiento(criterios.getFechaNacimiento());
-            }
-            
-            if (criterios.getEstado() != null) {
-                return pacienteDAO.buscarPorEstado(criterios.getEstado());
+                
+                // Búsqueda por CURP
+                if (criterios.getCurp() != null && !criterios.getCurp().isEmpty()) {
+                    Paciente paciente = pacienteDAO.buscarPorCurp(criterios.getCurp());
+                    List<Paciente> resultado = new ArrayList<>();
+                    if (paciente != null) {
+                        resultado.add(paciente);
+                    }
+                    return resultado;
+                }
+                
+                // Búsqueda por nombre (usar BST)
+                if (criterios.getNombre() != null && !criterios.getNombre().isEmpty()) {
+                    return indicePacientes.buscarPorNombre(criterios.getNombre());
+                }
+                
+                // Búsquedas más complejas en base de datos
+                if (criterios.getFechaNacimiento() != null) {
+                    return pacienteDAO.buscarPorFechaNacimiento(criterios.getFechaNacimiento());
+                }
+                
+                if (criterios.getEstado() != null) {
+                    return pacienteDAO.buscarPorEstado(criterios.getEstado());
+                }
+                
+                // Si no hay criterios específicos, retornar lista vacía
+                return new ArrayList<>();
+                
+            } catch (SQLException e) {
+                BITACORA.error("Error al buscar pacientes: " + e.getMessage());
+                return new ArrayList<>();
             }
-            
-            // Si no hay criterios específicos, retornar lista vacía
-            return new ArrayList<>();
-            
-        } catch (SQLException e) {
-            System.err.println("Error al buscar pacientes: " + e.getMessage());
-            return new ArrayList<>();
+        } finally {
+            METRICAS.registrar("buscarPacientes", inicio);
         }
     }
     
@@ -176,15 +261,21 @@ public class PacienteService {
      * @return Paciente encontrado o null si no existe
      */
     public Paciente buscarPorId(String tokenSesion, int pacienteId) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            return pacienteDAO.buscarPorId(pacienteId);
-        } catch (SQLException e) {
-            System.err.println("Error al buscar paciente por ID: " + e.getMessage());
-            return null;
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
+                return null;
+            }
+            
+            try {
+                // Copia local si es reciente (o si no hay conexión); si no, MySQL
+                return almacen.obtenerPaciente(pacienteId);
+            } catch (SQLException e) {
+                BITACORA.error("Error al buscar paciente por ID: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("buscarPorId", inicio);
         }
     }
     
@@ -195,32 +286,37 @@ public class PacienteService {
      * @return Información completa del paciente
      */
     public InformacionCompletaPaciente obtenerInformacionCompleta(String tokenSesion, int pacienteId) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            // Obtener datos básicos del paciente
-            Paciente paciente = pacienteDAO.buscarPorId(pacienteId);
-            if (paciente == null) {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
                 return null;
             }
             
-            // Obtener historial de triage
-            List<RegistroTriage> historialTriage = triageDAO.obtenerPorPaciente(pacienteId);
-            
-            // Obtener datos sociales
-            List<DatosSociales> datosSociales = datosSocialesDAO.obtenerPorPaciente(pacienteId);
-            
-            // Obtener atenciones médicas
-            List<AtencionMedica> atencionesMedicas = atencionMedicaDAO.obtenerPorPaciente(pacienteId);
-            
-            return new InformacionCompletaPaciente(paciente, historialTriage, 
-                                                  datosSociales, atencionesMedicas);
-            
-        } catch (SQLException e) {
-            System.err.println("Error al obtener información completa: " + e.getMessage());
-            return null;
+            try {
+                // Obtener datos básicos del paciente
+                Paciente paciente = pacienteDAO.buscarPorId(pacienteId);
+                if (paciente == null) {
+                    return null;
+                }
+                
+                // Obtener historial de triage
+                List<RegistroTriage> historialTriage = triageDAO.obtenerPorPaciente(pacienteId);
+                
+                // Obtener datos sociales
+                List<DatosSociales> datosSociales = datosSocialesDAO.obtenerPorPaciente(pacienteId);
+                
+                // Obtener atenciones médicas
+                List<AtencionMedica> atencionesMedicas = atencionMedicaDAO.obtenerPorPaciente(pacienteId);
+                
+                return new InformacionCompletaPaciente(paciente, historialTriage, 
+                                                      datosSociales, atencionesMedicas);
+                
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener información completa: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("obtenerInformacionCompleta", inicio);
         }
     }
     
@@ -231,20 +327,30 @@ public class PacienteService {
      * @return true si se actualizó correctamente
      */
     public boolean actualizarPaciente(String tokenSesion, Paciente paciente) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_PACIENTES)) {
-            return false;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            boolean actualizado = pacienteDAO.actualizar(paciente);
-            // TODO: Actualizar en el índice BST cuando se implemente el método
-            // if (actualizado) {
-            //     indicePacientes.actualizar(paciente);
-            // }
-            return actualizado;
-        } catch (SQLException e) {
-            System.err.println("Error al actualizar paciente: " + e.getMessage());
-            return false;
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_PACIENTES)) {
+                return false;
+            }
+            
+            try {
+                boolean actualizado = pacienteDAO.actualizar(paciente);
+                // TODO: Actualizar en el índice BST cuando se implemente el método
+                // if (actualizado) {
+                //     indicePacientes.actualizar(paciente);
+                // }
+                if (actualizado) {
+                    indiceDuplicados.actualizar(paciente);
+                    RECIENTES.registrar(FilaPaciente.de(paciente));
+                    almacen.guardarPaciente(paciente);
+                }
+                return actualizado;
+            } catch (SQLException e) {
+                BITACORA.error("Error al actualizar paciente: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            METRICAS.registrar("actualizarPaciente", inicio);
         }
     }
     
@@ -253,19 +359,37 @@ public class PacienteService {
      * @param tokenSesion Token de sesión
      * @param pacienteId ID del paciente
      * @param nuevoEstado Nuevo estado
-     * @return true si se cambió correctamente
+     * @return true si se cambió correctamente, false sin permisos o si el flujo no permite la transición
      */
     public boolean cambiarEstadoPaciente(String tokenSesion, int pacienteId, EstadoPaciente nuevoEstado) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_PACIENTES)) {
-            return false;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            // TipoAlta por defecto null para cambios de estado genéricos
-            return pacienteDAO.actualizarEstado(pacienteId, nuevoEstado, null);
-        } catch (SQLException e) {
-            System.err.println("Error al cambiar estado del paciente: " + e.getMessage());
-            return false;
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_PACIENTES)) {
+                return false;
+            }
+            
+            try {
+                // El cambio se agrega a la bitácora de flujo, validado contra HospitalGraph; se parte
+                // de la última visita en la base de datos si es más reciente que lo que conoce la
+                // bitácora (otra estación pudo cambiar el estado)
+                int registroId = 0;
+                EstadoPaciente estadoConocido = null;
+                LocalDateTime momentoConocido = null;
+                RegistroTriage ultimo = pacienteId > 0 ? triageDAO.obtenerUltimoPorPaciente(pacienteId) : null;
+                if (ultimo != null) {
+                    registroId = ultimo.getId();
+                    estadoConocido = ultimo.getEstado();
+                    momentoConocido = ultimo.getFechaUltimaActualizacion();
+                }
+                var usuario = BaseController.getAuthService().obtenerUsuarioPorToken(tokenSesion);
+                return flujoPacientes.registrarTransicion(pacienteId, registroId, estadoConocido, momentoConocido,
+                                                          nuevoEstado, usuario != null ? usuario.getId() : 0);
+            } catch (SQLException e) {
+                BITACORA.error("Error al cambiar estado del paciente: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            METRICAS.registrar("cambiarEstadoPaciente", inicio);
         }
     }
     
@@ -276,15 +400,20 @@ public class PacienteService {
      * @return Lista de pacientes en ese estado
      */
     public List<Paciente> obtenerPacientesPorEstado(String tokenSesion, EstadoPaciente estado) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
-            return new ArrayList<>();
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            return pacienteDAO.buscarPorEstado(estado);
-        } catch (SQLException e) {
-            System.err.println("Error al obtener pacientes por estado: " + e.getMessage());
-            return new ArrayList<>();
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
+                return new ArrayList<>();
+            }
+            
+            try {
+                return pacienteDAO.buscarPorEstado(estado);
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener pacientes por estado: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        } finally {
+            METRICAS.registrar("obtenerPacientesPorEstado", inicio);
         }
     }
     
@@ -294,20 +423,26 @@ public class PacienteService {
      * @return Estadísticas de pacientes
      */
     public EstadisticasPacientes obtenerEstadisticas(String tokenSesion) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_REPORTES_MEDICOS)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            List<PacienteDAO.ConteoEstado> conteosPorEstado = pacienteDAO.contarPorEstado();
-            List<PacienteDAO.ConteoGenero> conteosPorGenero = pacienteDAO.contarPorGenero();
-            List<PacienteDAO.ConteoEdad> conteosPorEdad = pacienteDAO.contarPorRangoEdad();
-            
-            return new EstadisticasPacientes(conteosPorEstado, conteosPorGenero, conteosPorEdad);
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_REPORTES_MEDICOS)) {
+                return null;
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error al obtener estadísticas: " + e.getMessage());
-            return null;
+            try {
+                List<PacienteDAO.ConteoEstado> conteosPorEstado = pacienteDAO.contarPorEstado();
+                // Género y edad se cuentan sobre la copia columnar (con respaldo en el DAO si aún no existe)
+                List<PacienteDAO.ConteoGenero> conteosPorGenero = AlmacenAnalitico.getInstance().contarPorGenero();
+                List<PacienteDAO.ConteoEdad> conteosPorEdad = AlmacenAnalitico.getInstance().contarPorRangoEdad();
+                
+                return new EstadisticasPacientes(conteosPorEstado, conteosPorGenero, conteosPorEdad);
+                
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener estadísticas: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("obtenerEstadisticas", inicio);
         }
     }
     
@@ -317,16 +452,21 @@ public class PacienteService {
      * @return Lista de pacientes para seguimiento
      */
     public List<Paciente> obtenerPacientesParaSeguimiento(String tokenSesion) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
-            return new ArrayList<>();
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            // Pacientes con citas próximas, hospitalizaciones, etc.
-            return pacienteDAO.buscarQueRequierenSeguimiento();
-        } catch (SQLException e) {
-            System.err.println("Error al obtener pacientes para seguimiento: " + e.getMessage());
-            return new ArrayList<>();
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
+                return new ArrayList<>();
+            }
+            
+            try {
+                // Pacientes con citas próximas, hospitalizaciones, etc.
+                return pacienteDAO.buscarQueRequierenSeguimiento();
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener pacientes para seguimiento: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        } finally {
+            METRICAS.registrar("obtenerPacientesParaSeguimiento", inicio);
         }
     }
     
@@ -337,35 +477,40 @@ public class PacienteService {
      * @return Resumen del historial médico
      */
     public ResumenHistorialMedico obtenerResumenHistorial(String tokenSesion, int pacienteId) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            Paciente paciente = pacienteDAO.buscarPorId(pacienteId);
-            if (paciente == null) {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
                 return null;
             }
             
-            // Última atención médica
-            AtencionMedica ultimaAtencion = atencionMedicaDAO.obtenerUltimaPorPaciente(pacienteId);
-            
-            // Último triage
-            RegistroTriage ultimoTriage = triageDAO.obtenerUltimoPorPaciente(pacienteId);
-            
-            // Datos sociales actuales
-            DatosSociales datosSociales = datosSocialesDAO.obtenerUltimoPorPaciente(pacienteId);
-            
-            // Conteo de atenciones
-            int totalAtenciones = atencionMedicaDAO.obtenerPorPaciente(pacienteId).size();
-            int totalTriages = triageDAO.obtenerPorPaciente(pacienteId).size();
-            
-            return new ResumenHistorialMedico(paciente, ultimaAtencion, ultimoTriage, 
-                                            datosSociales, totalAtenciones, totalTriages);
-            
-        } catch (SQLException e) {
-            System.err.println("Error al obtener resumen del historial: " + e.getMessage());
-            return null;
+            try {
+                Paciente paciente = pacienteDAO.buscarPorId(pacienteId);
+                if (paciente == null) {
+                    return null;
+                }
+                
+                // Última atención médica
+                AtencionMedica ultimaAtencion = atencionMedicaDAO.obtenerUltimaPorPaciente(pacienteId);
+                
+                // Último triage
+                RegistroTriage ultimoTriage = triageDAO.obtenerUltimoPorPaciente(pacienteId);
+                
+                // Datos sociales actuales
+                DatosSociales datosSociales = datosSocialesDAO.obtenerUltimoPorPaciente(pacienteId);
+                
+                // Conteo de atenciones
+                int totalAtenciones = atencionMedicaDAO.obtenerPorPaciente(pacienteId).size();
+                int totalTriages = triageDAO.obtenerPorPaciente(pacienteId).size();
+                
+                return new ResumenHistorialMedico(paciente, ultimaAtencion, ultimoTriage, 
+                                                datosSociales, totalAtenciones, totalTriages);
+                
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener resumen del historial: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("obtenerResumenHistorial", inicio);
         }
     }
     
@@ -427,16 +572,80 @@ public class PacienteService {
     }
     
     /**
-     * Carga el índice BST con los pacientes existentes
+     * Busca pacientes ya registrados que podrían ser la misma persona
+     * @param tokenSesion Token de sesión
+     * @param paciente Datos del paciente (registrado o por registrar)
+     * @return Candidatos ordenados por similitud
+     */
+    public List<CandidatoDuplicado> buscarPosiblesDuplicados(String tokenSesion, Paciente paciente) {
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
+                return new ArrayList<>();
+            }
+            
+            return indiceDuplicados.buscarCandidatos(paciente);
+        } finally {
+            METRICAS.registrar("buscarPosiblesDuplicados", inicio);
+        }
+    }
+    
+    /**
+     * Revisa todo el censo en busca de pares de pacientes posiblemente duplicados
+     * @param tokenSesion Token de sesión
+     * @param umbral Similitud mínima entre 0 y 1
+     * @return Pares ordenados por similitud
+     */
+    public List<ParDuplicado> detectarDuplicados(String tokenSesion, double umbral) {
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_PACIENTES)) {
+                return new ArrayList<>();
+            }
+            
+            return indiceDuplicados.detectarDuplicados(umbral);
+        } finally {
+            METRICAS.registrar("detectarDuplicados", inicio);
+        }
+    }
+    
+    /**
+     * Agrega al índice compartido de duplicados los pacientes dados de alta fuera de este
+     * servicio (importación de censo); los que no tienen ID se ignoran
+     * @param pacientes Pacientes ya insertados
+     */
+    static void registrarPacientesImportados(List<Paciente> pacientes) {
+        for (Paciente paciente : pacientes) {
+            if (paciente.getId() > 0) {
+                DUPLICADOS.agregar(paciente);
+            }
+        }
+    }
+    
+    /**
+     * Carga el índice BST y, la primera vez, el índice compartido de duplicados con los
+     * pacientes existentes
      */
     private void cargarIndicePacientes() {
         try {
             List<Paciente> pacientes = pacienteDAO.obtenerTodos();
+            boolean cargarDuplicados = !duplicadosCargados;
             for (Paciente paciente : pacientes) {
                 indicePacientes.insertar(paciente);
+                if (cargarDuplicados) {
+                    indiceDuplicados.agregar(paciente);
+                }
             }
+            duplicadosCargados = true;
         } catch (SQLException e) {
-            System.err.println("Error al cargar índice de pacientes: " + e.getMessage());
+            if (almacen.reportarError(e)) {
+                // Sin conexión: buscar por nombre entre los pacientes guardados en la estación
+                for (Paciente paciente : almacen.obtenerPacientesGuardados()) {
+                    indicePacientes.insertar(paciente);
+                }
+                return;
+            }
+            BITACORA.error("Error al cargar índice de pacientes: " + e.getMessage());
         }
     }
     
@@ -639,6 +848,7 @@ public class PacienteService {
      * Busca pacientes y devuelve resultado encapsulado
      */
     public ResultadoBusqueda buscarPacientes(String tokenSesion, services.PacienteServiceResults.CriteriosBusquedaPaciente criterios) {
+        long inicio = System.nanoTime();
         try {
             // Validar sesión
             if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
@@ -652,6 +862,8 @@ public class PacienteService {
             
         } catch (Exception e) {
             return new ResultadoBusqueda(false, "Error en la búsqueda: " + e.getMessage(), new ArrayList<>(), 0);
+        } finally {
+            METRICAS.registrar("buscarPacientes", inicio);
         }
     }
     
@@ -659,11 +871,16 @@ public class PacienteService {
      * Busca pacientes usando criterio de texto simple
      */
     public ResultadoBusqueda buscarPacientes(String tokenSesion, String criterio) {
-        services.PacienteServiceResults.CriteriosBusquedaPaciente criterios = new services.PacienteServiceResults.CriteriosBusquedaPaciente();
-        criterios.setNombreCompleto(criterio);
-        criterios.setNumeroExpediente(criterio);
-        criterios.setCurp(criterio);
-        return buscarPacientes(tokenSesion, criterios);
+        long inicio = System.nanoTime();
+        try {
+            services.PacienteServiceResults.CriteriosBusquedaPaciente criterios = new services.PacienteServiceResults.CriteriosBusquedaPaciente();
+            criterios.setNombreCompleto(criterio);
+            criterios.setNumeroExpediente(criterio);
+            criterios.setCurp(criterio);
+            return buscarPacientes(tokenSesion, criterios);
+        } finally {
+            METRICAS.registrar("buscarPacientes", inicio);
+        }
     }
     
     /**
@@ -694,7 +911,7 @@ public class PacienteService {
             }
             
         } catch (Exception e) {
-            System.err.println("Error en búsqueda: " + e.getMessage());
+            BITACORA.error("Error en búsqueda: " + e.getMessage());
         }
         
         return resultados;
@@ -702,31 +919,74 @@ public class PacienteService {
     
     /**
      * Obtiene pacientes recientes
+     * Devuelve entidades completas; las listas de pantalla usan obtenerFilasRecientes
      */
     public ResultadoBusqueda obtenerPacientesRecientes(String tokenSesion, int limite) {
+        long inicio = System.nanoTime();
         try {
             // Validar sesión
             if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
                 return new ResultadoBusqueda(false, "Sesión inválida", new ArrayList<>(), 0);
             }
             
-            List<Paciente> pacientes = pacienteDAO.obtenerTodos();
-            // Limitar resultados
-            if (pacientes.size() > limite) {
-                pacientes = pacientes.subList(0, limite);
-            }
-            
+            List<Paciente> pacientes = pacienteDAO.obtenerRecientes(limite);
             return new ResultadoBusqueda(true, "Pacientes obtenidos", pacientes, pacientes.size());
             
         } catch (Exception e) {
             return new ResultadoBusqueda(false, "Error al obtener pacientes: " + e.getMessage(), new ArrayList<>(), 0);
+        } finally {
+            METRICAS.registrar("obtenerPacientesRecientes", inicio);
         }
     }
     
+    /**
+     * Obtiene los pacientes con actividad reciente como filas compactas para la lista de registro
+     * @param tokenSesion Token de sesión
+     * @param limite Número máximo de filas
+     * @return Filas del más reciente al más antiguo (vacía si la sesión no es válida o hay error)
+     */
+    public List<FilaPaciente> obtenerFilasRecientes(String tokenSesion, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            // Validar sesión
+            if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
+                return new ArrayList<>();
+            }
+            
+            // Caso común: la ventana en memoria ya tiene a los más recientes
+            List<FilaPaciente> filas = RECIENTES.obtenerRecientes(limite);
+            if (filas == null) {
+                if (limite <= CAPACIDAD_RECIENTES) {
+                    // Sembrar la ventana completa (sin sembrar o vencida) y responder desde ella
+                    RECIENTES.sembrar(pacienteDAO.obtenerFilasRecientes(CAPACIDAD_RECIENTES));
+                    filas = RECIENTES.obtenerRecientes(limite);
+                } else {
+                    filas = pacienteDAO.obtenerFilasRecientes(limite);
+                }
+            }
+            return filas;
+            
+        } catch (SQLException e) {
+            BITACORA.error("Error al obtener pacientes recientes: " + e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            METRICAS.registrar("obtenerFilasRecientes", inicio);
+        }
+    }
+    
+    /**
+     * Hace que la siguiente consulta de filas recientes vuelva a la base de datos
+     * Se llama al abrir la pantalla de registro
+     */
+    public void refrescarFilasRecientes() {
+        RECIENTES.vencer();
+    }
+    
     /**
      * Registra un nuevo paciente (versión para controladores)
      */
     public ResultadoRegistro registrarPaciente(String tokenSesion, services.PacienteServiceResults.DatosRegistroPaciente datos) {
+        long inicio = System.nanoTime();
         try {
             // Validar sesión
             if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
@@ -736,14 +996,47 @@ public class PacienteService {
             // Crear paciente desde datos externos
             Paciente paciente = crearPacienteDesdeDTO(datos);
             
-            // Registrar paciente
-            int id = pacienteDAO.crear(paciente);
-            paciente.setId(id);
+            // Buscar posibles duplicados antes de registrar
+            List<CandidatoDuplicado> duplicados = indiceDuplicados.buscarCandidatos(paciente);
+            
+            // Registrar paciente (en el almacén local si no hay conexión)
+            String mensaje;
+            if (!almacen.enLinea()) {
+                ResultadoRegistroPaciente local = registrarSinConexion(paciente);
+                if (!local.isExitoso()) {
+                    return new ResultadoRegistro(false, local.getMensaje(), null, 0);
+                }
+                mensaje = local.getMensaje();
+            } else {
+                try {
+                    int id = pacienteDAO.crear(paciente);
+                    paciente.setId(id);
+                    indiceDuplicados.agregar(paciente);
+                    RECIENTES.registrar(FilaPaciente.de(paciente));
+                    almacen.guardarPaciente(paciente);
+                    mensaje = "Paciente registrado exitosamente";
+                } catch (SQLException e) {
+                    if (!almacen.reportarError(e)) {
+                        throw e;
+                    }
+                    ResultadoRegistroPaciente local = registrarSinConexion(paciente);
+                    if (!local.isExitoso()) {
+                        return new ResultadoRegistro(false, local.getMensaje(), null, 0);
+                    }
+                    mensaje = local.getMensaje();
+                }
+            }
+            
+            if (!duplicados.isEmpty()) {
+                mensaje += ". Posible duplicado de: " + duplicados.get(0);
+            }
             
-            return new ResultadoRegistro(true, "Paciente registrado exitosamente", paciente, id);
+            return new ResultadoRegistro(true, mensaje, paciente, paciente.getId());
             
         } catch (Exception e) {
             return new ResultadoRegistro(false, "Error al registrar paciente: " + e.getMessage(), null, 0);
+        } finally {
+            METRICAS.registrar("registrarPaciente", inicio);
         }
     }
     
@@ -751,6 +1044,7 @@ public class PacienteService {
      * Actualiza un paciente con nuevos datos (versión para controladores)
      */
     public boolean actualizarPaciente(String tokenSesion, int pacienteId, services.PacienteServiceResults.DatosRegistroPaciente datos) {
+        long inicio = System.nanoTime();
         try {
             // Validar sesión
             if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
@@ -767,10 +1061,18 @@ public class PacienteService {
             actualizarPacienteDesdeDTO(paciente, datos);
             
             // Actualizar en base de datos
-            return pacienteDAO.actualizar(paciente);
+            boolean actualizado = pacienteDAO.actualizar(paciente);
+            if (actualizado) {
+                indiceDuplicados.actualizar(paciente);
+                RECIENTES.registrar(FilaPaciente.de(paciente));
+                almacen.guardarPaciente(paciente);
+            }
+            return actualizado;
             
         } catch (Exception e) {
             return false;
+        } finally {
+            METRICAS.registrar("actualizarPaciente", inicio);
         }
     }
     
@@ -1,13 +1,17 @@
 package services;
 
+import dao.AlmacenLocal;
+import dao.DiarioEscriturasTriage;
 import dao.RegistroTriageDAO;
-import dao.PacienteDAO;
 import models.RegistroTriage;
+import models.FilaTriage;
 import models.Paciente;
 import models.NivelUrgencia;
 import models.EstadoPaciente;
 import structures.TriageQueue;
+import utils.Bitacora;
 import utils.ValidationUtils;
+import utils.RegistroMetricas;
 import controllers.BaseController;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
@@ -22,17 +26,36 @@ import java.util.Map;
  */
 public class TriageService {
     
+    private static final Bitacora BITACORA = Bitacora.de(TriageService.class);
+    
+    // Latencia de los métodos públicos, por método (ver RegistroMetricas)
+    private static final RegistroMetricas.GrupoTemporizadores METRICAS = RegistroMetricas.getInstance()
+        .grupo("hsv_servicio_segundos", "Latencia de los métodos públicos de los servicios", "metodo",
+               "servicio", "TriageService");
+    
     private final RegistroTriageDAO registroTriageDAO;
-    private final PacienteDAO pacienteDAO;
     private final TriageQueue colaTriage;
+    private final DiarioFlujoPacientes flujoPacientes;
+    private final AlmacenLocal almacen;
     
     /**
      * Constructor del servicio de triage
      */
     public TriageService() {
         this.registroTriageDAO = new RegistroTriageDAO();
-        this.pacienteDAO = new PacienteDAO();
         this.colaTriage = new TriageQueue();
+        this.flujoPacientes = DiarioFlujoPacientes.getInstance();
+        this.almacen = AlmacenLocal.getInstance();
+        this.colaTriage.registrarMetricas();
+        
+        // La estación guarda una copia de la cola para mostrarla si inicia sin conexión
+        this.almacen.registrarFuenteCola(colaTriage::obtenerTodos);
+        
+        // Si un triage del diario local recibe folio nuevo al replicarse, la cola cambia su registro
+        DiarioEscriturasTriage diario = DiarioEscriturasTriage.getInstance();
+        if (diario != null) {
+            diario.registrarCola(colaTriage);
+        }
         
         // Cargar cola de triage al inicializar
         cargarColaTriage();
@@ -47,6 +70,7 @@ public class TriageService {
      */
     public ResultadoTriage realizarTriage(String tokenSesion, int pacienteId, 
                                         DatosEvaluacionTriage datosEvaluacion) {
+        long inicio = System.nanoTime();
         try {
             // Verificar permisos
             if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.CREAR_TRIAGE)) {
@@ -59,8 +83,8 @@ public class TriageService {
                 return new ResultadoTriage(false, "Sesión inválida", null);
             }
             
-            // Validar que el paciente existe
-            Paciente paciente = pacienteDAO.buscarPorId(pacienteId);
+            // Validar que el paciente existe (copia local si es reciente o si no hay conexión)
+            Paciente paciente = almacen.obtenerPaciente(pacienteId);
             if (paciente == null) {
                 return new ResultadoTriage(false, "Paciente no encontrado", null);
             }
@@ -99,13 +123,24 @@ public class TriageService {
             registro.setTiempoEstimadoAtencion(calcularTiempoEstimado(nivelCalculado));
             registro.setPrioridadNumerica(calcularPrioridadNumerica(nivelCalculado, datosEvaluacion));
             
-            // Guardar en base de datos
-            if (registroTriageDAO.insertar(registro)) {
-                // Actualizar estado del paciente
-                paciente.setEstadoActual(EstadoPaciente.ESPERANDO_ATENCION);
-                pacienteDAO.actualizar(paciente);
+            // Datos que muestra la lista de espera (también se guardan en el diario local)
+            registro.setPacienteNombre(paciente.getNombreCompleto());
+            registro.setNumeroExpediente(paciente.getNumeroExpediente());
+            
+            // Guardar en el diario local (se replica a MySQL en segundo plano);
+            // si no está disponible o está lleno, insertar directamente en la base de datos
+            DiarioEscriturasTriage diario = DiarioEscriturasTriage.getInstance();
+            boolean guardado = (diario != null && diario.registrar(registro))
+                || registroTriageDAO.insertar(registro);
+            
+            if (guardado) {
+                // La llegada de la visita se registra en la bitácora de flujo (no se reescribe el paciente);
+                // si el triage sólo está en el diario local su ID aún es 0
+                flujoPacientes.registrarLlegada(pacienteId, registro.getId(),
+                    registro.getEstado() != null ? registro.getEstado() : EstadoPaciente.ESPERANDO_ASISTENTE,
+                    usuario.getId());
                 
-                // Agregar a cola de triage
+                // Agregar a cola de triage (la cola se indexa por folio, que ya está asignado)
                 colaTriage.agregar(registro);
                 
                 return new ResultadoTriage(true, "Triage realizado exitosamente", registro);
@@ -114,8 +149,10 @@ public class TriageService {
             }
             
         } catch (SQLException e) {
-            System.err.println("Error en triage: " + e.getMessage());
+            BITACORA.error("Error en triage: " + e.getMessage());
             return new ResultadoTriage(false, "Error del sistema", null);
+        } finally {
+            METRICAS.registrar("realizarTriage", inicio);
         }
     }
     
@@ -125,11 +162,16 @@ public class TriageService {
      * @return Próximo paciente a atender o null si no hay pacientes
      */
     public RegistroTriage obtenerSiguientePaciente(String tokenSesion) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_COLA_TRIAGE)) {
-            return null;
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_COLA_TRIAGE)) {
+                return null;
+            }
+            
+            return colaTriage.obtenerSiguiente();
+        } finally {
+            METRICAS.registrar("obtenerSiguientePaciente", inicio);
         }
-        
-        return colaTriage.obtenerSiguiente();
     }
     
     /**
@@ -138,11 +180,16 @@ public class TriageService {
      * @return Lista ordenada de pacientes en espera
      */
     public List<RegistroTriage> obtenerColaTriage(String tokenSesion) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_COLA_TRIAGE)) {
-            return new ArrayList<>();
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_COLA_TRIAGE)) {
+                return new ArrayList<>();
+            }
+            
+            return colaTriage.obtenerTodos();
+        } finally {
+            METRICAS.registrar("obtenerColaTriage", inicio);
         }
-        
-        return colaTriage.obtenerTodos();
     }
     
     /**
@@ -151,15 +198,20 @@ public class TriageService {
      * @return Lista de pacientes urgentes
      */
     public List<RegistroTriage> obtenerPacientesUrgentes(String tokenSesion) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_TRIAGE)) {
-            return new ArrayList<>();
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            return registroTriageDAO.obtenerUrgentes();
-        } catch (SQLException e) {
-            System.err.println("Error al obtener pacientes urgentes: " + e.getMessage());
-            return new ArrayList<>();
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_TRIAGE)) {
+                return new ArrayList<>();
+            }
+            
+            try {
+                return registroTriageDAO.obtenerUrgentes();
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener pacientes urgentes: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        } finally {
+            METRICAS.registrar("obtenerPacientesUrgentes", inicio);
         }
     }
     
@@ -170,15 +222,20 @@ public class TriageService {
      * @return Lista de registros del paciente
      */
     public List<RegistroTriage> obtenerTriagePorPaciente(String tokenSesion, int pacienteId) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_TRIAGE)) {
-            return new ArrayList<>();
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            return registroTriageDAO.obtenerPorPaciente(pacienteId);
-        } catch (SQLException e) {
-            System.err.println("Error al obtener triage por paciente: " + e.getMessage());
-            return new ArrayList<>();
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_TRIAGE)) {
+                return new ArrayList<>();
+            }
+            
+            try {
+                return registroTriageDAO.obtenerPorPaciente(pacienteId);
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener triage por paciente: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        } finally {
+            METRICAS.registrar("obtenerTriagePorPaciente", inicio);
         }
     }
     
@@ -189,22 +246,27 @@ public class TriageService {
      * @return Estadísticas del día
      */
     public EstadisticasTriage obtenerEstadisticasPorFecha(String tokenSesion, LocalDateTime fecha) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_REPORTES_MEDICOS)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            List<RegistroTriageDAO.ConteoUrgencia> conteos = 
-                registroTriageDAO.contarPorUrgenciaEnFecha(fecha);
-            
-            List<RegistroTriageDAO.EstadisticaTiempo> tiempos = 
-                registroTriageDAO.obtenerEstadisticasTiempo();
-            
-            return new EstadisticasTriage(conteos, tiempos);
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_REPORTES_MEDICOS)) {
+                return null;
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error al obtener estadísticas de triage: " + e.getMessage());
-            return null;
+            try {
+                List<RegistroTriageDAO.ConteoUrgencia> conteos = 
+                    registroTriageDAO.contarPorUrgenciaEnFecha(fecha);
+                
+                List<RegistroTriageDAO.EstadisticaTiempo> tiempos = 
+                    registroTriageDAO.obtenerEstadisticasTiempo();
+                
+                return new EstadisticasTriage(conteos, tiempos);
+                
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener estadísticas de triage: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            METRICAS.registrar("obtenerEstadisticasPorFecha", inicio);
         }
     }
     
@@ -212,51 +274,82 @@ public class TriageService {
      * Obtiene estadísticas generales de triage para dashboard
      */
     public EstadisticasTriage obtenerEstadisticas(String tokenSesion) {
-        if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
-            return null;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            // Estadísticas simples para el dashboard
-            int totalHoy = registroTriageDAO.contarRegistrosHoy();
-            int evaluadosHoy = registroTriageDAO.contarEvaluadosHoy();
-            int enEspera = colaTriage.size();
+            if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
+                return null;
+            }
             
-            return new EstadisticasTriage(totalHoy, evaluadosHoy, enEspera);
-        } catch (SQLException e) {
-            System.err.println("Error al obtener estadísticas: " + e.getMessage());
-            return new EstadisticasTriage(0, 0, 0);
+            try {
+                // Estadísticas simples para el dashboard
+                int totalHoy = registroTriageDAO.contarRegistrosHoy();
+                int evaluadosHoy = registroTriageDAO.contarEvaluadosHoy();
+                int enEspera = colaTriage.size();
+                
+                return new EstadisticasTriage(totalHoy, evaluadosHoy, enEspera);
+            } catch (SQLException e) {
+                BITACORA.error("Error al obtener estadísticas: " + e.getMessage());
+                return new EstadisticasTriage(0, 0, 0);
+            }
+        } finally {
+            METRICAS.registrar("obtenerEstadisticas", inicio);
         }
     }
     
     /**
-     * Obtiene la lista de pacientes en espera para dashboard
+     * Obtiene las estadísticas de transiciones del flujo de pacientes (HospitalGraph),
+     * calculadas con los eventos de la bitácora de flujo
+     * @param tokenSesion Token de sesión
+     * @return Cantidad y tiempos por transición, o null sin permisos
      */
-    public List<PacienteEnEspera> obtenerPacientesEnEspera(String tokenSesion) {
-        if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
-            return new ArrayList<>();
+    public Map<String, Object> obtenerEstadisticasFlujo(String tokenSesion) {
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_REPORTES_MEDICOS)) {
+                return null;
+            }
+            return flujoPacientes.obtenerEstadisticasTransiciones();
+        } finally {
+            METRICAS.registrar("obtenerEstadisticasFlujo", inicio);
         }
-        
-        List<PacienteEnEspera> pacientesEnEspera = new ArrayList<>();
-        List<RegistroTriage> registrosEnEspera = colaTriage.obtenerTodos();
-        
-        for (RegistroTriage registro : registrosEnEspera) {
-            try {
-                Paciente paciente = pacienteDAO.buscarPorId(registro.getPacienteId());
-                if (paciente != null) {
-                    pacientesEnEspera.add(new PacienteEnEspera(
-                        paciente.getNombreCompleto(),
-                        paciente.getNumeroExpediente(),
-                        registro.getNivelUrgencia(),
-                        registro.getFechaHoraLlegada()
-                    ));
+    }
+    
+    /**
+     * Obtiene la lista de pacientes en espera para dashboard como filas compactas
+     * El nombre y el expediente vienen en los registros de la cola (proyección de fila de cola
+     * o registrarTriage); solo los que no los traen se completan con una consulta por paciente
+     */
+    public List<FilaTriage> obtenerFilasEnEspera(String tokenSesion) {
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
+                return new ArrayList<>();
+            }
+            
+            List<RegistroTriage> registrosEnEspera = colaTriage.obtenerTodos();
+            List<FilaTriage> filas = new ArrayList<>(registrosEnEspera.size());
+            
+            for (RegistroTriage registro : registrosEnEspera) {
+                if (registro.getPacienteNombre() == null) {
+                    try {
+                        Paciente paciente = almacen.obtenerPaciente(registro.getPacienteId());
+                        if (paciente == null) {
+                            continue;
+                        }
+                        registro.setPacienteNombre(paciente.getNombreCompleto());
+                        registro.setNumeroExpediente(paciente.getNumeroExpediente());
+                    } catch (SQLException e) {
+                        BITACORA.error("Error al obtener paciente: " + e.getMessage());
+                        continue;
+                    }
                 }
-            } catch (SQLException e) {
-                System.err.println("Error al obtener paciente: " + e.getMessage());
+                filas.add(FilaTriage.de(registro, registro.getPacienteNombre(), registro.getNumeroExpediente()));
             }
+            
+            return filas;
+        } finally {
+            METRICAS.registrar("obtenerFilasEnEspera", inicio);
         }
-        
-        return pacientesEnEspera;
     }
     
     /**
@@ -266,20 +359,25 @@ public class TriageService {
      * @return true si se actualizó correctamente
      */
     public boolean actualizarTriage(String tokenSesion, RegistroTriage registro) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_TRIAGE)) {
-            return false;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            boolean actualizado = registroTriageDAO.actualizar(registro);
-            if (actualizado) {
-                // Actualizar en la cola de triage si es necesario
-                colaTriage.actualizar(registro);
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_TRIAGE)) {
+                return false;
             }
-            return actualizado;
-        } catch (SQLException e) {
-            System.err.println("Error al actualizar triage: " + e.getMessage());
-            return false;
+            
+            try {
+                boolean actualizado = registroTriageDAO.actualizar(registro);
+                if (actualizado) {
+                    // Actualizar en la cola de triage si es necesario
+                    colaTriage.actualizar(registro);
+                }
+                return actualizado;
+            } catch (SQLException e) {
+                BITACORA.error("Error al actualizar triage: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            METRICAS.registrar("actualizarTriage", inicio);
         }
     }
     
@@ -290,32 +388,38 @@ public class TriageService {
      * @return true si se marcó correctamente
      */
     public boolean marcarComoAtendido(String tokenSesion, int registroId) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_TRIAGE)) {
-            return false;
-        }
-        
+        long inicio = System.nanoTime();
         try {
-            // Buscar el registro
-            RegistroTriage registro = registroTriageDAO.buscarPorId(registroId);
-            if (registro == null) {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.ACTUALIZAR_TRIAGE)) {
                 return false;
             }
             
-            // Actualizar estado del paciente
-            Paciente paciente = pacienteDAO.buscarPorId(registro.getPacienteId());
-            if (paciente != null) {
-                paciente.setEstadoActual(EstadoPaciente.EN_CONSULTA);
-                pacienteDAO.actualizar(paciente);
+            try {
+                // Buscar el registro
+                RegistroTriage registro = registroTriageDAO.buscarPorId(registroId);
+                if (registro == null) {
+                    return false;
+                }
+                
+                // El paciente pasa a atención médica si el flujo lo permite desde su estado actual
+                var usuario = BaseController.getAuthService().obtenerUsuarioPorToken(tokenSesion);
+                if (!flujoPacientes.registrarTransicion(registro.getPacienteId(), registroId, registro.getEstado(),
+                                                        registro.getFechaUltimaActualizacion(), EstadoPaciente.EN_ATENCION,
+                                                        usuario != null ? usuario.getId() : 0)) {
+                    return false;
+                }
+                
+                // Remover de la cola de triage
+                colaTriage.remover(registroId);
+                
+                return true;
+                
+            } catch (SQLException e) {
+                BITACORA.error("Error al marcar como atendido: " + e.getMessage());
+                return false;
             }
-            
-            // Remover de la cola de triage
-            colaTriage.remover(registroId);
-            
-            return true;
-            
-        } catch (SQLException e) {
-            System.err.println("Error al marcar como atendido: " + e.getMessage());
-            return false;
+        } finally {
+            METRICAS.registrar("marcarComoAtendido", inicio);
         }
     }
     
@@ -325,19 +429,24 @@ public class TriageService {
      * @return Conteo por nivel de urgencia
      */
     public ConteoColaTriage obtenerConteoColaTriage(String tokenSesion) {
-        if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_COLA_TRIAGE)) {
-            return null;
+        long inicio = System.nanoTime();
+        try {
+            if (!BaseController.getAuthService().tienePermiso(tokenSesion, AuthenticationService.Permiso.VER_COLA_TRIAGE)) {
+                return null;
+            }
+            
+            Map<NivelUrgencia, Integer> conteos = colaTriage.obtenerConteos();
+            
+            return new ConteoColaTriage(
+                conteos.getOrDefault(NivelUrgencia.EMERGENCIA, 0),
+                conteos.getOrDefault(NivelUrgencia.URGENTE, 0),
+                conteos.getOrDefault(NivelUrgencia.MODERADA, 0),
+                conteos.getOrDefault(NivelUrgencia.BAJA, 0),
+                conteos.getOrDefault(NivelUrgencia.NO_URGENTE, 0)
+            );
+        } finally {
+            METRICAS.registrar("obtenerConteoColaTriage", inicio);
         }
-        
-        Map<NivelUrgencia, Integer> conteos = colaTriage.obtenerConteos();
-        
-        return new ConteoColaTriage(
-            conteos.getOrDefault(NivelUrgencia.EMERGENCIA, 0),
-            conteos.getOrDefault(NivelUrgencia.URGENTE, 0),
-            conteos.getOrDefault(NivelUrgencia.MODERADA, 0),
-            conteos.getOrDefault(NivelUrgencia.BAJA, 0),
-            conteos.getOrDefault(NivelUrgencia.NO_URGENTE, 0)
-        );
     }
     
     // Métodos privados auxiliares
@@ -517,15 +626,33 @@ public class TriageService {
     
     /**
      * Carga la cola de triage con pacientes pendientes de la base de datos
+     * Usa la proyección de fila de cola: la cola solo ordena y cuenta por nivel y llegada
      */
     private void cargarColaTriage() {
         try {
-            List<RegistroTriage> pendientes = registroTriageDAO.obtenerPendientes();
+            List<RegistroTriage> pendientes = registroTriageDAO.obtenerFilasCola();
             for (RegistroTriage registro : pendientes) {
                 colaTriage.agregar(registro);
             }
         } catch (SQLException e) {
-            System.err.println("Error al cargar cola de triage: " + e.getMessage());
+            if (almacen.reportarError(e)) {
+                // Sin conexión: la última cola que guardó esta estación
+                for (RegistroTriage registro : almacen.obtenerColaTriage()) {
+                    colaTriage.agregar(registro);
+                }
+            } else {
+                BITACORA.error("Error al cargar cola de triage: " + e.getMessage());
+            }
+        }
+        
+        // Triages confirmados en el diario local que aún no llegan a MySQL
+        DiarioEscriturasTriage diario = DiarioEscriturasTriage.getInstance();
+        if (diario != null) {
+            for (RegistroTriage registro : diario.obtenerPendientes()) {
+                if (colaTriage.buscarPorFolio(registro.getFolio()) == null) {
+                    colaTriage.agregar(registro);
+                }
+            }
         }
     }
     
@@ -685,51 +812,13 @@ public class TriageService {
         public int getTiempoEstimado() { return tiempoEstimado; }
     }
     
-    /**
-     * Clase para representar pacientes en espera
-     */
-    public static class PacienteEnEspera {
-        private String nombreCompleto;
-        private String numeroExpediente;
-        private NivelUrgencia nivelUrgencia;
-        private LocalDateTime fechaLlegada;
-        private int minutosEspera;
-        
-        public PacienteEnEspera(String nombreCompleto, String numeroExpediente, 
-                               NivelUrgencia nivelUrgencia, LocalDateTime fechaLlegada) {
-            this.nombreCompleto = nombreCompleto;
-            this.numeroExpediente = numeroExpediente;
-            this.nivelUrgencia = nivelUrgencia;
-            this.fechaLlegada = fechaLlegada;
-            this.minutosEspera = calcularMinutosEspera();
-        }
-        
-        private int calcularMinutosEspera() {
-            if (fechaLlegada == null) return 0;
-            return (int) java.time.Duration.between(fechaLlegada, LocalDateTime.now()).toMinutes();
-        }
-        
-        // Getters
-        public String getNombreCompleto() { return nombreCompleto; }
-        public String getNumeroExpediente() { return numeroExpediente; }
-        public NivelUrgencia getNivelUrgencia() { return nivelUrgencia; }
-        public LocalDateTime getFechaLlegada() { return fechaLlegada; }
-        public LocalDateTime getFechaRegistro() { return fechaLlegada; } // Alias para compatibilidad
-        public int getMinutosEspera() { return minutosEspera; }
-        
-        // Método adicional requerido por controladores
-        public int getId() { 
-            // Como no tenemos ID real, usamos hashCode del número de expediente
-            return numeroExpediente != null ? numeroExpediente.hashCode() : 0; 
-        }
-    }
-    
     // Métodos adicionales requeridos por los controladores
     
     /**
      * Evalúa la urgencia de un paciente
      */
     public services.TriageServiceResults.ResultadoEvaluacion evaluarUrgencia(String tokenSesion, services.TriageServiceResults.DatosEvaluacionTriage datos) {
+        long inicio = System.nanoTime();
         try {
             // Validar sesión
             if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
@@ -752,6 +841,8 @@ public class TriageService {
         } catch (Exception e) {
             return new services.TriageServiceResults.ResultadoEvaluacion(false, "Error en evaluación: " + e.getMessage(), 
                 null, null, 0, "");
+        } finally {
+            METRICAS.registrar("evaluarUrgencia", inicio);
         }
     }
     
@@ -759,6 +850,7 @@ public class TriageService {
      * Guarda una evaluación de triage
      */
     public boolean guardarEvaluacion(String tokenSesion, RegistroTriage evaluacion) {
+        long inicio = System.nanoTime();
         try {
             // Validar sesión
             if (!BaseController.getAuthService().validarSesion(tokenSesion)) {
@@ -766,8 +858,9 @@ public class TriageService {
             }
             
             // Verificar que la evaluación tenga los datos necesarios
-            if (evaluacion == null || evaluacion.getPacienteId() <= 0) {
-                System.err.println("Evaluación inválida o paciente no especificado");
+            // (un ID negativo es un paciente registrado sin conexión)
+            if (evaluacion == null || evaluacion.getPacienteId() == 0) {
+                BITACORA.error("Evaluación inválida o paciente no especificado");
                 return false;
             }
             
@@ -776,35 +869,31 @@ public class TriageService {
                 evaluacion.setFechaHoraTriage(LocalDateTime.now());
             }
             
-            // Guardar en la base de datos usando el DAO
-            boolean guardado = registroTriageDAO.insertar(evaluacion);
+            // Guardar en el diario local (se replica a MySQL en segundo plano, también sin conexión);
+            // si no está disponible, insertar directamente con el DAO
+            DiarioEscriturasTriage diario = DiarioEscriturasTriage.getInstance();
+            boolean guardado = (diario != null && diario.registrar(evaluacion))
+                || registroTriageDAO.insertar(evaluacion);
             
             if (guardado) {
-                System.out.println("Evaluación de triage guardada exitosamente para paciente ID: " + evaluacion.getPacienteId());
+                BITACORA.info("Evaluación de triage guardada exitosamente para paciente ID: " + evaluacion.getPacienteId());
                 
-                // Actualizar el estado del paciente en la base de datos
-                try {
-                    Paciente paciente = pacienteDAO.buscarPorId(evaluacion.getPacienteId());
-                    if (paciente != null) {
-                        // Después del triage, el paciente pasa a esperando trabajo social
-                        paciente.setEstadoActual(EstadoPaciente.ESPERANDO_TRABAJO_SOCIAL);
-                        pacienteDAO.actualizar(paciente);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error al actualizar estado del paciente: " + e.getMessage());
-                    // No fallar el guardado por esto
-                }
+                // Después del triage, el paciente pasa a esperando trabajo social
+                flujoPacientes.registrarLlegada(evaluacion.getPacienteId(), evaluacion.getId(),
+                    evaluacion.getEstado() != null ? evaluacion.getEstado() : EstadoPaciente.ESPERANDO_TRABAJO_SOCIAL,
+                    evaluacion.getUsuarioTriageId());
                 
                 return true;
             } else {
-                System.err.println("No se pudo guardar la evaluación en la base de datos");
+                BITACORA.error("No se pudo guardar la evaluación en la base de datos");
                 return false;
             }
             
         } catch (Exception e) {
-            System.err.println("Error al guardar evaluación: " + e.getMessage());
-            e.printStackTrace();
+            BITACORA.error("Error al guardar evaluación", e);
             return false;
+        } finally {
+            METRICAS.registrar("guardarEvaluacion", inicio);
         }
     }
 }
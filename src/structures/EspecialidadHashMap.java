@@ -3,12 +3,19 @@ package structures;
 import models.Especialidad;
 import models.Usuario;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 /**
  * HashMap especializado para gestionar especialidades médicas y médicos disponibles
  * Proporciona mapeo rápido O(1) de especialidades a listas de médicos
  * Incluye funcionalidad para horarios, disponibilidad y asignación automática
+ * Cada especialidad mantiene un montículo de médicos ordenado por carga
+ * (pacientes asignados / capacidad) para asignar en O(log n); es seguro entre hilos
+ * Los turnos (incluidos nocturnos) se consultan en un IndiceTurnos por especialidad
  */
 public class EspecialidadHashMap {
     
@@ -20,16 +27,22 @@ public class EspecialidadHashMap {
         private boolean disponible;
         private LocalTime horaInicioTurno;
         private LocalTime horaFinTurno;
+        private Set<DayOfWeek> diasTurno;
         private int pacientesAsignados;
         private int capacidadMaxima;
         private double calificacion;
         private List<String> subespecialidades;
         
+        // Cola de la especialidad a la que pertenece y posición dentro de su montículo
+        private ColaMedicos cola;
+        private int posicion = -1;
+        
         public MedicoEspecialista(Usuario medico) {
             this.medico = medico;
             this.disponible = true;
             this.horaInicioTurno = LocalTime.of(8, 0);  // 8:00 AM por defecto
             this.horaFinTurno = LocalTime.of(18, 0);    // 6:00 PM por defecto
+            this.diasTurno = EnumSet.allOf(DayOfWeek.class);
             this.pacientesAsignados = 0;
             this.capacidadMaxima = 8; // 8 pacientes por turno por defecto
             this.calificacion = 5.0;
@@ -41,30 +54,51 @@ public class EspecialidadHashMap {
         public void setMedico(Usuario medico) { this.medico = medico; }
         
         public boolean isDisponible() { return disponible; }
-        public void setDisponible(boolean disponible) { this.disponible = disponible; }
+        public void setDisponible(boolean disponible) { modificar(() -> this.disponible = disponible); }
         
         public LocalTime getHoraInicioTurno() { return horaInicioTurno; }
-        public void setHoraInicioTurno(LocalTime horaInicioTurno) { this.horaInicioTurno = horaInicioTurno; }
+        public void setHoraInicioTurno(LocalTime horaInicioTurno) { modificarTurno(() -> this.horaInicioTurno = horaInicioTurno); }
         
         public LocalTime getHoraFinTurno() { return horaFinTurno; }
-        public void setHoraFinTurno(LocalTime horaFinTurno) { this.horaFinTurno = horaFinTurno; }
+        public void setHoraFinTurno(LocalTime horaFinTurno) { modificarTurno(() -> this.horaFinTurno = horaFinTurno); }
+        
+        public Set<DayOfWeek> getDiasTurno() { return diasTurno; }
+        public void setDiasTurno(Set<DayOfWeek> diasTurno) { modificarTurno(() -> this.diasTurno = EnumSet.copyOf(diasTurno)); }
         
         public int getPacientesAsignados() { return pacientesAsignados; }
-        public void setPacientesAsignados(int pacientesAsignados) { this.pacientesAsignados = pacientesAsignados; }
+        public void setPacientesAsignados(int pacientesAsignados) { modificar(() -> this.pacientesAsignados = pacientesAsignados); }
         
         public int getCapacidadMaxima() { return capacidadMaxima; }
-        public void setCapacidadMaxima(int capacidadMaxima) { this.capacidadMaxima = capacidadMaxima; }
+        public void setCapacidadMaxima(int capacidadMaxima) { modificar(() -> this.capacidadMaxima = capacidadMaxima); }
         
         public double getCalificacion() { return calificacion; }
-        public void setCalificacion(double calificacion) { this.calificacion = calificacion; }
+        public void setCalificacion(double calificacion) { modificar(() -> this.calificacion = calificacion); }
         
         public List<String> getSubespecialidades() { return subespecialidades; }
         public void setSubespecialidades(List<String> subespecialidades) { this.subespecialidades = subespecialidades; }
         
         // Métodos de utilidad
         public boolean estaEnTurno() {
-            LocalTime ahora = LocalTime.now();
-            return !ahora.isBefore(horaInicioTurno) && !ahora.isAfter(horaFinTurno);
+            return estaEnTurno(LocalDateTime.now());
+        }
+        
+        /**
+         * Verifica si el médico está en turno en un instante (admite turnos nocturnos)
+         */
+        public boolean estaEnTurno(LocalDateTime momento) {
+            ColaMedicos actual = cola;
+            if (actual != null) {
+                return actual.turnos.estaEnTurno(medico.getId(), momento);
+            }
+            
+            LocalTime hora = momento.toLocalTime();
+            if (horaFinTurno.isBefore(horaInicioTurno)) {
+                // Turno nocturno: cubre desde el inicio hasta la medianoche y de ahí hasta el fin
+                return (!hora.isBefore(horaInicioTurno) && diasTurno.contains(momento.getDayOfWeek()))
+                    || (!hora.isAfter(horaFinTurno) && diasTurno.contains(momento.getDayOfWeek().minus(1)));
+            }
+            return diasTurno.contains(momento.getDayOfWeek())
+                && !hora.isBefore(horaInicioTurno) && !hora.isAfter(horaFinTurno);
         }
         
         public boolean tieneCupo() {
@@ -76,21 +110,56 @@ public class EspecialidadHashMap {
         }
         
         public void asignarPaciente() {
-            if (tieneCupo()) {
-                pacientesAsignados++;
-            }
+            modificar(() -> {
+                if (tieneCupo()) {
+                    pacientesAsignados++;
+                }
+            });
         }
         
         public void liberarPaciente() {
-            if (pacientesAsignados > 0) {
-                pacientesAsignados--;
-            }
+            modificar(() -> {
+                if (pacientesAsignados > 0) {
+                    pacientesAsignados--;
+                }
+            });
         }
         
         public int getCuposDisponibles() {
             return Math.max(0, capacidadMaxima - pacientesAsignados);
         }
         
+        /**
+         * Fracción de la capacidad ocupada (0.0 = libre, 1.0 = lleno)
+         */
+        public double getCarga() {
+            return capacidadMaxima > 0 ? (double) pacientesAsignados / capacidadMaxima : Double.MAX_VALUE;
+        }
+        
+        /**
+         * Aplica un cambio de horario y lo registra en el índice de turnos de la especialidad
+         */
+        private void modificarTurno(Runnable cambio) {
+            ColaMedicos actual = cola;
+            if (actual == null) {
+                cambio.run();
+            } else {
+                actual.modificarTurno(this, cambio);
+            }
+        }
+        
+        /**
+         * Aplica un cambio que afecta el orden del montículo y lo reacomoda
+         */
+        private void modificar(Runnable cambio) {
+            ColaMedicos actual = cola;
+            if (actual == null) {
+                cambio.run();
+            } else {
+                actual.modificar(this, cambio);
+            }
+        }
+        
         @Override
         public String toString() {
             return medico.getNombreCompleto() + 
@@ -100,8 +169,214 @@ public class EspecialidadHashMap {
         }
     }
     
-    // HashMap principal: Especialidad -> Lista de médicos especialistas
-    private Map<Especialidad, List<MedicoEspecialista>> especialidades;
+    /**
+     * Médicos de una especialidad: lista en orden de registro, índice por ID y
+     * montículo mínimo por carga. Todas las operaciones se sincronizan sobre la cola,
+     * por lo que varias estaciones de triage pueden asignar al mismo tiempo
+     */
+    private static class ColaMedicos {
+        private final List<MedicoEspecialista> medicos = new ArrayList<>();
+        private final Map<Integer, MedicoEspecialista> porId = new HashMap<>();
+        private final IndiceTurnos turnos = new IndiceTurnos();
+        private MedicoEspecialista[] monticulo = new MedicoEspecialista[8];
+        private int tamaño = 0;
+        
+        // Conteo de médicos disponibles en caché; vale hasta el próximo cambio de turno
+        // o hasta que se modifique algún médico de la cola
+        private int disponiblesEnCache = -1;
+        private LocalDateTime cacheValidoHasta;
+        
+        synchronized boolean agregar(MedicoEspecialista me) {
+            if (porId.putIfAbsent(me.getMedico().getId(), me) != null) {
+                return false;
+            }
+            medicos.add(me);
+            turnos.definirTurno(me.getMedico().getId(), me.horaInicioTurno, me.horaFinTurno, me.diasTurno);
+            me.cola = this;
+            insertar(me);
+            disponiblesEnCache = -1;
+            return true;
+        }
+        
+        synchronized MedicoEspecialista buscar(int medicoId) {
+            return porId.get(medicoId);
+        }
+        
+        synchronized List<MedicoEspecialista> copia() {
+            return new ArrayList<>(medicos);
+        }
+        
+        /**
+         * Asigna un paciente al médico disponible con menor carga
+         * Los médicos fuera de turno que quedan en la cima se apartan y se reinsertan al final
+         */
+        synchronized MedicoEspecialista asignar() {
+            MedicoEspecialista elegido = null;
+            List<MedicoEspecialista> fueraDeTurno = null;
+            LocalDateTime ahora = LocalDateTime.now();
+            
+            while (tamaño > 0 && elegiblePorEstado(monticulo[0])) {
+                MedicoEspecialista tope = extraerMinimo();
+                if (turnos.estaEnTurno(tope.getMedico().getId(), ahora)) {
+                    elegido = tope;
+                    break;
+                }
+                if (fueraDeTurno == null) {
+                    fueraDeTurno = new ArrayList<>();
+                }
+                fueraDeTurno.add(tope);
+            }
+            
+            if (elegido != null) {
+                elegido.pacientesAsignados++;
+                insertar(elegido);
+                disponiblesEnCache = -1;
+            }
+            if (fueraDeTurno != null) {
+                for (MedicoEspecialista me : fueraDeTurno) {
+                    insertar(me);
+                }
+            }
+            return elegido;
+        }
+        
+        synchronized boolean hayDisponibles() {
+            return contarDisponibles(LocalDateTime.now()) > 0;
+        }
+        
+        /**
+         * Cuenta los médicos en turno, disponibles y con cupo
+         * El resultado se reutiliza mientras no cambie ningún médico ni llegue un cambio de turno
+         */
+        synchronized int contarDisponibles(LocalDateTime ahora) {
+            if (disponiblesEnCache >= 0 && (cacheValidoHasta == null || ahora.isBefore(cacheValidoHasta))) {
+                return disponiblesEnCache;
+            }
+            
+            int disponibles = 0;
+            if (tamaño > 0 && elegiblePorEstado(monticulo[0])) {
+                for (int medicoId : turnos.medicosEnTurno(ahora)) {
+                    MedicoEspecialista me = porId.get(medicoId);
+                    if (me != null && elegiblePorEstado(me)) {
+                        disponibles++;
+                    }
+                }
+            }
+            
+            disponiblesEnCache = disponibles;
+            cacheValidoHasta = turnos.siguienteCambio(ahora);
+            return disponibles;
+        }
+        
+        /**
+         * Médicos en turno en un instante, disponibles y con cupo, ordenados por carga
+         */
+        synchronized List<MedicoEspecialista> enTurnoConCupo(LocalDateTime momento) {
+            List<MedicoEspecialista> resultado = new ArrayList<>();
+            for (int medicoId : turnos.medicosEnTurno(momento)) {
+                MedicoEspecialista me = porId.get(medicoId);
+                if (me != null && elegiblePorEstado(me)) {
+                    resultado.add(me);
+                }
+            }
+            resultado.sort(COMPARADOR_CARGA);
+            return resultado;
+        }
+        
+        synchronized void modificarTurno(MedicoEspecialista me, Runnable cambio) {
+            cambio.run();
+            turnos.definirTurno(me.getMedico().getId(), me.horaInicioTurno, me.horaFinTurno, me.diasTurno);
+            disponiblesEnCache = -1;
+        }
+        
+        synchronized void modificar(MedicoEspecialista me, Runnable cambio) {
+            cambio.run();
+            disponiblesEnCache = -1;
+            if (me.posicion >= 0) {
+                subir(me.posicion);
+                bajar(me.posicion);
+            }
+        }
+        
+        // Operaciones del montículo
+        
+        private void insertar(MedicoEspecialista me) {
+            if (tamaño == monticulo.length) {
+                monticulo = Arrays.copyOf(monticulo, tamaño * 2);
+            }
+            colocar(me, tamaño++);
+            subir(me.posicion);
+        }
+        
+        private MedicoEspecialista extraerMinimo() {
+            MedicoEspecialista minimo = monticulo[0];
+            MedicoEspecialista ultimo = monticulo[--tamaño];
+            monticulo[tamaño] = null;
+            if (tamaño > 0) {
+                colocar(ultimo, 0);
+                bajar(0);
+            }
+            minimo.posicion = -1;
+            return minimo;
+        }
+        
+        private void subir(int i) {
+            MedicoEspecialista me = monticulo[i];
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (COMPARADOR_CARGA.compare(me, monticulo[padre]) >= 0) {
+                    break;
+                }
+                colocar(monticulo[padre], i);
+                i = padre;
+            }
+            colocar(me, i);
+        }
+        
+        private void bajar(int i) {
+            MedicoEspecialista me = monticulo[i];
+            int mitad = tamaño >>> 1;
+            while (i < mitad) {
+                int hijo = 2 * i + 1;
+                if (hijo + 1 < tamaño && COMPARADOR_CARGA.compare(monticulo[hijo + 1], monticulo[hijo]) < 0) {
+                    hijo++;
+                }
+                if (COMPARADOR_CARGA.compare(me, monticulo[hijo]) <= 0) {
+                    break;
+                }
+                colocar(monticulo[hijo], i);
+                i = hijo;
+            }
+            colocar(me, i);
+        }
+        
+        private void colocar(MedicoEspecialista me, int i) {
+            monticulo[i] = me;
+            me.posicion = i;
+        }
+    }
+    
+    private static boolean elegiblePorEstado(MedicoEspecialista me) {
+        return me.disponible && me.tieneCupo();
+    }
+    
+    // Orden de asignación: 1) Disponibles con cupo, 2) Menor carga, 3) Mayor calificación, 4) ID
+    private static final Comparator<MedicoEspecialista> COMPARADOR_CARGA = (m1, m2) -> {
+        boolean e1 = elegiblePorEstado(m1);
+        boolean e2 = elegiblePorEstado(m2);
+        if (e1 != e2) return e1 ? -1 : 1;
+        int comparacionCarga = Double.compare(m1.getCarga(), m2.getCarga());
+        if (comparacionCarga != 0) return comparacionCarga;
+        int comparacionCalificacion = Double.compare(m2.calificacion, m1.calificacion);
+        if (comparacionCalificacion != 0) return comparacionCalificacion;
+        return Integer.compare(m1.getMedico().getId(), m2.getMedico().getId());
+    };
+    
+    // HashMap principal: Especialidad -> Médicos especialistas de la especialidad
+    private Map<Especialidad, ColaMedicos> especialidades;
+    
+    // Índice por ID de médico: un médico puede atender en varias especialidades
+    private Map<Integer, List<MedicoEspecialista>> medicosPorId;
     
     // HashMap secundario para búsqueda rápida por nombre de especialidad
     private Map<String, Especialidad> nombreAEspecialidad;
@@ -114,10 +389,11 @@ public class EspecialidadHashMap {
      * Constructor que inicializa el HashMap con todas las especialidades
      */
     public EspecialidadHashMap() {
-        this.especialidades = new HashMap<>();
+        this.especialidades = new EnumMap<>(Especialidad.class);
+        this.medicosPorId = new ConcurrentHashMap<>();
         this.nombreAEspecialidad = new HashMap<>();
-        this.contadorAsignaciones = new HashMap<>();
-        this.tiempoPromedioAtencion = new HashMap<>();
+        this.contadorAsignaciones = new ConcurrentHashMap<>();
+        this.tiempoPromedioAtencion = new ConcurrentHashMap<>();
         
         inicializarEspecialidades();
     }
@@ -127,7 +403,7 @@ public class EspecialidadHashMap {
      */
     private void inicializarEspecialidades() {
         for (Especialidad esp : Especialidad.values()) {
-            especialidades.put(esp, new ArrayList<>());
+            especialidades.put(esp, new ColaMedicos());
             nombreAEspecialidad.put(esp.getNombre().toLowerCase(), esp);
             contadorAsignaciones.put(esp, 0);
             tiempoPromedioAtencion.put(esp, 30.0); // 30 minutos por defecto
@@ -145,18 +421,11 @@ public class EspecialidadHashMap {
             return false;
         }
         
-        List<MedicoEspecialista> medicos = especialidades.get(especialidad);
-        if (medicos == null) {
-            medicos = new ArrayList<>();
-            especialidades.put(especialidad, medicos);
-        }
-        
-        // Verificar si el médico ya está en la especialidad
-        boolean yaExiste = medicos.stream()
-                .anyMatch(me -> me.getMedico().getId() == medico.getId());
-        
-        if (!yaExiste) {
-            medicos.add(new MedicoEspecialista(medico));
+        // La cola rechaza al médico si ya está en la especialidad
+        MedicoEspecialista nuevo = new MedicoEspecialista(medico);
+        if (especialidades.get(especialidad).agregar(nuevo)) {
+            medicosPorId.computeIfAbsent(medico.getId(), _ -> new CopyOnWriteArrayList<>())
+                        .add(nuevo);
             return true;
         }
         
@@ -180,7 +449,8 @@ public class EspecialidadHashMap {
      * @return Lista de médicos especialistas
      */
     public List<MedicoEspecialista> obtenerMedicos(Especialidad especialidad) {
-        return new ArrayList<>(especialidades.getOrDefault(especialidad, new ArrayList<>()));
+        ColaMedicos cola = especialidades.get(especialidad);
+        return cola != null ? cola.copia() : new ArrayList<>();
     }
     
     /**
@@ -189,17 +459,13 @@ public class EspecialidadHashMap {
      * @return Lista de médicos disponibles
      */
     public List<MedicoEspecialista> obtenerMedicosDisponibles(Especialidad especialidad) {
-        List<MedicoEspecialista> medicos = especialidades.get(especialidad);
-        if (medicos == null) return new ArrayList<>();
+        ColaMedicos cola = especialidades.get(especialidad);
+        if (cola == null) return new ArrayList<>();
         
-        return medicos.stream()
+        // Mismo orden que usa la asignación automática
+        return cola.copia().stream()
                 .filter(MedicoEspecialista::estaDisponibleParaAsignacion)
-                .sorted((m1, m2) -> {
-                    // Ordenar por: 1) Menos pacientes asignados, 2) Mayor calificación
-                    int comparacionCarga = Integer.compare(m1.getPacientesAsignados(), m2.getPacientesAsignados());
-                    if (comparacionCarga != 0) return comparacionCarga;
-                    return Double.compare(m2.getCalificacion(), m1.getCalificacion());
-                })
+                .sorted(COMPARADOR_CARGA)
                 .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
     }
     
@@ -223,15 +489,7 @@ public class EspecialidadHashMap {
      * @param medico El médico usuario a asignar
      */
     public void asignarMedico(Especialidad especialidad, Usuario medico) {
-        List<MedicoEspecialista> medicos = especialidades.computeIfAbsent(especialidad, _ -> new ArrayList<>());
-        
-        // Verificar si el médico ya está asignado
-        boolean yaAsignado = medicos.stream()
-                .anyMatch(m -> m.getMedico().getId() == medico.getId());
-        
-        if (!yaAsignado) {
-            medicos.add(new MedicoEspecialista(medico));
-        }
+        agregarMedico(especialidad, medico);
     }
     
     /**
@@ -240,19 +498,65 @@ public class EspecialidadHashMap {
      * @return El médico asignado, o null si no hay disponibles
      */
     public MedicoEspecialista asignarMedicoAutomatico(Especialidad especialidad) {
-        List<MedicoEspecialista> disponibles = obtenerMedicosDisponibles(especialidad);
+        ColaMedicos cola = especialidades.get(especialidad);
+        MedicoEspecialista asignado = cola != null ? cola.asignar() : null;
         
-        if (!disponibles.isEmpty()) {
-            MedicoEspecialista asignado = disponibles.get(0);
-            asignado.asignarPaciente();
-            
+        if (asignado != null) {
             // Actualizar estadísticas
-            contadorAsignaciones.put(especialidad, contadorAsignaciones.get(especialidad) + 1);
-            
-            return asignado;
+            contadorAsignaciones.merge(especialidad, 1, Integer::sum);
         }
         
-        return null;
+        return asignado;
+    }
+    
+    /**
+     * Busca la información de un médico en una especialidad por su ID
+     * @param especialidad La especialidad médica
+     * @param medicoId ID del médico
+     * @return El médico especialista, o null si no pertenece a la especialidad
+     */
+    public MedicoEspecialista buscarMedico(Especialidad especialidad, int medicoId) {
+        ColaMedicos cola = especialidades.get(especialidad);
+        return cola != null ? cola.buscar(medicoId) : null;
+    }
+    
+    /**
+     * Obtiene los médicos de una especialidad en turno en un instante, disponibles y con cupo
+     * @param especialidad La especialidad médica
+     * @param momento Instante a consultar
+     * @return Médicos ordenados de menor a mayor carga
+     */
+    public List<MedicoEspecialista> obtenerMedicosEnTurno(Especialidad especialidad, LocalDateTime momento) {
+        ColaMedicos cola = especialidades.get(especialidad);
+        return cola != null ? cola.enTurnoConCupo(momento) : new ArrayList<>();
+    }
+    
+    /**
+     * Calcula el próximo instante en que entra o sale de turno un médico de la especialidad
+     * @param especialidad La especialidad médica
+     * @param momento Instante de referencia
+     * @return Próximo cambio de turno, o null si no hay cambios
+     */
+    public LocalDateTime proximoCambioTurno(Especialidad especialidad, LocalDateTime momento) {
+        ColaMedicos cola = especialidades.get(especialidad);
+        return cola != null ? cola.turnos.siguienteCambio(momento) : null;
+    }
+    
+    /**
+     * Calcula el próximo cambio de turno en cualquier especialidad
+     * Permite programar la siguiente actualización de disponibilidad exactamente en la transición
+     * @param momento Instante de referencia
+     * @return Próximo cambio de turno, o null si no hay cambios
+     */
+    public LocalDateTime proximoCambioTurno(LocalDateTime momento) {
+        LocalDateTime proximo = null;
+        for (ColaMedicos cola : especialidades.values()) {
+            LocalDateTime cambio = cola.turnos.siguienteCambio(momento);
+            if (cambio != null && (proximo == null || cambio.isBefore(proximo))) {
+                proximo = cambio;
+            }
+        }
+        return proximo;
     }
     
     /**
@@ -275,9 +579,9 @@ public class EspecialidadHashMap {
     public List<Especialidad> obtenerEspecialidadesConMedicosDisponibles() {
         List<Especialidad> disponibles = new ArrayList<>();
         
-        for (Especialidad esp : especialidades.keySet()) {
-            if (!obtenerMedicosDisponibles(esp).isEmpty()) {
-                disponibles.add(esp);
+        for (Map.Entry<Especialidad, ColaMedicos> entrada : especialidades.entrySet()) {
+            if (entrada.getValue().hayDisponibles()) {
+                disponibles.add(entrada.getKey());
             }
         }
         
@@ -291,15 +595,16 @@ public class EspecialidadHashMap {
      * @return true si se actualizó exitosamente
      */
     public boolean configurarDisponibilidadMedico(int medicoId, boolean disponible) {
-        for (List<MedicoEspecialista> medicos : especialidades.values()) {
-            for (MedicoEspecialista me : medicos) {
-                if (me.getMedico().getId() == medicoId) {
-                    me.setDisponible(disponible);
-                    return true;
-                }
-            }
+        List<MedicoEspecialista> registros = medicosPorId.get(medicoId);
+        if (registros == null) {
+            return false;
         }
-        return false;
+        
+        // Aplica en todas las especialidades del médico
+        for (MedicoEspecialista me : registros) {
+            me.setDisponible(disponible);
+        }
+        return true;
     }
     
     /**
@@ -310,16 +615,38 @@ public class EspecialidadHashMap {
      * @return true si se configuró exitosamente
      */
     public boolean configurarHorarioMedico(int medicoId, LocalTime horaInicio, LocalTime horaFin) {
-        for (List<MedicoEspecialista> medicos : especialidades.values()) {
-            for (MedicoEspecialista me : medicos) {
-                if (me.getMedico().getId() == medicoId) {
-                    me.setHoraInicioTurno(horaInicio);
-                    me.setHoraFinTurno(horaFin);
-                    return true;
-                }
+        List<MedicoEspecialista> registros = medicosPorId.get(medicoId);
+        if (registros == null) {
+            return false;
+        }
+        
+        for (MedicoEspecialista me : registros) {
+            me.setHoraInicioTurno(horaInicio);
+            me.setHoraFinTurno(horaFin);
+        }
+        return true;
+    }
+    
+    /**
+     * Configura el horario y los días de turno de un médico (rol rotativo)
+     * @param medicoId ID del médico
+     * @param horaInicio Hora de inicio del turno
+     * @param horaFin Hora de fin del turno; si es anterior al inicio, el turno termina al día siguiente
+     * @param dias Días de la semana en los que inicia el turno
+     * @return true si se configuró exitosamente
+     */
+    public boolean configurarHorarioMedico(int medicoId, LocalTime horaInicio, LocalTime horaFin, Set<DayOfWeek> dias) {
+        if (dias == null || dias.isEmpty()) {
+            return false;
+        }
+        
+        boolean configurado = configurarHorarioMedico(medicoId, horaInicio, horaFin);
+        if (configurado) {
+            for (MedicoEspecialista me : medicosPorId.get(medicoId)) {
+                me.setDiasTurno(dias);
             }
         }
-        return false;
+        return configurado;
     }
     
     /**
@@ -328,15 +655,34 @@ public class EspecialidadHashMap {
      * @return true si se liberó exitosamente
      */
     public boolean liberarPacienteDeMedico(int medicoId) {
-        for (List<MedicoEspecialista> medicos : especialidades.values()) {
-            for (MedicoEspecialista me : medicos) {
-                if (me.getMedico().getId() == medicoId) {
-                    me.liberarPaciente();
-                    return true;
-                }
+        List<MedicoEspecialista> registros = medicosPorId.get(medicoId);
+        if (registros == null || registros.isEmpty()) {
+            return false;
+        }
+        
+        // Liberar en la primera especialidad donde el médico tenga pacientes
+        for (MedicoEspecialista me : registros) {
+            if (me.getPacientesAsignados() > 0) {
+                me.liberarPaciente();
+                return true;
             }
         }
-        return false;
+        return true;
+    }
+    
+    /**
+     * Libera un paciente de un médico en una especialidad específica
+     * @param especialidad La especialidad en la que se atendió al paciente
+     * @param medicoId ID del médico
+     * @return true si se liberó exitosamente
+     */
+    public boolean liberarPacienteDeMedico(Especialidad especialidad, int medicoId) {
+        MedicoEspecialista me = buscarMedico(especialidad, medicoId);
+        if (me == null) {
+            return false;
+        }
+        me.liberarPaciente();
+        return true;
     }
     
     /**
@@ -351,7 +697,7 @@ public class EspecialidadHashMap {
         int totalAsignaciones = 0;
         
         for (Especialidad esp : Especialidad.values()) {
-            List<MedicoEspecialista> medicos = especialidades.get(esp);
+            List<MedicoEspecialista> medicos = especialidades.get(esp).copia();
             int medicosEsp = medicos.size();
             long disponiblesEsp = medicos.stream()
                     .filter(MedicoEspecialista::estaDisponibleParaAsignacion)
@@ -403,7 +749,7 @@ public class EspecialidadHashMap {
         Map<Especialidad, Double> carga = new HashMap<>();
         
         for (Especialidad esp : especialidades.keySet()) {
-            List<MedicoEspecialista> medicos = especialidades.get(esp);
+            List<MedicoEspecialista> medicos = especialidades.get(esp).copia();
             
             if (!medicos.isEmpty()) {
                 double cargaPromedio = medicos.stream()
@@ -422,8 +768,8 @@ public class EspecialidadHashMap {
      * Reinicia las asignaciones de todos los médicos (nuevo turno)
      */
     public void reiniciarAsignaciones() {
-        for (List<MedicoEspecialista> medicos : especialidades.values()) {
-            for (MedicoEspecialista me : medicos) {
+        for (ColaMedicos cola : especialidades.values()) {
+            for (MedicoEspecialista me : cola.copia()) {
                 me.setPacientesAsignados(0);
             }
         }
@@ -434,48 +780,38 @@ public class EspecialidadHashMap {
         }
     }
     
+    /**
+     * Cuenta los médicos de una especialidad que pueden recibir pacientes en este momento
+     * @param especialidad La especialidad médica
+     * @return Número de médicos en turno, disponibles y con cupo
+     */
+    public int contarMedicosDisponibles(Especialidad especialidad) {
+        ColaMedicos cola = especialidades.get(especialidad);
+        return cola != null ? cola.contarDisponibles(LocalDateTime.now()) : 0;
+    }
+    
     /**
      * Obtiene recomendaciones de especialidad basadas en síntomas
      * @param sintomas Lista de síntomas del paciente
      * @return Lista de especialidades recomendadas ordenadas por relevancia
      */
     public List<Especialidad> recomendarEspecialidades(List<String> sintomas) {
-        // Implementación básica de recomendación basada en palabras clave
-        Map<Especialidad, Integer> puntuaciones = new HashMap<>();
-        
-        for (Especialidad esp : Especialidad.values()) {
-            puntuaciones.put(esp, 0);
+        if (sintomas == null || sintomas.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        // Lógica simple de matching por palabras clave
-        for (String sintoma : sintomas) {
-            String s = sintoma.toLowerCase();
-            
-            // Cardiología
-            if (s.contains("corazón") || s.contains("pecho") || s.contains("cardiaco")) {
-                puntuaciones.put(Especialidad.CARDIOLOGIA, puntuaciones.get(Especialidad.CARDIOLOGIA) + 3);
-            }
-            
-            // Neurología
-            if (s.contains("cabeza") || s.contains("mareo") || s.contains("neurológico")) {
-                puntuaciones.put(Especialidad.NEUROLOGIA, puntuaciones.get(Especialidad.NEUROLOGIA) + 3);
-            }
-            
-            // Neumología
-            if (s.contains("respiración") || s.contains("pulmón") || s.contains("tos")) {
-                puntuaciones.put(Especialidad.NEUMOLOGIA, puntuaciones.get(Especialidad.NEUMOLOGIA) + 3);
-            }
-            
-            // Añadir más reglas según necesidades...
-        }
-        
-        // Ordenar por puntuación y filtrar especialidades con médicos disponibles
-        return puntuaciones.entrySet().stream()
-                .filter(entry -> entry.getValue() > 0)
-                .filter(entry -> !obtenerMedicosDisponibles(entry.getKey()).isEmpty())
-                .sorted((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()))
-                .map(Map.Entry::getKey)
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return recomendarEspecialidades(String.join("\n", sintomas));
+    }
+    
+    /**
+     * Obtiene recomendaciones de especialidad a partir de texto libre (síntomas o motivo de consulta)
+     * Solo incluye especialidades con médicos disponibles en este momento
+     * @param texto Texto con los síntomas del paciente
+     * @return Lista de especialidades recomendadas ordenadas por relevancia
+     */
+    public List<Especialidad> recomendarEspecialidades(String texto) {
+        List<Especialidad> recomendadas = RecomendadorEspecialidades.getPredeterminado().recomendar(texto);
+        recomendadas.removeIf(esp -> contarMedicosDisponibles(esp) == 0);
+        return recomendadas;
     }
     
     @Override
@@ -484,7 +820,7 @@ public class EspecialidadHashMap {
         sb.append("EspecialidadHashMap - ").append(Especialidad.values().length).append(" especialidades:\\n");
         
         for (Especialidad esp : Especialidad.values()) {
-            List<MedicoEspecialista> medicos = especialidades.get(esp);
+            List<MedicoEspecialista> medicos = especialidades.get(esp).copia();
             long disponibles = medicos.stream().filter(MedicoEspecialista::estaDisponibleParaAsignacion).count();
             
             sb.append("  ").append(esp.getNombre())
@@ -0,0 +1,129 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom para cadenas
+ * Responde en memoria si un valor "definitivamente no existe" o "podría existir";
+ * nunca da falsos negativos, solo falsos positivos con la tasa configurada
+ * Las inserciones son seguras entre hilos y sin bloqueos (AtomicLongArray)
+ * No admite eliminaciones: un valor eliminado solo genera falsos positivos
+ */
+public class FiltroBloom {
+    
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int numeroHashes;
+    private final long capacidad;
+    private final LongAdder elementos;
+    
+    /**
+     * Crea un filtro dimensionado para una capacidad y tasa de falsos positivos
+     * @param capacidad Número esperado de elementos
+     * @param tasaFalsosPositivos Probabilidad deseada de falso positivo (p. ej. 0.01)
+     */
+    public FiltroBloom(long capacidad, double tasaFalsosPositivos) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        if (tasaFalsosPositivos <= 0 || tasaFalsosPositivos >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        
+        // m = -n ln(p) / (ln 2)^2, k = m/n ln 2
+        long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+        this.numeroBits = m;
+        this.numeroHashes = Math.max(1, (int) Math.round((double) m / capacidad * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (m / 64));
+        this.capacidad = capacidad;
+        this.elementos = new LongAdder();
+    }
+    
+    /**
+     * Agrega un valor al filtro
+     * @param valor Valor a agregar (se ignoran nulos y vacíos)
+     */
+    public void agregar(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        
+        for (int i = 1; i <= numeroHashes; i++) {
+            long posicion = Math.floorMod(h1 + (long) i * h2, numeroBits);
+            int indice = (int) (posicion >>> 6);
+            long mascara = 1L << (posicion & 63);
+            
+            long actual = bits.get(indice);
+            while ((actual & mascara) == 0 && !bits.compareAndSet(indice, actual, actual | mascara)) {
+                actual = bits.get(indice);
+            }
+        }
+        elementos.increment();
+    }
+    
+    /**
+     * Verifica si un valor podría estar en el filtro
+     * @param valor Valor a verificar
+     * @return false si el valor definitivamente no fue agregado; true si podría haberlo sido
+     */
+    public boolean podriaContener(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return false;
+        }
+        
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        
+        for (int i = 1; i <= numeroHashes; i++) {
+            long posicion = Math.floorMod(h1 + (long) i * h2, numeroBits);
+            if ((bits.get((int) (posicion >>> 6)) & (1L << (posicion & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Indica si el filtro superó la capacidad para la que fue dimensionado
+     * (la tasa de falsos positivos empieza a crecer y conviene reconstruirlo)
+     */
+    public boolean estaSaturado() {
+        return elementos.sum() > capacidad;
+    }
+    
+    public long getElementos() { return elementos.sum(); }
+    public long getCapacidad() { return capacidad; }
+    public long getNumeroBits() { return numeroBits; }
+    public int getNumeroHashes() { return numeroHashes; }
+    
+    /**
+     * Hash de 64 bits (FNV-1a con mezcla final) sobre los caracteres del valor
+     */
+    private static long hash64(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // Mezcla final para repartir los bits altos y bajos
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("FiltroBloom - Elementos: %d/%d, Bits: %d, Hashes: %d",
+                             getElementos(), capacidad, numeroBits, numeroHashes);
+    }
+}
@@ -161,6 +161,17 @@ public class HospitalGraph {
         }
     }
     
+    /**
+     * Obtiene los tiempos registrados de una transición
+     * @param origen Estado origen
+     * @param destino Estado destino
+     * @return Copia de los tiempos en minutos, vacía si la transición no existe o no tiene registros
+     */
+    public List<Integer> obtenerTiemposTransicion(EstadoPaciente origen, EstadoPaciente destino) {
+        List<Integer> tiempos = tiemposTransicion.get(origen.name() + "_" + destino.name());
+        return tiempos != null ? new ArrayList<>(tiempos) : new ArrayList<>();
+    }
+    
     /**
      * Calcula la ruta más rápida entre dos estados
      * @param origen Estado origen
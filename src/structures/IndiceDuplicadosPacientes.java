@@ -0,0 +1,578 @@
+package structures;
+
+import models.Paciente;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de bloques para detectar posibles pacientes duplicados
+ * Cada paciente se agrupa bajo varias claves de bloque (clave fonética del nombre,
+ * fecha de nacimiento, teléfono y prefijo de CURP); solo se comparan pacientes que
+ * comparten algún bloque, y cada candidato recibe una puntuación de similitud
+ * Se mantiene de forma incremental al registrar y actualizar pacientes
+ */
+public class IndiceDuplicadosPacientes {
+    
+    // Umbral por defecto para considerar a dos pacientes como posibles duplicados
+    public static final double UMBRAL_DEFAULT = 0.75;
+    
+    // Bloques más grandes se ignoran en la detección masiva (p. ej. teléfonos genéricos)
+    private static final int MAX_TAMAÑO_BLOQUE = 200;
+    
+    /**
+     * Datos normalizados de un paciente dentro del índice
+     */
+    private static class Entrada {
+        final int id;
+        final String numeroExpediente;
+        final String nombreCompleto;
+        final String nombre;
+        final String apellidoPaterno;
+        final String apellidoMaterno;
+        final LocalDate fechaNacimiento;
+        final String telefono;
+        final String curp;
+        final List<String> claves;
+        
+        Entrada(Paciente paciente) {
+            this.id = paciente.getId();
+            this.numeroExpediente = paciente.getNumeroExpediente();
+            this.nombreCompleto = paciente.getNombreCompleto();
+            this.nombre = normalizar(paciente.getNombre());
+            this.apellidoPaterno = normalizar(paciente.getApellidoPaterno());
+            this.apellidoMaterno = normalizar(paciente.getApellidoMaterno());
+            this.fechaNacimiento = paciente.getFechaNacimiento();
+            this.telefono = soloDigitos(paciente.getTelefonoPrincipal());
+            this.curp = paciente.getCurp() != null ? paciente.getCurp().trim().toUpperCase() : "";
+            this.claves = generarClaves(this);
+        }
+    }
+    
+    private final Map<Integer, Entrada> entradas;
+    private final Map<String, Set<Integer>> bloques;
+    
+    /**
+     * Constructor del índice vacío
+     */
+    public IndiceDuplicadosPacientes() {
+        this.entradas = new HashMap<>();
+        this.bloques = new HashMap<>();
+    }
+    
+    /**
+     * Agrega un paciente al índice (si ya existía se reemplaza)
+     * @param paciente Paciente con ID asignado
+     */
+    public synchronized void agregar(Paciente paciente) {
+        if (paciente == null || paciente.getId() <= 0) {
+            throw new IllegalArgumentException("El paciente debe tener un ID válido");
+        }
+        
+        eliminar(paciente.getId());
+        
+        Entrada entrada = new Entrada(paciente);
+        entradas.put(entrada.id, entrada);
+        for (String clave : entrada.claves) {
+            bloques.computeIfAbsent(clave, k -> new HashSet<>()).add(entrada.id);
+        }
+    }
+    
+    /**
+     * Actualiza un paciente recalculando sus claves de bloque
+     * @param paciente Paciente con los datos nuevos
+     */
+    public void actualizar(Paciente paciente) {
+        agregar(paciente);
+    }
+    
+    /**
+     * Elimina un paciente del índice
+     * @param pacienteId ID del paciente
+     * @return true si estaba en el índice
+     */
+    public synchronized boolean eliminar(int pacienteId) {
+        Entrada entrada = entradas.remove(pacienteId);
+        if (entrada == null) {
+            return false;
+        }
+        
+        for (String clave : entrada.claves) {
+            Set<Integer> bloque = bloques.get(clave);
+            if (bloque != null) {
+                bloque.remove(pacienteId);
+                if (bloque.isEmpty()) {
+                    bloques.remove(clave);
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Busca posibles duplicados de un paciente (registrado o por registrar)
+     * @param paciente Paciente a comparar; su propio ID se excluye de los resultados
+     * @param umbral Puntuación mínima entre 0 y 1
+     * @return Candidatos ordenados de mayor a menor similitud
+     */
+    public synchronized List<CandidatoDuplicado> buscarCandidatos(Paciente paciente, double umbral) {
+        List<CandidatoDuplicado> candidatos = new ArrayList<>();
+        if (paciente == null) {
+            return candidatos;
+        }
+        
+        Entrada consulta = new Entrada(paciente);
+        Set<Integer> revisados = new HashSet<>();
+        
+        for (String clave : consulta.claves) {
+            Set<Integer> bloque = bloques.get(clave);
+            if (bloque == null) {
+                continue;
+            }
+            for (Integer id : bloque) {
+                if (id == consulta.id || !revisados.add(id)) {
+                    continue;
+                }
+                Entrada otra = entradas.get(id);
+                List<String> motivos = new ArrayList<>();
+                double puntuacion = calcularSimilitud(consulta, otra, motivos);
+                if (puntuacion >= umbral) {
+                    candidatos.add(new CandidatoDuplicado(otra.id, otra.numeroExpediente, otra.nombreCompleto,
+                                                          puntuacion, motivos));
+                }
+            }
+        }
+        
+        candidatos.sort((a, b) -> Double.compare(b.getPuntuacion(), a.getPuntuacion()));
+        return candidatos;
+    }
+    
+    /**
+     * Busca posibles duplicados con el umbral por defecto
+     */
+    public List<CandidatoDuplicado> buscarCandidatos(Paciente paciente) {
+        return buscarCandidatos(paciente, UMBRAL_DEFAULT);
+    }
+    
+    /**
+     * Recorre todos los bloques y devuelve los pares de posibles duplicados del censo
+     * Cada par se reporta una sola vez aunque compartan varios bloques
+     * @param umbral Puntuación mínima entre 0 y 1
+     * @return Pares ordenados de mayor a menor similitud
+     */
+    public synchronized List<ParDuplicado> detectarDuplicados(double umbral) {
+        List<ParDuplicado> pares = new ArrayList<>();
+        Set<Long> revisados = new HashSet<>();
+        
+        for (Set<Integer> bloque : bloques.values()) {
+            if (bloque.size() < 2 || bloque.size() > MAX_TAMAÑO_BLOQUE) {
+                continue;
+            }
+            
+            Integer[] ids = bloque.toArray(new Integer[0]);
+            for (int i = 0; i < ids.length; i++) {
+                for (int j = i + 1; j < ids.length; j++) {
+                    int menor = Math.min(ids[i], ids[j]);
+                    int mayor = Math.max(ids[i], ids[j]);
+                    if (!revisados.add(((long) menor << 32) | mayor)) {
+                        continue;
+                    }
+                    
+                    List<String> motivos = new ArrayList<>();
+                    double puntuacion = calcularSimilitud(entradas.get(menor), entradas.get(mayor), motivos);
+                    if (puntuacion >= umbral) {
+                        pares.add(new ParDuplicado(menor, mayor, puntuacion, motivos));
+                    }
+                }
+            }
+        }
+        
+        pares.sort((a, b) -> Double.compare(b.getPuntuacion(), a.getPuntuacion()));
+        return pares;
+    }
+    
+    /**
+     * Obtiene el número de pacientes indexados
+     */
+    public synchronized int tamaño() {
+        return entradas.size();
+    }
+    
+    /**
+     * Obtiene el número de bloques distintos
+     */
+    public synchronized int numeroBloques() {
+        return bloques.size();
+    }
+    
+    /**
+     * Limpia completamente el índice
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+        bloques.clear();
+    }
+    
+    // Cálculo de similitud
+    
+    /**
+     * Calcula la similitud entre dos pacientes combinando nombre, fecha de nacimiento y teléfono
+     * Un CURP idéntico se considera coincidencia total
+     */
+    private static double calcularSimilitud(Entrada a, Entrada b, List<String> motivos) {
+        if (!a.curp.isEmpty() && a.curp.equals(b.curp)) {
+            motivos.add("Mismo CURP");
+            return 1.0;
+        }
+        
+        // Nombre: nombre de pila, apellido paterno y materno (si ambos lo tienen)
+        double simNombre = jaroWinkler(a.nombre, b.nombre);
+        double simPaterno = jaroWinkler(a.apellidoPaterno, b.apellidoPaterno);
+        double similitudNombre;
+        if (!a.apellidoMaterno.isEmpty() && !b.apellidoMaterno.isEmpty()) {
+            double simMaterno = jaroWinkler(a.apellidoMaterno, b.apellidoMaterno);
+            similitudNombre = 0.35 * simNombre + 0.45 * simPaterno + 0.20 * simMaterno;
+        } else {
+            similitudNombre = 0.45 * simNombre + 0.55 * simPaterno;
+        }
+        if (similitudNombre >= 0.85) {
+            motivos.add(String.format("Nombre similar (%.0f%%)", similitudNombre * 100));
+        }
+        
+        // Fecha de nacimiento: exacta, o con un solo componente distinto / día y mes invertidos
+        double similitudFecha = 0.0;
+        if (a.fechaNacimiento != null && b.fechaNacimiento != null) {
+            if (a.fechaNacimiento.equals(b.fechaNacimiento)) {
+                similitudFecha = 1.0;
+                motivos.add("Misma fecha de nacimiento");
+            } else if (fechasParecidas(a.fechaNacimiento, b.fechaNacimiento)) {
+                similitudFecha = 0.5;
+                motivos.add("Fecha de nacimiento parecida");
+            }
+        }
+        
+        // Teléfono: solo aporta si ambos lo tienen
+        if (!a.telefono.isEmpty() && !b.telefono.isEmpty()) {
+            double similitudTelefono = a.telefono.equals(b.telefono) ? 1.0 : 0.0;
+            if (similitudTelefono > 0) {
+                motivos.add("Mismo teléfono");
+            }
+            return 0.5 * similitudNombre + 0.3 * similitudFecha + 0.2 * similitudTelefono;
+        }
+        
+        return 0.6 * similitudNombre + 0.4 * similitudFecha;
+    }
+    
+    private static boolean fechasParecidas(LocalDate a, LocalDate b) {
+        int iguales = (a.getYear() == b.getYear() ? 1 : 0)
+                    + (a.getMonthValue() == b.getMonthValue() ? 1 : 0)
+                    + (a.getDayOfMonth() == b.getDayOfMonth() ? 1 : 0);
+        boolean invertidas = a.getYear() == b.getYear()
+                          && a.getMonthValue() == b.getDayOfMonth()
+                          && a.getDayOfMonth() == b.getMonthValue();
+        return iguales == 2 || invertidas;
+    }
+    
+    /**
+     * Similitud de Jaro-Winkler entre dos cadenas (1.0 = idénticas)
+     */
+    static double jaroWinkler(String s1, String s2) {
+        if (s1.isEmpty() && s2.isEmpty()) {
+            return 1.0;
+        }
+        if (s1.isEmpty() || s2.isEmpty()) {
+            return 0.0;
+        }
+        if (s1.equals(s2)) {
+            return 1.0;
+        }
+        
+        int ventana = Math.max(0, Math.max(s1.length(), s2.length()) / 2 - 1);
+        boolean[] coincide1 = new boolean[s1.length()];
+        boolean[] coincide2 = new boolean[s2.length()];
+        int coincidencias = 0;
+        
+        for (int i = 0; i < s1.length(); i++) {
+            int desde = Math.max(0, i - ventana);
+            int hasta = Math.min(i + ventana + 1, s2.length());
+            for (int j = desde; j < hasta; j++) {
+                if (!coincide2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    coincide1[i] = true;
+                    coincide2[j] = true;
+                    coincidencias++;
+                    break;
+                }
+            }
+        }
+        
+        if (coincidencias == 0) {
+            return 0.0;
+        }
+        
+        int transposiciones = 0;
+        int k = 0;
+        for (int i = 0; i < s1.length(); i++) {
+            if (coincide1[i]) {
+                while (!coincide2[k]) {
+                    k++;
+                }
+                if (s1.charAt(i) != s2.charAt(k)) {
+                    transposiciones++;
+                }
+                k++;
+            }
+        }
+        
+        double m = coincidencias;
+        double jaro = (m / s1.length() + m / s2.length() + (m - transposiciones / 2.0) / m) / 3.0;
+        
+        int prefijo = 0;
+        while (prefijo < Math.min(4, Math.min(s1.length(), s2.length()))
+               && s1.charAt(prefijo) == s2.charAt(prefijo)) {
+            prefijo++;
+        }
+        
+        return jaro + prefijo * 0.1 * (1.0 - jaro);
+    }
+    
+    // Claves de bloque
+    
+    private static List<String> generarClaves(Entrada entrada) {
+        Set<String> claves = new LinkedHashSet<>();
+        String fonNombre = claveFonetica(primeraPalabra(entrada.nombre));
+        String fonPaterno = claveFonetica(entrada.apellidoPaterno);
+        
+        if (!fonPaterno.isEmpty() && entrada.fechaNacimiento != null) {
+            claves.add("F:" + fonPaterno + ":" + entrada.fechaNacimiento);
+        }
+        if (!fonNombre.isEmpty() && entrada.fechaNacimiento != null) {
+            claves.add("M:" + fonNombre + ":" + entrada.fechaNacimiento);
+        }
+        if (!fonNombre.isEmpty() && !fonPaterno.isEmpty()) {
+            int anio = entrada.fechaNacimiento != null ? entrada.fechaNacimiento.getYear() : 0;
+            claves.add("N:" + fonNombre + fonPaterno + ":" + anio);
+        }
+        if (entrada.telefono.length() == 10) {
+            claves.add("T:" + entrada.telefono);
+        }
+        if (entrada.curp.length() >= 10) {
+            // Iniciales y fecha de nacimiento codificadas en el CURP
+            claves.add("C:" + entrada.curp.substring(0, 10));
+        }
+        
+        return new ArrayList<>(claves);
+    }
+    
+    /**
+     * Genera una clave fonética aproximada para nombres en español
+     * Unifica grafías que suenan igual (B/V, C/S/Z, K/Q, G/J, LL/Y, H muda),
+     * conserva la primera letra y elimina las vocales siguientes y letras repetidas
+     * @param texto Texto ya normalizado (mayúsculas, sin acentos)
+     * @return Clave de hasta 6 caracteres
+     */
+    public static String claveFonetica(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        
+        String palabra = normalizar(texto);
+        StringBuilder sonidos = new StringBuilder(palabra.length());
+        
+        for (int i = 0; i < palabra.length(); i++) {
+            char c = palabra.charAt(i);
+            char siguiente = i + 1 < palabra.length() ? palabra.charAt(i + 1) : ' ';
+            char sigSiguiente = i + 2 < palabra.length() ? palabra.charAt(i + 2) : ' ';
+            
+            switch (c) {
+                case 'C':
+                    if (siguiente == 'H') {
+                        sonidos.append('C'); // CH conserva su propio sonido
+                        i++;
+                    } else if (siguiente == 'E' || siguiente == 'I') {
+                        sonidos.append('S');
+                    } else {
+                        sonidos.append('K');
+                    }
+                    break;
+                case 'Q':
+                    sonidos.append('K');
+                    if (siguiente == 'U') {
+                        i++;
+                    }
+                    break;
+                case 'G':
+                    if (siguiente == 'E' || siguiente == 'I') {
+                        sonidos.append('J');
+                    } else if (siguiente == 'U' && (sigSiguiente == 'E' || sigSiguiente == 'I')) {
+                        sonidos.append('G');
+                        i++;
+                    } else {
+                        sonidos.append('G');
+                    }
+                    break;
+                case 'L':
+                    if (siguiente == 'L') {
+                        sonidos.append('Y');
+                        i++;
+                    } else {
+                        sonidos.append('L');
+                    }
+                    break;
+                case 'P':
+                    if (siguiente == 'H') {
+                        sonidos.append('F');
+                        i++;
+                    } else {
+                        sonidos.append('P');
+                    }
+                    break;
+                case 'H':
+                    break; // H muda
+                case 'V':
+                    sonidos.append('B');
+                    break;
+                case 'Z':
+                    sonidos.append('S');
+                    break;
+                case 'W':
+                    sonidos.append('U');
+                    break;
+                case 'X':
+                    // Al inicio suele sonar como J o S (Ximena, Xóchitl)
+                    sonidos.append(i == 0 ? 'J' : 'X');
+                    break;
+                case 'Y':
+                    // Y como vocal (al final o antes de consonante)
+                    boolean esVocal = siguiente == ' ' || "AEIOU".indexOf(siguiente) < 0;
+                    sonidos.append(esVocal ? 'I' : 'Y');
+                    break;
+                default:
+                    if (c >= 'A' && c <= 'Z') {
+                        sonidos.append(c);
+                    }
+                    break;
+            }
+        }
+        
+        // Conservar la primera letra, quitar vocales posteriores y repeticiones
+        StringBuilder clave = new StringBuilder(6);
+        for (int i = 0; i < sonidos.length() && clave.length() < 6; i++) {
+            char c = sonidos.charAt(i);
+            if (i > 0 && "AEIOU".indexOf(c) >= 0) {
+                continue;
+            }
+            if (clave.length() > 0 && clave.charAt(clave.length() - 1) == c) {
+                continue;
+            }
+            clave.append(c);
+        }
+        
+        return clave.toString();
+    }
+    
+    // Métodos auxiliares de normalización
+    
+    private static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = Normalizer.normalize(texto.trim().toUpperCase(), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(sinAcentos.length());
+        for (int i = 0; i < sinAcentos.length(); i++) {
+            char c = sinAcentos.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || c == ' ') {
+                sb.append(c);
+            }
+        }
+        return sb.toString().replaceAll(" +", " ").trim();
+    }
+    
+    private static String primeraPalabra(String texto) {
+        int espacio = texto.indexOf(' ');
+        return espacio > 0 ? texto.substring(0, espacio) : texto;
+    }
+    
+    private static String soloDigitos(String telefono) {
+        if (telefono == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(10);
+        for (int i = 0; i < telefono.length(); i++) {
+            char c = telefono.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        // Quitar código de país
+        if (sb.length() == 12 && sb.charAt(0) == '5' && sb.charAt(1) == '2') {
+            sb.delete(0, 2);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Posible duplicado de un paciente consultado
+     */
+    public static class CandidatoDuplicado {
+        private final int pacienteId;
+        private final String numeroExpediente;
+        private final String nombreCompleto;
+        private final double puntuacion;
+        private final List<String> motivos;
+        
+        public CandidatoDuplicado(int pacienteId, String numeroExpediente, String nombreCompleto,
+                                  double puntuacion, List<String> motivos) {
+            this.pacienteId = pacienteId;
+            this.numeroExpediente = numeroExpediente;
+            this.nombreCompleto = nombreCompleto;
+            this.puntuacion = puntuacion;
+            this.motivos = motivos;
+        }
+        
+        public int getPacienteId() { return pacienteId; }
+        public String getNumeroExpediente() { return numeroExpediente; }
+        public String getNombreCompleto() { return nombreCompleto; }
+        public double getPuntuacion() { return puntuacion; }
+        public List<String> getMotivos() { return motivos; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s - %s (%.0f%%: %s)", numeroExpediente, nombreCompleto,
+                                 puntuacion * 100, String.join(", ", motivos));
+        }
+    }
+    
+    /**
+     * Par de pacientes del censo que podrían ser la misma persona
+     */
+    public static class ParDuplicado {
+        private final int pacienteId1;
+        private final int pacienteId2;
+        private final double puntuacion;
+        private final List<String> motivos;
+        
+        public ParDuplicado(int pacienteId1, int pacienteId2, double puntuacion, List<String> motivos) {
+            this.pacienteId1 = pacienteId1;
+            this.pacienteId2 = pacienteId2;
+            this.puntuacion = puntuacion;
+            this.motivos = motivos;
+        }
+        
+        public int getPacienteId1() { return pacienteId1; }
+        public int getPacienteId2() { return pacienteId2; }
+        public double getPuntuacion() { return puntuacion; }
+        public List<String> getMotivos() { return motivos; }
+        
+        @Override
+        public String toString() {
+            return String.format("Pacientes %d y %d (%.0f%%: %s)", pacienteId1, pacienteId2,
+                                 puntuacion * 100, String.join(", ", motivos));
+        }
+    }
+}
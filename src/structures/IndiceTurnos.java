@@ -0,0 +1,257 @@
+package structures;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Índice de turnos médicos sobre la semana dividida en minutos
+ * Los turnos de cada médico se convierten en intervalos [inicio, fin) de minutos de la semana;
+ * con todos los extremos se forma una lista ordenada de segmentos en los que el conjunto de
+ * médicos en turno no cambia. Una consulta "quién está en turno en t" es una búsqueda binaria
+ * sobre los segmentos, y el inicio del siguiente segmento es el próximo cambio de turno
+ * Admite turnos nocturnos (fin anterior al inicio) y días laborales por médico
+ * Precisión de minuto: la hora de fin se incluye completa (08:00-18:00 cubre hasta 18:00:59)
+ */
+public class IndiceTurnos {
+    
+    private static final int MINUTOS_DIA = 24 * 60;
+    private static final int MINUTOS_SEMANA = 7 * MINUTOS_DIA;
+    
+    /**
+     * Turno semanal de un médico
+     */
+    private static class Turno {
+        final LocalTime inicio;
+        final LocalTime fin;
+        final EnumSet<DayOfWeek> dias;
+        
+        Turno(LocalTime inicio, LocalTime fin, Set<DayOfWeek> dias) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.dias = dias == null || dias.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : EnumSet.copyOf(dias);
+        }
+    }
+    
+    /**
+     * Segmentación inmutable de la semana; se reemplaza completa al cambiar un turno
+     */
+    private static class Segmentos {
+        final int[] inicios;       // Minuto de la semana donde empieza cada segmento (inicios[0] == 0)
+        final BitSet[] enTurno;    // Posiciones de los médicos en turno durante cada segmento
+        final int[] medicoPorPosicion;
+        final Map<Integer, Integer> posicionPorMedico;
+        
+        Segmentos(int[] inicios, BitSet[] enTurno, int[] medicoPorPosicion, Map<Integer, Integer> posicionPorMedico) {
+            this.inicios = inicios;
+            this.enTurno = enTurno;
+            this.medicoPorPosicion = medicoPorPosicion;
+            this.posicionPorMedico = posicionPorMedico;
+        }
+        
+        int buscar(int minutoSemana) {
+            int posicion = Arrays.binarySearch(inicios, minutoSemana);
+            return posicion >= 0 ? posicion : -posicion - 2;
+        }
+    }
+    
+    private final Map<Integer, Turno> turnos = new LinkedHashMap<>();
+    private volatile Segmentos segmentos;
+    
+    /**
+     * Define o reemplaza el turno de un médico para todos los días de la semana
+     * @param medicoId ID del médico
+     * @param inicio Hora de inicio del turno
+     * @param fin Hora de fin del turno (si es anterior al inicio, el turno termina al día siguiente)
+     */
+    public void definirTurno(int medicoId, LocalTime inicio, LocalTime fin) {
+        definirTurno(medicoId, inicio, fin, null);
+    }
+    
+    /**
+     * Define o reemplaza el turno de un médico
+     * @param medicoId ID del médico
+     * @param inicio Hora de inicio del turno
+     * @param fin Hora de fin del turno (si es anterior al inicio, el turno termina al día siguiente)
+     * @param dias Días en los que inicia el turno (null o vacío = todos)
+     */
+    public synchronized void definirTurno(int medicoId, LocalTime inicio, LocalTime fin, Set<DayOfWeek> dias) {
+        if (inicio == null || fin == null) {
+            throw new IllegalArgumentException("El turno requiere hora de inicio y fin");
+        }
+        turnos.put(medicoId, new Turno(inicio, fin, dias));
+        segmentos = null;
+    }
+    
+    /**
+     * Elimina el turno de un médico
+     * @param medicoId ID del médico
+     * @return true si el médico tenía turno registrado
+     */
+    public synchronized boolean eliminar(int medicoId) {
+        boolean existia = turnos.remove(medicoId) != null;
+        if (existia) {
+            segmentos = null;
+        }
+        return existia;
+    }
+    
+    /**
+     * Verifica si un médico está en turno en un instante
+     * @param medicoId ID del médico
+     * @param momento Instante a consultar
+     * @return true si el médico está en turno
+     */
+    public boolean estaEnTurno(int medicoId, LocalDateTime momento) {
+        Segmentos actual = obtenerSegmentos();
+        Integer posicion = actual.posicionPorMedico.get(medicoId);
+        return posicion != null && actual.enTurno[actual.buscar(minutoSemana(momento))].get(posicion);
+    }
+    
+    /**
+     * Obtiene los médicos en turno en un instante
+     * @param momento Instante a consultar
+     * @return IDs de los médicos en turno, en orden de registro
+     */
+    public List<Integer> medicosEnTurno(LocalDateTime momento) {
+        Segmentos actual = obtenerSegmentos();
+        BitSet enTurno = actual.enTurno[actual.buscar(minutoSemana(momento))];
+        
+        List<Integer> medicos = new ArrayList<>(enTurno.cardinality());
+        for (int i = enTurno.nextSetBit(0); i >= 0; i = enTurno.nextSetBit(i + 1)) {
+            medicos.add(actual.medicoPorPosicion[i]);
+        }
+        return medicos;
+    }
+    
+    /**
+     * Calcula el siguiente instante en que algún médico entra o sale de turno
+     * @param momento Instante de referencia
+     * @return Inicio del siguiente cambio de turno, o null si el conjunto de médicos
+     *         en turno nunca cambia (sin turnos o turnos de semana completa)
+     */
+    public LocalDateTime siguienteCambio(LocalDateTime momento) {
+        Segmentos actual = obtenerSegmentos();
+        if (actual.inicios.length <= 1) {
+            return null;
+        }
+        
+        int minuto = minutoSemana(momento);
+        int segmento = actual.buscar(minuto);
+        BitSet conjunto = actual.enTurno[segmento];
+        int total = actual.inicios.length;
+        
+        // Avanzar por los segmentos (dando la vuelta a la semana) hasta que cambie el conjunto
+        for (int paso = 1; paso <= total; paso++) {
+            int indice = (segmento + paso) % total;
+            if (!actual.enTurno[indice].equals(conjunto)) {
+                int vueltas = (segmento + paso) / total;
+                int destino = vueltas * MINUTOS_SEMANA + actual.inicios[indice];
+                return momento.truncatedTo(ChronoUnit.MINUTES).plusMinutes(destino - minuto);
+            }
+        }
+        return null;
+    }
+    
+    public synchronized int getNumeroTurnos() {
+        return turnos.size();
+    }
+    
+    public int getNumeroSegmentos() {
+        return obtenerSegmentos().inicios.length;
+    }
+    
+    // Métodos auxiliares privados
+    
+    private Segmentos obtenerSegmentos() {
+        Segmentos actual = segmentos;
+        if (actual == null) {
+            synchronized (this) {
+                actual = segmentos;
+                if (actual == null) {
+                    actual = construirSegmentos();
+                    segmentos = actual;
+                }
+            }
+        }
+        return actual;
+    }
+    
+    /**
+     * Reconstruye los segmentos a partir de los intervalos de todos los turnos
+     * Costo O(t log t) con t = número de intervalos; solo ocurre cuando cambia un turno
+     */
+    private Segmentos construirSegmentos() {
+        Map<Integer, Integer> posicionPorMedico = new HashMap<>();
+        int[] medicoPorPosicion = new int[turnos.size()];
+        
+        // Intervalos [inicio, fin) en minutos de la semana, partidos si cruzan el fin de semana
+        List<int[]> intervalos = new ArrayList<>();
+        TreeSet<Integer> extremos = new TreeSet<>();
+        extremos.add(0);
+        
+        int posicion = 0;
+        for (Map.Entry<Integer, Turno> entrada : turnos.entrySet()) {
+            medicoPorPosicion[posicion] = entrada.getKey();
+            posicionPorMedico.put(entrada.getKey(), posicion);
+            
+            Turno turno = entrada.getValue();
+            int inicio = turno.inicio.getHour() * 60 + turno.inicio.getMinute();
+            int fin = turno.fin.getHour() * 60 + turno.fin.getMinute() + 1;
+            if (fin <= inicio) {
+                fin += MINUTOS_DIA; // Turno nocturno
+            }
+            
+            for (DayOfWeek dia : turno.dias) {
+                int base = (dia.getValue() - 1) * MINUTOS_DIA;
+                int desde = base + inicio;
+                int hasta = base + fin;
+                if (hasta <= MINUTOS_SEMANA) {
+                    intervalos.add(new int[] { posicion, desde, hasta });
+                } else {
+                    intervalos.add(new int[] { posicion, desde, MINUTOS_SEMANA });
+                    intervalos.add(new int[] { posicion, 0, hasta - MINUTOS_SEMANA });
+                }
+            }
+            posicion++;
+        }
+        
+        for (int[] intervalo : intervalos) {
+            extremos.add(intervalo[1]);
+            if (intervalo[2] < MINUTOS_SEMANA) {
+                extremos.add(intervalo[2]);
+            }
+        }
+        
+        int[] inicios = new int[extremos.size()];
+        int i = 0;
+        for (int extremo : extremos) {
+            inicios[i++] = extremo;
+        }
+        
+        BitSet[] enTurno = new BitSet[inicios.length];
+        for (int s = 0; s < inicios.length; s++) {
+            enTurno[s] = new BitSet(medicoPorPosicion.length);
+        }
+        for (int[] intervalo : intervalos) {
+            int desde = Arrays.binarySearch(inicios, intervalo[1]);
+            for (int s = desde; s < inicios.length && inicios[s] < intervalo[2]; s++) {
+                enTurno[s].set(intervalo[0]);
+            }
+        }
+        
+        return new Segmentos(inicios, enTurno, medicoPorPosicion, posicionPorMedico);
+    }
+    
+    private static int minutoSemana(LocalDateTime momento) {
+        return (momento.getDayOfWeek().getValue() - 1) * MINUTOS_DIA
+             + momento.getHour() * 60 + momento.getMinute();
+    }
+    
+    @Override
+    public String toString() {
+        return "IndiceTurnos - Turnos: " + getNumeroTurnos() + ", Segmentos: " + getNumeroSegmentos();
+    }
+}
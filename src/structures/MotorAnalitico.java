@@ -0,0 +1,339 @@
+package structures;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agregaciones sobre segmentos columnares (ver SegmentoColumnar)
+ * Los segmentos se recorren en paralelo en el ForkJoinPool común y cada uno produce un
+ * resultado parcial que después se combina
+ * Dentro de un segmento el filtro de fechas se evalúa por bloques de TAMAÑO_VECTOR filas:
+ * primero se llena un vector de selección sin saltos condicionales y luego se agregan solo
+ * las filas seleccionadas, de modo que los ciclos internos trabajan sobre arreglos primitivos
+ * Un segmento cuyo rango de fechas queda fuera del filtro se descarta sin leerlo, y uno que
+ * queda completamente dentro se agrega sin evaluar el filtro
+ */
+public final class MotorAnalitico {
+    
+    static final int TAMAÑO_VECTOR = 1024;
+    
+    private MotorAnalitico() {
+    }
+    
+    /**
+     * Filtro por intervalo semiabierto [desde, hasta) sobre una columna FECHA_HORA
+     * Las filas con fecha nula no cumplen el filtro
+     */
+    public record RangoFechas(String columna, LocalDateTime desde, LocalDateTime hasta) {
+        
+        /**
+         * Días completos de fechaInicio a fechaFin, ambos incluidos (como DATE(col) BETWEEN ? AND ?)
+         */
+        public static RangoFechas dias(String columna, LocalDate fechaInicio, LocalDate fechaFin) {
+            return new RangoFechas(columna, fechaInicio.atStartOfDay(), fechaFin.plusDays(1).atStartOfDay());
+        }
+    }
+    
+    /**
+     * Agregado de una columna entera dentro de un grupo
+     * Como en SQL, conteo, suma, mínimo y máximo ignoran los valores nulos; filas los incluye
+     */
+    public static final class Agregado {
+        public long filas;
+        public long conteo;
+        public long suma;
+        public int minimo = Integer.MAX_VALUE;
+        public int maximo = Integer.MIN_VALUE;
+        
+        /**
+         * @return Promedio de los valores no nulos, o null si no hay ninguno (AVG de SQL)
+         */
+        public Double promedio() {
+            return conteo > 0 ? (double) suma / conteo : null;
+        }
+        
+        private Agregado combinar(Agregado otro) {
+            filas += otro.filas;
+            conteo += otro.conteo;
+            suma += otro.suma;
+            minimo = Math.min(minimo, otro.minimo);
+            maximo = Math.max(maximo, otro.maximo);
+            return this;
+        }
+    }
+    
+    /**
+     * Cuenta filas por valor de una columna de diccionario (GROUP BY col, COUNT(*))
+     * @param segmentos Segmentos de la tabla
+     * @param columnaGrupo Columna DICCIONARIO
+     * @param rango Filtro de fechas, o null para todas las filas
+     * @return Conteo por valor (la llave null agrupa los nulos)
+     */
+    public static Map<String, Long> contarPor(List<SegmentoColumnar> segmentos, String columnaGrupo, RangoFechas rango) {
+        return segmentos.parallelStream()
+            .map(segmento -> contarEnSegmento(segmento, columnaGrupo, rango))
+            .reduce(new HashMap<>(), MotorAnalitico::sumarConteos);
+    }
+    
+    /**
+     * Agrega una columna entera por valor de una columna de diccionario
+     * (GROUP BY grupo con COUNT, SUM, AVG, MIN y MAX de valor)
+     * @param segmentos Segmentos de la tabla
+     * @param columnaGrupo Columna DICCIONARIO
+     * @param columnaValor Columna ENTERO
+     * @param rango Filtro de fechas, o null para todas las filas
+     * @return Agregado por valor del grupo
+     */
+    public static Map<String, Agregado> agregarPor(List<SegmentoColumnar> segmentos, String columnaGrupo,
+                                                   String columnaValor, RangoFechas rango) {
+        return segmentos.parallelStream()
+            .map(segmento -> agregarEnSegmento(segmento, columnaGrupo, columnaValor, rango))
+            .reduce(new HashMap<>(), MotorAnalitico::combinarAgregados);
+    }
+    
+    /**
+     * Cuenta filas por día de una columna FECHA_HORA (GROUP BY DATE(col))
+     * @param segmentos Segmentos de la tabla
+     * @param rango Filtro sobre la misma columna que se agrupa
+     * @return Conteo por día en orden cronológico
+     */
+    public static TreeMap<LocalDate, Long> contarPorDia(List<SegmentoColumnar> segmentos, RangoFechas rango) {
+        Map<Long, Long> porDia = segmentos.parallelStream()
+            .map(segmento -> contarDiasEnSegmento(segmento, rango))
+            .reduce(new HashMap<>(), MotorAnalitico::sumarConteos);
+        TreeMap<LocalDate, Long> resultado = new TreeMap<>();
+        porDia.forEach((dia, conteo) -> resultado.put(LocalDate.ofEpochDay(dia), conteo));
+        return resultado;
+    }
+    
+    /**
+     * Reparte las filas en intervalos de una columna FECHA usando cortes descendentes
+     * La fila cae en el intervalo i = número de cortes mayores o iguales a su fecha;
+     * las fechas nulas caen en el último intervalo
+     * Con cortes = fechas de nacimiento límite de cada edad, da el conteo por rango de edad
+     * @param segmentos Segmentos de la tabla
+     * @param columnaFecha Columna FECHA
+     * @param cortes Fechas límite en orden descendente
+     * @return Arreglo de cortes.length + 1 conteos
+     */
+    public static long[] contarPorCortes(List<SegmentoColumnar> segmentos, String columnaFecha, LocalDate... cortes) {
+        int[] dias = new int[cortes.length];
+        for (int i = 0; i < cortes.length; i++) {
+            dias[i] = SegmentoColumnar.aDia(cortes[i]);
+        }
+        return segmentos.parallelStream()
+            .map(segmento -> contarCortesEnSegmento(segmento, columnaFecha, dias))
+            .reduce(new long[cortes.length + 1], MotorAnalitico::sumarArreglos);
+    }
+    
+    // Trabajo por segmento
+    
+    private static Map<String, Long> contarEnSegmento(SegmentoColumnar segmento, String columnaGrupo, RangoFechas rango) {
+        SegmentoColumnar.Columna grupo = segmento.columna(columnaGrupo);
+        int[] codigos = grupo.enteros;
+        long[] conteo = new long[grupo.diccionario.length];
+        
+        Seleccion seleccion = Seleccion.de(segmento, rango);
+        if (seleccion.todas) {
+            for (int i = 0; i < codigos.length; i++) {
+                conteo[codigos[i]]++;
+            }
+        } else if (!seleccion.ninguna) {
+            int[] filas = new int[TAMAÑO_VECTOR];
+            for (int base = 0; base < codigos.length; base += TAMAÑO_VECTOR) {
+                int n = seleccion.filtrar(base, Math.min(TAMAÑO_VECTOR, codigos.length - base), filas);
+                for (int k = 0; k < n; k++) {
+                    conteo[codigos[filas[k]]]++;
+                }
+            }
+        }
+        
+        Map<String, Long> resultado = new HashMap<>();
+        for (int codigo = 0; codigo < conteo.length; codigo++) {
+            if (conteo[codigo] > 0) {
+                resultado.put(grupo.diccionario[codigo], conteo[codigo]);
+            }
+        }
+        return resultado;
+    }
+    
+    private static Map<String, Agregado> agregarEnSegmento(SegmentoColumnar segmento, String columnaGrupo,
+                                                           String columnaValor, RangoFechas rango) {
+        SegmentoColumnar.Columna grupo = segmento.columna(columnaGrupo);
+        int[] codigos = grupo.enteros;
+        int[] valores = segmento.columna(columnaValor).enteros;
+        int grupos = grupo.diccionario.length;
+        long[] filasPorGrupo = new long[grupos];
+        long[] conteo = new long[grupos];
+        long[] suma = new long[grupos];
+        int[] minimo = new int[grupos];
+        int[] maximo = new int[grupos];
+        Arrays.fill(minimo, Integer.MAX_VALUE);
+        Arrays.fill(maximo, Integer.MIN_VALUE);
+        
+        Seleccion seleccion = Seleccion.de(segmento, rango);
+        if (!seleccion.ninguna) {
+            int[] filas = new int[TAMAÑO_VECTOR];
+            for (int base = 0; base < codigos.length; base += TAMAÑO_VECTOR) {
+                int largo = Math.min(TAMAÑO_VECTOR, codigos.length - base);
+                int n = seleccion.todas ? secuencia(base, largo, filas) : seleccion.filtrar(base, largo, filas);
+                for (int k = 0; k < n; k++) {
+                    int fila = filas[k];
+                    int codigo = codigos[fila];
+                    int valor = valores[fila];
+                    filasPorGrupo[codigo]++;
+                    if (valor != SegmentoColumnar.NULO_ENTERO) {
+                        conteo[codigo]++;
+                        suma[codigo] += valor;
+                        minimo[codigo] = Math.min(minimo[codigo], valor);
+                        maximo[codigo] = Math.max(maximo[codigo], valor);
+                    }
+                }
+            }
+        }
+        
+        Map<String, Agregado> resultado = new HashMap<>();
+        for (int codigo = 0; codigo < grupos; codigo++) {
+            if (filasPorGrupo[codigo] > 0) {
+                Agregado agregado = new Agregado();
+                agregado.filas = filasPorGrupo[codigo];
+                agregado.conteo = conteo[codigo];
+                agregado.suma = suma[codigo];
+                agregado.minimo = minimo[codigo];
+                agregado.maximo = maximo[codigo];
+                resultado.put(grupo.diccionario[codigo], agregado);
+            }
+        }
+        return resultado;
+    }
+    
+    private static Map<Long, Long> contarDiasEnSegmento(SegmentoColumnar segmento, RangoFechas rango) {
+        Seleccion seleccion = Seleccion.de(segmento, rango);
+        if (seleccion.ninguna) {
+            return new HashMap<>();
+        }
+        SegmentoColumnar.Columna columna = segmento.columna(rango.columna());
+        long[] fechas = columna.fechasHora;
+        
+        // Días cubiertos por el segmento dentro del filtro
+        long primerDia = Math.floorDiv(Math.max(columna.minimo, seleccion.desde), 86_400L);
+        long ultimoDia = Math.floorDiv(Math.min(columna.maximo, seleccion.hasta - 1), 86_400L);
+        long[] conteo = new long[(int) (ultimoDia - primerDia + 1)];
+        
+        int[] filas = new int[TAMAÑO_VECTOR];
+        for (int base = 0; base < fechas.length; base += TAMAÑO_VECTOR) {
+            int n = seleccion.filtrar(base, Math.min(TAMAÑO_VECTOR, fechas.length - base), filas);
+            for (int k = 0; k < n; k++) {
+                conteo[(int) (Math.floorDiv(fechas[filas[k]], 86_400L) - primerDia)]++;
+            }
+        }
+        
+        Map<Long, Long> resultado = new HashMap<>();
+        for (int i = 0; i < conteo.length; i++) {
+            if (conteo[i] > 0) {
+                resultado.put(primerDia + i, conteo[i]);
+            }
+        }
+        return resultado;
+    }
+    
+    private static long[] contarCortesEnSegmento(SegmentoColumnar segmento, String columnaFecha, int[] cortes) {
+        int[] fechas = segmento.columna(columnaFecha).enteros;
+        long[] conteo = new long[cortes.length + 1];
+        // NULO_ENTERO es menor que cualquier corte: las fechas nulas suman todos y caen en el último intervalo
+        for (int fecha : fechas) {
+            int intervalo = 0;
+            for (int corte : cortes) {
+                intervalo += fecha <= corte ? 1 : 0;
+            }
+            conteo[intervalo]++;
+        }
+        return conteo;
+    }
+    
+    private static int secuencia(int base, int largo, int[] filas) {
+        for (int k = 0; k < largo; k++) {
+            filas[k] = base + k;
+        }
+        return largo;
+    }
+    
+    /**
+     * Filtro de fechas ya resuelto contra un segmento
+     */
+    private static final class Seleccion {
+        private static final Seleccion TODAS = new Seleccion(null, 0, 0, true, false);
+        private static final Seleccion NINGUNA = new Seleccion(null, 0, 0, false, true);
+        
+        private final long[] fechas;
+        private final long desde;
+        private final long hasta;
+        private final boolean todas;
+        private final boolean ninguna;
+        
+        private Seleccion(long[] fechas, long desde, long hasta, boolean todas, boolean ninguna) {
+            this.fechas = fechas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.todas = todas;
+            this.ninguna = ninguna;
+        }
+        
+        static Seleccion de(SegmentoColumnar segmento, RangoFechas rango) {
+            if (rango == null) {
+                return TODAS;
+            }
+            SegmentoColumnar.Columna columna = segmento.columna(rango.columna());
+            long desde = SegmentoColumnar.aSegundos(rango.desde());
+            long hasta = SegmentoColumnar.aSegundos(rango.hasta());
+            if (segmento.getFilas() == 0 || columna.maximo < desde || columna.minimo >= hasta) {
+                return NINGUNA;
+            }
+            boolean todas = columna.nulos == 0 && columna.minimo >= desde && columna.maximo < hasta;
+            return new Seleccion(columna.fechasHora, desde, hasta, todas, false);
+        }
+        
+        /**
+         * Escribe en filas las posiciones de [base, base + largo) que cumplen el filtro
+         * @return Número de posiciones seleccionadas
+         */
+        int filtrar(int base, int largo, int[] filas) {
+            int n = 0;
+            for (int k = 0; k < largo; k++) {
+                long fecha = fechas[base + k];
+                filas[n] = base + k;
+                // Sin salto condicional: la posición se conserva solo si cumple el filtro
+                n += (fecha >= desde & fecha < hasta) ? 1 : 0;
+            }
+            return n;
+        }
+    }
+    
+    // Combinación de resultados parciales (no modifican sus argumentos: la identidad de reduce se comparte)
+    
+    private static <K> Map<K, Long> sumarConteos(Map<K, Long> a, Map<K, Long> b) {
+        Map<K, Long> resultado = new HashMap<>(a);
+        b.forEach((llave, conteo) -> resultado.merge(llave, conteo, Long::sum));
+        return resultado;
+    }
+    
+    private static Map<String, Agregado> combinarAgregados(Map<String, Agregado> a, Map<String, Agregado> b) {
+        Map<String, Agregado> resultado = new HashMap<>();
+        a.forEach((llave, agregado) -> resultado.put(llave, new Agregado().combinar(agregado)));
+        b.forEach((llave, agregado) -> resultado.merge(llave, new Agregado().combinar(agregado), Agregado::combinar));
+        return resultado;
+    }
+    
+    private static long[] sumarArreglos(long[] a, long[] b) {
+        long[] resultado = a.clone();
+        for (int i = 0; i < b.length; i++) {
+            resultado[i] += b[i];
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,361 @@
+package structures;
+
+import models.Especialidad;
+import utils.Bitacora;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Recomendador de especialidades a partir del texto de síntomas
+ * Compila los términos de cada especialidad en un autómata de Aho-Corasick, de modo que
+ * todas las especialidades se puntúan en una sola pasada sobre el texto sin importar
+ * cuántos términos haya. El texto y los términos se comparan sin acentos ni mayúsculas
+ * y deben coincidir con palabras completas, salvo las raíces marcadas con * ("palpit*")
+ * Los términos se cargan del archivo de datos /data/terminos_especialidades.txt
+ */
+public class RecomendadorEspecialidades {
+    
+    private static final Bitacora BITACORA = Bitacora.de(RecomendadorEspecialidades.class);
+    
+    public static final String ARCHIVO_TERMINOS = "/data/terminos_especialidades.txt";
+    
+    // Alfabeto del autómata: 26 letras y un símbolo para cualquier separador
+    private static final int SEPARADOR = 26;
+    private static final int TAMAÑO_ALFABETO = 27;
+    
+    private static volatile RecomendadorEspecialidades predeterminado;
+    
+    private final Especialidad[] especialidadTermino;
+    private final int[] pesoTermino;
+    private final int[] longitudTermino;
+    private final boolean[] esRaiz;
+    private final int[][] transiciones;
+    private final int[][] salidas;
+    
+    /**
+     * Construye el autómata a partir de líneas con formato ESPECIALIDAD|peso|término, término, ...
+     * Un término terminado en * coincide también con palabras que lo extienden
+     * Las líneas vacías y las que inician con # se ignoran
+     * @param lineas Líneas de definición de términos
+     * @throws IllegalArgumentException si una línea tiene formato inválido
+     */
+    public RecomendadorEspecialidades(List<String> lineas) {
+        List<String> terminos = new ArrayList<>();
+        List<Especialidad> especialidades = new ArrayList<>();
+        List<Integer> pesos = new ArrayList<>();
+        List<Boolean> raices = new ArrayList<>();
+        
+        int numeroLinea = 0;
+        for (String linea : lineas) {
+            numeroLinea++;
+            String limpia = linea.trim();
+            if (limpia.isEmpty() || limpia.startsWith("#")) {
+                continue;
+            }
+            
+            String[] partes = limpia.split("\\|", 3);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Formato inválido en la línea " + numeroLinea + ": " + linea);
+            }
+            
+            Especialidad especialidad;
+            int peso;
+            try {
+                especialidad = Especialidad.valueOf(partes[0].trim().toUpperCase());
+                peso = Integer.parseInt(partes[1].trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Especialidad o peso inválido en la línea " + numeroLinea + ": " + linea);
+            }
+            
+            for (String termino : partes[2].split(",")) {
+                String limpio = termino.trim();
+                boolean raiz = limpio.endsWith("*");
+                String plegado = normalizar(plegar(raiz ? limpio.substring(0, limpio.length() - 1) : limpio));
+                if (!plegado.isEmpty()) {
+                    terminos.add(plegado);
+                    especialidades.add(especialidad);
+                    pesos.add(peso);
+                    raices.add(raiz);
+                }
+            }
+        }
+        
+        int numeroTerminos = terminos.size();
+        this.especialidadTermino = especialidades.toArray(new Especialidad[0]);
+        this.pesoTermino = new int[numeroTerminos];
+        this.longitudTermino = new int[numeroTerminos];
+        this.esRaiz = new boolean[numeroTerminos];
+        for (int i = 0; i < numeroTerminos; i++) {
+            pesoTermino[i] = pesos.get(i);
+            longitudTermino[i] = terminos.get(i).length();
+            esRaiz[i] = raices.get(i);
+        }
+        
+        // Trie de los términos
+        List<int[]> hijos = new ArrayList<>();
+        List<List<Integer>> terminosEnEstado = new ArrayList<>();
+        hijos.add(nuevoEstado());
+        terminosEnEstado.add(new ArrayList<>());
+        
+        for (int t = 0; t < numeroTerminos; t++) {
+            String termino = terminos.get(t);
+            int estado = 0;
+            for (int i = 0; i < termino.length(); i++) {
+                int simbolo = simbolo(termino.charAt(i));
+                if (hijos.get(estado)[simbolo] < 0) {
+                    hijos.get(estado)[simbolo] = hijos.size();
+                    hijos.add(nuevoEstado());
+                    terminosEnEstado.add(new ArrayList<>());
+                }
+                estado = hijos.get(estado)[simbolo];
+            }
+            terminosEnEstado.get(estado).add(t);
+        }
+        
+        // Enlaces de falla por recorrido en anchura; las transiciones faltantes se completan
+        // con las del estado de falla para obtener un autómata determinista
+        int numeroEstados = hijos.size();
+        int[] falla = new int[numeroEstados];
+        int[][] delta = new int[numeroEstados][];
+        int[][] salida = new int[numeroEstados][];
+        ArrayDeque<Integer> cola = new ArrayDeque<>();
+        
+        delta[0] = hijos.get(0).clone();
+        for (int s = 0; s < TAMAÑO_ALFABETO; s++) {
+            if (delta[0][s] < 0) {
+                delta[0][s] = 0;
+            } else {
+                falla[delta[0][s]] = 0;
+                cola.add(delta[0][s]);
+            }
+        }
+        salida[0] = new int[0];
+        
+        while (!cola.isEmpty()) {
+            int estado = cola.poll();
+            
+            List<Integer> propias = terminosEnEstado.get(estado);
+            int[] heredadas = salida[falla[estado]];
+            int[] combinadas = new int[propias.size() + heredadas.length];
+            for (int i = 0; i < propias.size(); i++) {
+                combinadas[i] = propias.get(i);
+            }
+            System.arraycopy(heredadas, 0, combinadas, propias.size(), heredadas.length);
+            salida[estado] = combinadas;
+            
+            delta[estado] = hijos.get(estado).clone();
+            for (int s = 0; s < TAMAÑO_ALFABETO; s++) {
+                int hijo = delta[estado][s];
+                if (hijo < 0) {
+                    delta[estado][s] = delta[falla[estado]][s];
+                } else {
+                    falla[hijo] = delta[falla[estado]][s];
+                    cola.add(hijo);
+                }
+            }
+        }
+        
+        this.transiciones = delta;
+        this.salidas = salida;
+    }
+    
+    /**
+     * Obtiene el recomendador compartido cargado desde el archivo de términos
+     * @return Recomendador predeterminado
+     */
+    public static RecomendadorEspecialidades getPredeterminado() {
+        if (predeterminado == null) {
+            synchronized (RecomendadorEspecialidades.class) {
+                if (predeterminado == null) {
+                    predeterminado = cargarPredeterminado();
+                }
+            }
+        }
+        return predeterminado;
+    }
+    
+    /**
+     * Puntúa todas las especialidades en una sola pasada sobre el texto
+     * Cada término cuenta una sola vez aunque aparezca varias veces
+     * @param texto Texto libre con síntomas o motivo de consulta
+     * @return Puntuación por especialidad indexada por ordinal()
+     */
+    public int[] puntuar(String texto) {
+        int[] puntuaciones = new int[Especialidad.values().length];
+        if (texto == null || texto.isEmpty()) {
+            return puntuaciones;
+        }
+        
+        String plegado = plegar(texto);
+        boolean[] encontrados = new boolean[pesoTermino.length];
+        int estado = 0;
+        // El texto se trata como si iniciara con un separador para reconocer inicios de palabra
+        int anterior = SEPARADOR;
+        int[] simbolos = new int[plegado.length()];
+        
+        for (int i = 0; i < plegado.length(); i++) {
+            int simbolo = simbolo(plegado.charAt(i));
+            // Varios separadores seguidos equivalen a uno solo
+            if (simbolo == SEPARADOR && anterior == SEPARADOR) {
+                simbolos[i] = -1;
+                continue;
+            }
+            simbolos[i] = simbolo;
+            anterior = simbolo;
+            estado = transiciones[estado][simbolo];
+            
+            boolean finDePalabra = i + 1 == plegado.length() || simbolo(plegado.charAt(i + 1)) == SEPARADOR;
+            for (int termino : salidas[estado]) {
+                if (!encontrados[termino] && (finDePalabra || esRaiz[termino])
+                        && iniciaPalabra(simbolos, i, longitudTermino[termino])) {
+                    encontrados[termino] = true;
+                    puntuaciones[especialidadTermino[termino].ordinal()] += pesoTermino[termino];
+                }
+            }
+        }
+        
+        return puntuaciones;
+    }
+    
+    /**
+     * Recomienda especialidades ordenadas por puntuación (mayor primero)
+     * @param texto Texto libre con síntomas o motivo de consulta
+     * @return Especialidades con puntuación positiva; en empate se respeta el orden de la enumeración
+     */
+    public List<Especialidad> recomendar(String texto) {
+        int[] puntuaciones = puntuar(texto);
+        List<Especialidad> recomendadas = new ArrayList<>();
+        for (Especialidad esp : Especialidad.values()) {
+            if (puntuaciones[esp.ordinal()] > 0) {
+                recomendadas.add(esp);
+            }
+        }
+        recomendadas.sort((e1, e2) -> Integer.compare(puntuaciones[e2.ordinal()], puntuaciones[e1.ordinal()]));
+        return recomendadas;
+    }
+    
+    /**
+     * Obtiene la especialidad con mayor puntuación
+     * @param texto Texto libre con síntomas o motivo de consulta
+     * @return Especialidad sugerida, o null si ningún término coincide
+     */
+    public Especialidad sugerir(String texto) {
+        List<Especialidad> recomendadas = recomendar(texto);
+        return recomendadas.isEmpty() ? null : recomendadas.get(0);
+    }
+    
+    public int getNumeroTerminos() {
+        return pesoTermino.length;
+    }
+    
+    public int getNumeroEstados() {
+        return transiciones.length;
+    }
+    
+    /**
+     * Convierte a minúsculas y elimina acentos (á → a, ñ → n, ü → u)
+     * @param texto Texto a plegar
+     * @return Texto plegado
+     */
+    public static String plegar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+    
+    // Métodos auxiliares privados
+    
+    private static RecomendadorEspecialidades cargarPredeterminado() {
+        try (InputStream entrada = RecomendadorEspecialidades.class.getResourceAsStream(ARCHIVO_TERMINOS)) {
+            if (entrada != null) {
+                List<String> lineas = new ArrayList<>();
+                try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+                    String linea;
+                    while ((linea = lector.readLine()) != null) {
+                        lineas.add(linea);
+                    }
+                }
+                return new RecomendadorEspecialidades(lineas);
+            }
+            BITACORA.aviso("No se encontró " + ARCHIVO_TERMINOS + ", se usan términos básicos");
+        } catch (IOException | IllegalArgumentException e) {
+            BITACORA.error("Error al cargar términos de especialidades: " + e.getMessage());
+        }
+        
+        // Términos mínimos para no dejar al sistema sin recomendaciones
+        return new RecomendadorEspecialidades(Arrays.asList(
+            "CARDIOLOGIA|3|corazon, pecho, cardiaco",
+            "NEUROLOGIA|3|cabeza, mareo, neurologic",
+            "NEUMOLOGIA|3|respiracion, pulmon, tos"
+        ));
+    }
+    
+    /**
+     * Verifica que la coincidencia que termina en fin comience al inicio de una palabra
+     */
+    private static boolean iniciaPalabra(int[] simbolos, int fin, int longitud) {
+        int restantes = longitud;
+        int i = fin;
+        while (restantes > 0 && i >= 0) {
+            if (simbolos[i] >= 0) {
+                restantes--;
+            }
+            i--;
+        }
+        while (i >= 0 && simbolos[i] < 0) {
+            i--;
+        }
+        return i < 0 || simbolos[i] == SEPARADOR;
+    }
+    
+    /**
+     * Reduce los separadores consecutivos a uno y elimina los de los extremos
+     */
+    private static String normalizar(String termino) {
+        StringBuilder sb = new StringBuilder(termino.length());
+        for (int i = 0; i < termino.length(); i++) {
+            boolean separador = simbolo(termino.charAt(i)) == SEPARADOR;
+            if (separador) {
+                if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(termino.charAt(i));
+            }
+        }
+        int fin = sb.length();
+        while (fin > 0 && sb.charAt(fin - 1) == ' ') {
+            fin--;
+        }
+        return sb.substring(0, fin);
+    }
+    
+    private static int simbolo(char c) {
+        return c >= 'a' && c <= 'z' ? c - 'a' : SEPARADOR;
+    }
+    
+    private static int[] nuevoEstado() {
+        int[] estado = new int[TAMAÑO_ALFABETO];
+        Arrays.fill(estado, -1);
+        return estado;
+    }
+    
+    @Override
+    public String toString() {
+        return "RecomendadorEspecialidades - Términos: " + getNumeroTerminos() + ", Estados: " + getNumeroEstados();
+    }
+}
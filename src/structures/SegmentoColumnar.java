@@ -0,0 +1,561 @@
+package structures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bloque inmutable de filas guardado por columnas para los reportes históricos
+ * Cada columna se guarda en un arreglo primitivo:
+ * - ENTERO y FECHA (día epoch) en int[], con NULO_ENTERO para los valores nulos
+ * - FECHA_HORA (segundos epoch de la hora local, sin zona) en long[], con NULO_FECHA_HORA
+ * - DICCIONARIO (enums y textos repetitivos) como códigos int[] sobre un diccionario de valores
+ * Cada columna conserva su mínimo y máximo para que MotorAnalitico descarte segmentos enteros
+ *
+ * En disco cada columna se codifica por separado y se comprime con Deflate:
+ * los diccionarios con un byte por código si caben en 256 valores, las fechas como diferencias
+ * entre filas consecutivas (varint zigzag) y los enteros como varint zigzag
+ */
+public final class SegmentoColumnar {
+    
+    public static final String EXTENSION = ".hsvc";
+    public static final int NULO_ENTERO = Integer.MIN_VALUE;
+    public static final long NULO_FECHA_HORA = Long.MIN_VALUE;
+    
+    // "HSVC"
+    private static final int FIRMA = 0x48535643;
+    private static final short VERSION = 1;
+    
+    /**
+     * Tipos de columna admitidos
+     */
+    public enum TipoColumna {
+        ENTERO, FECHA, FECHA_HORA, DICCIONARIO
+    }
+    
+    private final int filas;
+    private final Columna[] columnas;
+    private final Map<String, Integer> indicePorNombre;
+    
+    private SegmentoColumnar(int filas, Columna[] columnas) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.indicePorNombre = new HashMap<>(columnas.length * 2);
+        for (int i = 0; i < columnas.length; i++) {
+            indicePorNombre.put(columnas[i].nombre, i);
+        }
+    }
+    
+    public int getFilas() {
+        return filas;
+    }
+    
+    /**
+     * Obtiene una columna por nombre
+     * @param nombre Nombre de la columna
+     * @return Columna del segmento
+     * @throws IllegalArgumentException si el segmento no tiene esa columna
+     */
+    public Columna columna(String nombre) {
+        Integer indice = indicePorNombre.get(nombre);
+        if (indice == null) {
+            throw new IllegalArgumentException("El segmento no tiene la columna " + nombre);
+        }
+        return columnas[indice];
+    }
+    
+    /**
+     * Bytes aproximados que ocupa el segmento en memoria
+     */
+    public long bytesEnMemoria() {
+        long total = 0;
+        for (Columna columna : columnas) {
+            total += columna.enteros != null ? 4L * columna.enteros.length : 8L * columna.fechasHora.length;
+            if (columna.diccionario != null) {
+                for (String valor : columna.diccionario) {
+                    total += valor != null ? 40 + 2L * valor.length() : 0;
+                }
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Una columna del segmento con sus valores y su rango
+     */
+    public static final class Columna {
+        private final String nombre;
+        private final TipoColumna tipo;
+        final int[] enteros;
+        final long[] fechasHora;
+        final String[] diccionario;
+        final long minimo;
+        final long maximo;
+        final int nulos;
+        
+        private Columna(String nombre, TipoColumna tipo, int[] enteros, long[] fechasHora, String[] diccionario) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+            this.enteros = enteros;
+            this.fechasHora = fechasHora;
+            this.diccionario = diccionario;
+            
+            // Mínimo y máximo sin contar nulos; en diccionarios se calculan sobre los códigos
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int conteoNulos = 0;
+            if (fechasHora != null) {
+                for (long valor : fechasHora) {
+                    if (valor == NULO_FECHA_HORA) {
+                        conteoNulos++;
+                    } else {
+                        min = Math.min(min, valor);
+                        max = Math.max(max, valor);
+                    }
+                }
+            } else if (tipo == TipoColumna.DICCIONARIO) {
+                for (int codigo : enteros) {
+                    if (diccionario[codigo] == null) {
+                        conteoNulos++;
+                    }
+                }
+                min = 0;
+                max = diccionario.length - 1;
+            } else {
+                for (int valor : enteros) {
+                    if (valor == NULO_ENTERO) {
+                        conteoNulos++;
+                    } else {
+                        min = Math.min(min, valor);
+                        max = Math.max(max, valor);
+                    }
+                }
+            }
+            this.minimo = min;
+            this.maximo = max;
+            this.nulos = conteoNulos;
+        }
+        
+        public String getNombre() { return nombre; }
+        public TipoColumna getTipo() { return tipo; }
+        
+        /**
+         * Valor mínimo sin nulos (Long.MAX_VALUE si todos son nulos)
+         */
+        public long getMinimo() { return minimo; }
+        
+        /**
+         * Valor máximo sin nulos (Long.MIN_VALUE si todos son nulos)
+         */
+        public long getMaximo() { return maximo; }
+        
+        public int getNulos() { return nulos; }
+    }
+    
+    // Conversión de fechas a la representación de las columnas
+    
+    public static long aSegundos(LocalDateTime fechaHora) {
+        return fechaHora != null ? fechaHora.toEpochSecond(ZoneOffset.UTC) : NULO_FECHA_HORA;
+    }
+    
+    public static int aDia(LocalDate fecha) {
+        return fecha != null ? (int) fecha.toEpochDay() : NULO_ENTERO;
+    }
+    
+    /**
+     * Acumula filas y produce un segmento
+     * Los valores de cada fila se fijan por índice de columna; los no fijados quedan nulos
+     */
+    public static final class Constructor {
+        private final String[] nombres;
+        private final TipoColumna[] tipos;
+        private final int[][] enteros;
+        private final long[][] fechasHora;
+        // Diccionario de cada columna DICCIONARIO (valor -> código); null en las demás
+        private final List<Map<String, Integer>> codigos;
+        private int filas;
+        
+        public Constructor(String[] nombres, TipoColumna[] tipos, int capacidad) {
+            this.nombres = nombres.clone();
+            this.tipos = tipos.clone();
+            this.enteros = new int[nombres.length][];
+            this.fechasHora = new long[nombres.length][];
+            this.codigos = new ArrayList<>(nombres.length);
+            int inicial = Math.max(16, capacidad);
+            for (int i = 0; i < nombres.length; i++) {
+                if (tipos[i] == TipoColumna.FECHA_HORA) {
+                    fechasHora[i] = new long[inicial];
+                } else {
+                    enteros[i] = new int[inicial];
+                }
+                codigos.add(tipos[i] == TipoColumna.DICCIONARIO ? new HashMap<>() : null);
+            }
+            limpiarFila();
+        }
+        
+        public void entero(int columna, Integer valor) {
+            enteros[columna][filas] = valor != null ? valor : NULO_ENTERO;
+        }
+        
+        public void fecha(int columna, LocalDate valor) {
+            enteros[columna][filas] = aDia(valor);
+        }
+        
+        public void fechaHora(int columna, LocalDateTime valor) {
+            fechasHora[columna][filas] = aSegundos(valor);
+        }
+        
+        public void texto(int columna, String valor) {
+            enteros[columna][filas] = codificar(columna, valor);
+        }
+        
+        /**
+         * Cierra la fila actual y prepara la siguiente
+         */
+        public void terminarFila() {
+            filas++;
+            if (filas == longitud()) {
+                for (int i = 0; i < nombres.length; i++) {
+                    if (fechasHora[i] != null) {
+                        fechasHora[i] = Arrays.copyOf(fechasHora[i], filas * 2);
+                    } else {
+                        enteros[i] = Arrays.copyOf(enteros[i], filas * 2);
+                    }
+                }
+            }
+            limpiarFila();
+        }
+        
+        public int getFilas() {
+            return filas;
+        }
+        
+        /**
+         * Construye el segmento con las filas terminadas
+         * @return Segmento inmutable
+         */
+        public SegmentoColumnar construir() {
+            Columna[] columnas = new Columna[nombres.length];
+            for (int i = 0; i < nombres.length; i++) {
+                String[] diccionario = null;
+                Map<String, Integer> codigosColumna = codigos.get(i);
+                if (codigosColumna != null) {
+                    diccionario = new String[codigosColumna.size()];
+                    for (Map.Entry<String, Integer> entrada : codigosColumna.entrySet()) {
+                        diccionario[entrada.getValue()] = entrada.getKey();
+                    }
+                }
+                columnas[i] = new Columna(nombres[i], tipos[i],
+                    enteros[i] != null ? Arrays.copyOf(enteros[i], filas) : null,
+                    fechasHora[i] != null ? Arrays.copyOf(fechasHora[i], filas) : null,
+                    diccionario);
+            }
+            return new SegmentoColumnar(filas, columnas);
+        }
+        
+        private int codificar(int columna, String valor) {
+            Map<String, Integer> diccionario = codigos.get(columna);
+            Integer codigo = diccionario.get(valor);
+            if (codigo == null) {
+                codigo = diccionario.size();
+                diccionario.put(valor, codigo);
+            }
+            return codigo;
+        }
+        
+        private int longitud() {
+            return fechasHora[0] != null ? fechasHora[0].length : enteros[0].length;
+        }
+        
+        private void limpiarFila() {
+            for (int i = 0; i < nombres.length; i++) {
+                if (fechasHora[i] != null) {
+                    fechasHora[i][filas] = NULO_FECHA_HORA;
+                } else if (codigos.get(i) != null) {
+                    enteros[i][filas] = codificar(i, null);
+                } else {
+                    enteros[i][filas] = NULO_ENTERO;
+                }
+            }
+        }
+    }
+    
+    // Lectura y escritura en disco
+    
+    /**
+     * Escribe el segmento en un archivo (se reemplaza de forma atómica)
+     * @param archivo Ruta del archivo
+     * @throws IOException si no se puede escribir
+     */
+    public void escribir(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporal), 1 << 16))) {
+            salida.writeInt(FIRMA);
+            salida.writeShort(VERSION);
+            salida.writeInt(filas);
+            salida.writeShort(columnas.length);
+            
+            Deflater compresor = new Deflater(Deflater.BEST_SPEED);
+            try {
+                for (Columna columna : columnas) {
+                    salida.writeUTF(columna.nombre);
+                    salida.writeByte(columna.tipo.ordinal());
+                    byte[] datos = codificarColumna(columna);
+                    byte[] comprimidos = comprimir(compresor, datos);
+                    CRC32 crc = new CRC32();
+                    crc.update(comprimidos);
+                    salida.writeInt(datos.length);
+                    salida.writeInt(comprimidos.length);
+                    salida.writeInt((int) crc.getValue());
+                    salida.write(comprimidos);
+                }
+            } finally {
+                compresor.end();
+            }
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Lee un segmento escrito con escribir
+     * @param archivo Ruta del archivo
+     * @return Segmento leído
+     * @throws IOException si el archivo no existe, está incompleto o no pasa la verificación CRC
+     */
+    public static SegmentoColumnar leer(Path archivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(archivo), 1 << 16))) {
+            if (entrada.readInt() != FIRMA) {
+                throw new IOException("No es un segmento columnar: " + archivo);
+            }
+            short version = entrada.readShort();
+            if (version != VERSION) {
+                throw new IOException("Versión de segmento no soportada: " + version);
+            }
+            int filas = entrada.readInt();
+            Columna[] columnas = new Columna[entrada.readShort()];
+            
+            Inflater descompresor = new Inflater();
+            try {
+                for (int i = 0; i < columnas.length; i++) {
+                    String nombre = entrada.readUTF();
+                    TipoColumna tipo = TipoColumna.values()[entrada.readByte()];
+                    byte[] datos = new byte[entrada.readInt()];
+                    byte[] comprimidos = new byte[entrada.readInt()];
+                    int crcEsperado = entrada.readInt();
+                    entrada.readFully(comprimidos);
+                    
+                    CRC32 crc = new CRC32();
+                    crc.update(comprimidos);
+                    if ((int) crc.getValue() != crcEsperado) {
+                        throw new IOException("CRC inválido en la columna " + nombre + " de " + archivo);
+                    }
+                    descompresor.reset();
+                    descompresor.setInput(comprimidos);
+                    int leidos = descompresor.inflate(datos);
+                    if (leidos != datos.length) {
+                        throw new IOException("Columna " + nombre + " incompleta en " + archivo);
+                    }
+                    columnas[i] = decodificarColumna(nombre, tipo, filas, datos);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Columna dañada en " + archivo + ": " + e.getMessage(), e);
+            } finally {
+                descompresor.end();
+            }
+            return new SegmentoColumnar(filas, columnas);
+        }
+    }
+    
+    private static byte[] comprimir(Deflater compresor, byte[] datos) {
+        compresor.reset();
+        compresor.setInput(datos);
+        compresor.finish();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+        byte[] bufer = new byte[8192];
+        while (!compresor.finished()) {
+            int n = compresor.deflate(bufer);
+            salida.write(bufer, 0, n);
+        }
+        return salida.toByteArray();
+    }
+    
+    private static byte[] codificarColumna(Columna columna) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(columna.enteros != null
+            ? columna.enteros.length * 2 : columna.fechasHora.length * 3);
+        DataOutputStream salida = new DataOutputStream(bytes);
+        
+        switch (columna.tipo) {
+            case DICCIONARIO -> {
+                escribirVarint(salida, columna.diccionario.length);
+                for (String valor : columna.diccionario) {
+                    salida.writeBoolean(valor != null);
+                    if (valor != null) {
+                        salida.writeUTF(valor);
+                    }
+                }
+                boolean unByte = columna.diccionario.length <= 256;
+                for (int codigo : columna.enteros) {
+                    if (unByte) {
+                        salida.writeByte(codigo);
+                    } else {
+                        escribirVarint(salida, codigo);
+                    }
+                }
+            }
+            case FECHA -> {
+                // Diferencias entre filas consecutivas: las fechas de un segmento casi siempre están cerca
+                long anterior = 0;
+                for (int valor : columna.enteros) {
+                    long actual = valor == NULO_ENTERO ? NULO_ENTERO : valor;
+                    escribirVarint(salida, zigzag(actual - anterior));
+                    anterior = actual;
+                }
+            }
+            case FECHA_HORA -> {
+                // Las filas van en orden de ID, así que las diferencias son pequeñas y casi siempre positivas
+                // Los nulos se marcan en un mapa de bits aparte para no romper la secuencia de diferencias
+                escribirMapaNulos(salida, columna.fechasHora);
+                long anterior = 0;
+                for (long valor : columna.fechasHora) {
+                    if (valor != NULO_FECHA_HORA) {
+                        escribirVarint(salida, zigzag(valor - anterior));
+                        anterior = valor;
+                    }
+                }
+            }
+            case ENTERO -> {
+                for (int valor : columna.enteros) {
+                    escribirVarint(salida, zigzag(valor));
+                }
+            }
+        }
+        salida.flush();
+        return bytes.toByteArray();
+    }
+    
+    private static Columna decodificarColumna(String nombre, TipoColumna tipo, int filas, byte[] datos) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos));
+        
+        switch (tipo) {
+            case DICCIONARIO -> {
+                String[] diccionario = new String[(int) leerVarint(entrada)];
+                for (int i = 0; i < diccionario.length; i++) {
+                    diccionario[i] = entrada.readBoolean() ? entrada.readUTF() : null;
+                }
+                boolean unByte = diccionario.length <= 256;
+                int[] codigos = new int[filas];
+                for (int i = 0; i < filas; i++) {
+                    codigos[i] = unByte ? entrada.readUnsignedByte() : (int) leerVarint(entrada);
+                    if (codigos[i] >= diccionario.length) {
+                        throw new IOException("Código fuera del diccionario en la columna " + nombre);
+                    }
+                }
+                return new Columna(nombre, tipo, codigos, null, diccionario);
+            }
+            case FECHA -> {
+                int[] valores = new int[filas];
+                long anterior = 0;
+                for (int i = 0; i < filas; i++) {
+                    anterior += deszigzag(leerVarint(entrada));
+                    valores[i] = (int) anterior;
+                }
+                return new Columna(nombre, tipo, valores, null, null);
+            }
+            case FECHA_HORA -> {
+                boolean[] nulos = leerMapaNulos(entrada, filas);
+                long[] valores = new long[filas];
+                long anterior = 0;
+                for (int i = 0; i < filas; i++) {
+                    if (nulos[i]) {
+                        valores[i] = NULO_FECHA_HORA;
+                    } else {
+                        anterior += deszigzag(leerVarint(entrada));
+                        valores[i] = anterior;
+                    }
+                }
+                return new Columna(nombre, tipo, null, valores, null);
+            }
+            default -> {
+                int[] valores = new int[filas];
+                for (int i = 0; i < filas; i++) {
+                    valores[i] = (int) deszigzag(leerVarint(entrada));
+                }
+                return new Columna(nombre, tipo, valores, null, null);
+            }
+        }
+    }
+    
+    private static void escribirMapaNulos(DataOutputStream salida, long[] valores) throws IOException {
+        byte[] mapa = new byte[(valores.length + 7) / 8];
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] == NULO_FECHA_HORA) {
+                mapa[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        salida.write(mapa);
+    }
+    
+    private static boolean[] leerMapaNulos(DataInputStream entrada, int filas) throws IOException {
+        byte[] mapa = new byte[(filas + 7) / 8];
+        entrada.readFully(mapa);
+        boolean[] nulos = new boolean[filas];
+        for (int i = 0; i < filas; i++) {
+            nulos[i] = (mapa[i >>> 3] & (1 << (i & 7))) != 0;
+        }
+        return nulos;
+    }
+    
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+    
+    private static long deszigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+    
+    private static void escribirVarint(OutputStream salida, long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            salida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        salida.write((int) valor);
+    }
+    
+    private static long leerVarint(InputStream entrada) throws IOException {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            int b = entrada.read();
+            if (b < 0) {
+                throw new IOException("Columna truncada");
+            }
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Varint inválido");
+    }
+}
@@ -2,6 +2,7 @@ package structures;
 
 import models.RegistroTriage;
 import models.NivelUrgencia;
+import utils.RegistroMetricas;
 import java.util.*;
 import java.time.LocalDateTime;
 
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
  * Implementa una cola que prioriza por nivel de urgencia y tiempo de llegada
  * ROJO > NARANJA > AMARILLO > VERDE > AZUL
  * Dentro del mismo nivel, se aplica FIFO (First In, First Out)
+ * Los métodos públicos están sincronizados: las métricas leen la cola desde otros hilos
  */
 public class TriageQueue {
     
@@ -61,7 +63,7 @@ public class TriageQueue {
      * Añade un paciente a la cola de triage
      * @param registro El registro de triage del paciente
      */
-    public void encolar(RegistroTriage registro) {
+    public synchronized void encolar(RegistroTriage registro) {
         if (registro == null || registro.getNivelUrgencia() == null) {
             throw new IllegalArgumentException("El registro y su nivel de urgencia no pueden ser nulos");
         }
@@ -81,7 +83,7 @@ public class TriageQueue {
      * Extrae el paciente con mayor prioridad de la cola
      * @return El registro de triage del paciente con mayor prioridad, o null si está vacía
      */
-    public RegistroTriage desencolar() {
+    public synchronized RegistroTriage desencolar() {
         RegistroTriage registro = cola.poll();
         
         if (registro != null) {
@@ -98,7 +100,7 @@ public class TriageQueue {
      * Ve el siguiente paciente sin removerlo de la cola
      * @return El registro de triage del próximo paciente, o null si está vacía
      */
-    public RegistroTriage verSiguiente() {
+    public synchronized RegistroTriage verSiguiente() {
         return cola.peek();
     }
     
@@ -107,7 +109,7 @@ public class TriageQueue {
      * @param folio El folio del paciente
      * @return El registro de triage, o null si no se encuentra
      */
-    public RegistroTriage buscarPorFolio(String folio) {
+    public synchronized RegistroTriage buscarPorFolio(String folio) {
         return porFolio.get(folio);
     }
     
@@ -116,7 +118,7 @@ public class TriageQueue {
      * @param nivel El nivel de urgencia
      * @return Lista de registros de ese nivel
      */
-    public List<RegistroTriage> obtenerPorNivel(NivelUrgencia nivel) {
+    public synchronized List<RegistroTriage> obtenerPorNivel(NivelUrgencia nivel) {
         return new ArrayList<>(porNivel.get(nivel));
     }
     
@@ -125,7 +127,7 @@ public class TriageQueue {
      * @param folio El folio del paciente a remover
      * @return true si se removió exitosamente, false si no se encontró
      */
-    public boolean remover(String folio) {
+    public synchronized boolean remover(String folio) {
         RegistroTriage registro = porFolio.get(folio);
         
         if (registro != null) {
@@ -146,7 +148,7 @@ public class TriageQueue {
      * @param nuevoNivel El nuevo nivel de urgencia
      * @return true si se actualizó exitosamente
      */
-    public boolean actualizarNivelUrgencia(String folio, NivelUrgencia nuevoNivel) {
+    public synchronized boolean actualizarNivelUrgencia(String folio, NivelUrgencia nuevoNivel) {
         RegistroTriage registro = porFolio.get(folio);
         
         if (registro != null) {
@@ -173,7 +175,7 @@ public class TriageQueue {
      * Obtiene estadísticas de la cola
      * @return Map con las estadísticas actuales
      */
-    public Map<String, Object> obtenerEstadisticas() {
+    public synchronized Map<String, Object> obtenerEstadisticas() {
         Map<String, Object> estadisticas = new HashMap<>();
         
         estadisticas.put("total_pacientes", totalPacientes);
@@ -203,7 +205,7 @@ public class TriageQueue {
      * Obtiene una lista ordenada de todos los pacientes en la cola
      * @return Lista ordenada por prioridad
      */
-    public List<RegistroTriage> obtenerTodosOrdenados() {
+    public synchronized List<RegistroTriage> obtenerTodosOrdenados() {
         List<RegistroTriage> lista = new ArrayList<>(cola);
         return lista;
     }
@@ -220,7 +222,7 @@ public class TriageQueue {
      * Verifica si la cola está vacía
      * @return true si no hay pacientes en espera
      */
-    public boolean estaVacia() {
+    public synchronized boolean estaVacia() {
         return cola.isEmpty();
     }
     
@@ -228,14 +230,35 @@ public class TriageQueue {
      * Obtiene el tamaño actual de la cola
      * @return Número de pacientes en espera
      */
-    public int tamaño() {
+    public synchronized int tamaño() {
         return totalPacientes;
     }
     
+    /**
+     * Obtiene el número de pacientes de un nivel de urgencia
+     * @param nivel El nivel de urgencia
+     * @return Pacientes en espera con ese nivel
+     */
+    public synchronized int contarPorNivel(NivelUrgencia nivel) {
+        return porNivel.get(nivel).size();
+    }
+    
+    /**
+     * Publica la profundidad de la cola por nivel de urgencia como indicadores de RegistroMetricas
+     * Se leen al consultar las métricas; si hay varias colas, se publica la última registrada
+     */
+    public void registrarMetricas() {
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        for (NivelUrgencia nivel : NivelUrgencia.values()) {
+            metricas.indicador("hsv_cola_triage_profundidad", "Pacientes en la cola de triage por nivel de urgencia",
+                               () -> contarPorNivel(nivel), "nivel", nivel.name());
+        }
+    }
+    
     /**
      * Limpia completamente la cola
      */
-    public void limpiar() {
+    public synchronized void limpiar() {
         cola.clear();
         porFolio.clear();
         for (List<RegistroTriage> lista : porNivel.values()) {
@@ -275,7 +298,7 @@ public class TriageQueue {
     }
     
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("TriageQueue - Total: ").append(totalPacientes).append(" pacientes\\n");
         
@@ -322,14 +345,14 @@ public class TriageQueue {
     /**
      * Obtiene el tamaño de la cola
      */
-    public int size() {
+    public synchronized int size() {
         return totalPacientes;
     }
     
     /**
      * Actualiza un registro existente
      */
-    public void actualizar(RegistroTriage registro) {
+    public synchronized void actualizar(RegistroTriage registro) {
         if (registro != null && porFolio.containsKey(registro.getFolio())) {
             // Remover y volver a agregar para mantener orden correcto
             remover(registro.getFolio());
@@ -340,7 +363,7 @@ public class TriageQueue {
     /**
      * Remover por ID (convertir int a String)
      */
-    public void remover(int registroId) {
+    public synchronized void remover(int registroId) {
         // Buscar por ID y remover
         RegistroTriage aRemover = null;
         for (RegistroTriage registro : cola) {
@@ -357,7 +380,7 @@ public class TriageQueue {
     /**
      * Obtiene conteos por nivel de urgencia
      */
-    public Map<NivelUrgencia, Integer> obtenerConteos() {
+    public synchronized Map<NivelUrgencia, Integer> obtenerConteos() {
         Map<NivelUrgencia, Integer> conteos = new HashMap<>();
         for (NivelUrgencia nivel : NivelUrgencia.values()) {
             conteos.put(nivel, porNivel.get(nivel).size());
@@ -0,0 +1,199 @@
+package structures;
+
+import models.FilaPaciente;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ventana circular (ring buffer) con los pacientes de actividad más reciente
+ * Guarda filas compactas (FilaPaciente), no pacientes completos
+ * Cada registro o actualización coloca al paciente al frente; si ya estaba en la ventana
+ * se mueve en lugar de duplicarse y, al llenarse, se descarta el más antiguo
+ * La ventana se "siembra" con la consulta de los más recientes de la base de datos y a partir
+ * de ahí responde las consultas de hasta su capacidad sin ir a MySQL; la siembra vence tras
+ * su vigencia para recoger los pacientes que registran otras estaciones
+ * Los métodos están sincronizados: la capacidad es pequeña y las operaciones son O(capacidad)
+ */
+public class VentanaPacientesRecientes {
+    
+    private final FilaPaciente[] elementos;
+    private int cabeza;       // Posición donde se escribirá el siguiente paciente
+    private int tamaño;
+    private int registradosDesdeSiembra; // Los primeros de la ventana, registrados en memoria tras sembrar
+    private boolean sembrada; // true cuando el contenido refleja los más recientes de la base
+    private long sembradaEn;
+    private final long vigenciaMs;
+    
+    /**
+     * Crea una ventana vacía cuya siembra no vence
+     * @param capacidad Número máximo de pacientes que conserva
+     */
+    public VentanaPacientesRecientes(int capacidad) {
+        this(capacidad, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Crea una ventana vacía
+     * @param capacidad Número máximo de pacientes que conserva
+     * @param vigenciaMs Tiempo tras el cual la siembra vence y hay que volver a consultar la base
+     */
+    public VentanaPacientesRecientes(int capacidad, long vigenciaMs) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        if (vigenciaMs <= 0) {
+            throw new IllegalArgumentException("La vigencia debe ser positiva");
+        }
+        this.elementos = new FilaPaciente[capacidad];
+        this.vigenciaMs = vigenciaMs;
+    }
+    
+    /**
+     * Registra actividad de un paciente (alta o actualización) colocándolo al frente
+     * @param paciente Fila del paciente registrado o actualizado (se ignoran nulos y sin ID)
+     */
+    public synchronized void registrar(FilaPaciente paciente) {
+        if (paciente == null || paciente.id() <= 0) {
+            return;
+        }
+        quitar(paciente.id());
+        elementos[cabeza] = paciente;
+        cabeza = (cabeza + 1) % elementos.length;
+        if (tamaño < elementos.length) {
+            tamaño++;
+        }
+        registradosDesdeSiembra = Math.min(registradosDesdeSiembra + 1, tamaño);
+    }
+    
+    /**
+     * Siembra la ventana con los pacientes más recientes de la base de datos
+     * Los pacientes registrados en memoria desde la siembra anterior conservan su lugar al frente
+     * (pudieron registrarse mientras corría la consulta); el resto se reemplaza con el resultado
+     * @param masRecientesPrimero Resultado de la consulta, del más reciente al más antiguo
+     */
+    public synchronized void sembrar(List<FilaPaciente> masRecientesPrimero) {
+        List<FilaPaciente> combinados = new ArrayList<>(obtenerTodos().subList(0, registradosDesdeSiembra));
+        for (FilaPaciente paciente : masRecientesPrimero) {
+            if (combinados.size() >= elementos.length) {
+                break;
+            }
+            if (paciente != null && indiceDe(paciente.id(), combinados) < 0) {
+                combinados.add(paciente);
+            }
+        }
+        
+        // Reconstruir del más antiguo al más reciente
+        limpiar();
+        for (int i = combinados.size() - 1; i >= 0; i--) {
+            registrar(combinados.get(i));
+        }
+        registradosDesdeSiembra = 0;
+        sembrada = true;
+        sembradaEn = System.currentTimeMillis();
+    }
+    
+    /**
+     * Obtiene los pacientes más recientes si la ventana puede responder sin consultar la base
+     * @param limite Número de pacientes solicitado
+     * @return Lista del más reciente al más antiguo, o null si la ventana no está sembrada,
+     *         la siembra venció o el límite excede su capacidad
+     */
+    public synchronized List<FilaPaciente> obtenerRecientes(int limite) {
+        if (!estaSembrada() || limite > elementos.length) {
+            return null;
+        }
+        List<FilaPaciente> resultado = new ArrayList<>(Math.min(limite, tamaño));
+        for (int i = 0; i < tamaño && i < limite; i++) {
+            resultado.add(elementos[posicion(i)]);
+        }
+        return resultado;
+    }
+    
+    /**
+     * Quita a un paciente de la ventana (por ejemplo al eliminarlo)
+     * @param pacienteId ID del paciente
+     * @return true si estaba en la ventana
+     */
+    public synchronized boolean quitar(int pacienteId) {
+        int encontrado = indiceDe(pacienteId);
+        if (encontrado < 0) {
+            return false;
+        }
+        if (encontrado < registradosDesdeSiembra) {
+            registradosDesdeSiembra--;
+        }
+        
+        // Recorrer hacia el frente los más antiguos que el eliminado
+        for (int i = encontrado; i < tamaño - 1; i++) {
+            elementos[posicion(i)] = elementos[posicion(i + 1)];
+        }
+        elementos[posicion(tamaño - 1)] = null;
+        tamaño--;
+        return true;
+    }
+    
+    /**
+     * Vacía la ventana y la marca como no sembrada
+     */
+    public synchronized void limpiar() {
+        Arrays.fill(elementos, null);
+        cabeza = 0;
+        tamaño = 0;
+        registradosDesdeSiembra = 0;
+        sembrada = false;
+    }
+    
+    /**
+     * Marca la siembra como vencida: la siguiente consulta vuelve a la base de datos
+     * (por ejemplo al abrir la pantalla de registro)
+     */
+    public synchronized void vencer() {
+        sembrada = false;
+    }
+    
+    public synchronized int tamaño() {
+        return tamaño;
+    }
+    
+    public int getCapacidad() {
+        return elementos.length;
+    }
+    
+    public synchronized boolean estaSembrada() {
+        return sembrada && System.currentTimeMillis() - sembradaEn < vigenciaMs;
+    }
+    
+    /**
+     * Posición en el arreglo del i-ésimo paciente más reciente (0 = el más reciente)
+     */
+    private int posicion(int i) {
+        return Math.floorMod(cabeza - 1 - i, elementos.length);
+    }
+    
+    private int indiceDe(int pacienteId) {
+        for (int i = 0; i < tamaño; i++) {
+            if (elementos[posicion(i)].id() == pacienteId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private List<FilaPaciente> obtenerTodos() {
+        List<FilaPaciente> todos = new ArrayList<>(tamaño);
+        for (int i = 0; i < tamaño; i++) {
+            todos.add(elementos[posicion(i)]);
+        }
+        return todos;
+    }
+    
+    private static int indiceDe(int pacienteId, List<FilaPaciente> pacientes) {
+        for (int i = 0; i < pacientes.size(); i++) {
+            if (pacientes.get(i).id() == pacienteId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,105 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Archivo de texto con rotación por tamaño: archivo.log, archivo.log.1, ... archivo.log.N
+ * Mantiene el archivo abierto entre escrituras; quien escribe decide cuándo vaciar el búfer
+ * Pensado para un solo hilo escritor (los métodos están sincronizados por seguridad)
+ */
+public class ArchivoRotativo {
+    
+    private final Path archivo;
+    private final long tamañoMaximo;
+    private final int archivosRotados;
+    private BufferedWriter salida;
+    private long tamañoActual;
+    
+    /**
+     * @param archivo Ruta del archivo activo
+     * @param tamañoMaximo Bytes a partir de los cuales se rota
+     * @param archivosRotados Número de archivos anteriores que se conservan
+     */
+    public ArchivoRotativo(Path archivo, long tamañoMaximo, int archivosRotados) {
+        this.archivo = archivo;
+        this.tamañoMaximo = tamañoMaximo;
+        this.archivosRotados = archivosRotados;
+    }
+    
+    /**
+     * Agrega texto al archivo, rotando antes si se excedería el tamaño máximo
+     * @param texto Texto a escribir (incluye sus saltos de línea)
+     * @throws IOException si no se puede escribir
+     */
+    public synchronized void escribir(String texto) throws IOException {
+        if (salida == null) {
+            abrir();
+        }
+        // Aproximación: un carácter por byte (los acentos ocupan dos, la diferencia es menor)
+        if (tamañoActual > 0 && tamañoActual + texto.length() > tamañoMaximo) {
+            rotar();
+        }
+        salida.write(texto);
+        tamañoActual += texto.length();
+    }
+    
+    /**
+     * Vacía el búfer al disco
+     * @throws IOException si falla la escritura
+     */
+    public synchronized void vaciar() throws IOException {
+        if (salida != null) {
+            salida.flush();
+        }
+    }
+    
+    /**
+     * Cierra el archivo; la siguiente escritura lo vuelve a abrir
+     */
+    public synchronized void cerrar() {
+        if (salida != null) {
+            try {
+                salida.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar " + archivo + ": " + e.getMessage());
+            }
+            salida = null;
+        }
+    }
+    
+    public Path getArchivo() {
+        return archivo;
+    }
+    
+    private void abrir() throws IOException {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        if (directorio != null) {
+            Files.createDirectories(directorio);
+        }
+        tamañoActual = Files.exists(archivo) ? Files.size(archivo) : 0;
+        salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    private void rotar() throws IOException {
+        cerrar();
+        Files.deleteIfExists(rotado(archivosRotados));
+        for (int i = archivosRotados - 1; i >= 1; i--) {
+            if (Files.exists(rotado(i))) {
+                Files.move(rotado(i), rotado(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(archivo, rotado(1), StandardCopyOption.REPLACE_EXISTING);
+        abrir();
+    }
+    
+    private Path rotado(int indice) {
+        return archivo.resolveSibling(archivo.getFileName() + "." + indice);
+    }
+}
@@ -0,0 +1,419 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bitácora estructurada del sistema con escritura asíncrona
+ * Cada clase obtiene su bitácora con Bitacora.de(Clase.class). Los eventos se encolan en un
+ * búfer circular acotado y un hilo de fondo los formatea y escribe en logs/hospital.log
+ * (con rotación) y, si está habilitado, en la consola; el hilo que registra nunca hace E/S
+ * Los niveles se configuran por paquete (dao, services, controllers...) en bitacora.properties
+ * o con propiedades del sistema (-Dbitacora.nivel.dao=DEBUG); un nivel deshabilitado cuesta
+ * una lectura de campo volátil. Si el búfer se llena, los eventos se descartan y se cuentan
+ */
+public final class Bitacora {
+    
+    /**
+     * Niveles en orden de severidad
+     */
+    public enum Nivel { DEBUG, INFO, AVISO, ERROR, NINGUNO }
+    
+    private static final String RECURSO_CONFIGURACION = "bitacora.properties";
+    private static final String PREFIJO_NIVEL = "bitacora.nivel";
+    private static final int CAPACIDAD_BUFER = 8192;
+    private static final int TAMANO_LOTE = 256;
+    private static final long ESPERA_VACIADO_MS = 2000;
+    private static final DateTimeFormatter FORMATO_FECHA =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    
+    private static final ConcurrentHashMap<String, Bitacora> BITACORAS = new ConcurrentHashMap<>();
+    private static final Map<String, Nivel> NIVELES_POR_PREFIJO = new ConcurrentHashMap<>();
+    private static final ArrayBlockingQueue<Evento> PENDIENTES = new ArrayBlockingQueue<>(CAPACIDAD_BUFER);
+    private static final AtomicLong DESCARTADOS = new AtomicLong();
+    private static final ArchivoRotativo ARCHIVO;
+    private static volatile Nivel nivelRaiz = Nivel.INFO;
+    private static volatile boolean consola = true;
+    private static volatile boolean escribiendo;
+    
+    static {
+        Properties configuracion = cargarConfiguracion();
+        for (String clave : configuracion.stringPropertyNames()) {
+            if (clave.equals(PREFIJO_NIVEL)) {
+                nivelRaiz = leerNivel(configuracion.getProperty(clave), Nivel.INFO);
+            } else if (clave.startsWith(PREFIJO_NIVEL + ".")) {
+                NIVELES_POR_PREFIJO.put(clave.substring(PREFIJO_NIVEL.length() + 1),
+                    leerNivel(configuracion.getProperty(clave), Nivel.INFO));
+            }
+        }
+        consola = Boolean.parseBoolean(configuracion.getProperty("bitacora.consola", "true").trim());
+        ARCHIVO = new ArchivoRotativo(
+            Paths.get(configuracion.getProperty("bitacora.archivo", "logs/hospital.log").trim()),
+            leerEntero(configuracion, "bitacora.tamano_maximo_mb", 10) * 1024L * 1024L,
+            leerEntero(configuracion, "bitacora.archivos_rotados", 5));
+        
+        Thread escritor = new Thread(Bitacora::escribirPendientes, "bitacora");
+        escritor.setDaemon(true);
+        escritor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Bitacora::vaciar, "bitacora-cierre"));
+    }
+    
+    private final String origen;
+    private volatile int nivelMinimo;
+    
+    private Bitacora(String origen) {
+        this.origen = origen;
+        this.nivelMinimo = resolverNivel(origen).ordinal();
+    }
+    
+    /**
+     * Obtiene la bitácora de una clase
+     * @param clase Clase que registra eventos; su paquete determina el nivel
+     * @return Bitácora compartida para ese nombre
+     */
+    public static Bitacora de(Class<?> clase) {
+        return de(clase.getName());
+    }
+    
+    /**
+     * Obtiene la bitácora con un nombre de origen
+     * @param origen Nombre calificado (por ejemplo "dao.PacienteDAO")
+     * @return Bitácora compartida para ese nombre
+     */
+    public static Bitacora de(String origen) {
+        return BITACORAS.computeIfAbsent(origen, Bitacora::new);
+    }
+    
+    // Consulta de niveles
+    
+    public boolean estaHabilitado(Nivel nivel) {
+        return nivel.ordinal() >= nivelMinimo;
+    }
+    
+    public boolean debugHabilitado() {
+        return nivelMinimo == 0;
+    }
+    
+    // Registro de eventos. Los campos son pares clave, valor; el texto se formatea en el hilo de fondo
+    
+    public void debug(String mensaje) {
+        if (nivelMinimo <= 0) {
+            publicar(Nivel.DEBUG, mensaje, null, null);
+        }
+    }
+    
+    public void debug(String mensaje, Object... campos) {
+        if (nivelMinimo <= 0) {
+            publicar(Nivel.DEBUG, mensaje, campos, null);
+        }
+    }
+    
+    /**
+     * Registra un mensaje de depuración que sólo se construye si el nivel está habilitado
+     * @param mensaje Proveedor del mensaje
+     */
+    public void debug(Supplier<String> mensaje) {
+        if (nivelMinimo <= 0) {
+            publicar(Nivel.DEBUG, mensaje.get(), null, null);
+        }
+    }
+    
+    public void info(String mensaje) {
+        if (nivelMinimo <= 1) {
+            publicar(Nivel.INFO, mensaje, null, null);
+        }
+    }
+    
+    public void info(String mensaje, Object... campos) {
+        if (nivelMinimo <= 1) {
+            publicar(Nivel.INFO, mensaje, campos, null);
+        }
+    }
+    
+    public void aviso(String mensaje) {
+        if (nivelMinimo <= 2) {
+            publicar(Nivel.AVISO, mensaje, null, null);
+        }
+    }
+    
+    public void aviso(String mensaje, Object... campos) {
+        if (nivelMinimo <= 2) {
+            publicar(Nivel.AVISO, mensaje, campos, null);
+        }
+    }
+    
+    public void error(String mensaje) {
+        if (nivelMinimo <= 3) {
+            publicar(Nivel.ERROR, mensaje, null, null);
+        }
+    }
+    
+    /**
+     * Registra un error con su traza de pila
+     * @param mensaje Descripción del error
+     * @param error Excepción asociada
+     */
+    public void error(String mensaje, Throwable error) {
+        if (nivelMinimo <= 3) {
+            publicar(Nivel.ERROR, mensaje, null, error);
+        }
+    }
+    
+    public void error(String mensaje, Object... campos) {
+        if (nivelMinimo <= 3) {
+            publicar(Nivel.ERROR, mensaje, campos, null);
+        }
+    }
+    
+    private void publicar(Nivel nivel, String mensaje, Object[] campos, Throwable error) {
+        Evento evento = new Evento(System.currentTimeMillis(), nivel, Thread.currentThread().getName(),
+                                   origen, mensaje, campos, error);
+        if (!PENDIENTES.offer(evento)) {
+            DESCARTADOS.incrementAndGet();
+        }
+    }
+    
+    // Configuración en ejecución
+    
+    /**
+     * Cambia el nivel de un paquete o clase (o el de la raíz con prefijo vacío)
+     * @param prefijo Paquete o clase, por ejemplo "dao" o "services.TriageService"
+     * @param nivel Nivel mínimo a registrar
+     */
+    public static void setNivel(String prefijo, Nivel nivel) {
+        if (prefijo == null || prefijo.isEmpty()) {
+            nivelRaiz = nivel;
+        } else {
+            NIVELES_POR_PREFIJO.put(prefijo, nivel);
+        }
+        for (Bitacora bitacora : BITACORAS.values()) {
+            bitacora.nivelMinimo = resolverNivel(bitacora.origen).ordinal();
+        }
+    }
+    
+    /**
+     * Nivel efectivo para un origen: el del prefijo configurado más largo que lo contenga
+     * @param origen Nombre calificado
+     * @return Nivel aplicable
+     */
+    public static Nivel resolverNivel(String origen) {
+        Nivel nivel = nivelRaiz;
+        int longitud = -1;
+        for (Map.Entry<String, Nivel> entrada : NIVELES_POR_PREFIJO.entrySet()) {
+            String prefijo = entrada.getKey();
+            boolean aplica = origen.equals(prefijo) || origen.startsWith(prefijo + ".");
+            if (aplica && prefijo.length() > longitud) {
+                nivel = entrada.getValue();
+                longitud = prefijo.length();
+            }
+        }
+        return nivel;
+    }
+    
+    public static void setConsola(boolean habilitada) {
+        consola = habilitada;
+    }
+    
+    public static Path getArchivo() {
+        return ARCHIVO.getArchivo();
+    }
+    
+    /**
+     * @return Eventos descartados porque el búfer estaba lleno
+     */
+    public static long getDescartados() {
+        return DESCARTADOS.get();
+    }
+    
+    /**
+     * Espera (hasta dos segundos) a que se escriban los eventos pendientes
+     * Se llama al cerrar la aplicación para no perder los últimos mensajes
+     */
+    public static void vaciar() {
+        long limite = System.currentTimeMillis() + ESPERA_VACIADO_MS;
+        while ((!PENDIENTES.isEmpty() || escribiendo) && System.currentTimeMillis() < limite) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    // Hilo de fondo
+    
+    private static void escribirPendientes() {
+        List<Evento> lote = new ArrayList<>(TAMANO_LOTE);
+        StringBuilder texto = new StringBuilder(8192);
+        long descartadosReportados = 0;
+        
+        while (true) {
+            try {
+                Evento primero = PENDIENTES.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                escribiendo = true;
+                lote.add(primero);
+                PENDIENTES.drainTo(lote, TAMANO_LOTE - 1);
+                
+                texto.setLength(0);
+                long descartados = DESCARTADOS.get();
+                if (descartados > descartadosReportados) {
+                    texto.append(FORMATO_FECHA.format(Instant.now())).append(" AVISO [bitacora] utils.Bitacora - ")
+                         .append("Eventos descartados por búfer lleno descartados=")
+                         .append(descartados - descartadosReportados).append(System.lineSeparator());
+                    descartadosReportados = descartados;
+                }
+                for (Evento evento : lote) {
+                    int inicio = texto.length();
+                    formatear(evento, texto);
+                    if (consola) {
+                        String linea = texto.substring(inicio);
+                        if (evento.nivel.ordinal() >= Nivel.AVISO.ordinal()) {
+                            System.err.print(linea);
+                        } else {
+                            System.out.print(linea);
+                        }
+                    }
+                }
+                
+                try {
+                    ARCHIVO.escribir(texto.toString());
+                    ARCHIVO.vaciar();
+                } catch (IOException e) {
+                    // La bitácora no puede registrarse a sí misma
+                    System.err.println("Error al escribir bitácora: " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Error al formatear evento de bitácora: " + e.getMessage());
+            } finally {
+                lote.clear();
+                escribiendo = false;
+            }
+        }
+    }
+    
+    /**
+     * Formato: fecha NIVEL [hilo] origen - mensaje clave=valor ... y la traza si hay excepción
+     */
+    private static void formatear(Evento evento, StringBuilder texto) {
+        texto.append(FORMATO_FECHA.format(Instant.ofEpochMilli(evento.momento)))
+             .append(' ').append(evento.nivel.name())
+             .append(" [").append(evento.hilo).append("] ")
+             .append(evento.origen).append(" - ")
+             .append(evento.mensaje);
+        
+        Object[] campos = evento.campos;
+        if (campos != null) {
+            for (int i = 0; i < campos.length; i += 2) {
+                texto.append(' ');
+                if (i + 1 < campos.length) {
+                    texto.append(campos[i]).append('=');
+                    agregarValor(texto, campos[i + 1]);
+                } else {
+                    texto.append("?=");
+                    agregarValor(texto, campos[i]);
+                }
+            }
+        }
+        texto.append(System.lineSeparator());
+        
+        if (evento.error != null) {
+            StringWriter traza = new StringWriter();
+            evento.error.printStackTrace(new PrintWriter(traza));
+            texto.append(traza);
+        }
+    }
+    
+    private static void agregarValor(StringBuilder texto, Object valor) {
+        String cadena = String.valueOf(valor);
+        if (cadena.indexOf(' ') >= 0 || cadena.indexOf('=') >= 0 || cadena.isEmpty()) {
+            texto.append('"').append(cadena.replace("\"", "\\\"")).append('"');
+        } else {
+            texto.append(cadena);
+        }
+    }
+    
+    // Configuración inicial
+    
+    private static Properties cargarConfiguracion() {
+        Properties configuracion = new Properties();
+        try (InputStream entrada = Bitacora.class.getClassLoader().getResourceAsStream(RECURSO_CONFIGURACION)) {
+            if (entrada != null) {
+                configuracion.load(entrada);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al cargar configuración de bitácora: " + e.getMessage());
+        }
+        // Las propiedades del sistema tienen prioridad sobre el archivo
+        for (String clave : System.getProperties().stringPropertyNames()) {
+            if (clave.startsWith("bitacora.")) {
+                configuracion.setProperty(clave, System.getProperty(clave));
+            }
+        }
+        return configuracion;
+    }
+    
+    private static Nivel leerNivel(String valor, Nivel porDefecto) {
+        try {
+            return Nivel.valueOf(valor.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("Nivel de bitácora inválido: " + valor);
+            return porDefecto;
+        }
+    }
+    
+    private static int leerEntero(Properties configuracion, String clave, int porDefecto) {
+        try {
+            return Integer.parseInt(configuracion.getProperty(clave, String.valueOf(porDefecto)).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + clave + ": " + configuracion.getProperty(clave));
+            return porDefecto;
+        }
+    }
+    
+    /**
+     * Evento encolado; el formateo se hace en el hilo de fondo
+     */
+    private static final class Evento {
+        private final long momento;
+        private final Nivel nivel;
+        private final String hilo;
+        private final String origen;
+        private final String mensaje;
+        private final Object[] campos;
+        private final Throwable error;
+        
+        private Evento(long momento, Nivel nivel, String hilo, String origen,
+                       String mensaje, Object[] campos, Throwable error) {
+            this.momento = momento;
+            this.nivel = nivel;
+            this.hilo = hilo;
+            this.origen = origen;
+            this.mensaje = mensaje;
+            this.campos = campos;
+            this.error = error;
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package utils;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Clase utilitaria para gestionar la conexión a la base de datos MySQL
  * Implementa patrón Singleton para garantizar una sola instancia
  * Maneja pool de conexiones básico y configuración flexible
+ * Además del servidor principal admite réplicas de lectura con nombre (db.replicas): las
+ * consultas marcadas con RutaConsulta.REPLICA van a una réplica cuyo retraso esté dentro
+ * del máximo configurado y, si ninguna lo está, al principal
  */
 public class DatabaseConnection {
     
+    private static final Bitacora BITACORA = Bitacora.de(DatabaseConnection.class);
+    
     // Instancia singleton
     private static DatabaseConnection instance;
     
@@ -21,6 +38,13 @@ public class DatabaseConnection {
     private static final String DEFAULT_DATABASE = "hospital_santa_vida";
     private static final String DEFAULT_USERNAME = "root";
     private static final String DEFAULT_PASSWORD = "Erick1234";
+    private static final long DEFAULT_UMBRAL_CONSULTA_LENTA_MS = 250;
+    private static final long DEFAULT_RETRASO_MAXIMO_REPLICA_S = 30;
+    private static final long DEFAULT_VERIFICACION_REPLICA_MS = 5000;
+    private static final String METRICA_LECTURAS = "hsv_db_lecturas_replicables";
+    private static final String DESCRIPCION_LECTURAS = "Lecturas con ruta de réplica por origen de datos que las atendió";
+    // Conexiones dedicadas de lectura: con fetchSize positivo las filas se piden al servidor por bloques
+    private static final String PARAMETROS_LECTURA_DEDICADA = "&useCursorFetch=true";
     
     // Configuración actual
     private String host;
@@ -30,6 +54,17 @@ public class DatabaseConnection {
     private String password;
     private String url;
     
+    // Registro de consultas lentas (ver dao.RegistroConsultasLentas)
+    private long umbralConsultaLentaMs;
+    private boolean capturarPlanes;
+    
+    // Réplicas de lectura, en el orden de db.replicas
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger siguienteReplica = new AtomicInteger();
+    private long retrasoMaximoReplicaS;
+    private long verificacionReplicaMs;
+    private RegistroMetricas.Contador lecturasEnPrincipal;
+    
     // Estado de la conexión
     private Connection connection;
     private boolean connected;
@@ -40,6 +75,25 @@ public class DatabaseConnection {
     private DatabaseConnection() {
         cargarConfiguracion();
         construirUrl();
+        registrarMetricasReplicas();
+    }
+    
+    /**
+     * Publica cuántas lecturas de reportes atendió cada réplica (y cuántas cayeron al
+     * principal) y el último retraso medido de cada réplica
+     */
+    private void registrarMetricasReplicas() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        lecturasEnPrincipal = metricas.contador(METRICA_LECTURAS, DESCRIPCION_LECTURAS, "origen", "principal");
+        for (Replica replica : replicas) {
+            replica.lecturas = metricas.contador(METRICA_LECTURAS, DESCRIPCION_LECTURAS, "origen", replica.nombre);
+            metricas.indicador("hsv_db_replica_retraso_segundos",
+                "Último retraso de replicación medido por réplica (-1 si se desconoce)",
+                () -> replica.retrasoSegundos, "replica", replica.nombre);
+        }
     }
     
     /**
@@ -73,12 +127,16 @@ public class DatabaseConnection {
                 this.database = props.getProperty("db.database", DEFAULT_DATABASE);
                 this.username = props.getProperty("db.username", DEFAULT_USERNAME);
                 this.password = props.getProperty("db.password", DEFAULT_PASSWORD);
+                this.umbralConsultaLentaMs = Long.parseLong(props.getProperty("db.consultas_lentas.umbral_ms",
+                    String.valueOf(DEFAULT_UMBRAL_CONSULTA_LENTA_MS)).trim());
+                this.capturarPlanes = Boolean.parseBoolean(props.getProperty("db.consultas_lentas.explain", "false").trim());
+                cargarReplicas(props);
             } else {
                 // Usar configuración por defecto
                 usarConfiguracionPorDefecto();
             }
-        } catch (IOException e) {
-            System.err.println("Error al cargar configuración de BD: " + e.getMessage());
+        } catch (IOException | NumberFormatException e) {
+            BITACORA.error("Error al cargar configuración de BD: " + e.getMessage());
             usarConfiguracionPorDefecto();
         }
     }
@@ -92,12 +150,59 @@ public class DatabaseConnection {
         this.database = DEFAULT_DATABASE;
         this.username = DEFAULT_USERNAME;
         this.password = DEFAULT_PASSWORD;
+        this.umbralConsultaLentaMs = DEFAULT_UMBRAL_CONSULTA_LENTA_MS;
+        this.capturarPlanes = false;
+        this.replicas.clear();
+        this.retrasoMaximoReplicaS = DEFAULT_RETRASO_MAXIMO_REPLICA_S;
+        this.verificacionReplicaMs = DEFAULT_VERIFICACION_REPLICA_MS;
+    }
+    
+    /**
+     * Carga las réplicas de lectura declaradas en db.replicas (nombres separados por coma)
+     * Cada réplica toma db.replica.<nombre>.host, port, database, username y password;
+     * las claves que falten se heredan del servidor principal
+     * Con db.replica.<nombre>.verificar_retraso=false no se consulta el estado de replicación
+     * (copias sin replicación configurada, por ejemplo una segunda instancia local de pruebas)
+     * @param props Propiedades de database.properties
+     */
+    private void cargarReplicas(Properties props) {
+        this.retrasoMaximoReplicaS = Long.parseLong(props.getProperty("db.replicas.retraso_maximo_s",
+            String.valueOf(DEFAULT_RETRASO_MAXIMO_REPLICA_S)).trim());
+        this.verificacionReplicaMs = Long.parseLong(props.getProperty("db.replicas.verificacion_ms",
+            String.valueOf(DEFAULT_VERIFICACION_REPLICA_MS)).trim());
+        
+        replicas.clear();
+        for (String nombre : props.getProperty("db.replicas", "").split(",")) {
+            nombre = nombre.trim();
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            String prefijo = "db.replica." + nombre + ".";
+            String url = armarUrl(props.getProperty(prefijo + "host", host).trim(),
+                props.getProperty(prefijo + "port", port).trim(),
+                props.getProperty(prefijo + "database", database).trim());
+            replicas.add(new Replica(nombre, url,
+                props.getProperty(prefijo + "username", username),
+                props.getProperty(prefijo + "password", password),
+                Boolean.parseBoolean(props.getProperty(prefijo + "verificar_retraso", "true").trim())));
+        }
+        if (!replicas.isEmpty()) {
+            BITACORA.info("Réplicas de lectura configuradas", "replicas", replicas.size(),
+                "retraso_maximo_s", retrasoMaximoReplicaS);
+        }
     }
     
     /**
      * Construye la URL de conexión a MySQL
      */
     private void construirUrl() {
+        this.url = armarUrl(host, port, database);
+    }
+    
+    /**
+     * Arma la URL JDBC de un servidor MySQL
+     */
+    private static String armarUrl(String host, String port, String database) {
         StringBuilder urlBuilder = new StringBuilder();
         urlBuilder.append("jdbc:mysql://")
                   .append(host)
@@ -113,7 +218,7 @@ public class DatabaseConnection {
                   .append("&useUnicode=true")
                   .append("&characterEncoding=utf8");
         
-        this.url = urlBuilder.toString();
+        return urlBuilder.toString();
     }
     
     /**
@@ -122,10 +227,10 @@ public class DatabaseConnection {
      */
     public boolean conectar() {
         try {
-            System.out.println("[DB] Classpath actual: " + System.getProperty("java.class.path"));
-            System.out.println("[DB] Intentando cargar driver MySQL 'com.mysql.cj.jdbc.Driver'");
+            if (BITACORA.debugHabilitado()) {
+                BITACORA.debug("Cargando driver MySQL", "classpath", System.getProperty("java.class.path"));
+            }
             Class.forName("com.mysql.cj.jdbc.Driver");
-            System.out.println("[DB] Driver cargado OK");
             
             // Establecer conexión
             Properties connProps = new Properties();
@@ -135,17 +240,16 @@ public class DatabaseConnection {
             this.connection = DriverManager.getConnection(url, connProps);
             this.connected = true;
             
-            System.out.println("Conexión exitosa a la base de datos: " + database);
+            BITACORA.info("Conexión exitosa a la base de datos: " + database);
             return true;
             
         } catch (ClassNotFoundException e) {
-            System.err.println("[DB] NO se encontró el driver en el classpath");
-            System.err.println(e);
+            BITACORA.error("No se encontró el driver MySQL en el classpath", e);
             this.connected = false;
             return false;
             
         } catch (SQLException e) {
-            System.err.println("[DB] SQLException al conectar: " + e.getMessage());
+            BITACORA.error("[DB] SQLException al conectar: " + e.getMessage());
             this.connected = false;
             return false;
         }
@@ -164,12 +268,84 @@ public class DatabaseConnection {
             }
             return connection;
         } catch (SQLException e) {
-            System.err.println("Error al verificar conexión: " + e.getMessage());
+            BITACORA.error("Error al verificar conexión: " + e.getMessage());
             conectar();
             return connection;
         }
     }
     
+    /**
+     * Obtiene la conexión para una lectura según su ruta
+     * Con RutaConsulta.REPLICA se reparten las lecturas entre las réplicas (turno rotatorio);
+     * se salta la réplica que no responde, cuya replicación está detenida o cuyo retraso
+     * supera db.replicas.retraso_maximo_s, y si no queda ninguna se usa el principal
+     * El estado de cada réplica se vuelve a comprobar como máximo cada db.replicas.verificacion_ms
+     * La conexión de una réplica se comparte entre los lectores; al terminar, cada uno la
+     * devuelve con liberarConexionLectura para que un descarte no la cierre mientras otro la usa
+     * @param ruta Ruta indicada por el llamador
+     * @return Conexión de una réplica, del principal, o null si tampoco hay conexión al principal
+     */
+    public Connection getConnection(RutaConsulta ruta) {
+        if (ruta == RutaConsulta.REPLICA && !replicas.isEmpty()) {
+            int inicio = Math.floorMod(siguienteReplica.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((inicio + i) % replicas.size());
+                Connection conn = replica.obtener(retrasoMaximoReplicaS, verificacionReplicaMs);
+                if (conn != null) {
+                    replica.lecturas.incrementar();
+                    return conn;
+                }
+            }
+        }
+        if (ruta == RutaConsulta.REPLICA && lecturasEnPrincipal != null) {
+            lecturasEnPrincipal.incrementar();
+        }
+        return getConnection();
+    }
+    
+    /**
+     * Descarta la réplica dueña de una conexión que falló a mitad de una consulta
+     * La réplica no vuelve a recibir lecturas hasta su siguiente verificación; la conexión
+     * se retira y se cierra cuando la libera el último lector que la tenía
+     * @param conn Conexión entregada por getConnection(RutaConsulta)
+     * @return true si la conexión era de una réplica (el llamador puede reintentar en el principal)
+     */
+    public boolean descartarConexionLectura(Connection conn) {
+        for (Replica replica : replicas) {
+            if (replica.descartar(conn)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Devuelve una conexión obtenida con getConnection(RutaConsulta) al terminar la lectura
+     * Si era de una réplica y ya se retiró, se cierra al no quedar lectores que la usen;
+     * la conexión del principal no se toca
+     * @param conn Conexión entregada por getConnection(RutaConsulta)
+     */
+    public void liberarConexionLectura(Connection conn) {
+        for (Replica replica : replicas) {
+            if (replica.liberar(conn)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Estado de las réplicas de lectura: nombre, retraso en segundos (-1 si se desconoce)
+     * y si reciben lecturas
+     * @return Descripción de cada réplica en el orden de db.replicas
+     */
+    public Map<String, String> obtenerEstadoReplicas() {
+        Map<String, String> estado = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            estado.put(replica.nombre, replica.describir());
+        }
+        return estado;
+    }
+    
     /**
      * Método estático para obtener conexión - usado por DAOs
      */
@@ -192,10 +368,13 @@ public class DatabaseConnection {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
                 this.connected = false;
-                System.out.println("Conexión cerrada exitosamente");
+                BITACORA.info("Conexión cerrada exitosamente");
             }
         } catch (SQLException e) {
-            System.err.println("Error al cerrar conexión: " + e.getMessage());
+            BITACORA.error("Error al cerrar conexión: " + e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            replica.cerrar();
         }
     }
     
@@ -227,53 +406,113 @@ public class DatabaseConnection {
                 return resultado;
             }
         } catch (SQLException e) {
-            System.err.println("Error en prueba de conexión: " + e.getMessage());
+            BITACORA.error("Error en prueba de conexión: " + e.getMessage());
         }
         return false;
     }
     
     /**
      * Ejecuta un script SQL (útil para inicialización)
-     * @param scriptPath Ruta del archivo SQL
+     * El script se lee en streaming: respeta DELIMITER, comillas y comentarios,
+     * y agrupa los INSERT/UPDATE/DELETE consecutivos en lotes
+     * @param scriptPath Ruta del script en el classpath o en el sistema de archivos
      * @return true si se ejecutó exitosamente
      */
     public boolean ejecutarScript(String scriptPath) {
-        try {
-            Connection conn = getConnection();
-            if (conn == null) return false;
-            
-            // Leer script desde recursos
-            InputStream input = getClass().getClassLoader().getResourceAsStream(scriptPath);
-            if (input == null) {
-                System.err.println("Script no encontrado: " + scriptPath);
-                return false;
-            }
-            
-            // Leer contenido del script
-            Scanner scanner = new Scanner(input);
-            scanner.useDelimiter("\\A");
-            String script = scanner.hasNext() ? scanner.next() : "";
-            scanner.close();
-            
-            // Ejecutar script por bloques (separar por ;)
-            String[] statements = script.split(";");
-            Statement stmt = conn.createStatement();
-            
-            for (String sql : statements) {
-                sql = sql.trim();
-                if (!sql.isEmpty() && !sql.startsWith("--")) {
-                    stmt.execute(sql);
+        EjecutorScriptSQL.ResultadoScript resultado;
+        InputStream input = getClass().getClassLoader().getResourceAsStream(scriptPath);
+        if (input == null && !Files.isRegularFile(Paths.get(scriptPath))) {
+            BITACORA.error("Script no encontrado: " + scriptPath);
+            return false;
+        }
+        
+        // El ejecutor desactiva el autocommit y confirma por sentencia: no debe correr en la conexión compartida
+        try (input; Connection conn = abrirConexionDedicada()) {
+            if (input != null) {
+                try (Reader lector = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                    resultado = new EjecutorScriptSQL(conn).ejecutar(lector);
                 }
+            } else {
+                resultado = new EjecutorScriptSQL(conn).ejecutar(Paths.get(scriptPath));
             }
-            
-            stmt.close();
-            System.out.println("Script ejecutado exitosamente: " + scriptPath);
-            return true;
-            
+        } catch (IOException e) {
+            BITACORA.error("Error leyendo script: " + e.getMessage());
+            return false;
         } catch (SQLException e) {
-            System.err.println("Error ejecutando script: " + e.getMessage());
+            BITACORA.error("Error ejecutando script: " + e.getMessage());
             return false;
         }
+        
+        if (resultado.isExitoso()) {
+            BITACORA.info("Script ejecutado exitosamente: " + scriptPath + System.lineSeparator() + resultado);
+        } else {
+            BITACORA.error("Error ejecutando script: " + resultado.getMensaje());
+        }
+        return resultado.isExitoso();
+    }
+    
+    /**
+     * Ejecuta un script SQL grande (volcados de datos, cargas iniciales) en una conexión
+     * dedicada con rewriteBatchedStatements, para que cada lote viaje como un solo
+     * INSERT multi-fila sin bloquear la conexión compartida de la aplicación
+     * @param archivo Ruta del script
+     * @param continuarEnError true para registrar los errores y seguir con la siguiente sentencia
+     * @return Resultado con tiempos por tipo de sentencia y las sentencias más lentas
+     */
+    public EjecutorScriptSQL.ResultadoScript ejecutarScriptCompleto(Path archivo, boolean continuarEnError) {
+        try (Connection conn = abrirConexionDedicada()) {
+            return new EjecutorScriptSQL(conn, EjecutorScriptSQL.TAMAÑO_LOTE_DEFAULT, continuarEnError).ejecutar(archivo);
+        } catch (SQLException e) {
+            BITACORA.error("Error ejecutando script: " + e.getMessage());
+            return EjecutorScriptSQL.ResultadoScript.fallido("No se pudo abrir conexión: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Abre una conexión nueva, independiente de la compartida, optimizada para lotes
+     * El llamador es responsable de cerrarla
+     * @return Conexión nueva
+     * @throws SQLException si no se pudo conectar
+     */
+    public Connection abrirConexionDedicada() throws SQLException {
+        // LOCAL INFILE solo en esta conexión: la usan los scripts de carga generados por la aplicación
+        return abrirConexionNueva(url + "&rewriteBatchedStatements=true&allowLoadLocalInfile=true");
+    }
+    
+    private Connection abrirConexionNueva(String urlConexion) throws SQLException {
+        Properties connProps = new Properties();
+        connProps.put("user", username);
+        connProps.put("password", password);
+        return DriverManager.getConnection(urlConexion, connProps);
+    }
+    
+    /**
+     * Abre una conexión nueva de lectura para extracciones largas (exportaciones, respaldos
+     * analíticos), de modo que el recorrido no ocupe la conexión compartida
+     * Con RutaConsulta.REPLICA se abre contra la primera réplica disponible y, si no hay,
+     * contra el principal. El llamador es responsable de cerrarla
+     * Admite los dos modos de lectura por partes del driver: setFetchSize(Integer.MIN_VALUE) entrega
+     * el resultado en streaming y un fetchSize positivo usa un cursor del servidor (useCursorFetch)
+     * @param ruta Ruta de la lectura
+     * @return Conexión nueva de solo lectura
+     * @throws SQLException si no se pudo conectar
+     */
+    public Connection abrirConexionDedicada(RutaConsulta ruta) throws SQLException {
+        if (ruta == RutaConsulta.REPLICA) {
+            for (Replica replica : replicas) {
+                if (replica.obtener(retrasoMaximoReplicaS, verificacionReplicaMs) != null) {
+                    try {
+                        return replica.abrirNueva();
+                    } catch (SQLException e) {
+                        BITACORA.aviso("No se pudo abrir conexión dedicada en la réplica", "replica", replica.nombre,
+                            "error", e.getMessage());
+                    }
+                }
+            }
+        }
+        Connection conn = abrirConexionNueva(url + PARAMETROS_LECTURA_DEDICADA);
+        conn.setReadOnly(true);
+        return conn;
     }
     
     /**
@@ -288,7 +527,7 @@ public class DatabaseConnection {
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("Error al iniciar transacción: " + e.getMessage());
+            BITACORA.error("Error al iniciar transacción: " + e.getMessage());
         }
         return false;
     }
@@ -306,7 +545,7 @@ public class DatabaseConnection {
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("Error al confirmar transacción: " + e.getMessage());
+            BITACORA.error("Error al confirmar transacción: " + e.getMessage());
         }
         return false;
     }
@@ -324,7 +563,7 @@ public class DatabaseConnection {
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("Error al revertir transacción: " + e.getMessage());
+            BITACORA.error("Error al revertir transacción: " + e.getMessage());
         }
         return false;
     }
@@ -342,6 +581,39 @@ public class DatabaseConnection {
         construirUrl();
     }
     
+    /**
+     * Cambia la base de datos conservando servidor y credenciales (p. ej. una copia
+     * desechable para benchmarks); cierra la conexión actual para que la siguiente
+     * solicitud se conecte a la nueva base
+     * @param database Nombre de la base de datos, o cadena vacía para conectarse solo al servidor
+     */
+    public void cambiarBaseDatos(String database) {
+        desconectar();
+        this.database = database;
+        construirUrl();
+    }
+    
+    public String getBaseDatos() {
+        return database;
+    }
+    
+    /**
+     * Umbral a partir del cual una sentencia se registra como lenta
+     * Se configura con db.consultas_lentas.umbral_ms en database.properties
+     * @return Umbral en milisegundos
+     */
+    public long getUmbralConsultaLentaMs() {
+        return umbralConsultaLentaMs;
+    }
+    
+    /**
+     * Indica si se captura el EXPLAIN de las consultas lentas (db.consultas_lentas.explain)
+     * @return true si se capturan los planes
+     */
+    public boolean isCapturarPlanes() {
+        return capturarPlanes;
+    }
+    
     /**
      * Obtiene información de la configuración actual
      * @return String con información de conexión (sin password)
@@ -381,39 +653,22 @@ public class DatabaseConnection {
             tables.close();
             stats.put("table_count", tableCount);
             
+            // Totales de las sentencias medidas por los DAOs (detalle en RegistroMetricas)
+            RegistroMetricas metricas = RegistroMetricas.getInstance();
+            stats.put("consultas_medidas", metricas.totalOperaciones("hsv_dao_consulta_segundos"));
+            stats.put("consultas_con_error", metricas.totalErrores("hsv_dao_consulta_segundos"));
+            if (!replicas.isEmpty()) {
+                stats.put("replicas", obtenerEstadoReplicas());
+            }
+            
         } catch (SQLException e) {
-            System.err.println("Error obteniendo estadísticas: " + e.getMessage());
+            BITACORA.error("Error obteniendo estadísticas: " + e.getMessage());
             return null;
         }
         
         return stats;
     }
     
-    // Importar Scanner para el método ejecutarScript
-    private static class Scanner {
-        private final java.util.Scanner scanner;
-        
-        Scanner(InputStream input) {
-            this.scanner = new java.util.Scanner(input, "UTF-8");
-        }
-        
-        void useDelimiter(String pattern) {
-            scanner.useDelimiter(pattern);
-        }
-        
-        boolean hasNext() {
-            return scanner.hasNext();
-        }
-        
-        String next() {
-            return scanner.next();
-        }
-        
-        void close() {
-            scanner.close();
-        }
-    }
-    
     /**
      * Ejecuta una consulta de actualización (INSERT, UPDATE, DELETE)
      * @param sql La consulta SQL a ejecutar
@@ -460,6 +715,207 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * Réplica de lectura con su conexión propia
+     * La conexión se abre de solo lectura y con tiempo de conexión corto para que una réplica
+     * caída no detenga el reporte; el retraso se mide con SHOW REPLICA STATUS
+     * (SHOW SLAVE STATUS en servidores anteriores a MySQL 8.0.22)
+     * Cada conexión entregada lleva la cuenta de los lectores que la tienen: la que se
+     * reemplaza o se descarta queda retirada y se cierra cuando el último la libera
+     */
+    private static final class Replica {
+        private final String nombre;
+        private final String url;
+        private final String usuario;
+        private final String password;
+        private final boolean verificarRetraso;
+        private RegistroMetricas.Contador lecturas;
+        
+        private Connection conexion;
+        // Lectores que tienen cada conexión entregada, incluidas las retiradas que aún no se cierran
+        private final Map<Connection, Integer> lectores = new IdentityHashMap<>();
+        private boolean verificada;
+        private boolean disponible;
+        private long ultimaVerificacion;
+        private String motivoDescarte;
+        private volatile long retrasoSegundos = -1;
+        
+        Replica(String nombre, String url, String usuario, String password, boolean verificarRetraso) {
+            this.nombre = nombre;
+            this.url = url + "&connectTimeout=2000&socketTimeout=300000";
+            this.usuario = usuario;
+            this.password = password;
+            this.verificarRetraso = verificarRetraso;
+        }
+        
+        /**
+         * Devuelve la conexión si la réplica puede recibir lecturas
+         * Entre verificaciones se reutiliza el último resultado
+         */
+        synchronized Connection obtener(long retrasoMaximoS, long verificacionMs) {
+            long ahora = System.nanoTime();
+            if (verificada && ahora - ultimaVerificacion < verificacionMs * 1_000_000L) {
+                return disponible ? entregar() : null;
+            }
+            verificada = true;
+            ultimaVerificacion = ahora;
+            
+            try {
+                if (conexion == null || conexion.isClosed() || !conexion.isValid(2)) {
+                    retirar();
+                    Properties connProps = new Properties();
+                    connProps.put("user", usuario);
+                    connProps.put("password", password);
+                    conexion = DriverManager.getConnection(url, connProps);
+                    conexion.setReadOnly(true);
+                }
+                long retraso = verificarRetraso ? medirRetraso(conexion) : 0;
+                retrasoSegundos = retraso;
+                if (retraso < 0) {
+                    marcarDescartada("la replicación está detenida o el servidor no es réplica");
+                } else if (retraso > retrasoMaximoS) {
+                    marcarDescartada("retraso de " + retraso + " s (máximo " + retrasoMaximoS + " s)");
+                } else {
+                    if (!disponible) {
+                        BITACORA.info("Réplica disponible para lecturas", "replica", nombre, "retraso_s", retraso);
+                    }
+                    disponible = true;
+                    motivoDescarte = null;
+                }
+            } catch (SQLException e) {
+                retirar();
+                retrasoSegundos = -1;
+                marcarDescartada("error al conectar o verificar: " + e.getMessage());
+            }
+            return disponible ? entregar() : null;
+        }
+        
+        private Connection entregar() {
+            if (conexion != null) {
+                lectores.merge(conexion, 1, Integer::sum);
+            }
+            return conexion;
+        }
+        
+        /**
+         * Descarta la réplica si la conexión es suya; se vuelve a verificar en el siguiente intervalo
+         * La conexión solo se retira: sigue abierta para los lectores que la tengan
+         */
+        synchronized boolean descartar(Connection conn) {
+            if (conn == null || conn != conexion) {
+                return false;
+            }
+            retirar();
+            verificada = true;
+            ultimaVerificacion = System.nanoTime();
+            marcarDescartada("falló una consulta en curso");
+            return true;
+        }
+        
+        Connection abrirNueva() throws SQLException {
+            Properties connProps = new Properties();
+            connProps.put("user", usuario);
+            connProps.put("password", password);
+            Connection nueva = DriverManager.getConnection(url + PARAMETROS_LECTURA_DEDICADA, connProps);
+            nueva.setReadOnly(true);
+            return nueva;
+        }
+        
+        /**
+         * Devuelve la conexión de un lector y cierra la retirada que ya nadie usa
+         * @return true si la conexión era de esta réplica
+         */
+        synchronized boolean liberar(Connection conn) {
+            Integer cuenta = conn == null ? null : lectores.get(conn);
+            if (cuenta == null) {
+                return false;
+            }
+            if (cuenta > 1) {
+                lectores.put(conn, cuenta - 1);
+            } else {
+                lectores.remove(conn);
+                if (conn != conexion) {
+                    cerrarConexion(conn);
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Deja de entregar la conexión actual; se cierra ahora si ningún lector la tiene
+         */
+        private void retirar() {
+            if (conexion != null) {
+                if (!lectores.containsKey(conexion)) {
+                    cerrarConexion(conexion);
+                }
+                conexion = null;
+            }
+        }
+        
+        /**
+         * Cierra la conexión actual y las retiradas (al cerrar la aplicación)
+         */
+        synchronized void cerrar() {
+            if (conexion != null && !lectores.containsKey(conexion)) {
+                cerrarConexion(conexion);
+            }
+            for (Connection retirada : lectores.keySet()) {
+                cerrarConexion(retirada);
+            }
+            lectores.clear();
+            conexion = null;
+        }
+        
+        private void cerrarConexion(Connection conn) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                BITACORA.debug("Error al cerrar conexión de réplica", "replica", nombre, "error", e.getMessage());
+            }
+        }
+        
+        synchronized String describir() {
+            String estado = !verificada ? "sin verificar" : disponible ? "disponible" : "descartada: " + motivoDescarte;
+            return "retraso " + (retrasoSegundos >= 0 ? retrasoSegundos + " s" : "desconocido") + ", " + estado;
+        }
+        
+        /**
+         * Avisa solo cuando la réplica deja de estar disponible, no en cada verificación
+         */
+        private void marcarDescartada(String motivo) {
+            boolean nuevo = disponible || motivoDescarte == null;
+            disponible = false;
+            motivoDescarte = motivo;
+            if (nuevo) {
+                BITACORA.aviso("Réplica descartada; sus lecturas van al principal", "replica", nombre, "motivo", motivo);
+            }
+        }
+        
+        /**
+         * Segundos de retraso de la réplica, o -1 si la replicación está detenida
+         * o el servidor no tiene replicación configurada
+         */
+        private static long medirRetraso(Connection conn) throws SQLException {
+            try {
+                return leerRetraso(conn, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+            } catch (SQLSyntaxErrorException e) {
+                // MySQL anterior a 8.0.22
+                return leerRetraso(conn, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+            }
+        }
+        
+        private static long leerRetraso(Connection conn, String sql, String columna) throws SQLException {
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+                if (!rs.next()) {
+                    return -1;
+                }
+                long retraso = rs.getLong(columna);
+                return rs.wasNull() ? -1 : retraso;
+            }
+        }
+    }
+    
     @Override
     public String toString() {
         return "DatabaseConnection{" +
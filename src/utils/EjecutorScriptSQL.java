@@ -0,0 +1,609 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * Ejecutor de scripts SQL por flujo (sin cargar el archivo completo en memoria)
+ * Reconoce el comando DELIMITER del cliente de MySQL, comentarios (--, # y bloques),
+ * cadenas entre comillas simples, dobles e invertidas, y conserva los comentarios ejecutables
+ * de MySQL (los que inician con /*!) y las pistas del optimizador (/*+)
+ * Las sentencias DML consecutivas (INSERT, UPDATE, DELETE, REPLACE) se envían en lotes JDBC;
+ * el resto se ejecuta una por una. Se registra el tiempo por tipo de sentencia y las más lentas
+ */
+public class EjecutorScriptSQL {
+    
+    private static final Bitacora BITACORA = Bitacora.de(EjecutorScriptSQL.class);
+    
+    public static final int TAMAÑO_LOTE_DEFAULT = 500;
+    public static final int NUMERO_SENTENCIAS_LENTAS = 10;
+    
+    private static final int TAMAÑO_BUFFER = 64 * 1024;
+    private static final int LONGITUD_VISTA_PREVIA = 120;
+    
+    /**
+     * Recibe cada sentencia completa encontrada en el script
+     */
+    @FunctionalInterface
+    public interface ReceptorSentencia {
+        void aceptar(String sql, int linea) throws SQLException;
+    }
+    
+    /**
+     * Tiempo acumulado de un tipo de sentencia (INSERT, CREATE, ...)
+     */
+    public static class EstadisticaTipo {
+        public final String tipo;
+        public long sentencias;
+        public long lotes;
+        public long nanos;
+        public long maxNanos;
+        
+        EstadisticaTipo(String tipo) {
+            this.tipo = tipo;
+        }
+        
+        public double getTotalMs() { return nanos / 1_000_000.0; }
+        public double getMaximoMs() { return maxNanos / 1_000_000.0; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s - Sentencias: %d, Lotes: %d, Total: %.1f ms, Máximo: %.1f ms",
+                                 tipo, sentencias, lotes, getTotalMs(), getMaximoMs());
+        }
+    }
+    
+    /**
+     * Sentencia (o lote) de mayor duración
+     */
+    public static class SentenciaLenta {
+        public final int linea;
+        public final String tipo;
+        public final long nanos;
+        public final String vistaPrevia;
+        
+        SentenciaLenta(int linea, String tipo, long nanos, String vistaPrevia) {
+            this.linea = linea;
+            this.tipo = tipo;
+            this.nanos = nanos;
+            this.vistaPrevia = vistaPrevia;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Línea %d (%s): %.1f ms - %s", linea, tipo, nanos / 1_000_000.0, vistaPrevia);
+        }
+    }
+    
+    /**
+     * Resultado de la ejecución de un script
+     */
+    public static class ResultadoScript {
+        private final boolean exitoso;
+        private final String mensaje;
+        private final long sentencias;
+        private final long lotes;
+        private final long filasAfectadas;
+        private final long errores;
+        private final long duracionMs;
+        private final Map<String, EstadisticaTipo> porTipo;
+        private final List<SentenciaLenta> masLentas;
+        
+        ResultadoScript(boolean exitoso, String mensaje, long sentencias, long lotes, long filasAfectadas,
+                        long errores, long duracionMs, Map<String, EstadisticaTipo> porTipo,
+                        List<SentenciaLenta> masLentas) {
+            this.exitoso = exitoso;
+            this.mensaje = mensaje;
+            this.sentencias = sentencias;
+            this.lotes = lotes;
+            this.filasAfectadas = filasAfectadas;
+            this.errores = errores;
+            this.duracionMs = duracionMs;
+            this.porTipo = porTipo;
+            this.masLentas = masLentas;
+        }
+        
+        /**
+         * Resultado de un script que no se pudo iniciar (archivo ilegible, sin conexión)
+         * @param mensaje Motivo del fallo
+         * @return Resultado sin sentencias ejecutadas
+         */
+        public static ResultadoScript fallido(String mensaje) {
+            return new ResultadoScript(false, mensaje, 0, 0, 0, 1, 0, new LinkedHashMap<>(), new ArrayList<>());
+        }
+        
+        public boolean isExitoso() { return exitoso; }
+        public String getMensaje() { return mensaje; }
+        public long getSentencias() { return sentencias; }
+        public long getLotes() { return lotes; }
+        public long getFilasAfectadas() { return filasAfectadas; }
+        public long getErrores() { return errores; }
+        public long getDuracionMs() { return duracionMs; }
+        public Map<String, EstadisticaTipo> getPorTipo() { return porTipo; }
+        public List<SentenciaLenta> getMasLentas() { return masLentas; }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Script - %s: %d sentencias, %d lotes, %d filas, %d errores en %d ms",
+                                    exitoso ? "OK" : "ERROR", sentencias, lotes, filasAfectadas, errores, duracionMs));
+            for (EstadisticaTipo estadistica : porTipo.values()) {
+                sb.append("\n  ").append(estadistica);
+            }
+            for (SentenciaLenta lenta : masLentas) {
+                sb.append("\n  ").append(lenta);
+            }
+            return sb.toString();
+        }
+    }
+    
+    private final Connection conexion;
+    private final int tamañoLote;
+    private final boolean continuarEnError;
+    
+    /**
+     * Crea un ejecutor que se detiene en el primer error
+     * @param conexion Conexión sobre la que se ejecuta el script
+     */
+    public EjecutorScriptSQL(Connection conexion) {
+        this(conexion, TAMAÑO_LOTE_DEFAULT, false);
+    }
+    
+    /**
+     * Crea un ejecutor con parámetros de lote y manejo de errores
+     * @param conexion Conexión sobre la que se ejecuta el script
+     * @param tamañoLote Número máximo de sentencias DML por lote
+     * @param continuarEnError true para registrar el error y seguir con la siguiente sentencia
+     */
+    public EjecutorScriptSQL(Connection conexion, int tamañoLote, boolean continuarEnError) {
+        if (conexion == null) {
+            throw new IllegalArgumentException("La conexión es requerida");
+        }
+        if (tamañoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo");
+        }
+        this.conexion = conexion;
+        this.tamañoLote = tamañoLote;
+        this.continuarEnError = continuarEnError;
+    }
+    
+    /**
+     * Ejecuta un script desde un archivo UTF-8
+     * @param archivo Ruta del script
+     * @return Resultado con tiempos y conteos
+     */
+    public ResultadoScript ejecutar(Path archivo) {
+        try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            return ejecutar(lector);
+        } catch (IOException e) {
+            return ResultadoScript.fallido("Error al leer script: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Ejecuta un script leído por flujo
+     * @param lector Origen del script
+     * @return Resultado con tiempos y conteos
+     */
+    public ResultadoScript ejecutar(Reader lector) {
+        Ejecucion ejecucion = new Ejecucion();
+        long inicio = System.currentTimeMillis();
+        String mensaje = "Script ejecutado exitosamente";
+        boolean exitoso = true;
+        boolean autoCommitOriginal = true;
+        
+        try {
+            autoCommitOriginal = conexion.getAutoCommit();
+            conexion.setAutoCommit(false);
+            
+            try (Statement stmt = conexion.createStatement()) {
+                ejecucion.stmt = stmt;
+                analizar(lector, ejecucion::recibir);
+                ejecucion.vaciarLote();
+            }
+            conexion.commit();
+        
+        } catch (SQLException e) {
+            exitoso = false;
+            mensaje = "Error en la línea " + ejecucion.lineaError + ": " + e.getMessage();
+            try {
+                conexion.rollback();
+            } catch (SQLException rollbackEx) {
+                BITACORA.error("Error en rollback: " + rollbackEx.getMessage());
+            }
+        } catch (IOException e) {
+            exitoso = false;
+            mensaje = "Error al leer script: " + e.getMessage();
+        } finally {
+            try {
+                conexion.setAutoCommit(autoCommitOriginal);
+            } catch (SQLException e) {
+                BITACORA.error("Error restaurando autocommit: " + e.getMessage());
+            }
+        }
+        
+        if (exitoso && ejecucion.errores > 0) {
+            exitoso = false;
+            mensaje = "Script ejecutado con " + ejecucion.errores + " errores (primero en la línea " +
+                      ejecucion.lineaError + ": " + ejecucion.primerError + ")";
+        }
+        
+        List<SentenciaLenta> masLentas = new ArrayList<>(ejecucion.masLentas);
+        masLentas.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        
+        return new ResultadoScript(exitoso, mensaje, ejecucion.sentencias, ejecucion.lotes,
+                                   ejecucion.filasAfectadas, ejecucion.errores,
+                                   System.currentTimeMillis() - inicio, ejecucion.porTipo, masLentas);
+    }
+    
+    /**
+     * Divide un script en sentencias sin ejecutarlas
+     * Los comentarios normales se descartan; los ejecutables y las pistas del optimizador se conservan
+     * @param lector Origen del script
+     * @param receptor Recibe cada sentencia con la línea donde inicia
+     * @throws IOException si hay error leyendo
+     * @throws SQLException si el receptor falla
+     */
+    public static void analizar(Reader lector, ReceptorSentencia receptor) throws IOException, SQLException {
+        new Analizador(lector).recorrer(receptor);
+    }
+    
+    /**
+     * Obtiene el tipo de una sentencia (primera palabra en mayúsculas)
+     */
+    static String tipoSentencia(String sql) {
+        int i = 0;
+        while (i < sql.length() && !Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        int inicio = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return inicio < i ? sql.substring(inicio, i).toUpperCase() : "OTRO";
+    }
+    
+    private static boolean esDML(String tipo) {
+        return tipo.equals("INSERT") || tipo.equals("UPDATE") || tipo.equals("DELETE") || tipo.equals("REPLACE");
+    }
+    
+    private static String vistaPrevia(String sql) {
+        String compacta = sql.length() > LONGITUD_VISTA_PREVIA * 2 ? sql.substring(0, LONGITUD_VISTA_PREVIA * 2) : sql;
+        compacta = compacta.replaceAll("\\s+", " ").trim();
+        return compacta.length() > LONGITUD_VISTA_PREVIA ? compacta.substring(0, LONGITUD_VISTA_PREVIA) + "..." : compacta;
+    }
+    
+    /**
+     * Estado de una ejecución: lote pendiente, conteos y tiempos
+     */
+    private class Ejecucion {
+        Statement stmt;
+        int enLote = 0;
+        int lineaLote = 0;
+        String tipoLote = null;
+        String primeraDelLote = null;
+        
+        long sentencias = 0;
+        long lotes = 0;
+        long filasAfectadas = 0;
+        long errores = 0;
+        int lineaError = 0;
+        String primerError = null;
+        final Map<String, EstadisticaTipo> porTipo = new LinkedHashMap<>();
+        final PriorityQueue<SentenciaLenta> masLentas = new PriorityQueue<>(Comparator.comparingLong(s -> s.nanos));
+        
+        void recibir(String sql, int linea) throws SQLException {
+            String tipo = tipoSentencia(sql);
+            sentencias++;
+            
+            if (esDML(tipo)) {
+                if (enLote == 0) {
+                    lineaLote = linea;
+                    tipoLote = tipo;
+                    primeraDelLote = sql;
+                } else if (!tipo.equals(tipoLote)) {
+                    tipoLote = "DML";
+                }
+                stmt.addBatch(sql);
+                if (++enLote >= tamañoLote) {
+                    vaciarLote();
+                }
+                return;
+            }
+            
+            vaciarLote();
+            
+            long inicio = System.nanoTime();
+            try {
+                boolean tieneResultados = stmt.execute(sql);
+                if (!tieneResultados && stmt.getUpdateCount() > 0) {
+                    filasAfectadas += stmt.getUpdateCount();
+                }
+                conexion.commit();
+            } catch (SQLException e) {
+                registrarError(e, linea);
+            }
+            registrar(tipo, 1, false, System.nanoTime() - inicio, linea, sql);
+        }
+        
+        void vaciarLote() throws SQLException {
+            if (enLote == 0) {
+                return;
+            }
+            
+            long inicio = System.nanoTime();
+            try {
+                for (int filas : stmt.executeBatch()) {
+                    if (filas > 0) {
+                        filasAfectadas += filas;
+                    }
+                }
+                conexion.commit();
+            } catch (SQLException e) {
+                stmt.clearBatch();
+                try {
+                    conexion.rollback();
+                } catch (SQLException rollbackEx) {
+                    BITACORA.error("Error en rollback: " + rollbackEx.getMessage());
+                }
+                registrarError(e, lineaLote);
+            }
+            
+            lotes++;
+            registrar(tipoLote, enLote, true, System.nanoTime() - inicio, lineaLote, primeraDelLote);
+            enLote = 0;
+            primeraDelLote = null;
+        }
+        
+        private void registrarError(SQLException e, int linea) throws SQLException {
+            errores++;
+            if (primerError == null) {
+                primerError = e.getMessage();
+                lineaError = linea;
+            }
+            if (!continuarEnError) {
+                lineaError = linea;
+                throw e;
+            }
+            BITACORA.error("Error en la línea " + linea + " del script: " + e.getMessage());
+        }
+        
+        private void registrar(String tipo, int numero, boolean esLote, long nanos, int linea, String sql) {
+            EstadisticaTipo estadistica = porTipo.computeIfAbsent(tipo, EstadisticaTipo::new);
+            estadistica.sentencias += numero;
+            estadistica.nanos += nanos;
+            estadistica.maxNanos = Math.max(estadistica.maxNanos, nanos);
+            if (esLote) {
+                estadistica.lotes++;
+            }
+            
+            if (masLentas.size() < NUMERO_SENTENCIAS_LENTAS || nanos > masLentas.peek().nanos) {
+                masLentas.add(new SentenciaLenta(linea, numero > 1 ? tipo + " x" + numero : tipo, nanos, vistaPrevia(sql)));
+                if (masLentas.size() > NUMERO_SENTENCIAS_LENTAS) {
+                    masLentas.poll();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Analizador léxico del script: recorre los caracteres una sola vez con un buffer propio
+     */
+    private static class Analizador {
+        private final Reader lector;
+        private final char[] buffer = new char[TAMAÑO_BUFFER];
+        private int posicion = 0;
+        private int limite = 0;
+        
+        private final StringBuilder sentencia = new StringBuilder();
+        private boolean vacia = true; // La sentencia actual solo contiene espacios
+        private String delimitador = ";";
+        private int linea = 1;
+        private int lineaInicio = 1;
+        private boolean inicioDeLinea = true;
+        
+        Analizador(Reader lector) {
+            this.lector = lector;
+        }
+        
+        void recorrer(ReceptorSentencia receptor) throws IOException, SQLException {
+            int c;
+            while ((c = leer()) != -1) {
+                // Comando DELIMITER: solo al inicio de una línea (tras la sangría) y antes de cualquier otra cosa
+                if (inicioDeLinea && vacia && (c == 'D' || c == 'd') && esComandoDelimiter()) {
+                    leerNuevoDelimitador();
+                    continue;
+                }
+                if (c != ' ' && c != '\t' && c != '\r') {
+                    inicioDeLinea = false;
+                }
+                
+                if (c == '\n') {
+                    linea++;
+                    inicioDeLinea = true;
+                    agregar(c);
+                } else if (c == '\'' || c == '"' || c == '`') {
+                    agregar(c);
+                    leerCadena((char) c);
+                } else if (c == '-' && mirar(0) == '-' && esEspacioOFin(mirar(1))) {
+                    saltarLinea();
+                } else if (c == '#') {
+                    saltarLinea();
+                } else if (c == '/' && mirar(0) == '*') {
+                    leerComentarioBloque();
+                } else {
+                    agregar(c);
+                    if (c == delimitador.charAt(delimitador.length() - 1) && terminaConDelimitador()) {
+                        sentencia.setLength(sentencia.length() - delimitador.length());
+                        emitir(receptor);
+                    }
+                }
+            }
+            emitir(receptor);
+        }
+        
+        // Lectura con buffer propio
+        
+        private int leer() throws IOException {
+            if (posicion == limite && !llenar(1)) {
+                return -1;
+            }
+            return buffer[posicion++];
+        }
+        
+        private int mirar(int desplazamiento) throws IOException {
+            if (posicion + desplazamiento >= limite && !llenar(desplazamiento + 1)) {
+                return -1;
+            }
+            return buffer[posicion + desplazamiento];
+        }
+        
+        private boolean llenar(int minimo) throws IOException {
+            if (posicion > 0) {
+                System.arraycopy(buffer, posicion, buffer, 0, limite - posicion);
+                limite -= posicion;
+                posicion = 0;
+            }
+            while (limite < minimo) {
+                int leidos = lector.read(buffer, limite, buffer.length - limite);
+                if (leidos < 0) {
+                    return false;
+                }
+                limite += leidos;
+            }
+            return true;
+        }
+        
+        // Elementos del script
+        
+        private void agregar(int c) {
+            if (vacia) {
+                if (Character.isWhitespace(c)) {
+                    return;
+                }
+                vacia = false;
+                lineaInicio = linea;
+            }
+            sentencia.append((char) c);
+        }
+        
+        private void leerCadena(char comilla) throws IOException {
+            int c;
+            while ((c = leer()) != -1) {
+                if (c == '\n') {
+                    linea++;
+                }
+                sentencia.append((char) c);
+                if (c == '\\' && comilla != '`') {
+                    int escapado = leer();
+                    if (escapado == -1) {
+                        return;
+                    }
+                    if (escapado == '\n') {
+                        linea++;
+                    }
+                    sentencia.append((char) escapado);
+                } else if (c == comilla) {
+                    if (mirar(0) == comilla) {
+                        sentencia.append((char) leer());
+                    } else {
+                        return;
+                    }
+                }
+            }
+        }
+        
+        private void saltarLinea() throws IOException {
+            int c;
+            while ((c = mirar(0)) != -1 && c != '\n') {
+                posicion++;
+            }
+        }
+        
+        private void leerComentarioBloque() throws IOException {
+            leer(); // '*'
+            int tipo = mirar(0);
+            boolean conservar = tipo == '!' || tipo == '+';
+            if (conservar) {
+                agregar('/');
+                agregar('*');
+            } else {
+                agregar(' ');
+            }
+            
+            int c;
+            int anterior = -1;
+            while ((c = leer()) != -1) {
+                if (c == '\n') {
+                    linea++;
+                }
+                if (conservar) {
+                    sentencia.append((char) c);
+                }
+                if (anterior == '*' && c == '/') {
+                    return;
+                }
+                anterior = c;
+            }
+        }
+        
+        private boolean esComandoDelimiter() throws IOException {
+            String resto = "ELIMITER";
+            for (int i = 0; i < resto.length(); i++) {
+                int c = mirar(i);
+                if (c == -1 || Character.toUpperCase(c) != resto.charAt(i)) {
+                    return false;
+                }
+            }
+            int siguiente = mirar(resto.length());
+            return siguiente == ' ' || siguiente == '\t';
+        }
+        
+        private void leerNuevoDelimitador() throws IOException {
+            StringBuilder lineaComando = new StringBuilder();
+            int c;
+            while ((c = mirar(0)) != -1 && c != '\n') {
+                lineaComando.append((char) c);
+                posicion++;
+            }
+            String nuevo = lineaComando.substring("ELIMITER".length()).trim();
+            if (!nuevo.isEmpty()) {
+                delimitador = nuevo;
+            }
+        }
+        
+        private boolean terminaConDelimitador() {
+            int longitud = delimitador.length();
+            int inicio = sentencia.length() - longitud;
+            if (inicio < 0) {
+                return false;
+            }
+            for (int i = 0; i < longitud; i++) {
+                if (sentencia.charAt(inicio + i) != delimitador.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private void emitir(ReceptorSentencia receptor) throws SQLException {
+            String sql = sentencia.toString().trim();
+            sentencia.setLength(0);
+            vacia = true;
+            if (!sql.isEmpty()) {
+                receptor.aceptar(sql, lineaInicio);
+            }
+        }
+        
+        private static boolean esEspacioOFin(int c) {
+            return c == -1 || c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package utils;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias de rango dinámico alto (mismo esquema de cubetas que HdrHistogram)
+ * Cada potencia de dos se divide en 128 sub-cubetas lineales, así que cualquier valor
+ * registrado conserva un error relativo menor al 1% desde 1 hasta Long.MAX_VALUE
+ * Registrar no usa bloqueos ni reserva memoria: un incremento atómico en la cubeta y
+ * la actualización de suma, mínimo y máximo; varios hilos pueden registrar a la vez
+ * Las unidades las decide el llamador (normalmente nanosegundos)
+ */
+public class HistogramaLatencias {
+    
+    private static final int BITS_SUBCUBETA = 7;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int CUBETAS = SUBCUBETAS + (63 - BITS_SUBCUBETA) * SUBCUBETAS;
+    private static final int MARCAS_POR_MITAD = 5;
+    
+    private final AtomicLongArray conteos = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong minimo = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maximo = new AtomicLong(0);
+    
+    /**
+     * Registra un valor (los negativos se registran como 0)
+     * @param valor Valor a registrar
+     */
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        conteos.incrementAndGet(indice(valor));
+        total.increment();
+        suma.add(valor);
+        
+        long actual;
+        while (valor < (actual = minimo.get()) && !minimo.compareAndSet(actual, valor)) {
+            // Reintentar: otro hilo cambió el mínimo
+        }
+        while (valor > (actual = maximo.get()) && !maximo.compareAndSet(actual, valor)) {
+            // Reintentar: otro hilo cambió el máximo
+        }
+    }
+    
+    /**
+     * Registra un valor corrigiendo la omisión coordinada: si una operación tardó más
+     * que el intervalo con el que se debían emitir las solicitudes, también registra las
+     * latencias que habrían visto las solicitudes que no se enviaron mientras tanto
+     * @param valor Latencia medida
+     * @param intervaloEsperado Tiempo entre solicitudes de la carga (0 para no corregir)
+     */
+    public void registrarConCorreccion(long valor, long intervaloEsperado) {
+        registrar(valor);
+        if (intervaloEsperado <= 0) {
+            return;
+        }
+        for (long faltante = valor - intervaloEsperado; faltante >= intervaloEsperado; faltante -= intervaloEsperado) {
+            registrar(faltante);
+        }
+    }
+    
+    /**
+     * Suma los conteos de otro histograma a este
+     * @param otro Histograma a combinar
+     */
+    public void combinar(HistogramaLatencias otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            long conteo = otro.conteos.get(i);
+            if (conteo > 0) {
+                conteos.addAndGet(i, conteo);
+            }
+        }
+        total.add(otro.getConteo());
+        suma.add(otro.suma.sum());
+        minimo.accumulateAndGet(otro.minimo.get(), Math::min);
+        maximo.accumulateAndGet(otro.maximo.get(), Math::max);
+    }
+    
+    /**
+     * Descarta todos los valores registrados
+     * No es atómico respecto a los registros concurrentes: pensado para cambiar de periodo
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos.set(i, 0);
+        }
+        total.reset();
+        suma.reset();
+        minimo.set(Long.MAX_VALUE);
+        maximo.set(0);
+    }
+    
+    public long getConteo() {
+        return total.sum();
+    }
+    
+    public long getMinimo() {
+        return getConteo() > 0 ? minimo.get() : 0;
+    }
+    
+    public long getMaximo() {
+        return maximo.get();
+    }
+    
+    public double getPromedio() {
+        long conteo = getConteo();
+        return conteo > 0 ? (double) suma.sum() / conteo : 0.0;
+    }
+    
+    public long getSuma() {
+        return suma.sum();
+    }
+    
+    /**
+     * Obtiene el valor en un percentil
+     * @param percentil Percentil entre 0 y 100
+     * @return Mayor valor equivalente de la cubeta donde cae el percentil (0 si está vacío)
+     */
+    public long percentil(double percentil) {
+        long[] copia = copiarConteos();
+        long conteo = 0;
+        for (long c : copia) {
+            conteo += c;
+        }
+        return valorEnPercentil(copia, conteo, percentil);
+    }
+    
+    /**
+     * Escribe la distribución por percentiles en el formato de texto de HdrHistogram
+     * (.hgrm), que pueden graficar sus herramientas de visualización
+     * @param salida Destino del texto
+     * @param divisor Divisor de las unidades registradas (1e6 para pasar de ns a ms)
+     */
+    public void escribirDistribucion(PrintWriter salida, double divisor) {
+        long[] copia = copiarConteos();
+        long conteo = 0;
+        double sumaCuadrados = 0;
+        double media = getPromedio();
+        for (int i = 0; i < CUBETAS; i++) {
+            if (copia[i] > 0) {
+                conteo += copia[i];
+                double diferencia = (limiteInferior(i) + limiteSuperior(i)) / 2.0 - media;
+                sumaCuadrados += diferencia * diferencia * copia[i];
+            }
+        }
+        
+        salida.println(String.format(Locale.ROOT, "%12s %14s %10s %14s%n", "Value", "Percentile", "TotalCount",
+                                     "1/(1-Percentile)"));
+        if (conteo > 0) {
+            double percentil = 0;
+            while (true) {
+                long valor = valorEnPercentil(copia, conteo, percentil);
+                long acumulado = acumuladoHasta(copia, valor);
+                if (acumulado >= conteo || percentil >= 100) {
+                    salida.println(String.format(Locale.ROOT, "%12.3f %14.12f %10d", valor / divisor, 1.0, conteo));
+                    break;
+                }
+                salida.println(String.format(Locale.ROOT, "%12.3f %14.12f %10d %14.2f", valor / divisor,
+                                             percentil / 100, acumulado, 1 / (1 - percentil / 100)));
+                int nivel = (int) Math.floor(Math.log(100 / (100 - percentil)) / Math.log(2));
+                percentil += 100 / (MARCAS_POR_MITAD * Math.pow(2, nivel + 1));
+            }
+        }
+        double desviacion = conteo > 0 ? Math.sqrt(sumaCuadrados / conteo) : 0;
+        salida.println(String.format(Locale.ROOT, "#[Mean    = %12.3f, StdDeviation   = %12.3f]",
+                                     media / divisor, desviacion / divisor));
+        salida.println(String.format(Locale.ROOT, "#[Max     = %12.3f, Total count    = %12d]",
+                                     getMaximo() / divisor, conteo));
+        salida.println(String.format(Locale.ROOT, "#[Buckets = %12d, SubBuckets     = %12d]",
+                                     CUBETAS / SUBCUBETAS, SUBCUBETAS));
+        salida.flush();
+    }
+    
+    private long[] copiarConteos() {
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = conteos.get(i);
+        }
+        return copia;
+    }
+    
+    private long valorEnPercentil(long[] copia, long conteo, double percentil) {
+        if (conteo == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(Math.min(percentil, 100) / 100 * conteo));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+    
+    private static long acumuladoHasta(long[] copia, long valor) {
+        long acumulado = 0;
+        int limite = indice(valor);
+        for (int i = 0; i <= limite; i++) {
+            acumulado += copia[i];
+        }
+        return acumulado;
+    }
+    
+    /**
+     * Cubeta de un valor: los primeros 128 valores tienen cubeta propia; después cada
+     * potencia de dos se reparte en 128 cubetas de igual ancho
+     */
+    static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int desplazamiento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBCUBETA;
+        return SUBCUBETAS + desplazamiento * SUBCUBETAS + (int) ((valor >>> desplazamiento) - SUBCUBETAS);
+    }
+    
+    static long limiteInferior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int desplazamiento = (indice - SUBCUBETAS) / SUBCUBETAS;
+        return (long) (SUBCUBETAS + (indice - SUBCUBETAS) % SUBCUBETAS) << desplazamiento;
+    }
+    
+    static long limiteSuperior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int desplazamiento = (indice - SUBCUBETAS) / SUBCUBETAS;
+        return limiteInferior(indice) + (1L << desplazamiento) - 1;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d, min=%d, p50=%d, p90=%d, p99=%d, p99.9=%d, max=%d",
+                             getConteo(), getMinimo(), percentil(50), percentil(90), percentil(99),
+                             percentil(99.9), getMaximo());
+    }
+}
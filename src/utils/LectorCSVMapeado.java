@@ -0,0 +1,273 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de archivos CSV mediante memoria mapeada
+ * Divide el archivo en segmentos alineados a fin de línea para que puedan
+ * procesarse en paralelo; cada segmento se mapea y recorre de forma independiente
+ * Admite campos entre comillas dobles ("" como comilla escapada) que no abarquen varias líneas
+ */
+public class LectorCSVMapeado implements AutoCloseable {
+    
+    // Tamaño máximo de un segmento mapeado (un MappedByteBuffer no puede superar 2 GB)
+    private static final long MAX_BYTES_SEGMENTO = 256L * 1024 * 1024;
+    
+    private final FileChannel canal;
+    private final long tamañoArchivo;
+    private final String[] encabezados;
+    private final long inicioDatos;
+    private final char separador;
+    
+    /**
+     * Segmento del archivo delimitado por posiciones en bytes
+     */
+    public static class Segmento {
+        public final int indice;
+        public final long inicio;
+        public final long fin;
+        
+        public Segmento(int indice, long inicio, long fin) {
+            this.indice = indice;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+        
+        public long getTamaño() { return fin - inicio; }
+    }
+    
+    /**
+     * Recibe cada fila leída de un segmento
+     * El arreglo de campos se reutiliza entre filas: copiar lo que deba conservarse
+     */
+    @FunctionalInterface
+    public interface ConsumidorFila {
+        void aceptar(int lineaEnSegmento, String[] campos, int numeroCampos);
+    }
+    
+    /**
+     * Abre el archivo y lee la línea de encabezados
+     * @param archivo Ruta del archivo CSV (UTF-8)
+     * @param separador Separador de campos
+     * @throws IOException si el archivo no se puede abrir o está vacío
+     */
+    public LectorCSVMapeado(Path archivo, char separador) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        this.tamañoArchivo = canal.size();
+        this.separador = separador;
+        
+        if (tamañoArchivo == 0) {
+            canal.close();
+            throw new IOException("El archivo está vacío: " + archivo);
+        }
+        
+        // Leer encabezados desde el inicio del archivo, sin límite de longitud ni de columnas
+        long finEncabezados = avanzarAFinDeLinea(1);
+        MappedByteBuffer inicio = canal.map(FileChannel.MapMode.READ_ONLY, 0, finEncabezados);
+        int finLinea = (int) finEncabezados;
+        if (finLinea > 0 && inicio.get(finLinea - 1) == '\n') {
+            finLinea--;
+        }
+        
+        // Cada separador abre a lo más una columna (los que van entre comillas sobran)
+        int separadores = 0;
+        for (int i = 0; i < finLinea; i++) {
+            if (inicio.get(i) == separador) {
+                separadores++;
+            }
+        }
+        String[] campos = new String[separadores + 1];
+        int numero = dividirLinea(inicio, 0, finLinea, campos, new byte[256], separador);
+        this.encabezados = new String[numero];
+        for (int i = 0; i < numero; i++) {
+            // Quitar BOM de UTF-8 si existe
+            String encabezado = campos[i].trim();
+            if (i == 0 && !encabezado.isEmpty() && encabezado.charAt(0) == '\uFEFF') {
+                encabezado = encabezado.substring(1);
+            }
+            this.encabezados[i] = encabezado.toLowerCase();
+        }
+        this.inicioDatos = Math.min(finLinea + 1L, tamañoArchivo);
+    }
+    
+    /**
+     * Abre un archivo CSV separado por comas
+     */
+    public LectorCSVMapeado(Path archivo) throws IOException {
+        this(archivo, ',');
+    }
+    
+    public String[] getEncabezados() {
+        return encabezados.clone();
+    }
+    
+    /**
+     * Obtiene la posición de una columna por nombre de encabezado
+     * @param nombre Nombre de la columna (sin distinguir mayúsculas)
+     * @return Índice de la columna o -1 si no existe
+     */
+    public int indiceColumna(String nombre) {
+        for (int i = 0; i < encabezados.length; i++) {
+            if (encabezados[i].equalsIgnoreCase(nombre)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Divide los datos (sin encabezados) en segmentos que terminan en fin de línea
+     * @param numeroSegmentos Número deseado de segmentos; puede aumentar si el archivo es muy grande
+     * @return Lista ordenada de segmentos
+     * @throws IOException si hay error leyendo el archivo
+     */
+    public List<Segmento> dividirEnSegmentos(int numeroSegmentos) throws IOException {
+        List<Segmento> segmentos = new ArrayList<>();
+        long bytesDatos = tamañoArchivo - inicioDatos;
+        if (bytesDatos <= 0) {
+            return segmentos;
+        }
+        
+        long tamañoObjetivo = Math.max(1, bytesDatos / Math.max(1, numeroSegmentos));
+        tamañoObjetivo = Math.min(tamañoObjetivo, MAX_BYTES_SEGMENTO);
+        
+        long inicio = inicioDatos;
+        while (inicio < tamañoArchivo) {
+            long fin = Math.min(inicio + tamañoObjetivo, tamañoArchivo);
+            fin = avanzarAFinDeLinea(fin);
+            segmentos.add(new Segmento(segmentos.size(), inicio, fin));
+            inicio = fin;
+        }
+        
+        return segmentos;
+    }
+    
+    /**
+     * Recorre las líneas de un segmento y entrega sus campos al consumidor
+     * Las líneas vacías se cuentan pero no se entregan; una fila con más columnas que
+     * los encabezados se entrega con numeroCampos mayor que getEncabezados().length
+     * @param segmento Segmento a procesar
+     * @param consumidor Receptor de cada fila
+     * @return Número de líneas del segmento
+     * @throws IOException si hay error mapeando el archivo
+     */
+    public int procesarSegmento(Segmento segmento, ConsumidorFila consumidor) throws IOException {
+        MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, segmento.inicio, segmento.getTamaño());
+        // Un campo extra permite detectar filas con más columnas que los encabezados
+        String[] campos = new String[encabezados.length + 1];
+        byte[] temporal = new byte[256];
+        
+        int limite = buffer.limit();
+        int inicioLinea = 0;
+        int linea = 0;
+        
+        while (inicioLinea < limite) {
+            int finLinea = inicioLinea;
+            while (finLinea < limite && buffer.get(finLinea) != '\n') {
+                finLinea++;
+            }
+            
+            int finContenido = finLinea;
+            if (finContenido > inicioLinea && buffer.get(finContenido - 1) == '\r') {
+                finContenido--;
+            }
+            
+            if (finContenido > inicioLinea) {
+                int numero = dividirLinea(buffer, inicioLinea, finContenido, campos, temporal, separador);
+                consumidor.aceptar(linea, campos, numero);
+            }
+            
+            linea++;
+            inicioLinea = finLinea + 1;
+        }
+        
+        return linea;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+    
+    // Métodos auxiliares privados
+    
+    private long avanzarAFinDeLinea(long posicion) throws IOException {
+        if (posicion >= tamañoArchivo) {
+            return tamañoArchivo;
+        }
+        
+        // Buscar el siguiente salto de línea en bloques pequeños
+        long actual = posicion - 1;
+        while (actual < tamañoArchivo) {
+            long tamañoBloque = Math.min(64 * 1024, tamañoArchivo - actual);
+            MappedByteBuffer bloque = canal.map(FileChannel.MapMode.READ_ONLY, actual, tamañoBloque);
+            for (int i = 0; i < tamañoBloque; i++) {
+                if (bloque.get(i) == '\n') {
+                    return actual + i + 1;
+                }
+            }
+            actual += tamañoBloque;
+        }
+        return tamañoArchivo;
+    }
+    
+    /**
+     * Divide una línea en campos decodificando UTF-8 solo una vez por campo
+     * Separador y comillas son ASCII, por lo que se pueden buscar a nivel de byte
+     */
+    private static int dividirLinea(MappedByteBuffer buffer, int desde, int hasta, String[] campos,
+                                    byte[] temporal, char separador) {
+        int numero = 0;
+        int i = desde;
+        
+        while (i <= hasta && numero < campos.length) {
+            int longitud = 0;
+            
+            if (i < hasta && buffer.get(i) == '"') {
+                // Campo entre comillas
+                i++;
+                while (i < hasta) {
+                    byte b = buffer.get(i);
+                    if (b == '"') {
+                        if (i + 1 < hasta && buffer.get(i + 1) == '"') {
+                            b = '"';
+                            i++;
+                        } else {
+                            i++;
+                            break;
+                        }
+                    }
+                    if (longitud == temporal.length) {
+                        temporal = java.util.Arrays.copyOf(temporal, temporal.length * 2);
+                    }
+                    temporal[longitud++] = b;
+                    i++;
+                }
+                // Ignorar lo que haya entre la comilla de cierre y el separador
+                while (i < hasta && buffer.get(i) != separador) {
+                    i++;
+                }
+            } else {
+                while (i < hasta && buffer.get(i) != separador) {
+                    if (longitud == temporal.length) {
+                        temporal = java.util.Arrays.copyOf(temporal, temporal.length * 2);
+                    }
+                    temporal[longitud++] = buffer.get(i);
+                    i++;
+                }
+            }
+            
+            campos[numero++] = new String(temporal, 0, longitud, StandardCharsets.UTF_8);
+            i++; // Saltar el separador
+        }
+        
+        return numero;
+    }
+}
@@ -0,0 +1,76 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitador de tasa de cubeta de fichas compartido por varios hilos
+ * La cubeta se llena a la tasa configurada hasta un segundo de capacidad; quien pide más
+ * fichas de las disponibles las toma prestadas y duerme el tiempo que tarda la cubeta en
+ * reponerlas, de modo que una petición grande nunca se bloquea indefinidamente
+ * La tasa puede cambiarse en cualquier momento; 0 o negativo desactiva el límite
+ * Las unidades las decide el llamador (normalmente bytes)
+ */
+public class LimitadorTasa {
+    
+    private long unidadesPorSegundo;
+    private long disponibles;
+    private long ultimaRecargaNanos;
+    
+    /**
+     * Crea el limitador con la cubeta llena
+     * @param unidadesPorSegundo Tasa máxima (0 o negativo para no limitar)
+     */
+    public LimitadorTasa(long unidadesPorSegundo) {
+        this.unidadesPorSegundo = unidadesPorSegundo;
+        this.disponibles = Math.max(unidadesPorSegundo, 0);
+        this.ultimaRecargaNanos = System.nanoTime();
+    }
+    
+    /**
+     * Toma unidades de la cubeta, esperando si no alcanzan
+     * @param unidades Unidades a consumir
+     * @throws InterruptedException si el hilo se interrumpe durante la espera
+     */
+    public void adquirir(long unidades) throws InterruptedException {
+        long esperaNanos;
+        synchronized (this) {
+            if (unidadesPorSegundo <= 0) {
+                return;
+            }
+            recargar();
+            disponibles -= unidades;
+            esperaNanos = disponibles >= 0 ? 0
+                : (long) (-disponibles * (double) TimeUnit.SECONDS.toNanos(1) / unidadesPorSegundo);
+        }
+        if (esperaNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(esperaNanos);
+        }
+    }
+    
+    /**
+     * Cambia la tasa; la deuda de fichas se conserva
+     * @param unidadesPorSegundo Nueva tasa máxima (0 o negativo para no limitar)
+     */
+    public synchronized void setTasa(long unidadesPorSegundo) {
+        if (unidadesPorSegundo == this.unidadesPorSegundo) {
+            return;
+        }
+        recargar();
+        this.unidadesPorSegundo = unidadesPorSegundo;
+        disponibles = Math.min(disponibles, Math.max(unidadesPorSegundo, 0));
+    }
+    
+    public synchronized long getTasa() {
+        return unidadesPorSegundo;
+    }
+    
+    private void recargar() {
+        long ahora = System.nanoTime();
+        long transcurrido = ahora - ultimaRecargaNanos;
+        ultimaRecargaNanos = ahora;
+        if (unidadesPorSegundo > 0 && transcurrido > 0) {
+            long repuestas = (long) (transcurrido * (double) unidadesPorSegundo / TimeUnit.SECONDS.toNanos(1));
+            disponibles = Math.min(unidadesPorSegundo, disponibles + repuestas);
+        }
+    }
+}
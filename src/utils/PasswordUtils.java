@@ -6,7 +6,6 @@ import java.security.spec.InvalidKeySpecException;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import java.util.Base64;
-import java.util.regex.Pattern;
 
 /**
  * Clase utilitaria para el manejo seguro de contraseñas
@@ -21,12 +20,6 @@ public class PasswordUtils {
     private static final int SALT_LENGTH = 16;   // Longitud del salt en bytes
     private static final int HASH_LENGTH = 32;   // Longitud del hash en bytes
     
-    // Patrones para validación de contraseñas
-    private static final Pattern UPPERCASE_PATTERN = Pattern.compile(".*[A-Z].*");
-    private static final Pattern LOWERCASE_PATTERN = Pattern.compile(".*[a-z].*");
-    private static final Pattern DIGIT_PATTERN = Pattern.compile(".*[0-9].*");
-    private static final Pattern SPECIAL_CHAR_PATTERN = Pattern.compile(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*");
-    
     // Generador seguro de números aleatorios
     private static final SecureRandom RANDOM = new SecureRandom();
     
@@ -115,23 +108,26 @@ public class PasswordUtils {
             result.addError("La contraseña no puede exceder 128 caracteres");
         }
         
+        // Clasificar los caracteres en una sola pasada
+        int clases = ValidationUtils.clasificarCaracteres(password);
+        
         // Validar presencia de mayúsculas
-        if (!UPPERCASE_PATTERN.matcher(password).matches()) {
+        if ((clases & ValidationUtils.CLASE_MAYUSCULA) == 0) {
             result.addError("Debe contener al menos una letra mayúscula");
         }
         
         // Validar presencia de minúsculas
-        if (!LOWERCASE_PATTERN.matcher(password).matches()) {
+        if ((clases & ValidationUtils.CLASE_MINUSCULA) == 0) {
             result.addError("Debe contener al menos una letra minúscula");
         }
         
         // Validar presencia de dígitos
-        if (!DIGIT_PATTERN.matcher(password).matches()) {
+        if ((clases & ValidationUtils.CLASE_DIGITO) == 0) {
             result.addError("Debe contener al menos un dígito");
         }
         
         // Validar presencia de caracteres especiales
-        if (!SPECIAL_CHAR_PATTERN.matcher(password).matches()) {
+        if ((clases & ValidationUtils.CLASE_ESPECIAL) == 0) {
             result.addError("Debe contener al menos un carácter especial");
         }
         
@@ -141,7 +137,7 @@ public class PasswordUtils {
         }
         
         // Calcular puntuación de fortaleza
-        int puntuacion = calcularPuntuacionFortaleza(password);
+        int puntuacion = calcularPuntuacionFortaleza(password, clases);
         result.setPuntuacion(puntuacion);
         
         if (puntuacion < 60) {
@@ -316,17 +312,17 @@ public class PasswordUtils {
     /**
      * Calcula puntuación de fortaleza de 0 a 100
      */
-    private static int calcularPuntuacionFortaleza(String password) {
+    private static int calcularPuntuacionFortaleza(String password, int clases) {
         int puntuacion = 0;
         
         // Puntos por longitud
         puntuacion += Math.min(password.length() * 2, 20);
         
         // Puntos por variedad de caracteres
-        if (UPPERCASE_PATTERN.matcher(password).matches()) puntuacion += 15;
-        if (LOWERCASE_PATTERN.matcher(password).matches()) puntuacion += 15;
-        if (DIGIT_PATTERN.matcher(password).matches()) puntuacion += 15;
-        if (SPECIAL_CHAR_PATTERN.matcher(password).matches()) puntuacion += 20;
+        if ((clases & ValidationUtils.CLASE_MAYUSCULA) != 0) puntuacion += 15;
+        if ((clases & ValidationUtils.CLASE_MINUSCULA) != 0) puntuacion += 15;
+        if ((clases & ValidationUtils.CLASE_DIGITO) != 0) puntuacion += 15;
+        if ((clases & ValidationUtils.CLASE_ESPECIAL) != 0) puntuacion += 20;
         
         // Puntos por complejidad adicional
         if (password.length() >= 12) puntuacion += 10;
@@ -0,0 +1,539 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro central de métricas de la aplicación (contadores, temporizadores e indicadores)
+ * Cada serie se identifica por su nombre y sus etiquetas, se crea una sola vez y el código
+ * medido conserva la referencia: registrar un valor no usa bloqueos ni reserva memoria
+ * (contadores sobre LongAdder y latencias sobre HistogramaLatencias)
+ * Las series se pueden consultar desde el panel administrativo o volcar a un archivo en el
+ * formato de texto de Prometheus
+ */
+public class RegistroMetricas {
+    
+    // Cuantiles publicados para cada temporizador
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_POR_SEGUNDO = 1_000_000_000.0;
+    
+    private static volatile RegistroMetricas instance;
+    
+    private final ConcurrentHashMap<String, Contador> contadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Temporizador> temporizadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Indicador> indicadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> descripciones = new ConcurrentHashMap<>();
+    
+    private RegistroMetricas() {
+    }
+    
+    /**
+     * Obtiene la instancia única del registro
+     * @return Registro de métricas compartido
+     */
+    public static RegistroMetricas getInstance() {
+        if (instance == null) {
+            synchronized (RegistroMetricas.class) {
+                if (instance == null) {
+                    instance = new RegistroMetricas();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Obtiene (o crea) un contador monótono
+     * @param nombre Nombre de la métrica (snake_case, sin sufijo _total)
+     * @param descripcion Texto de ayuda de la familia
+     * @param etiquetas Pares nombre, valor de etiquetas
+     * @return Contador de la serie
+     */
+    public Contador contador(String nombre, String descripcion, String... etiquetas) {
+        String serie = identificador(nombre, etiquetas);
+        Contador contador = contadores.get(serie);
+        if (contador == null) {
+            descripciones.putIfAbsent(nombre, descripcion);
+            contador = contadores.computeIfAbsent(serie, _ -> new Contador(nombre, formatearEtiquetas(etiquetas)));
+        }
+        return contador;
+    }
+    
+    /**
+     * Obtiene (o crea) un temporizador de latencias en nanosegundos
+     * @param nombre Nombre de la métrica (se publica en segundos)
+     * @param descripcion Texto de ayuda de la familia
+     * @param etiquetas Pares nombre, valor de etiquetas
+     * @return Temporizador de la serie
+     */
+    public Temporizador temporizador(String nombre, String descripcion, String... etiquetas) {
+        String serie = identificador(nombre, etiquetas);
+        Temporizador temporizador = temporizadores.get(serie);
+        if (temporizador == null) {
+            descripciones.putIfAbsent(nombre, descripcion);
+            temporizador = temporizadores.computeIfAbsent(serie,
+                _ -> new Temporizador(nombre, formatearEtiquetas(etiquetas)));
+        }
+        return temporizador;
+    }
+    
+    /**
+     * Obtiene un grupo de temporizadores que comparten nombre y etiquetas fijas y se
+     * distinguen por el valor de una etiqueta adicional (por ejemplo el método medido)
+     * @param nombre Nombre de la métrica
+     * @param descripcion Texto de ayuda de la familia
+     * @param etiquetaVariable Nombre de la etiqueta que distingue a cada temporizador
+     * @param etiquetasFijas Pares nombre, valor comunes a todo el grupo
+     * @return Grupo de temporizadores
+     */
+    public GrupoTemporizadores grupo(String nombre, String descripcion, String etiquetaVariable,
+                                     String... etiquetasFijas) {
+        return new GrupoTemporizadores(nombre, descripcion, etiquetaVariable, etiquetasFijas);
+    }
+    
+    /**
+     * Registra un indicador cuyo valor se lee al momento de consultar las métricas
+     * Si la serie ya existía se reemplaza su fuente (la última instancia registrada gana)
+     * @param nombre Nombre de la métrica
+     * @param descripcion Texto de ayuda de la familia
+     * @param fuente Función que devuelve el valor actual; debe ser barata y segura entre hilos
+     * @param etiquetas Pares nombre, valor de etiquetas
+     */
+    public void indicador(String nombre, String descripcion, LongSupplier fuente, String... etiquetas) {
+        descripciones.putIfAbsent(nombre, descripcion);
+        indicadores.put(identificador(nombre, etiquetas), new Indicador(nombre, formatearEtiquetas(etiquetas), fuente));
+    }
+    
+    /**
+     * Suma los conteos de todas las series de un temporizador
+     * @param nombre Nombre de la métrica
+     * @return Operaciones registradas en la familia
+     */
+    public long totalOperaciones(String nombre) {
+        long total = 0;
+        for (Temporizador temporizador : temporizadores.values()) {
+            if (temporizador.nombre.equals(nombre)) {
+                total += temporizador.getConteo();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Suma los errores de todas las series de un temporizador
+     * @param nombre Nombre de la métrica
+     * @return Errores registrados en la familia
+     */
+    public long totalErrores(String nombre) {
+        long total = 0;
+        for (Temporizador temporizador : temporizadores.values()) {
+            if (temporizador.nombre.equals(nombre)) {
+                total += temporizador.getErrores();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene una fotografía de todas las series, ordenada por nombre, para mostrarla en pantalla
+     * @return Lista de muestras
+     */
+    public List<Muestra> obtenerMuestras() {
+        List<Muestra> muestras = new ArrayList<>();
+        for (Map.Entry<String, List<Serie>> familia : agruparPorFamilia().entrySet()) {
+            for (Serie serie : familia.getValue()) {
+                muestras.add(serie.muestra());
+            }
+        }
+        return muestras;
+    }
+    
+    /**
+     * Escribe todas las series en el formato de exposición de texto de Prometheus (0.0.4)
+     * @param salida Destino del texto
+     * @throws IOException si no se puede escribir
+     */
+    public void exportarPrometheus(Writer salida) throws IOException {
+        for (Map.Entry<String, List<Serie>> familia : agruparPorFamilia().entrySet()) {
+            List<Serie> series = familia.getValue();
+            Serie primera = series.get(0);
+            String nombre = primera.nombrePublicado();
+            String ayuda = descripciones.getOrDefault(familia.getKey(), familia.getKey());
+            
+            salida.write("# HELP " + nombre + " " + escaparAyuda(ayuda) + "\n");
+            salida.write("# TYPE " + nombre + " " + primera.tipo() + "\n");
+            for (Serie serie : series) {
+                serie.exportar(salida);
+            }
+            
+            // Los errores de los temporizadores se publican como una familia de contadores aparte
+            if (primera instanceof Temporizador) {
+                String nombreErrores = familia.getKey() + "_errores_total";
+                salida.write("# HELP " + nombreErrores + " Operaciones con error de " + familia.getKey() + "\n");
+                salida.write("# TYPE " + nombreErrores + " counter\n");
+                for (Serie serie : series) {
+                    Temporizador temporizador = (Temporizador) serie;
+                    salida.write(nombreErrores + llaves(temporizador.etiquetas) + " "
+                                 + temporizador.getErrores() + "\n");
+                }
+            }
+        }
+        salida.flush();
+    }
+    
+    /**
+     * Vuelca las métricas a un archivo local en formato Prometheus
+     * Se escribe a un temporal y se reemplaza el destino para que un lector (por ejemplo el
+     * textfile collector de node_exporter) nunca vea un archivo a medias
+     * @param destino Archivo de salida
+     * @throws IOException si no se puede escribir
+     */
+    public void volcarArchivo(Path destino) throws IOException {
+        Path directorio = destino.toAbsolutePath().getParent();
+        if (directorio != null) {
+            Files.createDirectories(directorio);
+        }
+        Path temporal = Files.createTempFile(directorio, destino.getFileName().toString(), ".tmp");
+        try {
+            try (Writer salida = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                exportarPrometheus(salida);
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+    
+    /**
+     * Reinicia contadores y temporizadores (los indicadores se leen siempre en vivo)
+     */
+    public void reiniciar() {
+        for (Contador contador : contadores.values()) {
+            contador.valor.reset();
+        }
+        for (Temporizador temporizador : temporizadores.values()) {
+            temporizador.histograma.reiniciar();
+            temporizador.errores.reset();
+        }
+    }
+    
+    private Map<String, List<Serie>> agruparPorFamilia() {
+        Map<String, List<Serie>> familias = new TreeMap<>();
+        agregarSeries(familias, new TreeMap<>(contadores));
+        agregarSeries(familias, new TreeMap<>(temporizadores));
+        agregarSeries(familias, new TreeMap<>(indicadores));
+        return familias;
+    }
+    
+    private static void agregarSeries(Map<String, List<Serie>> familias, Map<String, ? extends Serie> series) {
+        for (Serie serie : series.values()) {
+            familias.computeIfAbsent(serie.nombre, _ -> new ArrayList<>()).add(serie);
+        }
+    }
+    
+    private static String identificador(String nombre, String... etiquetas) {
+        return etiquetas.length == 0 ? nombre : nombre + llaves(formatearEtiquetas(etiquetas));
+    }
+    
+    private static String formatearEtiquetas(String... etiquetas) {
+        if (etiquetas.length % 2 != 0) {
+            throw new IllegalArgumentException("Las etiquetas deben indicarse en pares nombre, valor");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < etiquetas.length; i += 2) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(etiquetas[i]).append("=\"").append(escaparValor(etiquetas[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+    
+    private static String llaves(String etiquetas) {
+        return etiquetas.isEmpty() ? "" : "{" + etiquetas + "}";
+    }
+    
+    private static String llaves(String etiquetas, String extra) {
+        return "{" + (etiquetas.isEmpty() ? extra : etiquetas + "," + extra) + "}";
+    }
+    
+    private static String escaparValor(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    private static String escaparAyuda(String ayuda) {
+        return ayuda.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+    
+    private static String segundos(double nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_POR_SEGUNDO);
+    }
+    
+    /**
+     * Base común de las series
+     */
+    private abstract static class Serie {
+        final String nombre;
+        final String etiquetas;
+        
+        Serie(String nombre, String etiquetas) {
+            this.nombre = nombre;
+            this.etiquetas = etiquetas;
+        }
+        
+        abstract String tipo();
+        
+        String nombrePublicado() {
+            return nombre;
+        }
+        
+        abstract void exportar(Writer salida) throws IOException;
+        
+        abstract Muestra muestra();
+    }
+    
+    /**
+     * Contador monótono respaldado por un LongAdder (sin contención entre hilos)
+     */
+    public static final class Contador extends Serie {
+        private final LongAdder valor = new LongAdder();
+        
+        private Contador(String nombre, String etiquetas) {
+            super(nombre, etiquetas);
+        }
+        
+        public void incrementar() {
+            valor.increment();
+        }
+        
+        public void sumar(long cantidad) {
+            valor.add(cantidad);
+        }
+        
+        public long getValor() {
+            return valor.sum();
+        }
+        
+        @Override
+        String tipo() {
+            return "counter";
+        }
+        
+        @Override
+        String nombrePublicado() {
+            return nombre + "_total";
+        }
+        
+        @Override
+        void exportar(Writer salida) throws IOException {
+            salida.write(nombrePublicado() + llaves(etiquetas) + " " + getValor() + "\n");
+        }
+        
+        @Override
+        Muestra muestra() {
+            return new Muestra(nombrePublicado(), etiquetas, "contador", getValor(), 0, 0, 0, 0, 0);
+        }
+    }
+    
+    /**
+     * Temporizador de latencias: histograma en nanosegundos más un contador de errores
+     * Uso típico: {@code long inicio = System.nanoTime(); ... temporizador.registrar(inicio);}
+     */
+    public static final class Temporizador extends Serie {
+        private final HistogramaLatencias histograma = new HistogramaLatencias();
+        private final LongAdder errores = new LongAdder();
+        
+        private Temporizador(String nombre, String etiquetas) {
+            super(nombre, etiquetas);
+        }
+        
+        /**
+         * Registra la duración de una operación exitosa
+         * @param inicioNanos Valor de System.nanoTime() al iniciar la operación
+         */
+        public void registrar(long inicioNanos) {
+            histograma.registrar(System.nanoTime() - inicioNanos);
+        }
+        
+        /**
+         * Registra una duración ya medida
+         * @param duracionNanos Duración en nanosegundos
+         */
+        public void registrarDuracion(long duracionNanos) {
+            histograma.registrar(duracionNanos);
+        }
+        
+        /**
+         * Registra la duración de una operación que terminó en error
+         * @param inicioNanos Valor de System.nanoTime() al iniciar la operación
+         */
+        public void registrarError(long inicioNanos) {
+            histograma.registrar(System.nanoTime() - inicioNanos);
+            errores.increment();
+        }
+        
+        public long getConteo() {
+            return histograma.getConteo();
+        }
+        
+        public long getErrores() {
+            return errores.sum();
+        }
+        
+        public HistogramaLatencias getHistograma() {
+            return histograma;
+        }
+        
+        @Override
+        String tipo() {
+            return "summary";
+        }
+        
+        @Override
+        void exportar(Writer salida) throws IOException {
+            for (double cuantil : CUANTILES) {
+                salida.write(nombre + llaves(etiquetas, "quantile=\"" + cuantil + "\"") + " "
+                             + segundos(histograma.percentil(cuantil * 100)) + "\n");
+            }
+            salida.write(nombre + "_sum" + llaves(etiquetas) + " " + segundos(histograma.getSuma()) + "\n");
+            salida.write(nombre + "_count" + llaves(etiquetas) + " " + histograma.getConteo() + "\n");
+        }
+        
+        @Override
+        Muestra muestra() {
+            return new Muestra(nombre, etiquetas, "temporizador", histograma.getConteo(), getErrores(),
+                               histograma.getPromedio() / 1_000_000.0, histograma.percentil(50) / 1_000_000.0,
+                               histograma.percentil(99) / 1_000_000.0, histograma.getMaximo() / 1_000_000.0);
+        }
+    }
+    
+    /**
+     * Indicador cuyo valor se obtiene de una función al momento de leerlo
+     */
+    private static final class Indicador extends Serie {
+        private final LongSupplier fuente;
+        
+        private Indicador(String nombre, String etiquetas, LongSupplier fuente) {
+            super(nombre, etiquetas);
+            this.fuente = fuente;
+        }
+        
+        @Override
+        String tipo() {
+            return "gauge";
+        }
+        
+        @Override
+        void exportar(Writer salida) throws IOException {
+            salida.write(nombre + llaves(etiquetas) + " " + fuente.getAsLong() + "\n");
+        }
+        
+        @Override
+        Muestra muestra() {
+            return new Muestra(nombre, etiquetas, "indicador", fuente.getAsLong(), 0, 0, 0, 0, 0);
+        }
+    }
+    
+    /**
+     * Temporizadores de una misma familia indexados por el valor de una etiqueta
+     * La búsqueda de un valor ya visto es una lectura de ConcurrentHashMap
+     */
+    public final class GrupoTemporizadores {
+        private final String nombre;
+        private final String descripcion;
+        private final String etiquetaVariable;
+        private final String[] etiquetasFijas;
+        private final ConcurrentHashMap<String, Temporizador> porValor = new ConcurrentHashMap<>();
+        
+        private GrupoTemporizadores(String nombre, String descripcion, String etiquetaVariable,
+                                    String... etiquetasFijas) {
+            this.nombre = nombre;
+            this.descripcion = descripcion;
+            this.etiquetaVariable = etiquetaVariable;
+            this.etiquetasFijas = etiquetasFijas;
+        }
+        
+        /**
+         * @param valor Valor de la etiqueta variable
+         * @return Temporizador correspondiente
+         */
+        public Temporizador de(String valor) {
+            Temporizador temporizador = porValor.get(valor);
+            if (temporizador == null) {
+                temporizador = porValor.computeIfAbsent(valor, this::crear);
+            }
+            return temporizador;
+        }
+        
+        /**
+         * Atajo para registrar la duración de una operación exitosa
+         * @param valor Valor de la etiqueta variable
+         * @param inicioNanos Valor de System.nanoTime() al iniciar la operación
+         */
+        public void registrar(String valor, long inicioNanos) {
+            de(valor).registrar(inicioNanos);
+        }
+        
+        private Temporizador crear(String valor) {
+            String[] etiquetas = new String[etiquetasFijas.length + 2];
+            System.arraycopy(etiquetasFijas, 0, etiquetas, 0, etiquetasFijas.length);
+            etiquetas[etiquetasFijas.length] = etiquetaVariable;
+            etiquetas[etiquetasFijas.length + 1] = valor;
+            return temporizador(nombre, descripcion, etiquetas);
+        }
+    }
+    
+    /**
+     * Fotografía de una serie para mostrarla en tablas (tiempos en milisegundos)
+     */
+    public static class Muestra {
+        private final String nombre;
+        private final String etiquetas;
+        private final String tipo;
+        private final long valor;
+        private final long errores;
+        private final double promedioMs;
+        private final double p50Ms;
+        private final double p99Ms;
+        private final double maximoMs;
+        
+        public Muestra(String nombre, String etiquetas, String tipo, long valor, long errores,
+                       double promedioMs, double p50Ms, double p99Ms, double maximoMs) {
+            this.nombre = nombre;
+            this.etiquetas = etiquetas;
+            this.tipo = tipo;
+            this.valor = valor;
+            this.errores = errores;
+            this.promedioMs = promedioMs;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+            this.maximoMs = maximoMs;
+        }
+        
+        public String getNombre() { return nombre; }
+        public String getEtiquetas() { return etiquetas; }
+        public String getTipo() { return tipo; }
+        public long getValor() { return valor; }
+        public long getErrores() { return errores; }
+        public double getPromedioMs() { return promedioMs; }
+        public double getP50Ms() { return p50Ms; }
+        public double getP99Ms() { return p99Ms; }
+        public double getMaximoMs() { return maximoMs; }
+    }
+}
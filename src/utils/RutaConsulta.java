@@ -0,0 +1,19 @@
+package utils;
+
+/**
+ * Indica a DatabaseConnection a qué origen de datos debe ir una lectura
+ * Las réplicas se configuran con db.replicas en database.properties
+ */
+public enum RutaConsulta {
+    
+    /**
+     * Servidor principal: lecturas que deben ver las escrituras recién hechas
+     */
+    PRINCIPAL,
+    
+    /**
+     * Réplica de lectura si hay una disponible con retraso aceptable; si no, el principal
+     * Para reportes y estadísticas que toleran unos segundos de desfase
+     */
+    REPLICA
+}
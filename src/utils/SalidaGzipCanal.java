@@ -0,0 +1,103 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresión gzip directa sobre un canal NIO
+ * Los datos se comprimen desde el ByteBuffer recibido a un búfer directo que se escribe
+ * en el canal, sin pasar por OutputStream ni copias intermedias en arreglos
+ * El resultado es un miembro gzip estándar (se lee con gunzip o GZIPInputStream)
+ * No cierra el canal: el llamador llama terminar() y después cierra el canal
+ */
+public class SalidaGzipCanal implements AutoCloseable {
+    
+    private static final int TAMAÑO_BUFER = 64 * 1024;
+    
+    // Encabezado gzip mínimo: firma, método deflate, sin banderas ni fecha, sistema desconocido
+    private static final byte[] ENCABEZADO = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    
+    private final WritableByteChannel canal;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer comprimido = ByteBuffer.allocateDirect(TAMAÑO_BUFER);
+    private long bytesEntrada;
+    private long bytesSalida;
+    private boolean terminada;
+    
+    /**
+     * Escribe el encabezado gzip en el canal
+     * @param canal Canal destino (normalmente un FileChannel)
+     * @param nivel Nivel de compresión de Deflater
+     * @throws IOException si falla la escritura
+     */
+    public SalidaGzipCanal(WritableByteChannel canal, int nivel) throws IOException {
+        this.canal = canal;
+        this.deflater = new Deflater(nivel, true);
+        escribirCompleto(ByteBuffer.wrap(ENCABEZADO));
+    }
+    
+    /**
+     * Comprime y escribe los bytes restantes del búfer (queda consumido)
+     * @param datos Datos sin comprimir
+     * @throws IOException si falla la escritura
+     */
+    public void escribir(ByteBuffer datos) throws IOException {
+        if (terminada) {
+            throw new IllegalStateException("La salida gzip ya fue terminada");
+        }
+        bytesEntrada += datos.remaining();
+        crc.update(datos.duplicate());
+        deflater.setInput(datos);
+        // El compresor avanza la posición de datos conforme los consume
+        while (!deflater.needsInput()) {
+            vaciar();
+        }
+    }
+    
+    /**
+     * Escribe lo que queda comprimido y el pie gzip (CRC y tamaño original)
+     * @throws IOException si falla la escritura
+     */
+    public void terminar() throws IOException {
+        if (terminada) {
+            return;
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            vaciar();
+        }
+        ByteBuffer pie = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        pie.putInt((int) crc.getValue()).putInt((int) bytesEntrada).flip();
+        escribirCompleto(pie);
+        terminada = true;
+    }
+    
+    public long getBytesEntrada() { return bytesEntrada; }
+    public long getBytesSalida() { return bytesSalida; }
+    
+    /**
+     * Libera la memoria nativa del compresor (no termina el archivo ni cierra el canal)
+     */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+    
+    private void vaciar() throws IOException {
+        comprimido.clear();
+        deflater.deflate(comprimido);
+        comprimido.flip();
+        escribirCompleto(comprimido);
+    }
+    
+    private void escribirCompleto(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            bytesSalida += canal.write(buffer);
+        }
+    }
+}
@@ -20,13 +20,64 @@ public class ValidationUtils {
         "^[a-zA-Z0-9.!#$%&'*+/=?^_`{|}~-]+@[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)*$"
     );
     
-    private static final Pattern TELEFONO_PATTERN = Pattern.compile("^[0-9]{10}$");
     private static final Pattern RFC_PATTERN = Pattern.compile("^[A-ZÑ&]{3,4}[0-9]{2}(0[1-9]|1[0-2])(0[1-9]|[12][0-9]|3[01])[A-Z0-9]{2}[0-9A]$");
-    private static final Pattern CURP_PATTERN = Pattern.compile("^[A-Z]{1}[AEIOUX]{1}[A-Z]{2}[0-9]{2}(0[1-9]|1[0-2])(0[1-9]|[12][0-9]|3[01])[HM]{1}(AS|BC|BS|CC|CH|CL|CM|CS|DF|DG|GR|GT|HG|JC|MC|MN|MS|NT|NL|OC|PL|QT|QR|SP|SL|SR|TC|TL|TS|VZ|YN|ZS|NE)[B-DF-HJ-NP-TV-Z]{3}[0-9A-Z]{1}[0-9]{1}$");
     private static final Pattern CODIGO_POSTAL_PATTERN = Pattern.compile("^[0-9]{5}$");
     private static final Pattern SOLO_LETRAS_PATTERN = Pattern.compile("^[a-zA-ZáéíóúñÁÉÍÓÚÑ\\s]+$");
     private static final Pattern ALFANUMERICO_PATTERN = Pattern.compile("^[a-zA-Z0-9áéíóúñÁÉÍÓÚÑ\\s]+$");
     
+    // Clases de carácter para el validador de CURP (bits combinables)
+    private static final byte C_DIGITO = 1;
+    private static final byte C_LETRA = 2;
+    private static final byte C_VOCAL = 4;       // A, E, I, O, U, X
+    private static final byte C_SEXO = 8;        // H, M
+    private static final byte C_CONSONANTE = 16; // B-D, F-H, J-N, P-T, V-Z
+    
+    // Clase de carácter de cada ASCII y clase requerida por cada posición de la CURP
+    private static final byte[] CLASE_ASCII = new byte[128];
+    private static final byte[] CLASE_POSICION_CURP = {
+        C_LETRA, C_VOCAL, C_LETRA, C_LETRA,            // Apellidos y nombre
+        C_DIGITO, C_DIGITO, C_DIGITO, C_DIGITO, C_DIGITO, C_DIGITO, // Fecha AAMMDD
+        C_SEXO,
+        C_LETRA, C_LETRA,                              // Entidad federativa
+        C_CONSONANTE, C_CONSONANTE, C_CONSONANTE,      // Consonantes internas
+        (byte) (C_DIGITO | C_LETRA),                   // Homoclave
+        C_DIGITO                                       // Dígito verificador
+    };
+    
+    // Entidades federativas válidas indexadas por (letra1 - 'A') * 26 + (letra2 - 'A')
+    private static final boolean[] ENTIDAD_CURP = new boolean[26 * 26];
+    
+    // Clases de carácter para contraseñas (bits devueltos por clasificarCaracteres)
+    static final int CLASE_MAYUSCULA = 1;
+    static final int CLASE_MINUSCULA = 2;
+    static final int CLASE_DIGITO = 4;
+    static final int CLASE_ESPECIAL = 8;
+    private static final String CARACTERES_ESPECIALES = "!@#$%^&*()_+-=[]{};':\"\\|,.<>/?";
+    
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CLASE_ASCII[c] = C_DIGITO;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASE_ASCII[c] = C_LETRA;
+            if ("AEIOU".indexOf(c) < 0) {
+                CLASE_ASCII[c] |= C_CONSONANTE;
+            }
+        }
+        for (char c : "AEIOUX".toCharArray()) {
+            CLASE_ASCII[c] |= C_VOCAL;
+        }
+        CLASE_ASCII['H'] |= C_SEXO;
+        CLASE_ASCII['M'] |= C_SEXO;
+        
+        String[] entidades = {"AS", "BC", "BS", "CC", "CH", "CL", "CM", "CS", "DF", "DG", "GR", "GT",
+            "HG", "JC", "MC", "MN", "MS", "NT", "NL", "OC", "PL", "QT", "QR", "SP", "SL", "SR",
+            "TC", "TL", "TS", "VZ", "YN", "ZS", "NE"};
+        for (String entidad : entidades) {
+            ENTIDAD_CURP[(entidad.charAt(0) - 'A') * 26 + (entidad.charAt(1) - 'A')] = true;
+        }
+    }
+    
     // Formateadores de fecha
     private static final DateTimeFormatter FECHA_FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter FECHA_HORA_FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -111,17 +162,10 @@ public class ValidationUtils {
             return result;
         }
         
-        // Limpiar el teléfono removiendo espacios, guiones y paréntesis
-        String telefonoLimpio = telefono.replaceAll("[\\s\\-\\(\\)]", "");
-        
-        // Remover código de país si está presente
-        if (telefonoLimpio.startsWith("+52")) {
-            telefonoLimpio = telefonoLimpio.substring(3);
-        } else if (telefonoLimpio.startsWith("52") && telefonoLimpio.length() == 12) {
-            telefonoLimpio = telefonoLimpio.substring(2);
-        }
+        // Limpiar el teléfono removiendo espacios, guiones, paréntesis y código de país
+        String telefonoLimpio = normalizarTelefono(telefono);
         
-        if (!TELEFONO_PATTERN.matcher(telefonoLimpio).matches()) {
+        if (!sonDiezDigitos(telefonoLimpio)) {
             result.addError("El teléfono debe tener 10 dígitos");
         }
         
@@ -147,7 +191,7 @@ public class ValidationUtils {
             return result;
         }
         
-        if (!CURP_PATTERN.matcher(curpLimpia).matches()) {
+        if (!esFormatoCURP(curpLimpia)) {
             result.addError("Formato de CURP inválido");
             return result;
         }
@@ -453,23 +497,176 @@ public class ValidationUtils {
     
     private static boolean validarDigitoVerificadorCURP(String curp) {
         // Implementación simplificada del algoritmo de verificación de CURP
-        String alfabeto = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        // Requiere que el formato ya esté validado: las 17 primeras posiciones son [0-9A-Z]
         int suma = 0;
         
         for (int i = 0; i < 17; i++) {
             char c = curp.charAt(i);
-            int valor = alfabeto.indexOf(c);
+            int valor = c <= '9' ? c - '0' : c - 'A' + 10;
             suma += valor * (18 - i);
         }
         
         int residuo = suma % 10;
         int digitoEsperado = (10 - residuo) % 10;
         
-        char ultimoCaracter = curp.charAt(17);
-        int digitoReal = Character.isDigit(ultimoCaracter) ? 
-                        Character.getNumericValue(ultimoCaracter) : 0;
+        return curp.charAt(17) - '0' == digitoEsperado;
+    }
+    
+    /**
+     * Verifica el formato de una CURP ya limpia (18 caracteres en mayúsculas)
+     * Autómata dirigido por tabla: cada posición exige una clase de carácter y
+     * mes, día y entidad federativa se comprueban por pares sin expresiones regulares
+     */
+    private static boolean esFormatoCURP(String curp) {
+        if (curp.length() != 18) {
+            return false;
+        }
+        
+        for (int i = 0; i < 18; i++) {
+            char c = curp.charAt(i);
+            if (c >= 128 || (CLASE_ASCII[c] & CLASE_POSICION_CURP[i]) == 0) {
+                return false;
+            }
+        }
+        
+        int mes = (curp.charAt(6) - '0') * 10 + (curp.charAt(7) - '0');
+        int dia = (curp.charAt(8) - '0') * 10 + (curp.charAt(9) - '0');
+        if (mes < 1 || mes > 12 || dia < 1 || dia > 31) {
+            return false;
+        }
+        
+        return ENTIDAD_CURP[(curp.charAt(11) - 'A') * 26 + (curp.charAt(12) - 'A')];
+    }
+    
+    /**
+     * Valida una CURP sin crear objetos intermedios (equivale a validarCURP(curp).isValido())
+     * Recorta y convierte a mayúsculas al vuelo; solo recurre a validarCURP si hay caracteres no ASCII
+     */
+    private static boolean esCURPValida(String curp) {
+        if (curp == null) {
+            return false;
+        }
+        
+        // Límites equivalentes a trim()
+        int inicio = 0;
+        int fin = curp.length();
+        while (inicio < fin && curp.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && curp.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        
+        if (fin - inicio != 18) {
+            // Solo la conversión a mayúsculas de caracteres no ASCII (p. ej. 'ß') puede cambiar la longitud
+            for (int i = inicio; i < fin; i++) {
+                if (curp.charAt(i) >= 128) {
+                    return validarCURP(curp).isValido();
+                }
+            }
+            return false;
+        }
+        
+        int suma = 0;
+        int mes = 0;
+        int dia = 0;
+        int entidad = 0;
+        
+        for (int i = 0; i < 18; i++) {
+            char c = curp.charAt(inicio + i);
+            if (c >= 128) {
+                return validarCURP(curp).isValido();
+            }
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if ((CLASE_ASCII[c] & CLASE_POSICION_CURP[i]) == 0) {
+                return false;
+            }
+            
+            int valor = c <= '9' ? c - '0' : c - 'A' + 10;
+            switch (i) {
+                case 6: case 7: mes = mes * 10 + valor; break;
+                case 8: case 9: dia = dia * 10 + valor; break;
+                case 11: case 12: entidad = entidad * 26 + (c - 'A'); break;
+                default: break;
+            }
+            if (i < 17) {
+                suma += valor * (18 - i);
+            } else if (valor != (10 - suma % 10) % 10) {
+                return false;
+            }
+        }
+        
+        return mes >= 1 && mes <= 12 && dia >= 1 && dia <= 31 && ENTIDAD_CURP[entidad];
+    }
+    
+    /**
+     * Normaliza un teléfono en una sola pasada sobre un búfer de caracteres:
+     * elimina espacios, guiones y paréntesis y después el código de país (+52, o 52 con 12 dígitos)
+     */
+    private static String normalizarTelefono(String telefono) {
+        char[] buffer = new char[telefono.length()];
+        int longitud = 0;
+        
+        for (int i = 0; i < telefono.length(); i++) {
+            char c = telefono.charAt(i);
+            // Mismos separadores que [\s\-\(\)]
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+                    || c == '-' || c == '(' || c == ')') {
+                continue;
+            }
+            buffer[longitud++] = c;
+        }
+        
+        int inicio = 0;
+        if (longitud >= 3 && buffer[0] == '+' && buffer[1] == '5' && buffer[2] == '2') {
+            inicio = 3;
+        } else if (longitud == 12 && buffer[0] == '5' && buffer[1] == '2') {
+            inicio = 2;
+        }
+        
+        return new String(buffer, inicio, longitud - inicio);
+    }
+    
+    private static boolean sonDiezDigitos(String valor) {
+        if (valor.length() != 10) {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            char c = valor.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Clasifica los caracteres de un texto en una sola pasada
+     * Equivale a evaluar .*[A-Z].*, .*[a-z].*, .*[0-9].* y la clase de especiales con matches():
+     * como en esas expresiones, un salto de línea impide cualquier coincidencia
+     * @return Combinación de CLASE_MAYUSCULA, CLASE_MINUSCULA, CLASE_DIGITO y CLASE_ESPECIAL
+     */
+    static int clasificarCaracteres(String texto) {
+        int clases = 0;
+        
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                clases |= CLASE_MAYUSCULA;
+            } else if (c >= 'a' && c <= 'z') {
+                clases |= CLASE_MINUSCULA;
+            } else if (c >= '0' && c <= '9') {
+                clases |= CLASE_DIGITO;
+            } else if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return 0;
+            } else if (CARACTERES_ESPECIALES.indexOf(c) >= 0) {
+                clases |= CLASE_ESPECIAL;
+            }
+        }
         
-        return digitoReal == digitoEsperado;
+        return clases;
     }
     
     /**
@@ -499,7 +696,7 @@ public class ValidationUtils {
         String folioLimpio = folio.trim().toUpperCase();
         
         // Formato esperado: TRG-YYYY-NNNN
-        if (!folioLimpio.matches("^TRG-\\d{4}-\\d{4}$")) {
+        if (!folioLimpio.matches("^TRG-\\d{4}-\\d{4,}$")) {
             result.addError("Formato de folio inválido (debe ser TRG-YYYY-NNNN)");
         }
         
@@ -559,11 +756,11 @@ public class ValidationUtils {
      * Versiones que retornan boolean para compatibilidad
      */
     public static boolean validarTelefonoBoolean(String telefono) {
-        return validarTelefono(telefono).isValido();
+        return !esVacioONulo(telefono) && sonDiezDigitos(normalizarTelefono(telefono));
     }
     
     public static boolean validarCURPBoolean(String curp) {
-        return validarCURP(curp).isValido();
+        return esCURPValida(curp);
     }
     
     public static boolean validarRFCBoolean(String rfc) {
@@ -615,23 +812,9 @@ public class ValidationUtils {
             return false;
         }
         
-        if (!pass.matches(".*[A-Z].*")) {
-            return false;
-        }
-        
-        if (!pass.matches(".*[a-z].*")) {
-            return false;
-        }
-        
-        if (!pass.matches(".*[0-9].*")) {
-            return false;
-        }
-        
-        if (!pass.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*")) {
-            return false;
-        }
-        
-        return true;
+        // Mayúscula, minúscula, dígito y carácter especial en una sola pasada
+        int requeridas = CLASE_MAYUSCULA | CLASE_MINUSCULA | CLASE_DIGITO | CLASE_ESPECIAL;
+        return clasificarCaracteres(pass) == requeridas;
     }
     
     /**
@@ -649,14 +832,14 @@ public class ValidationUtils {
      * Valida teléfono (versión boolean)
      */
     public static boolean isValidTelefono(String telefono) {
-        return validarTelefono(telefono).isValido();
+        return validarTelefonoBoolean(telefono);
     }
     
     /**
      * Valida CURP (versión boolean)
      */
     public static boolean isValidCURP(String curp) {
-        return validarCURP(curp).isValido();
+        return esCURPValida(curp);
     }
     
     /**